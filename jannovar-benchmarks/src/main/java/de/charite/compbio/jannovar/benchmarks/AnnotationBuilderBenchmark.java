@@ -0,0 +1,99 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.charite.compbio.jannovar.annotation.InvalidGenomeVariant;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderDispatcher;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.annotation.builders.StructuralVariantAnnotationBuilder;
+import de.charite.compbio.jannovar.data.SerializationException;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Benchmark for the annotation builders, for variants overlapping with a transcript
+ *
+ * In contrast to {@link VariantAnnotatorBenchmark}, the transcript lookup is not part of the measurement. The
+ * variants are dispatched to the builders through {@link AnnotationBuilderDispatcher}, structural variants are
+ * annotated with {@link StructuralVariantAnnotationBuilder}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnnotationBuilderBenchmark {
+
+	/** Number of (variant, transcript) pairs to annotate per benchmark invocation */
+	static final int NUM_VARIANTS = 1_000;
+
+	/** Name of the mini database to use */
+	@Param({ "fbn1", "ctns" })
+	public String db;
+
+	/** Kind of the variants to annotate, selects the annotation builder */
+	@Param
+	public SyntheticVariants.Kind kind;
+
+	/** Configuration for the annotation builders */
+	private AnnotationBuilderOptions options;
+	/** The variants to annotate */
+	private List<GenomeVariant> variants;
+	/** The transcript to annotate each variant with */
+	private List<TranscriptModel> transcripts;
+
+	@Setup
+	public void setUp() throws SerializationException {
+		final MiniDatabase miniDB = MiniDatabase.load(db);
+		options = new AnnotationBuilderOptions();
+		variants = new ArrayList<>(NUM_VARIANTS);
+		transcripts = new ArrayList<>(NUM_VARIANTS);
+
+		// Generate variants and keep those overlapping with a transcript
+		final SyntheticVariants generator = new SyntheticVariants(miniDB, 42);
+		while (variants.size() < NUM_VARIANTS) {
+			for (GenomeVariant variant : generator.generate(kind, NUM_VARIANTS)) {
+				final int beginPos = variant.getGenomeInterval().getBeginPos();
+				final int endPos = Math.max(beginPos + 1, variant.getGenomeInterval().getEndPos());
+				final List<TranscriptModel> overlapping = miniDB.getChromosome().getTMIntervalTree()
+						.findOverlappingWithInterval(beginPos, endPos).getEntries();
+				if (!overlapping.isEmpty() && variants.size() < NUM_VARIANTS) {
+					variants.add(variant);
+					transcripts.add(overlapping.get(variants.size() % overlapping.size()));
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_VARIANTS)
+	public void build(Blackhole bh) throws InvalidGenomeVariant {
+		if (kind == SyntheticVariants.Kind.SV) {
+			for (int i = 0; i < NUM_VARIANTS; ++i)
+				bh.consume(new StructuralVariantAnnotationBuilder(transcripts.get(i), variants.get(i)).build());
+		} else {
+			for (int i = 0; i < NUM_VARIANTS; ++i)
+				bh.consume(new AnnotationBuilderDispatcher(transcripts.get(i), variants.get(i), options).build());
+		}
+	}
+
+}
@@ -0,0 +1,304 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Benchmark results read from a JSON file written by JMH (<code>-rf json</code>), for comparison with a new run
+ *
+ * Only the parts of the file that are needed for the comparison are kept: the primary score and the normalized
+ * allocation rate of the GC profiler, keyed by benchmark name and parameters (see {@link #key}).
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class BenchmarkBaseline {
+
+	/** Label of the normalized allocation rate in the GC profiler results */
+	public static final String ALLOC_RATE_NORM = "\u00b7gc.alloc.rate.norm";
+
+	/** Stored results of one benchmark */
+	public static final class Entry {
+
+		/** Primary score */
+		private final double score;
+		/** Unit of the primary score */
+		private final String scoreUnit;
+		/** Allocated bytes per operation, <code>NaN</code> if not available */
+		private final double allocPerOp;
+
+		Entry(double score, String scoreUnit, double allocPerOp) {
+			this.score = score;
+			this.scoreUnit = scoreUnit;
+			this.allocPerOp = allocPerOp;
+		}
+
+		public double getScore() {
+			return score;
+		}
+
+		public String getScoreUnit() {
+			return scoreUnit;
+		}
+
+		public double getAllocPerOp() {
+			return allocPerOp;
+		}
+
+	}
+
+	/** Entries by key */
+	private final Map<String, Entry> entries;
+
+	private BenchmarkBaseline(Map<String, Entry> entries) {
+		this.entries = entries;
+	}
+
+	/**
+	 * @param benchmark
+	 *            fully qualified benchmark method name
+	 * @param params
+	 *            benchmark parameters
+	 * @return key for looking up benchmark results
+	 */
+	public static String key(String benchmark, Map<String, String> params) {
+		StringBuilder builder = new StringBuilder(benchmark);
+		for (Map.Entry<String, String> e : new TreeMap<>(params).entrySet())
+			builder.append(':').append(e.getKey()).append('=').append(e.getValue());
+		return builder.toString();
+	}
+
+	/** @return {@link Entry} for the given key, <code>null</code> if not found */
+	public Entry get(String key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Read baseline from JMH JSON result file
+	 *
+	 * @param file
+	 *            path to the JSON file
+	 * @return the read {@link BenchmarkBaseline}
+	 * @throws IOException
+	 *             on problems with reading the file or if the file is not a valid JMH result file
+	 */
+	@SuppressWarnings("unchecked")
+	public static BenchmarkBaseline read(File file) throws IOException {
+		final String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		final Object root;
+		try {
+			root = new JsonParser(json).parse();
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Invalid JSON in " + file + ": " + e.getMessage(), e);
+		}
+		if (!(root instanceof List))
+			throw new IOException("Expected JSON array of benchmark results in " + file);
+
+		Map<String, Entry> entries = new HashMap<>();
+		for (Object obj : (List<Object>) root) {
+			try {
+				final Map<String, Object> result = (Map<String, Object>) obj;
+				final Map<String, String> params = new HashMap<>();
+				if (result.get("params") != null)
+					for (Map.Entry<String, Object> e : ((Map<String, Object>) result.get("params")).entrySet())
+						params.put(e.getKey(), (String) e.getValue());
+				final Map<String, Object> primary = (Map<String, Object>) result.get("primaryMetric");
+				double allocPerOp = Double.NaN;
+				final Map<String, Object> secondary = (Map<String, Object>) result.get("secondaryMetrics");
+				if (secondary != null && secondary.get(ALLOC_RATE_NORM) != null)
+					allocPerOp = toDouble(((Map<String, Object>) secondary.get(ALLOC_RATE_NORM)).get("score"));
+				entries.put(key((String) result.get("benchmark"), params), new Entry(toDouble(primary.get("score")),
+						(String) primary.get("scoreUnit"), allocPerOp));
+			} catch (ClassCastException | NullPointerException | NumberFormatException e) {
+				throw new IOException("Invalid benchmark result in " + file, e);
+			}
+		}
+		return new BenchmarkBaseline(entries);
+	}
+
+	/** @return <code>value</code> as double, JMH writes non-finite numbers as strings, e.g., "NaN" */
+	private static double toDouble(Object value) {
+		if (value instanceof String)
+			return Double.parseDouble((String) value);
+		else
+			return (Double) value;
+	}
+
+	/**
+	 * Minimal JSON parser, sufficient for the files written by JMH
+	 *
+	 * Objects are parsed into {@link LinkedHashMap}s, arrays into {@link ArrayList}s, and numbers into {@link Double}s.
+	 */
+	static final class JsonParser {
+
+		/** The JSON text */
+		private final String text;
+		/** Current position in {@link #text} */
+		private int pos = 0;
+
+		JsonParser(String text) {
+			this.text = text;
+		}
+
+		/** @return parsed value, throws {@link IllegalArgumentException} on invalid input */
+		Object parse() {
+			final Object result = parseValue();
+			skipWhitespace();
+			if (pos != text.length())
+				throw error("trailing characters");
+			return result;
+		}
+
+		private Object parseValue() {
+			skipWhitespace();
+			if (pos >= text.length())
+				throw error("unexpected end of input");
+			final char c = text.charAt(pos);
+			if (c == '{')
+				return parseObject();
+			else if (c == '[')
+				return parseArray();
+			else if (c == '"')
+				return parseString();
+			else if (text.startsWith("true", pos))
+				return literal("true", Boolean.TRUE);
+			else if (text.startsWith("false", pos))
+				return literal("false", Boolean.FALSE);
+			else if (text.startsWith("null", pos))
+				return literal("null", null);
+			else
+				return parseNumber();
+		}
+
+		private Object literal(String token, Object value) {
+			pos += token.length();
+			return value;
+		}
+
+		private Map<String, Object> parseObject() {
+			Map<String, Object> result = new LinkedHashMap<>();
+			expect('{');
+			skipWhitespace();
+			if (peek() == '}') {
+				++pos;
+				return result;
+			}
+			while (true) {
+				skipWhitespace();
+				final String key = parseString();
+				skipWhitespace();
+				expect(':');
+				result.put(key, parseValue());
+				skipWhitespace();
+				if (peek() == ',') {
+					++pos;
+				} else {
+					expect('}');
+					return result;
+				}
+			}
+		}
+
+		private List<Object> parseArray() {
+			List<Object> result = new ArrayList<>();
+			expect('[');
+			skipWhitespace();
+			if (peek() == ']') {
+				++pos;
+				return result;
+			}
+			while (true) {
+				result.add(parseValue());
+				skipWhitespace();
+				if (peek() == ',') {
+					++pos;
+				} else {
+					expect(']');
+					return result;
+				}
+			}
+		}
+
+		private String parseString() {
+			expect('"');
+			StringBuilder builder = new StringBuilder();
+			while (true) {
+				if (pos >= text.length())
+					throw error("unterminated string");
+				final char c = text.charAt(pos++);
+				if (c == '"')
+					return builder.toString();
+				if (c != '\\') {
+					builder.append(c);
+					continue;
+				}
+				final char esc = text.charAt(pos++);
+				switch (esc) {
+				case 'b':
+					builder.append('\b');
+					break;
+				case 'f':
+					builder.append('\f');
+					break;
+				case 'n':
+					builder.append('\n');
+					break;
+				case 'r':
+					builder.append('\r');
+					break;
+				case 't':
+					builder.append('\t');
+					break;
+				case 'u':
+					builder.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+					pos += 4;
+					break;
+				default:
+					builder.append(esc);
+				}
+			}
+		}
+
+		private Double parseNumber() {
+			final int begin = pos;
+			while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) != -1)
+				++pos;
+			final String token = text.substring(begin, pos);
+			try {
+				return Double.valueOf(token);
+			} catch (NumberFormatException e) {
+				throw error("invalid number \"" + token + "\"");
+			}
+		}
+
+		private char peek() {
+			if (pos >= text.length())
+				throw error("unexpected end of input");
+			return text.charAt(pos);
+		}
+
+		private void expect(char c) {
+			if (peek() != c)
+				throw error("expected '" + c + "'");
+			++pos;
+		}
+
+		private void skipWhitespace() {
+			while (pos < text.length() && Character.isWhitespace(text.charAt(pos)))
+				++pos;
+		}
+
+		private IllegalArgumentException error(String msg) {
+			return new IllegalArgumentException(msg + " at position " + pos);
+		}
+
+	}
+
+}
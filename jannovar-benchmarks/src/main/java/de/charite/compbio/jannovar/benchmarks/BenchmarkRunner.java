@@ -0,0 +1,157 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of <code>benchmarks.jar</code>: run JMH benchmarks and compare the results to a stored baseline
+ *
+ * All regular JMH command line options are supported (e.g., a benchmark name regular expression, <code>-f</code>,
+ * <code>-wi</code>, <code>-i</code>). The GC profiler is always enabled, such that the allocation rate is reported,
+ * and the results are written as JSON (by default to <code>jmh-result.json</code>). The following additional options
+ * are understood:
+ *
+ * <ul>
+ * <li><code>--baseline FILE</code> JMH JSON result file of an earlier run to compare against</li>
+ * <li><code>--threshold PERCENT</code> relative change to consider a regression, default is 10</li>
+ * </ul>
+ *
+ * When a baseline is given, the exit code is 1 if any benchmark became slower or allocates more per operation than
+ * the threshold allows. A baseline is created by keeping the JSON result file of a run.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class BenchmarkRunner {
+
+	/** Default output file for the JSON results */
+	static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+	/** Default relative change in percent to consider a regression */
+	static final double DEFAULT_THRESHOLD = 10.0;
+
+	/** Changes in allocation below this number of bytes per operation are ignored */
+	static final double ALLOC_SLACK = 16.0;
+
+	public static void main(String[] argv) throws IOException, RunnerException {
+		File baselineFile = null;
+		double threshold = DEFAULT_THRESHOLD;
+		List<String> jmhArgs = new ArrayList<>();
+		for (int i = 0; i < argv.length; ++i) {
+			if ("--baseline".equals(argv[i]) && i + 1 < argv.length)
+				baselineFile = new File(argv[++i]);
+			else if ("--threshold".equals(argv[i]) && i + 1 < argv.length)
+				threshold = Double.parseDouble(argv[++i]);
+			else
+				jmhArgs.add(argv[i]);
+		}
+
+		final CommandLineOptions cmdOptions;
+		try {
+			cmdOptions = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+		} catch (CommandLineOptionException e) {
+			System.err.println("Error parsing command line: " + e.getMessage());
+			System.exit(1);
+			return;
+		}
+		if (cmdOptions.shouldHelp()) {
+			cmdOptions.showHelp();
+			System.err.println("\nBaseline comparison:\n  --baseline FILE      JMH JSON result to compare against"
+					+ "\n  --threshold PERCENT  relative change considered a regression, default: " + DEFAULT_THRESHOLD);
+			return;
+		}
+		if (cmdOptions.shouldList()) {
+			new Runner(cmdOptions).list();
+			return;
+		}
+
+		// Load baseline before running, so errors in the file are found early
+		final BenchmarkBaseline baseline = (baselineFile == null) ? null : BenchmarkBaseline.read(baselineFile);
+
+		ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmdOptions).addProfiler(GCProfiler.class);
+		if (!cmdOptions.getResultFormat().hasValue())
+			builder.resultFormat(ResultFormatType.JSON);
+		if (!cmdOptions.getResult().hasValue())
+			builder.result(DEFAULT_RESULT_FILE);
+		final Collection<RunResult> results = new Runner(builder.build()).run();
+
+		if (baseline != null && !compare(results, baseline, threshold))
+			System.exit(1);
+	}
+
+	/**
+	 * Compare results to baseline and print report to stdout
+	 *
+	 * @return <code>true</code> if there is no regression
+	 */
+	static boolean compare(Collection<RunResult> results, BenchmarkBaseline baseline, double threshold) {
+		System.out.println();
+		System.out.println("Comparison to baseline (threshold " + threshold + "%)");
+		System.out.println();
+		System.out.println(String.format("%-90s %12s %12s %9s %12s %12s %9s", "Benchmark", "Baseline", "Score",
+				"Change", "Base B/op", "B/op", "Change"));
+
+		boolean ok = true;
+		for (RunResult result : results) {
+			final BenchmarkParams params = result.getParams();
+			final Map<String, String> paramValues = new HashMap<>();
+			for (Object key : params.getParamsKeys())
+				paramValues.put((String) key, params.getParam((String) key));
+			final String key = BenchmarkBaseline.key(params.getBenchmark(), paramValues);
+
+			final BenchmarkBaseline.Entry base = baseline.get(key);
+			final double score = result.getPrimaryResult().getScore();
+			@SuppressWarnings("rawtypes")
+			final Result alloc = result.getSecondaryResults().get(BenchmarkBaseline.ALLOC_RATE_NORM);
+			final double allocPerOp = (alloc == null) ? Double.NaN : alloc.getScore();
+			if (base == null) {
+				System.out.println(String.format("%-90s %12s %12.1f %9s %12s %12.1f %9s", key, "-", score, "new", "-",
+						allocPerOp, "new"));
+				continue;
+			}
+
+			// For throughput, higher is better, for all other modes (times), lower is better
+			final double scoreChange = percentChange(base.getScore(), score);
+			final boolean slower = (params.getMode() == Mode.Throughput) ? (scoreChange < -threshold)
+					: (scoreChange > threshold);
+			final double allocChange = percentChange(base.getAllocPerOp(), allocPerOp);
+			final boolean moreAlloc = allocChange > threshold && allocPerOp - base.getAllocPerOp() > ALLOC_SLACK;
+
+			System.out.println(String.format("%-90s %12.1f %12.1f %+8.1f%% %12.1f %12.1f %+8.1f%%%s", key,
+					base.getScore(), score, scoreChange, base.getAllocPerOp(), allocPerOp, allocChange,
+					(slower || moreAlloc) ? "  REGRESSION" : ""));
+			ok = ok && !slower && !moreAlloc;
+		}
+
+		System.out.println();
+		System.out.println(ok ? "No regressions found." : "Regressions found!");
+		return ok;
+	}
+
+	/** @return relative change from <code>before</code> to <code>after</code> in percent */
+	private static double percentChange(double before, double after) {
+		if (Double.isNaN(before) || Double.isNaN(after))
+			return 0.0;
+		if (before == 0.0)
+			return (after == 0.0) ? 0.0 : Double.POSITIVE_INFINITY;
+		return 100.0 * (after - before) / before;
+	}
+
+}
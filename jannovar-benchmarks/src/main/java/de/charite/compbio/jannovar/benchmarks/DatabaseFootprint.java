@@ -0,0 +1,120 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.data.SerializationException;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Report of the file size and heap usage of Jannovar databases
+ *
+ * For each database file given on the command line, the database is loaded once with a plain
+ * {@link ObjectInputStream}, as done by Jannovar versions before pooling of gene-level values, and once with
+ * {@link JannovarDataSerializer}. For both, the additional heap after a full garbage collection and the number of
+ * distinct gene symbol, gene ID, and alternative gene ID map instances are printed. Finally, the database is written
+ * to a temporary file with {@link JannovarDataSerializer#save} and the resulting file size is printed. The plain load
+ * is skipped for databases in the chunked format.
+ *
+ * <pre>
+ * $ java -XX:+UseSerialGC -cp jannovar-benchmarks/target/benchmarks.jar de.charite.compbio.jannovar.benchmarks.DatabaseFootprint \
+ *     data/hg19_refseq.ser data/hg19_ensembl.ser
+ * </pre>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class DatabaseFootprint {
+
+	/** Magic bytes of the non-chunked database format */
+	private static final byte[] MAGIC_BYTES = { 'J', 'V', 'D', 'B' };
+
+	public static void main(String[] argv) throws IOException, ClassNotFoundException, SerializationException {
+		if (argv.length == 0) {
+			System.err.println("Usage: DatabaseFootprint DB.ser [DB.ser ...]");
+			System.exit(1);
+		}
+
+		System.out.println(String.format("%-40s %-8s %12s %12s %10s %10s %10s", "Database", "Loader", "File [kB]",
+				"Heap [kB]", "Symbols", "Gene IDs", "Alt IDs"));
+		// load first database once, such that class loading does not count towards the heap usage
+		loadPlain(argv[0]);
+		new JannovarDataSerializer(argv[0]).load().getTmByAccession();
+		final long baseHeap = usedHeap();
+		for (String path : argv) {
+			final String name = new File(path).getName();
+
+			JannovarData data = loadPlain(path);
+			if (data != null)
+				printRow(name, "plain", new File(path).length(), baseHeap, data);
+			data = null;
+
+			data = new JannovarDataSerializer(path).load();
+			data.getTmByAccession(); // load all chromosomes of chunked databases
+			printRow(name, "pooling", new File(path).length(), baseHeap, data);
+
+			File resaved = File.createTempFile("footprint", ".ser");
+			try {
+				new JannovarDataSerializer(resaved.toString()).save(data);
+				data = null;
+				data = new JannovarDataSerializer(resaved.toString()).load();
+				printRow(name, "resaved", resaved.length(), baseHeap, data);
+			} finally {
+				resaved.delete();
+			}
+			data = null;
+		}
+	}
+
+	/** Print report line for the loaded <code>data</code>, with the heap used in addition to <code>baseHeap</code> */
+	private static void printRow(String name, String loader, long fileSize, long baseHeap, JannovarData data) {
+		final long heap = usedHeap() - baseHeap;
+		Set<Object> symbols = Collections.newSetFromMap(new IdentityHashMap<>());
+		Set<Object> geneIDs = Collections.newSetFromMap(new IdentityHashMap<>());
+		Set<Object> altGeneIDs = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (TranscriptModel tm : data.getTmByAccession().values()) {
+			if (tm.getGeneSymbol() != null)
+				symbols.add(tm.getGeneSymbol());
+			if (tm.getGeneID() != null)
+				geneIDs.add(tm.getGeneID());
+			altGeneIDs.add(tm.getAltGeneIDs());
+		}
+		System.out.println(String.format("%-40s %-8s %12d %12d %10d %10d %10d", name, loader, fileSize / 1024,
+				heap / 1024, symbols.size(), geneIDs.size(), altGeneIDs.size()));
+	}
+
+	/**
+	 * Load non-chunked database with a plain {@link ObjectInputStream}
+	 *
+	 * @return the loaded {@link JannovarData}, <code>null</code> for databases in the chunked format
+	 */
+	private static JannovarData loadPlain(String path) throws IOException, ClassNotFoundException {
+		try (InputStream fileIn = new FileInputStream(path)) {
+			byte[] word = new byte[MAGIC_BYTES.length];
+			if (fileIn.read(word) != word.length || !Arrays.equals(word, MAGIC_BYTES))
+				return null;
+			try (ObjectInputStream in = new ObjectInputStream(new GZIPInputStream(fileIn))) {
+				in.readObject(); // version
+				return (JannovarData) in.readObject();
+			}
+		}
+	}
+
+	/** @return used heap in bytes after garbage collection */
+	private static long usedHeap() {
+		for (int i = 0; i < 3; ++i)
+			System.gc();
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+}
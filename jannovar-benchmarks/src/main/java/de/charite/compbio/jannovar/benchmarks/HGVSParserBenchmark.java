@@ -0,0 +1,92 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.charite.compbio.jannovar.hgvs.parser.HGVSParser;
+
+/**
+ * Benchmark for parsing HGVS strings with {@link HGVSParser#parseHGVSString}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HGVSParserBenchmark {
+
+	/** Simple variants as written by Jannovar and as commonly found in clinical reports */
+	static final String[] SIMPLE = { "NM_000138.4:c.7339G>A", "NM_000138.4(FBN1):c.7339G>A",
+			"NM_000138.4:c.247_248del", "NM_000138.4:c.247_248insATAC", "NM_000138.4:c.247_248dup",
+			"NM_000138.4:c.247+1_247+3del", "NM_000138.4:c.-247_-247-1ins4", "NM_000138.4:c.*247_*247+3inv",
+			"NM_000138.4:n.247C>T", "NM_000109.3:p.Cys2Ala" };
+
+	/** Variants of the forms handled without the ANTLR grammar */
+	static final String[] COMMON = { "NM_000138.4:c.7339G>A", "NM_000138.4(FBN1):c.7339G>A",
+			"NM_000138.4:c.247_248del", "NM_000138.4:c.247_248insATAC", "NM_000138.4:c.247_248dup",
+			"NM_000138.4:c.247+1_247+3del", "NM_000138.4:c.-247_-247-1ins4", "NM_000138.4:c.*247_*247+3delATAT",
+			"NM_000138.4:n.247C>T", "NM_000138.4:c.123dupA" };
+
+	/** Complex variants: multi-allele and protein changes */
+	static final String[] COMPLEX = { "NM_000109.3:c.[123A>C;124C>T]", "NM_000109.3:c.[123A>C];[123A>C]",
+			"NM_000109.3:c.[123A>C,156C>T];[123A>C,156C>T]", "NM_000109.3:p.[Cys23Ala,Thr44Cys];[Ala23Cys,Thr44Ala]",
+			"NM_000109.3:p.Arg97ProfsTer23", "NM_000109.3:p.Glu124Serfs*148",
+			"NM_000109.3:p.Gln3_Leu7delinsGlnGlnTrpSerLeu", "NM_000109.3:p.Glu33_Lys34ins17",
+			"NM_000109.3:p.Met1Valext-12", "NM_000109.3:p.Ter110GlnextTer17" };
+
+	/** The parser to use */
+	private HGVSParser parser;
+
+	/** Parser that only uses the ANTLR grammar, for comparison */
+	private HGVSParser grammarParser;
+
+	@Setup
+	public void setUp() {
+		parser = new HGVSParser();
+		grammarParser = new HGVSParser(false, false);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(10)
+	public void parseSimple(Blackhole bh) {
+		for (String hgvs : SIMPLE)
+			bh.consume(parser.parseHGVSString(hgvs));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(10)
+	public void parseCommon(Blackhole bh) {
+		for (String hgvs : COMMON)
+			bh.consume(parser.parseHGVSString(hgvs));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(10)
+	public void parseCommonGrammarOnly(Blackhole bh) {
+		for (String hgvs : COMMON)
+			bh.consume(grammarParser.parseHGVSString(hgvs));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(10)
+	public void parseComplex(Blackhole bh) {
+		for (String hgvs : COMPLEX)
+			bh.consume(parser.parseHGVSString(hgvs));
+	}
+
+}
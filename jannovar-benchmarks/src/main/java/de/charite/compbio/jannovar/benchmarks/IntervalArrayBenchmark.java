@@ -0,0 +1,92 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.charite.compbio.jannovar.data.SerializationException;
+import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.reference.TranscriptIntervalEndExtractor;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Benchmark for point and interval queries to the {@link IntervalArray} of transcripts and for building it
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntervalArrayBenchmark {
+
+	/** Number of queries per benchmark invocation */
+	static final int NUM_QUERIES = 1_000;
+
+	/** Name of the mini database to use */
+	@Param({ "fbn1", "ctns" })
+	public String db;
+
+	/** The interval array to query */
+	private IntervalArray<TranscriptModel> tree;
+	/** The transcripts for building the interval array */
+	private List<TranscriptModel> transcripts;
+	/** 0-based query begin positions */
+	private int[] begins;
+	/** 0-based query end positions */
+	private int[] ends;
+
+	@Setup
+	public void setUp() throws SerializationException {
+		final MiniDatabase miniDB = MiniDatabase.load(db);
+		tree = miniDB.getChromosome().getTMIntervalTree();
+		transcripts = new ArrayList<>(miniDB.getJannovarData().getTmByAccession().values());
+
+		final Random rng = new Random(42);
+		final int regionBegin = Math.max(0, miniDB.getGeneBegin() - SyntheticVariants.FLANK);
+		final int regionLength = miniDB.getGeneEnd() + SyntheticVariants.FLANK - regionBegin;
+		begins = new int[NUM_QUERIES];
+		ends = new int[NUM_QUERIES];
+		for (int i = 0; i < NUM_QUERIES; ++i) {
+			begins[i] = regionBegin + rng.nextInt(regionLength);
+			ends[i] = begins[i] + 1 + rng.nextInt(100);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_QUERIES)
+	public void findOverlappingWithPoint(Blackhole bh) {
+		for (int i = 0; i < NUM_QUERIES; ++i)
+			bh.consume(tree.findOverlappingWithPoint(begins[i]));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_QUERIES)
+	public void findOverlappingWithInterval(Blackhole bh) {
+		for (int i = 0; i < NUM_QUERIES; ++i)
+			bh.consume(tree.findOverlappingWithInterval(begins[i], ends[i]));
+	}
+
+	@Benchmark
+	public IntervalArray<TranscriptModel> build() {
+		return new IntervalArray<>(transcripts, new TranscriptIntervalEndExtractor());
+	}
+
+}
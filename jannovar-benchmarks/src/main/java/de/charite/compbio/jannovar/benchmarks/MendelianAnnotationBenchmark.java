@@ -0,0 +1,86 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.SerializationException;
+import de.charite.compbio.jannovar.mendel.filter.GeneWiseMendelianAnnotationProcessor;
+import de.charite.compbio.jannovar.pedigree.Disease;
+import de.charite.compbio.jannovar.pedigree.PedFileContents;
+import de.charite.compbio.jannovar.pedigree.PedParseException;
+import de.charite.compbio.jannovar.pedigree.PedPerson;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import de.charite.compbio.jannovar.pedigree.Sex;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Benchmark for annotating compatible modes of inheritance for a trio with
+ * {@link GeneWiseMendelianAnnotationProcessor}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MendelianAnnotationBenchmark {
+
+	/** Number of VCF records to process per benchmark invocation */
+	static final int NUM_VARIANTS = 1_000;
+
+	/** Name of the mini database to use */
+	@Param({ "fbn1", "ctns" })
+	public String db;
+
+	/** The database for the gene regions */
+	private JannovarData jannovarData;
+	/** The trio pedigree */
+	private Pedigree pedigree;
+	/** The VCF records to annotate, sorted by position */
+	private List<VariantContext> variants;
+
+	@Setup
+	public void setUp() throws SerializationException, PedParseException {
+		final MiniDatabase miniDB = MiniDatabase.load(db);
+		jannovarData = miniDB.getJannovarData();
+
+		ImmutableList.Builder<PedPerson> individuals = new ImmutableList.Builder<PedPerson>();
+		individuals.add(new PedPerson("ped", "Eva", "0", "0", Sex.FEMALE, Disease.UNAFFECTED)); // Mother
+		individuals.add(new PedPerson("ped", "Adam", "0", "0", Sex.MALE, Disease.UNAFFECTED)); // Father
+		individuals.add(new PedPerson("ped", "Seth", "Adam", "Eva", Sex.MALE, Disease.AFFECTED)); // Child
+		pedigree = new Pedigree(new PedFileContents(ImmutableList.of(), individuals.build()), "ped");
+
+		variants = new SyntheticVariants(miniDB, 42).generateVariantContexts(NUM_VARIANTS,
+				ImmutableList.of("Eva", "Adam", "Seth"));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_VARIANTS)
+	public void annotateTrio(Blackhole bh) {
+		try (GeneWiseMendelianAnnotationProcessor proc = new GeneWiseMendelianAnnotationProcessor(pedigree,
+				jannovarData, vc -> bh.consume(vc), false)) {
+			for (VariantContext vc : variants)
+				proc.put(vc);
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.data.SerializationException;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * One of the mini databases from the <code>jannovar-htsjdk</code> tests, together with its reference FASTA file
+ *
+ * The mini databases consist of a single contig "ref" with the transcripts of one gene (FBN1 on the reverse strand or
+ * CTNS on the forward strand). They are copied from the class path into a temporary directory, such that the regular
+ * file-based loading code is used.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class MiniDatabase {
+
+	/** Name of the only contig in the mini databases */
+	public static final String CONTIG = "ref";
+
+	/** The loaded Jannovar database */
+	private final JannovarData jannovarData;
+	/** Path to the reference FASTA file, with FAI and dict file next to it (FAI only valid for FBN1) */
+	private final String fastaPath;
+	/** The reference sequence of {@link #CONTIG}, upper case */
+	private final String sequence;
+	/** 0-based begin position of the union of all transcripts */
+	private final int geneBegin;
+	/** 0-based end position of the union of all transcripts */
+	private final int geneEnd;
+
+	private MiniDatabase(JannovarData jannovarData, String fastaPath) {
+		this.jannovarData = jannovarData;
+		this.fastaPath = fastaPath;
+		// Read the sequence without the FAI file, the one of the CTNS example does not match its FASTA file
+		try (BufferedReader reader = Files.newBufferedReader(new File(fastaPath).toPath(), StandardCharsets.US_ASCII)) {
+			StringBuilder builder = new StringBuilder();
+			String line;
+			while ((line = reader.readLine()) != null)
+				if (!line.startsWith(">"))
+					builder.append(line.trim());
+			this.sequence = builder.toString().toUpperCase();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Problem reading reference from " + fastaPath, e);
+		}
+
+		int begin = Integer.MAX_VALUE;
+		int end = Integer.MIN_VALUE;
+		for (TranscriptModel tm : jannovarData.getTmByAccession().values()) {
+			final GenomeInterval txRegion = tm.getTXRegion().withStrand(Strand.FWD);
+			begin = Math.min(begin, txRegion.getBeginPos());
+			end = Math.max(end, txRegion.getEndPos());
+		}
+		this.geneBegin = begin;
+		this.geneEnd = end;
+	}
+
+	/**
+	 * Load mini database from the class path
+	 *
+	 * @param name
+	 *            name of the example, "fbn1" or "ctns"
+	 * @return the loaded {@link MiniDatabase}
+	 * @throws SerializationException
+	 *             on problems with loading the database
+	 */
+	public static MiniDatabase load(String name) throws SerializationException {
+		final File tmpDir;
+		try {
+			tmpDir = Files.createTempDirectory("jannovar-benchmarks").toFile();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not create temporary directory", e);
+		}
+		tmpDir.deleteOnExit();
+
+		final String prefix = "/ex_" + name + "/";
+		final File dbFile = copyResource(prefix + "mini_" + name + ".ser", new File(tmpDir, "mini_" + name + ".ser"));
+		final File fastaFile = copyResource(prefix + "ref.fa", new File(tmpDir, "ref.fa"));
+		copyResource(prefix + "ref.fa.fai", new File(tmpDir, "ref.fa.fai"));
+		copyResource(prefix + "ref.dict", new File(tmpDir, "ref.dict"));
+
+		return new MiniDatabase(new JannovarDataSerializer(dbFile.getPath()).load(), fastaFile.getPath());
+	}
+
+	/** Copy resource at the given path to the given output {@link File} that is deleted on exit */
+	private static File copyResource(String path, File outFile) {
+		try (InputStream input = MiniDatabase.class.getResourceAsStream(path)) {
+			if (input == null)
+				throw new UncheckedIOException(new FileNotFoundException("Resource not found: " + path));
+			Files.copy(input, outFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Problem with copying resource " + path + " to file", e);
+		}
+		outFile.deleteOnExit();
+		return outFile;
+	}
+
+	public JannovarData getJannovarData() {
+		return jannovarData;
+	}
+
+	public ReferenceDictionary getRefDict() {
+		return jannovarData.getRefDict();
+	}
+
+	/** @return numeric ID of {@link #CONTIG} */
+	public int getContigID() {
+		return jannovarData.getRefDict().getContigNameToID().get(CONTIG);
+	}
+
+	/** @return {@link Chromosome} for {@link #CONTIG} */
+	public Chromosome getChromosome() {
+		return jannovarData.getChromosomes().get(getContigID());
+	}
+
+	public String getFastaPath() {
+		return fastaPath;
+	}
+
+	public String getSequence() {
+		return sequence;
+	}
+
+	public int getGeneBegin() {
+		return geneBegin;
+	}
+
+	public int getGeneEnd() {
+		return geneEnd;
+	}
+
+}
@@ -0,0 +1,186 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+/**
+ * Generator for random but reproducible variants on a {@link MiniDatabase}
+ *
+ * The variants are placed in the region of the transcripts, extended by {@link #FLANK} bases on each side such that
+ * also upstream, downstream, and intergenic variants are generated. The reference alleles are taken from the
+ * reference sequence, such that the variants are valid.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class SyntheticVariants {
+
+	/** Kind of variants to generate */
+	public enum Kind {
+		/** single nucleotide variants */
+		SNV,
+		/** deletions of 1-20 bp */
+		DELETION,
+		/** insertions of 1-20 bp */
+		INSERTION,
+		/** block substitutions of 2-20 bp */
+		BLOCK_SUBSTITUTION,
+		/** structural variants, deletions of 1-20 kbp */
+		SV;
+	}
+
+	/** Number of bases to generate variants in up- and downstream of the transcripts */
+	public static final int FLANK = 5_000;
+
+	/** The nucleotides to draw from */
+	private static final char[] NUCLEOTIDES = { 'A', 'C', 'G', 'T' };
+
+	/** The database to generate variants for */
+	private final MiniDatabase db;
+	/** Random number generator to use */
+	private final Random rng;
+
+	/**
+	 * @param db
+	 *            {@link MiniDatabase} to generate variants for
+	 * @param seed
+	 *            random seed, the same seed leads to the same variants
+	 */
+	public SyntheticVariants(MiniDatabase db, long seed) {
+		this.db = db;
+		this.rng = new Random(seed);
+	}
+
+	/**
+	 * Generate variants
+	 *
+	 * @param kind
+	 *            the {@link Kind} of variants to generate
+	 * @param count
+	 *            number of variants to generate
+	 * @return {@link List} of <code>count</code> generated {@link GenomeVariant}s, in random order
+	 */
+	public List<GenomeVariant> generate(Kind kind, int count) {
+		List<GenomeVariant> result = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i)
+			result.add(generate(kind));
+		return result;
+	}
+
+	/**
+	 * Generate variants of random kinds (excluding structural variants), for use in VCF records
+	 *
+	 * @param count
+	 *            number of variants to generate
+	 * @return {@link List} of <code>count</code> generated {@link GenomeVariant}s, sorted by position
+	 */
+	public List<GenomeVariant> generateSmallSorted(int count) {
+		final Kind[] kinds = { Kind.SNV, Kind.SNV, Kind.SNV, Kind.DELETION, Kind.INSERTION };
+		GenomeVariant[] result = new GenomeVariant[count];
+		for (int i = 0; i < count; ++i)
+			result[i] = generate(kinds[rng.nextInt(kinds.length)]);
+		Arrays.sort(result, (lhs, rhs) -> Integer.compare(lhs.getPos(), rhs.getPos()));
+		return Arrays.asList(result);
+	}
+
+	/** @return one variant of the given {@link Kind} */
+	private GenomeVariant generate(Kind kind) {
+		final String seq = db.getSequence();
+		final int maxLen = (kind == Kind.SV) ? 20_000 : 20;
+		final int regionBegin = Math.max(0, db.getGeneBegin() - FLANK);
+		final int regionEnd = Math.min(seq.length() - maxLen - 1, db.getGeneEnd() + FLANK);
+		final int pos = regionBegin + rng.nextInt(regionEnd - regionBegin);
+
+		final String ref;
+		final String alt;
+		switch (kind) {
+		case SNV:
+			ref = seq.substring(pos, pos + 1);
+			alt = String.valueOf(otherNucleotide(ref.charAt(0)));
+			break;
+		case DELETION:
+			ref = seq.substring(pos, pos + 1 + rng.nextInt(20));
+			alt = "";
+			break;
+		case INSERTION:
+			ref = "";
+			alt = randomSequence(1 + rng.nextInt(20));
+			break;
+		case BLOCK_SUBSTITUTION:
+			ref = seq.substring(pos, pos + 2 + rng.nextInt(19));
+			alt = randomSequence(1 + rng.nextInt(20));
+			break;
+		case SV:
+		default:
+			ref = seq.substring(pos, pos + 1_000 + rng.nextInt(19_001));
+			alt = "";
+			break;
+		}
+
+		final GenomePosition gPos = new GenomePosition(db.getRefDict(), Strand.FWD, db.getContigID(), pos,
+				PositionType.ZERO_BASED);
+		return new GenomeVariant(gPos, ref, alt);
+	}
+
+	/**
+	 * Build VCF records for a pedigree from small variants
+	 *
+	 * The genotypes are drawn at random, such that all modes of inheritance are hit.
+	 *
+	 * @param count
+	 *            number of records to generate
+	 * @param sampleNames
+	 *            names of the samples to generate genotypes for
+	 * @return {@link List} of <code>count</code> {@link VariantContext}s, sorted by position
+	 */
+	public List<VariantContext> generateVariantContexts(int count, List<String> sampleNames) {
+		List<VariantContext> result = new ArrayList<>(count);
+		for (GenomeVariant var : generateSmallSorted(count)) {
+			// Convert to VCF representation with leading reference base
+			final int pos = var.getPos();
+			final String prefix = db.getSequence().substring(pos - 1, pos);
+			final Allele ref = Allele.create(prefix + var.getRef(), true);
+			final Allele alt = Allele.create(prefix + var.getAlt());
+
+			VariantContextBuilder builder = new VariantContextBuilder().chr(MiniDatabase.CONTIG).start(pos)
+					.computeEndFromAlleles(Arrays.asList(ref, alt), pos).alleles(Arrays.asList(ref, alt));
+			List<Genotype> gts = new ArrayList<>();
+			for (String name : sampleNames) {
+				final int numAlt = rng.nextInt(3);
+				gts.add(new GenotypeBuilder(name, Arrays.asList(numAlt >= 1 ? alt : ref, numAlt == 2 ? alt : ref))
+						.make());
+			}
+			result.add(builder.genotypes(gts).make());
+		}
+		return result;
+	}
+
+	/** @return random nucleotide different from <code>c</code> */
+	private char otherNucleotide(char c) {
+		while (true) {
+			final char result = NUCLEOTIDES[rng.nextInt(NUCLEOTIDES.length)];
+			if (result != c)
+				return result;
+		}
+	}
+
+	/** @return random nucleotide sequence of the given length */
+	private String randomSequence(int length) {
+		StringBuilder builder = new StringBuilder(length);
+		for (int i = 0; i < length; ++i)
+			builder.append(NUCLEOTIDES[rng.nextInt(NUCLEOTIDES.length)]);
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,81 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.charite.compbio.jannovar.data.SerializationException;
+import de.charite.compbio.jannovar.impl.util.Translator;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Benchmark for translating nucleotide sequences into amino acid sequences with {@link Translator}
+ *
+ * The sequences are taken from the FBN1 transcript. The annotation builders mostly translate short sequences around
+ * the variant, translation of long sequences happens for frameshifts.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranslatorBenchmark {
+
+	/** Number of sequences to translate per benchmark invocation */
+	static final int NUM_SEQUENCES = 100;
+
+	/** Length of the sequences to translate */
+	@Param({ "3", "60", "3000" })
+	public int length;
+
+	/** The translator to use */
+	private Translator translator;
+	/** The sequences to translate */
+	private String[] sequences;
+
+	@Setup
+	public void setUp() throws SerializationException {
+		final MiniDatabase miniDB = MiniDatabase.load("fbn1");
+		final TranscriptModel tm = miniDB.getJannovarData().getTmByAccession().get("NM_000138.4");
+		final String seq = tm.getSequence().toUpperCase();
+
+		translator = Translator.getTranslator();
+		final Random rng = new Random(42);
+		sequences = new String[NUM_SEQUENCES];
+		for (int i = 0; i < NUM_SEQUENCES; ++i) {
+			final int pos = rng.nextInt(seq.length() - length);
+			sequences[i] = seq.substring(pos, pos + length);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_SEQUENCES)
+	public void translateDNA(Blackhole bh) {
+		for (String seq : sequences)
+			bh.consume(translator.translateDNA(seq));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_SEQUENCES)
+	public void translateDNA3(Blackhole bh) {
+		for (String seq : sequences)
+			bh.consume(translator.translateDNA3(seq));
+	}
+
+}
@@ -0,0 +1,70 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.charite.compbio.jannovar.annotation.AnnotationException;
+import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.SerializationException;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+
+/**
+ * Benchmark for {@link VariantAnnotator#buildAnnotations(GenomeVariant)}, the entry point for annotating variants
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VariantAnnotatorBenchmark {
+
+	/** Number of variants to annotate per benchmark invocation */
+	static final int NUM_VARIANTS = 1_000;
+
+	/** Name of the mini database to use */
+	@Param({ "fbn1", "ctns" })
+	public String db;
+
+	/** Kind of the variants to annotate */
+	@Param
+	public SyntheticVariants.Kind kind;
+
+	/** The annotator to use */
+	private VariantAnnotator annotator;
+	/** The variants to annotate */
+	private List<GenomeVariant> variants;
+
+	@Setup
+	public void setUp() throws SerializationException {
+		final MiniDatabase miniDB = MiniDatabase.load(db);
+		annotator = new VariantAnnotator(miniDB.getRefDict(), miniDB.getJannovarData().getChromosomes(),
+				new AnnotationBuilderOptions());
+		variants = new SyntheticVariants(miniDB, 42).generate(kind, NUM_VARIANTS);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_VARIANTS)
+	public void buildAnnotations(Blackhole bh) throws AnnotationException {
+		for (GenomeVariant variant : variants)
+			bh.consume(annotator.buildAnnotations(variant));
+	}
+
+}
@@ -0,0 +1,80 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.charite.compbio.jannovar.data.SerializationException;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.base.VariantDescription;
+import de.charite.compbio.jannovar.vardbs.base.VariantNormalizer;
+
+/**
+ * Benchmark for left-shifting and trimming variants with {@link VariantNormalizer}, as done for each observed and
+ * database allele when annotating with variant databases
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VariantNormalizerBenchmark {
+
+	/** Number of variants to normalize per benchmark invocation */
+	static final int NUM_VARIANTS = 1_000;
+
+	/** Kind of the variants to normalize */
+	@Param({ "SNV", "DELETION", "INSERTION" })
+	public SyntheticVariants.Kind kind;
+
+	/** The normalizer to use */
+	private VariantNormalizer normalizer;
+	/** The variants to normalize, in VCF representation with leading reference base */
+	private List<VariantDescription> variants;
+
+	@Setup
+	public void setUp() throws SerializationException, JannovarVarDBException {
+		final MiniDatabase miniDB = MiniDatabase.load("fbn1");
+		normalizer = new VariantNormalizer(miniDB.getFastaPath());
+		variants = new ArrayList<>(NUM_VARIANTS);
+		for (GenomeVariant var : new SyntheticVariants(miniDB, 42).generate(kind, NUM_VARIANTS)) {
+			final int pos = var.getPos();
+			final String prefix = miniDB.getSequence().substring(pos - 1, pos);
+			variants.add(new VariantDescription(MiniDatabase.CONTIG, pos - 1, prefix + var.getRef(),
+					prefix + var.getAlt()));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_VARIANTS)
+	public void normalizeVariant(Blackhole bh) {
+		for (VariantDescription variant : variants)
+			bh.consume(normalizer.normalizeVariant(variant));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_VARIANTS)
+	public void normalizeInsertion(Blackhole bh) {
+		for (VariantDescription variant : variants)
+			bh.consume(normalizer.normalizeInsertion(variant));
+	}
+
+}
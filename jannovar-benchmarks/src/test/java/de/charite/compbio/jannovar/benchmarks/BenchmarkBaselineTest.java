@@ -0,0 +1,71 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Tests for reading JMH result files with {@link BenchmarkBaseline}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class BenchmarkBaselineTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	private File writeFile(String contents) throws IOException {
+		File file = tmpFolder.newFile("result.json");
+		Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@Test
+	public void testRead() throws IOException {
+		BenchmarkBaseline baseline = BenchmarkBaseline.read(new File(getClass().getResource("/jmh-result.json")
+				.getPath()));
+
+		BenchmarkBaseline.Entry entry = baseline.get(BenchmarkBaseline.key(
+				"de.charite.compbio.jannovar.benchmarks.VariantAnnotatorBenchmark.buildAnnotations",
+				ImmutableMap.of("db", "fbn1", "kind", "SNV")));
+		Assert.assertNotNull(entry);
+		Assert.assertEquals(34567.5, entry.getScore(), 1e-6);
+		Assert.assertEquals("ops/s", entry.getScoreUnit());
+		Assert.assertEquals(12000.0, entry.getAllocPerOp(), 1e-6);
+
+		entry = baseline.get(BenchmarkBaseline
+				.key("de.charite.compbio.jannovar.benchmarks.HGVSParserBenchmark.parseSimple", ImmutableMap.of()));
+		Assert.assertNotNull(entry);
+		Assert.assertEquals(7130.75, entry.getScore(), 1e-6);
+		Assert.assertTrue(Double.isNaN(entry.getAllocPerOp()));
+
+		Assert.assertNull(baseline.get(BenchmarkBaseline.key(
+				"de.charite.compbio.jannovar.benchmarks.VariantAnnotatorBenchmark.buildAnnotations",
+				ImmutableMap.of("db", "ctns", "kind", "SNV"))));
+	}
+
+	@Test
+	public void testKeyIndependentOfParameterOrder() {
+		Assert.assertEquals(BenchmarkBaseline.key("x", ImmutableMap.of("a", "1", "b", "2")),
+				BenchmarkBaseline.key("x", ImmutableMap.of("b", "2", "a", "1")));
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadInvalidJSON() throws IOException {
+		BenchmarkBaseline.read(writeFile("[{\"benchmark\" : \"x\","));
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadNoArray() throws IOException {
+		BenchmarkBaseline.read(writeFile("{}"));
+	}
+
+}
@@ -0,0 +1,126 @@
+package de.charite.compbio.jannovar.cmd;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+
+/**
+ * Parser for genomic changes of the form <tt>chr1:909238G&gt;C</tt> as given to <tt>annotate-pos</tt> and
+ * <tt>annotate-csv</tt>.
+ *
+ * The contig name is resolved through {@link ReferenceDictionary#getContigNameToID}, such that all aliases of a contig
+ * (e.g., <tt>1</tt>, <tt>chr1</tt>, <tt>NC_000001.10</tt>) are accepted. The position is one-based, reference and
+ * alternative allele consist of the characters <tt>ACGTN</tt> and may be empty. The parser does not use regular
+ * expressions and can be shared between threads.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class GenomeChangeParser {
+
+	/** reference dictionary for resolving contig names */
+	private final ReferenceDictionary refDict;
+
+	/**
+	 * @param refDict
+	 *            {@link ReferenceDictionary} for resolving contig names
+	 */
+	public GenomeChangeParser(ReferenceDictionary refDict) {
+		this.refDict = refDict;
+	}
+
+	/**
+	 * Parse genomic change of the form <tt>{contig}:{pos}{ref}&gt;{alt}</tt>
+	 *
+	 * @param changeStr
+	 *            the change to parse
+	 * @return the parsed {@link GenomeVariant}
+	 * @throws JannovarException
+	 *             if <code>changeStr</code> is malformed or the contig is unknown
+	 */
+	public GenomeVariant parse(String changeStr) throws JannovarException {
+		// contig names may contain colons, the position follows the last one
+		final int colon = changeStr.lastIndexOf(':');
+		final int gt = changeStr.indexOf('>', colon + 1);
+		if (colon <= 0 || gt < 0)
+			throw new JannovarException("Genomic change " + changeStr + " is not of the form chr1:123C>T");
+		int refBegin = colon + 1;
+		while (refBegin < gt && isDigit(changeStr.charAt(refBegin)))
+			++refBegin;
+		return build(changeStr.substring(0, colon), changeStr.substring(colon + 1, refBegin),
+				changeStr.substring(refBegin, gt), changeStr.substring(gt + 1));
+	}
+
+	/**
+	 * Parse genomic change given as separate fields, e.g., the columns of a CSV record
+	 *
+	 * @param contig
+	 *            name of the contig
+	 * @param pos
+	 *            one-based position
+	 * @param ref
+	 *            reference allele
+	 * @param alt
+	 *            alternative allele
+	 * @return the parsed {@link GenomeVariant}
+	 * @throws JannovarException
+	 *             if a field is malformed or the contig is unknown
+	 */
+	public GenomeVariant parse(String contig, String pos, String ref, String alt) throws JannovarException {
+		return build(contig, pos, ref, alt);
+	}
+
+	/** Build {@link GenomeVariant} from the fields of a genomic change */
+	private GenomeVariant build(String contig, String pos, String ref, String alt) throws JannovarException {
+		final Integer chr = refDict.getContigNameToID().get(contig);
+		if (chr == null)
+			throw new JannovarException("Unknown contig in genomic change " + contig + ":" + pos + ref + ">" + alt);
+
+		final int position = parsePosition(pos);
+		if (position <= 0)
+			throw new JannovarException("Invalid position in genomic change " + contig + ":" + pos + ref + ">" + alt);
+		if (!isNucleotides(ref) || !isNucleotides(alt))
+			throw new JannovarException("Invalid alleles in genomic change " + contig + ":" + pos + ref + ">" + alt);
+
+		return new GenomeVariant(new GenomePosition(refDict, Strand.FWD, chr, position, PositionType.ONE_BASED), ref,
+				alt);
+	}
+
+	/** @return the number in <code>pos</code>, <code>-1</code> if it is not a number of at most nine digits */
+	private static int parsePosition(String pos) {
+		if (pos.isEmpty() || pos.length() > 9)
+			return -1;
+		int result = 0;
+		for (int i = 0; i < pos.length(); ++i) {
+			final char c = pos.charAt(i);
+			if (!isDigit(c))
+				return -1;
+			result = 10 * result + (c - '0');
+		}
+		return result;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/** @return whether <code>s</code> only contains <tt>ACGTN</tt> */
+	private static boolean isNucleotides(String s) {
+		for (int i = 0; i < s.length(); ++i) {
+			switch (s.charAt(i)) {
+			case 'A':
+			case 'C':
+			case 'G':
+			case 'T':
+			case 'N':
+				break;
+			default:
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
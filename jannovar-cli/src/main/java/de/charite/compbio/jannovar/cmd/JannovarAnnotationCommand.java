@@ -1,5 +1,18 @@
 package de.charite.compbio.jannovar.cmd;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
 import com.google.common.collect.ImmutableMap;
 
 import de.charite.compbio.jannovar.JannovarException;
@@ -7,6 +20,7 @@ import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.JannovarDataSerializer;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.data.TranscriptFilter;
 
 /**
  * Base class for commands needing annotation data.
@@ -15,6 +29,9 @@ import de.charite.compbio.jannovar.data.ReferenceDictionary;
  */
 public abstract class JannovarAnnotationCommand extends JannovarCommand {
 
+	/** Buffer size for {@link #openInput} and {@link #openOutput} */
+	private static final int BUFFER_SIZE = 1 << 16;
+
 	/** {@link JannovarData} with the information */
 	protected JannovarData jannovarData = null;
 
@@ -36,9 +53,70 @@ public abstract class JannovarAnnotationCommand extends JannovarCommand {
 	 */
 	protected void deserializeTranscriptDefinitionFile(String pathToDataFile)
 			throws JannovarException, HelpRequestedException {
-		this.jannovarData = new JannovarDataSerializer(pathToDataFile).load();
+		deserializeTranscriptDefinitionFile(pathToDataFile, TranscriptFilter.ALL);
+	}
+
+	/**
+	 * Deserialize the transcript definition file from {@link pathToDataFile}, keeping only the selected transcripts.
+	 *
+	 * @param pathToDataFile
+	 *            String with the path to the data file to deserialize
+	 * @param transcriptFilter
+	 *            selection of the transcripts to load
+	 * @throws JannovarException
+	 *             when there is a problem with the deserialization
+	 * @throws HelpRequestedException
+	 *             when the user requested the help page
+	 */
+	protected void deserializeTranscriptDefinitionFile(String pathToDataFile, TranscriptFilter transcriptFilter)
+			throws JannovarException, HelpRequestedException {
+		this.jannovarData = new JannovarDataSerializer(pathToDataFile).load(transcriptFilter, 0);
 		this.refDict = this.jannovarData.getRefDict();
 		this.chromosomeMap = this.jannovarData.getChromosomes();
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Open text file for reading
+	 *
+	 * @param path
+	 *            path to the file, <code>"-"</code> for standard input
+	 * @return buffered {@link BufferedReader} for the file
+	 * @throws IOException
+	 *             if the file could not be opened
+	 */
+	protected static BufferedReader openInput(String path) throws IOException {
+		final InputStream in = "-".equals(path) ? System.in : new FileInputStream(path);
+		return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+	}
+
+	/**
+	 * Open text file for writing
+	 *
+	 * @param path
+	 *            path to the file, <code>null</code> or <code>"-"</code> for standard output; standard output is only
+	 *            flushed when the returned {@link Writer} is closed
+	 * @return buffered {@link Writer} for the file
+	 * @throws IOException
+	 *             if the file could not be opened
+	 */
+	protected static Writer openOutput(String path) throws IOException {
+		final OutputStream out;
+		if (path == null || "-".equals(path)) {
+			out = new FilterOutputStream(System.out) {
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					this.out.write(b, off, len);
+				}
+
+				@Override
+				public void close() throws IOException {
+					flush();
+				}
+			};
+		} else {
+			out = new FileOutputStream(path);
+		}
+		return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+	}
+
+}
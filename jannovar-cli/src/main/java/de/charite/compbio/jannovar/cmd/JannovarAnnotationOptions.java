@@ -1,5 +1,11 @@
 package de.charite.compbio.jannovar.cmd;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Splitter;
+
+import de.charite.compbio.jannovar.data.TranscriptFilter;
 import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentGroup;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
@@ -25,6 +31,9 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 
 	/** Path to database file */
 	private String databaseFilePath = null;
+
+	/** Selection of the transcripts to load from the database */
+	private TranscriptFilter transcriptFilter = TranscriptFilter.ALL;
 	
 	/**
 	 * Setup {@link ArgumentParser}
@@ -39,9 +48,36 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 				.dest("3_prime_shifting").setDefault(true).action(Arguments.storeFalse());
 		optionalGroup.addArgument("--3-letter-amino-acids").help("Enable usage of 3 letter amino acid codes")
 				.setDefault(false).action(Arguments.storeTrue());
-		
+
+		setupTranscriptFilterArguments(subParser);
 		JannovarBaseOptions.setupParser(subParser);
 	}
+
+	/**
+	 * Setup the arguments for selecting the transcripts to load from the database
+	 * 
+	 * @param subParser
+	 *            {@link ArgumentParser} to add the arguments to
+	 */
+	public static void setupTranscriptFilterArguments(ArgumentParser subParser) {
+		ArgumentGroup filterGroup = subParser.addArgumentGroup("Transcript Selection Arguments (optional)");
+		filterGroup.description("Only load the selected transcripts from the database, reducing memory usage and "
+				+ "annotation time");
+		filterGroup.addArgument("--only-genes")
+				.help("Comma-separated gene symbols or IDs (e.g., HGNC:3689) of the transcripts to load, can be given "
+						+ "multiple times")
+				.action(Arguments.append());
+		filterGroup.addArgument("--only-transcripts")
+				.help("Comma-separated accessions of the transcripts to load, accessions without version match all "
+						+ "versions, can be given multiple times")
+				.action(Arguments.append());
+		filterGroup.addArgument("--max-tsl").type(Integer.class)
+				.help("Only load transcripts with this or a better transcript support level; 1-5 are the Ensembl "
+						+ "levels, 6 includes UCSC canonical transcripts, and 7 the longest transcript of genes without "
+						+ "level");
+		filterGroup.addArgument("--only-coding").help("Only load coding transcripts").setDefault(false)
+				.action(Arguments.storeTrue());
+	}
 	
 	
 
@@ -53,6 +89,22 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 		nt3PrimeShifting = !args.getBoolean("3_prime_shifting");
 		databaseFilePath = args.getString("database");
 		showAll = args.getBoolean("show_all");
+		transcriptFilter = new TranscriptFilter(splitValues(args.<String> getList("only_genes")),
+				splitValues(args.<String> getList("only_transcripts")), args.getInt("max_tsl"),
+				args.getBoolean("only_coding"));
+	}
+
+	/**
+	 * @return values of a list argument, split at commas, or <code>null</code> if not given
+	 */
+	private static List<String> splitValues(List<String> values) {
+		if (values == null)
+			return null;
+		List<String> result = new ArrayList<>();
+		for (String value : values)
+			for (String token : Splitter.on(',').trimResults().omitEmptyStrings().split(value))
+				result.add(token);
+		return result;
 	}
 
 	public boolean isUseThreeLetterAminoAcidCode() {
@@ -79,6 +131,14 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 		this.databaseFilePath = databaseFilePath;
 	}
 
+	public TranscriptFilter getTranscriptFilter() {
+		return transcriptFilter;
+	}
+
+	public void setTranscriptFilter(TranscriptFilter transcriptFilter) {
+		this.transcriptFilter = transcriptFilter;
+	}
+
 	public boolean isShowAll() {
 		return showAll;
 	}
@@ -91,7 +151,8 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 	public String toString() {
 		return "JannovarAnnotationOptions [useThreeLetterAminoAcidCode=" + useThreeLetterAminoAcidCode
 				+ ", nt3PrimeShifting=" + nt3PrimeShifting + ", showAll=" + showAll + ", databaseFilePath="
-				+ databaseFilePath + ", toString()=" + super.toString() + "]";
+				+ databaseFilePath + ", transcriptFilter=" + transcriptFilter + ", toString()=" + super.toString()
+				+ "]";
 	}
 
 }
@@ -0,0 +1,154 @@
+package de.charite.compbio.jannovar.cmd;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.charite.compbio.jannovar.JannovarException;
+
+/**
+ * Processes items in chunks on a pool of worker threads and passes the results to a sink in input order.
+ *
+ * Items are collected into chunks, each chunk is processed by a {@link ChunkProcessor} on a worker thread, and the
+ * results are passed to a {@link ResultSink} on the calling thread in the order of the chunks. At most two chunks per
+ * thread are in flight, such that memory usage is bounded when reading large inputs. With one thread, the chunks are
+ * processed on the calling thread.
+ *
+ * The methods of this class must be called from one thread only.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class OrderedChunkProcessor<T, R> implements AutoCloseable {
+
+	/**
+	 * Processing of a chunk of items, called on the worker threads
+	 */
+	@FunctionalInterface
+	public interface ChunkProcessor<T, R> {
+
+		/**
+		 * @param chunk
+		 *            the items to process
+		 * @return the result for <code>chunk</code>
+		 */
+		R process(List<T> chunk);
+
+	}
+
+	/**
+	 * Consumer of the chunk results, called on the thread using the {@link OrderedChunkProcessor}
+	 */
+	@FunctionalInterface
+	public interface ResultSink<R> {
+
+		/**
+		 * @param result
+		 *            the result of the next chunk
+		 * @throws JannovarException
+		 *             on problems handling the result
+		 */
+		void accept(R result) throws JannovarException;
+
+	}
+
+	/** number of items per chunk */
+	private final int chunkSize;
+	/** processing of the chunks */
+	private final ChunkProcessor<T, R> processor;
+	/** consumer of the results */
+	private final ResultSink<R> sink;
+	/** the worker threads, <code>null</code> if the chunks are processed on the calling thread */
+	private final ExecutorService executor;
+	/** maximal number of chunks in {@link #pending} */
+	private final int maxInFlight;
+	/** the results of the submitted chunks, in order */
+	private final ArrayDeque<Future<R>> pending = new ArrayDeque<>();
+	/** the chunk currently being collected */
+	private List<T> chunk;
+
+	/**
+	 * @param numThreads
+	 *            number of worker threads
+	 * @param chunkSize
+	 *            number of items per chunk
+	 * @param processor
+	 *            {@link ChunkProcessor} for the chunks, must be thread-safe if <code>numThreads &gt; 1</code>
+	 * @param sink
+	 *            {@link ResultSink} for the results
+	 */
+	public OrderedChunkProcessor(int numThreads, int chunkSize, ChunkProcessor<T, R> processor, ResultSink<R> sink) {
+		this.chunkSize = chunkSize;
+		this.processor = processor;
+		this.sink = sink;
+		this.executor = (numThreads > 1) ? Executors.newFixedThreadPool(numThreads) : null;
+		this.maxInFlight = 2 * numThreads;
+		this.chunk = new ArrayList<>(chunkSize);
+	}
+
+	/**
+	 * Add item, submitting the current chunk when it is full
+	 *
+	 * @param item
+	 *            the item to add
+	 * @throws JannovarException
+	 *             on problems processing a previous chunk or handling its result
+	 */
+	public void add(T item) throws JannovarException {
+		chunk.add(item);
+		if (chunk.size() == chunkSize)
+			submit();
+	}
+
+	/**
+	 * Submit the remaining items and pass the results of all chunks to the sink
+	 *
+	 * @throws JannovarException
+	 *             on problems processing a chunk or handling its result
+	 */
+	public void finish() throws JannovarException {
+		if (!chunk.isEmpty())
+			submit();
+		while (!pending.isEmpty())
+			acceptHead();
+	}
+
+	/** Shut down the worker threads */
+	@Override
+	public void close() {
+		if (executor != null)
+			executor.shutdownNow();
+	}
+
+	/** Submit {@link #chunk} and pass on the results that are done or exceed the number of chunks in flight */
+	private void submit() throws JannovarException {
+		final List<T> items = chunk;
+		chunk = new ArrayList<>(chunkSize);
+		if (executor == null) {
+			sink.accept(processor.process(items));
+			return;
+		}
+
+		pending.add(executor.submit(() -> processor.process(items)));
+		while (pending.size() > maxInFlight || (!pending.isEmpty() && pending.peek().isDone()))
+			acceptHead();
+	}
+
+	/** Wait for the first chunk in {@link #pending} and pass its result to the sink */
+	private void acceptHead() throws JannovarException {
+		final R result;
+		try {
+			result = pending.poll().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JannovarException("Interrupted while waiting for chunk", e);
+		} catch (ExecutionException e) {
+			throw new JannovarException("Problem processing chunk", e.getCause());
+		}
+		sink.accept(result);
+	}
+
+}
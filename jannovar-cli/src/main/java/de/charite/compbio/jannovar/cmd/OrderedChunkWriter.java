@@ -0,0 +1,101 @@
+package de.charite.compbio.jannovar.cmd;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import de.charite.compbio.jannovar.JannovarException;
+
+/**
+ * Converts items to text in chunks on a pool of worker threads and writes the text in input order.
+ *
+ * This is an {@link OrderedChunkProcessor} that writes the text of each chunk to a {@link Writer}. The methods of this
+ * class must be called from one thread only.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class OrderedChunkWriter<T> implements AutoCloseable {
+
+	/**
+	 * Conversion of a chunk of items to text, called on the worker threads
+	 */
+	@FunctionalInterface
+	public interface ChunkFormatter<T> {
+
+		/**
+		 * @param chunk
+		 *            the items to convert
+		 * @param out
+		 *            {@link StringBuilder} to append the text to
+		 */
+		void format(List<T> chunk, StringBuilder out);
+
+	}
+
+	/** the output */
+	private final Writer out;
+	/** the processing of the chunks */
+	private final OrderedChunkProcessor<T, String> processor;
+
+	/**
+	 * @param numThreads
+	 *            number of worker threads
+	 * @param chunkSize
+	 *            number of items per chunk
+	 * @param formatter
+	 *            {@link ChunkFormatter} for converting chunks to text, must be thread-safe if
+	 *            <code>numThreads &gt; 1</code>
+	 * @param out
+	 *            {@link Writer} to write the text to, should be buffered
+	 */
+	public OrderedChunkWriter(int numThreads, int chunkSize, ChunkFormatter<T> formatter, Writer out) {
+		this.out = out;
+		this.processor = new OrderedChunkProcessor<>(numThreads, chunkSize, chunk -> {
+			StringBuilder builder = new StringBuilder();
+			formatter.format(chunk, builder);
+			return builder.toString();
+		}, this::write);
+	}
+
+	/**
+	 * Add item, submitting the current chunk when it is full
+	 *
+	 * @param item
+	 *            the item to add
+	 * @throws JannovarException
+	 *             on problems converting or writing a previous chunk
+	 */
+	public void add(T item) throws JannovarException {
+		processor.add(item);
+	}
+
+	/**
+	 * Submit the remaining items, write the text of all chunks, and flush the output
+	 *
+	 * @throws JannovarException
+	 *             on problems converting or writing a chunk
+	 */
+	public void finish() throws JannovarException {
+		processor.finish();
+		try {
+			out.flush();
+		} catch (IOException e) {
+			throw new JannovarException("Problem writing output", e);
+		}
+	}
+
+	/** Shut down the worker threads, does not close the output */
+	@Override
+	public void close() {
+		processor.close();
+	}
+
+	private void write(String text) throws JannovarException {
+		try {
+			out.write(text);
+		} catch (IOException e) {
+			throw new JannovarException("Problem writing output", e);
+		}
+	}
+
+}
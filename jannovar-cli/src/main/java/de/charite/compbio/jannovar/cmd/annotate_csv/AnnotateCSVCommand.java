@@ -1,13 +1,11 @@
 package de.charite.compbio.jannovar.cmd.annotate_csv;
 
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVPrinter;
@@ -22,21 +20,25 @@ import de.charite.compbio.jannovar.annotation.VariantAnnotationsTextGenerator;
 import de.charite.compbio.jannovar.annotation.VariantAnnotator;
 import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
 import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.GenomeChangeParser;
 import de.charite.compbio.jannovar.cmd.JannovarAnnotationCommand;
+import de.charite.compbio.jannovar.cmd.OrderedChunkWriter;
 import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
-import de.charite.compbio.jannovar.reference.GenomePosition;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
-import de.charite.compbio.jannovar.reference.PositionType;
-import de.charite.compbio.jannovar.reference.Strand;
 import net.sourceforge.argparse4j.inf.Namespace;
 
 /**
  * Allows the annotation of a CVF file.
  *
+ * The records are annotated in chunks on a pool of worker threads, the output is written in input order.
+ *
  * @author <a href="mailto:max.schubach@charite.de">Max Schubach</a>
  */
 public class AnnotateCSVCommand extends JannovarAnnotationCommand {
 
+	/** Number of records to annotate in one work item */
+	private static final int CHUNK_SIZE = 1000;
+
 	/** Configuration */
 	private JannovarAnnotateCSVOptions options;
 
@@ -65,17 +67,17 @@ public class AnnotateCSVCommand extends JannovarAnnotationCommand {
 		System.err.println(options.toString());
 
 		System.err.println("Deserializing transcripts...");
-		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.getTranscriptFilter());
 
 		final VariantAnnotator annotator = new VariantAnnotator(refDict, chromosomeMap, new AnnotationBuilderOptions());
-
-		try {
-			Reader in = new FileReader(options.getCsv());
-			final Appendable out = System.out;
-			CSVParser parser = options.getFormat().parse(in);
-
-			final CSVPrinter printer = options.getFormat().print(out);
-
+		final GenomeChangeParser changeParser = new GenomeChangeParser(refDict);
+		final OrderedChunkWriter.ChunkFormatter<CSVRecord> formatter = (chunk, builder) -> annotateChunk(
+				changeParser, annotator, chunk, builder);
+
+		try (CSVParser parser = options.getFormat().parse(openInput(options.getCsv()));
+				Writer out = openOutput(options.getOutput());
+				OrderedChunkWriter<CSVRecord> writer = new OrderedChunkWriter<>(options.getNumThreads(), CHUNK_SIZE,
+						formatter, out)) {
 			if (options.isHeader()) {
 				List<String> header = new ArrayList<>(parser.getHeaderMap().size() + 2);
 				for (Map.Entry<String, Integer> entry : parser.getHeaderMap().entrySet()) {
@@ -84,21 +86,47 @@ public class AnnotateCSVCommand extends JannovarAnnotationCommand {
 				header.add(parser.getHeaderMap().size(), "HGVS");
 				header.add(parser.getHeaderMap().size()+1, "FunctionalClass");
 
+				final CSVPrinter printer = options.getFormat().print(out);
 				printer.printRecord(header);
+				printer.flush();
 			}
 
-			for (CSVRecord record : parser) {
+			for (CSVRecord record : parser)
+				writer.add(record);
+			writer.finish();
+		} catch (IOException e1) {
+			e1.printStackTrace();
+			throw new JannovarException(e1.getMessage());
+		}
+
+	}
 
-				// Parse the chromosomal change string into a GenomeChange object.
-				String chromosomalChange = getChromosomalChange(record);
-				final GenomeVariant genomeChange = parseGenomeChange(chromosomalChange);
+	/**
+	 * Annotate the records in <code>chunk</code> and append them with the annotation to <code>builder</code>
+	 */
+	private void annotateChunk(GenomeChangeParser changeParser, VariantAnnotator annotator, List<CSVRecord> chunk,
+			StringBuilder builder) {
+		final AminoAcidCode code = options.isUseThreeLetterAminoAcidCode() ? AminoAcidCode.THREE_LETTER
+				: AminoAcidCode.ONE_LETTER;
+		try {
+			final CSVPrinter printer = options.getFormat().print(builder);
+			for (CSVRecord record : chunk) {
+				// Parse the chromosomal change into a GenomeChange object.
+				final GenomeVariant genomeChange;
+				try {
+					genomeChange = changeParser.parse(record.get(options.getChr()), record.get(options.getPos()),
+							record.get(options.getRef()), record.get(options.getAlt()));
+				} catch (JannovarException e) {
+					System.err.println("[ERROR] " + e.getMessage());
+					continue;
+				}
 
 				// Construct VariantAnnotator for building the variant annotations.
 				VariantAnnotations annoList = null;
 				try {
 					annoList = annotator.buildAnnotations(genomeChange);
 				} catch (Exception e) {
-					System.err.println(String.format("[ERROR] Could not annotate variant %s!", chromosomalChange));
+					System.err.println(String.format("[ERROR] Could not annotate variant %s!", genomeChange));
 					e.printStackTrace(System.err);
 					continue;
 				}
@@ -112,41 +140,14 @@ public class AnnotateCSVCommand extends JannovarAnnotationCommand {
 				else
 					textGenerator = new BestAnnotationListTextGenerator(annoList, 0, 1);
 
-				printer.print(textGenerator.buildHGVSText(options.isUseThreeLetterAminoAcidCode()
-						? AminoAcidCode.THREE_LETTER : AminoAcidCode.ONE_LETTER));
+				printer.print(textGenerator.buildHGVSText(code));
 				printer.print(annoList.getHighestImpactEffect());
 				printer.println();
 			}
-			parser.close();
-			printer.close();
-		} catch (IOException e1) {
-			e1.printStackTrace();
-			throw new JannovarException(e1.getMessage());
+		} catch (IOException e) {
+			// cannot happen when printing to a StringBuilder
+			throw new UncheckedIOException(e);
 		}
-
-	}
-
-	private String getChromosomalChange(CSVRecord record) {
-		return record.get(options.getChr()) + ":" + record.get(options.getPos()) + record.get(options.getRef())
-				+ ">" + record.get(options.getAlt());
-	}
-
-	private GenomeVariant parseGenomeChange(String changeStr) throws JannovarException {
-		Pattern pat = Pattern.compile("(chr[0-9MXY]+):([0-9]+)([ACGTN]*)>([ACGTN]*)");
-		Matcher match = pat.matcher(changeStr);
-
-		if (!match.matches()) {
-			System.err.println("[ERROR] Input string for the chromosomal change " + changeStr
-					+ " does not fit the regular expression ... :(");
-			System.exit(3);
-		}
-
-		int chr = refDict.getContigNameToID().get(match.group(1));
-		int pos = Integer.parseInt(match.group(2));
-		String ref = match.group(3);
-		String alt = match.group(4);
-
-		return new GenomeVariant(new GenomePosition(refDict, Strand.FWD, chr, pos, PositionType.ONE_BASED), ref, alt);
 	}
 
 }
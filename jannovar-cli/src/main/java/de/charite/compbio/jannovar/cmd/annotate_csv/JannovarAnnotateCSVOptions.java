@@ -29,6 +29,10 @@ public class JannovarAnnotateCSVOptions extends JannovarAnnotationOptions {
 	private int pos;
 	private int ref;
 	private int alt;
+	/** Path to output file, <code>null</code> for standard output */
+	private String output;
+	/** Number of threads to use for annotation */
+	private int numThreads;
 
 	/**
 	 * Setup {@link ArgumentParser}
@@ -50,7 +54,7 @@ public class JannovarAnnotateCSVOptions extends JannovarAnnotationOptions {
 		subParser.description("Perform annotation of genomic changes given on the command line");
 		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
 		requiredGroup.addArgument("-d", "--database").help("Path to database .ser file").required(true);
-		requiredGroup.addArgument("-i", "--input").help("CSV file").required(true);
+		requiredGroup.addArgument("-i", "--input").help("CSV file, \"-\" for standard input").required(true);
 		requiredGroup.addArgument("-c", "--chr").type(Integer.class).help("Column of chr (1 based)").required(true);
 		requiredGroup.addArgument("-p", "--pos").type(Integer.class).help("Column of pos (1 based)").required(true);
 		requiredGroup.addArgument("-r", "--ref").type(Integer.class).help("Column of ref (1 based)").required(true);
@@ -62,6 +66,10 @@ public class JannovarAnnotateCSVOptions extends JannovarAnnotationOptions {
 				.help("Type of csv file. ").setDefault(CSVFormat.Predefined.Default);
 		optionalGroup.addArgument("--header").help("Set if the file contains a header. ").setDefault(false)
 				.action(Arguments.storeTrue());
+		ArgumentGroup streamingGroup = subParser.addArgumentGroup("Streaming arguments (optional)");
+		streamingGroup.addArgument("-o", "--output").help("Path to output file, standard output if not given");
+		streamingGroup.addArgument("--threads").help("Number of threads to use for annotation").type(Integer.class)
+				.setDefault(1);
 
 		subParser.epilog(
 				"Example: java -jar Jannovar.jar annotate-csv -d hg19_refseq.ser -c 1 -p 2 -r 3 -r 4 -t TDF --header -i input.csv");
@@ -80,6 +88,10 @@ public class JannovarAnnotateCSVOptions extends JannovarAnnotationOptions {
 		ref = args.getInt("ref") - 1;
 		alt = args.getInt("alt") - 1;
 		header = args.getBoolean("header");
+		output = args.getString("output");
+		numThreads = args.getInt("threads");
+		if (numThreads < 1)
+			throw new CommandLineParsingException("Number of threads must be positive, was " + numThreads);
 		if ( header) 
 			format = format.withFirstRecordAsHeader().withSkipHeaderRecord();
 
@@ -113,6 +125,20 @@ public class JannovarAnnotateCSVOptions extends JannovarAnnotationOptions {
 		return csv;
 	}
 
+	/**
+	 * @return the set path to the output file, <code>null</code> for standard output
+	 */
+	public String getOutput() {
+		return output;
+	}
+
+	/**
+	 * @return the number of threads to use for annotation
+	 */
+	public int getNumThreads() {
+		return numThreads;
+	}
+
 	/**
 	 * @return the set position of the chromosomal position in the CSV file (0 based)
 	 */
@@ -138,7 +164,8 @@ public class JannovarAnnotateCSVOptions extends JannovarAnnotationOptions {
 	@Override
 	public String toString() {
 		return "JannovarAnnotateCSVOptions [csv=" + csv + ", format=" + format + ", chr=" + chr + ", pos=" + pos
-				+ ", ref=" + ref + ", alt=" + alt + ", header?=" + header + ", toString()=" + super.toString() + "]";
+				+ ", ref=" + ref + ", alt=" + alt + ", header?=" + header + ", output=" + output + ", numThreads="
+				+ numThreads + ", toString()=" + super.toString() + "]";
 	}
 
 }
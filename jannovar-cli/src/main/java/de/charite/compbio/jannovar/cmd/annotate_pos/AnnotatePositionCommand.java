@@ -1,7 +1,9 @@
 package de.charite.compbio.jannovar.cmd.annotate_pos;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
 
 import de.charite.compbio.jannovar.JannovarException;
 import de.charite.compbio.jannovar.annotation.AllAnnotationListTextGenerator;
@@ -12,16 +14,17 @@ import de.charite.compbio.jannovar.annotation.VariantAnnotationsTextGenerator;
 import de.charite.compbio.jannovar.annotation.VariantAnnotator;
 import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
 import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.GenomeChangeParser;
 import de.charite.compbio.jannovar.cmd.JannovarAnnotationCommand;
+import de.charite.compbio.jannovar.cmd.OrderedChunkWriter;
 import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
-import de.charite.compbio.jannovar.reference.GenomePosition;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
-import de.charite.compbio.jannovar.reference.PositionType;
-import de.charite.compbio.jannovar.reference.Strand;
 import net.sourceforge.argparse4j.inf.Namespace;
 
 /**
- * Allows the annotation of a single position.
+ * Allows the annotation of single positions given on the command line or of a stream of positions.
+ *
+ * The positions are annotated in chunks on a pool of worker threads, the output is written in input order.
  *
  * @author <a href="mailto:marten.jaeger@charite.de">Marten Jaeger</a>
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
@@ -29,6 +32,9 @@ import net.sourceforge.argparse4j.inf.Namespace;
  */
 public class AnnotatePositionCommand extends JannovarAnnotationCommand {
 
+	/** Number of genomic changes to annotate in one work item */
+	private static final int CHUNK_SIZE = 1000;
+
 	/** Configuration */
 	private JannovarAnnotatePosOptions options;
 
@@ -38,7 +44,7 @@ public class AnnotatePositionCommand extends JannovarAnnotationCommand {
 	}
 
 	/**
-	 * This function will simply annotate given chromosomal position with HGVS compliant output.
+	 * This function will simply annotate given chromosomal positions with HGVS compliant output.
 	 *
 	 * For example, the change <tt>chr1:909238G&gt;C</tt> could be converted to
 	 * <tt>PLEKHN1:NM_032129.2:c.1460G&gt;C,p.(Arg487Pro)</tt>.
@@ -54,13 +60,52 @@ public class AnnotatePositionCommand extends JannovarAnnotationCommand {
 		System.err.println(options.toString());
 
 		System.err.println("Deserializing transcripts...");
-		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.getTranscriptFilter());
 
 		final VariantAnnotator annotator = new VariantAnnotator(refDict, chromosomeMap, new AnnotationBuilderOptions());
-		System.out.println("#change\teffect\thgvs_annotation\tmessages");
-		for (String chromosomalChange : options.getGenomicChanges()) {
+		final GenomeChangeParser parser = new GenomeChangeParser(refDict);
+		final OrderedChunkWriter.ChunkFormatter<String> formatter = (chunk, builder) -> annotateChunk(parser,
+				annotator, chunk, builder);
+
+		try (Writer out = openOutput(options.getPathOutput());
+				OrderedChunkWriter<String> writer = new OrderedChunkWriter<>(options.getNumThreads(), CHUNK_SIZE,
+						formatter, out)) {
+			out.write("#change\teffect\thgvs_annotation\tmessages\n");
+			if (options.getPathInput() == null) {
+				for (String chromosomalChange : options.getGenomicChanges())
+					writer.add(chromosomalChange);
+			} else {
+				try (BufferedReader in = openInput(options.getPathInput())) {
+					String line;
+					while ((line = in.readLine()) != null) {
+						line = line.trim();
+						if (!line.isEmpty() && !line.startsWith("#"))
+							writer.add(line);
+					}
+				}
+			}
+			writer.finish();
+		} catch (IOException e) {
+			throw new JannovarException("Problem annotating genomic changes", e);
+		}
+	}
+
+	/**
+	 * Annotate the genomic changes in <code>chunk</code> and append one output line for each to <code>builder</code>
+	 */
+	private void annotateChunk(GenomeChangeParser parser, VariantAnnotator annotator, List<String> chunk,
+			StringBuilder builder) {
+		final AminoAcidCode code = options.isUseThreeLetterAminoAcidCode() ? AminoAcidCode.THREE_LETTER
+				: AminoAcidCode.ONE_LETTER;
+		for (String chromosomalChange : chunk) {
 			// Parse the chromosomal change string into a GenomeChange object.
-			final GenomeVariant genomeChange = parseGenomeChange(chromosomalChange);
+			final GenomeVariant genomeChange;
+			try {
+				genomeChange = parser.parse(chromosomalChange);
+			} catch (JannovarException e) {
+				System.err.println("[ERROR] " + e.getMessage());
+				continue;
+			}
 
 			// Construct VariantAnnotator for building the variant annotations.
 			VariantAnnotations annoList = null;
@@ -73,39 +118,15 @@ public class AnnotatePositionCommand extends JannovarAnnotationCommand {
 			}
 
 			// Obtain first or all functional annotation(s) and effect(s).
-			final String annotation;
-			final String effect;
-			final String messages;
 			VariantAnnotationsTextGenerator textGenerator;
 			if (options.isShowAll())
 				textGenerator = new AllAnnotationListTextGenerator(annoList, 0, 1);
 			else
 				textGenerator = new BestAnnotationListTextGenerator(annoList, 0, 1);
-			annotation = textGenerator.buildHGVSText(
-					options.isUseThreeLetterAminoAcidCode() ? AminoAcidCode.THREE_LETTER : AminoAcidCode.ONE_LETTER);
-			effect = textGenerator.buildEffectText();
-			messages = textGenerator.buildMessages();
-			
-			System.out.println(String.format("%s\t%s\t%s\t%s", chromosomalChange.toString(), effect, annotation, messages));
+			builder.append(chromosomalChange).append('\t').append(textGenerator.buildEffectText()).append('\t')
+					.append(textGenerator.buildHGVSText(code)).append('\t').append(textGenerator.buildMessages())
+					.append('\n');
 		}
 	}
 
-	private GenomeVariant parseGenomeChange(String changeStr) throws JannovarException {
-		Pattern pat = Pattern.compile("(chr[0-9MXY]+):([0-9]+)([ACGTN]*)>([ACGTN]*)");
-		Matcher match = pat.matcher(changeStr);
-
-		if (!match.matches()) {
-			System.err.println("[ERROR] Input string for the chromosomal change " + changeStr
-					+ " does not fit the regular expression ... :(");
-			System.exit(3);
-		}
-
-		int chr = refDict.getContigNameToID().get(match.group(1));
-		int pos = Integer.parseInt(match.group(2));
-		String ref = match.group(3);
-		String alt = match.group(4);
-
-		return new GenomeVariant(new GenomePosition(refDict, Strand.FWD, chr, pos, PositionType.ONE_BASED), ref, alt);
-	}
-
 }
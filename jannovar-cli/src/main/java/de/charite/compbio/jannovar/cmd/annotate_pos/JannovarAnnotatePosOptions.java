@@ -10,6 +10,7 @@ import de.charite.compbio.jannovar.cmd.JannovarAnnotationOptions;
 import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentGroup;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.MutuallyExclusiveGroup;
 import net.sourceforge.argparse4j.inf.Namespace;
 import net.sourceforge.argparse4j.inf.Subparser;
 import net.sourceforge.argparse4j.inf.Subparsers;
@@ -24,6 +25,15 @@ public class JannovarAnnotatePosOptions extends JannovarAnnotationOptions {
 	/** List of Strings with genomic changes to parse */
 	private List<String> genomicChanges = new ArrayList<>();
 
+	/** Path to file with one genomic change per line, <code>"-"</code> for standard input */
+	private String pathInput = null;
+
+	/** Path to output file, <code>null</code> for standard output */
+	private String pathOutput = null;
+
+	/** Number of threads to use for annotation */
+	private int numThreads = 1;
+
 	/**
 	 * Setup {@link ArgumentParser}
 	 * 
@@ -41,13 +51,23 @@ public class JannovarAnnotatePosOptions extends JannovarAnnotationOptions {
 
 		Subparser subParser = subParsers.addParser("annotate-pos", true)
 				.help("annotate genomic changes given on the command line").setDefault("cmd", handler);
-		subParser.description("Perform annotation of genomic changes given on the command line");
+		subParser.description("Perform annotation of genomic changes given on the command line or in a file");
 		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
 		requiredGroup.addArgument("-d", "--database").help("Path to database .ser file").required(true);
-		requiredGroup.addArgument("-c", "--genomic-change").help("Genomic change to annotate, you can give multiple ones")
-				.action(Arguments.append()).required(true);
+		MutuallyExclusiveGroup inputGroup = subParser.addMutuallyExclusiveGroup("Input arguments").required(true);
+		inputGroup.addArgument("-c", "--genomic-change").help("Genomic change to annotate, you can give multiple ones")
+				.action(Arguments.append());
+		inputGroup.addArgument("-i", "--input")
+				.help("File with one genomic change per line to annotate, \"-\" for standard input");
+
+		ArgumentGroup optionalGroup = subParser.addArgumentGroup("Streaming arguments (optional)");
+		optionalGroup.addArgument("-o", "--output").help("Path to output file, standard output if not given");
+		optionalGroup.addArgument("--threads").help("Number of threads to use for annotation").type(Integer.class)
+				.setDefault(1);
 
-		subParser.epilog("Example: java -jar Jannovar.jar annotate-pos -d hg19_refseq.ser -c 'chr1:12345C>A'");
+		subParser.epilog("Example: java -jar Jannovar.jar annotate-pos -d hg19_refseq.ser -c 'chr1:12345C>A'\n"
+				+ "Example: zcat changes.txt.gz | java -jar Jannovar.jar annotate-pos -d hg19_refseq.ser -i - "
+				+ "--threads 8 -o out.tsv");
 
 		JannovarAnnotationOptions.setupParser(subParser);
 	}
@@ -57,6 +77,13 @@ public class JannovarAnnotatePosOptions extends JannovarAnnotationOptions {
 		super.setFromArgs(args);
 
 		genomicChanges = args.getList("genomic_change");
+		if (genomicChanges == null)
+			genomicChanges = new ArrayList<>();
+		pathInput = args.getString("input");
+		pathOutput = args.getString("output");
+		numThreads = args.getInt("threads");
+		if (numThreads < 1)
+			throw new CommandLineParsingException("Number of threads must be positive, was " + numThreads);
 	}
 
 	public List<String> getGenomicChanges() {
@@ -67,10 +94,34 @@ public class JannovarAnnotatePosOptions extends JannovarAnnotationOptions {
 		this.genomicChanges = genomicChanges;
 	}
 
+	public String getPathInput() {
+		return pathInput;
+	}
+
+	public void setPathInput(String pathInput) {
+		this.pathInput = pathInput;
+	}
+
+	public String getPathOutput() {
+		return pathOutput;
+	}
+
+	public void setPathOutput(String pathOutput) {
+		this.pathOutput = pathOutput;
+	}
+
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
 	@Override
 	public String toString() {
-		return "JannovarAnnotatePosOptions [genomicChanges=" + genomicChanges + ", toString()=" + super.toString()
-				+ "]";
+		return "JannovarAnnotatePosOptions [genomicChanges=" + genomicChanges + ", pathInput=" + pathInput
+				+ ", pathOutput=" + pathOutput + ", numThreads=" + numThreads + ", toString()=" + super.toString() + "]";
 	}
 
 }
@@ -0,0 +1,131 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.htsjdk.VariantContextWriterConstructionHelper;
+import de.charite.compbio.jannovar.mendel.filter.VariantContextProcessor;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/**
+ * Annotate multiple VCF files listed in a manifest in one process.
+ *
+ * <p>
+ * The transcript database and the variant databases configured to be loaded into memory are loaded once. Each worker
+ * thread opens the other annotation databases once (see {@link ThreadVCFAnnotators}) and uses them for all files
+ * that it processes, such that memory usage and setup time grow with the number of threads instead of the number of
+ * files. The databases are closed once all files have been processed.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class AnnotateVCFBatchCommand extends AnnotateVCFCommand {
+
+	/** Configuration */
+	private final JannovarAnnotateVCFBatchOptions options;
+
+	public AnnotateVCFBatchCommand(String[] argv, Namespace args) throws CommandLineParsingException {
+		this(argv, parseOptions(args));
+	}
+
+	private AnnotateVCFBatchCommand(String[] argv, JannovarAnnotateVCFBatchOptions options) {
+		super(argv, options);
+		this.options = options;
+	}
+
+	private static JannovarAnnotateVCFBatchOptions parseOptions(Namespace args)
+			throws CommandLineParsingException {
+		JannovarAnnotateVCFBatchOptions options = new JannovarAnnotateVCFBatchOptions();
+		options.setFromArgs(args);
+		return options;
+	}
+
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		System.err.println(options.toString());
+
+		final VCFBatchManifest manifest = VCFBatchManifest.read(new File(options.getPathManifest()));
+
+		System.err.println("Deserializing transcripts...");
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.getTranscriptFilter());
+
+		System.err.println("Annotating " + manifest.getEntries().size() + " VCF files using "
+				+ options.getNumThreads() + " threads...");
+		final long startTime = System.nanoTime();
+		startMetricsReporting();
+
+		int numFailed = 0;
+		final ThreadVCFAnnotators annotators = new ThreadVCFAnnotators(options, refDict, chromosomeMap);
+		final ExecutorService executor = Executors.newFixedThreadPool(options.getNumThreads());
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (VCFBatchManifest.Entry entry : manifest.getEntries())
+				futures.add(executor.submit(() -> {
+					annotateFile(entry, annotators.get());
+					return null;
+				}));
+
+			for (int i = 0; i < futures.size(); ++i) {
+				final VCFBatchManifest.Entry entry = manifest.getEntries().get(i);
+				try {
+					futures.get(i).get();
+					System.err.println("Wrote annotations to \"" + entry.getPathOutputVCF() + "\"");
+				} catch (ExecutionException e) {
+					numFailed += 1;
+					System.err.println("There was a problem annotating " + entry.getPathInputVCF());
+					System.err.println(e.getCause().getMessage());
+					e.getCause().printStackTrace(System.err);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JannovarException("Interrupted while annotating VCF files", e);
+		} finally {
+			shutdownAndAwaitTermination(executor);
+			annotators.close();
+		}
+
+		final long endTime = System.nanoTime();
+		System.err.println(String.format("Annotation and writing took %.2f sec.",
+				(endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+		finishMetrics();
+		if (numFailed > 0)
+			throw new JannovarException(
+					"Annotation failed for " + numFailed + " of " + manifest.getEntries().size() + " VCF files");
+	}
+
+	/**
+	 * Annotate the VCF file described by <code>entry</code>
+	 *
+	 * @param entry the {@link VCFBatchManifest.Entry} to process
+	 * @param annotators the annotation steps of the current thread
+	 */
+	private void annotateFile(VCFBatchManifest.Entry entry, VCFAnnotators annotators) throws Exception {
+		try (VCFFileReader vcfReader = new VCFFileReader(new File(entry.getPathInputVCF()), false);
+				CloseableIterator<VariantContext> iter = vcfReader.iterator()) {
+			final VCFHeader vcfHeader = vcfReader.getFileHeader();
+			final Stream<VariantContext> stream =
+					buildAnnotationPipeline(metrics.read("read", iter), vcfHeader, annotators, entry.getPathPedFile());
+			try (VariantContextWriter vcfWriter = VariantContextWriterConstructionHelper
+					.openVariantContextWriter(vcfHeader, entry.getPathOutputVCF(), buildJannovarHeaderLines());
+					VariantContextProcessor sink =
+							buildMendelianProcessors(vcfWriter::add, vcfHeader, entry.getPathPedFile())) {
+				stream.forEachOrdered(sink::put);
+			}
+		}
+	}
+
+}
@@ -6,7 +6,6 @@ import de.charite.compbio.jannovar.Jannovar;
 import de.charite.compbio.jannovar.JannovarException;
 import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
 import de.charite.compbio.jannovar.cmd.JannovarAnnotationCommand;
-import de.charite.compbio.jannovar.cmd.annotate_vcf.JannovarAnnotateVCFOptions.BedAnnotationOptions;
 import de.charite.compbio.jannovar.filter.facade.PedigreeFilterAnnotator;
 import de.charite.compbio.jannovar.filter.facade.PedigreeFilterHeaderExtender;
 import de.charite.compbio.jannovar.filter.facade.PedigreeFilterOptions;
@@ -14,13 +13,12 @@ import de.charite.compbio.jannovar.filter.facade.GenotypeThresholdFilterAnnotato
 import de.charite.compbio.jannovar.filter.facade.ThresholdFilterHeaderExtender;
 import de.charite.compbio.jannovar.filter.facade.ThresholdFilterOptions;
 import de.charite.compbio.jannovar.filter.impl.var.VariantThresholdFilterAnnotator;
-import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
 import de.charite.compbio.jannovar.htsjdk.VariantContextWriterConstructionHelper;
-import de.charite.compbio.jannovar.htsjdk.VariantEffectHeaderExtender;
 import de.charite.compbio.jannovar.mendel.IncompatiblePedigreeException;
 import de.charite.compbio.jannovar.mendel.bridge.MendelVCFHeaderExtender;
 import de.charite.compbio.jannovar.mendel.filter.ConsumerProcessor;
 import de.charite.compbio.jannovar.mendel.filter.CoordinateSortingChecker;
+import de.charite.compbio.jannovar.mendel.filter.GeneBoundaries;
 import de.charite.compbio.jannovar.mendel.filter.GeneWiseMendelianAnnotationProcessor;
 import de.charite.compbio.jannovar.mendel.filter.VariantContextFilterException;
 import de.charite.compbio.jannovar.mendel.filter.VariantContextProcessor;
@@ -34,31 +32,32 @@ import de.charite.compbio.jannovar.pedigree.Person;
 import de.charite.compbio.jannovar.pedigree.Sex;
 import de.charite.compbio.jannovar.progress.GenomeRegionListFactoryFromSAMSequenceDictionary;
 import de.charite.compbio.jannovar.progress.ProgressReporter;
-import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
-import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions.MultipleMatchBehaviour;
-import de.charite.compbio.jannovar.vardbs.facade.DBVariantContextAnnotator;
-import de.charite.compbio.jannovar.vardbs.facade.DBVariantContextAnnotatorFactory;
-import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationDriver;
-import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationOptions;
-import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationTarget;
-import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVValueColumnDescription;
-import de.charite.compbio.jannovar.vardbs.generic_vcf.GenericVCFAnnotationDriver;
-import de.charite.compbio.jannovar.vardbs.generic_vcf.GenericVCFAnnotationOptions;
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.Interval;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.index.tabix.TabixFormat;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFCodec;
 import htsjdk.variant.vcf.VCFContigHeaderLine;
+import htsjdk.variant.vcf.VCFEncoder;
 import htsjdk.variant.vcf.VCFFileReader;
 import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFHeaderLine;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import net.sourceforge.argparse4j.inf.Namespace;
@@ -80,10 +79,26 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 	/** Configuration */
 	private JannovarAnnotateVCFOptions options;
 
+	/** Per-stage metrics of the annotation pipeline, enabled if a metrics file is configured */
+	final PipelineMetrics metrics;
+
 	public AnnotateVCFCommand(String[] argv, Namespace args) throws CommandLineParsingException {
 		this.argv = argv;
 		this.options = new JannovarAnnotateVCFOptions();
 		this.options.setFromArgs(args);
+		this.metrics = new PipelineMetrics(options.getPathMetricsFile() != null);
+	}
+
+	/**
+	 * Construct with already parsed configuration, for subclasses
+	 *
+	 * @param argv raw command line arguments
+	 * @param options configuration
+	 */
+	protected AnnotateVCFCommand(String[] argv, JannovarAnnotateVCFOptions options) {
+		this.argv = argv;
+		this.options = options;
+		this.metrics = new PipelineMetrics(options.getPathMetricsFile() != null);
 	}
 
 	/**
@@ -99,14 +114,22 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 		System.err.println(options.toString());
 
 		System.err.println("Deserializing transcripts...");
-		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.getTranscriptFilter());
 
 		final String vcfPath = options.getPathInputVCF();
 
 		// whether or not to require availability of an index
 		final boolean useInterval = (options.getInterval() != null && !options.getInterval().equals(""));
+		final boolean useShards = options.getNumShards() > 1;
+
+		try (VCFFileReader vcfReader = new VCFFileReader(new File(vcfPath), useInterval || useShards)) {
+			startMetricsReporting();
+			if (useShards) {
+				runSharded(vcfReader);
+				finishMetrics();
+				return;
+			}
 
-		try (VCFFileReader vcfReader = new VCFFileReader(new File(vcfPath), useInterval)) {
 			if (this.options.getVerbosity() >= 1) {
 				final SAMSequenceDictionary seqDict = VCFFileReader.getSequenceDictionary(new File(vcfPath));
 				if (seqDict != null) {
@@ -144,251 +167,34 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 			}
 
 			// Obtain Java 8 stream from iterator
-			Stream<VariantContext> stream = iter.stream();
-
-			// If configured, annotate using dbSNP VCF file (extend header to
-			// use for writing out)
-			if (options.pathVCFDBSNP != null) {
-				DBAnnotationOptions dbSNPOptions = DBAnnotationOptions.createDefaults();
-				dbSNPOptions.setIdentifierPrefix(options.prefixDBSNP);
-				DBVariantContextAnnotator dbSNPAnno = new DBVariantContextAnnotatorFactory()
-						.constructDBSNP(options.pathVCFDBSNP, options.pathFASTARef, dbSNPOptions);
-				dbSNPAnno.extendHeader(vcfHeader);
-				stream = stream.map(dbSNPAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using ExAC VCF file (extend header to use
-			// for writing out)
-			if (options.pathVCFExac != null) {
-				DBAnnotationOptions exacOptions = DBAnnotationOptions.createDefaults();
-				exacOptions.setIdentifierPrefix(options.prefixExac);
-				DBVariantContextAnnotator exacAnno = new DBVariantContextAnnotatorFactory()
-						.constructExac(options.pathVCFExac, options.pathFASTARef, exacOptions);
-				exacAnno.extendHeader(vcfHeader);
-				stream = stream.map(exacAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using gnomAD exomes VCF file (extend
-			// header to use for
-			// writing out)
-			if (options.pathVCFGnomadExomes != null) {
-				DBAnnotationOptions gnomadOptions = DBAnnotationOptions.createDefaults();
-				gnomadOptions.setIdentifierPrefix(options.prefixGnomadExomes);
-				DBVariantContextAnnotator gnomadExomesAnno = new DBVariantContextAnnotatorFactory()
-						.constructGnomad(options.pathVCFGnomadExomes, options.pathFASTARef, gnomadOptions);
-				gnomadExomesAnno.extendHeader(vcfHeader);
-				stream = stream.map(gnomadExomesAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using gnomAD genomes VCF file (extend
-			// header to use for
-			// writing out)
-			if (options.pathVCFGnomadGenomes != null) {
-				DBAnnotationOptions gnomadOptions = DBAnnotationOptions.createDefaults();
-				gnomadOptions.setIdentifierPrefix(options.prefixGnomadGenomes);
-				DBVariantContextAnnotator gnomadGenomesAnno = new DBVariantContextAnnotatorFactory()
-						.constructGnomad(options.pathVCFGnomadGenomes, options.pathFASTARef, gnomadOptions);
-				gnomadGenomesAnno.extendHeader(vcfHeader);
-				stream = stream.map(gnomadGenomesAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using UK10K VCF file (extend header to
-			// use for writing out)
-			if (options.pathVCFUK10K != null) {
-				DBAnnotationOptions exacOptions = DBAnnotationOptions.createDefaults();
-				exacOptions.setIdentifierPrefix(options.prefixUK10K);
-				DBVariantContextAnnotator uk10kAnno = new DBVariantContextAnnotatorFactory()
-						.constructUK10K(options.pathVCFUK10K, options.pathFASTARef, exacOptions);
-				uk10kAnno.extendHeader(vcfHeader);
-				stream = stream.map(uk10kAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using ClinVar VCF file (extend header to
-			// use for writing out)
-			if (options.pathClinVar != null) {
-				DBAnnotationOptions clinVarOptions = DBAnnotationOptions.createDefaults();
-				clinVarOptions.setIdentifierPrefix(options.prefixClinVar);
-				DBVariantContextAnnotator clinvarAnno = new DBVariantContextAnnotatorFactory()
-						.constructClinVar(options.pathClinVar, options.pathFASTARef, clinVarOptions);
-				clinvarAnno.extendHeader(vcfHeader);
-				stream = stream.map(clinvarAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using COSMIC VCF file (extend header to
-			// use for writing out)
-			if (options.pathCosmic != null) {
-				DBAnnotationOptions cosmicOptions = DBAnnotationOptions.createDefaults();
-				cosmicOptions.setIdentifierPrefix(options.prefixCosmic);
-				DBVariantContextAnnotator cosmicAnno = new DBVariantContextAnnotatorFactory()
-						.constructCosmic(options.pathCosmic, options.pathFASTARef, cosmicOptions);
-				cosmicAnno.extendHeader(vcfHeader);
-				stream = stream.map(cosmicAnno::annotateVariantContext);
-			}
-
-			// Add step for annotating with variant effect
-			VariantEffectHeaderExtender extender = new VariantEffectHeaderExtender();
-			extender.addHeaders(vcfHeader);
-			VariantContextAnnotator variantEffectAnnotator =
-					new VariantContextAnnotator(refDict, chromosomeMap,
-							new VariantContextAnnotator.Options(!options.isShowAll(),
-									options.isEscapeAnnField(), options.isNt3PrimeShifting(),
-									options.isOffTargetFilterEnabled(),
-									options.isOffTargetFilterUtrIsOffTarget(),
-									options.isOffTargetFilterIntronicSpliceIsOffTarget()));
-			stream = stream.map(variantEffectAnnotator::annotateVariantContext);
-
-			// If configured, use threshold-based annotation (extend header to
-			// use for writing out)
-			ArrayList<String> affecteds = new ArrayList<>();
-			if (options.useThresholdFilters) {
-				// Build options object for threshold filter
-				ThresholdFilterOptions thresholdFilterOptions = new ThresholdFilterOptions(
-						options.getThreshFiltMinGtCovHet(), options.getThreshFiltMinGtCovHomAlt(),
-						options.getThreshFiltMaxCov(), options.getThreshFiltMinGtGq(),
-						options.getThreshFiltMinGtAafHet(), options.getThreshFiltMaxGtAafHet(),
-						options.getThreshFiltMinGtAafHomAlt(), options.getThreshFiltMaxGtAafHomRef(),
-						options.getPrefixExac(), options.getPrefixDBSNP(), options.getPrefixGnomadGenomes(),
-						options.getPrefixGnomadExomes(), options.getThreshFiltMaxAlleleFrequencyAd(),
-						options.getThreshFiltMaxAlleleFrequencyAr());
-				// Add headers
-				new ThresholdFilterHeaderExtender(thresholdFilterOptions).addHeaders(vcfHeader);
-				// Build list of affecteds; take from pedigree file if given.
-				// Otherwise, assume one single individual is always affected and otherwise warn
-				// about missing pedigree.
-				if (options.pathPedFile == null) {
-					if (vcfHeader.getNGenotypeSamples() == 1) {
-						System.err.println(
-								"INFO: No pedigree file given and single individual. Assuming it is affected for the threshold filter");
-					} else {
-						System.err.println(
-								"WARNING: no pedigree file given. Threshold filter will not annotate FILTER field, only genotype FT");
-					}
-				} else {
-					Pedigree pedigree;
-					try {
-						pedigree = loadPedigree(vcfHeader);
-					} catch (IOException e) {
-						System.err.println("Problem loading pedigree from " + options.pathPedFile);
-						System.err.println(e.getMessage());
-						System.err.println("\n");
-						e.printStackTrace(System.err);
-						return;
-					}
-					for (Person person : pedigree.getMembers()) {
-						if (person.isAffected())
-							affecteds.add(person.getName());
-					}
-					if (affecteds.isEmpty()) {
-						System.err.println(
-								"WARNING: no affected individual in pedigree. Threshold filter will not modify FILTER field, "
-										+ "only genotype FT");
-					}
-				}
-				GenotypeThresholdFilterAnnotator gtThresholdFilterAnno =
-						new GenotypeThresholdFilterAnnotator(thresholdFilterOptions);
-				stream = stream.map(gtThresholdFilterAnno::annotateVariantContext);
-
-				// When configured to use advanced pedigree filters (must come
-				// after threshold-based filtration)
-				if (options.useAdvancedPedigreeFilters) {
-					// Build options object from configuration and extend headers
-					PedigreeFilterOptions pedFilterOptions = new PedigreeFilterOptions(
-							options.getThreshDeNovoParentAd2(), options.isUseParentGtIsFiltered());
-					new PedigreeFilterHeaderExtender(pedFilterOptions).addHeaders(vcfHeader);
-
-					// Load pedigree
-					Pedigree pedigree;
-					try {
-						pedigree = loadPedigree(vcfHeader);
-					} catch (IOException e) {
-						System.err.println("Problem loading pedigree from " + options.pathPedFile);
-						System.err.println(e.getMessage());
-						System.err.println("\n");
-						e.printStackTrace(System.err);
-						return;
-					}
-
-					// Construct annotator and register with pipeline
-					PedigreeFilterAnnotator pedFilterAnnotator = new PedigreeFilterAnnotator(pedFilterOptions,
-							pedigree);
-					stream = stream.map(pedFilterAnnotator::annotateVariantContext);
-				}
-
-				if (options.useThresholdFilters) {
-					VariantThresholdFilterAnnotator varThresholdFilterAnno =
-							new VariantThresholdFilterAnnotator(thresholdFilterOptions, affecteds);
-					stream = stream.map(varThresholdFilterAnno::annotateVariantContext);
+			Stream<VariantContext> stream = metrics.read("read", iter);
+
+			// Construct annotation steps, closed after the pipeline has run
+			try (VCFAnnotators annotators = new VCFAnnotators(options, refDict, chromosomeMap,
+					new InMemoryDatabases(options))) {
+				try {
+					stream = buildAnnotationPipeline(stream, vcfHeader, annotators, options.pathPedFile);
+				} catch (IOException e) {
+					System.err.println("Problem loading pedigree from " + options.pathPedFile);
+					System.err.println(e.getMessage());
+					System.err.println("\n");
+					e.printStackTrace(System.err);
+					return;
 				}
-			}
-
-			// Annotate from BED files
-			List<BedFileAnnotator> bedFileAnnotators = new ArrayList<>();
-			for (BedAnnotationOptions bedAnnotationOptions : options.getBedAnnotationOptions()) {
-				BedFileAnnotator annotator = new BedFileAnnotator(bedAnnotationOptions);
-				bedFileAnnotators.add(annotator);
-				annotator.extendHeader(vcfHeader);
-				stream = stream.map(annotator::annotateVariantContext);
-			}
 
-			// Annotate using dbNSFP
-			GenericTSVAnnotationDriver dbNsfpAnnotator;
-			if (options.getPathDbNsfp() != null) {
-				Map<String, GenericTSVValueColumnDescription> descriptions = new HashMap<>();
-				for (String colName : options.getColumnsDbNsfp()) {
-					descriptions.put(colName, DbNsfpFields.DBNSFP_FIELDS.get(colName));
+				// Construct VariantContextWriter and start annotationg pipeline
+				try (VariantContextWriter vcfWriter = VariantContextWriterConstructionHelper
+						.openVariantContextWriter(vcfHeader, options.getPathOutputVCF(), buildJannovarHeaderLines());
+						VariantContextProcessor sink =
+								buildMendelianProcessors(vcfWriter::add, vcfHeader, options.pathPedFile)) {
+					// Make current VC available to progress printer
+					if (this.progressReporter != null)
+						stream = stream.peek(vc -> this.progressReporter.setCurrentVC(vc));
+
+					stream.forEachOrdered(sink::put);
+				} catch (IOException e) {
+					throw new JannovarException("Problem opening file", e);
 				}
-				GenericTSVAnnotationOptions dbNsfpAnnotationOptions = new GenericTSVAnnotationOptions(true, false,
-						options.getPrefixDbNsfp(), MultipleMatchBehaviour.BEST_ONLY, new File(options.getPathDbNsfp()),
-						GenericTSVAnnotationTarget.VARIANT, true, options.getDbNsfpColContig(),
-						options.getDbNsfpColPosition(), options.getDbNsfpColPosition(), 3, 4, false, 
-						options.getColumnsDbNsfp(), descriptions);
-				dbNsfpAnnotator = new GenericTSVAnnotationDriver(options.getPathFASTARef(), dbNsfpAnnotationOptions);
-				dbNsfpAnnotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
-				stream = stream.map(dbNsfpAnnotator::annotateVariantContext);
-			}
-
-			// Annotate from generic TSV files
-			List<GenericTSVAnnotationDriver> tsvAnnotators = new ArrayList<>();
-			for (GenericTSVAnnotationOptions tsvAnnotationOptions : options.getTsvAnnotationOptions()) {
-				GenericTSVAnnotationDriver annotator = new GenericTSVAnnotationDriver(options.getPathFASTARef(),
-						tsvAnnotationOptions);
-				tsvAnnotators.add(annotator);
-				annotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
-				stream = stream.map(annotator::annotateVariantContext);
-			}
-
-			// Annotate from generic VCF files
-			List<GenericVCFAnnotationDriver> vcfAnnotators = new ArrayList<>();
-			for (GenericVCFAnnotationOptions vcfAnnotationOptions : options.getVcfAnnotationOptions()) {
-				GenericVCFAnnotationDriver annotator = new GenericVCFAnnotationDriver(
-						vcfAnnotationOptions.getPathVcfFile(), options.getPathFASTARef(), vcfAnnotationOptions);
-				vcfAnnotators.add(annotator);
-				annotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
-				stream = stream.map(annotator::annotateVariantContext);
-			}
-
-			// Extend header with INHERITANCE filter
-			if (options.pathPedFile != null || options.annotateAsSingletonPedigree) {
-				System.err.println("Extending header with INHERITANCE...");
-				new MendelVCFHeaderExtender().extendHeader(vcfHeader, "");
-			}
-
-			// Create VCF output writer
-			ImmutableList<VCFHeaderLine> jvHeaderLines = ImmutableList.of(
-					new VCFHeaderLine("jannovarVersion", Jannovar.getVersion()),
-					new VCFHeaderLine("jannovarCommand", Joiner.on(' ').join(argv)));
-
-			// Construct VariantContextWriter and start annotationg pipeline
-			try (VariantContextWriter vcfWriter = VariantContextWriterConstructionHelper
-					.openVariantContextWriter(vcfHeader, options.getPathOutputVCF(), jvHeaderLines);
-					VariantContextProcessor sink = buildMendelianProcessors(vcfWriter, vcfHeader)) {
-				// Make current VC available to progress printer
-				if (this.progressReporter != null)
-					stream = stream.peek(vc -> this.progressReporter.setCurrentVC(vc));
-
-				stream.forEachOrdered(sink::put);
-			} catch (IOException e) {
-				throw new JannovarException("Problem opening file", e);
 			}
 
 			System.err.println("Wrote annotations to \"" + options.getPathOutputVCF() + "\"");
@@ -417,19 +223,305 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 
 		if (progressReporter != null)
 			progressReporter.done();
+		finishMetrics();
+	}
+
+	/**
+	 * Annotate the input VCF file in chunks and concatenate the results into one bgzip-compressed output file
+	 *
+	 * <p>
+	 * The chunks are annotated in parallel, each with its own annotation pipeline, while sharing the transcript
+	 * database. Each worker thread opens the annotation databases once (see {@link ThreadVCFAnnotators}) and uses
+	 * them for all chunks that it processes. Each chunk is written to a temporary BGZF file without VCF header; these
+	 * are concatenated after a header block without recompression. Finally, the output file is tabix-indexed.
+	 * </p>
+	 *
+	 * @param vcfReader {@link VCFFileReader} for the input VCF file, used for planning the chunks
+	 * @throws JannovarException on problems with the annotation
+	 */
+	private void runSharded(VCFFileReader vcfReader) throws JannovarException {
+		final File vcfFile = new File(options.getPathInputVCF());
+		final File outFile = new File(options.getPathOutputVCF());
+		final SAMSequenceDictionary seqDict = vcfReader.getFileHeader().getSequenceDictionary();
+
+		final List<List<Interval>> shards = new VCFShardPlanner(new GeneBoundaries(jannovarData)).plan(vcfFile,
+				seqDict, options.getNumShards());
+		System.err.println("Annotating VCF in " + shards.size() + " chunks using " + options.getNumThreads()
+				+ " threads...");
+		final long startTime = System.nanoTime();
+
+		// Temporary files, the first one is for the header
+		final List<File> parts = new ArrayList<>();
+		parts.add(new File(outFile.getPath() + ".header.vcf.gz"));
+		for (int i = 0; i < shards.size(); ++i)
+			parts.add(new File(outFile.getPath() + ".part" + i + ".vcf.gz"));
+
+		final ThreadVCFAnnotators annotators = new ThreadVCFAnnotators(options, refDict, chromosomeMap);
+		final ExecutorService executor = Executors.newFixedThreadPool(options.getNumThreads());
+		try {
+			final List<Future<VCFHeader>> futures = new ArrayList<>();
+			for (int i = 0; i < shards.size(); ++i) {
+				final List<Interval> shard = shards.get(i);
+				final File part = parts.get(i + 1);
+				final String label = "chunk " + (i + 1) + " of " + shards.size() + " " + shard.stream()
+						.map(itv -> itv.getContig() + ":" + itv.getStart() + "-" + itv.getEnd())
+						.collect(Collectors.joining(", "));
+				futures.add(executor.submit(() -> {
+					final VCFHeader header = annotateShard(vcfFile, shard, part, annotators);
+					System.err.println("Finished " + label);
+					return header;
+				}));
+			}
+			VCFHeader vcfHeader = null;
+			for (Future<VCFHeader> future : futures)
+				vcfHeader = getShardResult(future);
+
+			System.err.println("Concatenating chunks...");
+			VariantContextWriterConstructionHelper
+					.openVariantContextWriter(vcfHeader, parts.get(0).getPath(), buildJannovarHeaderLines()).close();
+			BGZFConcatenator.concatenate(parts, outFile);
+
+			System.err.println("Indexing output file...");
+			IndexFactory.createTabixIndex(outFile, new VCFCodec(), TabixFormat.VCF, seqDict)
+					.writeBasedOnFeatureFile(outFile);
+		} catch (IOException e) {
+			throw new JannovarException("Problem writing output file " + outFile, e);
+		} finally {
+			shutdownAndAwaitTermination(executor);
+			annotators.close();
+			for (File part : parts)
+				part.delete();
+		}
+
+		System.err.println("Wrote annotations to \"" + options.getPathOutputVCF() + "\"");
+		final long endTime = System.nanoTime();
+		System.err.println(String.format("Annotation and writing took %.2f sec.",
+				(endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+	}
+
+	/**
+	 * Annotate the records beginning in the intervals of a chunk and write them to a BGZF file without header
+	 *
+	 * @param vcfFile path to the input VCF file
+	 * @param shard the intervals of the chunk
+	 * @param part path to the output file for the chunk
+	 * @param annotators the annotation steps for the worker threads
+	 * @return the extended {@link VCFHeader} (without the lines added on writing)
+	 */
+	private VCFHeader annotateShard(File vcfFile, List<Interval> shard, File part, ThreadVCFAnnotators annotators)
+			throws JannovarException, IOException, IncompatiblePedigreeException {
+		try (VCFFileReader reader = new VCFFileReader(vcfFile, true)) {
+			final VCFHeader vcfHeader = reader.getFileHeader();
+			Stream<VariantContext> stream = shard.stream().flatMap(itv -> {
+				final CloseableIterator<VariantContext> iter =
+						reader.query(itv.getContig(), itv.getStart(), itv.getEnd());
+				return metrics.read("read", iter).onClose(iter::close).filter(vc -> vc.getStart() >= itv.getStart());
+			});
+			stream = buildAnnotationPipeline(stream, vcfHeader, annotators.get(), options.pathPedFile);
+
+			// Encode records as the VariantContextWriter would for the header written in runSharded()
+			final VCFHeader outHeader = VariantContextWriterConstructionHelper.extendHeaderFields(
+					new VCFHeader(vcfHeader));
+			for (VCFHeaderLine headerLine : buildJannovarHeaderLines())
+				outHeader.addMetaDataLine(headerLine);
+			final VCFEncoder encoder = new VCFEncoder(outHeader, true, false);
+
+			try (BlockCompressedOutputStream out = new BlockCompressedOutputStream(part);
+					VariantContextProcessor sink =
+							buildMendelianProcessors(vc -> writeRecord(out, encoder, vc), vcfHeader,
+									options.pathPedFile)) {
+				stream.forEachOrdered(sink::put);
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			return vcfHeader;
+		}
+	}
+
+	/** Write <code>vc</code> as VCF line to <code>out</code>. */
+	private static void writeRecord(OutputStream out, VCFEncoder encoder, VariantContext vc) {
+		try {
+			out.write((encoder.encode(vc) + "\n").getBytes(VCFEncoder.VCF_CHARSET));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Shut down <code>executor</code> and wait for the running tasks to terminate, such that the resources used by
+	 * the worker threads can be released afterwards
+	 *
+	 * @param executor the {@link ExecutorService} to shut down
+	 */
+	protected static void shutdownAndAwaitTermination(ExecutorService executor) {
+		executor.shutdownNow();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/** @return result of <code>future</code>, unwrapping exceptions thrown when annotating a chunk */
+	private static <T> T getShardResult(Future<T> future) throws JannovarException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JannovarException("Interrupted while annotating chunks", e);
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof JannovarException)
+				throw (JannovarException) cause;
+			else if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			else
+				throw new JannovarException("Problem annotating chunk", cause);
+		}
+	}
+
+	/** Start printing the pipeline metrics with the progress output, if enabled */
+	void startMetricsReporting() {
+		if (options.getVerbosity() >= 1)
+			metrics.startReporting(System.err, 60);
+	}
+
+	/**
+	 * Stop collecting the pipeline metrics and write them to the metrics file, if enabled
+	 *
+	 * @throws JannovarException on problems with writing the metrics file
+	 */
+	void finishMetrics() throws JannovarException {
+		metrics.done();
+		if (!metrics.isEnabled())
+			return;
+
+		if (options.getVerbosity() >= 1)
+			System.err.print(metrics.formatTable());
+		try {
+			metrics.write(new File(options.getPathMetricsFile()));
+		} catch (IOException e) {
+			throw new JannovarException("Problem writing metrics file " + options.getPathMetricsFile(), e);
+		}
+		System.err.println("Wrote pipeline metrics to \"" + options.getPathMetricsFile() + "\"");
+	}
+
+	/** @return additional header lines describing the Jannovar invocation */
+	ImmutableList<VCFHeaderLine> buildJannovarHeaderLines() {
+		return ImmutableList.of(new VCFHeaderLine("jannovarVersion", Jannovar.getVersion()),
+				new VCFHeaderLine("jannovarCommand", Joiner.on(' ').join(argv)));
+	}
+
+	/**
+	 * Add the annotation steps to <code>stream</code> and extend <code>vcfHeader</code> accordingly
+	 *
+	 * @param stream {@link Stream} of {@link VariantContext} objects to annotate
+	 * @param vcfHeader {@link VCFHeader} to extend
+	 * @param annotators the {@link VCFAnnotators} to use
+	 * @param pathPedFile path to the pedigree file, <code>null</code> for none
+	 * @return {@link Stream} with the annotated {@link VariantContext} objects
+	 * @throws JannovarException on problems with constructing the annotation steps
+	 * @throws IOException on problems with loading the pedigree
+	 * @throws IncompatiblePedigreeException if the pedigree is incompatible with the VCF file
+	 */
+	Stream<VariantContext> buildAnnotationPipeline(Stream<VariantContext> stream, VCFHeader vcfHeader,
+			VCFAnnotators annotators, String pathPedFile)
+			throws JannovarException, IOException, IncompatiblePedigreeException {
+		// Annotate using variant databases and with variant effect (extend header to use for writing out)
+		stream = annotators.addDatabaseAndEffectSteps(stream, vcfHeader, metrics);
+
+		// If configured, use threshold-based annotation (extend header to
+		// use for writing out)
+		ArrayList<String> affecteds = new ArrayList<>();
+		if (options.useThresholdFilters) {
+			// Build options object for threshold filter
+			ThresholdFilterOptions thresholdFilterOptions = new ThresholdFilterOptions(
+					options.getThreshFiltMinGtCovHet(), options.getThreshFiltMinGtCovHomAlt(),
+					options.getThreshFiltMaxCov(), options.getThreshFiltMinGtGq(),
+					options.getThreshFiltMinGtAafHet(), options.getThreshFiltMaxGtAafHet(),
+					options.getThreshFiltMinGtAafHomAlt(), options.getThreshFiltMaxGtAafHomRef(),
+					options.getPrefixExac(), options.getPrefixDBSNP(), options.getPrefixGnomadGenomes(),
+					options.getPrefixGnomadExomes(), options.getThreshFiltMaxAlleleFrequencyAd(),
+					options.getThreshFiltMaxAlleleFrequencyAr());
+			// Add headers
+			new ThresholdFilterHeaderExtender(thresholdFilterOptions).addHeaders(vcfHeader);
+			// Build list of affecteds; take from pedigree file if given.
+			// Otherwise, assume one single individual is always affected and otherwise warn
+			// about missing pedigree.
+			if (pathPedFile == null) {
+				if (vcfHeader.getNGenotypeSamples() == 1) {
+					System.err.println(
+							"INFO: No pedigree file given and single individual. Assuming it is affected for the threshold filter");
+				} else {
+					System.err.println(
+							"WARNING: no pedigree file given. Threshold filter will not annotate FILTER field, only genotype FT");
+				}
+			} else {
+				Pedigree pedigree = loadPedigree(pathPedFile, vcfHeader);
+				for (Person person : pedigree.getMembers()) {
+					if (person.isAffected())
+						affecteds.add(person.getName());
+				}
+				if (affecteds.isEmpty()) {
+					System.err.println(
+							"WARNING: no affected individual in pedigree. Threshold filter will not modify FILTER field, "
+									+ "only genotype FT");
+				}
+			}
+			GenotypeThresholdFilterAnnotator gtThresholdFilterAnno =
+					new GenotypeThresholdFilterAnnotator(thresholdFilterOptions);
+			stream = metrics.map(stream, "genotype threshold filter", false,
+					gtThresholdFilterAnno::annotateVariantContext);
+
+			// When configured to use advanced pedigree filters (must come
+			// after threshold-based filtration)
+			if (options.useAdvancedPedigreeFilters) {
+				// Build options object from configuration and extend headers
+				PedigreeFilterOptions pedFilterOptions = new PedigreeFilterOptions(
+						options.getThreshDeNovoParentAd2(), options.isUseParentGtIsFiltered());
+				new PedigreeFilterHeaderExtender(pedFilterOptions).addHeaders(vcfHeader);
+
+				// Load pedigree
+				Pedigree pedigree = loadPedigree(pathPedFile, vcfHeader);
+
+				// Construct annotator and register with pipeline
+				PedigreeFilterAnnotator pedFilterAnnotator = new PedigreeFilterAnnotator(pedFilterOptions,
+						pedigree);
+				stream = metrics.map(stream, "pedigree filter", false, pedFilterAnnotator::annotateVariantContext);
+			}
+
+			if (options.useThresholdFilters) {
+				VariantThresholdFilterAnnotator varThresholdFilterAnno =
+						new VariantThresholdFilterAnnotator(thresholdFilterOptions, affecteds);
+				stream = metrics.map(stream, "variant threshold filter", false,
+						varThresholdFilterAnno::annotateVariantContext);
+			}
+		}
+
+		// Annotate from BED, dbNSFP, and generic TSV and VCF files
+		stream = annotators.addFileAnnotationSteps(stream, vcfHeader, metrics);
+
+		// Extend header with INHERITANCE filter
+		if (pathPedFile != null || options.annotateAsSingletonPedigree) {
+			System.err.println("Extending header with INHERITANCE...");
+			new MendelVCFHeaderExtender().extendHeader(vcfHeader, "");
+		}
+
+		return stream;
 	}
 
 	/**
-	 * Load pedigree from file given in configuration or construct singleton pedigree
+	 * Load pedigree from file or construct singleton pedigree
 	 * 
+	 * @param pathPedFile path to the pedigree file, <code>null</code> for singleton pedigree
 	 * @param vcfHeader {@link VCFHeader}, for checking compatibility and getting sample name in
 	 *        case of singleton pedigree construction
 	 * @throws PedParseException in the case of problems with parsing pedigrees
 	 */
-	private Pedigree loadPedigree(VCFHeader vcfHeader)
+	private Pedigree loadPedigree(String pathPedFile, VCFHeader vcfHeader)
 			throws PedParseException, IOException, IncompatiblePedigreeException {
-		if (options.pathPedFile != null) {
-			final PedFileReader pedReader = new PedFileReader(new File(options.pathPedFile));
+		if (pathPedFile != null) {
+			final PedFileReader pedReader = new PedFileReader(new File(pathPedFile));
 			final PedFileContents pedContents = pedReader.read();
 			return new Pedigree(pedContents, pedContents.getIndividuals().get(0).getPedigree());
 		} else {
@@ -448,25 +540,26 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 	/**
 	 * Construct the mendelian inheritance annotation processors
 	 * 
-	 * @param writer the place to put put the VariantContext to after filtration
+	 * @param sink the place to put put the VariantContext to after filtration
 	 * @param vcfHeader {@link VCFHeader}, for checking compatibility and getting sample name in
 	 *        case of singleton pedigree construction
+	 * @param pathPedFile path to the pedigree file, <code>null</code> for none
 	 * @throws IOException in case of problems with opening the pedigree file
 	 * @throws PedParseException in the case of problems with parsing pedigrees
 	 * @throws IncompatiblePedigreeException If the pedigree is incompatible with the VCF file
 	 */
-	private VariantContextProcessor buildMendelianProcessors(VariantContextWriter writer,
-			VCFHeader vcfHeader)
-			throws PedParseException, IOException, IncompatiblePedigreeException {
-		if (options.pathPedFile != null || options.annotateAsSingletonPedigree) {
-			final Pedigree pedigree = loadPedigree(vcfHeader);
+	VariantContextProcessor buildMendelianProcessors(Consumer<VariantContext> sink, VCFHeader vcfHeader,
+			String pathPedFile) throws PedParseException, IOException, IncompatiblePedigreeException {
+		sink = metrics.consumer("write", sink);
+		if (pathPedFile != null || options.annotateAsSingletonPedigree) {
+			final Pedigree pedigree = loadPedigree(pathPedFile, vcfHeader);
 			checkPedigreeCompatibility(pedigree, vcfHeader);
 			final GeneWiseMendelianAnnotationProcessor mendelProcessor =
 					new GeneWiseMendelianAnnotationProcessor(pedigree, jannovarData,
-							vc -> writer.add(vc), options.isInheritanceAnnoUseFilters());
-			return new CoordinateSortingChecker(mendelProcessor);
+							metrics.countOut("inheritance", sink), options.isInheritanceAnnoUseFilters());
+			return metrics.processor("inheritance", new CoordinateSortingChecker(mendelProcessor));
 		} else {
-			return new ConsumerProcessor(vc -> writer.add(vc));
+			return new ConsumerProcessor(sink);
 		}
 	}
 
@@ -0,0 +1,70 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Concatenation of bgzip-compressed files without recompression.
+ *
+ * <p>
+ * BGZF files consist of independent gzip blocks, terminated by an empty block. The compressed blocks of the input
+ * files are copied as they are, only the terminating empty blocks of the inputs are removed and a single one is
+ * written at the end.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class BGZFConcatenator {
+
+	/** Size of the buffer for copying. */
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	private BGZFConcatenator() {
+	}
+
+	/**
+	 * Concatenate BGZF files.
+	 *
+	 * @param inputs
+	 *            the bgzip-compressed files to concatenate
+	 * @param output
+	 *            path to the output file
+	 * @throws IOException
+	 *             on problems with the I/O or if one of the inputs does not end with a BGZF terminator block
+	 */
+	static void concatenate(List<File> inputs, File output) throws IOException {
+		final byte[] terminator = BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK;
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		try (OutputStream out = new FileOutputStream(output)) {
+			for (File input : inputs) {
+				try (RandomAccessFile raf = new RandomAccessFile(input, "r")) {
+					final long length = raf.length() - terminator.length;
+					if (length < 0)
+						throw new IOException("File " + input + " is not a BGZF file");
+					final byte[] tail = new byte[terminator.length];
+					raf.seek(length);
+					raf.readFully(tail);
+					if (!Arrays.equals(tail, terminator))
+						throw new IOException("File " + input + " does not end with BGZF terminator block");
+
+					raf.seek(0);
+					long remaining = length;
+					while (remaining > 0) {
+						final int len = (int) Math.min(buffer.length, remaining);
+						raf.readFully(buffer, 0, len);
+						out.write(buffer, 0, len);
+						remaining -= len;
+					}
+				}
+			}
+			out.write(terminator);
+		}
+	}
+
+}
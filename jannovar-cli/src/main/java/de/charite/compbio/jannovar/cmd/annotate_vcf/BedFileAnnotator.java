@@ -2,12 +2,9 @@ package de.charite.compbio.jannovar.cmd.annotate_vcf;
 
 import de.charite.compbio.jannovar.cmd.annotate_vcf.JannovarAnnotateVCFOptions.BedAnnotationOptions;
 import htsjdk.samtools.util.Interval;
-import htsjdk.tribble.AbstractFeatureReader;
 import htsjdk.tribble.TabixFeatureReader;
 import htsjdk.tribble.bed.BEDCodec;
 import htsjdk.tribble.bed.BEDFeature;
-import htsjdk.tribble.index.Index;
-import htsjdk.tribble.index.IndexFactory;
 import htsjdk.tribble.readers.LineIterator;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
@@ -23,6 +20,12 @@ import java.util.List;
 
 /**
  * Perform annotation of {@link VariantContext}s using BED files.
+ *
+ * <p>
+ * By default, the BED file is queried through its tabix index for each variant. Optionally, the BED file can be
+ * loaded into a {@link BedFileInMemoryIndex} at construction time, unless the file is larger than a given size
+ * limit, in which case the tabix index is used as a fallback.
+ * </p>
  * 
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
@@ -34,18 +37,57 @@ public class BedFileAnnotator implements Closeable {
 	/** {@link File} with BED features. */
 	private final File featureFile;
 
-	/** This is used for reading. */
+	/** This is used for reading, <code>null</code> when using {@link #inMemoryIndex}. */
 	TabixFeatureReader<BEDFeature, LineIterator> reader;
 
+	/** In-memory index of the BED features, <code>null</code> when using {@link #reader}. */
+	BedFileInMemoryIndex inMemoryIndex;
+
+	/**
+	 * Construct annotator that queries the BED file through its tabix index.
+	 *
+	 * @param options
+	 *            configuration of the annotator
+	 */
 	public BedFileAnnotator(BedAnnotationOptions options) {
+		this(options, false, 0);
+	}
+
+	/**
+	 * Construct annotator, optionally loading the BED file into memory.
+	 *
+	 * @param options
+	 *            configuration of the annotator
+	 * @param loadIntoMemory
+	 *            whether or not to load the BED file into memory
+	 * @param maxInMemorySize
+	 *            maximal size of the BED file (in bytes, as stored on disk) to load into memory, larger files
+	 *            are queried through the tabix index
+	 */
+	public BedFileAnnotator(BedAnnotationOptions options, boolean loadIntoMemory, long maxInMemorySize) {
 		this.options = options;
 		this.featureFile = new File(options.getPathBed());
 
-		try {
-			this.reader = new TabixFeatureReader<>(featureFile.getAbsolutePath().toString(),
-					featureFile.getAbsolutePath().toString() + ".tbi", new BEDCodec());
-		} catch (IOException e) {
-			throw new RuntimeException("Problem opening indexed BED file", e);
+		if (loadIntoMemory && featureFile.length() <= maxInMemorySize) {
+			try {
+				final long startTime = System.nanoTime();
+				this.inMemoryIndex = BedFileInMemoryIndex.load(featureFile, options.getColNo() != -1);
+				final long endTime = System.nanoTime();
+				System.err.println(String.format("Loaded %d features from %s into memory in %.2f sec.",
+						inMemoryIndex.size(), featureFile, (endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+			} catch (IOException e) {
+				throw new RuntimeException("Problem loading BED file into memory", e);
+			}
+		} else {
+			if (loadIntoMemory)
+				System.err.println("BED file " + featureFile + " is too large for loading into memory, "
+						+ "falling back to tabix index");
+			try {
+				this.reader = new TabixFeatureReader<>(featureFile.getAbsolutePath().toString(),
+						featureFile.getAbsolutePath().toString() + ".tbi", new BEDCodec());
+			} catch (IOException e) {
+				throw new RuntimeException("Problem opening indexed BED file", e);
+			}
 		}
 	}
 
@@ -75,6 +117,40 @@ public class BedFileAnnotator implements Closeable {
 	 * @return annotated {@link VariantContext}
 	 */
 	public VariantContext annotateVariantContext(VariantContext vc) {
+		List<String> overlaps;
+		if (inMemoryIndex != null)
+			overlaps = queryInMemoryIndex(vc);
+		else
+			overlaps = queryTabixIndex(vc);
+
+		if (overlaps.isEmpty()) {
+			return vc;
+		} else {
+			VariantContextBuilder builder = new VariantContextBuilder(vc);
+			if (options.getColNo() == -1) {
+				builder.attribute(options.getInfoField(), true);
+			} else {
+				builder.attribute(options.getInfoField(), overlaps);
+			}
+			return builder.make();
+		}
+	}
+
+	/**
+	 * Query {@link #inMemoryIndex} for features overlapping with <code>vc</code>.
+	 */
+	private List<String> queryInMemoryIndex(VariantContext vc) {
+		final boolean markerOnly = (options.getColNo() == -1);
+		List<String> overlaps = inMemoryIndex.query(vc.getContig(), vc.getStart() - 1, vc.getEnd(), markerOnly);
+		if (markerOnly && !overlaps.isEmpty())
+			overlaps.set(0, "true"); // marker is enough
+		return overlaps;
+	}
+
+	/**
+	 * Query {@link #reader} for features overlapping with <code>vc</code>.
+	 */
+	private List<String> queryTabixIndex(VariantContext vc) {
 		List<String> overlaps = new ArrayList<>();
 		try {
 			final Interval vcInterval = new Interval(vc.getContig(), vc.getStart(), vc.getEnd());
@@ -96,18 +172,7 @@ public class BedFileAnnotator implements Closeable {
 					"Could not query " + vc.getContig() + ":" + vc.getStart() + "-" + vc.getEnd(),
 					e);
 		}
-
-		if (overlaps.isEmpty()) {
-			return vc;
-		} else {
-			VariantContextBuilder builder = new VariantContextBuilder(vc);
-			if (options.getColNo() == -1) {
-				builder.attribute(options.getInfoField(), true);
-			} else {
-				builder.attribute(options.getInfoField(), overlaps);
-			}
-			return builder.make();
-		}
+		return overlaps;
 	}
 
 	@Override
@@ -120,6 +185,7 @@ public class BedFileAnnotator implements Closeable {
 			}
 			reader = null;
 		}
+		inMemoryIndex = null;
 	}
 
 }
@@ -0,0 +1,124 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import de.charite.compbio.jannovar.impl.intervals.PrimitiveIntervalArray;
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.tribble.FeatureReader;
+import htsjdk.tribble.bed.BEDCodec;
+import htsjdk.tribble.bed.BEDFeature;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of the features of a BED file, for use by {@link BedFileAnnotator}.
+ *
+ * <p>
+ * The features are stored per contig in a {@link PrimitiveIntervalArray}, the names (only when required) in a
+ * list that is indexed by the interval values. Queries go through one {@link PrimitiveIntervalArray.Cursor} per
+ * contig such that sorted input is handled by advancing the cursor instead of seeking. Objects of this class are
+ * not thread-safe.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class BedFileInMemoryIndex {
+
+	/** Interval arrays by contig name, positions are 0-based and half-open. */
+	private final Map<String, PrimitiveIntervalArray> intervals;
+
+	/** Cursors into {@link #intervals} by contig name. */
+	private final Map<String, PrimitiveIntervalArray.Cursor> cursors = new HashMap<>();
+
+	/** Feature names, indexed by the interval values, <code>null</code> if names are not loaded. */
+	private final List<String> names;
+
+	private BedFileInMemoryIndex(Map<String, PrimitiveIntervalArray> intervals, List<String> names) {
+		this.intervals = intervals;
+		this.names = names;
+	}
+
+	/**
+	 * Load all features from a (possibly bgzip-compressed) BED file.
+	 *
+	 * @param bedFile
+	 *            {@link File} to load the features from, no index is required
+	 * @param loadNames
+	 *            whether or not to load the feature names
+	 * @return {@link BedFileInMemoryIndex} with the loaded features
+	 * @throws IOException
+	 *             on problems with reading the file
+	 */
+	public static BedFileInMemoryIndex load(File bedFile, boolean loadNames) throws IOException {
+		Map<String, PrimitiveIntervalArray.Builder> builders = new HashMap<>();
+		List<String> names = loadNames ? new ArrayList<>() : null;
+		int count = 0;
+
+		try (FeatureReader<BEDFeature> reader = AbstractFeatureReader
+				.getFeatureReader(bedFile.getAbsolutePath(), new BEDCodec(), false);
+				CloseableTribbleIterator<BEDFeature> iter = reader.iterator()) {
+			for (BEDFeature feature : iter) {
+				PrimitiveIntervalArray.Builder builder = builders.get(feature.getContig());
+				if (builder == null) {
+					builder = new PrimitiveIntervalArray.Builder();
+					builders.put(feature.getContig(), builder);
+				}
+				// BEDCodec yields 1-based start positions
+				builder.add(feature.getStart() - 1, feature.getEnd(), count++);
+				if (loadNames)
+					names.add(feature.getName());
+			}
+		}
+
+		Map<String, PrimitiveIntervalArray> intervals = new HashMap<>();
+		for (Map.Entry<String, PrimitiveIntervalArray.Builder> entry : builders.entrySet())
+			intervals.put(entry.getKey(), entry.getValue().build());
+		return new BedFileInMemoryIndex(intervals, names);
+	}
+
+	/** @return total number of features in the index */
+	public int size() {
+		int result = 0;
+		for (PrimitiveIntervalArray arr : intervals.values())
+			result += arr.size();
+		return result;
+	}
+
+	/**
+	 * Query for features overlapping with the given interval.
+	 *
+	 * @param contig
+	 *            name of the contig
+	 * @param begin
+	 *            0-based begin position of the query interval
+	 * @param end
+	 *            0-based end position of the query interval (exclusive)
+	 * @param firstOnly
+	 *            whether to stop after the first overlap
+	 * @return names of the overlapping features (<code>null</code> entries if names were not loaded)
+	 */
+	public List<String> query(String contig, int begin, int end, boolean firstOnly) {
+		List<String> result = new ArrayList<>();
+		final PrimitiveIntervalArray arr = intervals.get(contig);
+		if (arr == null)
+			return result;
+		PrimitiveIntervalArray.Cursor cursor = cursors.get(contig);
+		if (cursor == null) {
+			cursor = arr.cursor();
+			cursors.put(contig, cursor);
+		}
+
+		for (int i = cursor.seek(begin); i < arr.size() && arr.getBegin(i) < end; ++i) {
+			if (arr.getEnd(i) > begin) {
+				result.add((names == null) ? null : names.get(arr.getValue(i)));
+				if (firstOnly)
+					break;
+			}
+		}
+		return result;
+	}
+
+}
@@ -1,9 +1,16 @@
 package de.charite.compbio.jannovar.cmd.annotate_vcf;
 
 import com.google.common.collect.ImmutableMap;
+import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions.MultipleMatchBehaviour;
 import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAccumulationStrategy;
+import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationTarget;
 import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVValueColumnDescription;
 import htsjdk.variant.vcf.VCFHeaderLineType;
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Configuration for annotation with dbNSFP (v3.4).
@@ -254,6 +261,32 @@ public class DbNsfpFields {
 
 		DBNSFP_FIELDS = builder.build();
 	}
+
+	/**
+	 * Build {@link GenericTSVAnnotationOptions} for annotation with the given dbNSFP columns.
+	 *
+	 * @param prefix
+	 *            prefix for the INFO fields
+	 * @param tsvFile
+	 *            path to the dbNSFP TSV file (or binary database converted from it)
+	 * @param colContig
+	 *            1-based column index of the contig
+	 * @param colPosition
+	 *            1-based column index of the position
+	 * @param columns
+	 *            names of the columns to annotate with, must be keys of {@link #DBNSFP_FIELDS}
+	 * @return {@link GenericTSVAnnotationOptions} for dbNSFP annotation
+	 */
+	public static GenericTSVAnnotationOptions buildAnnotationOptions(String prefix, File tsvFile, int colContig,
+			int colPosition, List<String> columns) {
+		Map<String, GenericTSVValueColumnDescription> descriptions = new HashMap<>();
+		for (String colName : columns)
+			descriptions.put(colName, DBNSFP_FIELDS.get(colName));
+		return new GenericTSVAnnotationOptions(true, false, prefix, MultipleMatchBehaviour.BEST_ONLY, tsvFile,
+				GenericTSVAnnotationTarget.VARIANT, true, colContig, colPosition, colPosition, 3, 4, false, columns,
+				descriptions);
+	}
+
 	public static String hg38_chr = "chr";
 	public static String hg38_pos = "pos(1-based)";
 	public static String ref = "ref";
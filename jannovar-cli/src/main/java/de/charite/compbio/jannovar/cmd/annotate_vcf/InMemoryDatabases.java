@@ -0,0 +1,64 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import de.charite.compbio.jannovar.vardbs.base.AlleleMatcher;
+import de.charite.compbio.jannovar.vardbs.base.InMemoryVariantDatabase;
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+
+/**
+ * The variant databases of <code>annotate-vcf</code> that are configured to be loaded into memory.
+ *
+ * <p>
+ * The databases are loaded once on construction and are not modified afterwards, such that they can be shared by the
+ * {@link VCFAnnotators} of all threads.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class InMemoryDatabases {
+
+	/** ClinVar loaded into memory, <code>null</code> if not configured. */
+	private final InMemoryVariantDatabase clinVar;
+
+	/** COSMIC loaded into memory, <code>null</code> if not configured. */
+	private final InMemoryVariantDatabase cosmic;
+
+	/**
+	 * Load the databases configured to be loaded into memory.
+	 *
+	 * @param options
+	 *            configuration
+	 * @throws JannovarVarDBException
+	 *             on problems with loading the databases
+	 */
+	InMemoryDatabases(JannovarAnnotateVCFOptions options) throws JannovarVarDBException {
+		if (options.pathClinVar != null && options.clinVarInMemory)
+			clinVar = load("ClinVar", options.pathClinVar, options.pathFASTARef);
+		else
+			clinVar = null;
+
+		if (options.pathCosmic != null && options.cosmicInMemory)
+			cosmic = load("COSMIC", options.pathCosmic, options.pathFASTARef);
+		else
+			cosmic = null;
+	}
+
+	/** Load VCF file <code>vcfPath</code> into memory, reporting load time and memory usage */
+	private static InMemoryVariantDatabase load(String name, String vcfPath, String fastaPath)
+			throws JannovarVarDBException {
+		final InMemoryLoadReporter loadReporter = new InMemoryLoadReporter();
+		final InMemoryVariantDatabase result = new InMemoryVariantDatabase(vcfPath, new AlleleMatcher(fastaPath));
+		loadReporter.report(name);
+		return result;
+	}
+
+	/** @return ClinVar loaded into memory, <code>null</code> if not configured */
+	InMemoryVariantDatabase getClinVar() {
+		return clinVar;
+	}
+
+	/** @return COSMIC loaded into memory, <code>null</code> if not configured */
+	InMemoryVariantDatabase getCosmic() {
+		return cosmic;
+	}
+
+}
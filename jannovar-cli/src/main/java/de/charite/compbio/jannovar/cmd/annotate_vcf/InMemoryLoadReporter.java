@@ -0,0 +1,46 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+/**
+ * Reports time and heap memory used for loading a database into memory.
+ *
+ * <p>
+ * Construct before loading the database and call {@link #report} afterwards. The memory usage is the difference of
+ * the used heap after garbage collection and thus only an approximation.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class InMemoryLoadReporter {
+
+	/** Used heap memory before loading. */
+	private final long usedBefore;
+
+	/** Time stamp before loading. */
+	private final long startTime;
+
+	InMemoryLoadReporter() {
+		this.usedBefore = usedHeapMemory();
+		this.startTime = System.nanoTime();
+	}
+
+	/**
+	 * Print load time and memory usage to stderr.
+	 *
+	 * @param name
+	 *            name of the loaded database, e.g., "ClinVar"
+	 */
+	void report(String name) {
+		final long endTime = System.nanoTime();
+		final long used = Math.max(0, usedHeapMemory() - usedBefore);
+		System.err.println(String.format("Loaded %s into memory in %.2f sec, using approx. %.1f MB of heap", name,
+				(endTime - startTime) / 1000.0 / 1000.0 / 1000.0, used / 1024.0 / 1024.0));
+	}
+
+	/** @return used heap memory after garbage collection */
+	private static long usedHeapMemory() {
+		final Runtime runtime = Runtime.getRuntime();
+		runtime.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
@@ -0,0 +1,75 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import java.util.function.BiFunction;
+import net.sourceforge.argparse4j.inf.ArgumentGroup;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import net.sourceforge.argparse4j.inf.Subparsers;
+
+/**
+ * Options for annotating multiple VCF files with <code>annotate-vcf-batch</code>
+ * 
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarAnnotateVCFBatchOptions extends JannovarAnnotateVCFOptions {
+
+	/** Path to manifest file */
+	private String pathManifest = null;
+
+	/**
+	 * Setup {@link ArgumentParser}
+	 * 
+	 * @param subParsers {@link Subparsers} to setup
+	 */
+	public static void setupParser(Subparsers subParsers) {
+		BiFunction<String[], Namespace, AnnotateVCFBatchCommand> handler = (argv, args) -> {
+			try {
+				return new AnnotateVCFBatchCommand(argv, args);
+			} catch (CommandLineParsingException e) {
+				throw new UncheckedJannovarException("Could not parse command line", e);
+			}
+		};
+
+		Subparser subParser = subParsers.addParser("annotate-vcf-batch", true)
+				.help("annotate multiple VCF files").setDefault("cmd", handler);
+		subParser.description("Perform annotation of multiple VCF files listed in a manifest, loading the "
+				+ "transcript database and opening the annotation databases only once");
+
+		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
+		requiredGroup.addArgument("--manifest")
+				.help("Path to tab-separated manifest file with one line per VCF file, giving paths to input VCF, "
+						+ "output VCF, and (optionally) pedigree file")
+				.required(true);
+		requiredGroup.addArgument("-d", "--database").help("Path to database .ser file").required(true);
+
+		setupAnnotationArguments(subParser);
+	}
+
+	@Override
+	public void setFromArgs(Namespace args) throws CommandLineParsingException {
+		super.setFromArgs(args);
+
+		pathManifest = args.getString("manifest");
+		if (getPathPedFile() != null)
+			throw new CommandLineParsingException("Pedigree files must be given in the manifest");
+		if (getNumShards() > 1)
+			throw new CommandLineParsingException("Cannot use --shards with annotate-vcf-batch");
+	}
+
+	public String getPathManifest() {
+		return pathManifest;
+	}
+
+	public void setPathManifest(String pathManifest) {
+		this.pathManifest = pathManifest;
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarAnnotateVCFBatchOptions [pathManifest=" + pathManifest + ", " + super.toString() + "]";
+	}
+
+}
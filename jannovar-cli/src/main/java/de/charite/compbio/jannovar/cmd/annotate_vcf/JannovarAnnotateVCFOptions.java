@@ -37,6 +37,15 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 	/** Path to output VCF file */
 	private String pathOutputVCF = null;
 
+	/** Number of shards to split the input VCF file into, 1 to disable sharding */
+	private int numShards = 1;
+
+	/** Number of threads to use for annotating shards */
+	private int numThreads = 1;
+
+	/** Path to file to write per-stage pipeline metrics to, <code>null</code> to disable metrics */
+	private String pathMetricsFile = null;
+
 	/** Path to dbSNP VCF file to use for the annotation */
 	public String pathVCFDBSNP = null;
 
@@ -78,12 +87,18 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 	/** Prefix to use for ClinVar VCF INFO Fields */
 	public String prefixClinVar;
 
+	/** Whether or not to load the ClinVar VCF file into memory */
+	public boolean clinVarInMemory;
+
 	/** Path to COSMIC VCF file to use for the annotation */
 	public String pathCosmic;
 
 	/** Prefix to use for COSMIC VCF INFO Fields */
 	public String prefixCosmic;
 
+	/** Whether or not to load the COSMIC VCF file into memory */
+	public boolean cosmicInMemory;
+
 	/** Path to pedigree file */
 	public String pathPedFile;
 
@@ -168,6 +183,12 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 	/** Configuration for annotation with BED files. */
 	private List<BedAnnotationOptions> bedAnnotationOptions = new ArrayList<>();
 
+	/** Whether or not to load BED files for annotation into memory instead of using tabix queries. */
+	private boolean bedAnnotationInMemory;
+
+	/** Maximal size of BED file (in MB, as stored on disk) to load into memory. */
+	private int bedAnnotationInMemoryMaxSize;
+
 	/** Column of contig name in dbNSFP. */
 	private int dbNsfpColContig;
 
@@ -214,11 +235,20 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 				.required(true);
 		requiredGroup.addArgument("-d", "--database").help("Path to database .ser file")
 				.required(true);
+		requiredGroup.addArgument("--interval").help("Interval with regions to annotate (optional)")
+				.required(false).setDefault("");
 
+		setupAnnotationArguments(subParser);
+	}
+
+	/**
+	 * Setup the arguments for configuring the annotation, shared with <code>annotate-vcf-batch</code>
+	 * 
+	 * @param subParser {@link Subparser} to add the arguments to
+	 */
+	protected static void setupAnnotationArguments(Subparser subParser) {
 		ArgumentGroup annotationGroup =
 				subParser.addArgumentGroup("Annotation Arguments (optional)");
-		requiredGroup.addArgument("--interval").help("Interval with regions to annotate (optional)")
-				.required(false).setDefault("");
 		annotationGroup.addArgument("--pedigree-file")
 				.help("Pedigree file to use for Mendelian inheritance annotation").required(false);
 		annotationGroup.addArgument("--annotate-as-singleton-pedigree")
@@ -231,33 +261,39 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		annotationGroup.addArgument("--dbsnp-prefix").help("Prefix for dbSNP annotations")
 				.setDefault("DBSNP_").required(false);
 		annotationGroup.addArgument("--exac-vcf")
-				.help("Path to ExAC VCF file, activates ExAC annotation").required(false);
+				.help("Path to ExAC VCF file (or converted .jrs file), activates ExAC annotation").required(false);
 		annotationGroup.addArgument("--exac-prefix").help("Prefix for ExAC annotations")
 				.setDefault("EXAC_").required(false);
 		annotationGroup.addArgument("--gnomad-exomes-vcf")
-				.help("Path to gnomAD exomes VCF file, activates gnomAD exomes annotation")
+				.help("Path to gnomAD exomes VCF file (or converted .jrs file), activates gnomAD exomes annotation")
 				.required(false);
 		annotationGroup.addArgument("--gnomad-exomes-prefix")
 				.help("Prefix for ExgnomAD exomes AC annotations").setDefault("GNOMAD_EXOMES_")
 				.required(false);
 		annotationGroup.addArgument("--gnomad-genomes-vcf")
-				.help("Path to gnomAD genomes VCF file, activates gnomAD genomes annotation")
+				.help("Path to gnomAD genomes VCF file (or converted .jrs file), activates gnomAD genomes annotation")
 				.required(false);
 		annotationGroup.addArgument("--gnomad-genomes-prefix")
 				.help("Prefix for ExgnomAD genomes AC annotations").setDefault("GNOMAD_GENOMES_")
 				.required(false);
 		annotationGroup.addArgument("--uk10k-vcf")
-				.help("Path to UK10K VCF file, activates UK10K annotation").required(false);
+				.help("Path to UK10K VCF file (or converted .jrs file), activates UK10K annotation").required(false);
 		annotationGroup.addArgument("--uk10k-prefix").help("Prefix for UK10K annotations")
 				.setDefault("UK10K_").required(false);
 		annotationGroup.addArgument("--clinvar-vcf")
 				.help("Path to ClinVar file, activates ClinVar annotation").required(false);
 		annotationGroup.addArgument("--clinvar-prefix").help("Prefix for ClinVar annotations")
 				.setDefault("CLINVAR_").required(false);
+		annotationGroup.addArgument("--clinvar-in-memory")
+				.help("Load ClinVar file into memory instead of performing one tabix query per variant")
+				.setDefault(false).action(Arguments.storeTrue());
 		annotationGroup.addArgument("--cosmic-vcf")
 				.help("Path to COSMIC file, activates COSMIC annotation").required(false);
 		annotationGroup.addArgument("--cosmic-prefix").help("Prefix for COSMIC annotations")
 				.setDefault("COSMIC_").required(false);
+		annotationGroup.addArgument("--cosmic-in-memory")
+				.help("Load COSMIC file into memory instead of performing one tabix query per variant")
+				.setDefault(false).action(Arguments.storeTrue());
 		annotationGroup.addArgument("--inheritance-anno-use-filters")
 				.help("Use filters in inheritance mode annotation").setDefault(false)
 				.action(Arguments.storeTrue());
@@ -281,6 +317,13 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 				.help("Add BED file to use for annotating. The value must be of the format "
 						+ "\"pathToBed:infoField:description[:colNo]\".")
 				.action(Arguments.append());
+		bedAnnotationGroup.addArgument("--bed-annotation-in-memory")
+				.help("Load BED files into memory instead of performing one tabix query per variant")
+				.setDefault(false).action(Arguments.storeTrue());
+		bedAnnotationGroup.addArgument("--bed-annotation-in-memory-max-size")
+				.help("Maximal size of BED file (in MB) to load into memory, larger files are queried "
+						+ "through their tabix index")
+				.type(Integer.class).setDefault(512);
 
 		ArgumentGroup vcfAnnotationGroup =
 				subParser.addArgumentGroup("Generic VCF-based Annotation (experimental; optional)");
@@ -366,7 +409,20 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 				.action(Arguments.storeTrue());
 		optionalGroup.addArgument("--disable-parent-gt-is-filtered").setDefault(true)
 				.dest("use_parent_gt_is_filtered").action(Arguments.storeFalse());
-
+		optionalGroup.addArgument("--shards").type(Integer.class)
+				.help("Split tabix-indexed input VCF file into this number of chunks of similar size (aligned to "
+						+ "gene boundaries) that are annotated separately and concatenated into one bgzip-compressed "
+						+ "and indexed output VCF file, requires output file ending in .vcf.gz")
+				.setDefault(1);
+		optionalGroup.addArgument("--threads").type(Integer.class)
+				.help("Number of threads to use for annotating chunks (--shards) or files (annotate-vcf-batch)")
+				.setDefault(1);
+		optionalGroup.addArgument("--metrics-file")
+				.help("Collect per-stage pipeline metrics (records, time, allocation, database hit rates), expose "
+						+ "them via JMX, print them with the progress output, and write them to this file at the end, "
+						+ "in Prometheus text format if the path ends in .prom and as JSON otherwise");
+
+		setupTranscriptFilterArguments(subParser);
 		JannovarBaseOptions.setupParser(subParser);
 	}
 
@@ -378,6 +434,17 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		escapeAnnField = args.getBoolean("escape_ann_field");
 		pathInputVCF = args.getString("input_vcf");
 		pathOutputVCF = args.getString("output_vcf");
+		numShards = args.getInt("shards");
+		numThreads = args.getInt("threads");
+		pathMetricsFile = args.getString("metrics_file");
+		if (numShards < 1)
+			throw new CommandLineParsingException("Number of shards must be >= 1 but was " + numShards);
+		if (numThreads < 1)
+			throw new CommandLineParsingException("Number of threads must be >= 1 but was " + numThreads);
+		if (numShards > 1 && interval != null && !interval.equals(""))
+			throw new CommandLineParsingException("Cannot combine --shards with --interval");
+		if (numShards > 1 && pathOutputVCF != null && !pathOutputVCF.endsWith(".vcf.gz"))
+			throw new CommandLineParsingException("Output file must end in .vcf.gz when using --shards");
 		pathPedFile = args.getString("pedigree_file");
 		annotateAsSingletonPedigree = args.getBoolean("annotate_as_singleton_pedigree");
 
@@ -394,8 +461,10 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		prefixUK10K = args.getString("uk10k_prefix");
 		pathClinVar = args.getString("clinvar_vcf");
 		prefixClinVar = args.getString("clinvar_prefix");
+		clinVarInMemory = args.getBoolean("clinvar_in_memory");
 		pathCosmic = args.getString("cosmic_vcf");
 		prefixCosmic = args.getString("cosmic_prefix");
+		cosmicInMemory = args.getBoolean("cosmic_in_memory");
 		inheritanceAnnoUseFilters = args.getBoolean("inheritance_anno_use_filters");
 		useParentGtIsFiltered = args.getBoolean("use_parent_gt_is_filtered");
 
@@ -423,6 +492,8 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 				bedAnnotationOptions.add(BedAnnotationOptions.parseFrom(s));
 			}
 		}
+		bedAnnotationInMemory = args.getBoolean("bed_annotation_in_memory");
+		bedAnnotationInMemoryMaxSize = args.getInt("bed_annotation_in_memory_max_size");
 
 		if (args.getList("tsv_annotation") != null) {
 			for (Object o : args.getList("tsv_annotation")) {
@@ -568,6 +639,14 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		this.prefixClinVar = prefixClinVar;
 	}
 
+	public boolean isClinVarInMemory() {
+		return clinVarInMemory;
+	}
+
+	public void setClinVarInMemory(boolean clinVarInMemory) {
+		this.clinVarInMemory = clinVarInMemory;
+	}
+
 	public String getPathCosmic() {
 		return pathCosmic;
 	}
@@ -584,6 +663,14 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		this.prefixCosmic = prefixCosmic;
 	}
 
+	public boolean isCosmicInMemory() {
+		return cosmicInMemory;
+	}
+
+	public void setCosmicInMemory(boolean cosmicInMemory) {
+		this.cosmicInMemory = cosmicInMemory;
+	}
+
 	public String getPathVCFGnomadExomes() {
 		return pathVCFGnomadExomes;
 	}
@@ -777,6 +864,22 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		this.bedAnnotationOptions = bedAnnotationOptions;
 	}
 
+	public boolean isBedAnnotationInMemory() {
+		return bedAnnotationInMemory;
+	}
+
+	public void setBedAnnotationInMemory(boolean bedAnnotationInMemory) {
+		this.bedAnnotationInMemory = bedAnnotationInMemory;
+	}
+
+	public int getBedAnnotationInMemoryMaxSize() {
+		return bedAnnotationInMemoryMaxSize;
+	}
+
+	public void setBedAnnotationInMemoryMaxSize(int bedAnnotationInMemoryMaxSize) {
+		this.bedAnnotationInMemoryMaxSize = bedAnnotationInMemoryMaxSize;
+	}
+
 	public Integer getThreshDeNovoParentAd2() {
 		return threshDeNovoParentAd2;
 	}
@@ -841,6 +944,30 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		this.vcfAnnotationOptions = vcfAnnotationOptions;
 	}
 
+	public int getNumShards() {
+		return numShards;
+	}
+
+	public void setNumShards(int numShards) {
+		this.numShards = numShards;
+	}
+
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	public String getPathMetricsFile() {
+		return pathMetricsFile;
+	}
+
+	public void setPathMetricsFile(String pathMetricsFile) {
+		this.pathMetricsFile = pathMetricsFile;
+	}
+
 	public boolean isUseParentGtIsFiltered() {
 		return useParentGtIsFiltered;
 	}
@@ -853,14 +980,16 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 	public String toString() {
 		return "JannovarAnnotateVCFOptions [escapeAnnField=" + escapeAnnField + ", pathInputVCF="
 				+ pathInputVCF + ", interval=" + interval + ", pathOutputVCF=" + pathOutputVCF
-				+ ", pathVCFDBSNP=" + pathVCFDBSNP + ", prefixDBSNP=" + prefixDBSNP
+				+ ", numShards=" + numShards + ", numThreads=" + numThreads + ", pathMetricsFile=" + pathMetricsFile
+				+ ", transcriptFilter=" + getTranscriptFilter() + ", pathVCFDBSNP=" + pathVCFDBSNP + ", prefixDBSNP=" + prefixDBSNP
 				+ ", pathFASTARef=" + pathFASTARef + ", pathVCFExac=" + pathVCFExac
 				+ ", prefixExac=" + prefixExac + ", pathVCFGnomadExomes=" + pathVCFGnomadExomes
 				+ ", prefixGnomadExomes=" + prefixGnomadExomes + ", pathVCFGnomadGenomes="
 				+ pathVCFGnomadGenomes + ", prefixGnomadGenomes=" + prefixGnomadGenomes
 				+ ", pathVCFUK10K=" + pathVCFUK10K + ", prefixUK10K=" + prefixUK10K
-				+ ", pathClinVar=" + pathClinVar + ", prefixClinVar=" + prefixClinVar
-				+ ", pathCosmic=" + pathCosmic + ", prefixCosmic=" + prefixCosmic + ", pathPedFile="
+				+ ", pathClinVar=" + pathClinVar + ", prefixClinVar=" + prefixClinVar + ", clinVarInMemory="
+				+ clinVarInMemory + ", pathCosmic=" + pathCosmic + ", prefixCosmic=" + prefixCosmic
+				+ ", cosmicInMemory=" + cosmicInMemory + ", pathPedFile="
 				+ pathPedFile + ", annotateAsSingletonPedigree=" + annotateAsSingletonPedigree
 				+ ", useThresholdFilters=" + useThresholdFilters + ", useAdvancedPedigreeFilters="
 				+ useAdvancedPedigreeFilters + ", threshFiltMinGtCovHet=" + threshFiltMinGtCovHet
@@ -877,7 +1006,8 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 				+ offTargetFilterIntronicSpliceIsOffTarget + ", inheritanceAnnoUseFilters="
 				+ inheritanceAnnoUseFilters + ", useParentGtIsFiltered=" + useParentGtIsFiltered
 				+ ", threshDeNovoParentAd2=" + threshDeNovoParentAd2 + ", bedAnnotationOptions="
-				+ bedAnnotationOptions + ", dbNsfpColContig=" + dbNsfpColContig
+				+ bedAnnotationOptions + ", bedAnnotationInMemory=" + bedAnnotationInMemory
+				+ ", bedAnnotationInMemoryMaxSize=" + bedAnnotationInMemoryMaxSize + ", dbNsfpColContig=" + dbNsfpColContig
 				+ ", dbNsfpColPosition=" + dbNsfpColPosition + ", prefixDbNsfp=" + prefixDbNsfp
 				+ ", pathDbNsfp=" + pathDbNsfp + ", columnsDbNsfp=" + columnsDbNsfp
 				+ ", tsvAnnotationOptions=" + tsvAnnotationOptions + ", vcfAnnotationOptions="
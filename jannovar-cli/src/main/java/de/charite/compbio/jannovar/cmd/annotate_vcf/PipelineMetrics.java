@@ -0,0 +1,524 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import de.charite.compbio.jannovar.mendel.filter.VariantContextFilterException;
+import de.charite.compbio.jannovar.mendel.filter.VariantContextProcessor;
+import htsjdk.variant.variantcontext.VariantContext;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Per-stage metrics of the <code>annotate-vcf</code> pipeline
+ *
+ * <p>
+ * Each stage of the pipeline (reading, the database lookups, effect prediction, filters, inheritance annotation, and
+ * writing) can be wrapped with the methods of this class. For each stage, the number of records passed in and out,
+ * the time spent, and the bytes allocated (if supported by the JVM) are counted. The time and allocation of a stage
+ * exclude those of stages called from it, e.g., writing the records emitted by the inheritance annotation. For
+ * database lookups, the number of records for which the database had an annotation is counted as well.
+ * </p>
+ *
+ * <p>
+ * While enabled, the stages are registered as MXBeans with the platform {@link MBeanServer} (domain
+ * <code>de.charite.compbio.jannovar</code>), can be printed periodically, and written as JSON or Prometheus text
+ * file at the end. When disabled, the wrapping methods return the steps unchanged.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class PipelineMetrics {
+
+	/** Suffix of file names for writing Prometheus text format instead of JSON */
+	static final String PROMETHEUS_SUFFIX = ".prom";
+
+	/** Domain of the MXBeans */
+	private static final String JMX_DOMAIN = "de.charite.compbio.jannovar";
+
+	/** Whether or not metrics are collected */
+	private final boolean enabled;
+	/** Thread MXBean for measuring allocation, <code>null</code> if not supported */
+	private final com.sun.management.ThreadMXBean allocationBean;
+	/** Bytes allocated by measuring allocation twice */
+	private final long allocationOverhead;
+	/** Start time, for computing the elapsed time */
+	private final long startNanos = System.nanoTime();
+	/** The stages, by name in order of construction */
+	private final Map<String, StageMetrics> stages = new LinkedHashMap<>();
+	/** Names of the registered MXBeans */
+	private final List<ObjectName> objectNames = new ArrayList<>();
+	/** Timer for periodic printing, <code>null</code> if not started */
+	private Timer timer = null;
+
+	/** Nested stage calls of the current thread, for excluding nested time and allocation */
+	private final ThreadLocal<Frames> frames = ThreadLocal.withInitial(Frames::new);
+
+	/**
+	 * @param enabled
+	 *            whether or not to collect metrics
+	 */
+	PipelineMetrics(boolean enabled) {
+		this.enabled = enabled;
+
+		final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (enabled && threadBean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()
+				&& ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemoryEnabled())
+			this.allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+		else
+			this.allocationBean = null;
+
+		// The measurement itself may allocate, this is subtracted from the measured values
+		long overhead = 0;
+		if (allocationBean != null) {
+			overhead = Long.MAX_VALUE;
+			for (int i = 0; i < 10; ++i) {
+				final long first = allocatedBytes();
+				overhead = Math.min(overhead, allocatedBytes() - first);
+			}
+		}
+		this.allocationOverhead = overhead;
+	}
+
+	boolean isEnabled() {
+		return enabled;
+	}
+
+	/** @return bytes allocated by the current thread so far, 0 if not supported */
+	private long allocatedBytes() {
+		if (allocationBean == null)
+			return 0;
+		return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Get stage with the given name, constructing and registering it as MXBean on first use
+	 *
+	 * @param name
+	 *            name of the stage
+	 * @param lookup
+	 *            whether or not the stage is a database lookup
+	 * @return the {@link StageMetrics} with the given name
+	 */
+	synchronized StageMetrics getStage(String name, boolean lookup) {
+		StageMetrics stage = stages.get(name);
+		if (stage == null) {
+			stage = new StageMetrics(name, lookup, allocationBean != null);
+			stages.put(name, stage);
+			registerMXBean(stage);
+		}
+		return stage;
+	}
+
+	/** @return all stages, in order of construction */
+	synchronized List<StageMetrics> getStages() {
+		return new ArrayList<>(stages.values());
+	}
+
+	/** Register <code>stage</code> with the platform MBean server, replacing one of a previous run */
+	private void registerMXBean(StageMetrics stage) {
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			final ObjectName objectName = new ObjectName(
+					JMX_DOMAIN + ":type=AnnotateVCF,stage=" + ObjectName.quote(stage.getName()));
+			if (server.isRegistered(objectName))
+				server.unregisterMBean(objectName);
+			server.registerMBean(stage, objectName);
+			objectNames.add(objectName);
+		} catch (JMException e) {
+			System.err.println("WARNING: could not register metrics of stage " + stage.getName() + " with JMX: "
+					+ e.getMessage());
+		}
+	}
+
+	/**
+	 * Build {@link Stream} reading from <code>iter</code>, counting the time spent in <code>iter</code>
+	 *
+	 * @param name
+	 *            name of the stage
+	 * @param iter
+	 *            {@link Iterator} to read from
+	 * @return {@link Stream} of the records from <code>iter</code>
+	 */
+	Stream<VariantContext> read(String name, Iterator<VariantContext> iter) {
+		if (!enabled)
+			return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iter, Spliterator.ORDERED), false);
+
+		final StageMetrics stage = getStage(name, false);
+		final Iterator<VariantContext> timedIter = new Iterator<VariantContext>() {
+			@Override
+			public boolean hasNext() {
+				final Frames frame = frames.get();
+				frame.enter();
+				try {
+					return iter.hasNext();
+				} finally {
+					frame.exit(stage);
+				}
+			}
+
+			@Override
+			public VariantContext next() {
+				final Frames frame = frames.get();
+				frame.enter();
+				try {
+					return iter.next();
+				} finally {
+					frame.exit(stage);
+					stage.addIn();
+					stage.addOut();
+				}
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(timedIter, Spliterator.ORDERED), false);
+	}
+
+	/**
+	 * Add <code>step</code> to <code>stream</code> as stage with the given name
+	 *
+	 * @param stream
+	 *            {@link Stream} to add the step to
+	 * @param name
+	 *            name of the stage
+	 * @param lookup
+	 *            whether or not the step is a database lookup; a record counts as hit if the step added INFO fields
+	 *            or an ID to it
+	 * @param step
+	 *            the annotation step
+	 * @return {@link Stream} with <code>step</code> applied
+	 */
+	Stream<VariantContext> map(Stream<VariantContext> stream, String name, boolean lookup,
+			UnaryOperator<VariantContext> step) {
+		if (!enabled)
+			return stream.map(step);
+
+		final StageMetrics stage = getStage(name, lookup);
+		return stream.map(vc -> {
+			stage.addIn();
+			final Frames frame = frames.get();
+			frame.enter();
+			final VariantContext result;
+			try {
+				result = step.apply(vc);
+			} finally {
+				frame.exit(stage);
+			}
+			stage.addOut();
+			if (lookup && (result.getAttributes().size() > vc.getAttributes().size()
+					|| !result.getID().equals(vc.getID())))
+				stage.addHit();
+			return result;
+		});
+	}
+
+	/**
+	 * Wrap <code>sink</code> as stage with the given name
+	 *
+	 * @param name
+	 *            name of the stage
+	 * @param sink
+	 *            the {@link Consumer} to wrap
+	 * @return the wrapped {@link Consumer}
+	 */
+	Consumer<VariantContext> consumer(String name, Consumer<VariantContext> sink) {
+		if (!enabled)
+			return sink;
+
+		final StageMetrics stage = getStage(name, false);
+		return vc -> {
+			stage.addIn();
+			final Frames frame = frames.get();
+			frame.enter();
+			try {
+				sink.accept(vc);
+			} finally {
+				frame.exit(stage);
+			}
+			stage.addOut();
+		};
+	}
+
+	/**
+	 * Wrap <code>sink</code> such that its records are counted as output of the stage with the given name
+	 *
+	 * @param name
+	 *            name of the stage
+	 * @param sink
+	 *            the {@link Consumer} to wrap
+	 * @return the wrapped {@link Consumer}
+	 */
+	Consumer<VariantContext> countOut(String name, Consumer<VariantContext> sink) {
+		if (!enabled)
+			return sink;
+
+		final StageMetrics stage = getStage(name, false);
+		return vc -> {
+			stage.addOut();
+			sink.accept(vc);
+		};
+	}
+
+	/**
+	 * Wrap <code>processor</code> as stage with the given name
+	 *
+	 * The records passed in are counted, the records passed on have to be counted with {@link #countOut}.
+	 *
+	 * @param name
+	 *            name of the stage
+	 * @param processor
+	 *            the {@link VariantContextProcessor} to wrap
+	 * @return the wrapped {@link VariantContextProcessor}
+	 */
+	VariantContextProcessor processor(String name, VariantContextProcessor processor) {
+		if (!enabled)
+			return processor;
+
+		final StageMetrics stage = getStage(name, false);
+		return new VariantContextProcessor() {
+			@Override
+			public void put(VariantContext vc) throws VariantContextFilterException {
+				stage.addIn();
+				final Frames frame = frames.get();
+				frame.enter();
+				try {
+					processor.put(vc);
+				} finally {
+					frame.exit(stage);
+				}
+			}
+
+			@Override
+			public void close() {
+				final Frames frame = frames.get();
+				frame.enter();
+				try {
+					processor.close();
+				} finally {
+					frame.exit(stage);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Start printing the metrics periodically (if enabled)
+	 *
+	 * @param out
+	 *            {@link PrintStream} to print to
+	 * @param seconds
+	 *            interval in seconds
+	 */
+	synchronized void startReporting(PrintStream out, int seconds) {
+		if (!enabled || timer != null)
+			return;
+		timer = new Timer(true);
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				out.print(formatTable());
+			}
+		}, seconds * 1000L, seconds * 1000L);
+	}
+
+	/**
+	 * Stop periodic printing and unregister the MXBeans
+	 */
+	synchronized void done() {
+		if (timer != null) {
+			timer.cancel();
+			timer = null;
+		}
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for (ObjectName objectName : objectNames) {
+			try {
+				server.unregisterMBean(objectName);
+			} catch (JMException e) {
+				// already unregistered, e.g., by a later run
+			}
+		}
+		objectNames.clear();
+	}
+
+	/** @return human-readable table of the metrics */
+	String formatTable() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format(Locale.US, "Pipeline metrics after %.1f sec%n", elapsedSeconds()));
+		builder.append(String.format(Locale.US, "%-32s %12s %12s %10s %12s %8s%n", "stage", "records in",
+				"records out", "sec", "alloc MB", "hits"));
+		for (StageMetrics stage : getStages()) {
+			final long bytes = stage.getAllocatedBytes();
+			builder.append(String.format(Locale.US, "%-32s %12d %12d %10.2f %12s %8s%n", stage.getName(),
+					stage.getRecordsIn(), stage.getRecordsOut(), stage.getTotalNanos() / 1e9,
+					bytes < 0 ? "-" : String.format(Locale.US, "%.1f", bytes / 1024.0 / 1024.0),
+					stage.isLookup() ? formatPercent(stage.getHitRate()) : "-"));
+		}
+		return builder.toString();
+	}
+
+	private static String formatPercent(double rate) {
+		return Double.isNaN(rate) ? "-" : String.format(Locale.US, "%.1f%%", 100 * rate);
+	}
+
+	/** @return seconds since construction */
+	private double elapsedSeconds() {
+		return (System.nanoTime() - startNanos) / 1e9;
+	}
+
+	/**
+	 * Write the metrics to <code>file</code>, in Prometheus text format if the name ends in
+	 * {@link #PROMETHEUS_SUFFIX} and as JSON otherwise
+	 *
+	 * @param file
+	 *            path to the file to write
+	 * @throws IOException
+	 *             on problems with writing the file
+	 */
+	void write(File file) throws IOException {
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+			if (file.getName().endsWith(PROMETHEUS_SUFFIX))
+				writePrometheus(out);
+			else
+				writeJSON(out);
+		}
+	}
+
+	/** Write metrics as JSON to <code>out</code> */
+	private void writeJSON(PrintWriter out) {
+		out.println("{");
+		out.println(String.format(Locale.US, "  \"elapsedSeconds\": %.3f,", elapsedSeconds()));
+		out.println("  \"stages\": [");
+		final List<StageMetrics> stageList = getStages();
+		for (int i = 0; i < stageList.size(); ++i) {
+			final StageMetrics stage = stageList.get(i);
+			out.print("    {\"name\": " + quoteJSON(stage.getName()) + ", \"recordsIn\": " + stage.getRecordsIn()
+					+ ", \"recordsOut\": " + stage.getRecordsOut() + ", \"totalNanos\": " + stage.getTotalNanos());
+			if (stage.getAllocatedBytes() >= 0)
+				out.print(", \"allocatedBytes\": " + stage.getAllocatedBytes());
+			if (stage.isLookup()) {
+				out.print(", \"hits\": " + stage.getHits());
+				if (!Double.isNaN(stage.getHitRate()))
+					out.print(String.format(Locale.US, ", \"hitRate\": %.6f", stage.getHitRate()));
+			}
+			out.println(i + 1 < stageList.size() ? "}," : "}");
+		}
+		out.println("  ]");
+		out.println("}");
+	}
+
+	/** @return <code>value</code> as JSON string literal */
+	private static String quoteJSON(String value) {
+		StringBuilder builder = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\')
+				builder.append('\\').append(c);
+			else if (c < 0x20)
+				builder.append(String.format("\\u%04x", (int) c));
+			else
+				builder.append(c);
+		}
+		return builder.append('"').toString();
+	}
+
+	/** Write metrics in Prometheus text format to <code>out</code> */
+	private void writePrometheus(PrintWriter out) {
+		final List<StageMetrics> stageList = getStages();
+		writePrometheusMetric(out, "jannovar_annotate_vcf_records_in_total", "counter",
+				"Records passed into the stage", stageList, stage -> (double) stage.getRecordsIn());
+		writePrometheusMetric(out, "jannovar_annotate_vcf_records_out_total", "counter",
+				"Records passed on by the stage", stageList, stage -> (double) stage.getRecordsOut());
+		writePrometheusMetric(out, "jannovar_annotate_vcf_seconds_total", "counter", "Time spent in the stage",
+				stageList, stage -> stage.getTotalNanos() / 1e9);
+		if (allocationBean != null)
+			writePrometheusMetric(out, "jannovar_annotate_vcf_allocated_bytes_total", "counter",
+					"Bytes allocated in the stage", stageList, stage -> (double) stage.getAllocatedBytes());
+
+		final List<StageMetrics> lookups = new ArrayList<>();
+		for (StageMetrics stage : stageList)
+			if (stage.isLookup())
+				lookups.add(stage);
+		writePrometheusMetric(out, "jannovar_annotate_vcf_hits_total", "counter",
+				"Records annotated by the database lookup", lookups, stage -> (double) stage.getHits());
+		writePrometheusMetric(out, "jannovar_annotate_vcf_hit_ratio", "gauge",
+				"Fraction of records annotated by the database lookup", lookups, StageMetrics::getHitRate);
+	}
+
+	/** Write one metric for all <code>stageList</code> in Prometheus text format to <code>out</code> */
+	private static void writePrometheusMetric(PrintWriter out, String metric, String type, String help,
+			List<StageMetrics> stageList, ToDoubleFunction<StageMetrics> value) {
+		if (stageList.isEmpty())
+			return;
+		out.println("# HELP " + metric + " " + help);
+		out.println("# TYPE " + metric + " " + type);
+		for (StageMetrics stage : stageList) {
+			final double x = value.applyAsDouble(stage);
+			final String formatted = Double.isNaN(x) ? "NaN"
+					: (x == Math.rint(x) && Math.abs(x) < 1e15) ? Long.toString((long) x) : Double.toString(x);
+			out.println(metric + "{stage=\"" + stage.getName().replace("\\", "\\\\").replace("\"", "\\\"")
+					.replace("\n", "\\n") + "\"} " + formatted);
+		}
+	}
+
+	/**
+	 * Stack of the stage calls of one thread
+	 *
+	 * On entering a stage, the current time and allocation are recorded. On leaving, the differences minus those of
+	 * nested stages are added to the stage and the differences are added to the nested values of the enclosing stage.
+	 */
+	private final class Frames {
+
+		private long[] beginNanos = new long[8];
+		private long[] beginBytes = new long[8];
+		private long[] nestedNanos = new long[8];
+		private long[] nestedBytes = new long[8];
+		/** Index of the innermost stage, <code>-1</code> if none */
+		private int depth = -1;
+
+		void enter() {
+			if (++depth == beginNanos.length) {
+				beginNanos = Arrays.copyOf(beginNanos, 2 * depth);
+				beginBytes = Arrays.copyOf(beginBytes, 2 * depth);
+				nestedNanos = Arrays.copyOf(nestedNanos, 2 * depth);
+				nestedBytes = Arrays.copyOf(nestedBytes, 2 * depth);
+			}
+			nestedNanos[depth] = 0;
+			nestedBytes[depth] = 0;
+			beginBytes[depth] = allocatedBytes();
+			beginNanos[depth] = System.nanoTime();
+		}
+
+		void exit(StageMetrics stage) {
+			final long nanos = System.nanoTime() - beginNanos[depth];
+			final long bytes = Math.max(0, allocatedBytes() - beginBytes[depth] - allocationOverhead);
+			stage.addCost(nanos - nestedNanos[depth], Math.max(0, bytes - nestedBytes[depth]));
+			if (--depth >= 0) {
+				nestedNanos[depth] += nanos;
+				nestedBytes[depth] += bytes + allocationOverhead;
+			}
+		}
+
+	}
+
+}
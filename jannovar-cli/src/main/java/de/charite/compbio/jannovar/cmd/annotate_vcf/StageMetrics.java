@@ -0,0 +1,102 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for one stage of the <code>annotate-vcf</code> pipeline
+ *
+ * The counters can be updated concurrently, e.g., by the pipelines for the chunks when using <code>--shards</code>.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class StageMetrics implements StageMetricsMXBean {
+
+	/** Name of the stage */
+	private final String name;
+	/** Whether or not the stage is a database lookup */
+	private final boolean lookup;
+	/** Whether or not allocation is measured */
+	private final boolean allocationSupported;
+
+	/** Number of records passed into the stage */
+	private final LongAdder recordsIn = new LongAdder();
+	/** Number of records passed on by the stage */
+	private final LongAdder recordsOut = new LongAdder();
+	/** Time spent in the stage */
+	private final LongAdder totalNanos = new LongAdder();
+	/** Bytes allocated in the stage */
+	private final LongAdder allocatedBytes = new LongAdder();
+	/** Number of records annotated by the database lookup */
+	private final LongAdder hits = new LongAdder();
+
+	StageMetrics(String name, boolean lookup, boolean allocationSupported) {
+		this.name = name;
+		this.lookup = lookup;
+		this.allocationSupported = allocationSupported;
+	}
+
+	/** Register record passed into the stage */
+	void addIn() {
+		recordsIn.increment();
+	}
+
+	/** Register record passed on by the stage */
+	void addOut() {
+		recordsOut.increment();
+	}
+
+	/** Register database lookup with annotation result */
+	void addHit() {
+		hits.increment();
+	}
+
+	/** Register time and allocation */
+	void addCost(long nanos, long bytes) {
+		totalNanos.add(nanos);
+		allocatedBytes.add(bytes);
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getRecordsIn() {
+		return recordsIn.sum();
+	}
+
+	@Override
+	public long getRecordsOut() {
+		return recordsOut.sum();
+	}
+
+	@Override
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+
+	@Override
+	public long getAllocatedBytes() {
+		return allocationSupported ? allocatedBytes.sum() : -1;
+	}
+
+	@Override
+	public boolean isLookup() {
+		return lookup;
+	}
+
+	@Override
+	public long getHits() {
+		return hits.sum();
+	}
+
+	@Override
+	public double getHitRate() {
+		final long in = getRecordsIn();
+		if (!lookup || in == 0)
+			return Double.NaN;
+		return getHits() / (double) in;
+	}
+
+}
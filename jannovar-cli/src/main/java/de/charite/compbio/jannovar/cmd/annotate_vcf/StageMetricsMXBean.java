@@ -0,0 +1,34 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+/**
+ * JMX view on the metrics of one stage of the <code>annotate-vcf</code> pipeline, see {@link PipelineMetrics}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public interface StageMetricsMXBean {
+
+	/** @return name of the stage */
+	String getName();
+
+	/** @return number of records passed into the stage */
+	long getRecordsIn();
+
+	/** @return number of records passed on by the stage */
+	long getRecordsOut();
+
+	/** @return time spent in the stage (excluding nested stages), in nanoseconds */
+	long getTotalNanos();
+
+	/** @return bytes allocated in the stage (excluding nested stages), <code>-1</code> if not supported by the JVM */
+	long getAllocatedBytes();
+
+	/** @return whether the stage is a database lookup, such that {@link #getHits} is meaningful */
+	boolean isLookup();
+
+	/** @return number of records for which the database lookup found an annotation */
+	long getHits();
+
+	/** @return fraction of records for which the database lookup found an annotation, NaN if not applicable */
+	double getHitRate();
+
+}
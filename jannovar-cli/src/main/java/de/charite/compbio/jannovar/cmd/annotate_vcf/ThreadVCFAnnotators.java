@@ -0,0 +1,88 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import com.google.common.collect.ImmutableMap;
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One {@link VCFAnnotators} object for each worker thread, constructed on first use in the thread.
+ *
+ * <p>
+ * The variant databases configured to be loaded into memory are loaded once and shared by all threads. All objects
+ * constructed are kept track of, such that they can be closed together once the worker threads have terminated.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class ThreadVCFAnnotators implements Closeable {
+
+	/** Configuration */
+	private final JannovarAnnotateVCFOptions options;
+
+	/** {@link ReferenceDictionary} of the transcript database */
+	private final ReferenceDictionary refDict;
+
+	/** {@link Chromosome}s of the transcript database */
+	private final ImmutableMap<Integer, Chromosome> chromosomeMap;
+
+	/** Variant databases loaded into memory, shared by all threads */
+	private final InMemoryDatabases inMemoryDatabases;
+
+	/** Annotation steps of the current worker thread */
+	private final ThreadLocal<VCFAnnotators> threadAnnotators = new ThreadLocal<>();
+
+	/** All annotation steps constructed so far, guarded by <code>this</code> */
+	private final List<VCFAnnotators> allAnnotators = new ArrayList<>();
+
+	/**
+	 * Load the variant databases configured to be loaded into memory, once for all threads.
+	 *
+	 * @param options
+	 *            configuration
+	 * @param refDict
+	 *            {@link ReferenceDictionary} of the transcript database
+	 * @param chromosomeMap
+	 *            {@link Chromosome}s of the transcript database
+	 * @throws JannovarException
+	 *             on problems with loading the databases
+	 */
+	ThreadVCFAnnotators(JannovarAnnotateVCFOptions options, ReferenceDictionary refDict,
+			ImmutableMap<Integer, Chromosome> chromosomeMap) throws JannovarException {
+		this.options = options;
+		this.refDict = refDict;
+		this.chromosomeMap = chromosomeMap;
+		this.inMemoryDatabases = new InMemoryDatabases(options);
+	}
+
+	/**
+	 * @return the {@link VCFAnnotators} of the current thread, constructed on the first call in the thread
+	 * @throws JannovarException
+	 *             on problems with opening the annotation databases
+	 */
+	VCFAnnotators get() throws JannovarException {
+		VCFAnnotators annotators = threadAnnotators.get();
+		if (annotators == null) {
+			annotators = new VCFAnnotators(options, refDict, chromosomeMap, inMemoryDatabases);
+			threadAnnotators.set(annotators);
+			synchronized (this) {
+				allAnnotators.add(annotators);
+			}
+		}
+		return annotators;
+	}
+
+	/**
+	 * Close all {@link VCFAnnotators} constructed so far, must only be called when no thread uses them any more.
+	 */
+	@Override
+	public synchronized void close() {
+		for (VCFAnnotators annotators : allAnnotators)
+			annotators.close();
+		allAnnotators.clear();
+	}
+
+}
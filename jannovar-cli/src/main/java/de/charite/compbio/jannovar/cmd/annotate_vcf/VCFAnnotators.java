@@ -0,0 +1,251 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import com.google.common.collect.ImmutableMap;
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.cmd.annotate_vcf.JannovarAnnotateVCFOptions.BedAnnotationOptions;
+import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
+import de.charite.compbio.jannovar.htsjdk.VariantEffectHeaderExtender;
+import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.facade.DBVariantContextAnnotator;
+import de.charite.compbio.jannovar.vardbs.facade.DBVariantContextAnnotatorFactory;
+import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.generic_vcf.GenericVCFAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.generic_vcf.GenericVCFAnnotationOptions;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFHeader;
+import java.io.Closeable;
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The annotation steps of <code>annotate-vcf</code> that do not depend on the input file or pedigree.
+ *
+ * <p>
+ * Constructing these steps opens the annotation databases (and the reference FASTA file), apart from the ones
+ * loaded into memory beforehand (see {@link InMemoryDatabases}).
+ * An object of this class can thus be used for annotating any number of VCF files, one after the other, and has
+ * to be closed afterwards for releasing the files. The steps are not thread-safe, use one object per thread.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class VCFAnnotators implements Closeable {
+
+	/** Annotation with variant databases (dbSNP, ExAC, gnomAD, UK10K, ClinVar, COSMIC), by name in this order. */
+	private final Map<String, DBVariantContextAnnotator> dbAnnotators = new LinkedHashMap<>();
+
+	/** Annotation with predicted variant effects. */
+	private final VariantContextAnnotator variantEffectAnnotator;
+
+	/** Annotation from BED files, by name. */
+	private final Map<String, BedFileAnnotator> bedFileAnnotators = new LinkedHashMap<>();
+
+	/** Annotation from dbNSFP, <code>null</code> if not configured. */
+	private final GenericTSVAnnotationDriver dbNsfpAnnotator;
+
+	/** Annotation from generic TSV files, by name. */
+	private final Map<String, GenericTSVAnnotationDriver> tsvAnnotators = new LinkedHashMap<>();
+
+	/** Annotation from generic VCF files, by name. */
+	private final Map<String, GenericVCFAnnotationDriver> vcfAnnotators = new LinkedHashMap<>();
+
+	/**
+	 * Construct the annotation steps.
+	 *
+	 * @param options
+	 *            configuration
+	 * @param refDict
+	 *            {@link ReferenceDictionary} of the transcript database
+	 * @param chromosomeMap
+	 *            {@link Chromosome}s of the transcript database
+	 * @param inMemoryDatabases
+	 *            the variant databases loaded into memory, shared with the annotation steps of other threads
+	 * @throws JannovarException
+	 *             on problems with opening the annotation databases
+	 */
+	VCFAnnotators(JannovarAnnotateVCFOptions options, ReferenceDictionary refDict,
+			ImmutableMap<Integer, Chromosome> chromosomeMap, InMemoryDatabases inMemoryDatabases)
+			throws JannovarException {
+		final DBVariantContextAnnotatorFactory factory = new DBVariantContextAnnotatorFactory();
+
+		// If configured, annotate using dbSNP VCF file
+		if (options.pathVCFDBSNP != null) {
+			DBAnnotationOptions dbSNPOptions = DBAnnotationOptions.createDefaults();
+			dbSNPOptions.setIdentifierPrefix(options.prefixDBSNP);
+			dbAnnotators.put("dbSNP", factory.constructDBSNP(options.pathVCFDBSNP, options.pathFASTARef, dbSNPOptions));
+		}
+
+		// If configured, annotate using ExAC VCF file
+		if (options.pathVCFExac != null) {
+			DBAnnotationOptions exacOptions = DBAnnotationOptions.createDefaults();
+			exacOptions.setIdentifierPrefix(options.prefixExac);
+			dbAnnotators.put("ExAC", factory.constructExac(options.pathVCFExac, options.pathFASTARef, exacOptions));
+		}
+
+		// If configured, annotate using gnomAD exomes VCF file
+		if (options.pathVCFGnomadExomes != null) {
+			DBAnnotationOptions gnomadOptions = DBAnnotationOptions.createDefaults();
+			gnomadOptions.setIdentifierPrefix(options.prefixGnomadExomes);
+			dbAnnotators.put("gnomAD exomes",
+					factory.constructGnomad(options.pathVCFGnomadExomes, options.pathFASTARef, gnomadOptions));
+		}
+
+		// If configured, annotate using gnomAD genomes VCF file
+		if (options.pathVCFGnomadGenomes != null) {
+			DBAnnotationOptions gnomadOptions = DBAnnotationOptions.createDefaults();
+			gnomadOptions.setIdentifierPrefix(options.prefixGnomadGenomes);
+			dbAnnotators.put("gnomAD genomes",
+					factory.constructGnomad(options.pathVCFGnomadGenomes, options.pathFASTARef, gnomadOptions));
+		}
+
+		// If configured, annotate using UK10K VCF file
+		if (options.pathVCFUK10K != null) {
+			DBAnnotationOptions uk10kOptions = DBAnnotationOptions.createDefaults();
+			uk10kOptions.setIdentifierPrefix(options.prefixUK10K);
+			dbAnnotators.put("UK10K", factory.constructUK10K(options.pathVCFUK10K, options.pathFASTARef, uk10kOptions));
+		}
+
+		// If configured, annotate using ClinVar VCF file
+		if (options.pathClinVar != null) {
+			DBAnnotationOptions clinVarOptions = DBAnnotationOptions.createDefaults();
+			clinVarOptions.setIdentifierPrefix(options.prefixClinVar);
+			if (inMemoryDatabases.getClinVar() != null)
+				dbAnnotators.put("ClinVar", factory.constructClinVar(inMemoryDatabases.getClinVar(),
+						options.pathFASTARef, clinVarOptions));
+			else
+				dbAnnotators.put("ClinVar",
+						factory.constructClinVar(options.pathClinVar, options.pathFASTARef, clinVarOptions));
+		}
+
+		// If configured, annotate using COSMIC VCF file
+		if (options.pathCosmic != null) {
+			DBAnnotationOptions cosmicOptions = DBAnnotationOptions.createDefaults();
+			cosmicOptions.setIdentifierPrefix(options.prefixCosmic);
+			if (inMemoryDatabases.getCosmic() != null)
+				dbAnnotators.put("COSMIC", factory.constructCosmic(inMemoryDatabases.getCosmic(),
+						options.pathFASTARef, cosmicOptions));
+			else
+				dbAnnotators.put("COSMIC",
+						factory.constructCosmic(options.pathCosmic, options.pathFASTARef, cosmicOptions));
+		}
+
+		// Annotation with variant effect
+		variantEffectAnnotator = new VariantContextAnnotator(refDict, chromosomeMap,
+				new VariantContextAnnotator.Options(!options.isShowAll(), options.isEscapeAnnField(),
+						options.isNt3PrimeShifting(), options.isOffTargetFilterEnabled(),
+						options.isOffTargetFilterUtrIsOffTarget(),
+						options.isOffTargetFilterIntronicSpliceIsOffTarget()));
+
+		// Annotation from BED files
+		for (BedAnnotationOptions bedAnnotationOptions : options.getBedAnnotationOptions())
+			putWithUniqueName(bedFileAnnotators, "BED " + bedAnnotationOptions.getInfoField(),
+					new BedFileAnnotator(bedAnnotationOptions, options.isBedAnnotationInMemory(),
+							options.getBedAnnotationInMemoryMaxSize() * 1024L * 1024L));
+
+		// Annotation using dbNSFP
+		if (options.getPathDbNsfp() != null) {
+			GenericTSVAnnotationOptions dbNsfpAnnotationOptions = DbNsfpFields.buildAnnotationOptions(
+					options.getPrefixDbNsfp(), new File(options.getPathDbNsfp()), options.getDbNsfpColContig(),
+					options.getDbNsfpColPosition(), options.getColumnsDbNsfp());
+			dbNsfpAnnotator = new GenericTSVAnnotationDriver(options.getPathFASTARef(), dbNsfpAnnotationOptions);
+		} else {
+			dbNsfpAnnotator = null;
+		}
+
+		// Annotation from generic TSV files
+		for (GenericTSVAnnotationOptions tsvAnnotationOptions : options.getTsvAnnotationOptions())
+			putWithUniqueName(tsvAnnotators, "TSV " + tsvAnnotationOptions.getTsvFile().getName(),
+					new GenericTSVAnnotationDriver(options.getPathFASTARef(), tsvAnnotationOptions));
+
+		// Annotation from generic VCF files
+		for (GenericVCFAnnotationOptions vcfAnnotationOptions : options.getVcfAnnotationOptions())
+			putWithUniqueName(vcfAnnotators, "VCF " + new File(vcfAnnotationOptions.getPathVcfFile()).getName(),
+					new GenericVCFAnnotationDriver(vcfAnnotationOptions.getPathVcfFile(), options.getPathFASTARef(),
+							vcfAnnotationOptions));
+	}
+
+	/** Put <code>value</code> into <code>map</code>, appending a number to <code>name</code> if already used. */
+	private static <T> void putWithUniqueName(Map<String, T> map, String name, T value) {
+		String uniqueName = name;
+		for (int i = 2; map.containsKey(uniqueName); ++i)
+			uniqueName = name + " #" + i;
+		map.put(uniqueName, value);
+	}
+
+	/**
+	 * Add annotation with the variant databases and the variant effect to <code>stream</code>.
+	 *
+	 * @param stream
+	 *            {@link Stream} of {@link VariantContext} objects to annotate
+	 * @param vcfHeader
+	 *            {@link VCFHeader} to extend
+	 * @param metrics
+	 *            {@link PipelineMetrics} to register the steps with
+	 * @return {@link Stream} with the annotated {@link VariantContext} objects
+	 */
+	Stream<VariantContext> addDatabaseAndEffectSteps(Stream<VariantContext> stream, VCFHeader vcfHeader,
+			PipelineMetrics metrics) {
+		for (Map.Entry<String, DBVariantContextAnnotator> entry : dbAnnotators.entrySet()) {
+			entry.getValue().extendHeader(vcfHeader);
+			stream = metrics.map(stream, entry.getKey(), true, entry.getValue()::annotateVariantContext);
+		}
+
+		new VariantEffectHeaderExtender().addHeaders(vcfHeader);
+		return metrics.map(stream, "variant effects", false, variantEffectAnnotator::annotateVariantContext);
+	}
+
+	/**
+	 * Add annotation from BED, dbNSFP, and generic TSV and VCF files to <code>stream</code>.
+	 *
+	 * @param stream
+	 *            {@link Stream} of {@link VariantContext} objects to annotate
+	 * @param vcfHeader
+	 *            {@link VCFHeader} to extend
+	 * @param metrics
+	 *            {@link PipelineMetrics} to register the steps with
+	 * @return {@link Stream} with the annotated {@link VariantContext} objects
+	 */
+	Stream<VariantContext> addFileAnnotationSteps(Stream<VariantContext> stream, VCFHeader vcfHeader,
+			PipelineMetrics metrics) {
+		for (Map.Entry<String, BedFileAnnotator> entry : bedFileAnnotators.entrySet()) {
+			entry.getValue().extendHeader(vcfHeader);
+			stream = metrics.map(stream, entry.getKey(), true, entry.getValue()::annotateVariantContext);
+		}
+
+		if (dbNsfpAnnotator != null) {
+			dbNsfpAnnotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
+			stream = metrics.map(stream, "dbNSFP", true, dbNsfpAnnotator::annotateVariantContext);
+		}
+
+		for (Map.Entry<String, GenericTSVAnnotationDriver> entry : tsvAnnotators.entrySet()) {
+			entry.getValue().constructVCFHeaderExtender().addHeaders(vcfHeader);
+			stream = metrics.map(stream, entry.getKey(), true, entry.getValue()::annotateVariantContext);
+		}
+
+		for (Map.Entry<String, GenericVCFAnnotationDriver> entry : vcfAnnotators.entrySet()) {
+			entry.getValue().constructVCFHeaderExtender().addHeaders(vcfHeader);
+			stream = metrics.map(stream, entry.getKey(), true, entry.getValue()::annotateVariantContext);
+		}
+
+		return stream;
+	}
+
+	/**
+	 * Release the files opened by the annotation steps.
+	 */
+	@Override
+	public void close() {
+		dbAnnotators.values().forEach(DBVariantContextAnnotator::close);
+		bedFileAnnotators.values().forEach(BedFileAnnotator::close);
+		if (dbNsfpAnnotator != null)
+			dbNsfpAnnotator.close();
+		tsvAnnotators.values().forEach(GenericTSVAnnotationDriver::close);
+		vcfAnnotators.values().forEach(GenericVCFAnnotationDriver::close);
+	}
+
+}
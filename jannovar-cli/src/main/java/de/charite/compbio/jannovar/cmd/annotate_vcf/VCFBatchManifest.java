@@ -0,0 +1,110 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import com.google.common.collect.ImmutableList;
+import de.charite.compbio.jannovar.JannovarException;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Manifest for <code>annotate-vcf-batch</code>.
+ *
+ * <p>
+ * The manifest is a tab-separated file with one line per VCF file to annotate, giving the path to the input VCF file,
+ * the path to the output VCF file, and (optionally) the path to the pedigree file to use. Empty lines and lines
+ * starting with <code>#</code> are ignored.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class VCFBatchManifest {
+
+	/** The entries of the manifest, in the order of the file. */
+	private final ImmutableList<Entry> entries;
+
+	private VCFBatchManifest(ImmutableList<Entry> entries) {
+		this.entries = entries;
+	}
+
+	/**
+	 * Read manifest from file.
+	 *
+	 * @param file
+	 *            path to the manifest file
+	 * @return the {@link VCFBatchManifest}
+	 * @throws JannovarException
+	 *             on problems with reading the file or if it is not a valid manifest
+	 */
+	static VCFBatchManifest read(File file) throws JannovarException {
+		ImmutableList.Builder<Entry> builder = ImmutableList.builder();
+		Set<String> outputPaths = new HashSet<>();
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			String line;
+			int lineNo = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNo += 1;
+				if (line.trim().isEmpty() || line.startsWith("#"))
+					continue;
+				final String[] arr = line.split("\t");
+				if (arr.length < 2 || arr.length > 3)
+					throw new JannovarException("Line " + lineNo + " of manifest " + file
+							+ " does not have the format input<TAB>output[<TAB>pedigree]: " + line);
+				if (!outputPaths.add(arr[1]))
+					throw new JannovarException("Output file " + arr[1] + " given twice in manifest " + file);
+				builder.add(new Entry(arr[0], arr[1], (arr.length == 3 && !arr[2].isEmpty()) ? arr[2] : null));
+			}
+		} catch (IOException e) {
+			throw new JannovarException("Could not read manifest " + file, e);
+		}
+		return new VCFBatchManifest(builder.build());
+	}
+
+	public ImmutableList<Entry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * One line of the manifest.
+	 */
+	static final class Entry {
+
+		/** Path to input VCF file. */
+		private final String pathInputVCF;
+
+		/** Path to output VCF file. */
+		private final String pathOutputVCF;
+
+		/** Path to pedigree file, <code>null</code> if not given. */
+		private final String pathPedFile;
+
+		Entry(String pathInputVCF, String pathOutputVCF, String pathPedFile) {
+			this.pathInputVCF = pathInputVCF;
+			this.pathOutputVCF = pathOutputVCF;
+			this.pathPedFile = pathPedFile;
+		}
+
+		public String getPathInputVCF() {
+			return pathInputVCF;
+		}
+
+		public String getPathOutputVCF() {
+			return pathOutputVCF;
+		}
+
+		public String getPathPedFile() {
+			return pathPedFile;
+		}
+
+		@Override
+		public String toString() {
+			return "Entry [pathInputVCF=" + pathInputVCF + ", pathOutputVCF=" + pathOutputVCF + ", pathPedFile="
+					+ pathPedFile + "]";
+		}
+
+	}
+
+}
@@ -0,0 +1,133 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.mendel.filter.GeneBoundaries;
+import de.charite.compbio.jannovar.progress.GenomeRegion;
+import de.charite.compbio.jannovar.progress.GenomeRegionList;
+import de.charite.compbio.jannovar.progress.GenomeRegionListFactoryFromSAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.Interval;
+import htsjdk.tribble.index.Block;
+import htsjdk.tribble.index.tabix.TabixIndex;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Split a tabix-indexed VCF file into chunks of similar size for separate annotation.
+ *
+ * <p>
+ * The size of a genomic window is estimated from the compressed file offsets in the tabix index. Chunks are built
+ * from consecutive windows in the order of the index (and thus of the file) and the boundaries are moved out of gene
+ * regions through {@link GeneBoundaries}, such that all variants of a gene end up in the same chunk. A chunk is
+ * described by a list of intervals; the records of a chunk are those <b>beginning</b> in one of its intervals.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class VCFShardPlanner {
+
+	/** Size of the windows for estimating the file size. */
+	private static final int WINDOW_SIZE = 1000 * 1000;
+
+	/** Largest position supported by tabix, used for contigs of unknown length. */
+	private static final int MAX_POS = (1 << 29) - 1;
+
+	/** Boundaries for aligning the chunks to. */
+	private final GeneBoundaries geneBoundaries;
+
+	VCFShardPlanner(GeneBoundaries geneBoundaries) {
+		this.geneBoundaries = geneBoundaries;
+	}
+
+	/**
+	 * Compute chunks for the given VCF file.
+	 *
+	 * @param vcfFile
+	 *            path to the bgzip-compressed and tabix-indexed VCF file
+	 * @param seqDict
+	 *            {@link SAMSequenceDictionary} with the contig lengths, may be <code>null</code>
+	 * @param numShards
+	 *            number of chunks to create; fewer chunks are returned if the file cannot be split further
+	 * @return list of chunks, each given as a list of 1-based, fully closed {@link Interval}s
+	 * @throws JannovarException
+	 *             if the tabix index could not be loaded
+	 */
+	List<List<Interval>> plan(File vcfFile, SAMSequenceDictionary seqDict, int numShards) throws JannovarException {
+		final TabixIndex index;
+		try {
+			index = new TabixIndex(new File(vcfFile.getPath() + ".tbi"));
+		} catch (IOException e) {
+			throw new JannovarException("Could not load tabix index for " + vcfFile + ", sharding requires a "
+					+ "bgzip-compressed and tabix-indexed VCF file", e);
+		}
+
+		final Map<String, Integer> lengths = new HashMap<>();
+		if (seqDict != null) {
+			final GenomeRegionList regions = new GenomeRegionListFactoryFromSAMSequenceDictionary().construct(seqDict);
+			for (GenomeRegion region : regions.getGenomeRegions())
+				lengths.put(region.getContig(), region.getEndPos());
+		}
+
+		// Estimate compressed size of all windows, keeping them for the second pass
+		final List<String> contigs = index.getSequenceNames();
+		final List<long[]> weights = new ArrayList<>();
+		long total = 0;
+		for (String contig : contigs) {
+			final int length = lengths.getOrDefault(contig, MAX_POS);
+			final long[] contigWeights = new long[(length + WINDOW_SIZE - 1) / WINDOW_SIZE];
+			for (int i = 0; i < contigWeights.length; ++i) {
+				final int begin = i * WINDOW_SIZE + 1;
+				contigWeights[i] = estimateSize(index, contig, begin, Math.min(length, begin + WINDOW_SIZE - 1));
+				total += contigWeights[i];
+			}
+			weights.add(contigWeights);
+		}
+
+		// Greedily collect windows until the next multiple of the target size is reached
+		final double target = total / (double) numShards;
+		final List<List<Interval>> result = new ArrayList<>();
+		List<Interval> current = new ArrayList<>();
+		long sum = 0;
+		for (int c = 0; c < contigs.size(); ++c) {
+			final String contig = contigs.get(c);
+			final int length = lengths.getOrDefault(contig, MAX_POS);
+			final long[] contigWeights = weights.get(c);
+			int begin = 1;
+			for (int i = 0; i < contigWeights.length; ++i) {
+				sum += contigWeights[i];
+				final int windowEnd = Math.min(length, (i + 1) * WINDOW_SIZE);
+				if (windowEnd < length && begin <= windowEnd && result.size() < numShards - 1
+						&& sum >= target * (result.size() + 1)) {
+					final int cut = geneBoundaries.adjustChunkBegin(contig, windowEnd + 1);
+					if (cut <= length) {
+						current.add(new Interval(contig, begin, cut - 1));
+						result.add(current);
+						current = new ArrayList<>();
+						begin = cut;
+					}
+				}
+			}
+			current.add(new Interval(contig, begin, length));
+			if (result.size() < numShards - 1 && sum >= target * (result.size() + 1)) {
+				result.add(current);
+				current = new ArrayList<>();
+			}
+		}
+		if (!current.isEmpty() || result.isEmpty())
+			result.add(current);
+		return result;
+	}
+
+	/** @return estimated compressed size of the records in the given region */
+	private static long estimateSize(TabixIndex index, String contig, int begin, int end) {
+		long result = 0;
+		for (Block block : index.getBlocks(contig, begin, end))
+			result += (block.getEndPosition() >>> 16) - (block.getStartPosition() >>> 16) + 1;
+		return result;
+	}
+
+}
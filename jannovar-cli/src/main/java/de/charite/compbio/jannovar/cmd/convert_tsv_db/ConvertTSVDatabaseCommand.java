@@ -0,0 +1,59 @@
+package de.charite.compbio.jannovar.cmd.convert_tsv_db;
+
+import java.io.File;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarCommand;
+import de.charite.compbio.jannovar.cmd.annotate_vcf.DbNsfpFields;
+import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVBinaryDatabase;
+import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVBinaryDatabaseWriter;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/**
+ * Conversion of dbNSFP or generic TSV files into binary, pre-indexed databases.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ConvertTSVDatabaseCommand extends JannovarCommand {
+
+	/** Configuration */
+	private JannovarConvertTSVDatabaseOptions options;
+
+	public ConvertTSVDatabaseCommand(String argv[], Namespace args) throws CommandLineParsingException {
+		this.options = new JannovarConvertTSVDatabaseOptions();
+		this.options.setFromArgs(args);
+	}
+
+	/**
+	 * Perform the conversion.
+	 */
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		System.err.println(options.toString());
+
+		final File outFile = new File(options.getPathOutput());
+		if (!GenericTSVBinaryDatabase.isBinaryDatabase(outFile))
+			throw new JannovarException(
+					"Output file name must end in " + GenericTSVBinaryDatabase.FILE_SUFFIX + ": " + outFile);
+
+		final GenericTSVAnnotationOptions tsvOptions;
+		if (options.getPathDbNsfp() != null)
+			tsvOptions = DbNsfpFields.buildAnnotationOptions("", new File(options.getPathDbNsfp()),
+					options.getDbNsfpColContig(), options.getDbNsfpColPosition(), options.getColumnsDbNsfp());
+		else
+			tsvOptions = options.getTsvAnnotationOptions();
+
+		System.err.println("Converting " + tsvOptions.getTsvFile() + " to " + outFile + "...");
+		final long startTime = System.nanoTime();
+		final GenericTSVBinaryDatabaseWriter writer = new GenericTSVBinaryDatabaseWriter(tsvOptions, outFile);
+		writer.convert();
+		final long endTime = System.nanoTime();
+		System.err.println(String.format("Wrote %d records in %.2f sec.", writer.getRecordCount(),
+				(endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+		System.err.println("All done!");
+	}
+
+}
@@ -0,0 +1,166 @@
+package de.charite.compbio.jannovar.cmd.convert_tsv_db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarBaseOptions;
+import de.charite.compbio.jannovar.cmd.annotate_vcf.DbNsfpFields;
+import de.charite.compbio.jannovar.vardbs.generic_tsv.GenericTSVAnnotationOptions;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.ArgumentGroup;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import net.sourceforge.argparse4j.inf.Subparsers;
+
+/**
+ * Configuration for the <code>convert-tsv-db</code> command
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarConvertTSVDatabaseOptions extends JannovarBaseOptions {
+
+	/** Path to output binary database file */
+	private String pathOutput = null;
+
+	/** Path to dbNSFP TSV file */
+	private String pathDbNsfp = null;
+
+	/** Column of contig name in dbNSFP. */
+	private int dbNsfpColContig;
+
+	/** Column of position in dbNSFP. */
+	private int dbNsfpColPosition;
+
+	/** Fields to convert from dbNSFP. */
+	private List<String> columnsDbNsfp = new ArrayList<>();
+
+	/** Configuration of generic TSV file to convert. */
+	private GenericTSVAnnotationOptions tsvAnnotationOptions = null;
+
+	/**
+	 * Setup {@link ArgumentParser}
+	 *
+	 * @param subParsers
+	 *            {@link Subparsers} to setup
+	 */
+	public static void setupParser(Subparsers subParsers) {
+		BiFunction<String[], Namespace, ConvertTSVDatabaseCommand> handler = (argv, args) -> {
+			try {
+				return new ConvertTSVDatabaseCommand(argv, args);
+			} catch (CommandLineParsingException e) {
+				throw new UncheckedJannovarException("Could not parse command line", e);
+			}
+		};
+
+		Subparser subParser = subParsers.addParser("convert-tsv-db", true)
+				.help("convert dbNSFP or generic TSV file to binary database").setDefault("cmd", handler);
+		subParser.description("Convert dbNSFP or generic TSV file to binary, pre-indexed database for faster "
+				+ "annotation; the output file name must end in \".jtsvdb\" and can be used in place of the TSV "
+				+ "file with annotate-vcf");
+
+		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
+		requiredGroup.addArgument("-o", "--output").help("Path to output .jtsvdb file").required(true);
+
+		ArgumentGroup dbNsfpGroup = subParser.addArgumentGroup("Conversion of dbNSFP");
+		dbNsfpGroup.addArgument("--dbnsfp-tsv").help("Path to dbNSFP TSV file").required(false);
+		dbNsfpGroup.addArgument("--dbnsfp-col-contig").type(Integer.class).help("Column index of contig in dbNSFP")
+				.setDefault(1);
+		dbNsfpGroup.addArgument("--dbnsfp-col-position").type(Integer.class)
+				.help("Column index of position in dbNSFP").setDefault(2);
+		dbNsfpGroup.addArgument("--dbnsfp-columns").help("Columns from dbNSFP file to convert")
+				.action(Arguments.append());
+
+		ArgumentGroup tsvGroup = subParser.addArgumentGroup("Conversion of generic TSV file");
+		tsvGroup.addArgument("--tsv-annotation")
+				.help("TSV file to convert, same format as for annotate-vcf. Only one value column can be "
+						+ "given in this way.");
+
+		JannovarBaseOptions.setupParser(subParser);
+	}
+
+	@Override
+	public void setFromArgs(Namespace args) throws CommandLineParsingException {
+		super.setFromArgs(args);
+
+		pathOutput = args.getString("output");
+		pathDbNsfp = args.getString("dbnsfp_tsv");
+		dbNsfpColContig = args.getInt("dbnsfp_col_contig");
+		dbNsfpColPosition = args.getInt("dbnsfp_col_position");
+		if (args.getList("dbnsfp_columns") != null) {
+			for (Object o : args.getList("dbnsfp_columns")) {
+				for (String s : ((String) o).split(",")) {
+					if (!DbNsfpFields.DBNSFP_FIELDS.containsKey(s))
+						throw new CommandLineParsingException("Unknown field from dbNSFP or not yet supported: " + s);
+					columnsDbNsfp.add(s);
+				}
+			}
+		}
+		if (args.getString("tsv_annotation") != null)
+			tsvAnnotationOptions = GenericTSVAnnotationOptions.parseFrom(args.getString("tsv_annotation"));
+
+		if ((pathDbNsfp == null) == (tsvAnnotationOptions == null))
+			throw new CommandLineParsingException("Exactly one of --dbnsfp-tsv and --tsv-annotation must be given");
+		if (pathDbNsfp != null && columnsDbNsfp.isEmpty())
+			throw new CommandLineParsingException("No columns given with --dbnsfp-columns");
+	}
+
+	public String getPathOutput() {
+		return pathOutput;
+	}
+
+	public void setPathOutput(String pathOutput) {
+		this.pathOutput = pathOutput;
+	}
+
+	public String getPathDbNsfp() {
+		return pathDbNsfp;
+	}
+
+	public void setPathDbNsfp(String pathDbNsfp) {
+		this.pathDbNsfp = pathDbNsfp;
+	}
+
+	public int getDbNsfpColContig() {
+		return dbNsfpColContig;
+	}
+
+	public void setDbNsfpColContig(int dbNsfpColContig) {
+		this.dbNsfpColContig = dbNsfpColContig;
+	}
+
+	public int getDbNsfpColPosition() {
+		return dbNsfpColPosition;
+	}
+
+	public void setDbNsfpColPosition(int dbNsfpColPosition) {
+		this.dbNsfpColPosition = dbNsfpColPosition;
+	}
+
+	public List<String> getColumnsDbNsfp() {
+		return columnsDbNsfp;
+	}
+
+	public void setColumnsDbNsfp(List<String> columnsDbNsfp) {
+		this.columnsDbNsfp = columnsDbNsfp;
+	}
+
+	public GenericTSVAnnotationOptions getTsvAnnotationOptions() {
+		return tsvAnnotationOptions;
+	}
+
+	public void setTsvAnnotationOptions(GenericTSVAnnotationOptions tsvAnnotationOptions) {
+		this.tsvAnnotationOptions = tsvAnnotationOptions;
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarConvertTSVDatabaseOptions [pathOutput=" + pathOutput + ", pathDbNsfp=" + pathDbNsfp
+				+ ", dbNsfpColContig=" + dbNsfpColContig + ", dbNsfpColPosition=" + dbNsfpColPosition
+				+ ", columnsDbNsfp=" + columnsDbNsfp + ", tsvAnnotationOptions=" + tsvAnnotationOptions + "]";
+	}
+
+}
@@ -0,0 +1,68 @@
+package de.charite.compbio.jannovar.cmd.convert_vcf_db;
+
+import java.io.File;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarCommand;
+import de.charite.compbio.jannovar.vardbs.exac.ExacRecordSerializer;
+import de.charite.compbio.jannovar.vardbs.gnomad.GnomadRecordSerializer;
+import de.charite.compbio.jannovar.vardbs.record_store.RecordSerializer;
+import de.charite.compbio.jannovar.vardbs.record_store.RecordStore;
+import de.charite.compbio.jannovar.vardbs.record_store.RecordStoreWriter;
+import de.charite.compbio.jannovar.vardbs.uk10k.UK10KRecordSerializer;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/**
+ * Conversion of gnomAD, ExAC, or UK10K VCF files into record stores.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ConvertVCFDatabaseCommand extends JannovarCommand {
+
+	/** Configuration */
+	private JannovarConvertVCFDatabaseOptions options;
+
+	public ConvertVCFDatabaseCommand(String argv[], Namespace args) throws CommandLineParsingException {
+		this.options = new JannovarConvertVCFDatabaseOptions();
+		this.options.setFromArgs(args);
+	}
+
+	/**
+	 * Perform the conversion.
+	 */
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		System.err.println(options.toString());
+
+		final File outFile = new File(options.getPathOutput());
+		if (!RecordStore.isRecordStore(outFile.getPath()))
+			throw new JannovarException("Output file name must end in " + RecordStore.FILE_SUFFIX + ": " + outFile);
+
+		switch (options.getDatabaseType()) {
+		case GNOMAD:
+			convert(new GnomadRecordSerializer(), outFile);
+			break;
+		case EXAC:
+			convert(new ExacRecordSerializer(), outFile);
+			break;
+		case UK10K:
+			convert(new UK10KRecordSerializer(), outFile);
+			break;
+		}
+		System.err.println("All done!");
+	}
+
+	private <RecordType> void convert(RecordSerializer<RecordType> serializer, File outFile)
+			throws JannovarException {
+		System.err.println("Converting " + options.getPathInputVCF() + " to " + outFile + "...");
+		final long startTime = System.nanoTime();
+		final RecordStoreWriter<RecordType> writer = new RecordStoreWriter<>(serializer, options.getPathFASTARef());
+		writer.convert(new File(options.getPathInputVCF()), outFile);
+		final long endTime = System.nanoTime();
+		System.err.println(String.format("Wrote %d records in %.2f sec.", writer.getRecordCount(),
+				(endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
+	}
+
+}
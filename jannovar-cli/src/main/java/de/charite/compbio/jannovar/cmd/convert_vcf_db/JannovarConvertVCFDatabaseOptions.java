@@ -0,0 +1,123 @@
+package de.charite.compbio.jannovar.cmd.convert_vcf_db;
+
+import java.util.function.BiFunction;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarBaseOptions;
+import net.sourceforge.argparse4j.inf.ArgumentGroup;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import net.sourceforge.argparse4j.inf.Subparsers;
+
+/**
+ * Configuration for the <code>convert-vcf-db</code> command
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarConvertVCFDatabaseOptions extends JannovarBaseOptions {
+
+	/** Supported database types */
+	public enum DatabaseType {
+		/** gnomAD exomes or genomes */
+		GNOMAD,
+		/** ExAC */
+		EXAC,
+		/** UK10K */
+		UK10K
+	}
+
+	/** Type of the database */
+	private DatabaseType databaseType = null;
+
+	/** Path to input VCF file */
+	private String pathInputVCF = null;
+
+	/** Path to reference FASTA file */
+	private String pathFASTARef = null;
+
+	/** Path to output record store file */
+	private String pathOutput = null;
+
+	/**
+	 * Setup {@link ArgumentParser}
+	 *
+	 * @param subParsers
+	 *            {@link Subparsers} to setup
+	 */
+	public static void setupParser(Subparsers subParsers) {
+		BiFunction<String[], Namespace, ConvertVCFDatabaseCommand> handler = (argv, args) -> {
+			try {
+				return new ConvertVCFDatabaseCommand(argv, args);
+			} catch (CommandLineParsingException e) {
+				throw new UncheckedJannovarException("Could not parse command line", e);
+			}
+		};
+
+		Subparser subParser = subParsers.addParser("convert-vcf-db", true)
+				.help("convert gnomAD, ExAC, or UK10K VCF file to record store").setDefault("cmd", handler);
+		subParser.description("Convert gnomAD, ExAC, or UK10K VCF file to a pre-normalized, memory-mapped record "
+				+ "store for faster annotation; the output file name must end in \".jrs\" and can be used in place "
+				+ "of the VCF file with annotate-vcf");
+
+		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
+		requiredGroup.addArgument("-t", "--type").help("Type of the database").type(DatabaseType.class)
+				.required(true);
+		requiredGroup.addArgument("-i", "--input-vcf").help("Path to input VCF file").required(true);
+		requiredGroup.addArgument("-r", "--ref-fasta")
+				.help("Path to FAI-indexed reference FASTA file, same as used for annotation").required(true);
+		requiredGroup.addArgument("-o", "--output").help("Path to output .jrs file").required(true);
+
+		JannovarBaseOptions.setupParser(subParser);
+	}
+
+	@Override
+	public void setFromArgs(Namespace args) throws CommandLineParsingException {
+		super.setFromArgs(args);
+
+		databaseType = args.get("type");
+		pathInputVCF = args.getString("input_vcf");
+		pathFASTARef = args.getString("ref_fasta");
+		pathOutput = args.getString("output");
+	}
+
+	public DatabaseType getDatabaseType() {
+		return databaseType;
+	}
+
+	public void setDatabaseType(DatabaseType databaseType) {
+		this.databaseType = databaseType;
+	}
+
+	public String getPathInputVCF() {
+		return pathInputVCF;
+	}
+
+	public void setPathInputVCF(String pathInputVCF) {
+		this.pathInputVCF = pathInputVCF;
+	}
+
+	public String getPathFASTARef() {
+		return pathFASTARef;
+	}
+
+	public void setPathFASTARef(String pathFASTARef) {
+		this.pathFASTARef = pathFASTARef;
+	}
+
+	public String getPathOutput() {
+		return pathOutput;
+	}
+
+	public void setPathOutput(String pathOutput) {
+		this.pathOutput = pathOutput;
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarConvertVCFDatabaseOptions [databaseType=" + databaseType + ", pathInputVCF=" + pathInputVCF
+				+ ", pathFASTARef=" + pathFASTARef + ", pathOutput=" + pathOutput + "]";
+	}
+
+}
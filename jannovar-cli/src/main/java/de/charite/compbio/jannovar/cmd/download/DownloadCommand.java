@@ -45,7 +45,10 @@ public final class DownloadCommand extends JannovarCommand {
 			String filename = PathUtil.join(options.getDownloadDir(),
 					name.replace('/', '_').replace('\\', '_') + ".ser");
 			JannovarDataSerializer serializer = new JannovarDataSerializer(filename);
-			serializer.save(data);
+			if (options.isChunkedDB())
+				serializer.saveChunked(data);
+			else
+				serializer.save(data);
 		}
 	}
 
@@ -30,6 +30,9 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 	/** Names of the databases to download */
 	private List<String> databaseNames = new ArrayList<>();
 
+	/** Whether to write the databases in the chunked format that is loaded per contig */
+	private boolean chunkedDB = false;
+
 	/**
 	 * Setup {@link ArgumentParser}
 	 * 
@@ -57,6 +60,9 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 		optionalGroup.addArgument("-s", "--data-source-list").help("INI file with data source list")
 				.setDefault(Lists.newArrayList("bundle:///default_sources.ini")).action(Arguments.append());
 		optionalGroup.addArgument("--download-dir").help("Path to download directory").setDefault("data");
+		optionalGroup.addArgument("--chunked-db")
+				.help("Write the database in the chunked format whose contigs are only loaded when used")
+				.setDefault(false).action(Arguments.storeTrue());
 
 		JannovarBaseOptions.setupParser(subParser);
 	}
@@ -67,6 +73,7 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 
 		downloadDir = args.getString("download_dir");
 		databaseNames = args.getList("database");
+		chunkedDB = args.getBoolean("chunked_db");
 	}
 
 	public String getDownloadDir() {
@@ -85,9 +92,18 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 		this.databaseNames = databaseNames;
 	}
 
+	public boolean isChunkedDB() {
+		return chunkedDB;
+	}
+
+	public void setChunkedDB(boolean chunkedDB) {
+		this.chunkedDB = chunkedDB;
+	}
+
 	@Override
 	public String toString() {
-		return "JannovarDownloadOptions [downloadDir=" + downloadDir + ", getDataSourceFiles()=" + getDataSourceFiles()
+		return "JannovarDownloadOptions [downloadDir=" + downloadDir + ", chunkedDB=" + chunkedDB
+				+ ", getDataSourceFiles()=" + getDataSourceFiles()
 				+ ", isReportProgress()=" + isReportProgress() + ", getHttpProxy()=" + getHttpProxy()
 				+ ", getHttpsProxy()=" + getHttpsProxy() + ", getFtpProxy()=" + getFtpProxy() + "]";
 	}
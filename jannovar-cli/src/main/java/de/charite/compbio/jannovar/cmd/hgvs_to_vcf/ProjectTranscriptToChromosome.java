@@ -3,7 +3,6 @@ package de.charite.compbio.jannovar.cmd.hgvs_to_vcf;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
@@ -12,21 +11,29 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 
 import de.charite.compbio.jannovar.JannovarException;
 import de.charite.compbio.jannovar.UncheckedJannovarException;
 import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
 import de.charite.compbio.jannovar.cmd.JannovarAnnotationCommand;
+import de.charite.compbio.jannovar.cmd.OrderedChunkProcessor;
 import de.charite.compbio.jannovar.hgvs.HGVSVariant;
 import de.charite.compbio.jannovar.hgvs.bridge.CannotTranslateHGVSVariant;
 import de.charite.compbio.jannovar.hgvs.bridge.NucleotideChangeToGenomeVariantTranslator;
+import de.charite.compbio.jannovar.hgvs.bridge.ProteinChangeToGenomeVariantTranslator;
 import de.charite.compbio.jannovar.hgvs.nts.variant.SingleAlleleNucleotideVariant;
 import de.charite.compbio.jannovar.hgvs.parser.HGVSParser;
 import de.charite.compbio.jannovar.hgvs.parser.HGVSParsingException;
+import de.charite.compbio.jannovar.hgvs.protein.variant.SingleAlleleProteinVariant;
+import de.charite.compbio.jannovar.htsjdk.ReferenceSequenceCache;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.SortingCollection;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
@@ -36,27 +43,51 @@ import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
 import htsjdk.variant.vcf.VCFContigHeaderLine;
 import htsjdk.variant.vcf.VCFFilterHeaderLine;
 import htsjdk.variant.vcf.VCFHeader;
-import htsjdk.variant.vcf.VCFHeaderLine;
 import htsjdk.variant.vcf.VCFHeaderLineType;
 import htsjdk.variant.vcf.VCFInfoHeaderLine;
+import htsjdk.variant.vcf.VCFRecordCodec;
 import htsjdk.variant.vcf.VCFSimpleHeaderLine;
 import net.sourceforge.argparse4j.inf.Namespace;
 
 /**
  * Project transcript to chromosomal changes
+ *
+ * The HGVS strings are converted in chunks on a pool of worker threads, each with its own {@link HGVSParser} and
+ * {@link NucleotideChangeToGenomeVariantTranslator}, reading the reference through a shared
+ * {@link ReferenceSequenceCache}. Protein substitutions yield one variant for each SNV and MNV causing them, marked with
+ * the original HGVS string. The variants are written in input order or sorted by
+ * coordinate using an external-memory sort, in which case compressed output is indexed on the fly.
  * 
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
 public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 
+	/** Number of HGVS strings to convert in one work item */
+	private static final int CHUNK_SIZE = 1000;
+
+	/** Number of variants to keep in memory when sorting by coordinate */
+	private static final int SORT_MAX_RECORDS_IN_RAM = 500000;
+
 	/** Configuration */
 	private ProjectTranscriptToChromosomeOptions options;
 
-	/** FAI-indexed FASTA file to use */
+	/** FAI-indexed FASTA file to use, read through {@link #cache} */
 	IndexedFastaSequenceFile fasta;
 
-	/** Translation of variants */
-	NucleotideChangeToGenomeVariantTranslator translator;
+	/** Cache of the reference sequence, shared by all threads */
+	private ReferenceSequenceCache cache;
+
+	/** Translation of protein changes, shared by all threads for sharing the codon indices */
+	private ProteinChangeToGenomeVariantTranslator proteinTranslator;
+
+	/** Name of the FASTA contig for each numeric contig ID of the database */
+	private ImmutableMap<Integer, String> contigNamesInFasta;
+
+	/** Contig to write variants with errors to */
+	private String errorContig;
+
+	/** Per-thread converters */
+	private ThreadLocal<Converter> threadConverter;
 
 	public ProjectTranscriptToChromosome(String argv[], Namespace args) throws CommandLineParsingException {
 		this.options = new ProjectTranscriptToChromosomeOptions();
@@ -68,24 +99,51 @@ public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 		System.err.println("Options");
 		System.err.println(options.toString());
 		System.err.println("Loading database file...");
-		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.getTranscriptFilter());
 		System.err.println("Loading FASTA index...");
 		loadFASTAIndex();
+		if (options.isPreloadExons()) {
+			System.err.println("Preloading exon sequence...");
+			System.err.println("Loaded " + cache.preloadExons(jannovarData) + " blocks");
+			if (cache.getNumBlocks() >= cache.getMaxBlocks())
+				System.err.println("Reference cache is full, not all exons could be loaded; increase "
+						+ "--reference-cache-size (currently " + options.getReferenceCacheSize() + " MB)");
+		}
+		threadConverter = ThreadLocal.withInitial(Converter::new);
+
 		System.err.println("Opening output VCF file...");
-		try (VariantContextWriter writer = openOutputFile()) {
-			processFile(writer);
+		final VCFHeader header = buildHeader();
+		final boolean sortByCoordinate = options.getOutputOrder() == ProjectTranscriptToChromosomeOptions.OutputOrder.COORDINATE;
+		SortingCollection<VariantContext> sorter = null;
+		if (sortByCoordinate)
+			sorter = SortingCollection.newInstance(VariantContext.class, new VCFRecordCodec(header),
+					header.getVCFRecordComparator(), SORT_MAX_RECORDS_IN_RAM, new File(options.getPathTmpDir()));
+
+		System.err.println("Converting HGVS variants using " + options.getNumThreads() + " thread(s)...");
+		try (VariantContextWriter writer = openOutputFile(header, sortByCoordinate)) {
+			processFile(sortByCoordinate ? sorter::add : writer::add);
+			if (sortByCoordinate) {
+				System.err.println("Writing variants sorted by coordinate...");
+				sorter.doneAdding();
+				try (CloseableIterator<VariantContext> it = sorter.iterator()) {
+					while (it.hasNext())
+						writer.add(it.next());
+				}
+			}
+		} finally {
+			if (sorter != null)
+				sorter.cleanup();
+			try {
+				fasta.close();
+			} catch (IOException e) {
+				System.err.println("Problem closing FASTA file: " + e.getMessage());
+			}
 		}
+		System.err.println(String.format("Reference sequence cache: %d hits, %d misses", cache.getHits(),
+				cache.getMisses()));
 	}
 
-	private VariantContextWriter openOutputFile() {
-		VariantContextWriterBuilder builder = new VariantContextWriterBuilder()
-				.setReferenceDictionary(fasta.getSequenceDictionary()).setOutputFile(options.getPathOutputVCF());
-		if (options.getPathOutputVCF().endsWith(".gz") || options.getPathOutputVCF().endsWith(".bcf"))
-			builder.setOption(Options.INDEX_ON_THE_FLY);
-		else
-			builder.unsetOption(Options.INDEX_ON_THE_FLY);
-		VariantContextWriter writer = builder.build();
-
+	private VCFHeader buildHeader() {
 		VCFHeader header = new VCFHeader();
 		int i = 0;
 		for (SAMSequenceRecord record : fasta.getSequenceDictionary().getSequences()) {
@@ -97,13 +155,25 @@ public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 
 		header.addMetaDataLine(new VCFSimpleHeaderLine("ALT", "ERROR", "Error in conversion"));
 		header.addMetaDataLine(new VCFFilterHeaderLine("PARSE_ERROR",
-				"Problem in parsing original HGVS variant string, written out as variant at 1:g.1N>N"));
+				"Problem in parsing original HGVS variant string, written out as variant at " + errorContig
+						+ ":g.1N>N"));
 		header.addMetaDataLine(new VCFInfoHeaderLine("ERROR_MESSAGE", 1, VCFHeaderLineType.String, "Error message"));
 		header.addMetaDataLine(new VCFInfoHeaderLine("ORIG_VAR", 1, VCFHeaderLineType.String,
 				"Original HGVS variant string from input file to hgvs-to-vcf"));
+		return header;
+	}
 
+	private VariantContextWriter openOutputFile(VCFHeader header, boolean sortByCoordinate) {
+		VariantContextWriterBuilder builder = new VariantContextWriterBuilder()
+				.setReferenceDictionary(fasta.getSequenceDictionary()).setOutputFile(options.getPathOutputVCF());
+		// only sorted output can be indexed
+		if (sortByCoordinate
+				&& (options.getPathOutputVCF().endsWith(".gz") || options.getPathOutputVCF().endsWith(".bcf")))
+			builder.setOption(Options.INDEX_ON_THE_FLY);
+		else
+			builder.unsetOption(Options.INDEX_ON_THE_FLY);
+		VariantContextWriter writer = builder.build();
 		writer.writeHeader(header);
-
 		return writer;
 	}
 
@@ -119,7 +189,17 @@ public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 							+ "or samtools dict, version >=1.3)");
 		}
 
-		this.translator = new NucleotideChangeToGenomeVariantTranslator(jannovarData, fasta);
+		final long cacheBytes = options.getReferenceCacheSize() * 1024L * 1024L;
+		this.cache = new ReferenceSequenceCache(fasta, ReferenceSequenceCache.DEFAULT_BLOCK_SIZE,
+				(int) Math.max(1, cacheBytes / ReferenceSequenceCache.DEFAULT_BLOCK_SIZE));
+		this.proteinTranslator = new ProteinChangeToGenomeVariantTranslator(jannovarData, cache);
+		// Map the contigs of the database to the FASTA contigs
+		this.contigNamesInFasta = cache.mapContigs(jannovarData.getRefDict());
+
+		if (fasta.getSequenceDictionary().getSequence("1") != null)
+			this.errorContig = "1";
+		else
+			this.errorContig = fasta.getSequenceDictionary().getSequence(0).getSequenceName();
 	}
 
 	/**
@@ -128,7 +208,7 @@ public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 	private VariantContext buildErrorVariantContext(String origString, String message) {
 		Allele alleleRef = Allele.create("N", true);
 		Allele alleleAlt = Allele.create("<ERROR>", false);
-		return new VariantContextBuilder().loc("1", 1, 1).alleles(Lists.newArrayList(alleleRef, alleleAlt))
+		return new VariantContextBuilder().loc(errorContig, 1, 1).alleles(Lists.newArrayList(alleleRef, alleleAlt))
 				.filter("PARSE_ERROR").attribute("ORIG_VAR", urlEncode(origString))
 				.attribute("ERROR_MESSAGE", urlEncode(message)).make();
 	}
@@ -141,38 +221,18 @@ public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 		}
 	}
 
-	private void processFile(VariantContextWriter writer) {
-		try (BufferedReader br = new BufferedReader(new FileReader(new File(options.getPathInputText())))) {
+	/** Read the input file and pass the converted variants in input order to <code>sink</code> */
+	private void processFile(VariantSink sink) throws JannovarException {
+		try (BufferedReader br = openInput(options.getPathInputText());
+				OrderedChunkProcessor<String, List<VariantContext>> processor = new OrderedChunkProcessor<>(
+						options.getNumThreads(), CHUNK_SIZE, this::convertChunk, variants -> {
+							for (VariantContext vc : variants)
+								sink.add(vc);
+						})) {
 			String line;
-			while ((line = br.readLine()) != null) {
-				// Read line
-				String word = line.trim();
-
-				// Parse variant
-				HGVSVariant rawVar = null;
-				try {
-					HGVSParser parser = new HGVSParser();
-					rawVar = parser.parseHGVSString(word);
-					if (!(rawVar instanceof SingleAlleleNucleotideVariant)) {
-						writer.add(buildErrorVariantContext(word, "More than one allele in nucleotide variant"));
-						continue;
-					}
-				} catch (HGVSParsingException e) {
-					writer.add(buildErrorVariantContext(word, e.getMessage()));
-					continue;
-				}
-
-				// Convert from transcript to genome variant
-				GenomeVariant genomeVar = translate((SingleAlleleNucleotideVariant) rawVar);
-				if (genomeVar == null) {
-					writer.add(buildErrorVariantContext(word, "Could not translate HGVS to genomic variant"));
-					continue;
-				}
-
-				// Write variant to VCF file
-				writeVariant(writer, genomeVar);
-				System.err.println(word + " => " + rawVar + " => " + genomeVar);
-			}
+			while ((line = br.readLine()) != null)
+				processor.add(line);
+			processor.finish();
 		} catch (FileNotFoundException e) {
 			throw new UncheckedJannovarException("Problem opening file", e);
 		} catch (IOException e) {
@@ -180,55 +240,137 @@ public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 		}
 	}
 
+	/** @return the variants for the lines in <code>chunk</code>, protein changes can yield more than one variant */
+	private List<VariantContext> convertChunk(List<String> chunk) {
+		final Converter converter = threadConverter.get();
+		List<VariantContext> result = new ArrayList<>(chunk.size());
+		for (String line : chunk)
+			converter.convert(line.trim(), result);
+		return result;
+	}
+
 	/** Map contig name (from genome variant) to contig name in FASTA */
 	private String mapContigToFasta(String contigName) {
 		// Map genome variant's contig to unique ID
 		Integer contigID = jannovarData.getRefDict().getContigNameToID().get(contigName);
 		if (contigID == null)
 			throw new UncheckedJannovarException("Unknown contig name " + contigName);
-		// Try to find matching contig in fasta
-		String nameInFasta = null;
-		for (SAMSequenceRecord record : fasta.getSequenceDictionary().getSequences()) {
-			if (jannovarData.getRefDict().getContigNameToID().containsKey(record.getSequenceName())) {
-				nameInFasta = record.getSequenceName();
-				break;
-			}
-		}
+		// Find matching contig in fasta
+		String nameInFasta = contigNamesInFasta.get(contigID);
 		if (nameInFasta == null)
 			throw new UncheckedJannovarException("Could not find corresponding contig in FASTA for " + contigName);
 
 		return nameInFasta;
 	}
 
-	private void writeVariant(VariantContextWriter writer, GenomeVariant genomeVar) {
-		String nameInFasta = mapContigToFasta(genomeVar.getChrName());
-		List<Allele> alleles = new ArrayList<Allele>();
-		int shift = 0;
-		if (genomeVar.getRef().isEmpty() || genomeVar.getAlt().isEmpty()) {
-			shift = -1;
-			String left = fasta.getSubsequenceAt(nameInFasta, genomeVar.getPos(), genomeVar.getPos())
-					.getBaseString();
-			alleles.add(Allele.create(left + genomeVar.getRef(), true));
-			alleles.add(Allele.create(left + genomeVar.getAlt(), false));
-		} else {
-			alleles.add(Allele.create(genomeVar.getRef(), true));
-			alleles.add(Allele.create(genomeVar.getAlt(), false));
-		}
+	/**
+	 * Consumer of the converted variants
+	 */
+	@FunctionalInterface
+	private interface VariantSink {
 
-		VariantContextBuilder builder = new VariantContextBuilder();
-		builder.chr(genomeVar.getChrName()).start(genomeVar.getPos() + shift + 1)
-				.computeEndFromAlleles(alleles, genomeVar.getPos() + shift + 1).alleles(alleles);
+		void add(VariantContext vc);
 
-		writer.add(builder.make());
 	}
 
-	private GenomeVariant translate(SingleAlleleNucleotideVariant rawVar) {
-		try {
-			return translator.translateNucleotideVariantToGenomeVariant((SingleAlleleNucleotideVariant) rawVar, true);
-		} catch (CannotTranslateHGVSVariant e) {
-			System.err.println("Could not translate variant " + rawVar + ": " + e.toString());
-			return null;
+	/**
+	 * Conversion of HGVS strings to {@link VariantContext}s, used by one thread
+	 */
+	private class Converter {
+
+		/** Parser for the HGVS strings */
+		private final HGVSParser parser = new HGVSParser();
+
+		/** Translation of variants */
+		private final NucleotideChangeToGenomeVariantTranslator translator = new NucleotideChangeToGenomeVariantTranslator(
+				jannovarData, cache);
+
+		/**
+		 * Add {@link VariantContext}s for the HGVS string <code>word</code> to <code>result</code>, indicating errors
+		 *
+		 * Nucleotide changes yield one variant, protein changes one variant for each SNV and MNV causing the change.
+		 */
+		void convert(String word, List<VariantContext> result) {
+			// Parse variant
+			HGVSVariant rawVar = null;
+			try {
+				rawVar = parser.parseHGVSString(word);
+			} catch (HGVSParsingException e) {
+				result.add(buildErrorVariantContext(word, e.getMessage()));
+				return;
+			} catch (RuntimeException e) {
+				// the parse listener can fail on malformed input before the error strategy reports it
+				result.add(buildErrorVariantContext(word, "Could not parse HGVS string: " + e.toString()));
+				return;
+			}
+
+			if (rawVar instanceof SingleAlleleProteinVariant) {
+				convertProteinVariant(word, (SingleAlleleProteinVariant) rawVar, result);
+				return;
+			} else if (!(rawVar instanceof SingleAlleleNucleotideVariant)) {
+				final String message = (rawVar == null) ? "Unsupported protein change"
+						: "More than one allele in nucleotide variant";
+				result.add(buildErrorVariantContext(word, message));
+				return;
+			}
+
+			// Convert from transcript to genome variant
+			GenomeVariant genomeVar = translate((SingleAlleleNucleotideVariant) rawVar);
+			if (genomeVar == null) {
+				result.add(buildErrorVariantContext(word, "Could not translate HGVS to genomic variant"));
+				return;
+			}
+
+			if (options.getVerbosity() >= 2)
+				System.err.println(word + " => " + rawVar + " => " + genomeVar);
+			result.add(buildVariantContext(genomeVar).make());
+		}
+
+		private void convertProteinVariant(String word, SingleAlleleProteinVariant rawVar,
+				List<VariantContext> result) {
+			final ImmutableList<GenomeVariant> genomeVars;
+			try {
+				genomeVars = proteinTranslator.translateProteinVariantToGenomeVariants(rawVar, true);
+			} catch (CannotTranslateHGVSVariant e) {
+				System.err.println("Could not translate variant " + rawVar + ": " + e.toString());
+				result.add(buildErrorVariantContext(word, "Could not translate HGVS to genomic variant"));
+				return;
+			}
+
+			if (options.getVerbosity() >= 2)
+				System.err.println(word + " => " + rawVar + " => " + genomeVars);
+			for (GenomeVariant genomeVar : genomeVars)
+				result.add(buildVariantContext(genomeVar).attribute("ORIG_VAR", urlEncode(word)).make());
 		}
+
+		private VariantContextBuilder buildVariantContext(GenomeVariant genomeVar) {
+			String nameInFasta = mapContigToFasta(genomeVar.getChrName());
+			List<Allele> alleles = new ArrayList<Allele>();
+			int shift = 0;
+			if (genomeVar.getRef().isEmpty() || genomeVar.getAlt().isEmpty()) {
+				shift = -1;
+				String left = cache.getSequence(nameInFasta, genomeVar.getPos(), genomeVar.getPos());
+				alleles.add(Allele.create(left + genomeVar.getRef(), true));
+				alleles.add(Allele.create(left + genomeVar.getAlt(), false));
+			} else {
+				alleles.add(Allele.create(genomeVar.getRef(), true));
+				alleles.add(Allele.create(genomeVar.getAlt(), false));
+			}
+
+			VariantContextBuilder builder = new VariantContextBuilder();
+			return builder.chr(nameInFasta).start(genomeVar.getPos() + shift + 1)
+					.computeEndFromAlleles(alleles, genomeVar.getPos() + shift + 1).alleles(alleles);
+		}
+
+		private GenomeVariant translate(SingleAlleleNucleotideVariant rawVar) {
+			try {
+				return translator.translateNucleotideVariantToGenomeVariant(rawVar, true);
+			} catch (CannotTranslateHGVSVariant e) {
+				System.err.println("Could not translate variant " + rawVar + ": " + e.toString());
+				return null;
+			}
+		}
+
 	}
 
 }
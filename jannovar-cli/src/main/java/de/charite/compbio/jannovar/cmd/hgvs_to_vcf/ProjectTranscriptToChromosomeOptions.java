@@ -29,6 +29,31 @@ public class ProjectTranscriptToChromosomeOptions extends JannovarAnnotationOpti
 	/** Path to reference FASTA file */
 	private String pathReferenceFASTA;
 
+	/** Number of threads to use for the conversion */
+	private int numThreads = 1;
+
+	/** Order of the variants in the output file */
+	private OutputOrder outputOrder = OutputOrder.INPUT;
+
+	/** Path to directory for temporary files when sorting */
+	private String pathTmpDir;
+
+	/** Whether or not to load the reference sequence of all exons before the conversion */
+	private boolean preloadExons = false;
+
+	/** Size of the reference sequence cache in MB */
+	private int referenceCacheSize = 16;
+
+	/**
+	 * Order of the variants in the output file
+	 */
+	public enum OutputOrder {
+		/** same order as the HGVS strings in the input file */
+		INPUT,
+		/** sorted by coordinate, allows indexing of the output */
+		COORDINATE;
+	}
+
 	@Override
 	public void setFromArgs(Namespace args) throws CommandLineParsingException {
 		super.setFromArgs(args);
@@ -36,6 +61,16 @@ public class ProjectTranscriptToChromosomeOptions extends JannovarAnnotationOpti
 		pathInputText = args.getString("input_txt");
 		pathOutputVCF = args.getString("output_vcf");
 		pathReferenceFASTA = args.getString("reference_fasta");
+		numThreads = args.getInt("threads");
+		if (numThreads < 1)
+			throw new CommandLineParsingException("Number of threads must be positive, was " + numThreads);
+		outputOrder = OutputOrder.valueOf(args.getString("output_order").toUpperCase());
+		pathTmpDir = args.getString("tmp_dir");
+		preloadExons = args.getBoolean("preload_exons");
+		referenceCacheSize = args.getInt("reference_cache_size");
+		if (referenceCacheSize < 1)
+			throw new CommandLineParsingException(
+					"Reference cache size must be positive, was " + referenceCacheSize);
 	}
 
 	/**
@@ -59,7 +94,8 @@ public class ProjectTranscriptToChromosomeOptions extends JannovarAnnotationOpti
 		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
 		requiredGroup.addArgument("-r", "--reference-fasta").help("Path to reference FASTA file").required(true);
 		requiredGroup.addArgument("-d", "--database").help("Path to database .ser file").required(true);
-		requiredGroup.addArgument("-i", "--input-txt").help("Input file with HGVS transcript-level changes, line-by-line")
+		requiredGroup.addArgument("-i", "--input-txt")
+				.help("Input file with HGVS transcript-level changes, line-by-line, \"-\" for standard input")
 				.required(true);
 		requiredGroup.addArgument("-o", "--output-vcf").help("Output VCF file with chromosome-level changes")
 				.required(true);
@@ -70,9 +106,25 @@ public class ProjectTranscriptToChromosomeOptions extends JannovarAnnotationOpti
 				.dest("3_prime_shifting").setDefault(true).action(Arguments.storeFalse());
 		optionalGroup.addArgument("--3-letter-amino-acids").help("Enable usage of 3 letter amino acid codes")
 				.setDefault(false).action(Arguments.storeTrue());
+		optionalGroup.addArgument("--threads").help("Number of threads to use for the conversion").type(Integer.class)
+				.setDefault(1);
+		optionalGroup.addArgument("--output-order").choices("input", "coordinate").setDefault("input")
+				.help("Write variants in the order of the input file or sorted by coordinate, the latter allows "
+						+ "indexing of .vcf.gz and .bcf output files");
+		optionalGroup.addArgument("--tmp-dir").help("Directory for temporary files when sorting by coordinate")
+				.setDefault(System.getProperty("java.io.tmpdir"));
+		optionalGroup.addArgument("--preload-exons")
+				.help("Load the reference sequence of all exons before the conversion, up to the cache size")
+				.setDefault(false).action(Arguments.storeTrue());
+		optionalGroup.addArgument("--reference-cache-size")
+				.help("Size of the reference sequence cache in MB, increase for preloading the exons of large "
+						+ "databases with --preload-exons")
+				.type(Integer.class).setDefault(16);
 
-		subParser.epilog("Example: java -jar Jannovar.jar tx-to-chrom -i in.txt -o out.vcf");
+		subParser.epilog("Example: java -jar Jannovar.jar hgvs-to-vcf -r hg19.fa -d hg19_refseq.ser -i in.txt "
+				+ "-o out.vcf.gz --threads 8 --output-order coordinate");
 
+		setupTranscriptFilterArguments(subParser);
 		JannovarBaseOptions.setupParser(subParser);
 	}
 
@@ -100,10 +152,52 @@ public class ProjectTranscriptToChromosomeOptions extends JannovarAnnotationOpti
 		this.pathOutputVCF = pathOutputVCF;
 	}
 
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	public OutputOrder getOutputOrder() {
+		return outputOrder;
+	}
+
+	public void setOutputOrder(OutputOrder outputOrder) {
+		this.outputOrder = outputOrder;
+	}
+
+	public String getPathTmpDir() {
+		return pathTmpDir;
+	}
+
+	public void setPathTmpDir(String pathTmpDir) {
+		this.pathTmpDir = pathTmpDir;
+	}
+
+	public int getReferenceCacheSize() {
+		return referenceCacheSize;
+	}
+
+	public void setReferenceCacheSize(int referenceCacheSize) {
+		this.referenceCacheSize = referenceCacheSize;
+	}
+
+	public boolean isPreloadExons() {
+		return preloadExons;
+	}
+
+	public void setPreloadExons(boolean preloadExons) {
+		this.preloadExons = preloadExons;
+	}
+
 	@Override
 	public String toString() {
 		return "ProjectTranscriptToChromosomeOptions [pathInputText=" + pathInputText + ", pathOutputVCF="
-				+ pathOutputVCF + ", pathReferenceFASTA=" + pathReferenceFASTA + ", toString()=" + super.toString()
+				+ pathOutputVCF + ", pathReferenceFASTA=" + pathReferenceFASTA + ", numThreads=" + numThreads
+				+ ", outputOrder=" + outputOrder + ", pathTmpDir=" + pathTmpDir + ", preloadExons=" + preloadExons
+				+ ", referenceCacheSize=" + referenceCacheSize + ", toString()=" + super.toString()
 				+ "]";
 	}
 
@@ -2,9 +2,16 @@ package de.charite.compbio.jannovar.cmd.statistics;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import de.charite.compbio.jannovar.JannovarException;
 import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
@@ -13,6 +20,7 @@ import de.charite.compbio.jannovar.htsjdk.InvalidCoordinatesException;
 import de.charite.compbio.jannovar.htsjdk.VariantContextAnnotator;
 import de.charite.compbio.jannovar.stats.facade.StatisticsCollector;
 import de.charite.compbio.jannovar.stats.facade.StatisticsWriter;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFFileReader;
 import net.sourceforge.argparse4j.inf.Namespace;
@@ -24,6 +32,9 @@ import net.sourceforge.argparse4j.inf.Namespace;
  */
 public class GatherStatisticsCommand extends JannovarAnnotationCommand {
 
+	/** Number of variants to process in one work item */
+	private static final int CHUNK_SIZE = 1000;
+
 	/** Configuration */
 	private JannovarGatherStatisticsOptions options;
 
@@ -48,30 +59,60 @@ public class GatherStatisticsCommand extends JannovarAnnotationCommand {
 				new VariantContextAnnotator.Options(false, false, false, false, isUtrOffTarget,
 						isIntronicSpliceOffTarget));
 
-		Map<String, Integer> errorMsgs = new TreeMap<>();
-
-		String prevChrom = null;
-		
 		System.err.println("Opening VCF file...");
 		final String vcfPath = options.getPathInputVCF();
 		try (VCFFileReader vcfReader = new VCFFileReader(new File(vcfPath), false)) {
-			System.err.println("Gathering statistics...");
+			System.err.println("Gathering statistics using " + options.getNumThreads() + " thread(s)...");
 			final long startTime = System.nanoTime();
-			StatisticsCollector statsCollector = new StatisticsCollector(
-					vcfReader.getFileHeader().getSampleNamesInOrder());
+			final List<String> sampleNames = vcfReader.getFileHeader().getSampleNamesInOrder();
 
-			for (VariantContext vc : vcfReader) {
-				if (!vc.getContig().equals(prevChrom)) {
-					prevChrom = vc.getContig();
-					System.err.println("Starting on contig " + prevChrom);
-				}
-				
-				try {
-					statsCollector.put(vc, annotator.buildAnnotations(vc));
-				} catch (InvalidCoordinatesException e) {
-					errorMsgs.putIfAbsent(e.getMessage(), 0);
-					errorMsgs.put(e.getMessage(), errorMsgs.get(e.getMessage()) + 1);
+			// Each worker thread collects into its own shard, shards are merged at the end
+			final List<Shard> shards = Collections.synchronizedList(new ArrayList<>());
+			final ThreadLocal<Shard> threadShard = ThreadLocal.withInitial(() -> {
+				Shard shard = new Shard(sampleNames);
+				shards.add(shard);
+				return shard;
+			});
+			final ExecutorService executor = Executors.newFixedThreadPool(options.getNumThreads());
+			// Limit number of chunks in flight to bound memory usage
+			final Semaphore inFlight = new Semaphore(2 * options.getNumThreads());
+
+			String prevChrom = null;
+			List<VariantContext> chunk = new ArrayList<>(CHUNK_SIZE);
+			try {
+				for (VariantContext vc : vcfReader) {
+					if (!vc.getContig().equals(prevChrom)) {
+						prevChrom = vc.getContig();
+						System.err.println("Starting on contig " + prevChrom);
+					}
+					// Genotypes are decoded lazily through a buffer shared by all records of the reader's codec, so
+					// decode them here rather than concurrently in the worker threads
+					if (vc.getGenotypes() instanceof LazyGenotypesContext)
+						((LazyGenotypesContext) vc.getGenotypes()).decode();
+					chunk.add(vc);
+					if (chunk.size() == CHUNK_SIZE) {
+						submitChunk(executor, inFlight, chunk, annotator, threadShard);
+						chunk = new ArrayList<>(CHUNK_SIZE);
+					}
 				}
+				if (!chunk.isEmpty())
+					submitChunk(executor, inFlight, chunk, annotator, threadShard);
+				executor.shutdown();
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			} catch (InterruptedException e) {
+				throw new JannovarException("Interrupted while gathering statistics", e);
+			} finally {
+				executor.shutdownNow();
+			}
+
+			StatisticsCollector statsCollector = new StatisticsCollector(sampleNames);
+			Map<String, Integer> errorMsgs = new TreeMap<>();
+			for (Shard shard : shards) {
+				if (shard.failure != null)
+					throw new JannovarException("Problem gathering statistics", shard.failure);
+				statsCollector.merge(shard.collector);
+				for (Entry<String, Integer> e : shard.errorMsgs.entrySet())
+					errorMsgs.merge(e.getKey(), e.getValue(), Integer::sum);
 			}
 
 			System.err.println("Writing out statistics...");
@@ -97,4 +138,54 @@ public class GatherStatisticsCommand extends JannovarAnnotationCommand {
 		}
 	}
 
+	/**
+	 * Submit annotation and statistics collection for <code>chunk</code> to <code>executor</code>, blocking while
+	 * too many chunks are in flight
+	 */
+	private void submitChunk(ExecutorService executor, Semaphore inFlight, List<VariantContext> chunk,
+			VariantContextAnnotator annotator, ThreadLocal<Shard> threadShard) throws InterruptedException {
+		inFlight.acquire();
+		executor.execute(() -> {
+			try {
+				final Shard shard = threadShard.get();
+				try {
+					for (VariantContext vc : chunk)
+						shard.put(vc, annotator);
+				} catch (RuntimeException e) {
+					shard.failure = e;
+				}
+			} finally {
+				inFlight.release();
+			}
+		});
+	}
+
+	/**
+	 * Statistics and error messages collected by one worker thread
+	 */
+	private static class Shard {
+
+		/** Statistics collected in this shard */
+		final StatisticsCollector collector;
+
+		/** Error messages with counts */
+		final Map<String, Integer> errorMsgs = new TreeMap<>();
+
+		/** Unexpected exception in this shard, if any */
+		RuntimeException failure;
+
+		Shard(List<String> sampleNames) {
+			this.collector = new StatisticsCollector(sampleNames);
+		}
+
+		void put(VariantContext vc, VariantContextAnnotator annotator) {
+			try {
+				collector.put(vc, annotator.buildAnnotations(vc));
+			} catch (InvalidCoordinatesException e) {
+				errorMsgs.merge(e.getMessage(), 1, Integer::sum);
+			}
+		}
+
+	}
+
 }
@@ -27,6 +27,9 @@ public class JannovarGatherStatisticsOptions extends JannovarBaseOptions {
 	/** Path to output report TXT file */
 	private String pathOutputReport = null;
 
+	/** Number of threads to use for annotation and statistics collection */
+	private int numThreads = 1;
+
 	/**
 	 * Setup {@link ArgumentParser}
 	 * 
@@ -51,6 +54,10 @@ public class JannovarGatherStatisticsOptions extends JannovarBaseOptions {
 		requiredGroup.addArgument("-o", "--output-report").help("Path to output report TXT file").required(true);
 		requiredGroup.addArgument("-d", "--database").help("Path to database .ser file").required(true);
 
+		ArgumentGroup optionalGroup = subParser.addArgumentGroup("Optional Arguments");
+		optionalGroup.addArgument("--threads").help("Number of threads to use for annotation and statistics")
+				.type(Integer.class).setDefault(1);
+
 		JannovarBaseOptions.setupParser(subParser);
 	}
 
@@ -61,6 +68,9 @@ public class JannovarGatherStatisticsOptions extends JannovarBaseOptions {
 		pathInputVCF = args.getString("input_vcf");
 		pathOutputReport = args.getString("output_report");
 		databaseFilePath = args.getString("database");
+		numThreads = args.getInt("threads");
+		if (numThreads < 1)
+			throw new CommandLineParsingException("Number of threads must be positive, was " + numThreads);
 	}
 
 	public String getPathInputVCF() {
@@ -87,10 +97,18 @@ public class JannovarGatherStatisticsOptions extends JannovarBaseOptions {
 		this.databaseFilePath = databaseFilePath;
 	}
 
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
 	@Override
 	public String toString() {
 		return "JannovarGatherStatisticsOptions [databaseFilePath=" + databaseFilePath + ", pathInputVCF="
-				+ pathInputVCF + ", pathOutputReport=" + pathOutputReport + "]";
+				+ pathInputVCF + ", pathOutputReport=" + pathOutputReport + ", numThreads=" + numThreads + "]";
 	}
 
 }
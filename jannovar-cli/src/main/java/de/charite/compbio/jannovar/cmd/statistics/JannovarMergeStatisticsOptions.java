@@ -0,0 +1,88 @@
+package de.charite.compbio.jannovar.cmd.statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarBaseOptions;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.ArgumentGroup;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import net.sourceforge.argparse4j.inf.Subparsers;
+
+/**
+ * Configuration for the <code>merge-statistics</code> command
+ * 
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarMergeStatisticsOptions extends JannovarBaseOptions {
+
+	/** Paths to input report TXT files */
+	private List<String> pathInputReports = new ArrayList<>();
+
+	/** Path to output report TXT file */
+	private String pathOutputReport = null;
+
+	/**
+	 * Setup {@link ArgumentParser}
+	 * 
+	 * @param subParsers
+	 *            {@link Subparsers} to setup
+	 */
+	public static void setupParser(Subparsers subParsers) {
+		BiFunction<String[], Namespace, MergeStatisticsCommand> handler = (argv, args) -> {
+			try {
+				return new MergeStatisticsCommand(argv, args);
+			} catch (CommandLineParsingException e) {
+				throw new UncheckedJannovarException("Could not parse command line", e);
+			}
+		};
+
+		Subparser subParser = subParsers.addParser("merge-statistics", true)
+				.help("merge reports written by the statistics command").setDefault("cmd", handler);
+		subParser.description("Merge reports written by the statistics command, e.g., for multiple VCF files of a "
+				+ "cohort; the counts are summed up and the sample columns are combined by sample name");
+
+		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
+		requiredGroup.addArgument("-i", "--input-report").help("Path to input report TXT file, give multiple times")
+				.action(Arguments.append()).required(true);
+		requiredGroup.addArgument("-o", "--output-report").help("Path to output report TXT file").required(true);
+
+		JannovarBaseOptions.setupParser(subParser);
+	}
+
+	@Override
+	public void setFromArgs(Namespace args) throws CommandLineParsingException {
+		super.setFromArgs(args);
+
+		pathInputReports = args.getList("input_report");
+		pathOutputReport = args.getString("output_report");
+	}
+
+	public List<String> getPathInputReports() {
+		return pathInputReports;
+	}
+
+	public void setPathInputReports(List<String> pathInputReports) {
+		this.pathInputReports = pathInputReports;
+	}
+
+	public String getPathOutputReport() {
+		return pathOutputReport;
+	}
+
+	public void setPathOutputReport(String pathOutputReport) {
+		this.pathOutputReport = pathOutputReport;
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarMergeStatisticsOptions [pathInputReports=" + pathInputReports + ", pathOutputReport="
+				+ pathOutputReport + "]";
+	}
+
+}
@@ -0,0 +1,61 @@
+package de.charite.compbio.jannovar.cmd.statistics;
+
+import java.io.File;
+import java.io.IOException;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarCommand;
+import de.charite.compbio.jannovar.stats.facade.StatisticsCollector;
+import de.charite.compbio.jannovar.stats.facade.StatisticsReader;
+import de.charite.compbio.jannovar.stats.facade.StatisticsWriter;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/**
+ * Jannovar command for merging reports written by {@link GatherStatisticsCommand}
+ * 
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class MergeStatisticsCommand extends JannovarCommand {
+
+	/** Configuration */
+	private JannovarMergeStatisticsOptions options;
+
+	public MergeStatisticsCommand(String argv[], Namespace args) throws CommandLineParsingException {
+		this.options = new JannovarMergeStatisticsOptions();
+		this.options.setFromArgs(args);
+	}
+
+	/**
+	 * Merge the statistics
+	 */
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		System.err.println(options.toString());
+
+		StatisticsCollector merged = null;
+		for (String path : options.getPathInputReports()) {
+			System.err.println("Reading " + path + "...");
+			final StatisticsCollector stats;
+			try {
+				stats = new StatisticsReader(new File(path)).read();
+			} catch (IOException e) {
+				throw new JannovarException("Could not read statistics report " + path, e);
+			}
+			if (merged == null)
+				merged = stats;
+			else
+				merged.merge(stats);
+		}
+
+		System.err.println("Writing out statistics...");
+		try (StatisticsWriter writer = new StatisticsWriter(merged, new File(options.getPathOutputReport()))) {
+			writer.writeStatistics();
+		} catch (IOException e) {
+			throw new JannovarException("Could not write statistics report " + options.getPathOutputReport(), e);
+		}
+		System.err.println("Wrote report to \"" + options.getPathOutputReport() + "\".");
+	}
+
+}
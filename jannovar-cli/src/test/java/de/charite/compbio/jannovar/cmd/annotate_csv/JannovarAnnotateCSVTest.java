@@ -0,0 +1,72 @@
+package de.charite.compbio.jannovar.cmd.annotate_csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.Jannovar;
+
+/**
+ * Test for annotating CSV files with <code>annotate-csv</code>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarAnnotateCSVTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	// path to file with the first 93 lines of hg19 RefSeq (up to "Gnomon exon 459822 459929").
+	private String pathToSmallSer;
+
+	@Before
+	public void setUp() throws URISyntaxException {
+		this.pathToSmallSer = this.getClass().getResource("/hg19_small.ser").toURI().getPath();
+	}
+
+	@Test
+	public void testAnnotateInParallel() throws IOException {
+		final String[] rows = new String[] { "a\tchr1\t69091\tA\tG", "b\t1\t69095\tT\tC",
+				"c\tNC_000001.10\t321052\tC\tT", "d\tchrUnknown\t100\tA\tC" };
+		List<String> inputLines = new ArrayList<>();
+		inputLines.add("name\tchrom\tpos\tref\talt");
+		for (int i = 0; i < 2500; ++i)
+			inputLines.add(rows[i % rows.length]);
+		final File input = tmpFolder.newFile("in.tsv");
+		Files.asCharSink(input, Charsets.UTF_8).write(Joiner.on('\n').join(inputLines) + "\n");
+
+		final List<String> serial = annotate(input, 1);
+		final List<String> parallel = annotate(input, 3);
+		Assert.assertEquals(serial, parallel);
+
+		// header and all records but the ones on the unknown contig
+		Assert.assertEquals(1 + 2500 - 625, parallel.size());
+		Assert.assertEquals("name\tchrom\tpos\tref\talt\tHGVS\tFunctionalClass", parallel.get(0));
+		Assert.assertEquals("a\tchr1\t69091\tA\tG\tOR4F5:NM_001005484.1:c.1A>G:p.0?\tSTART_LOST", parallel.get(1));
+		Assert.assertTrue(parallel.get(2).startsWith("b\t1\t69095\tT\tC\t"));
+		Assert.assertTrue(parallel.get(3).startsWith("c\tNC_000001.10\t321052\tC\tT\t"));
+		Assert.assertEquals(parallel.get(1), parallel.get(4));
+	}
+
+	/** @return output lines of annotating <code>input</code> with <code>threads</code> threads */
+	private List<String> annotate(File input, int threads) throws IOException {
+		final File output = tmpFolder.newFile();
+		Jannovar.main(new String[] { "annotate-csv", "-d", pathToSmallSer, "-i", input.toString(), "-c", "2", "-p",
+				"3", "-r", "4", "-a", "5", "-t", "TDF", "--header", "-o", output.toString(), "--threads",
+				Integer.toString(threads) });
+		return Files.asCharSource(output, Charsets.UTF_8).readLines();
+	}
+
+}
@@ -0,0 +1,105 @@
+package de.charite.compbio.jannovar.cmd.annotate_pos;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.Jannovar;
+
+/**
+ * Test for annotating genomic changes with <code>annotate-pos</code>, given on the command line and streamed from a
+ * file
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarAnnotatePosTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	// path to file with the first 93 lines of hg19 RefSeq (up to "Gnomon exon 459822 459929").
+	private String pathToSmallSer;
+
+	/** changes to annotate, using different contig aliases */
+	private static final String[] CHANGES = new String[] { "chr1:69091A>G", "1:69095T>C", "NC_000001.10:321052C>T",
+			"chr1:367659C>", "chr1:367660>TT" };
+
+	@Before
+	public void setUp() throws URISyntaxException {
+		this.pathToSmallSer = this.getClass().getResource("/hg19_small.ser").toURI().getPath();
+	}
+
+	@Test
+	public void testCommandLine() throws IOException {
+		final File output = tmpFolder.newFile("out.tsv");
+		List<String> argv = new ArrayList<>();
+		argv.add("annotate-pos");
+		argv.add("-d");
+		argv.add(pathToSmallSer);
+		argv.add("-o");
+		argv.add(output.toString());
+		for (String change : CHANGES) {
+			argv.add("-c");
+			argv.add(change);
+		}
+		Jannovar.main(argv.toArray(new String[0]));
+
+		final List<String> lines = Files.asCharSource(output, Charsets.UTF_8).readLines();
+		Assert.assertEquals(CHANGES.length + 1, lines.size());
+		Assert.assertEquals("#change\teffect\thgvs_annotation\tmessages", lines.get(0));
+		for (int i = 0; i < CHANGES.length; ++i)
+			Assert.assertTrue(lines.get(i + 1).startsWith(CHANGES[i] + "\t"));
+		Assert.assertEquals("chr1:69091A>G\tSTART_LOST+MISSENSE_VARIANT\tOR4F5:NM_001005484.1:c.1A>G:p.0?\t.",
+				lines.get(1));
+		// aliases of the same contig give the same annotation
+		Assert.assertEquals(lines.get(1).replace("chr1:69091A>G", "1:69091A>G"),
+				annotateSingle("1:69091A>G").get(1));
+	}
+
+	@Test
+	public void testStreamingInParallel() throws IOException {
+		// many chunks, including invalid lines that are skipped
+		List<String> inputLines = new ArrayList<>();
+		inputLines.add("# comment");
+		for (int i = 0; i < 2500; ++i) {
+			inputLines.add(CHANGES[i % CHANGES.length]);
+			if (i % 1000 == 0) {
+				inputLines.add("chrUnknown:100A>C");
+				inputLines.add("chr1:xA>C");
+			}
+		}
+		final File input = tmpFolder.newFile("in.txt");
+		Files.asCharSink(input, Charsets.UTF_8).write(Joiner.on('\n').join(inputLines) + "\n");
+		final File output = tmpFolder.newFile("out.tsv");
+		Jannovar.main(new String[] { "annotate-pos", "-d", pathToSmallSer, "-i", input.toString(), "-o",
+				output.toString(), "--threads", "3" });
+
+		List<String> expected = new ArrayList<>();
+		for (String change : CHANGES)
+			expected.add(annotateSingle(change).get(1));
+		final List<String> lines = Files.asCharSource(output, Charsets.UTF_8).readLines();
+		Assert.assertEquals(2501, lines.size());
+		for (int i = 0; i < 2500; ++i)
+			Assert.assertEquals(expected.get(i % CHANGES.length), lines.get(i + 1));
+	}
+
+	/** @return output lines of annotating <code>change</code> given on the command line */
+	private List<String> annotateSingle(String change) throws IOException {
+		final File output = tmpFolder.newFile();
+		Jannovar.main(new String[] { "annotate-pos", "-d", pathToSmallSer, "-c", change, "-o", output.toString() });
+		return Files.asCharSource(output, Charsets.UTF_8).readLines();
+	}
+
+}
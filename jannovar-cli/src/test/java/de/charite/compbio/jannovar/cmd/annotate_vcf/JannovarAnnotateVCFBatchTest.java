@@ -0,0 +1,74 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.Jannovar;
+
+/**
+ * Test for annotating multiple VCF files with <code>annotate-vcf-batch</code>
+ * 
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarAnnotateVCFBatchTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	// path to file with the first 93 lines of hg19 RefSeq (up to "Gnomon exon 459822 459929").
+	private String pathToSmallSer;
+
+	@Before
+	public void setUp() throws URISyntaxException {
+		this.pathToSmallSer = this.getClass().getResource("/hg19_small.ser").toURI().getPath();
+	}
+
+	private void assertOutputEquals(String expectedResource, File f) throws IOException, URISyntaxException {
+		Assert.assertTrue(f.exists());
+		final File expectedFile = new File(this.getClass().getResource(expectedResource).toURI().getPath());
+		final String expected = Files.asCharSource(expectedFile, Charsets.UTF_8).read();
+		final String actual = Files.asCharSource(f, Charsets.UTF_8).read()
+				.replaceAll("##jannovarCommand.*", "##jannovarCommand")
+				.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+		Assert.assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testAnnotateBatch() throws IOException, URISyntaxException {
+		final File outFolder = tmpFolder.newFolder();
+		final String inputVCFPath = this.getClass().getResource("/pedigree_vars.vcf").toURI().getPath();
+		final String pathPedAR = this.getClass().getResource("/pedigree_ar.ped").toURI().getPath();
+		final String pathPedAD = this.getClass().getResource("/pedigree_ad.ped").toURI().getPath();
+		final File outAR = new File(outFolder, "pedigree_vars.jv_ar.vcf");
+		final File outAD = new File(outFolder, "pedigree_vars.jv_ad.vcf");
+		final File outNoPed = new File(outFolder, "pedigree_vars.jv.vcf");
+
+		final File manifest = new File(outFolder, "manifest.tsv");
+		Files.asCharSink(manifest, Charsets.UTF_8).write(Joiner.on('\n').join("# input\toutput\tpedigree",
+				inputVCFPath + "\t" + outAR + "\t" + pathPedAR, inputVCFPath + "\t" + outAD + "\t" + pathPedAD,
+				inputVCFPath + "\t" + outNoPed, ""));
+
+		String[] argv = new String[] { "annotate-vcf-batch", "--manifest", manifest.toString(), "-d", pathToSmallSer,
+				"--threads", "2" };
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		assertOutputEquals("/pedigree_vars.jv_ar.vcf", outAR);
+		assertOutputEquals("/pedigree_vars.jv_ad.vcf", outAD);
+		Assert.assertTrue(outNoPed.exists());
+		Assert.assertFalse(Files.asCharSource(outNoPed, Charsets.UTF_8).read().contains("INHERITANCE"));
+	}
+
+}
@@ -0,0 +1,100 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.Jannovar;
+
+/**
+ * Test for writing per-stage pipeline metrics with <code>--metrics-file</code>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarAnnotateVCFMetricsTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	// path to file with the first 93 lines of hg19 RefSeq (up to "Gnomon exon 459822 459929").
+	private String pathToSmallSer;
+
+	@Before
+	public void setUp() throws URISyntaxException {
+		this.pathToSmallSer = this.getClass().getResource("/hg19_small.ser").toURI().getPath();
+	}
+
+	@Test
+	public void testJSONMetricsWithBedAnnotation() throws IOException, URISyntaxException {
+		final File outFolder = tmpFolder.newFolder();
+		final String inputVCFPath = this.getClass().getResource("/pedigree_vars.vcf").toURI().getPath();
+		// covers the first two of the six variants
+		final File bedFile = new File(outFolder, "features.bed");
+		Files.asCharSink(bedFile, Charsets.UTF_8).write("1\t11870\t11885\n");
+		final File outputVCF = new File(outFolder, "pedigree_vars.jv.vcf");
+		final File metricsFile = new File(outFolder, "metrics.json");
+		String[] argv = new String[] { "annotate-vcf", "-o", outputVCF.toString(), "-d", pathToSmallSer, "-i",
+				inputVCFPath, "--bed-annotation", bedFile + ":FEATURE:some feature", "--bed-annotation-in-memory",
+				"--metrics-file", metricsFile.toString() };
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		Assert.assertTrue(outputVCF.exists());
+		final String rawMetrics = Files.asCharSource(metricsFile, Charsets.UTF_8).read();
+		final String metrics = rawMetrics.replaceAll("[0-9]+\\.[0-9]+", "X")
+				.replaceAll("\"(totalNanos|allocatedBytes)\": [0-9]+", "\"$1\": X");
+		Assert.assertTrue(metrics.startsWith("{\n  \"elapsedSeconds\": X,\n  \"stages\": [\n"));
+		Assert.assertTrue(metrics.contains(
+				"{\"name\": \"read\", \"recordsIn\": 6, \"recordsOut\": 6, \"totalNanos\": X, \"allocatedBytes\": X}"));
+		Assert.assertTrue(metrics.contains("{\"name\": \"variant effects\", \"recordsIn\": 6, \"recordsOut\": 6, "
+				+ "\"totalNanos\": X, \"allocatedBytes\": X}"));
+		Assert.assertTrue(metrics.contains("{\"name\": \"BED FEATURE\", \"recordsIn\": 6, \"recordsOut\": 6, "
+				+ "\"totalNanos\": X, \"allocatedBytes\": X, \"hits\": 2, \"hitRate\": X}"));
+		Assert.assertTrue(metrics.contains(
+				"{\"name\": \"write\", \"recordsIn\": 6, \"recordsOut\": 6, \"totalNanos\": X, \"allocatedBytes\": X}"));
+		Assert.assertTrue(rawMetrics.contains("\"hitRate\": 0.333333"));
+	}
+
+	@Test
+	public void testPrometheusMetricsWithInheritance() throws IOException, URISyntaxException {
+		final File outFolder = tmpFolder.newFolder();
+		final String inputVCFPath = this.getClass().getResource("/pedigree_vars.vcf").toURI().getPath();
+		final String inputPEDPath = this.getClass().getResource("/pedigree_ar.ped").toURI().getPath();
+		final File outputVCF = new File(outFolder, "pedigree_vars.jv_ar.vcf");
+		final File metricsFile = new File(outFolder, "metrics.prom");
+		String[] argv = new String[] { "annotate-vcf", "-o", outputVCF.toString(), "-d", pathToSmallSer, "-i",
+				inputVCFPath, "--pedigree-file", inputPEDPath, "--metrics-file", metricsFile.toString() };
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		// The metrics do not change the output
+		final File expectedFile = new File(this.getClass().getResource("/pedigree_vars.jv_ar.vcf").toURI().getPath());
+		final String expected = Files.asCharSource(expectedFile, Charsets.UTF_8).read();
+		final String actual = Files.asCharSource(outputVCF, Charsets.UTF_8).read()
+				.replaceAll("##jannovarCommand.*", "##jannovarCommand")
+				.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+		Assert.assertEquals(expected, actual);
+
+		final String metrics = Files.asCharSource(metricsFile, Charsets.UTF_8).read();
+		Assert.assertTrue(metrics.contains("# TYPE jannovar_annotate_vcf_records_in_total counter\n"));
+		Assert.assertTrue(metrics.contains("jannovar_annotate_vcf_records_in_total{stage=\"inheritance\"} 6\n"));
+		Assert.assertTrue(metrics.contains("jannovar_annotate_vcf_records_out_total{stage=\"inheritance\"} 6\n"));
+		Assert.assertTrue(metrics.contains("jannovar_annotate_vcf_records_in_total{stage=\"write\"} 6\n"));
+		Assert.assertTrue(metrics.contains("jannovar_annotate_vcf_seconds_total{stage=\"variant effects\"} "));
+		// no database lookups configured
+		Assert.assertFalse(metrics.contains("jannovar_annotate_vcf_hits_total"));
+	}
+
+}
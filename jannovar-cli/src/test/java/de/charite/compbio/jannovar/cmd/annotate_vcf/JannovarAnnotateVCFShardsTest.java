@@ -0,0 +1,84 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.Jannovar;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.variant.vcf.VCFCodec;
+
+/**
+ * Test for annotating VCF files in chunks with <code>--shards</code>
+ * 
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarAnnotateVCFShardsTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	// path to file with the first 93 lines of hg19 RefSeq (up to "Gnomon exon 459822 459929").
+	private String pathToSmallSer;
+
+	@Before
+	public void setUp() throws URISyntaxException {
+		this.pathToSmallSer = this.getClass().getResource("/hg19_small.ser").toURI().getPath();
+	}
+
+	/** Write bgzip-compressed and tabix-indexed copy of resource <code>name</code> to <code>target</code> */
+	private void bgzipAndIndex(String name, File target) throws IOException {
+		try (InputStream in = this.getClass().getResourceAsStream(name);
+				OutputStream out = new BlockCompressedOutputStream(target)) {
+			ByteStreams.copy(in, out);
+		}
+		IndexFactory.createTabixIndex(target, new VCFCodec(), TabixFormat.VCF, null).writeBasedOnFeatureFile(target);
+	}
+
+	@Test
+	public void testAnnotateARSharded() throws IOException, URISyntaxException {
+		final File outFolder = tmpFolder.newFolder();
+		final File inputVCF = new File(outFolder, "pedigree_vars.vcf.gz");
+		bgzipAndIndex("/pedigree_vars.vcf", inputVCF);
+		final String inputPEDPath = this.getClass().getResource("/pedigree_ar.ped").toURI().getPath();
+		final File outputVCF = new File(outFolder, "pedigree_vars.jv_ar.vcf.gz");
+		String[] argv = new String[] { "annotate-vcf", "-o", outputVCF.toString(), "-d", pathToSmallSer, "-i",
+				inputVCF.toString(), "--pedigree-file", inputPEDPath, "--shards", "3", "--threads", "2" };
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		Assert.assertTrue(outputVCF.exists());
+		Assert.assertTrue(new File(outputVCF.getPath() + ".tbi").exists());
+		// input and output with indices, no temporary files left
+		Assert.assertEquals(4, outFolder.list().length);
+
+		final File expectedFile = new File(this.getClass().getResource("/pedigree_vars.jv_ar.vcf").toURI().getPath());
+		final String expected = Files.asCharSource(expectedFile, Charsets.UTF_8).read();
+		final String actual;
+		try (InputStream in = new BlockCompressedInputStream(new FileInputStream(outputVCF))) {
+			actual = new String(ByteStreams.toByteArray(in), Charsets.UTF_8)
+					.replaceAll("##jannovarCommand.*", "##jannovarCommand")
+					.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+		}
+		Assert.assertEquals(expected, actual);
+	}
+
+}
@@ -0,0 +1,73 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ObjectArrays;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.Jannovar;
+
+/**
+ * Test for selecting the transcripts to load with <code>--only-transcripts</code> and <code>--only-coding</code>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarAnnotateVCFTranscriptFilterTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	// path to file with the first 93 lines of hg19 RefSeq (up to "Gnomon exon 459822 459929").
+	private String pathToSmallSer;
+
+	@Before
+	public void setUp() throws URISyntaxException {
+		this.pathToSmallSer = this.getClass().getResource("/hg19_small.ser").toURI().getPath();
+	}
+
+	/** Run annotate-vcf on small.vcf with the given additional arguments and return the output */
+	private String annotateSmall(String... args) throws IOException, URISyntaxException {
+		final File outputVCF = new File(tmpFolder.newFolder(), "small.jv.vcf");
+		final String inputFilePath = this.getClass().getResource("/small.vcf").toURI().getPath();
+		String[] argv = new String[] { "annotate-vcf", "-o", outputVCF.toString(), "-d", pathToSmallSer, "-i",
+				inputFilePath };
+		argv = ObjectArrays.concat(argv, args, String.class);
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		Assert.assertTrue(outputVCF.exists());
+		return Files.asCharSource(outputVCF, Charsets.UTF_8).read()
+				.replaceAll("##jannovarCommand.*", "##jannovarCommand")
+				.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+	}
+
+	@Test
+	public void testOnlySelectedTranscript() throws IOException, URISyntaxException {
+		// versionless accession of the transcript in the gold standard, together with a gene not in the database
+		final String actual = annotateSmall("--only-transcripts", "XR_246673", "--only-genes",
+				"LOC100132287,NOT_A_GENE");
+
+		final File expectedFile = new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath());
+		Assert.assertEquals(Files.asCharSource(expectedFile, Charsets.UTF_8).read(), actual);
+	}
+
+	@Test
+	public void testOnlyCoding() throws IOException, URISyntaxException {
+		final String actual = annotateSmall("--only-coding");
+
+		Assert.assertFalse(actual.contains("XR_246673.1"));
+		Assert.assertFalse(actual.contains("non_coding_transcript_exon_variant"));
+	}
+
+}
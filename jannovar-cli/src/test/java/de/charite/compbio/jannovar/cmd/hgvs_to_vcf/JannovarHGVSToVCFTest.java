@@ -0,0 +1,138 @@
+package de.charite.compbio.jannovar.cmd.hgvs_to_vcf;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.Jannovar;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+
+/**
+ * Test for converting HGVS strings to VCF with <code>hgvs-to-vcf</code>, using the FBN1 transcript on the reverse
+ * strand
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarHGVSToVCFTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** path to database with the FBN1 transcript */
+	private String pathToSer;
+	/** path to FASTA file with the FBN1 region, with .fai and .dict file */
+	private String pathToFASTA;
+	/** input file with HGVS strings */
+	private File input;
+	/** number of HGVS strings in {@link #input} */
+	private int numLines;
+
+	@Before
+	public void setUp() throws URISyntaxException, IOException {
+		this.pathToSer = this.getClass().getResource("/ex_fbn1/mini_fbn1.ser").toURI().getPath();
+		this.pathToFASTA = this.getClass().getResource("/ex_fbn1/ref.fa").toURI().getPath();
+
+		// more lines than fit into one chunk, positions not sorted, with a line that cannot be parsed
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < 2500; ++i)
+			lines.add("NM_000138.4:c." + (1 + (i * 997) % 8000) + "del");
+		lines.set(1234, "NM_000138.4:c.7339G>");
+		numLines = lines.size();
+		input = tmpFolder.newFile("in.txt");
+		Files.asCharSink(input, Charsets.UTF_8).write(String.join("\n", lines) + "\n");
+	}
+
+	@Test
+	public void testInputOrderIndependentOfThreads() throws IOException {
+		final List<String> single = convert(tmpFolder.newFile("single.vcf"), "--threads", "1");
+		final List<String> multi = convert(tmpFolder.newFile("multi.vcf"), "--threads", "3");
+		Assert.assertEquals(numLines, single.size());
+		Assert.assertEquals(single, multi);
+		Assert.assertTrue(single.get(1234).contains("PARSE_ERROR"));
+	}
+
+	@Test
+	public void testPreloadExonsWithCacheSize() throws IOException {
+		final List<String> expected = convert(tmpFolder.newFile("default.vcf"), "--threads", "1");
+		final List<String> preloaded = convert(tmpFolder.newFile("preloaded.vcf"), "--threads", "2",
+				"--preload-exons", "--reference-cache-size", "1");
+		Assert.assertEquals(expected, preloaded);
+	}
+
+	@Test
+	public void testCoordinateOrder() throws IOException {
+		final File output = new File(tmpFolder.getRoot(), "sorted.vcf.gz");
+		convert(output, "--threads", "2", "--output-order", "coordinate", "--tmp-dir",
+				tmpFolder.newFolder().toString());
+		Assert.assertTrue(new File(output + ".tbi").exists());
+
+		int count = 0;
+		int lastPos = 0;
+		try (VCFFileReader reader = new VCFFileReader(output, true)) {
+			for (VariantContext vc : reader) {
+				Assert.assertTrue(vc.getStart() >= lastPos);
+				lastPos = vc.getStart();
+				++count;
+			}
+			// the index can be queried
+			Assert.assertTrue(reader.query("ref", 1, 500001).hasNext());
+		}
+		Assert.assertEquals(numLines, count);
+	}
+
+	@Test
+	public void testProteinChange() throws IOException {
+		input = tmpFolder.newFile("protein.txt");
+		Files.asCharSink(input, Charsets.UTF_8)
+				.write("NM_000138.4:p.Cys1Met\nNM_000138.4:p.Cys1Ala\nNM_000138.4:p.Glu1del\n");
+		final List<String> lines = convert(tmpFolder.newFile("protein.vcf"), "--threads", "2");
+
+		// one MNV for Cys1Met, four MNVs for Cys1Ala with the shortest one first
+		Assert.assertTrue(lines.get(0).startsWith("ref\t436964\t.\tGCA\tCAT\t"));
+		Assert.assertTrue(lines.get(0).contains("ORIG_VAR=NM_000138.4%3Ap.Cys1Met"));
+		Assert.assertTrue(lines.get(1).startsWith("ref\t436965\t.\tCA\tGC\t"));
+		for (int i = 1; i < lines.size() - 1; ++i)
+			Assert.assertTrue(lines.get(i).contains("ORIG_VAR=NM_000138.4%3Ap.Cys1Ala"));
+		// unsupported protein changes are errors
+		Assert.assertEquals(6, lines.size());
+		Assert.assertTrue(lines.get(5).contains("PARSE_ERROR"));
+	}
+
+	/** Run <code>hgvs-to-vcf</code> and return the non-header lines of the output */
+	private List<String> convert(File output, String... args) throws IOException {
+		List<String> argv = new ArrayList<>();
+		argv.add("hgvs-to-vcf");
+		argv.add("-d");
+		argv.add(pathToSer);
+		argv.add("-r");
+		argv.add(pathToFASTA);
+		argv.add("-i");
+		argv.add(input.toString());
+		argv.add("-o");
+		argv.add(output.toString());
+		for (String arg : args)
+			argv.add(arg);
+		Jannovar.main(argv.toArray(new String[0]));
+
+		if (output.getName().endsWith(".gz"))
+			return null;
+		List<String> result = new ArrayList<>();
+		for (String line : Files.asCharSource(output, Charsets.UTF_8).readLines())
+			if (!line.startsWith("#"))
+				result.add(line);
+		return result;
+	}
+
+}
@@ -0,0 +1,79 @@
+package de.charite.compbio.jannovar.cmd.statistics;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.charite.compbio.jannovar.Jannovar;
+
+/**
+ * Test for gathering statistics with <code>statistics</code> on multiple threads
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarGatherStatisticsTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** sample names, sorted */
+	private static final String[] SAMPLES = { "A", "B", "C", "D", "E", "F", "G", "H" };
+
+	/** genotypes to draw from */
+	private static final String[] GENOTYPES = { "0/0", "0/1", "1/1", "./." };
+
+	// path to file with the first 93 lines of hg19 RefSeq (up to "Gnomon exon 459822 459929").
+	private String pathToSmallSer;
+
+	/** multi-sample VCF file with random genotypes */
+	private File inputVCF;
+
+	@Before
+	public void setUp() throws URISyntaxException, IOException {
+		this.pathToSmallSer = this.getClass().getResource("/hg19_small.ser").toURI().getPath();
+
+		final Random rng = new Random(42);
+		List<String> lines = new ArrayList<>();
+		lines.add("##fileformat=VCFv4.2");
+		lines.add("##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">");
+		lines.add("##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Read depth\">");
+		lines.add("##contig=<ID=1,length=249250621>");
+		lines.add("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\t" + String.join("\t", SAMPLES));
+		for (int i = 0; i < 5000; ++i) {
+			StringBuilder line = new StringBuilder();
+			line.append("1\t").append(10000 + 90 * i).append("\t.\tA\t").append(i % 2 == 0 ? "C" : "G")
+					.append("\t100\tPASS\t.\tGT:DP");
+			for (int j = 0; j < SAMPLES.length; ++j)
+				line.append('\t').append(GENOTYPES[rng.nextInt(GENOTYPES.length)]).append(':')
+						.append(rng.nextInt(100));
+			lines.add(line.toString());
+		}
+		inputVCF = tmpFolder.newFile("input.vcf");
+		Files.write(inputVCF.toPath(), lines, StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testSameResultOnMultipleThreads() throws IOException {
+		Assert.assertEquals(gatherStatistics("1"), gatherStatistics("4"));
+	}
+
+	/** @return report of the <code>statistics</code> command with <code>threads</code> threads */
+	private String gatherStatistics(String threads) throws IOException {
+		final File report = new File(tmpFolder.getRoot(), "report." + threads + ".txt");
+		Jannovar.main(new String[] { "statistics", "-d", pathToSmallSer, "-i", inputVCF.toString(), "-o",
+				report.toString(), "--threads", threads });
+		return new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+	}
+
+}
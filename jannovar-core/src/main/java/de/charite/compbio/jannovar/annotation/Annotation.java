@@ -54,9 +54,15 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 	/** variant types, sorted by internal pathogenicity score */
 	private final ImmutableSortedSet<VariantEffect> effects;
 
+	/** bit mask of {@link #effects}, see {@link VariantEffect#getMask} */
+	private final long effectMask;
+
 	/** errors and warnings */
 	private final ImmutableSortedSet<AnnotationMessage> messages;
 
+	/** bit mask of {@link #messages}, see {@link AnnotationMessage#getMask} */
+	private final long messageMask;
+
 	/** location of the annotation, <code>null</code> if not even nearby a {@link TranscriptModel} */
 	private final AnnotationLocation annoLoc;
 
@@ -144,12 +150,14 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 			this.effects = ImmutableSortedSet.<VariantEffect> of();
 		else
 			this.effects = ImmutableSortedSet.copyOf(varTypes);
+		this.effectMask = VariantEffect.toMask(this.effects);
 		this.annoLoc = annoLoc;
 		this.genomicNTChange = genomicNTChange;
 		this.cdsNTChange = cdsNTChange;
 		this.proteinChange = proteinChange;
 		this.transcript = transcript;
 		this.messages = ImmutableSortedSet.copyOf(messages);
+		this.messageMask = AnnotationMessage.toMask(this.messages);
 	}
 
 	/** @return the annotated {@link GenomeVariant} */
@@ -167,6 +175,16 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 		return messages;
 	}
 
+	/** @return bit mask of {@link #getEffects}, for use with the masks in {@link VariantEffect} */
+	public long getEffectMask() {
+		return effectMask;
+	}
+
+	/** @return bit mask of {@link #getMessages} */
+	public long getMessageMask() {
+		return messageMask;
+	}
+
 	/** @return location of the annotation, <code>null</code> if not even nearby a {@link TranscriptModel} */
 	public AnnotationLocation getAnnoLoc() {
 		return annoLoc;
@@ -243,13 +261,9 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 	 * @return highest {@link PutativeImpact} of all {@link #getEffects}.
 	 */
 	public PutativeImpact getPutativeImpact() {
-		if (effects.isEmpty())
-			return null;
-		VariantEffect worst = effects.first();
-		for (VariantEffect vt : effects)
-			if (worst.getImpact().compareTo(vt.getImpact()) > 0)
-				worst = vt;
-		return worst.getImpact();
+		// the effects are sorted by impact, so the most pathogenic one has the highest impact
+		final VariantEffect worst = VariantEffect.firstInMask(effectMask);
+		return (worst == null) ? null : worst.getImpact();
 	}
 
 	/**
@@ -326,9 +340,7 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 	 */
 	// TODO: rename to getMostPathogenicVariantEffect
 	public VariantEffect getMostPathogenicVarType() {
-		if (effects.isEmpty())
-			return null;
-		return effects.first();
+		return VariantEffect.firstInMask(effectMask);
 	}
 
 	@Override
@@ -418,15 +430,7 @@ public final class Annotation implements VariantDescription, Comparable<Annotati
 				return false;
 		} else if (!annoLoc.equals(other.annoLoc))
 			return false;
-		if (effects == null) {
-			if (other.effects != null)
-				return false;
-		} else if (!effects.equals(other.effects))
-			return false;
-		if (messages == null) {
-			if (other.messages != null)
-				return false;
-		} else if (!messages.equals(other.messages))
+		if (effectMask != other.effectMask || messageMask != other.messageMask)
 			return false;
 		if (cdsNTChange == null) {
 			if (other.cdsNTChange != null)
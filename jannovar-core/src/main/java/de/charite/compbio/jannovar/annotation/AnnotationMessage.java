@@ -63,5 +63,24 @@ public enum AnnotationMessage {
 	 */
 	ERROR_PROBLEM_DURING_ANNOTATION,
 	/** AnnotationMessage not encoded in enum. */
-	OTHER_MESSAGE
+	OTHER_MESSAGE;
+
+	/**
+	 * @return bit mask with the bit for this {@link AnnotationMessage} set
+	 */
+	public long getMask() {
+		return 1L << ordinal();
+	}
+
+	/**
+	 * @param messages
+	 *            {@link AnnotationMessage} values to build the mask for
+	 * @return bit mask with the bits of <code>messages</code> set
+	 */
+	public static long toMask(Iterable<AnnotationMessage> messages) {
+		long result = 0;
+		for (AnnotationMessage message : messages)
+			result |= message.getMask();
+		return result;
+	}
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideChange;
 import de.charite.compbio.jannovar.hgvs.protein.change.ProteinChange;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
 import de.charite.compbio.jannovar.reference.ProjectionException;
+import de.charite.compbio.jannovar.reference.TranscriptContext;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
 import de.charite.compbio.jannovar.reference.TranscriptPosition;
 import de.charite.compbio.jannovar.reference.TranscriptProjectionDecorator;
@@ -67,7 +68,7 @@ class VCFAnnotationData {
 		}
 
 		final TranscriptModel transcript = annoLoc.getTranscript();
-		final TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
+		final TranscriptProjectionDecorator projector = TranscriptContext.forTranscript(transcript).getProjector();
 		final TranscriptPosition txPos;
 		if (annoLoc != null && annoLoc.getTXLocation().length() == 0)
 			txPos = annoLoc.getTXLocation().getTranscriptBeginPos().shifted(-1); // change length == 0, insertion
@@ -92,10 +92,10 @@ public final class VariantAnnotations implements VariantDescription {
 	 */
 	public VariantEffect getHighestImpactEffect() {
 		final Annotation anno = getHighestImpactAnnotation();
-		if (anno == null || anno.getEffects().isEmpty())
+		if (anno == null || anno.getEffectMask() == 0)
 			return VariantEffect.SEQUENCE_VARIANT;
 		else
-			return anno.getEffects().first();
+			return anno.getMostPathogenicVarType();
 	}
 
 	@Override
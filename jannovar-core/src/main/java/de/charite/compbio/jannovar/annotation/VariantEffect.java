@@ -514,6 +514,44 @@ public enum VariantEffect {
 		}
 	};
 
+	//
+	// Bit masks of VariantEffect values
+	//
+	// A set of VariantEffect values can be represented as a long with bit i set for the value with ordinal i. As the
+	// values are given in the order of impact, the lowest set bit is the most pathogenic effect. The following masks
+	// allow classifying such sets with single bit operations.
+	//
+
+	/** the values of this enum, indexed by ordinal */
+	private static final VariantEffect[] VALUES = values();
+
+	/** bit mask of the effects that change the coding sequence */
+	public static final long CODING_MASK = maskOf(CODING_SEQUENCE_VARIANT, COMPLEX_SUBSTITUTION,
+			DISRUPTIVE_INFRAME_DELETION, DISRUPTIVE_INFRAME_INSERTION, FEATURE_TRUNCATION, FRAMESHIFT_ELONGATION,
+			FRAMESHIFT_TRUNCATION, FRAMESHIFT_VARIANT, INFRAME_DELETION, INFRAME_INSERTION, INITIATOR_CODON_VARIANT,
+			INTERNAL_FEATURE_ELONGATION, MISSENSE_VARIANT, MNV, RARE_AMINO_ACID_VARIANT, START_LOST, STOP_GAINED,
+			STOP_LOST, STOP_RETAINED_VARIANT, SYNONYMOUS_VARIANT);
+
+	/** bit mask of the effects for which {@link #isSplicing} returns <code>true</code> */
+	public static final long SPLICING_MASK = maskOf(SPLICING_VARIANT, SPLICE_ACCEPTOR_VARIANT, SPLICE_DONOR_VARIANT,
+			SPLICE_REGION_VARIANT);
+
+	/** bit mask of the UTR exon effects, these are off-exome if requested in {@link #isOffExome(boolean, boolean)} */
+	public static final long UTR_MASK = maskOf(FIVE_PRIME_UTR_TRUNCATION, THREE_PRIME_UTR_TRUNCATION,
+			FIVE_PRIME_UTR_EXON_VARIANT, THREE_PRIME_UTR_EXON_VARIANT);
+
+	/**
+	 * bit mask of the non-consensus splice effects, these are off-exome if requested in
+	 * {@link #isOffExome(boolean, boolean)}
+	 */
+	public static final long SPLICE_NON_CONSENSUS_MASK = maskOf(SPLICE_REGION_VARIANT, SPLICING_VARIANT);
+
+	/** bit mask of the effects that are off-exome, regardless of the UTR and splice settings */
+	public static final long OFF_EXOME_MASK = maskOf(e -> e.isOffExome(false, false));
+
+	/** bit mask of the effects for which {@link #isOffTranscript} returns <code>true</code> */
+	public static final long OFF_TRANSCRIPT_MASK = maskOf(VariantEffect::isOffTranscript);
+
 	/**
 	 * @return <code>true</code> if the effect type denotes a frameshift variant (can only return <code>true</code> only
 	 *         small variants, spanning at most one exon, are considered).
@@ -906,6 +944,74 @@ public enum VariantEffect {
 		return ordinal();
 	}
 
+	/**
+	 * @return bit mask with the bit for this {@link VariantEffect} set
+	 */
+	public long getMask() {
+		return 1L << ordinal();
+	}
+
+	/**
+	 * @param effects
+	 *            {@link VariantEffect} values to build the mask for
+	 * @return bit mask with the bits of <code>effects</code> set
+	 */
+	public static long toMask(Iterable<VariantEffect> effects) {
+		long result = 0;
+		for (VariantEffect effect : effects)
+			result |= effect.getMask();
+		return result;
+	}
+
+	/**
+	 * @param mask
+	 *            bit mask of {@link VariantEffect} values
+	 * @return most pathogenic {@link VariantEffect} in <code>mask</code>, <code>null</code> if <code>mask</code> is
+	 *         empty
+	 */
+	public static VariantEffect firstInMask(long mask) {
+		if (mask == 0)
+			return null;
+		return VALUES[Long.numberOfTrailingZeros(mask)];
+	}
+
+	/**
+	 * Mask-based variant of {@link #isOffExome(boolean, boolean)} for a set of effects.
+	 *
+	 * @param mask
+	 *            bit mask of {@link VariantEffect} values
+	 * @param isUtrOffExome
+	 *            whether or not UTR exons are considered off-exome
+	 * @param isIntronicSpliceNonConsensusOffExome
+	 *            whether or not intronic splice (non consensus) is considered off-exome
+	 * @return <code>true</code> if all effects in <code>mask</code> are off-exome, also if <code>mask</code> is empty
+	 */
+	public static boolean isOffExome(long mask, boolean isUtrOffExome, boolean isIntronicSpliceNonConsensusOffExome) {
+		long offExome = OFF_EXOME_MASK;
+		if (isUtrOffExome)
+			offExome |= UTR_MASK;
+		if (isIntronicSpliceNonConsensusOffExome)
+			offExome |= SPLICE_NON_CONSENSUS_MASK;
+		return (mask & ~offExome) == 0;
+	}
+
+	/** @return bit mask with the bits of <code>effects</code> set */
+	private static long maskOf(VariantEffect... effects) {
+		long result = 0;
+		for (VariantEffect effect : effects)
+			result |= effect.getMask();
+		return result;
+	}
+
+	/** @return bit mask with the bits of the values matching <code>predicate</code> set */
+	private static long maskOf(Predicate<VariantEffect> predicate) {
+		long result = 0;
+		for (VariantEffect effect : VALUES)
+			if (predicate.apply(effect))
+				result |= effect.getMask();
+		return result;
+	}
+
 	/**
 	 * @return <code>true</code> if this {@link VariantEffect} annotates structural variants.
 	 */
@@ -23,9 +23,12 @@ import de.charite.compbio.jannovar.reference.GenomePosition;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
 import de.charite.compbio.jannovar.reference.GenomeVariantNormalizer;
 import de.charite.compbio.jannovar.reference.NucleotidePointLocationBuilder;
+import de.charite.compbio.jannovar.reference.PackedGenomePosition;
 import de.charite.compbio.jannovar.reference.ProjectionException;
+import de.charite.compbio.jannovar.reference.TranscriptContext;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
 import de.charite.compbio.jannovar.reference.TranscriptProjectionDecorator;
+import de.charite.compbio.jannovar.reference.TranscriptRegionIndex;
 import de.charite.compbio.jannovar.reference.TranscriptSequenceChangeHelper;
 import de.charite.compbio.jannovar.reference.TranscriptSequenceDecorator;
 import de.charite.compbio.jannovar.reference.TranscriptSequenceOntologyDecorator;
@@ -56,6 +59,9 @@ abstract class AnnotationBuilder {
 	/** genome change to use for annotation */
 	protected final GenomeVariant change;
 
+	/** decorators and derived data of {@link #transcript}, shared with other builders of the same thread */
+	protected final TranscriptContext context;
+
 	/** helper for sequence ontology terms */
 	protected final TranscriptSequenceOntologyDecorator so;
 	/** helper for coordinate transformations */
@@ -91,10 +97,11 @@ abstract class AnnotationBuilder {
 		change = change.withStrand(transcript.getStrand());
 		this.transcript = transcript;
 
-		this.so = new TranscriptSequenceOntologyDecorator(transcript);
-		this.projector = new TranscriptProjectionDecorator(transcript);
-		this.seqChangeHelper = new TranscriptSequenceChangeHelper(transcript);
-		this.seqDecorator = new TranscriptSequenceDecorator(transcript);
+		this.context = TranscriptContext.forTranscript(transcript);
+		this.so = context.getSODecorator();
+		this.projector = context.getProjector();
+		this.seqChangeHelper = context.getSeqChangeHelper();
+		this.seqDecorator = context.getSeqDecorator();
 
 		// Shift the GenomeChange if lies within precisely one exon.
 		if (so.liesInExon(change.getGenomeInterval())) {
@@ -169,15 +176,16 @@ abstract class AnnotationBuilder {
 			else
 				varTypes.add(VariantEffect.NON_CODING_TRANSCRIPT_INTRON_VARIANT);
 		} else {
+			final int regions = so.getRegionsOverlapping(changeInterval);
 			// Check for being a splice site variant. The splice donor, acceptor, and region intervals are disjoint.
-			if (so.overlapsWithSpliceDonorSite(changeInterval))
+			if ((regions & TranscriptRegionIndex.SPLICE_DONOR) != 0)
 				varTypes.addAll(ImmutableList.of(VariantEffect.SPLICE_DONOR_VARIANT));
-			else if (so.overlapsWithSpliceAcceptorSite(changeInterval))
+			else if ((regions & TranscriptRegionIndex.SPLICE_ACCEPTOR) != 0)
 				varTypes.addAll(ImmutableList.of(VariantEffect.SPLICE_ACCEPTOR_VARIANT));
-			else if (so.overlapsWithSpliceRegion(changeInterval))
+			else if ((regions & TranscriptRegionIndex.SPLICE_REGION) != 0)
 				varTypes.addAll(ImmutableList.of(VariantEffect.SPLICE_REGION_VARIANT));
 			// Check for being in intron/exon.
-			if (so.overlapsWithExon(changeInterval))
+			if ((regions & TranscriptRegionIndex.EXON) != 0)
 				varTypes.add(VariantEffect.NON_CODING_TRANSCRIPT_EXON_VARIANT);
 			else
 				varTypes.add(VariantEffect.NON_CODING_TRANSCRIPT_INTRON_VARIANT);
@@ -206,12 +214,13 @@ abstract class AnnotationBuilder {
 				varTypes.addAll(ImmutableList.of(VariantEffect.SPLICE_REGION_VARIANT));
 		} else {
 			GenomeInterval changeInterval = change.getGenomeInterval();
+			final int regions = so.getRegionsOverlapping(changeInterval);
 			// Check for being a splice site variant. The splice donor, acceptor, and region intervals are disjoint.
-			if (so.overlapsWithSpliceDonorSite(changeInterval))
+			if ((regions & TranscriptRegionIndex.SPLICE_DONOR) != 0)
 				varTypes.addAll(ImmutableList.of(VariantEffect.SPLICE_DONOR_VARIANT));
-			else if (so.overlapsWithSpliceAcceptorSite(changeInterval))
+			else if ((regions & TranscriptRegionIndex.SPLICE_ACCEPTOR) != 0)
 				varTypes.addAll(ImmutableList.of(VariantEffect.SPLICE_ACCEPTOR_VARIANT));
-			else if (so.overlapsWithSpliceRegion(changeInterval))
+			else if ((regions & TranscriptRegionIndex.SPLICE_REGION) != 0)
 				varTypes.addAll(ImmutableList.of(VariantEffect.SPLICE_REGION_VARIANT));
 		}
 		// intronic variants have no effect on the protein but splice variants lead to "probably no protein produced"
@@ -266,17 +275,18 @@ abstract class AnnotationBuilder {
 			}
 		} else {
 			GenomeInterval changeInterval = change.getGenomeInterval();
+			final int regions = so.getRegionsOverlapping(changeInterval);
 			// Check for being a splice site variant. The splice donor, acceptor, and region intervals are disjoint.
-			if (so.overlapsWithSpliceDonorSite(changeInterval))
+			if ((regions & TranscriptRegionIndex.SPLICE_DONOR) != 0)
 				varTypes.addAll(ImmutableList.of(VariantEffect.SPLICE_DONOR_VARIANT));
-			else if (so.overlapsWithSpliceAcceptorSite(changeInterval))
+			else if ((regions & TranscriptRegionIndex.SPLICE_ACCEPTOR) != 0)
 				varTypes.addAll(ImmutableList.of(VariantEffect.SPLICE_ACCEPTOR_VARIANT));
-			else if (so.overlapsWithSpliceRegion(changeInterval))
+			else if ((regions & TranscriptRegionIndex.SPLICE_REGION) != 0)
 				varTypes.addAll(ImmutableList.of(VariantEffect.SPLICE_REGION_VARIANT));
 			// Check for being in 5' or 3' UTR.
-			if (so.overlapsWithFivePrimeUTR(changeInterval)) {
+			if ((regions & TranscriptRegionIndex.FIVE_PRIME_UTR) != 0) {
 				// Check if variant overlaps really with an UTR
-				if (so.overlapsWithExon(changeInterval))
+				if ((regions & TranscriptRegionIndex.EXON) != 0)
 					varTypes.add(VariantEffect.FIVE_PRIME_UTR_EXON_VARIANT);
 				else {
 					// between two UTRs. check for coding or non-coding transcript.
@@ -287,7 +297,7 @@ abstract class AnnotationBuilder {
 				}
 			} else {
 				// Check if variant overlaps really with an UTR
-				if (so.overlapsWithExon(changeInterval))
+				if ((regions & TranscriptRegionIndex.EXON) != 0)
 					varTypes.add(VariantEffect.THREE_PRIME_UTR_EXON_VARIANT);
 				else {
 					// between two UTRs. check for coding or non-coding transcript.
@@ -344,8 +354,6 @@ abstract class AnnotationBuilder {
 	 */
 	private AnnotationLocation buildLocAnno(TranscriptModel transcript, GenomeVariant change) {
 		// System.err.println("ACCESSION\t" + transcript.accession);
-		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
 
 		AnnotationLocationBuilder locBuilder = new AnnotationLocationBuilder();
 		locBuilder.setTranscript(transcript);
@@ -356,11 +364,11 @@ abstract class AnnotationBuilder {
 
 		if (change.getGenomeInterval().length() == 0) {
 			// no base is changed => insertion
-			GenomePosition changePos = change.getGenomeInterval().getGenomeBeginPos();
-			GenomePosition lPos = changePos.shifted(-1);
+			final long changePos = PackedGenomePosition.beginOf(change.getGenomeInterval());
+			final long lPos = PackedGenomePosition.shifted(changePos, -1);
 
 			// Handle the cases for which no exon and no intron number is available.
-			if (!soDecorator.liesInExon(changePos) && !soDecorator.liesInIntron(changePos))
+			if (!so.liesInExon(changePos) && !so.liesInIntron(changePos))
 				return locBuilder.build(); // no exon information if change pos does not lie in exon
 
 			final int exonNum = projector.locateExon(changePos);
@@ -385,14 +393,13 @@ abstract class AnnotationBuilder {
 			throw new Error("Bug: position should be in exon if we reach here");
 		} else {
 			// at least one base is changed
-			GenomePosition firstChangePos = change.getGenomeInterval().getGenomeBeginPos();
-			GenomeInterval firstChangeBase = new GenomeInterval(firstChangePos, 1);
-			GenomePosition lastChangePos = change.getGenomeInterval().getGenomeEndPos().shifted(-1);
-			GenomeInterval lastChangeBase = new GenomeInterval(lastChangePos, 1);
+			final long firstChangePos = PackedGenomePosition.beginOf(change.getGenomeInterval());
+			final long lastChangePos = PackedGenomePosition.shifted(PackedGenomePosition.endOf(change.getGenomeInterval()),
+					-1);
 
 			// Handle the cases for which no exon and no intron number is available.
-			if ((!soDecorator.liesInExon(firstChangeBase) || !soDecorator.liesInExon(lastChangeBase))
-					&& (!soDecorator.liesInIntron(firstChangeBase) || !soDecorator.liesInIntron(lastChangeBase)))
+			if ((!so.liesInExon(firstChangePos) || !so.liesInExon(lastChangePos))
+					&& (!so.liesInIntron(firstChangePos) || !so.liesInIntron(lastChangePos)))
 				return locBuilder.build(); // no exon/intron information if change pos does not lie in exon
 			final int intronNum = projector.locateIntron(firstChangePos);
 			if (intronNum != TranscriptProjectionDecorator.INVALID_EXON_ID) {
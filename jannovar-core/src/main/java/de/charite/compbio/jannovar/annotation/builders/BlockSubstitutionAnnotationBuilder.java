@@ -109,8 +109,8 @@ public final class BlockSubstitutionAnnotationBuilder extends AnnotationBuilder
 
 		final Translator t = Translator.getTranslator();
 
-		final String wtCDSSeq;
-		final String varCDSSeq;
+		final CharSequence wtCDSSeq;
+		final CharSequence varCDSSeq;
 		final int delFrameShift;
 
 		final String wtAASeq;
@@ -137,12 +137,12 @@ public final class BlockSubstitutionAnnotationBuilder extends AnnotationBuilder
 
 		public CDSExonicAnnotationBuilder() {
 			this.changeInterval = change.getGenomeInterval();
-			this.wtCDSSeq = projector.getTranscriptStartingAtCDS();
-			this.varCDSSeq = seqChangeHelper.getCDSWithGenomeVariant(change);
+			this.wtCDSSeq = context.getCDSView();
+			this.varCDSSeq = seqChangeHelper.getCDSViewWithGenomeVariant(change);
 			this.delFrameShift = (varCDSSeq.length() - wtCDSSeq.length()) % 3;
 
 			// Translate the variant CDS sequence.
-			this.wtAASeq = t.translateDNA(wtCDSSeq);
+			this.wtAASeq = context.getWildTypeProtein();
 			this.varAASeq = t.translateDNA(varCDSSeq);
 
 			// Get the reference change begin position as CDS coordinate, handling introns and positions outside of CDS.
@@ -104,8 +104,8 @@ public final class DeletionAnnotationBuilder extends AnnotationBuilder {
 
 		final Translator t = Translator.getTranslator();
 
-		final String wtCDSSeq;
-		final String varCDSSeq;
+		final CharSequence wtCDSSeq;
+		final CharSequence varCDSSeq;
 		final int delFrameShift;
 
 		final String wtAASeq;
@@ -127,8 +127,8 @@ public final class DeletionAnnotationBuilder extends AnnotationBuilder {
 
 		public CDSExonicAnnotationBuilder() {
 			this.changeInterval = change.getGenomeInterval();
-			this.wtCDSSeq = projector.getTranscriptStartingAtCDS();
-			this.varCDSSeq = seqChangeHelper.getCDSWithGenomeVariant(change);
+			this.wtCDSSeq = context.getCDSView();
+			this.varCDSSeq = seqChangeHelper.getCDSViewWithGenomeVariant(change);
 			this.delFrameShift = DeletionAnnotationBuilder.this.change.getRef().length() % 3;
 
 			// Get the change begin position as CDS coordinate, handling introns and positions outside of CDS.
@@ -136,7 +136,7 @@ public final class DeletionAnnotationBuilder extends AnnotationBuilder {
 			this.changeLastPos = projector.projectGenomeToCDSPosition(changeInterval.getGenomeEndPos().shifted(-1));
 
 			// Translate the variant CDS sequence and look for stop codon.
-			this.wtAASeq = t.translateDNA(wtCDSSeq);
+			this.wtAASeq = context.getWildTypeProtein();
 			this.varAASeq = t.translateDNA(varCDSSeq);
 			this.varAAStopPos = varAASeq.indexOf('*', this.changeBeginPos.getPos() / 3);
 
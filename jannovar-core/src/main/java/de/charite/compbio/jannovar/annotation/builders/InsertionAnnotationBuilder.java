@@ -148,9 +148,9 @@ public final class InsertionAnnotationBuilder extends AnnotationBuilder {
 		final Translator t = Translator.getTranslator();
 
 		// wild type CDS nucleotide sequence
-		final String wtCDSSeq;
+		final CharSequence wtCDSSeq;
 		// variant CDS nucleotide sequence
-		final String varCDSSeq;
+		final CharSequence varCDSSeq;
 
 		// wild type amino acid sequence
 		final String wtAASeq;
@@ -177,14 +177,14 @@ public final class InsertionAnnotationBuilder extends AnnotationBuilder {
 		ProteinChange proteinChange;
 
 		public CDSExonicAnnotationBuilder() {
-			this.wtCDSSeq = projector.getTranscriptStartingAtCDS();
-			this.varCDSSeq = seqChangeHelper.getCDSWithGenomeVariant(change);
+			this.wtCDSSeq = context.getCDSView();
+			this.varCDSSeq = seqChangeHelper.getCDSViewWithGenomeVariant(change);
 
 			// Get position of insertion on CDS level, will obtain AA change pos after normalization.
 			this.insertPos = projector.projectGenomeToCDSPosition(change.getGenomePos());
 
 			// Translate the variant CDS sequence and look for stop codon.
-			this.wtAASeq = t.translateDNA(wtCDSSeq);
+			this.wtAASeq = context.getWildTypeProtein();
 			this.wtAAStopPos = wtAASeq.indexOf('*', this.insertPos.getPos() / 3);
 			this.varAASeq = t.translateDNA(varCDSSeq);
 			this.varAAStopPos = varAASeq.indexOf('*', this.insertPos.getPos() / 3);
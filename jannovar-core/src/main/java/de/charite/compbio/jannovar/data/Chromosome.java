@@ -2,6 +2,7 @@ package de.charite.compbio.jannovar.data;
 
 import java.io.Serializable;
 
+import de.charite.compbio.jannovar.UncheckedJannovarException;
 import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
@@ -35,10 +36,13 @@ public final class Chromosome implements Serializable {
 
 	/**
 	 * An {@link IntervalArray} that contains all of the {@link TranscriptModel} objects for transcripts located on this
-	 * chromosome.
+	 * chromosome, <code>null</code> if loaded on first access through {@link #segments}.
 	 */
 	private final IntervalArray<TranscriptModel> tmIntervalTree;
 
+	/** segments of a chunked database to load {@link #tmIntervalTree} from, <code>null</code> if in memory */
+	private final transient ChunkedJannovarDataSegments segments;
+
 	/**
 	 * Initialize object.
 	 *
@@ -53,6 +57,24 @@ public final class Chromosome implements Serializable {
 		this.refDict = refDict;
 		this.chrID = chrID;
 		this.tmIntervalTree = tmIntervalTree;
+		this.segments = null;
+	}
+
+	/**
+	 * Initialize object with transcripts that are loaded from a chunked database on first access.
+	 *
+	 * @param refDict
+	 *            the {@link ReferenceDictionary} to use
+	 * @param chrID
+	 *            the chromosome
+	 * @param segments
+	 *            the segments of the chunked database to load the transcripts from
+	 */
+	Chromosome(ReferenceDictionary refDict, int chrID, ChunkedJannovarDataSegments segments) {
+		this.refDict = refDict;
+		this.chrID = chrID;
+		this.tmIntervalTree = null;
+		this.segments = segments;
 	}
 
 	/** @return reference dictionary to use */
@@ -76,14 +98,36 @@ public final class Chromosome implements Serializable {
 	 * @return Number of genes contained in this chromosome.
 	 */
 	public int getNumberOfGenes() {
-		return this.tmIntervalTree.size();
+		if (tmIntervalTree != null)
+			return tmIntervalTree.size();
+		return segments.getNumberOfTranscripts(chrID);
 	}
 
 	/**
+	 * Return the {@link IntervalArray} of the chromosome, loading it from the chunked database if necessary.
+	 *
 	 * @return the {@link IntervalArray} of the chromosome.
+	 * @throws UncheckedJannovarException
+	 *             on problems loading the transcripts from the chunked database
 	 */
 	public IntervalArray<TranscriptModel> getTMIntervalTree() {
-		return tmIntervalTree;
+		if (tmIntervalTree != null)
+			return tmIntervalTree;
+		return segments.load(chrID);
+	}
+
+	/**
+	 * @return <code>true</code> if the {@link IntervalArray} of the chromosome is currently in memory
+	 */
+	public boolean isLoaded() {
+		return tmIntervalTree != null || segments.isLoaded(chrID);
+	}
+
+	/** Serialize lazily loaded chromosomes with their {@link IntervalArray} */
+	private Object writeReplace() {
+		if (tmIntervalTree != null)
+			return this;
+		return new Chromosome(refDict, chrID, getTMIntervalTree());
 	}
 
 }
@@ -0,0 +1,250 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableMap;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.impl.intervals.Interval;
+import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.reference.TranscriptIntervalEndExtractor;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * The per-chromosome segments of a chunked Jannovar database
+ *
+ * Each segment contains the serialized and separately gzip-compressed {@link IntervalArray} of one {@link Chromosome},
+ * the {@link ReferenceDictionary} is stored once in the index of the file and shared by all segments. The segments are
+ * loaded on first access and kept in memory, optionally only for the most recently used chromosomes. The
+ * {@link TranscriptFilter} is applied to each segment before its {@link IntervalArray} is built. Equal gene-level
+ * values are shared within a segment, see {@link ValuePool}.
+ *
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class ChunkedJannovarDataSegments {
+
+	/** the logger object to use */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ChunkedJannovarDataSegments.class);
+
+	/** Location of one segment in the file */
+	static final class Segment {
+		/** offset of the segment in the file */
+		final long offset;
+		/** length of the segment in bytes */
+		final int length;
+		/** number of transcripts in the segment */
+		final int numTranscripts;
+
+		Segment(long offset, int length, int numTranscripts) {
+			this.offset = offset;
+			this.length = length;
+			this.numTranscripts = numTranscripts;
+		}
+	}
+
+	/** Placeholder for the shared {@link ReferenceDictionary} in the serialized segments */
+	private enum RefDictPlaceholder {
+		INSTANCE
+	}
+
+	/** path to the chunked database file */
+	private final String filename;
+	/** the {@link ReferenceDictionary} shared by all segments */
+	private final ReferenceDictionary refDict;
+	/** map from chromosome ID to the location of its segment */
+	private final ImmutableMap<Integer, Segment> segments;
+	/** selection of the transcripts to keep */
+	private final TranscriptFilter filter;
+	/** the loaded {@link IntervalArray}s in access order, guarded by itself */
+	private final LinkedHashMap<Integer, IntervalArray<TranscriptModel>> loaded;
+
+	/**
+	 * @param filename
+	 *            path to the chunked database file
+	 * @param refDict
+	 *            the {@link ReferenceDictionary} from the index of the file
+	 * @param segments
+	 *            map from chromosome ID to the location of its segment
+	 * @param filter
+	 *            selection of the transcripts to keep
+	 * @param maxLoaded
+	 *            maximal number of chromosomes to keep in memory, the least recently used one is evicted when this
+	 *            number is exceeded; <code>0</code> for no limit
+	 */
+	ChunkedJannovarDataSegments(String filename, ReferenceDictionary refDict, ImmutableMap<Integer, Segment> segments,
+			TranscriptFilter filter, final int maxLoaded) {
+		this.filename = filename;
+		this.refDict = refDict;
+		this.segments = segments;
+		this.filter = filter;
+		this.loaded = new LinkedHashMap<Integer, IntervalArray<TranscriptModel>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, IntervalArray<TranscriptModel>> eldest) {
+				return maxLoaded > 0 && size() > maxLoaded;
+			}
+		};
+	}
+
+	/**
+	 * @param lookupIndex
+	 *            {@link TranscriptLookupIndex} of the transcripts, <code>null</code> for building it on first access
+	 * @return lazily loaded {@link JannovarData} for the segments
+	 */
+	JannovarData buildJannovarData(TranscriptLookupIndex lookupIndex) {
+		ImmutableMap.Builder<Integer, Chromosome> builder = ImmutableMap.builder();
+		for (Integer chrID : segments.keySet())
+			builder.put(chrID, new Chromosome(refDict, chrID, this));
+		return new JannovarData(refDict, builder.build(), lookupIndex);
+	}
+
+	/**
+	 * @return number of transcripts of the chromosome, loads the segment if a {@link TranscriptFilter} is used
+	 */
+	int getNumberOfTranscripts(int chrID) {
+		if (filter.isAcceptingAll())
+			return segments.get(chrID).numTranscripts;
+		return load(chrID).size();
+	}
+
+	/**
+	 * @return <code>true</code> if the {@link IntervalArray} of the chromosome is in memory
+	 */
+	boolean isLoaded(int chrID) {
+		synchronized (loaded) {
+			return loaded.containsKey(chrID);
+		}
+	}
+
+	/**
+	 * Return {@link IntervalArray} of a chromosome, loading it from the file if it is not in memory
+	 *
+	 * Concurrent loading of the same chromosome is prevented while other chromosomes can be loaded in parallel.
+	 *
+	 * @param chrID
+	 *            numeric ID of the chromosome
+	 * @return {@link IntervalArray} with the transcripts of the chromosome
+	 * @throws UncheckedJannovarException
+	 *             on problems reading the segment
+	 */
+	IntervalArray<TranscriptModel> load(int chrID) {
+		final Segment segment = segments.get(chrID);
+		synchronized (segment) {
+			IntervalArray<TranscriptModel> result;
+			synchronized (loaded) {
+				result = loaded.get(chrID);
+			}
+			if (result != null)
+				return result;
+
+			final long startTime = System.nanoTime();
+			try {
+				result = readSegment(segment);
+			} catch (IOException | ClassNotFoundException e) {
+				throw new UncheckedJannovarException("Could not load transcripts of contig "
+						+ refDict.getContigIDToName().get(chrID) + " from " + filename, e);
+			}
+			LOGGER.debug("Loaded {} transcripts of contig {} in {} ms", new Object[] { result.size(),
+					refDict.getContigIDToName().get(chrID), (System.nanoTime() - startTime) / 1000 / 1000 });
+
+			synchronized (loaded) {
+				loaded.put(chrID, result);
+			}
+			return result;
+		}
+	}
+
+	/** Read and deserialize the {@link IntervalArray} stored in <code>segment</code>, applying {@link #filter} */
+	@SuppressWarnings("unchecked")
+	private IntervalArray<TranscriptModel> readSegment(Segment segment) throws IOException, ClassNotFoundException {
+		byte[] buf = new byte[segment.length];
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+			file.seek(segment.offset);
+			file.readFully(buf);
+		}
+		IntervalArray<TranscriptModel> result;
+		try (ObjectInputStream in = new SegmentInputStream(new GZIPInputStream(new ByteArrayInputStream(buf)),
+				refDict)) {
+			result = (IntervalArray<TranscriptModel>) in.readObject();
+		}
+		if (filter.isAcceptingAll())
+			return result;
+
+		ArrayList<TranscriptModel> transcripts = new ArrayList<>();
+		for (Interval<TranscriptModel> itv : result.getIntervals())
+			if (filter.accept(itv.getValue()))
+				transcripts.add(itv.getValue());
+		return new IntervalArray<TranscriptModel>(transcripts, new TranscriptIntervalEndExtractor());
+	}
+
+	/**
+	 * Serialize and compress the {@link IntervalArray} of a {@link Chromosome} into a segment
+	 *
+	 * @param chromosome
+	 *            the {@link Chromosome} to write the segment for
+	 * @return the compressed segment
+	 * @throws IOException
+	 *             on problems with the serialization
+	 */
+	static byte[] writeSegment(Chromosome chromosome) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new SegmentOutputStream(new GZIPOutputStream(result))) {
+			out.writeObject(chromosome.getTMIntervalTree());
+		}
+		return result.toByteArray();
+	}
+
+	/** Replaces the {@link ReferenceDictionary} by {@link RefDictPlaceholder} */
+	private static final class SegmentOutputStream extends PoolingObjectOutputStream {
+
+		SegmentOutputStream(OutputStream out) throws IOException {
+			super(out);
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) throws IOException {
+			if (obj instanceof ReferenceDictionary)
+				return RefDictPlaceholder.INSTANCE;
+			return super.replaceObject(obj);
+		}
+
+	}
+
+	/** Resolves {@link RefDictPlaceholder} to the shared {@link ReferenceDictionary} */
+	private static final class SegmentInputStream extends PoolingObjectInputStream {
+
+		private final ReferenceDictionary refDict;
+
+		SegmentInputStream(InputStream in, ReferenceDictionary refDict) throws IOException {
+			super(in);
+			this.refDict = refDict;
+		}
+
+		@Override
+		protected Object resolveObject(Object obj) throws IOException {
+			if (obj == RefDictPlaceholder.INSTANCE)
+				return refDict;
+			return super.resolveObject(obj);
+		}
+
+	}
+
+}
@@ -7,8 +7,10 @@ import java.util.HashMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSortedSet;
 
 import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.impl.intervals.Interval;
 import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
 import de.charite.compbio.jannovar.reference.TranscriptIntervalEndExtractor;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
@@ -29,15 +31,22 @@ public final class JannovarData implements Serializable {
 	/** map from chromosome ID to {@link Chromosome} */
 	private final ImmutableMap<Integer, Chromosome> chromosomes;
 
-	/** map from transcript accession to {@link TranscriptModel} instance. */
-	private final ImmutableMap<String, TranscriptModel> tmByAccession;
+	/**
+	 * map from transcript accession to {@link TranscriptModel} instance, built on first access for chunked databases.
+	 */
+	private volatile ImmutableMap<String, TranscriptModel> tmByAccession;
 
-	/** map from transcript accession to {@link TranscriptModel} instance. */
-	private final ImmutableMultimap<String, TranscriptModel> tmByGeneSymbol;
+	/**
+	 * map from transcript accession to {@link TranscriptModel} instance, built on first access for chunked databases.
+	 */
+	private volatile ImmutableMultimap<String, TranscriptModel> tmByGeneSymbol;
 
 	/** information about reference lengths and identities */
 	private final ReferenceDictionary refDict;
 
+	/** index for looking up transcripts, memory-mapped for chunked databases or built on first access */
+	private transient volatile TranscriptLookupIndex lookupIndex;
+
 	/**
 	 * Initialize the object with the given values.
 	 *
@@ -53,19 +62,111 @@ public final class JannovarData implements Serializable {
 		this.tmByGeneSymbol = makeTMByGeneSymbol(transcriptModels);
 	}
 
+	/**
+	 * Initialize the object with {@link Chromosome}s whose transcripts are loaded on first access.
+	 *
+	 * The transcript maps are built from all chromosomes when first requested.
+	 *
+	 * @param refDict
+	 *            the {@link ReferenceDictionary} to use in this object
+	 * @param chromosomes
+	 *            map from chromosome ID to lazily loaded {@link Chromosome}
+	 * @param lookupIndex
+	 *            {@link TranscriptLookupIndex} of the transcripts in <code>chromosomes</code>, <code>null</code> for
+	 *            building it on first access
+	 */
+	JannovarData(ReferenceDictionary refDict, ImmutableMap<Integer, Chromosome> chromosomes,
+			TranscriptLookupIndex lookupIndex) {
+		this.refDict = refDict;
+		this.chromosomes = chromosomes;
+		this.tmByAccession = null;
+		this.tmByGeneSymbol = null;
+		this.lookupIndex = lookupIndex;
+	}
+
 	/** @return map from chromosome ID to {@link Chromosome} */
 	public ImmutableMap<Integer, Chromosome> getChromosomes() {
 		return chromosomes;
 	}
 
-	/** @return map from transcript accession to {@link TranscriptModel} instance. */
+	/**
+	 * For chunked databases, the first call loads the transcripts of all chromosomes.
+	 *
+	 * @return map from transcript accession to {@link TranscriptModel} instance.
+	 */
 	public ImmutableMap<String, TranscriptModel> getTmByAccession() {
-		return tmByAccession;
+		ImmutableMap<String, TranscriptModel> result = tmByAccession;
+		if (result == null) {
+			synchronized (this) {
+				if (tmByAccession == null)
+					tmByAccession = makeTMByAccession(collectTranscriptModels());
+				result = tmByAccession;
+			}
+		}
+		return result;
 	}
 
-	/** @return map from transcript accession to {@link TranscriptModel} instance. */
+	/**
+	 * For chunked databases, the first call loads the transcripts of all chromosomes.
+	 *
+	 * @return map from transcript accession to {@link TranscriptModel} instance.
+	 */
 	public ImmutableMultimap<String, TranscriptModel> getTmByGeneSymbol() {
-		return tmByGeneSymbol;
+		ImmutableMultimap<String, TranscriptModel> result = tmByGeneSymbol;
+		if (result == null) {
+			synchronized (this) {
+				if (tmByGeneSymbol == null)
+					tmByGeneSymbol = makeTMByGeneSymbol(collectTranscriptModels());
+				result = tmByGeneSymbol;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Chunked databases written with a lookup index use the memory-mapped index from the file, otherwise the first call
+	 * builds the index from the transcripts of all chromosomes.
+	 *
+	 * @return {@link TranscriptLookupIndex} of the transcripts
+	 */
+	public TranscriptLookupIndex getLookupIndex() {
+		TranscriptLookupIndex result = lookupIndex;
+		if (result == null) {
+			synchronized (this) {
+				if (lookupIndex == null)
+					lookupIndex = TranscriptLookupIndex.build(collectTranscriptModels());
+				result = lookupIndex;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Look up transcripts by accession using the {@link TranscriptLookupIndex}
+	 *
+	 * For chunked databases, only the chromosomes of the matching transcripts are loaded.
+	 *
+	 * @param accession
+	 *            transcript accession, with or without version (ignoring the case of ASCII letters)
+	 * @return the matching transcripts; all versions for <code>accession</code> without version
+	 */
+	public ImmutableList<TranscriptModel> findTranscriptsByAccession(String accession) {
+		final TranscriptLookupIndex index = getLookupIndex();
+		return resolve(index, index.lookupAccession(accession));
+	}
+
+	/**
+	 * Look up transcripts by gene using the {@link TranscriptLookupIndex}
+	 *
+	 * For chunked databases, only the chromosomes of the matching transcripts are loaded.
+	 *
+	 * @param gene
+	 *            gene symbol, gene ID, or HGNC, Entrez, or Ensembl ID of a gene (ignoring the case of ASCII letters)
+	 * @return the transcripts of the gene
+	 */
+	public ImmutableList<TranscriptModel> findTranscriptsByGene(String gene) {
+		final TranscriptLookupIndex index = getLookupIndex();
+		return resolve(index, index.lookupGene(gene));
 	}
 
 	/** @return information about reference lengths and identities */
@@ -73,6 +174,37 @@ public final class JannovarData implements Serializable {
 		return refDict;
 	}
 
+	/** Build the transcript maps before serializing a chunked database in the non-chunked format */
+	private Object writeReplace() {
+		getTmByAccession();
+		getTmByGeneSymbol();
+		return this;
+	}
+
+	/**
+	 * @return the {@link TranscriptModel}s with the numbers <code>transcripts</code> in <code>index</code>, taken from
+	 *         the interval array of their chromosome by their position stored in the index
+	 */
+	private ImmutableList<TranscriptModel> resolve(TranscriptLookupIndex index, int[] transcripts) {
+		ImmutableList.Builder<TranscriptModel> builder = ImmutableList.builder();
+		for (int transcript : transcripts) {
+			final Chromosome chrom = chromosomes.get(index.getChrID(transcript));
+			if (chrom != null)
+				builder.add(chrom.getTMIntervalTree().getIntervals().get(index.getPositionInChromosome(transcript))
+						.getValue());
+		}
+		return builder.build();
+	}
+
+	/** @return the {@link TranscriptModel}s of all chromosomes, in the order of the chromosome IDs */
+	private ImmutableList<TranscriptModel> collectTranscriptModels() {
+		ImmutableList.Builder<TranscriptModel> builder = ImmutableList.builder();
+		for (Integer chrID : ImmutableSortedSet.copyOf(chromosomes.keySet()))
+			for (Interval<TranscriptModel> itv : chromosomes.get(chrID).getTMIntervalTree().getIntervals())
+				builder.add(itv.getValue());
+		return builder.build();
+	}
+
 	/**
 	 * @param transcriptModels
 	 *            set of {@link TranscriptModel}s to build multi-mapping for
@@ -1,11 +1,18 @@
 package de.charite.compbio.jannovar.data;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Properties;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -13,9 +20,17 @@ import java.util.zip.GZIPOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.io.ByteStreams;
+
 import de.charite.compbio.jannovar.UncheckedJannovarException;
 import de.charite.compbio.jannovar.data.impl.VersionComparator;
+import de.charite.compbio.jannovar.impl.intervals.Interval;
+import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
 import de.charite.compbio.jannovar.impl.util.StringUtil;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
 
 // NOTE(holtgrem): Part of the public interface of the Jannovar library.
 
@@ -31,6 +46,9 @@ public final class JannovarDataSerializer {
 	/** magic bytes */
 	private final static byte[] MAGIC_BYTES = { 'J', 'V', 'D', 'B' };
 
+	/** magic bytes of the chunked format with one compressed segment per chromosome */
+	private final static byte[] MAGIC_BYTES_CHUNKED = { 'J', 'V', 'D', 'C' };
+
 	/** the minimal supported version of Jannovar in this version */
 	private final String minVersion = "0.21-SNAPSHOT";
 
@@ -90,7 +108,7 @@ public final class JannovarDataSerializer {
 			fos.write(MAGIC_BYTES);
 			fos.flush();
 			gzos = new GZIPOutputStream(fos);
-			oos = new ObjectOutputStream(gzos);
+			oos = new PoolingObjectOutputStream(gzos);
 			// write version
 			final String version = getVersion();
 			oos.writeObject(version);
@@ -119,14 +137,145 @@ public final class JannovarDataSerializer {
 				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
 	}
 
+	/**
+	 * Serialize a {@link JannovarData} object to a file in the chunked format.
+	 *
+	 * The transcripts of each chromosome are serialized and compressed into a separate segment that is loaded only on
+	 * first access of the chromosome by {@link #load}. The segments are followed by the uncompressed
+	 * {@link TranscriptLookupIndex} that is memory-mapped when loading. The file ends with an index of the segments,
+	 * containing the {@link ReferenceDictionary} and the location of the lookup index, and the offset of this index.
+	 *
+	 * @param data
+	 *            the {@link JannovarData} object to serialize
+	 * @throws SerializationException
+	 *             on problems with the serialization
+	 */
+	public void saveChunked(JannovarData data) throws SerializationException {
+		logger.info(StringUtil.concatenate("Serializing chunked JannovarData to ", filename));
+		final long startTime = System.nanoTime();
+
+		if (data == null || data.getRefDict().getContigNameToID().isEmpty())
+			throw new SerializationException("Attempting to serialize empty data set");
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(filename)))) {
+			out.write(MAGIC_BYTES_CHUNKED);
+			long offset = MAGIC_BYTES_CHUNKED.length;
+
+			// write segments, sorted by chromosome ID
+			ImmutableSortedMap<Integer, Chromosome> chromosomes = ImmutableSortedMap.copyOf(data.getChromosomes());
+			ImmutableMap.Builder<Integer, ChunkedJannovarDataSegments.Segment> segments = ImmutableMap.builder();
+			ImmutableList.Builder<TranscriptModel> transcripts = ImmutableList.builder();
+			for (Chromosome chromosome : chromosomes.values()) {
+				final byte[] segment = ChunkedJannovarDataSegments.writeSegment(chromosome);
+				out.write(segment);
+				segments.put(chromosome.getChrID(), new ChunkedJannovarDataSegments.Segment(offset, segment.length,
+						chromosome.getNumberOfGenes()));
+				offset += segment.length;
+				for (Interval<TranscriptModel> itv : chromosome.getTMIntervalTree().getIntervals())
+					transcripts.add(itv.getValue());
+			}
+
+			// write lookup index, built from the written transcripts
+			final byte[] lookupIndex = TranscriptLookupIndex.build(transcripts.build()).toByteArray();
+			final long lookupIndexOffset = offset;
+			out.write(lookupIndex);
+			offset += lookupIndex.length;
+
+			// write index and its offset
+			ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream oos = new ObjectOutputStream(new GZIPOutputStream(indexBytes))) {
+				oos.writeObject(getVersion());
+				oos.writeObject(data.getRefDict());
+				ImmutableMap<Integer, ChunkedJannovarDataSegments.Segment> index = segments.build();
+				oos.writeInt(index.size());
+				for (Map.Entry<Integer, ChunkedJannovarDataSegments.Segment> entry : index.entrySet()) {
+					oos.writeInt(entry.getKey());
+					oos.writeLong(entry.getValue().offset);
+					oos.writeInt(entry.getValue().length);
+					oos.writeInt(entry.getValue().numTranscripts);
+				}
+				oos.writeLong(lookupIndexOffset);
+				oos.writeInt(lookupIndex.length);
+			}
+			indexBytes.writeTo(out);
+			out.writeLong(offset);
+		} catch (IOException e) {
+			throw new SerializationException(String.format("Could not serialize data file list: %s", e.toString()));
+		}
+
+		logger.info(String.format("Serialization took %.2f sec.",
+				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
+	}
+
 	/**
 	 * Deserialize a {@link JannovarData} object from a file.
 	 *
+	 * Files in the chunked format are loaded lazily, see {@link #load(int)}.
+	 *
 	 * @return {@link JannovarData} object yielded by deserialization
 	 * @throws SerializationException
 	 *             on problems with the deserialization
 	 */
 	public JannovarData load() throws SerializationException {
+		return load(0);
+	}
+
+	/**
+	 * Deserialize a {@link JannovarData} object from a file.
+	 *
+	 * For files in the chunked format (see {@link #saveChunked}), only the index is read here and the
+	 * {@link TranscriptLookupIndex} is memory-mapped. The transcripts of a {@link Chromosome} are loaded on first access
+	 * and kept in memory for at most <code>maxLoadedChromosomes</code> chromosomes at a time.
+	 *
+	 * @param maxLoadedChromosomes
+	 *            maximal number of chromosomes of a chunked file to keep in memory, the least recently used ones are
+	 *            evicted; <code>0</code> for no limit; ignored for non-chunked files
+	 * @return {@link JannovarData} object yielded by deserialization
+	 * @throws SerializationException
+	 *             on problems with the deserialization
+	 */
+	public JannovarData load(int maxLoadedChromosomes) throws SerializationException {
+		return load(TranscriptFilter.ALL, maxLoadedChromosomes);
+	}
+
+	/**
+	 * Deserialize a {@link JannovarData} object from a file, keeping only the transcripts accepted by
+	 * <code>filter</code>.
+	 *
+	 * For files in the chunked format, the filter is applied to the transcripts of each chromosome when it is loaded,
+	 * before its {@link IntervalArray} is built, and the {@link TranscriptLookupIndex} of the file is not used.
+	 * Otherwise, the {@link JannovarData} is rebuilt from the accepted transcripts after deserialization.
+	 *
+	 * @param filter
+	 *            selection of the transcripts to keep
+	 * @param maxLoadedChromosomes
+	 *            maximal number of chromosomes of a chunked file to keep in memory, see {@link #load(int)}
+	 * @return {@link JannovarData} object yielded by deserialization
+	 * @throws SerializationException
+	 *             on problems with the deserialization
+	 */
+	public JannovarData load(TranscriptFilter filter, int maxLoadedChromosomes) throws SerializationException {
+		if (isChunked())
+			return loadChunked(filter, maxLoadedChromosomes);
+
+		JannovarData result = loadNonChunked();
+		if (filter.isAcceptingAll())
+			return result;
+
+		final long startTime = System.nanoTime();
+		final int numTranscripts = result.getTmByAccession().size();
+		result = filter.filter(result);
+		logger.info(String.format("Kept %d of %d transcripts, filtering took %.2f sec.",
+				result.getTmByAccession().size(), numTranscripts,
+				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
+		return result;
+	}
+
+	/**
+	 * Deserialize a {@link JannovarData} object from a file in the non-chunked format.
+	 */
+	private JannovarData loadNonChunked() throws SerializationException {
 		logger.info(StringUtil.concatenate("Deserializing JannovarData from ", filename));
 		final long startTime = System.nanoTime();
 
@@ -146,7 +295,7 @@ public final class JannovarDataSerializer {
 				throw new UncheckedJannovarException(
 						filename + " does not look like a Jannovar database, magic number incorrect!");
 			gzIn = new GZIPInputStream(fileIn);
-			in = new ObjectInputStream(gzIn);
+			in = new PoolingObjectInputStream(gzIn);
 			String dbVersion = (String) in.readObject();
 			VersionComparator comp = new VersionComparator();
 			if (comp.compare(dbVersion, minVersion) < 0)
@@ -178,4 +327,77 @@ public final class JannovarDataSerializer {
 				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
 		return result;
 	}
+
+	/**
+	 * @return <code>true</code> if {@link #filename} is in the chunked format
+	 */
+	private boolean isChunked() throws SerializationException {
+		byte[] word = new byte[MAGIC_BYTES_CHUNKED.length];
+		try (FileInputStream fileIn = new FileInputStream(filename)) {
+			ByteStreams.read(fileIn, word, 0, word.length);
+			return Arrays.equals(word, MAGIC_BYTES_CHUNKED);
+		} catch (IOException e) {
+			throw new SerializationException(String.format("Could not deserialize data list: %s", e.toString()));
+		}
+	}
+
+	/**
+	 * Read index of the chunked file {@link #filename}
+	 *
+	 * @return lazily loaded {@link JannovarData}
+	 */
+	private JannovarData loadChunked(TranscriptFilter filter, int maxLoadedChromosomes)
+			throws SerializationException {
+		logger.info(StringUtil.concatenate("Reading index of chunked JannovarData from ", filename));
+		final long startTime = System.nanoTime();
+
+		JannovarData result;
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+			file.seek(file.length() - Long.BYTES);
+			final long indexOffset = file.readLong();
+			byte[] indexBytes = new byte[(int) (file.length() - Long.BYTES - indexOffset)];
+			file.seek(indexOffset);
+			file.readFully(indexBytes);
+
+			try (ObjectInputStream in = new ObjectInputStream(
+					new GZIPInputStream(new ByteArrayInputStream(indexBytes)))) {
+				String dbVersion = (String) in.readObject();
+				VersionComparator comp = new VersionComparator();
+				if (comp.compare(dbVersion, minVersion) < 0)
+					throw new UncheckedJannovarException(
+							filename + " was created by Jannovar " + dbVersion + " but we need at least " + minVersion);
+				ReferenceDictionary refDict = (ReferenceDictionary) in.readObject();
+				ImmutableMap.Builder<Integer, ChunkedJannovarDataSegments.Segment> segments = ImmutableMap.builder();
+				final int numSegments = in.readInt();
+				for (int i = 0; i < numSegments; ++i) {
+					final int chrID = in.readInt();
+					final long offset = in.readLong();
+					final int length = in.readInt();
+					final int numTranscripts = in.readInt();
+					segments.put(chrID, new ChunkedJannovarDataSegments.Segment(offset, length, numTranscripts));
+				}
+				TranscriptLookupIndex lookupIndex = null;
+				try {
+					final long lookupIndexOffset = in.readLong();
+					final int lookupIndexLength = in.readInt();
+					// the index would contain the transcripts removed by the filter
+					if (filter.isAcceptingAll())
+						lookupIndex = TranscriptLookupIndex.map(filename, lookupIndexOffset, lookupIndexLength);
+				} catch (EOFException e) {
+					// file written before the lookup index was added, built on first access
+				}
+				result = new ChunkedJannovarDataSegments(filename, refDict, segments.build(), filter,
+						maxLoadedChromosomes).buildJannovarData(lookupIndex);
+			}
+		} catch (IOException i) {
+			throw new SerializationException(String.format("Could not deserialize data list: %s", i.toString()));
+		} catch (ClassNotFoundException c) {
+			throw new SerializationException(
+					String.format("Could not deserialized class definition: %s", c.toString()));
+		}
+
+		logger.info(String.format("Reading index took %.2f sec.",
+				(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
+		return result;
+	}
 }
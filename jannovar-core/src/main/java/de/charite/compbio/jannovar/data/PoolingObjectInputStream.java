@@ -0,0 +1,29 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+
+/**
+ * {@link ObjectInputStream} that shares instances of equal short strings and alternative gene ID maps
+ *
+ * This also deduplicates the gene-level values of databases written without {@link PoolingObjectOutputStream}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+class PoolingObjectInputStream extends ObjectInputStream {
+
+	/** pool of the values read so far */
+	private final ValuePool pool = new ValuePool();
+
+	PoolingObjectInputStream(InputStream in) throws IOException {
+		super(in);
+		enableResolveObject(true);
+	}
+
+	@Override
+	protected Object resolveObject(Object obj) throws IOException {
+		return pool.intern(obj);
+	}
+
+}
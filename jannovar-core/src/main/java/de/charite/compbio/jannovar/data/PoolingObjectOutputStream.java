@@ -0,0 +1,30 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * {@link ObjectOutputStream} that writes equal short strings only once
+ *
+ * Equal strings are replaced by their first instance from a {@link ValuePool}, such that the stream contains back
+ * references instead of copies. On deserialization, these strings are shared instances.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+class PoolingObjectOutputStream extends ObjectOutputStream {
+
+	/** pool of the strings written so far */
+	private final ValuePool pool = new ValuePool();
+
+	PoolingObjectOutputStream(OutputStream out) throws IOException {
+		super(out);
+		enableReplaceObject(true);
+	}
+
+	@Override
+	protected Object replaceObject(Object obj) throws IOException {
+		return pool.intern(obj);
+	}
+
+}
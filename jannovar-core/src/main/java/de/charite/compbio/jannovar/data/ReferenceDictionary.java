@@ -1,7 +1,10 @@
 package de.charite.compbio.jannovar.data;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.PrintStream;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Map.Entry;
 
 import com.google.common.collect.ImmutableMap;
@@ -55,6 +58,15 @@ public class ReferenceDictionary implements Serializable {
 	/** stores a mapping from numeric chromosomeID/contigID to chromosome/contig length */
 	private final ImmutableMap<Integer, Integer> contigLength;
 
+	/** largest contig ID that is stored in {@link #contigLengthTable} */
+	private static final int MAX_TABLE_CONTIG_ID = 1 << 16;
+
+	/**
+	 * contig lengths indexed by numeric contigID for {@link #getContigLength}, <code>-1</code> for unknown IDs; IDs
+	 * larger than {@link #MAX_TABLE_CONTIG_ID} are looked up in {@link #contigLength}
+	 */
+	private transient int[] contigLengthTable;
+
 	/**
 	 * Initialize the object with the given values.
 	 *
@@ -70,6 +82,27 @@ public class ReferenceDictionary implements Serializable {
 		this.contigID = contigID;
 		this.contigName = contigName;
 		this.contigLength = contigLength;
+		this.contigLengthTable = buildContigLengthTable(contigLength);
+	}
+
+	/** @return table of contig lengths indexed by contig ID, see {@link #contigLengthTable} */
+	private static int[] buildContigLengthTable(ImmutableMap<Integer, Integer> contigLength) {
+		int maxID = -1;
+		for (Integer contigID : contigLength.keySet())
+			if (contigID >= 0 && contigID <= MAX_TABLE_CONTIG_ID)
+				maxID = Math.max(maxID, contigID);
+		int[] result = new int[maxID + 1];
+		Arrays.fill(result, -1);
+		for (Entry<Integer, Integer> entry : contigLength.entrySet())
+			if (entry.getKey() >= 0 && entry.getKey() <= MAX_TABLE_CONTIG_ID)
+				result[entry.getKey()] = entry.getValue();
+		return result;
+	}
+
+	/** Rebuild {@link #contigLengthTable} on deserialization */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		this.contigLengthTable = buildContigLengthTable(contigLength);
 	}
 
 	/** @return map from contig name to contig id */
@@ -87,6 +120,19 @@ public class ReferenceDictionary implements Serializable {
 		return contigLength;
 	}
 
+	/**
+	 * Return length of a contig without boxing, used for the strand conversion of coordinates.
+	 *
+	 * @param contigID
+	 *            numeric contig id
+	 * @return length of the contig, the contig must be in the dictionary
+	 */
+	public int getContigLength(int contigID) {
+		if (contigID >= 0 && contigID < contigLengthTable.length && contigLengthTable[contigID] != -1)
+			return contigLengthTable[contigID];
+		return contigLength.get(contigID);
+	}
+
 	/**
 	 * Print dictionary to <code>System.err</code> for debugging purposes.
 	 *
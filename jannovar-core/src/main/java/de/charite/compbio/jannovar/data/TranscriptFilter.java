@@ -0,0 +1,152 @@
+package de.charite.compbio.jannovar.data;
+
+import java.util.Collection;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptSupportLevels;
+
+/**
+ * Selection of the {@link TranscriptModel}s to load from a Jannovar database
+ *
+ * A transcript is accepted if it passes all of the configured criteria. Criteria given as <code>null</code> are not
+ * checked.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@Immutable
+public final class TranscriptFilter {
+
+	/** filter accepting all transcripts */
+	public static final TranscriptFilter ALL = new TranscriptFilter(null, null, null, false);
+
+	/** gene symbols or IDs of the transcripts to accept, <code>null</code> for all */
+	private final ImmutableSet<String> genes;
+
+	/** accessions of the transcripts to accept, with or without version, <code>null</code> for all */
+	private final ImmutableSet<String> accessions;
+
+	/** largest transcript support level to accept, <code>null</code> for all */
+	private final Integer maxTranscriptSupportLevel;
+
+	/** whether to accept coding transcripts only */
+	private final boolean onlyCoding;
+
+	/**
+	 * Initialize filter
+	 *
+	 * @param genes
+	 *            gene symbols or gene IDs (including alternative gene IDs such as HGNC IDs) of the transcripts to
+	 *            accept, <code>null</code> for all
+	 * @param accessions
+	 *            accessions of the transcripts to accept, <code>null</code> for all; accessions given without version
+	 *            match all versions
+	 * @param maxTranscriptSupportLevel
+	 *            largest transcript support level to accept (see {@link TranscriptSupportLevels}, e.g.,
+	 *            {@link TranscriptSupportLevels#UCSC_CANONICAL} for supported and canonical transcripts),
+	 *            transcripts without level are rejected; <code>null</code> for all
+	 * @param onlyCoding
+	 *            whether to accept coding transcripts only
+	 */
+	public TranscriptFilter(Collection<String> genes, Collection<String> accessions,
+			Integer maxTranscriptSupportLevel, boolean onlyCoding) {
+		this.genes = (genes == null) ? null : ImmutableSet.copyOf(genes);
+		this.accessions = (accessions == null) ? null : ImmutableSet.copyOf(accessions);
+		this.maxTranscriptSupportLevel = maxTranscriptSupportLevel;
+		this.onlyCoding = onlyCoding;
+	}
+
+	/** @return gene symbols or IDs of the transcripts to accept, <code>null</code> for all */
+	public ImmutableSet<String> getGenes() {
+		return genes;
+	}
+
+	/** @return accessions of the transcripts to accept, with or without version, <code>null</code> for all */
+	public ImmutableSet<String> getAccessions() {
+		return accessions;
+	}
+
+	/** @return largest transcript support level to accept, <code>null</code> for all */
+	public Integer getMaxTranscriptSupportLevel() {
+		return maxTranscriptSupportLevel;
+	}
+
+	/** @return whether to accept coding transcripts only */
+	public boolean isOnlyCoding() {
+		return onlyCoding;
+	}
+
+	/** @return <code>true</code> if no criteria are configured */
+	public boolean isAcceptingAll() {
+		return genes == null && accessions == null && maxTranscriptSupportLevel == null && !onlyCoding;
+	}
+
+	/**
+	 * @param tm
+	 *            {@link TranscriptModel} to check
+	 * @return <code>true</code> if <code>tm</code> passes all criteria
+	 */
+	public boolean accept(TranscriptModel tm) {
+		if (onlyCoding && !tm.isCoding())
+			return false;
+		if (maxTranscriptSupportLevel != null && (tm.getTranscriptSupportLevel() < TranscriptSupportLevels.TSL1
+				|| tm.getTranscriptSupportLevel() > maxTranscriptSupportLevel))
+			return false;
+		if (accessions != null && !accessions.contains(tm.getAccession())
+				&& !accessions.contains(stripVersion(tm.getAccession())))
+			return false;
+		if (genes != null && !genes.contains(tm.getGeneSymbol()) && !genes.contains(tm.getGeneID())
+				&& (tm.getAltGeneIDs() == null || !containsAny(genes, tm.getAltGeneIDs().values())))
+			return false;
+		return true;
+	}
+
+	/**
+	 * @param transcripts
+	 *            the {@link TranscriptModel}s to filter
+	 * @return the accepted {@link TranscriptModel}s, in the order of <code>transcripts</code>
+	 */
+	public ImmutableList<TranscriptModel> filter(Iterable<TranscriptModel> transcripts) {
+		ImmutableList.Builder<TranscriptModel> builder = ImmutableList.builder();
+		for (TranscriptModel tm : transcripts)
+			if (accept(tm))
+				builder.add(tm);
+		return builder.build();
+	}
+
+	/**
+	 * @param data
+	 *            {@link JannovarData} to filter
+	 * @return <code>data</code> if all transcripts are accepted, otherwise new {@link JannovarData} with the accepted
+	 *         transcripts
+	 */
+	public JannovarData filter(JannovarData data) {
+		if (isAcceptingAll())
+			return data;
+		return new JannovarData(data.getRefDict(), filter(data.getTmByAccession().values()));
+	}
+
+	/** @return <code>accession</code> without the version suffix */
+	private static String stripVersion(String accession) {
+		final int pos = accession.lastIndexOf('.');
+		return (pos == -1) ? accession : accession.substring(0, pos);
+	}
+
+	/** @return <code>true</code> if any of <code>values</code> is in <code>set</code> */
+	private static boolean containsAny(ImmutableSet<String> set, Collection<String> values) {
+		for (String value : values)
+			if (set.contains(value))
+				return true;
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "TranscriptFilter [genes=" + genes + ", accessions=" + accessions + ", maxTranscriptSupportLevel="
+				+ maxTranscriptSupportLevel + ", onlyCoding=" + onlyCoding + "]";
+	}
+
+}
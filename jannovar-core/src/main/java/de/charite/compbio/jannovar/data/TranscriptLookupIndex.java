@@ -0,0 +1,507 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.hgnc.AltGeneIDType;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Compact index for looking up transcripts by accession, gene symbol, or gene ID
+ *
+ * The index is a sorted string table in one {@link ByteBuffer} that can be memory-mapped from a chunked database file
+ * (see {@link JannovarDataSerializer#saveChunked}). It consists of a table with the chromosome, the position among the
+ * transcripts of the chromosome, and the accession of each transcript and two sorted tables of (key, transcript
+ * number) entries:
+ *
+ * <ul>
+ * <li>the accession table with the accession of each transcript, with and without version, and</li>
+ * <li>the gene table with the gene symbol, the gene ID, and the HGNC, Entrez, and Ensembl IDs from
+ * {@link TranscriptModel#getAltGeneIDs()}.</li>
+ * </ul>
+ *
+ * Keys are stored once in a trailing string area. Lookups are binary searches that compare the stored bytes directly
+ * and ignore the case of ASCII letters, also for prefix queries.
+ *
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@Immutable
+public final class TranscriptLookupIndex {
+
+	/** magic bytes at the beginning of the index */
+	private static final byte[] MAGIC_BYTES = { 'J', 'V', 'L', 'I' };
+
+	/** size of the header: magic bytes, number of transcripts, accession and gene keys, and size of string area */
+	private static final int HEADER_SIZE = MAGIC_BYTES.length + 4 * Integer.BYTES;
+
+	/** size of an entry in the transcript table */
+	private static final int TRANSCRIPT_ENTRY_SIZE = 3 * Integer.BYTES;
+
+	/** size of an entry in the key tables */
+	private static final int ENTRY_SIZE = 2 * Integer.BYTES;
+
+	/** alternative gene ID types to put into the gene table */
+	private static final ImmutableSet<AltGeneIDType> GENE_ID_TYPES = ImmutableSet.of(AltGeneIDType.HGNC_ID,
+			AltGeneIDType.HGNC_SYMBOL, AltGeneIDType.HGNC_ALIAS, AltGeneIDType.HGNC_PREVIOUS, AltGeneIDType.ENTREZ_ID,
+			AltGeneIDType.ENSEMBL_GENE_ID);
+
+	/** buffer with the index, only read with absolute get methods */
+	private final ByteBuffer buf;
+	/** number of transcripts */
+	private final int numTranscripts;
+	/** number of entries in the accession table */
+	private final int numAccessionKeys;
+	/** number of entries in the gene table */
+	private final int numGeneKeys;
+	/** offset of the accession table in {@link #buf} */
+	private final int accessionTableOffset;
+	/** offset of the gene table in {@link #buf} */
+	private final int geneTableOffset;
+	/** offset of the string area in {@link #buf} */
+	private final int stringsOffset;
+
+	/** Initialize with the index in <code>buf</code>, the header must have been checked */
+	private TranscriptLookupIndex(ByteBuffer buf) {
+		this.buf = buf;
+		this.numTranscripts = buf.getInt(MAGIC_BYTES.length);
+		this.numAccessionKeys = buf.getInt(MAGIC_BYTES.length + Integer.BYTES);
+		this.numGeneKeys = buf.getInt(MAGIC_BYTES.length + 2 * Integer.BYTES);
+		this.accessionTableOffset = HEADER_SIZE + numTranscripts * TRANSCRIPT_ENTRY_SIZE;
+		this.geneTableOffset = accessionTableOffset + numAccessionKeys * ENTRY_SIZE;
+		this.stringsOffset = geneTableOffset + numGeneKeys * ENTRY_SIZE;
+	}
+
+	/**
+	 * Build index for <code>transcripts</code>
+	 *
+	 * The transcripts of each chromosome must be given in the order of {@link Chromosome#getTMIntervalTree}, such that
+	 * {@link JannovarData} can take them from there by their position.
+	 *
+	 * @param transcripts
+	 *            the {@link TranscriptModel}s to index, their position in this list is their transcript number
+	 * @return index in a heap buffer
+	 */
+	public static TranscriptLookupIndex build(Iterable<TranscriptModel> transcripts) {
+		return new IndexBuilder(transcripts).build();
+	}
+
+	/**
+	 * Memory-map the index stored in a region of a file
+	 *
+	 * @param filename
+	 *            path to the file
+	 * @param offset
+	 *            offset of the index in the file
+	 * @param length
+	 *            length of the index in bytes
+	 * @return the mapped index
+	 * @throws IOException
+	 *             on problems mapping the file or if the region does not contain an index
+	 */
+	static TranscriptLookupIndex map(String filename, long offset, int length) throws IOException {
+		final ByteBuffer buf;
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			buf = channel.map(MapMode.READ_ONLY, offset, length);
+		}
+
+		byte[] magic = new byte[MAGIC_BYTES.length];
+		if (length >= HEADER_SIZE)
+			buf.duplicate().get(magic);
+		if (!Arrays.equals(magic, MAGIC_BYTES))
+			throw new IOException("No transcript lookup index at offset " + offset + " of " + filename);
+		final long expectedLength = HEADER_SIZE + TRANSCRIPT_ENTRY_SIZE * (long) buf.getInt(MAGIC_BYTES.length)
+				+ ENTRY_SIZE * ((long) buf.getInt(MAGIC_BYTES.length + Integer.BYTES)
+						+ buf.getInt(MAGIC_BYTES.length + 2 * Integer.BYTES))
+				+ buf.getInt(MAGIC_BYTES.length + 3 * Integer.BYTES);
+		if (expectedLength != length)
+			throw new IOException("Transcript lookup index in " + filename + " has " + length + " bytes instead of "
+					+ expectedLength);
+		return new TranscriptLookupIndex(buf);
+	}
+
+	/** @return the index as written to the database file */
+	byte[] toByteArray() {
+		byte[] result = new byte[buf.capacity()];
+		ByteBuffer dup = buf.duplicate();
+		((Buffer) dup).clear(); // cast for linking against Buffer.clear() on Java 8
+		dup.get(result);
+		return result;
+	}
+
+	/** @return <code>true</code> if the index is memory-mapped from a file */
+	boolean isMapped() {
+		return buf instanceof MappedByteBuffer;
+	}
+
+	/** @return number of indexed transcripts */
+	public int getNumTranscripts() {
+		return numTranscripts;
+	}
+
+	/**
+	 * @param accession
+	 *            transcript accession, with or without version
+	 * @return accessions of the matching transcripts; all versions are returned for <code>accession</code> without
+	 *         version
+	 */
+	public ImmutableList<String> findAccessions(String accession) {
+		return getAccessions(lookupAccession(accession));
+	}
+
+	/**
+	 * @param gene
+	 *            gene symbol, gene ID, or HGNC, Entrez, or Ensembl ID of a gene
+	 * @return accessions of the transcripts of the gene
+	 */
+	public ImmutableList<String> findAccessionsByGene(String gene) {
+		return getAccessions(lookupGene(gene));
+	}
+
+	/**
+	 * @param prefix
+	 *            prefix of the keys to return
+	 * @param maxResults
+	 *            maximal number of keys to return
+	 * @return distinct accessions, with and without version, starting with <code>prefix</code> in sorted order
+	 */
+	public ImmutableList<String> findAccessionKeys(String prefix, int maxResults) {
+		return findKeys(accessionTableOffset, numAccessionKeys, prefix, maxResults);
+	}
+
+	/**
+	 * @param prefix
+	 *            prefix of the keys to return
+	 * @param maxResults
+	 *            maximal number of keys to return
+	 * @return distinct gene symbols and IDs starting with <code>prefix</code> in sorted order
+	 */
+	public ImmutableList<String> findGeneKeys(String prefix, int maxResults) {
+		return findKeys(geneTableOffset, numGeneKeys, prefix, maxResults);
+	}
+
+	/** @return sorted numbers of the transcripts with the accession <code>accession</code> */
+	int[] lookupAccession(String accession) {
+		return lookup(accessionTableOffset, numAccessionKeys, accession);
+	}
+
+	/** @return sorted numbers of the transcripts of the gene <code>gene</code> */
+	int[] lookupGene(String gene) {
+		return lookup(geneTableOffset, numGeneKeys, gene);
+	}
+
+	/** @return numeric chromosome ID of transcript number <code>transcript</code> */
+	int getChrID(int transcript) {
+		return buf.getInt(HEADER_SIZE + transcript * TRANSCRIPT_ENTRY_SIZE);
+	}
+
+	/**
+	 * @return position of transcript number <code>transcript</code> among the transcripts of its chromosome, in the
+	 *         order of {@link Chromosome#getTMIntervalTree}
+	 */
+	int getPositionInChromosome(int transcript) {
+		return buf.getInt(HEADER_SIZE + transcript * TRANSCRIPT_ENTRY_SIZE + Integer.BYTES);
+	}
+
+	/** @return accession of transcript number <code>transcript</code> */
+	String getAccession(int transcript) {
+		return getString(buf.getInt(HEADER_SIZE + transcript * TRANSCRIPT_ENTRY_SIZE + 2 * Integer.BYTES));
+	}
+
+	/** @return accessions of the transcripts with the numbers <code>transcripts</code> */
+	private ImmutableList<String> getAccessions(int[] transcripts) {
+		ImmutableList.Builder<String> builder = ImmutableList.builder();
+		for (int transcript : transcripts)
+			builder.add(getAccession(transcript));
+		return builder.build();
+	}
+
+	/** @return sorted distinct transcript numbers of the entries with key <code>key</code> in the table */
+	private int[] lookup(int tableOffset, int numEntries, String key) {
+		final byte[] query = key.getBytes(StandardCharsets.UTF_8);
+		TreeSet<Integer> transcripts = new TreeSet<>();
+		for (int i = lowerBound(tableOffset, numEntries, query); i < numEntries; ++i) {
+			final int entry = tableOffset + i * ENTRY_SIZE;
+			if (compareKey(buf.getInt(entry), query, false) != 0)
+				break;
+			transcripts.add(buf.getInt(entry + Integer.BYTES));
+		}
+
+		int[] result = new int[transcripts.size()];
+		int i = 0;
+		for (Integer transcript : transcripts)
+			result[i++] = transcript;
+		return result;
+	}
+
+	/** @return distinct keys starting with <code>prefix</code> in the table */
+	private ImmutableList<String> findKeys(int tableOffset, int numEntries, String prefix, int maxResults) {
+		final byte[] query = prefix.getBytes(StandardCharsets.UTF_8);
+		LinkedHashSet<String> keys = new LinkedHashSet<>();
+		int lastKeyOffset = -1;
+		for (int i = lowerBound(tableOffset, numEntries, query); i < numEntries && keys.size() < maxResults; ++i) {
+			final int keyOffset = buf.getInt(tableOffset + i * ENTRY_SIZE);
+			if (keyOffset == lastKeyOffset)
+				continue; // same key as previous entry, for another transcript
+			if (compareKey(keyOffset, query, true) != 0)
+				break;
+			keys.add(getString(keyOffset));
+			lastKeyOffset = keyOffset;
+		}
+		return ImmutableList.copyOf(keys);
+	}
+
+	/** @return index of the first entry in the table whose key is not less than <code>query</code> */
+	private int lowerBound(int tableOffset, int numEntries, byte[] query) {
+		int lo = 0;
+		int hi = numEntries;
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (compareKey(buf.getInt(tableOffset + mid * ENTRY_SIZE), query, false) < 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Compare stored key to <code>query</code>, ignoring the case of ASCII letters
+	 *
+	 * @param keyOffset
+	 *            offset of the key in the string area
+	 * @param query
+	 *            UTF-8 bytes to compare to
+	 * @param prefix
+	 *            whether to return <code>0</code> if <code>query</code> is a prefix of the key
+	 * @return negative, zero, or positive value if the key is less than, equal to, or greater than <code>query</code>
+	 */
+	private int compareKey(int keyOffset, byte[] query, boolean prefix) {
+		final int pos = stringsOffset + keyOffset;
+		final int len = buf.getShort(pos) & 0xffff;
+		final int n = Math.min(len, query.length);
+		for (int i = 0; i < n; ++i) {
+			final int c = fold(buf.get(pos + Short.BYTES + i)) - fold(query[i]);
+			if (c != 0)
+				return c;
+		}
+		if (prefix && n == query.length)
+			return 0;
+		return len - query.length;
+	}
+
+	/** @return string at <code>keyOffset</code> in the string area */
+	private String getString(int keyOffset) {
+		final int pos = stringsOffset + keyOffset;
+		byte[] bytes = new byte[buf.getShort(pos) & 0xffff];
+		for (int i = 0; i < bytes.length; ++i)
+			bytes[i] = buf.get(pos + Short.BYTES + i);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/** @return unsigned value of <code>b</code>, ASCII lower-case letters converted to upper case */
+	private static int fold(byte b) {
+		final int c = b & 0xff;
+		return (c >= 'a' && c <= 'z') ? c - ('a' - 'A') : c;
+	}
+
+	/** @return comparison of <code>lhs</code> and <code>rhs</code> consistent with {@link #compareKey} */
+	private static int compareFolded(byte[] lhs, byte[] rhs) {
+		final int n = Math.min(lhs.length, rhs.length);
+		for (int i = 0; i < n; ++i) {
+			final int c = fold(lhs[i]) - fold(rhs[i]);
+			if (c != 0)
+				return c;
+		}
+		return lhs.length - rhs.length;
+	}
+
+	/** @return accession without trailing version, <code>accession</code> if it has no version */
+	private static String stripVersion(String accession) {
+		final int dot = accession.lastIndexOf('.');
+		if (dot <= 0 || dot + 1 == accession.length())
+			return accession;
+		for (int i = dot + 1; i < accession.length(); ++i)
+			if (!Character.isDigit(accession.charAt(i)))
+				return accession;
+		return accession.substring(0, dot);
+	}
+
+	/** Collects the keys of the transcripts and writes the index */
+	private static final class IndexBuilder {
+
+		/** A key of a table */
+		private static final class Entry {
+			/** UTF-8 bytes of the key */
+			final byte[] key;
+			/** offset of the key in the string area */
+			final int keyOffset;
+			/** number of the transcript */
+			final int transcript;
+
+			Entry(byte[] key, int keyOffset, int transcript) {
+				this.key = key;
+				this.keyOffset = keyOffset;
+				this.transcript = transcript;
+			}
+		}
+
+		/** order of the table entries, by key, transcript number, and key offset for differently-cased keys */
+		private static final Comparator<Entry> ORDER = new Comparator<Entry>() {
+			@Override
+			public int compare(Entry lhs, Entry rhs) {
+				final int result = compareFolded(lhs.key, rhs.key);
+				if (result != 0)
+					return result;
+				else if (lhs.transcript != rhs.transcript)
+					return Integer.compare(lhs.transcript, rhs.transcript);
+				else
+					return Integer.compare(lhs.keyOffset, rhs.keyOffset);
+			}
+		};
+
+		/** chromosome IDs of the transcripts */
+		private final ArrayList<Integer> chrIDs = new ArrayList<>();
+		/** positions of the transcripts among the transcripts of their chromosome */
+		private final ArrayList<Integer> positions = new ArrayList<>();
+		/** number of transcripts of each chromosome so far */
+		private final HashMap<Integer, Integer> chromosomeSizes = new HashMap<>();
+		/** offsets of the transcript accessions in the string area */
+		private final ArrayList<Integer> accessionOffsets = new ArrayList<>();
+		/** entries of the accession table */
+		private final ArrayList<Entry> accessionEntries = new ArrayList<>();
+		/** entries of the gene table */
+		private final ArrayList<Entry> geneEntries = new ArrayList<>();
+		/** offsets of the strings in the string area */
+		private final HashMap<String, Integer> stringOffsets = new HashMap<>();
+		/** UTF-8 bytes of the strings, in the order of {@link #stringOffsets} */
+		private final ArrayList<byte[]> strings = new ArrayList<>();
+		/** size of the string area */
+		private int stringsLength = 0;
+
+		IndexBuilder(Iterable<TranscriptModel> transcripts) {
+			for (TranscriptModel tm : transcripts) {
+				final int transcript = chrIDs.size();
+				chrIDs.add(tm.getChr());
+				final int position = chromosomeSizes.getOrDefault(tm.getChr(), 0);
+				positions.add(position);
+				chromosomeSizes.put(tm.getChr(), position + 1);
+				accessionOffsets.add(addString(tm.getAccession()));
+
+				addEntry(accessionEntries, tm.getAccession(), transcript);
+				addEntry(accessionEntries, stripVersion(tm.getAccession()), transcript);
+				addEntry(geneEntries, tm.getGeneSymbol(), transcript);
+				addEntry(geneEntries, tm.getGeneID(), transcript);
+				if (tm.getAltGeneIDs() == null)
+					continue;
+				for (Map.Entry<String, String> altID : tm.getAltGeneIDs().entrySet()) {
+					final AltGeneIDType type = parseType(altID.getKey());
+					if (type == null || !GENE_ID_TYPES.contains(type))
+						continue;
+					if (type.isMulti())
+						for (String value : Splitter.on(type.getSeparator()).omitEmptyStrings().trimResults()
+								.split(altID.getValue()))
+							addEntry(geneEntries, value, transcript);
+					else
+						addEntry(geneEntries, altID.getValue(), transcript);
+				}
+			}
+		}
+
+		/** @return the index */
+		TranscriptLookupIndex build() {
+			final ArrayList<Entry> accessionTable = sortedUnique(accessionEntries);
+			final ArrayList<Entry> geneTable = sortedUnique(geneEntries);
+
+			ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE
+					+ chrIDs.size() * TRANSCRIPT_ENTRY_SIZE + (accessionTable.size() + geneTable.size()) * ENTRY_SIZE
+					+ stringsLength);
+			buf.put(MAGIC_BYTES);
+			buf.putInt(chrIDs.size());
+			buf.putInt(accessionTable.size());
+			buf.putInt(geneTable.size());
+			buf.putInt(stringsLength);
+			for (int i = 0; i < chrIDs.size(); ++i) {
+				buf.putInt(chrIDs.get(i));
+				buf.putInt(positions.get(i));
+				buf.putInt(accessionOffsets.get(i));
+			}
+			for (ArrayList<Entry> table : ImmutableList.of(accessionTable, geneTable))
+				for (Entry entry : table) {
+					buf.putInt(entry.keyOffset);
+					buf.putInt(entry.transcript);
+				}
+			for (byte[] string : strings) {
+				buf.putShort((short) string.length);
+				buf.put(string);
+			}
+			return new TranscriptLookupIndex(buf);
+		}
+
+		/** Add entry for <code>key</code> unless it is <code>null</code> or empty */
+		private void addEntry(ArrayList<Entry> table, String key, int transcript) {
+			if (key == null || key.isEmpty())
+				return;
+			final int keyOffset = addString(key);
+			table.add(new Entry(key.getBytes(StandardCharsets.UTF_8), keyOffset, transcript));
+		}
+
+		/** @return offset of <code>str</code> in the string area, adding it if necessary */
+		private int addString(String str) {
+			Integer result = stringOffsets.get(str);
+			if (result == null) {
+				final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+				if (bytes.length > 0xffff)
+					throw new IllegalArgumentException("Key too long for transcript lookup index: " + str);
+				result = stringsLength;
+				stringOffsets.put(str, result);
+				strings.add(bytes);
+				stringsLength += Short.BYTES + bytes.length;
+			}
+			return result;
+		}
+
+		/** @return <code>entries</code> sorted by {@link #ORDER}, without duplicates */
+		private static ArrayList<Entry> sortedUnique(ArrayList<Entry> entries) {
+			entries.sort(ORDER);
+			ArrayList<Entry> result = new ArrayList<>();
+			for (Entry entry : entries) {
+				final Entry last = result.isEmpty() ? null : result.get(result.size() - 1);
+				if (last == null || last.keyOffset != entry.keyOffset || last.transcript != entry.transcript)
+					result.add(entry);
+			}
+			return result;
+		}
+
+		/** @return {@link AltGeneIDType} with the name <code>name</code>, <code>null</code> if there is none */
+		private static AltGeneIDType parseType(String name) {
+			try {
+				return AltGeneIDType.valueOf(name);
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+
+	}
+
+}
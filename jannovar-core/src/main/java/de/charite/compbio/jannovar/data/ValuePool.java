@@ -0,0 +1,45 @@
+package de.charite.compbio.jannovar.data;
+
+import java.util.HashMap;
+
+import com.google.common.collect.ImmutableSortedMap;
+
+/**
+ * Pool of shared instances for equal values in serialized Jannovar databases
+ *
+ * All isoforms of a gene carry equal gene symbols, gene IDs, and alternative gene ID maps. Without pooling, each
+ * {@link de.charite.compbio.jannovar.reference.TranscriptModel} keeps its own copy of these values in memory and in the
+ * serialized database. Only short strings and small maps are pooled, such that transcript sequences and the large maps
+ * of {@link JannovarData} are not hashed.
+ *
+ * This class is not thread safe, one pool is used per object stream.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class ValuePool {
+
+	/** strings up to this length are pooled */
+	static final int MAX_STRING_LENGTH = 64;
+
+	/** {@link ImmutableSortedMap}s up to this size are pooled */
+	static final int MAX_MAP_SIZE = 32;
+
+	/** the pooled values, mapped to themselves */
+	private final HashMap<Object, Object> pool = new HashMap<>();
+
+	/**
+	 * @param obj
+	 *            value to look up
+	 * @return pooled instance equal to <code>obj</code>, <code>obj</code> itself if it is not pooled yet or not
+	 *         poolable
+	 */
+	Object intern(Object obj) {
+		if ((obj instanceof String && ((String) obj).length() <= MAX_STRING_LENGTH)
+				|| (obj instanceof ImmutableSortedMap && ((ImmutableSortedMap<?, ?>) obj).size() <= MAX_MAP_SIZE)) {
+			final Object pooled = pool.putIfAbsent(obj, obj);
+			return (pooled == null) ? obj : pooled;
+		}
+		return obj;
+	}
+
+}
@@ -0,0 +1,238 @@
+package de.charite.compbio.jannovar.impl.intervals;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Compact, primitive-typed counterpart to {@link IntervalArray} for large numbers of intervals.
+ *
+ * Intervals are stored as half-open <code>[begin, end)</code> pairs in parallel <code>int</code> arrays,
+ * sorted by <code>(begin, end)</code>, together with an <code>int</code> value per interval (e.g., an index
+ * into a payload array kept by the caller). Overlap queries use the prefix maximum of the end positions, which
+ * allows to find the first candidate with a binary search and then scan to the right while the begin
+ * positions are left of the query end.
+ *
+ * For sorted query streams, use a {@link Cursor} which advances linearly instead of performing a binary search
+ * for each query.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class PrimitiveIntervalArray implements Serializable {
+
+	/** version number to use when serializing */
+	private static final long serialVersionUID = 1L;
+
+	/** begin positions of the intervals (inclusive), sorted */
+	private final int[] begins;
+
+	/** end positions of the intervals (exclusive) */
+	private final int[] ends;
+
+	/** prefix maximum of {@link #ends}, used for pruning */
+	private final int[] maxEnds;
+
+	/** values stored for the intervals */
+	private final int[] values;
+
+	private PrimitiveIntervalArray(int[] begins, int[] ends, int[] values) {
+		this.begins = begins;
+		this.ends = ends;
+		this.values = values;
+		this.maxEnds = new int[ends.length];
+		int maxEnd = Integer.MIN_VALUE;
+		for (int i = 0; i < ends.length; ++i) {
+			maxEnd = Math.max(maxEnd, ends[i]);
+			maxEnds[i] = maxEnd;
+		}
+	}
+
+	/** @return the number of intervals */
+	public int size() {
+		return begins.length;
+	}
+
+	/** @return begin position of the <code>i</code>-th interval (inclusive) */
+	public int getBegin(int i) {
+		return begins[i];
+	}
+
+	/** @return end position of the <code>i</code>-th interval (exclusive) */
+	public int getEnd(int i) {
+		return ends[i];
+	}
+
+	/** @return value of the <code>i</code>-th interval */
+	public int getValue(int i) {
+		return values[i];
+	}
+
+	/**
+	 * Find the index of the first interval that could overlap with a query starting at <code>begin</code>.
+	 *
+	 * All intervals left of the returned index end at or before <code>begin</code>. Callers then scan to the
+	 * right while {@link #getBegin(int)} is left of the query end and check {@link #getEnd(int)} for each
+	 * interval.
+	 *
+	 * @param begin
+	 *            zero-based begin position of the query
+	 * @return index of the first candidate interval, {@link #size()} if there is none
+	 */
+	public int findFirstCandidate(int begin) {
+		int lo = 0;
+		int hi = maxEnds.length;
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (maxEnds[mid] <= begin)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Query for the values of all intervals overlapping with <code>[begin, end)</code>.
+	 *
+	 * @param begin
+	 *            zero-based begin position of the query interval
+	 * @param end
+	 *            zero-based end position of the query interval
+	 * @return indices of the overlapping intervals, in the order of the array
+	 */
+	public int[] findOverlappingWithInterval(int begin, int end) {
+		return collectOverlapping(findFirstCandidate(begin), begin, end);
+	}
+
+	/** Collect indices of intervals overlapping with <code>[begin, end)</code>, starting at <code>from</code> */
+	private int[] collectOverlapping(int from, int begin, int end) {
+		int[] result = new int[4];
+		int count = 0;
+		for (int i = from; i < begins.length && begins[i] < end; ++i) {
+			if (ends[i] > begin) {
+				if (count == result.length)
+					result = Arrays.copyOf(result, 2 * count);
+				result[count++] = i;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	/** @return a new {@link Cursor} for sorted queries, positioned at the first interval */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Query helper for streams of queries that are sorted by begin position.
+	 *
+	 * Moving forward advances the cursor linearly from the previous position, moving backward falls back to a
+	 * binary search. Objects of this class are not thread-safe.
+	 */
+	public final class Cursor {
+
+		/** current candidate index */
+		private int pos = 0;
+
+		/** begin position of the previous query */
+		private int lastBegin = Integer.MIN_VALUE;
+
+		/**
+		 * Query for the indices of all intervals overlapping with <code>[begin, end)</code>.
+		 *
+		 * @param begin
+		 *            zero-based begin position of the query interval
+		 * @param end
+		 *            zero-based end position of the query interval
+		 * @return indices of the overlapping intervals, in the order of the array
+		 */
+		public int[] findOverlappingWithInterval(int begin, int end) {
+			return collectOverlapping(seek(begin), begin, end);
+		}
+
+		/**
+		 * Move cursor to the first candidate interval for a query starting at <code>begin</code>.
+		 *
+		 * @param begin
+		 *            zero-based begin position of the query
+		 * @return index of the first candidate interval, {@link #size()} if there is none
+		 */
+		public int seek(int begin) {
+			if (begin < lastBegin) {
+				pos = findFirstCandidate(begin);
+			} else {
+				while (pos < maxEnds.length && maxEnds[pos] <= begin)
+					++pos;
+			}
+			lastBegin = begin;
+			return pos;
+		}
+
+	}
+
+	/**
+	 * Builder for {@link PrimitiveIntervalArray}, intervals can be added in any order.
+	 */
+	public static final class Builder {
+
+		/** begin positions added so far */
+		private int[] begins = new int[16];
+
+		/** end positions added so far */
+		private int[] ends = new int[16];
+
+		/** values added so far */
+		private int[] values = new int[16];
+
+		/** number of intervals added so far */
+		private int size = 0;
+
+		/**
+		 * Add interval <code>[begin, end)</code> with the given <code>value</code>.
+		 *
+		 * @return <code>this</code>
+		 */
+		public Builder add(int begin, int end, int value) {
+			if (size == begins.length) {
+				begins = Arrays.copyOf(begins, 2 * size);
+				ends = Arrays.copyOf(ends, 2 * size);
+				values = Arrays.copyOf(values, 2 * size);
+			}
+			begins[size] = begin;
+			ends[size] = end;
+			values[size] = value;
+			++size;
+			return this;
+		}
+
+		/** @return number of intervals added so far */
+		public int size() {
+			return size;
+		}
+
+		/** @return {@link PrimitiveIntervalArray} with the intervals, sorted by <code>(begin, end)</code> */
+		public PrimitiveIntervalArray build() {
+			// sort a permutation by (begin, end), stable with respect to insertion order
+			Integer[] perm = new Integer[size];
+			for (int i = 0; i < size; ++i)
+				perm[i] = i;
+			Arrays.sort(perm, (lhs, rhs) -> {
+				final int result = Integer.compare(begins[lhs], begins[rhs]);
+				if (result != 0)
+					return result;
+				return Integer.compare(ends[lhs], ends[rhs]);
+			});
+
+			int[] sortedBegins = new int[size];
+			int[] sortedEnds = new int[size];
+			int[] sortedValues = new int[size];
+			for (int i = 0; i < size; ++i) {
+				sortedBegins[i] = begins[perm[i]];
+				sortedEnds[i] = ends[perm[i]];
+				sortedValues[i] = values[perm[i]];
+			}
+			return new PrimitiveIntervalArray(sortedBegins, sortedEnds, sortedValues);
+		}
+
+	}
+
+}
@@ -16,6 +16,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
 import de.charite.compbio.jannovar.JannovarException;
@@ -27,8 +28,8 @@ import de.charite.compbio.jannovar.impl.parse.FASTAParser;
 import de.charite.compbio.jannovar.impl.parse.FASTARecord;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParseException;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParser;
+import de.charite.compbio.jannovar.impl.parse.gtfgff.ChunkedGFFParser;
 import de.charite.compbio.jannovar.impl.parse.gtfgff.FeatureRecord;
-import de.charite.compbio.jannovar.impl.parse.gtfgff.GFFParser;
 import de.charite.compbio.jannovar.impl.util.PathUtil;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
 import de.charite.compbio.jannovar.reference.Strand;
@@ -49,6 +50,9 @@ public class EnsemblParser implements TranscriptParser {
 	/** the logger object to use */
 	private static final Logger LOGGER = LoggerFactory.getLogger(EnsemblParser.class);
 
+	/** Keys of the GFF attributes used when building the transcripts, the others are not decoded */
+	private static final ImmutableSet<String> ATTRIBUTE_KEYS = ImmutableSet.of("gene_id", "gene_name", "transcript_id", "transcript_name");
+
 	/**
 	 * Path to the {@link ReferenceDictionary} to use for name/id and id/length mapping
 	 */
@@ -278,10 +282,10 @@ public class EnsemblParser implements TranscriptParser {
 	private HashMap<String, ArrayList<FeatureRecord>> loadRecords(String pathGFF) throws TranscriptParseException {
 		HashMap<String, ArrayList<FeatureRecord>> result = new HashMap<String, ArrayList<FeatureRecord>>();
 
-		// Open file using GFFParser
-		GFFParser parser;
+		// Open file using ChunkedGFFParser, the blocks of the file are parsed in parallel
+		ChunkedGFFParser parser;
 		try {
-			parser = new GFFParser(new File(pathGFF));
+			parser = new ChunkedGFFParser(new File(pathGFF), ATTRIBUTE_KEYS);
 		} catch (IOException e) {
 			throw new TranscriptParseException("Problem opening GFF file", e);
 		}
@@ -305,6 +309,12 @@ public class EnsemblParser implements TranscriptParser {
 			}
 		} catch (IOException e) {
 			throw new TranscriptParseException("Problem parsing GFF file", e);
+		} finally {
+			try {
+				parser.close();
+			} catch (IOException e) {
+				LOGGER.warn("Problem closing GFF file", e);
+			}
 		}
 
 		LOGGER.info("Loaded {} GFF records for {} genes", new Object[] { numRecords, result.size() });
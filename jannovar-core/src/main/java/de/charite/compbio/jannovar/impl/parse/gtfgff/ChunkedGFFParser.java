@@ -0,0 +1,230 @@
+package de.charite.compbio.jannovar.impl.parse.gtfgff;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableSet;
+
+import de.charite.compbio.jannovar.impl.parse.gtfgff.GFFParser.GFFVersion;
+
+/**
+ * Parallel parsing of a stream of {@link FeatureRecord} objects from a GTF or GFF file
+ *
+ * <p>
+ * The (decompressed) file is read in blocks of complete lines that are parsed from the bytes on a
+ * {@link ForkJoinPool}, while the records are returned in the order of the file. Optionally, only the attributes
+ * with the given keys are decoded, which saves most of the parsing time and memory for the attribute-heavy GFF3
+ * files of RefSeq and the GTF files of ENSEMBL.
+ * </p>
+ *
+ * <p>
+ * The records are the same as the ones returned by {@link GFFParser}, except for the omitted attributes.
+ * </p>
+ *
+ * This class is state-ful and not thread safe.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ChunkedGFFParser implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ChunkedGFFParser.class);
+
+	/** Default size of the blocks to parse in one task */
+	public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+	/** The decompressed input */
+	private final InputStream stream;
+	/** Keys of the attributes to decode, <code>null</code> for all */
+	private final ImmutableSet<String> attributeKeys;
+	/** Pool for parsing the blocks */
+	private final ForkJoinPool pool;
+	/** Size of the blocks */
+	private final int chunkSize;
+	/** Maximal number of blocks read ahead */
+	private final int maxPending;
+
+	/** Blocks being parsed, in the order of the file */
+	private final ArrayDeque<ForkJoinTask<List<FeatureRecord>>> pending = new ArrayDeque<>();
+	/** Incomplete last line of the previous block */
+	private byte[] carry = new byte[0];
+	/** Whether the end of {@link #stream} has been reached */
+	private boolean eof = false;
+
+	/** Records of the current block */
+	private List<FeatureRecord> current = Collections.emptyList();
+	/** Index of the next record to return from {@link #current} */
+	private int currentPos = 0;
+
+	/** The version of the file, determined from the header */
+	private GFFVersion gffVersion = GFFVersion.GTF;
+	/** Whether the header has been read completely */
+	private boolean headerDone = false;
+
+	/**
+	 * Initialize with a file, gzip compression is automatically recognized, parse on the common pool.
+	 *
+	 * @param file
+	 *            The file to read from
+	 * @param attributeKeys
+	 *            keys of the attributes to decode, <code>null</code> for all
+	 * @throws IOException
+	 *             on I/O problems
+	 */
+	public ChunkedGFFParser(File file, Set<String> attributeKeys) throws IOException {
+		this(new FileInputStream(file), attributeKeys, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Initialize from a {@link InputStream}, gzip compression is automatically recognized.
+	 *
+	 * @param stream
+	 *            {@link InputStream} to read from
+	 * @param attributeKeys
+	 *            keys of the attributes to decode, <code>null</code> for all
+	 * @param pool
+	 *            {@link ForkJoinPool} for parsing the blocks
+	 * @param chunkSize
+	 *            size of the blocks to parse in one task, in bytes
+	 * @throws IOException
+	 *             on I/O problems
+	 */
+	public ChunkedGFFParser(InputStream stream, Set<String> attributeKeys, ForkJoinPool pool, int chunkSize)
+			throws IOException {
+		this.stream = openStream(stream);
+		this.attributeKeys = (attributeKeys == null) ? null : ImmutableSet.copyOf(attributeKeys);
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+		this.maxPending = 2 * pool.getParallelism();
+
+		// Read until the end of the header such that the version is known
+		while (!headerDone && !eof)
+			submitNextChunk();
+		LOGGER.info("Determined GTF/GFF file version to be {}", new Object[] { gffVersion });
+		fillPending();
+	}
+
+	/**
+	 * Open <code>stream</code>, decompressing it if it is gzip compressed
+	 */
+	private static InputStream openStream(InputStream stream) throws IOException {
+		PushbackInputStream pb = new PushbackInputStream(stream, 2);
+		byte[] signature = new byte[2];
+		final int len = pb.read(signature);
+		if (len > 0)
+			pb.unread(signature, 0, len);
+		if (len == 2 && signature[0] == (byte) 0x1f && signature[1] == (byte) 0x8b)
+			return new GZIPInputStream(pb, 64 * 1024);
+		else
+			return pb;
+	}
+
+	/**
+	 * Reads next record from the GFF file and return it, <code>null</code> when the file is at its end.
+	 *
+	 * @return {@link FeatureRecord} or <code>null</code>
+	 * @throws IOException
+	 *             on problems with reading the GFF files
+	 */
+	public FeatureRecord next() throws IOException {
+		while (currentPos == current.size()) {
+			if (pending.isEmpty())
+				return null;
+			current = pending.poll().join();
+			currentPos = 0;
+			fillPending();
+		}
+		return current.get(currentPos++);
+	}
+
+	/** @return GFF version detected from the stream */
+	public GFFVersion getGFFVersion() {
+		return gffVersion;
+	}
+
+	/** Read ahead up to {@link #maxPending} blocks */
+	private void fillPending() throws IOException {
+		while (!eof && pending.size() < maxPending)
+			submitNextChunk();
+	}
+
+	/** Read next block of complete lines and submit it for parsing */
+	private void submitNextChunk() throws IOException {
+		byte[] buf = new byte[Math.max(chunkSize, 2 * carry.length)];
+		System.arraycopy(carry, 0, buf, 0, carry.length);
+		int len = carry.length;
+		int lineEnd = -1; // position after last line break
+
+		while (true) {
+			final int numRead = stream.read(buf, len, buf.length - len);
+			if (numRead < 0) {
+				eof = true;
+				lineEnd = len;
+				break;
+			}
+			len += numRead;
+			if (len < buf.length)
+				continue;
+			for (int i = len - 1; i >= 0 && lineEnd < 0; --i)
+				if (buf[i] == '\n')
+					lineEnd = i + 1;
+			if (lineEnd >= 0)
+				break;
+			buf = Arrays.copyOf(buf, 2 * buf.length); // line longer than block
+		}
+
+		carry = Arrays.copyOfRange(buf, lineEnd, len);
+		if (!headerDone)
+			readHeader(buf, lineEnd);
+
+		final byte[] chunk = buf;
+		final int chunkLen = lineEnd;
+		final FeatureChunkParser parser = new FeatureChunkParser(gffVersion, attributeKeys);
+		pending.add(pool.submit(() -> parser.parse(chunk, chunkLen)));
+	}
+
+	/** Interpret the leading comment lines of <code>buf[0, len)</code>, as {@link GFFParser} does */
+	private void readHeader(byte[] buf, int len) {
+		int lineBegin = 0;
+		while (lineBegin < len) {
+			int lineEnd = lineBegin;
+			while (lineEnd < len && buf[lineEnd] != '\n')
+				++lineEnd;
+			final String line = new String(buf, lineBegin, lineEnd - lineBegin, StandardCharsets.UTF_8);
+			if (!line.startsWith("#")) {
+				headerDone = true;
+				return;
+			} else if (line.startsWith("##gff-version")) {
+				String[] tokens = line.trim().split(" ");
+				if (tokens[1].equals("3"))
+					gffVersion = GFFVersion.GFF3;
+			}
+			lineBegin = lineEnd + 1;
+		}
+	}
+
+	/** Close the input and cancel the parsing of blocks read ahead */
+	@Override
+	public void close() throws IOException {
+		for (ForkJoinTask<List<FeatureRecord>> task : pending)
+			task.cancel(false);
+		pending.clear();
+		stream.close();
+	}
+
+}
@@ -0,0 +1,352 @@
+package de.charite.compbio.jannovar.impl.parse.gtfgff;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableMap;
+
+import de.charite.compbio.jannovar.impl.parse.gtfgff.GFFParser.GFFVersion;
+
+/**
+ * Parsing of a block of complete GTF or GFF3 lines from a byte array
+ *
+ * The result is the same as with {@link GTFRecordParser} and {@link GFFRecordParser}, but the fields are parsed
+ * directly from the bytes. Optionally, only the attributes with the given keys are decoded into the records' attribute
+ * maps, the values of all other attributes are skipped.
+ *
+ * Objects of this class are not thread-safe, use one per block.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class FeatureChunkParser {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(FeatureChunkParser.class);
+
+	/** States of the GTF attribute parser, as in {@link GTFRecordParser} */
+	private enum State {
+		INITIAL, KEY, VALUE, VALUE_QUOTED, VALUE_QUOTED_ESCAPED
+	}
+
+	/** Version of the file, selects the attribute syntax */
+	private final GFFVersion gffVersion;
+	/** Keys of the attributes to decode, <code>null</code> for all */
+	private final String[] keys;
+	/** {@link #keys} as UTF-8 bytes */
+	private final byte[][] keyBytes;
+
+	/** Values of the {@link #keys} in the current line, <code>null</code> if not present */
+	private final String[] values;
+	/** All attributes of the current line, if {@link #keys} is <code>null</code> */
+	private final Map<String, String> allValues = new HashMap<>();
+
+	/** Buffer for GTF attribute keys */
+	private byte[] keyBuf = new byte[64];
+	/** Buffer for GTF attribute values */
+	private byte[] valueBuf = new byte[256];
+
+	/** Positions of the tab characters ending the fields of the current line */
+	private final int[] fieldEnds = new int[9];
+
+	/**
+	 * The last decoded strings of the sequence, source, type, and score columns, reused if consecutive lines have the
+	 * same value
+	 */
+	private final String[] lastColumn = new String[4];
+	/** Bytes of {@link #lastColumn} */
+	private final byte[][] lastColumnBytes = new byte[4][];
+
+	/**
+	 * @param gffVersion
+	 *            version of the file
+	 * @param attributeKeys
+	 *            keys of the attributes to decode, <code>null</code> for all
+	 */
+	FeatureChunkParser(GFFVersion gffVersion, Set<String> attributeKeys) {
+		this.gffVersion = gffVersion;
+		if (attributeKeys == null) {
+			this.keys = null;
+			this.keyBytes = null;
+			this.values = null;
+		} else {
+			this.keys = attributeKeys.toArray(new String[0]);
+			this.keyBytes = new byte[keys.length][];
+			for (int i = 0; i < keys.length; ++i)
+				this.keyBytes[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+			this.values = new String[keys.length];
+		}
+	}
+
+	/**
+	 * Parse the lines in <code>buf[0, len)</code>, skipping comment lines
+	 *
+	 * @param buf
+	 *            buffer with complete lines, the last line may lack the line break
+	 * @param len
+	 *            number of bytes to parse
+	 * @return {@link List} of the parsed {@link FeatureRecord}s, in the order of the lines
+	 */
+	List<FeatureRecord> parse(byte[] buf, int len) {
+		List<FeatureRecord> result = new ArrayList<>();
+		int lineBegin = 0;
+		while (lineBegin < len) {
+			int lineEnd = lineBegin;
+			while (lineEnd < len && buf[lineEnd] != '\n')
+				++lineEnd;
+			if (buf[lineBegin] != '#')
+				result.add(parseLine(buf, lineBegin, lineEnd));
+			lineBegin = lineEnd + 1;
+		}
+		return result;
+	}
+
+	/** Parse the line <code>buf[begin, end)</code>, same as {@link FeatureRecordParser#parseLine} */
+	private FeatureRecord parseLine(byte[] buf, int begin, int end) {
+		// trim, as String.trim()
+		while (begin < end && (buf[begin] & 0xff) <= ' ')
+			++begin;
+		while (end > begin && (buf[end - 1] & 0xff) <= ' ')
+			--end;
+
+		// find the tabs between the nine fields
+		int numFields = 0;
+		for (int i = begin; i <= end; ++i) {
+			if (i == end || buf[i] == '\t') {
+				if (numFields == 9)
+					throw new RuntimeException("Wrong number of fields in GFF file!");
+				fieldEnds[numFields++] = i;
+			}
+		}
+		if (numFields != 9)
+			throw new RuntimeException("Wrong number of fields in GFF file!");
+
+		final String chrom = column(0, buf, begin, fieldEnds[0]);
+		final String source = column(1, buf, fieldEnds[0] + 1, fieldEnds[1]);
+		final String type = column(2, buf, fieldEnds[1] + 1, fieldEnds[2]);
+		final int beginPos = parseInt(buf, fieldEnds[2] + 1, fieldEnds[3]) - 1;
+		final int endPos = parseInt(buf, fieldEnds[3] + 1, fieldEnds[4]);
+		final String score = column(3, buf, fieldEnds[4] + 1, fieldEnds[5]);
+		final FeatureRecord.Strand strand = (fieldEnds[6] - fieldEnds[5] == 2 && buf[fieldEnds[5] + 1] == '+')
+				? FeatureRecord.Strand.FORWARD : FeatureRecord.Strand.REVERSE;
+
+		int phase = 0;
+		final int phaseBegin = fieldEnds[6] + 1;
+		final int phaseEnd = fieldEnds[7];
+		if (!(phaseEnd - phaseBegin == 1 && buf[phaseBegin] == '.')) {
+			try {
+				phase = parseInt(buf, phaseBegin, phaseEnd);
+			} catch (NumberFormatException e) {
+				LOGGER.warn("Invalid phase {}", new Object[] { decode(buf, phaseBegin, phaseEnd) });
+			}
+		}
+		if (phase < 0 || phase > 3)
+			phase = 0;
+
+		final int attrBegin = fieldEnds[7] + 1;
+		final int attrEnd = fieldEnds[8];
+		if (gffVersion == GFFVersion.GTF)
+			parseGTFAttributes(buf, attrBegin, attrEnd);
+		else
+			parseGFFAttributes(buf, attrBegin, attrEnd);
+
+		return new FeatureRecord(chrom, source, type, beginPos, endPos, score, strand, phase, buildAttributes());
+	}
+
+	/** @return string for column <code>col</code>, reusing the one of the previous line if equal */
+	private String column(int col, byte[] buf, int begin, int end) {
+		final byte[] last = lastColumnBytes[col];
+		if (last != null && last.length == end - begin) {
+			boolean equal = true;
+			for (int i = 0; equal && i < last.length; ++i)
+				equal = (last[i] == buf[begin + i]);
+			if (equal)
+				return lastColumn[col];
+		}
+		lastColumnBytes[col] = Arrays.copyOfRange(buf, begin, end);
+		lastColumn[col] = decode(buf, begin, end);
+		return lastColumn[col];
+	}
+
+	private static String decode(byte[] buf, int begin, int end) {
+		return new String(buf, begin, end - begin, StandardCharsets.UTF_8);
+	}
+
+	/** @return integer in <code>buf[begin, end)</code>, throwing {@link NumberFormatException} as Integer.parseInt */
+	private static int parseInt(byte[] buf, int begin, int end) {
+		final boolean negative = (end > begin && buf[begin] == '-');
+		int i = (negative || (end > begin && buf[begin] == '+')) ? begin + 1 : begin;
+		if (i == end || end - i > 9)
+			return Integer.parseInt(decode(buf, begin, end)); // empty or possible overflow, let the JDK decide
+		int result = 0;
+		for (; i < end; ++i) {
+			final int digit = buf[i] - '0';
+			if (digit < 0 || digit > 9)
+				throw new NumberFormatException("For input string: \"" + decode(buf, begin, end) + "\"");
+			result = 10 * result + digit;
+		}
+		return negative ? -result : result;
+	}
+
+	/**
+	 * Register attribute with key <code>keySrc[keyBegin, keyEnd)</code> and value
+	 * <code>valueSrc[valueBegin, valueEnd)</code>
+	 */
+	private void putAttribute(byte[] keySrc, int keyBegin, int keyEnd, byte[] valueSrc, int valueBegin,
+			int valueEnd) {
+		if (keys == null) {
+			allValues.put(decode(keySrc, keyBegin, keyEnd), decode(valueSrc, valueBegin, valueEnd));
+			return;
+		}
+		final int idx = findKey(keySrc, keyBegin, keyEnd);
+		if (idx >= 0)
+			values[idx] = decode(valueSrc, valueBegin, valueEnd);
+	}
+
+	/** @return index of the key in <code>buf[begin, end)</code> in {@link #keys}, <code>-1</code> if not found */
+	private int findKey(byte[] buf, int begin, int end) {
+		for (int k = 0; k < keyBytes.length; ++k) {
+			final byte[] key = keyBytes[k];
+			if (key.length != end - begin)
+				continue;
+			int i = 0;
+			while (i < key.length && key[i] == buf[begin + i])
+				++i;
+			if (i == key.length)
+				return k;
+		}
+		return -1;
+	}
+
+	/** @return attributes collected for the current line, resetting the collection */
+	private ImmutableMap<String, String> buildAttributes() {
+		if (keys == null) {
+			final ImmutableMap<String, String> result = ImmutableMap.copyOf(allValues);
+			allValues.clear();
+			return result;
+		}
+		ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+		for (int k = 0; k < keys.length; ++k) {
+			if (values[k] != null) {
+				builder.put(keys[k], values[k]);
+				values[k] = null;
+			}
+		}
+		return builder.build();
+	}
+
+	/** Parse GFF3 attributes in <code>buf[begin, end)</code>, as {@link GFFRecordParser} */
+	private void parseGFFAttributes(byte[] buf, int begin, int end) {
+		int fieldBegin = begin;
+		for (int i = begin; i <= end; ++i) {
+			if (i != end && buf[i] != ';')
+				continue;
+			// field is buf[fieldBegin, i), split at first '=' and trim both parts
+			int eq = fieldBegin;
+			while (eq < i && buf[eq] != '=')
+				++eq;
+			if (eq == i) {
+				LOGGER.warn("Found attribute not following key=value format (skipping) {}",
+						new Object[] { decode(buf, fieldBegin, i).trim() });
+			} else {
+				int keyBegin = fieldBegin;
+				int keyEnd = eq;
+				while (keyBegin < keyEnd && isTrimmed(buf[keyBegin]))
+					++keyBegin;
+				while (keyEnd > keyBegin && isTrimmed(buf[keyEnd - 1]))
+					--keyEnd;
+				int valueBegin = eq + 1;
+				int valueEnd = i;
+				while (valueBegin < valueEnd && isTrimmed(buf[valueBegin]))
+					++valueBegin;
+				while (valueEnd > valueBegin && isTrimmed(buf[valueEnd - 1]))
+					--valueEnd;
+				putAttribute(buf, keyBegin, keyEnd, buf, valueBegin, valueEnd);
+			}
+			fieldBegin = i + 1;
+		}
+	}
+
+	/** Parse GTF attributes in <code>buf[begin, end)</code>, as {@link GTFRecordParser} */
+	private void parseGTFAttributes(byte[] buf, int begin, int end) {
+		int keyLen = 0;
+		int valueLen = 0;
+		State state = State.INITIAL;
+
+		for (int i = begin; i < end; ++i) {
+			final byte c = buf[i];
+			switch (state) {
+			case INITIAL:
+				if (!isWhitespace(c)) {
+					state = State.KEY;
+					keyLen = append(c, keyLen, true);
+				}
+				break;
+			case KEY:
+				if (isWhitespace(c))
+					state = State.VALUE;
+				else
+					keyLen = append(c, keyLen, true);
+				break;
+			case VALUE:
+				if (c == '"') {
+					state = State.VALUE_QUOTED;
+				} else if (c == ';') {
+					putAttribute(keyBuf, 0, keyLen, valueBuf, 0, valueLen);
+					keyLen = 0;
+					valueLen = 0;
+					state = State.INITIAL;
+				} else {
+					valueLen = append(c, valueLen, false);
+				}
+				break;
+			case VALUE_QUOTED:
+				if (c == '\\')
+					state = State.VALUE_QUOTED_ESCAPED;
+				else if (c == '"')
+					state = State.VALUE;
+				else
+					valueLen = append(c, valueLen, false);
+				break;
+			case VALUE_QUOTED_ESCAPED:
+				if (c != '"')
+					valueLen = append((byte) '"', valueLen, false);
+				valueLen = append(c, valueLen, false);
+			}
+		}
+
+		if (keyLen > 0)
+			putAttribute(keyBuf, 0, keyLen, valueBuf, 0, valueLen);
+	}
+
+	/** Append <code>c</code> to {@link #keyBuf} or {@link #valueBuf} of length <code>len</code>, return new length */
+	private int append(byte c, int len, boolean toKey) {
+		byte[] target = toKey ? keyBuf : valueBuf;
+		if (len == target.length) {
+			target = Arrays.copyOf(target, 2 * len);
+			if (toKey)
+				keyBuf = target;
+			else
+				valueBuf = target;
+		}
+		target[len] = c;
+		return len + 1;
+	}
+
+	/** @return whether <code>c</code> is an ASCII whitespace character as trimmed by Guava's <code>Splitter</code> */
+	private static boolean isTrimmed(byte c) {
+		return c == ' ' || (c >= 0x09 && c <= 0x0d);
+	}
+
+	/** @return whether <code>c</code> is an ASCII whitespace character as by {@link Character#isWhitespace} */
+	private static boolean isWhitespace(byte c) {
+		return c == ' ' || (c >= 0x09 && c <= 0x0d) || (c >= 0x1c && c <= 0x1f);
+	}
+
+}
@@ -29,8 +29,8 @@ import de.charite.compbio.jannovar.impl.parse.FASTAParser;
 import de.charite.compbio.jannovar.impl.parse.FASTARecord;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParseException;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParser;
+import de.charite.compbio.jannovar.impl.parse.gtfgff.ChunkedGFFParser;
 import de.charite.compbio.jannovar.impl.parse.gtfgff.FeatureRecord;
-import de.charite.compbio.jannovar.impl.parse.gtfgff.GFFParser;
 import de.charite.compbio.jannovar.impl.util.PathUtil;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
 import de.charite.compbio.jannovar.reference.Strand;
@@ -47,6 +47,9 @@ public class RefSeqParser implements TranscriptParser {
 	/** the logger object to use */
 	private static final Logger LOGGER = LoggerFactory.getLogger(RefSeqParser.class);
 
+	/** Keys of the GFF attributes used when building the transcripts, the others are not decoded */
+	private static final ImmutableSet<String> ATTRIBUTE_KEYS = ImmutableSet.of("ID", "Parent", "Name", "Dbxref");
+
 	/** List of transcript-level feature types */
 	private static final ImmutableSet<String> TX_LEVEL_FEATURE_TYPES = ImmutableSet.of("mRNA", "ncRNA", "rRNA", "tRNA",
 			"primary_transcript", "transcript");
@@ -322,10 +325,10 @@ public class RefSeqParser implements TranscriptParser {
 	private HashMap<String, ArrayList<FeatureRecord>> loadRecords(String pathGFF) throws TranscriptParseException {
 		HashMap<String, ArrayList<FeatureRecord>> result = new HashMap<String, ArrayList<FeatureRecord>>();
 
-		// Open file using GFFParser
-		GFFParser parser;
+		// Open file using ChunkedGFFParser, the blocks of the file are parsed in parallel
+		ChunkedGFFParser parser;
 		try {
-			parser = new GFFParser(new File(pathGFF));
+			parser = new ChunkedGFFParser(new File(pathGFF), ATTRIBUTE_KEYS);
 		} catch (IOException e) {
 			throw new TranscriptParseException("Problem opening GFF file", e);
 		}
@@ -366,6 +369,12 @@ public class RefSeqParser implements TranscriptParser {
 			}
 		} catch (IOException e) {
 			throw new TranscriptParseException("Problem parsing GFF file", e);
+		} finally {
+			try {
+				parser.close();
+			} catch (IOException e) {
+				LOGGER.warn("Problem closing GFF file", e);
+			}
 		}
 
 		LOGGER.info("Loaded {} GFF records for {} genes", new Object[] { numRecords, result.size() });
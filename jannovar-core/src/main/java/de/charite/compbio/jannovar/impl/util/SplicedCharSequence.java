@@ -0,0 +1,114 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import de.charite.compbio.jannovar.Immutable;
+
+/**
+ * Read-only view of a suffix of a sequence in which one range is replaced by another sequence.
+ *
+ * The view consists of the characters of the base sequence from <code>offset</code> up to the replaced range, the
+ * replacement, and the characters of the base sequence after the replaced range. No characters are copied on
+ * construction, such that applying a variant to a transcript sequence does not require a copy of the full transcript.
+ * Only {@link #toString} and {@link #subSequence} create new strings.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@Immutable
+public final class SplicedCharSequence implements CharSequence {
+
+	/** the underlying sequence */
+	private final CharSequence base;
+	/** begin of the view in {@link #base} */
+	private final int offset;
+	/** begin of the replaced range in {@link #base} */
+	private final int replacedBegin;
+	/** end of the replaced range in {@link #base} */
+	private final int replacedEnd;
+	/** the replacement of the range */
+	private final CharSequence replacement;
+	/** length of the view */
+	private final int length;
+
+	private SplicedCharSequence(CharSequence base, int offset, int replacedBegin, int replacedEnd,
+			CharSequence replacement) {
+		this.base = base;
+		this.offset = offset;
+		this.replacedBegin = replacedBegin;
+		this.replacedEnd = replacedEnd;
+		this.replacement = replacement;
+		this.length = base.length() - offset - (replacedEnd - replacedBegin) + replacement.length();
+	}
+
+	/**
+	 * @param base
+	 *            the underlying sequence
+	 * @param offset
+	 *            begin of the view in <code>base</code>
+	 * @return view of <code>base</code> starting at <code>offset</code>
+	 * @throws IndexOutOfBoundsException
+	 *             if <code>offset</code> is not within <code>base</code>
+	 */
+	public static SplicedCharSequence suffix(CharSequence base, int offset) {
+		return replace(base, offset, 0, 0, "");
+	}
+
+	/**
+	 * @param base
+	 *            the underlying sequence
+	 * @param offset
+	 *            begin of the view in <code>base</code>
+	 * @param begin
+	 *            begin of the replaced range, relative to <code>offset</code>
+	 * @param end
+	 *            end of the replaced range, relative to <code>offset</code>
+	 * @param replacement
+	 *            sequence to put in place of the range
+	 * @return view of <code>base</code> starting at <code>offset</code> with the range replaced
+	 * @throws IndexOutOfBoundsException
+	 *             if <code>offset</code> or the range are not within <code>base</code>
+	 */
+	public static SplicedCharSequence replace(CharSequence base, int offset, int begin, int end,
+			CharSequence replacement) {
+		if (offset < 0 || begin < 0 || begin > end || offset + end > base.length())
+			throw new IndexOutOfBoundsException("Invalid range " + begin + "-" + end + " at offset " + offset
+					+ " for sequence of length " + base.length());
+		return new SplicedCharSequence(base, offset, offset + begin, offset + end, replacement);
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length)
+			throw new IndexOutOfBoundsException("Index " + index + " out of range for length " + length);
+		final int pos = offset + index;
+		if (pos < replacedBegin)
+			return base.charAt(pos);
+		else if (pos < replacedBegin + replacement.length())
+			return replacement.charAt(pos - replacedBegin);
+		else
+			return base.charAt(pos - replacement.length() + (replacedEnd - replacedBegin));
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || start > end || end > length)
+			throw new IndexOutOfBoundsException("Invalid range " + start + "-" + end + " for length " + length);
+		StringBuilder builder = new StringBuilder(end - start);
+		for (int i = start; i < end; ++i)
+			builder.append(charAt(i));
+		return builder.toString();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(length);
+		builder.append(base, offset, replacedBegin);
+		builder.append(replacement);
+		builder.append(base, replacedEnd, base.length());
+		return builder.toString();
+	}
+
+}
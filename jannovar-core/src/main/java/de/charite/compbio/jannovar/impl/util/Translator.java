@@ -17,6 +17,10 @@ public final class Translator {
 	private ImmutableMap<String, String> codon1 = null;
 	/** Map of genetic code. Keys are codons and values are the corresponding amino acid (three-letter code) */
 	private ImmutableMap<String, String> codon3 = null;
+	/** {@link #codon1} as array, indexed by {@link #codonIndex} */
+	private String[] codon1Table = null;
+	/** {@link #codon3} as array, indexed by {@link #codonIndex} */
+	private String[] codon3Table = null;
 	/** Map of IUPAC ambiguity codes. */
 	@SuppressWarnings("unused")
 	private ImmutableMap<String, String> iupac = null;
@@ -57,13 +61,13 @@ public final class Translator {
 	 *            A DNA sequence that is to be translated
 	 * @return corresonding aminoacid sequence
 	 */
-	public String translateDNA(String dnaseq) {
-		return translateDNA(dnaseq, this.codon1);
+	public String translateDNA(CharSequence dnaseq) {
+		return translateDNA(dnaseq, this.codon1Table);
 	}
 
 	// same as above but returning 3-letter AA codes
-	public String translateDNA3(String dnaseq) {
-		return translateDNA(dnaseq, this.codon3);
+	public String translateDNA3(CharSequence dnaseq) {
+		return translateDNA(dnaseq, this.codon3Table);
 	}
 
 	/**
@@ -87,8 +91,8 @@ public final class Translator {
 		return shortToLong.get("" + c);
 	}
 
-	private String translateDNA(String dnaseq, ImmutableMap<String, String> codonTable) {
-		StringBuilder aminoAcidSeq = new StringBuilder();
+	private String translateDNA(CharSequence dnaseq, String[] codonTable) {
+		StringBuilder aminoAcidSeq = new StringBuilder(dnaseq.length() / 3);
 		int len = dnaseq.length();
 		if (!(len % 3 == 0)) {
 			len = len - (len % 3);
@@ -98,10 +102,10 @@ public final class Translator {
 			// throw new AnnotationException(err);
 		}
 		for (int i = 0; i < len; i += 3) {
-			String nt3 = dnaseq.substring(i, i + 3);
-			String aa = codonTable.get(nt3);
+			final int idx = codonIndex(dnaseq, i);
+			String aa = (idx < 0) ? null : codonTable[idx];
 			if (aa == null) {
-				if (nt3.contains("N")) {
+				if (dnaseq.charAt(i) == 'N' || dnaseq.charAt(i + 1) == 'N' || dnaseq.charAt(i + 2) == 'N') {
 					aa = "X";
 				} else {
 					/*
@@ -116,6 +120,43 @@ public final class Translator {
 		return aminoAcidSeq.toString();
 	}
 
+	/**
+	 * @return index of the codon starting at <code>pos</code> in <code>seq</code> in the codon tables, -1 if it contains
+	 *         characters other than <code>A</code>, <code>C</code>, <code>G</code>, and <code>T</code>
+	 */
+	private static int codonIndex(CharSequence seq, int pos) {
+		int idx = 0;
+		for (int i = pos; i < pos + 3; ++i) {
+			final int code;
+			switch (seq.charAt(i)) {
+			case 'A':
+				code = 0;
+				break;
+			case 'C':
+				code = 1;
+				break;
+			case 'G':
+				code = 2;
+				break;
+			case 'T':
+				code = 3;
+				break;
+			default:
+				return -1;
+			}
+			idx = (idx << 2) | code;
+		}
+		return idx;
+	}
+
+	/** @return array with the values of <code>codonMap</code>, indexed by {@link #codonIndex} */
+	private static String[] buildCodonTable(ImmutableMap<String, String> codonMap) {
+		String[] result = new String[64];
+		for (Map.Entry<String, String> entry : codonMap.entrySet())
+			result[codonIndex(entry.getKey(), 0)] = entry.getValue();
+		return result;
+	}
+
 	/**
 	 * Initializes a set of maps that represent the gene code with various aminoacid codes. Also initializes map of
 	 * IUPAC codes.
@@ -305,6 +346,8 @@ public final class Translator {
 
 		this.codon1 = codon1.build();
 		this.codon3 = codon3.build();
+		this.codon1Table = buildCodonTable(this.codon1);
+		this.codon3Table = buildCodonTable(this.codon3);
 		this.iupac = iupac.build();
 		this.shortToLong = shortToLong.build();
 	}
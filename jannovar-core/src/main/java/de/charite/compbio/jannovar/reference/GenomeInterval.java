@@ -75,10 +75,9 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 			this.beginPos = other.beginPos;
 			this.endPos = other.endPos;
 		} else {
-			int beginPos = refDict.getContigIDToLength().get(other.chr) - other.beginPos;
-			int endPos = refDict.getContigIDToLength().get(other.chr) - other.endPos;
-			this.endPos = beginPos;
-			this.beginPos = endPos;
+			final int contigLength = refDict.getContigLength(other.chr);
+			this.beginPos = contigLength - other.endPos;
+			this.endPos = contigLength - other.beginPos;
 		}
 	}
 
@@ -117,6 +116,16 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 		return endPos;
 	}
 
+	/** @return 0-based begin position after conversion to <code>strand</code>, see {@link #withStrand} */
+	int getBeginPos(Strand strand) {
+		return (strand == this.strand) ? beginPos : refDict.getContigLength(chr) - endPos;
+	}
+
+	/** @return 0-based end position after conversion to <code>strand</code>, see {@link #withStrand} */
+	int getEndPos(Strand strand) {
+		return (strand == this.strand) ? endPos : refDict.getContigLength(chr) - beginPos;
+	}
+
 	/** convert into GenomeInterval of the given strand */
 	public GenomeInterval withStrand(Strand strand) {
 		return new GenomeInterval(this, strand);
@@ -143,10 +152,9 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	public GenomeInterval intersection(GenomeInterval other) {
 		if (chr != other.chr)
 			return new GenomeInterval(refDict, strand, chr, beginPos, beginPos, PositionType.ZERO_BASED);
-		other = other.withStrand(strand);
 
-		int beginPos = Math.max(this.beginPos, other.beginPos);
-		int endPos = Math.min(this.endPos, other.endPos);
+		int beginPos = Math.max(this.beginPos, other.getBeginPos(strand));
+		int endPos = Math.min(this.endPos, other.getEndPos(strand));
 		if (endPos < beginPos)
 			beginPos = endPos;
 
@@ -161,10 +169,9 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	public GenomeInterval union(GenomeInterval other) {
 		if (chr != other.chr)
 			return new GenomeInterval(refDict, strand, chr, beginPos, beginPos, PositionType.ZERO_BASED);
-		other = other.withStrand(strand);
 
-		int beginPos = Math.min(this.beginPos, other.beginPos);
-		int endPos = Math.max(this.endPos, other.endPos);
+		int beginPos = Math.min(this.beginPos, other.getBeginPos(strand));
+		int endPos = Math.max(this.endPos, other.getEndPos(strand));
 		if (endPos < beginPos)
 			beginPos = endPos;
 
@@ -179,9 +186,7 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	public boolean isLeftOf(GenomePosition pos) {
 		if (chr != pos.getChr())
 			return false; // wrong chromosome
-		if (pos.getStrand() != strand)
-			pos = pos.withStrand(strand); // ensure that we are on the correct strand
-		return (pos.getPos() >= endPos);
+		return (pos.getPos(strand) >= endPos); // compare on the correct strand
 	}
 
 	/**
@@ -192,9 +197,7 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	public boolean isRightOf(GenomePosition pos) {
 		if (chr != pos.getChr())
 			return false; // wrong chromosome
-		if (pos.getStrand() != strand)
-			pos = pos.withStrand(strand); // ensure that we are on the correct strand
-		return (pos.getPos() < beginPos);
+		return (pos.getPos(strand) < beginPos); // compare on the correct strand
 	}
 
 	/**
@@ -205,9 +208,7 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	public boolean isLeftOfGap(GenomePosition pos) {
 		if (chr != pos.getChr())
 			return false; // wrong chromosome
-		if (pos.getStrand() != strand)
-			pos = pos.withStrand(strand); // ensure that we are on the correct strand
-		return (pos.getPos() >= endPos);
+		return (pos.getPos(strand) >= endPos); // compare on the correct strand
 	}
 
 	/**
@@ -218,9 +219,7 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	public boolean isRightOfGap(GenomePosition pos) {
 		if (chr != pos.getChr())
 			return false; // wrong chromosome
-		if (pos.getStrand() != strand)
-			pos = pos.withStrand(strand); // ensure that we are on the correct strand
-		return (pos.getPos() <= beginPos);
+		return (pos.getPos(strand) <= beginPos); // compare on the correct strand
 	}
 
 	/**
@@ -231,9 +230,8 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 	public boolean contains(GenomePosition pos) {
 		if (chr != pos.getChr())
 			return false; // wrong chromosome
-		if (pos.getStrand() != strand)
-			pos = pos.withStrand(strand); // ensure that we are on the correct strand
-		return (pos.getPos() >= beginPos && pos.getPos() < endPos);
+		final int p = pos.getPos(strand); // compare on the correct strand
+		return (p >= beginPos && p < endPos);
 	}
 
 	/**
@@ -245,9 +243,8 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 		// TODO(holtgrem): Test this.
 		if (chr != other.chr)
 			return false; // wrong chromosome
-		if (other.strand != strand)
-			other = other.withStrand(strand); // ensure that we are on the correct strand
-		return (other.beginPos >= beginPos && other.endPos <= endPos);
+		// compare on the correct strand
+		return (other.getBeginPos(strand) >= beginPos && other.getEndPos(strand) <= endPos);
 	}
 
 	/**
@@ -275,8 +272,7 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 		// TODO(holtgrem): add test for this
 		if (chr != other.chr)
 			return false;
-		other = other.withStrand(strand);
-		return (other.beginPos < endPos && beginPos < other.endPos);
+		return (other.getBeginPos(strand) < endPos && beginPos < other.getEndPos(strand));
 	}
 
 	/*
@@ -325,23 +321,19 @@ public final class GenomeInterval implements Serializable, Comparable<GenomeInte
 		if (getClass() != obj.getClass())
 			return false;
 		GenomeInterval other = (GenomeInterval) obj;
-		other = other.withStrand(strand);
-		if (beginPos != other.beginPos)
-			return false;
 		if (chr != other.chr)
 			return false;
-		if (endPos != other.endPos)
+		if (beginPos != other.getBeginPos(strand))
 			return false;
-		if (strand != other.strand)
+		if (endPos != other.getEndPos(strand))
 			return false;
 		return true;
 	}
 
 	@Override
 	public int compareTo(GenomeInterval other) {
-		other = other.withStrand(strand);
-		return ComparisonChain.start().compare(getChr(), other.getChr()).compare(getBeginPos(), other.getBeginPos())
-				.compare(getEndPos(), other.getEndPos()).result();
+		return ComparisonChain.start().compare(chr, other.chr).compare(beginPos, other.getBeginPos(strand))
+				.compare(endPos, other.getEndPos(strand)).result();
 	}
 
 }
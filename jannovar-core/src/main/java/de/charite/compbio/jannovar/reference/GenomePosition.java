@@ -75,10 +75,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 		this.chr = other.chr;
 
 		// transform coordinate system
-		if (strand == other.strand)
-			this.pos = other.pos;
-		else
-			this.pos = refDict.getContigIDToLength().get(other.chr) - other.pos - 1;
+		this.pos = other.getPos(strand);
 	}
 
 	/** @return reference dictionary to use for coordinate translation */
@@ -101,6 +98,11 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 		return pos;
 	}
 
+	/** @return the position after conversion to <code>strand</code>, see {@link #withStrand} */
+	int getPos(Strand strand) {
+		return PackedGenomePosition.convertPos(refDict, chr, pos, this.strand, strand);
+	}
+
 	/** convert into GenomePosition of the given strand */
 	public GenomePosition withStrand(Strand strand) {
 		return new GenomePosition(this, strand);
@@ -110,9 +112,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	 * @return <tt>true</tt> if this position is left of the other (on this strand).
 	 */
 	public boolean isLt(GenomePosition other) {
-		if (other.strand != strand)
-			other = other.withStrand(strand);
-		return (pos < other.pos);
+		return (pos < other.getPos(strand));
 	}
 
 	/**
@@ -121,9 +121,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public boolean isLeq(GenomePosition other) {
 		if (other.chr != chr)
 			return false;
-		if (other.strand != strand)
-			other = other.withStrand(strand);
-		return (pos <= other.pos);
+		return (pos <= other.getPos(strand));
 	}
 
 	/**
@@ -132,9 +130,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public boolean isGt(GenomePosition other) {
 		if (other.chr != chr)
 			return false;
-		if (other.strand != strand)
-			other = other.withStrand(strand);
-		return (pos > other.pos);
+		return (pos > other.getPos(strand));
 	}
 
 	/**
@@ -143,9 +139,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public boolean isGeq(GenomePosition other) {
 		if (other.chr != chr)
 			return false;
-		if (other.strand != strand)
-			other = other.withStrand(strand);
-		return (pos >= other.pos);
+		return (pos >= other.getPos(strand));
 	}
 
 	/**
@@ -154,9 +148,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public boolean isEq(GenomePosition other) {
 		if (other.chr != chr)
 			return false;
-		if (other.strand != strand)
-			other = other.withStrand(strand);
-		return (pos == other.pos);
+		return (pos == other.getPos(strand));
 	}
 
 	/**
@@ -170,9 +162,7 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public int differenceTo(GenomePosition pos) {
 		if (chr != pos.chr)
 			throw new InvalidCoordinateException("Coordinates are on different chromosomes " + this + " vs. " + pos);
-		if (pos.strand != strand)
-			pos = pos.withStrand(strand);
-		return (this.pos - pos.pos);
+		return (this.pos - pos.getPos(strand));
 	}
 
 	/**
@@ -186,16 +176,16 @@ public final class GenomePosition implements Serializable, Comparable<GenomePosi
 	public int differenceTo(GenomeInterval itv) {
 		if (chr != itv.getChr())
 			throw new InvalidCoordinateException("Coordinates are on different chromosomes " + this + " vs. " + itv);
-		if (itv.getStrand() != strand)
-			itv = itv.withStrand(strand);
+		final int beginPos = itv.getBeginPos(strand);
+		final int endPos = itv.getEndPos(strand);
 
-		if (itv.contains(this))
+		if (pos >= beginPos && pos < endPos)
 			return 0;
 
-		int a = differenceTo(itv.getGenomeBeginPos());
-		if (itv.length() == 0)
+		int a = pos - beginPos;
+		if (endPos == beginPos)
 			return a;
-		int b = differenceTo(itv.getGenomeEndPos().shifted(-1));
+		int b = pos - (endPos - 1);
 		if (Math.abs(a) < Math.abs(b))
 			return a;
 		else
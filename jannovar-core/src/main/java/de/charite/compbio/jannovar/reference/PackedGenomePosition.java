@@ -0,0 +1,168 @@
+package de.charite.compbio.jannovar.reference;
+
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+
+/**
+ * Static helpers for genome positions packed into a primitive <code>long</code>.
+ *
+ * A packed position has the same meaning as a {@link GenomePosition} with zero-based coordinates: the chromosome ID is
+ * stored in the upper 31 bits, the strand in bit 32 (set for {@link Strand#REV}), and the position in the lower 32
+ * bits. Packed positions do not carry a {@link ReferenceDictionary}, it has to be passed to the operations that convert
+ * between strands.
+ *
+ * This is used in the hot paths of the annotation, where creating {@link GenomePosition} objects for shifting and
+ * strand conversion would dominate the allocation. {@link GenomePosition} and {@link GenomeInterval} remain the public
+ * API for all other uses.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class PackedGenomePosition {
+
+	/** bit that is set for positions on the reverse strand */
+	private static final long REVERSE_BIT = 1L << 32;
+
+	/** shift of the chromosome ID */
+	private static final int CHR_SHIFT = 33;
+
+	/** mask for the position */
+	private static final long POS_MASK = 0xFFFFFFFFL;
+
+	/** static helpers only */
+	private PackedGenomePosition() {
+	}
+
+	/**
+	 * @param chr
+	 *            numeric chromosome ID
+	 * @param strand
+	 *            the strand of the position
+	 * @param pos
+	 *            zero-based position on <code>strand</code>
+	 * @return packed position
+	 */
+	public static long pack(int chr, Strand strand, int pos) {
+		return ((long) chr << CHR_SHIFT) | (strand == Strand.REV ? REVERSE_BIT : 0) | (pos & POS_MASK);
+	}
+
+	/** @return packed representation of <code>pos</code> */
+	public static long of(GenomePosition pos) {
+		return pack(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/** @return packed begin position of <code>itv</code>, same as {@link GenomeInterval#getGenomeBeginPos} */
+	public static long beginOf(GenomeInterval itv) {
+		return pack(itv.getChr(), itv.getStrand(), itv.getBeginPos());
+	}
+
+	/** @return packed end position of <code>itv</code>, same as {@link GenomeInterval#getGenomeEndPos} */
+	public static long endOf(GenomeInterval itv) {
+		return pack(itv.getChr(), itv.getStrand(), itv.getEndPos());
+	}
+
+	/** @return {@link GenomePosition} for the packed position <code>pos</code> */
+	public static GenomePosition toGenomePosition(ReferenceDictionary refDict, long pos) {
+		return new GenomePosition(refDict, getStrand(pos), getChr(pos), getPos(pos));
+	}
+
+	/** @return numeric chromosome ID of <code>pos</code> */
+	public static int getChr(long pos) {
+		return (int) (pos >> CHR_SHIFT);
+	}
+
+	/** @return strand of <code>pos</code> */
+	public static Strand getStrand(long pos) {
+		return isReverse(pos) ? Strand.REV : Strand.FWD;
+	}
+
+	/** @return <code>true</code> if <code>pos</code> is on the reverse strand */
+	public static boolean isReverse(long pos) {
+		return (pos & REVERSE_BIT) != 0;
+	}
+
+	/** @return zero-based position of <code>pos</code> on its strand */
+	public static int getPos(long pos) {
+		return (int) pos;
+	}
+
+	/**
+	 * @return <code>pos</code> shifted by <code>delta</code> towards the 3' end of its strand (5' end if negative), see
+	 *         {@link GenomePosition#shifted}
+	 */
+	public static long shifted(long pos, int delta) {
+		return (pos & ~POS_MASK) | ((getPos(pos) + delta) & POS_MASK);
+	}
+
+	/**
+	 * @param pos
+	 *            packed position to convert
+	 * @param strand
+	 *            the strand to convert to
+	 * @param refDict
+	 *            {@link ReferenceDictionary} with the contig length of <code>pos</code>
+	 * @return <code>pos</code> converted to <code>strand</code>, see {@link GenomePosition#withStrand}
+	 */
+	public static long withStrand(long pos, Strand strand, ReferenceDictionary refDict) {
+		if (getStrand(pos) == strand)
+			return pos;
+		return pack(getChr(pos), strand, flip(refDict, getChr(pos), getPos(pos)));
+	}
+
+	/**
+	 * @param pos
+	 *            packed position
+	 * @param strand
+	 *            the strand to return the position on
+	 * @param refDict
+	 *            {@link ReferenceDictionary} with the contig length of <code>pos</code>
+	 * @return zero-based position of <code>pos</code> on <code>strand</code>
+	 */
+	public static int getPos(long pos, Strand strand, ReferenceDictionary refDict) {
+		return convertPos(refDict, getChr(pos), getPos(pos), getStrand(pos), strand);
+	}
+
+	/**
+	 * @return <code>true</code> if <code>itv</code> contains <code>pos</code>, see
+	 *         {@link GenomeInterval#contains(GenomePosition)}
+	 */
+	public static boolean contains(GenomeInterval itv, long pos) {
+		if (itv.getChr() != getChr(pos))
+			return false;
+		final int p = getPos(pos, itv.getStrand(), itv.getRefDict());
+		return (p >= itv.getBeginPos() && p < itv.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if <code>itv</code> is truly left of the base that <code>pos</code> points to, see
+	 *         {@link GenomeInterval#isLeftOf(GenomePosition)}
+	 */
+	public static boolean isLeftOf(GenomeInterval itv, long pos) {
+		if (itv.getChr() != getChr(pos))
+			return false;
+		return getPos(pos, itv.getStrand(), itv.getRefDict()) >= itv.getEndPos();
+	}
+
+	/**
+	 * @return <code>true</code> if <code>itv</code> is truly right of the base that <code>pos</code> points to, see
+	 *         {@link GenomeInterval#isRightOf(GenomePosition)}
+	 */
+	public static boolean isRightOf(GenomeInterval itv, long pos) {
+		if (itv.getChr() != getChr(pos))
+			return false;
+		return getPos(pos, itv.getStrand(), itv.getRefDict()) < itv.getBeginPos();
+	}
+
+	/**
+	 * Convert zero-based position between strands
+	 *
+	 * @return <code>pos</code> on strand <code>from</code> converted to strand <code>to</code>
+	 */
+	static int convertPos(ReferenceDictionary refDict, int chr, int pos, Strand from, Strand to) {
+		return (from == to) ? pos : flip(refDict, chr, pos);
+	}
+
+	/** @return zero-based position <code>pos</code> on the other strand */
+	private static int flip(ReferenceDictionary refDict, int chr, int pos) {
+		return refDict.getContigLength(chr) - pos - 1;
+	}
+
+}
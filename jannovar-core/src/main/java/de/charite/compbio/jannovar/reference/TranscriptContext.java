@@ -0,0 +1,109 @@
+package de.charite.compbio.jannovar.reference;
+
+import de.charite.compbio.jannovar.impl.util.Translator;
+
+/**
+ * The decorators of a {@link TranscriptModel} together with data derived from the transcript, for sharing between the
+ * annotation of several variants.
+ *
+ * The derived data (e.g., the translated wild type protein) is computed on first access. Objects of this class are
+ * not thread-safe, use {@link #forTranscript} for obtaining the context of the current thread.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class TranscriptContext {
+
+	/** the per-thread cache of the contexts used by {@link #forTranscript} */
+	private static final ThreadLocal<TranscriptContextCache> CACHE = new ThreadLocal<TranscriptContextCache>() {
+		@Override
+		protected TranscriptContextCache initialValue() {
+			return new TranscriptContextCache();
+		}
+	};
+
+	/** the transcript */
+	private final TranscriptModel transcript;
+	/** helper for sequence ontology terms */
+	private final TranscriptSequenceOntologyDecorator soDecorator;
+	/** helper for coordinate transformations */
+	private final TranscriptProjectionDecorator projector;
+	/** helper for updating CDS/TX sequence */
+	private final TranscriptSequenceChangeHelper seqChangeHelper;
+	/** helper for sequence access */
+	private final TranscriptSequenceDecorator seqDecorator;
+
+	/** transcript sequence starting at the CDS, computed on first access */
+	private CharSequence cdsView;
+	/** translation of {@link #cdsView}, computed on first access */
+	private String wildTypeProtein;
+
+	/**
+	 * Construct context for the given {@link TranscriptModel}
+	 *
+	 * @param transcript
+	 *            the {@link TranscriptModel} to construct the context for
+	 */
+	public TranscriptContext(TranscriptModel transcript) {
+		this.transcript = transcript;
+		this.projector = new TranscriptProjectionDecorator(transcript);
+		this.soDecorator = new TranscriptSequenceOntologyDecorator(transcript, projector);
+		this.seqChangeHelper = new TranscriptSequenceChangeHelper(transcript, projector, soDecorator);
+		this.seqDecorator = new TranscriptSequenceDecorator(transcript);
+	}
+
+	/**
+	 * Return context for the given transcript from the cache of the current thread.
+	 *
+	 * The cache keeps the contexts of the transcripts close to the last requested one, such that the contexts are
+	 * reused when annotating variants in sorted order.
+	 *
+	 * @param transcript
+	 *            the {@link TranscriptModel} to return the context for
+	 * @return {@link TranscriptContext} for <code>transcript</code>
+	 */
+	public static TranscriptContext forTranscript(TranscriptModel transcript) {
+		return CACHE.get().get(transcript);
+	}
+
+	/** @return the transcript */
+	public TranscriptModel getTranscript() {
+		return transcript;
+	}
+
+	/** @return the {@link TranscriptSequenceOntologyDecorator} for the transcript */
+	public TranscriptSequenceOntologyDecorator getSODecorator() {
+		return soDecorator;
+	}
+
+	/** @return the {@link TranscriptProjectionDecorator} for the transcript */
+	public TranscriptProjectionDecorator getProjector() {
+		return projector;
+	}
+
+	/** @return the {@link TranscriptSequenceChangeHelper} for the transcript */
+	public TranscriptSequenceChangeHelper getSeqChangeHelper() {
+		return seqChangeHelper;
+	}
+
+	/** @return the {@link TranscriptSequenceDecorator} for the transcript */
+	public TranscriptSequenceDecorator getSeqDecorator() {
+		return seqDecorator;
+	}
+
+	/**
+	 * @return view of the transcript sequence starting at the CDS, see {@link TranscriptSequenceChangeHelper#getCDSView}
+	 */
+	public CharSequence getCDSView() {
+		if (cdsView == null)
+			cdsView = seqChangeHelper.getCDSView();
+		return cdsView;
+	}
+
+	/** @return translation of {@link #getCDSView}, including the amino acids after the stop codon */
+	public String getWildTypeProtein() {
+		if (wildTypeProtein == null)
+			wildTypeProtein = Translator.getTranslator().translateDNA(getCDSView());
+		return wildTypeProtein;
+	}
+
+}
@@ -0,0 +1,65 @@
+package de.charite.compbio.jannovar.reference;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Cache of {@link TranscriptContext} objects for a sweep over the genome in sorted order.
+ *
+ * When a context for a new transcript is added, the contexts of transcripts on other chromosomes and of transcripts
+ * ending far left of the new one are evicted since the sweep has moved past them. The number of contexts is limited by
+ * {@link #MAX_SIZE} for unsorted access. The cache is not thread-safe.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class TranscriptContextCache {
+
+	/** maximal number of cached contexts */
+	static final int MAX_SIZE = 256;
+
+	/**
+	 * distance between the end of a transcript and the begin of the new one after which the context is evicted, covers
+	 * the upstream and downstream regions of both
+	 */
+	static final int EVICTION_DISTANCE = 2000;
+
+	/** the cached contexts, in order of insertion */
+	private final ArrayList<TranscriptContext> contexts = new ArrayList<>();
+
+	/**
+	 * @param transcript
+	 *            the {@link TranscriptModel} to return the context for
+	 * @return cached {@link TranscriptContext} for <code>transcript</code>, newly created if not in cache
+	 */
+	TranscriptContext get(TranscriptModel transcript) {
+		// search from the back, recently added contexts are more likely to be requested
+		for (int i = contexts.size() - 1; i >= 0; --i)
+			if (contexts.get(i).getTranscript() == transcript)
+				return contexts.get(i);
+
+		evictBefore(transcript);
+		if (contexts.size() >= MAX_SIZE)
+			contexts.subList(0, MAX_SIZE / 2).clear();
+		TranscriptContext result = new TranscriptContext(transcript);
+		contexts.add(result);
+		return result;
+	}
+
+	/** @return number of cached contexts */
+	int size() {
+		return contexts.size();
+	}
+
+	/** Evict contexts of transcripts on other chromosomes or far left of <code>transcript</code> */
+	private void evictBefore(TranscriptModel transcript) {
+		final GenomeInterval txRegion = transcript.getTXRegion();
+		final int beginPos = txRegion.getBeginPos(Strand.FWD);
+		Iterator<TranscriptContext> it = contexts.iterator();
+		while (it.hasNext()) {
+			final GenomeInterval other = it.next().getTranscript().getTXRegion();
+			if (other.getChr() != txRegion.getChr() || other.getEndPos(Strand.FWD) + EVICTION_DISTANCE < beginPos)
+				it.remove();
+		}
+	}
+
+}
@@ -1,5 +1,6 @@
 package de.charite.compbio.jannovar.reference;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.Map;
 
@@ -71,6 +72,9 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	/** Class version (for serialization). */
 	private static final long serialVersionUID = 3L;
 
+	/** Region classification, built on first access by {@link #getRegionIndex}. */
+	private transient volatile TranscriptRegionIndex regionIndex;
+
 	/**
 	 * Initialize the {@link TranscriptModel} object from the given parameters.
 	 */
@@ -192,6 +196,20 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 		return result;
 	}
 
+	/**
+	 * Return the {@link TranscriptRegionIndex} of this transcript, building it on first access.
+	 *
+	 * The index is not serialized. Building it more than once in concurrent first accesses is harmless.
+	 *
+	 * @return the {@link TranscriptRegionIndex} with the regions of this transcript
+	 */
+	public TranscriptRegionIndex getRegionIndex() {
+		TranscriptRegionIndex result = regionIndex;
+		if (result == null)
+			regionIndex = result = new TranscriptRegionIndex(this);
+		return result;
+	}
+
 	/**
 	 * @param i
 	 *            0-based index of the intron's region to return
@@ -300,4 +318,70 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 		return accession.compareTo(o.accession);
 	}
 
+
+	/**
+	 * Serialize as {@link SerializedForm}, with the exons as primitive coordinates
+	 *
+	 * Transcripts with exons that do not share reference dictionary, strand, and chromosome of the transcript region
+	 * are serialized as they are.
+	 */
+	private Object writeReplace() {
+		if (txRegion == null || exonRegions == null)
+			return this;
+		int[] exonPositions = new int[2 * exonRegions.size()];
+		int i = 0;
+		for (GenomeInterval region : exonRegions) {
+			if (region.refDict != txRegion.refDict || region.getStrand() != txRegion.getStrand()
+					|| region.getChr() != txRegion.getChr())
+				return this;
+			exonPositions[i++] = region.getBeginPos();
+			exonPositions[i++] = region.getEndPos();
+		}
+		return new SerializedForm(this, exonPositions);
+	}
+
+	/**
+	 * Compact serialized form of {@link TranscriptModel}
+	 *
+	 * The exons are stored as pairs of zero-based begin and end positions instead of one {@link GenomeInterval} object
+	 * each, reference dictionary, strand, and chromosome are taken from the transcript region.
+	 */
+	private static final class SerializedForm implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String accession;
+		private final String geneSymbol;
+		private final GenomeInterval txRegion;
+		private final GenomeInterval cdsRegion;
+		/** begin and end position of each exon, in the order of {@link TranscriptModel#exonRegions} */
+		private final int[] exonPositions;
+		private final String sequence;
+		private final String geneID;
+		private final ImmutableSortedMap<String, String> altGeneIDs;
+		private final int transcriptSupportLevel;
+
+		SerializedForm(TranscriptModel tm, int[] exonPositions) {
+			this.accession = tm.accession;
+			this.geneSymbol = tm.geneSymbol;
+			this.txRegion = tm.txRegion;
+			this.cdsRegion = tm.cdsRegion;
+			this.exonPositions = exonPositions;
+			this.sequence = tm.sequence;
+			this.geneID = tm.geneID;
+			this.altGeneIDs = tm.altGeneIDs;
+			this.transcriptSupportLevel = tm.transcriptSupportLevel;
+		}
+
+		private Object readResolve() throws ObjectStreamException {
+			ImmutableList.Builder<GenomeInterval> exonRegions = ImmutableList.builder();
+			for (int i = 0; i + 1 < exonPositions.length; i += 2)
+				exonRegions.add(new GenomeInterval(txRegion.refDict, txRegion.getStrand(), txRegion.getChr(),
+						exonPositions[i], exonPositions[i + 1]));
+			return new TranscriptModel(accession, geneSymbol, txRegion, cdsRegion, exonRegions.build(), sequence,
+					geneID, transcriptSupportLevel, altGeneIDs);
+		}
+
+	}
+
 }
@@ -5,6 +5,10 @@ import de.charite.compbio.jannovar.Immutable;
 /**
  * Wraps a {@link TranscriptModel} object and allow the coordinate conversion.
  *
+ * The conversions work on the primitive exon coordinates and {@link PackedGenomePosition}s internally, such that only
+ * the returned position objects are allocated. The transcript positions of the exon begins are computed on
+ * construction, use {@link TranscriptContext} for sharing decorators between the annotation of several variants.
+ *
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
 @Immutable
@@ -18,6 +22,12 @@ public final class TranscriptProjectionDecorator {
 	/** the transcript information to perform the projection upon. */
 	private final TranscriptModel transcript;
 
+	/** transcript position of the begin of each exon, followed by the transcript length */
+	private final int[] exonTranscriptBegins;
+
+	/** transcript position of the CDS begin, computed on first use, -1 if not computed yet */
+	private int cdsBeginTranscriptPos = -1;
+
 	/**
 	 * Initialize the object with the given {@link TranscriptModel}
 	 *
@@ -26,6 +36,9 @@ public final class TranscriptProjectionDecorator {
 	 */
 	public TranscriptProjectionDecorator(TranscriptModel transcript) {
 		this.transcript = transcript;
+		this.exonTranscriptBegins = new int[transcript.getExonRegions().size() + 1];
+		for (int i = 0; i < transcript.getExonRegions().size(); ++i)
+			exonTranscriptBegins[i + 1] = exonTranscriptBegins[i] + transcript.getExonRegions().get(i).length();
 	}
 
 	/**
@@ -53,8 +66,7 @@ public final class TranscriptProjectionDecorator {
 	 */
 	public String getTranscriptStartingAtCDS() {
 		try {
-			TranscriptPosition tBeginPos = genomeToTranscriptPos(transcript.getCDSRegion().getGenomeBeginPos());
-			return transcript.getSequence().substring(tBeginPos.getPos(), transcript.getSequence().length());
+			return transcript.getSequence().substring(getCDSBeginTranscriptPos(), transcript.getSequence().length());
 		} catch (ProjectionException e) {
 			throw new Error("Bug: CDS begin must be translatable into transcript positions");
 		}
@@ -73,20 +85,16 @@ public final class TranscriptProjectionDecorator {
 		if (!transcript.getTXRegion().contains(pos)) // guard against incorrect position
 			throw new ProjectionException("Position " + pos + " is not in the transcript region "
 					+ transcript.getTXRegion());
-		pos = pos.withStrand(transcript.getStrand());
+		// The exons are on the transcript's strand, so compare with the position on this strand.
+		final int p = pos.getPos(transcript.getStrand());
 
 		// Look through all exons, find containing one, and compute the position.
-		int tOffset = 0; // offset in transcript
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.contains(pos)) {
-				// Note that we have to use *the region's position* as the base object for the difference operation so
-				// the case of the transcript on the reverse strand but position on forward strand is handled correctly.
-				// Consequently, we have to *subtract* this difference from transcriptPos.
-				int posInExon = pos.differenceTo(region.getGenomeBeginPos());
-				int transcriptPos = tOffset + posInExon;
+		for (int i = 0; i < transcript.getExonRegions().size(); ++i) {
+			final GenomeInterval region = transcript.getExonRegions().get(i);
+			if (p >= region.getBeginPos() && p < region.getEndPos()) {
+				int transcriptPos = exonTranscriptBegins[i] + (p - region.getBeginPos());
 				return new TranscriptPosition(transcript, transcriptPos, PositionType.ZERO_BASED);
 			}
-			tOffset += region.length();
 		}
 
 		throw new ProjectionException("Position " + pos + " does not lie in an exon.");
@@ -110,9 +118,20 @@ public final class TranscriptProjectionDecorator {
 
 		// first convert from genome to transcript position
 		TranscriptPosition txPos = genomeToTranscriptPos(pos);
-		// now, compute offset of CDS start in transcript and shift txPos by this to obtain CDS position
-		TranscriptPosition cdsStartPos = genomeToTranscriptPos(transcript.getCDSRegion().getGenomeBeginPos());
-		return new CDSPosition(txPos.getTranscript(), txPos.getPos() - cdsStartPos.getPos(), PositionType.ZERO_BASED);
+		// now, shift txPos by the offset of CDS start in transcript to obtain CDS position
+		return new CDSPosition(txPos.getTranscript(), txPos.getPos() - getCDSBeginTranscriptPos(),
+				PositionType.ZERO_BASED);
+	}
+
+	/**
+	 * @return transcript position of the CDS begin
+	 * @throws ProjectionException
+	 *             if the CDS begin does not lie in an exon
+	 */
+	int getCDSBeginTranscriptPos() throws ProjectionException {
+		if (cdsBeginTranscriptPos < 0)
+			cdsBeginTranscriptPos = genomeToTranscriptPos(transcript.getCDSRegion().getGenomeBeginPos()).getPos();
+		return cdsBeginTranscriptPos;
 	}
 
 	/**
@@ -123,14 +142,15 @@ public final class TranscriptProjectionDecorator {
 	 * @return the corresponding genome position for pos, will be on the same strand as the transcript
 	 */
 	public TranscriptPosition cdsToTranscriptPos(CDSPosition pos) {
-		final GenomePosition cdsBeginPos = transcript.getCDSRegion().getGenomeBeginPos();
+		// CDS and exons are on the transcript's strand
+		final int cdsBeginPos = transcript.getCDSRegion().getBeginPos();
 
 		int currPos = 0; // current transcript position
 		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.getGenomeEndPos().isLeq(cdsBeginPos)) {
+			if (region.getEndPos() <= cdsBeginPos) {
 				currPos += region.length();
 			} else {
-				currPos += cdsBeginPos.differenceTo(region.getGenomeBeginPos());
+				currPos += cdsBeginPos - region.getBeginPos();
 				break;
 			}
 		}
@@ -167,17 +187,17 @@ public final class TranscriptProjectionDecorator {
 		if (targetPos < 0)
 			throw new ProjectionException("Invalid transcript position " + targetPos);
 
-		int currPos = 0; // relative begin position of current exon
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (targetPos < currPos + region.length())
-				return region.getGenomeBeginPos().shifted(targetPos - currPos);
-			currPos += region.length();
+		final int exonID = exonContainingTranscriptPos(targetPos);
+		if (exonID < transcript.getExonRegions().size()) {
+			final GenomeInterval region = transcript.getExonRegions().get(exonID);
+			return new GenomePosition(region.getRefDict(), region.getStrand(), region.getChr(),
+					region.getBeginPos() + (targetPos - exonTranscriptBegins[exonID]));
 		}
 
 		// handling case of transcript end position
 		// TODO(holtgrewe): add test for this
 		GenomeInterval lastRegion = transcript.getExonRegions().get(transcript.getExonRegions().size() - 1);
-		if (targetPos == currPos)
+		if (targetPos == exonTranscriptBegins[exonID])
 			return lastRegion.getGenomeEndPos();
 
 		throw new ProjectionException("Invalid transcript position " + targetPos);
@@ -207,21 +227,33 @@ public final class TranscriptProjectionDecorator {
 	 *         region but in transcript interval
 	 */
 	public int locateIntron(GenomePosition pos) {
-		if (pos.getChr() != transcript.getChr()) // guard against different chromosomes
+		return locateIntron(PackedGenomePosition.of(pos));
+	}
+
+	/**
+	 * Returns (0-based) index of the intron (in the order determined by the transcript's strand).
+	 *
+	 * @param pos
+	 *            the {@link PackedGenomePosition} to use for querying
+	 * @return (0-based) index of the selected intron, or {@link #INVALID_INTRON_ID} if <tt>pos</tt> is not in exonic
+	 *         region but in transcript interval
+	 */
+	public int locateIntron(long pos) {
+		if (PackedGenomePosition.getChr(pos) != transcript.getChr()) // guard against different chromosomes
 			return INVALID_INTRON_ID;
-		if (pos.getStrand() != transcript.getStrand()) // ensure pos is on the same strand
-			pos = pos.withStrand(transcript.getStrand());
+		// ensure pos is on the same strand
+		final int p = PackedGenomePosition.getPos(pos, transcript.getStrand(), transcript.getTXRegion().getRefDict());
 
 		// handle the case that the position is outside the transcript region
-		if (transcript.getTXRegion().isLeftOf(pos) || transcript.getTXRegion().isRightOf(pos))
+		if (p >= transcript.getTXRegion().getEndPos() || p < transcript.getTXRegion().getBeginPos())
 			return INVALID_INTRON_ID;
 
 		// find exon containing pos or return null
 		int i = 0;
 		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.isRightOf(pos))
+			if (p < region.getBeginPos())
 				return i - 1;
-			if (region.contains(pos))
+			if (p < region.getEndPos())
 				return INVALID_INTRON_ID; // not in intron
 			++i;
 		}
@@ -238,20 +270,31 @@ public final class TranscriptProjectionDecorator {
 	 *         but in transcript interval
 	 */
 	public int locateExon(GenomePosition pos) {
-		if (pos.getChr() != transcript.getChr()) // guard against different chromosomes
+		return locateExon(PackedGenomePosition.of(pos));
+	}
+
+	/**
+	 * Returns (0-based) index of the exon (in the order determined by the transcript's strand).
+	 *
+	 * @param pos
+	 *            the {@link PackedGenomePosition} to use for querying
+	 * @return (0-based) index of the selected exon, or {@link #INVALID_EXON_ID} if <tt>pos</tt> is not in exonic region
+	 *         but in transcript interval
+	 */
+	public int locateExon(long pos) {
+		if (PackedGenomePosition.getChr(pos) != transcript.getChr()) // guard against different chromosomes
 			return INVALID_EXON_ID;
-		if (pos.getStrand() != transcript.getStrand()) // ensure pos is on the same strand
-			pos = pos.withStrand(transcript.getStrand());
+		// ensure pos is on the same strand
+		final int p = PackedGenomePosition.getPos(pos, transcript.getStrand(), transcript.getTXRegion().getRefDict());
 
 		// handle the case that the position is outside the transcript region
-		if (transcript.getTXRegion().isLeftOf(pos) || transcript.getTXRegion().isRightOf(pos))
+		if (p >= transcript.getTXRegion().getEndPos() || p < transcript.getTXRegion().getBeginPos())
 			return INVALID_EXON_ID;
 
-		// find exon containing pos or return null
-		GenomeInterval posBase = new GenomeInterval(pos, 1); // region of referenced base
+		// find exon containing the referenced base
 		int i = 0;
 		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.contains(posBase))
+			if (p >= region.getBeginPos() && p + 1 <= region.getEndPos())
 				return i;
 			++i;
 		}
@@ -274,20 +317,33 @@ public final class TranscriptProjectionDecorator {
 		if (pos.getPos() < 0)
 			throw new ProjectionException("Problem with transcript position " + pos + " (< 0)");
 
-		// find exon containing pos or return null
-		int currEndPos = 0; // current end position of exon in transcript
-		int i = 0;
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (pos.getPos() < currEndPos + region.length())
-				return i;
-			++i;
-			currEndPos += region.length();
-		}
+		// find exon containing pos
+		final int exonID = exonContainingTranscriptPos(pos.getPos());
+		if (exonID < transcript.getExonRegions().size())
+			return exonID;
 
 		// if pos was a valid transcript position then we should not reach here
 		throw new ProjectionException("Problem with transcript position " + pos + " (after last exon)");
 	}
 
+	/**
+	 * @param txPos
+	 *            non-negative 0-based transcript position
+	 * @return index of the first exon ending after <code>txPos</code>, the number of exons if there is none
+	 */
+	private int exonContainingTranscriptPos(int txPos) {
+		// binary search for the first exon end larger than txPos
+		int lo = 0, hi = exonTranscriptBegins.length - 1;
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (exonTranscriptBegins[mid + 1] > txPos)
+				hi = mid;
+			else
+				lo = mid + 1;
+		}
+		return lo;
+	}
+
 	/**
 	 * Translate {@link GenomePosition} to {@link CDSPosition} for {@link #transcript}.
 	 *
@@ -300,9 +356,6 @@ public final class TranscriptProjectionDecorator {
 	 */
 	public CDSPosition projectGenomeToCDSPosition(GenomePosition pos) {
 		// TODO(holtgrem): Test me!
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
-		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
-
 		try {
 			// Get transcript begin position.
 			if (transcript.getCDSRegion().isRightOf(pos)) {
@@ -311,11 +364,11 @@ public final class TranscriptProjectionDecorator {
 			} else if (transcript.getCDSRegion().isLeftOf(pos)) {
 				// Deletion begins right of CDS, project to end of CDS.
 				return new CDSPosition(transcript, transcript.cdsTranscriptLength());
-			} else if (soDecorator.liesInExon(pos)) {
-				return projector.genomeToCDSPos(pos);
+			} else if ((transcript.getRegionIndex().getRegionsAt(pos) & TranscriptRegionIndex.EXON) != 0) {
+				return genomeToCDSPos(pos);
 			} else { // lies in intron, project to begin position of next exon
-				int intronNum = projector.locateIntron(pos);
-				return projector.genomeToCDSPos(transcript.getExonRegions().get(intronNum + 1).getGenomeBeginPos());
+				int intronNum = locateIntron(pos);
+				return genomeToCDSPos(transcript.getExonRegions().get(intronNum + 1).getGenomeBeginPos());
 			}
 		} catch (ProjectionException e) {
 			throw new Error("Bug: must be able to convert CDS exon position! " + e.getMessage());
@@ -350,9 +403,6 @@ public final class TranscriptProjectionDecorator {
 	 */
 	public TranscriptPosition projectGenomeToTXPosition(GenomePosition pos) {
 		// TODO(holtgrem): Test me!
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
-		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
-
 		try {
 			// Get transcript begin position.
 			if (transcript.getTXRegion().isRightOf(pos)) {
@@ -361,11 +411,11 @@ public final class TranscriptProjectionDecorator {
 			} else if (transcript.getTXRegion().isLeftOf(pos)) {
 				// Deletion begins right of CDS, project to end of CDS.
 				return new TranscriptPosition(transcript, transcript.transcriptLength(), PositionType.ZERO_BASED);
-			} else if (soDecorator.liesInExon(pos)) {
-				return projector.genomeToTranscriptPos(pos);
+			} else if ((transcript.getRegionIndex().getRegionsAt(pos) & TranscriptRegionIndex.EXON) != 0) {
+				return genomeToTranscriptPos(pos);
 			} else { // lies in intron, project to begin position of next exon
-				int intronNum = projector.locateIntron(pos);
-				return projector.genomeToTranscriptPos(transcript.getExonRegions().get(intronNum + 1)
+				int intronNum = locateIntron(pos);
+				return genomeToTranscriptPos(transcript.getExonRegions().get(intronNum + 1)
 						.getGenomeBeginPos());
 			}
 		} catch (ProjectionException e) {
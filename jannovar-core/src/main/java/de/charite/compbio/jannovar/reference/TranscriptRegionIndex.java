@@ -0,0 +1,249 @@
+package de.charite.compbio.jannovar.reference;
+
+import java.util.Arrays;
+
+import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+
+/**
+ * Classification of the positions around a {@link TranscriptModel} into regions such as exons, introns, and splice
+ * sites.
+ *
+ * The regions are the ones defined by {@link TranscriptSequenceOntologyDecorator}. The index stores the sorted
+ * boundaries of all regions on the transcript's strand together with a bit mask of the regions for each segment
+ * between two consecutive boundaries. Querying the regions at a position or overlapping with an interval is then a
+ * binary search instead of a loop over the exons that creates {@link GenomeInterval} objects.
+ *
+ * Empty regions (e.g., the CDS of a non-coding transcript) do not contain any position but overlap with the intervals
+ * around them, as in {@link GenomeInterval#overlapsWith}. They are kept in a separate list and checked one by one.
+ *
+ * Use {@link TranscriptModel#getRegionIndex} for obtaining the index of a transcript, it is built on first access.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@Immutable
+public final class TranscriptRegionIndex {
+
+	/** up to 1000 bases upstream of the transcript */
+	public static final int UPSTREAM = 1;
+	/** up to 1000 bases downstream of the transcript */
+	public static final int DOWNSTREAM = 1 << 1;
+	/** between transcript begin and CDS begin */
+	public static final int FIVE_PRIME_UTR = 1 << 2;
+	/** between CDS end and transcript end */
+	public static final int THREE_PRIME_UTR = 1 << 3;
+	/** the CDS region, including introns */
+	public static final int CDS = 1 << 4;
+	/** an exon */
+	public static final int EXON = 1 << 5;
+	/** an exon overlapping with the CDS, including its UTR part */
+	public static final int CDS_EXON = 1 << 6;
+	/** an intron */
+	public static final int INTRON = 1 << 7;
+	/** an intron overlapping with the CDS */
+	public static final int CDS_INTRON = 1 << 8;
+	/** the first three bases of the CDS */
+	public static final int START_CODON = 1 << 9;
+	/** the last three bases of the CDS */
+	public static final int STOP_CODON = 1 << 10;
+	/** the first two bases of an intron */
+	public static final int SPLICE_DONOR = 1 << 11;
+	/** the last two bases of an intron */
+	public static final int SPLICE_ACCEPTOR = 1 << 12;
+	/** the last three bases of an exon and first eight bases of the intron, or the reverse at the intron's end */
+	public static final int SPLICE_REGION = 1 << 13;
+
+	/** size of the upstream and downstream regions */
+	private static final int FLANK_LENGTH = 1000;
+
+	/** reference dictionary of the transcript, for strand conversion */
+	private final ReferenceDictionary refDict;
+	/** numeric ID of the transcript's chromosome */
+	private final int chr;
+	/** the transcript's strand, all positions are on this strand */
+	private final Strand strand;
+	/** sorted, distinct region boundaries */
+	private final int[] boundaries;
+	/** region bit mask for the segment between boundaries <code>i</code> and <code>i + 1</code> */
+	private final int[] segmentRegions;
+	/** bit mask of the regions that contain the bases left and right of boundary <code>i</code> */
+	private final int[] spanningRegions;
+	/** regions with a length of zero or less, these have no boundaries in {@link #boundaries} */
+	private final RegionList emptyRegions;
+
+	/**
+	 * Build the index for the given transcript
+	 *
+	 * @param transcript
+	 *            the {@link TranscriptModel} to build the index for
+	 */
+	TranscriptRegionIndex(TranscriptModel transcript) {
+		this.refDict = transcript.getTXRegion().getRefDict();
+		this.chr = transcript.getChr();
+		this.strand = transcript.getStrand();
+
+		// Collect regions as triples of begin, end, and region bit.
+		RegionList regions = new RegionList();
+		this.emptyRegions = new RegionList();
+		final int txBegin = transcript.getTXRegion().getBeginPos();
+		final int txEnd = transcript.getTXRegion().getEndPos();
+		final int cdsBegin = transcript.getCDSRegion().getBeginPos();
+		final int cdsEnd = transcript.getCDSRegion().getEndPos();
+		addRegion(regions, txBegin - FLANK_LENGTH, txBegin, UPSTREAM);
+		addRegion(regions, txEnd, txEnd + FLANK_LENGTH, DOWNSTREAM);
+		addRegion(regions, txBegin, cdsBegin, FIVE_PRIME_UTR);
+		addRegion(regions, cdsEnd, txEnd, THREE_PRIME_UTR);
+		addRegion(regions, cdsBegin, cdsEnd, CDS);
+		addRegion(regions, cdsBegin, cdsBegin + 3, START_CODON);
+		addRegion(regions, cdsEnd - 3, cdsEnd, STOP_CODON);
+
+		final int exonCount = transcript.getExonRegions().size();
+		for (int i = 0; i < exonCount; ++i) {
+			final GenomeInterval exon = transcript.getExonRegions().get(i);
+			addRegion(regions, exon.getBeginPos(), exon.getEndPos(),
+					transcript.getCDSRegion().overlapsWith(exon) ? EXON | CDS_EXON : EXON);
+			if (i + 1 < exonCount) {
+				final int intronBegin = exon.getEndPos();
+				final int intronEnd = transcript.getExonRegions().get(i + 1).getBeginPos();
+				// the CDS overlaps with the intron if it overlaps with the half-open interval of the intron
+				final boolean cdsIntron = (intronBegin < cdsEnd && cdsBegin < intronEnd);
+				addRegion(regions, intronBegin, intronEnd, cdsIntron ? INTRON | CDS_INTRON : INTRON);
+				addRegion(regions, intronBegin, intronBegin + 2, SPLICE_DONOR);
+				addRegion(regions, intronBegin - 3, intronBegin + 8, SPLICE_REGION);
+			}
+			if (i > 0) {
+				addRegion(regions, exon.getBeginPos() - 2, exon.getBeginPos(), SPLICE_ACCEPTOR);
+				addRegion(regions, exon.getBeginPos() - 8, exon.getBeginPos() + 3, SPLICE_REGION);
+			}
+		}
+
+		// Build sorted distinct boundaries.
+		int[] positions = new int[2 * regions.size];
+		for (int i = 0; i < regions.size; ++i) {
+			positions[2 * i] = regions.begins[i];
+			positions[2 * i + 1] = regions.ends[i];
+		}
+		Arrays.sort(positions);
+		int count = 0;
+		for (int i = 0; i < positions.length; ++i)
+			if (count == 0 || positions[count - 1] != positions[i])
+				positions[count++] = positions[i];
+		this.boundaries = Arrays.copyOf(positions, count);
+
+		// Mark the segments covered by each region and the boundaries within each region.
+		this.segmentRegions = new int[Math.max(0, count - 1)];
+		this.spanningRegions = new int[count];
+		for (int i = 0; i < regions.size; ++i) {
+			final int beginIdx = Arrays.binarySearch(boundaries, regions.begins[i]);
+			final int endIdx = Arrays.binarySearch(boundaries, regions.ends[i]);
+			for (int j = beginIdx; j < endIdx; ++j)
+				segmentRegions[j] |= regions.bits[i];
+			for (int j = beginIdx + 1; j < endIdx; ++j)
+				spanningRegions[j] |= regions.bits[i];
+		}
+	}
+
+	/**
+	 * @param pos
+	 *            the {@link GenomePosition} to query for
+	 * @return bit mask of the regions that contain <code>pos</code>
+	 */
+	public int getRegionsAt(GenomePosition pos) {
+		if (pos.getChr() != chr)
+			return 0;
+		return regionsAt(pos.getPos(strand));
+	}
+
+	/**
+	 * @param pos
+	 *            the {@link PackedGenomePosition} to query for
+	 * @return bit mask of the regions that contain <code>pos</code>
+	 */
+	public int getRegionsAt(long pos) {
+		if (PackedGenomePosition.getChr(pos) != chr)
+			return 0;
+		return regionsAt(PackedGenomePosition.getPos(pos, strand, refDict));
+	}
+
+	/**
+	 * Query for the regions overlapping with an interval, in the sense of {@link GenomeInterval#overlapsWith}.
+	 *
+	 * An empty interval overlaps with the regions that contain the bases on both sides of it.
+	 *
+	 * @param interval
+	 *            the {@link GenomeInterval} to query for
+	 * @return bit mask of the regions that overlap with <code>interval</code>
+	 */
+	public int getRegionsOverlapping(GenomeInterval interval) {
+		if (interval.getChr() != chr)
+			return 0;
+		final int begin = interval.getBeginPos(strand);
+		final int end = interval.getEndPos(strand);
+
+		int result = 0;
+		for (int i = 0; i < emptyRegions.size; ++i)
+			if (emptyRegions.begins[i] < end && begin < emptyRegions.ends[i])
+				result |= emptyRegions.bits[i];
+
+		if (end <= begin)
+			return result | regionsSpanning(begin);
+		int idx = segmentIndex(begin);
+		if (idx < 0)
+			idx = 0;
+		for (; idx < segmentRegions.length && boundaries[idx] < end; ++idx)
+			result |= segmentRegions[idx];
+		return result;
+	}
+
+	/** Add region to <code>regions</code> or {@link #emptyRegions} if it is empty */
+	private void addRegion(RegionList regions, int begin, int end, int bit) {
+		if (end <= begin)
+			emptyRegions.add(begin, end, bit);
+		else
+			regions.add(begin, end, bit);
+	}
+
+	/** @return bit mask of the regions containing the zero-based position <code>p</code> on {@link #strand} */
+	private int regionsAt(int p) {
+		final int idx = segmentIndex(p);
+		if (idx < 0 || idx >= segmentRegions.length)
+			return 0;
+		return segmentRegions[idx];
+	}
+
+	/** @return bit mask of the regions containing the positions <code>p - 1</code> and <code>p</code> */
+	private int regionsSpanning(int p) {
+		final int idx = Arrays.binarySearch(boundaries, p);
+		if (idx >= 0)
+			return spanningRegions[idx];
+		return regionsAt(p);
+	}
+
+	/** @return index of the segment containing <code>p</code>, -1 if left of all boundaries */
+	private int segmentIndex(int p) {
+		final int idx = Arrays.binarySearch(boundaries, p);
+		return (idx >= 0) ? idx : -idx - 2;
+	}
+
+	/** Growable list of regions as primitive arrays */
+	private static final class RegionList {
+		int[] begins = new int[4];
+		int[] ends = new int[4];
+		int[] bits = new int[4];
+		int size = 0;
+
+		/** Add region */
+		void add(int begin, int end, int bit) {
+			if (size == begins.length) {
+				begins = Arrays.copyOf(begins, 2 * size);
+				ends = Arrays.copyOf(ends, 2 * size);
+				bits = Arrays.copyOf(bits, 2 * size);
+			}
+			begins[size] = begin;
+			ends[size] = end;
+			bits[size] = bit;
+			++size;
+		}
+	}
+
+}
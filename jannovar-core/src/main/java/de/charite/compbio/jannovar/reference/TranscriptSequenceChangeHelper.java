@@ -1,10 +1,15 @@
 package de.charite.compbio.jannovar.reference;
 
 import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.impl.util.SplicedCharSequence;
 
 /**
  * Helper class for getting updated transcript sequence for deletions and block substitutions.
  *
+ * The <code>get*View*</code> methods return {@link CharSequence} views on the transcript sequence with the change
+ * applied that do not copy the transcript sequence. The methods returning {@link String}s are shortcuts for converting
+ * these views.
+ *
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
 @Immutable
@@ -12,6 +17,10 @@ public final class TranscriptSequenceChangeHelper {
 
 	/** The {@link TranscriptModel} with the sequence and position infos. */
 	private final TranscriptModel transcript;
+	/** Projection of coordinates for {@link #transcript} */
+	private final TranscriptProjectionDecorator projector;
+	/** Sequence ontology queries for {@link #transcript} */
+	private final TranscriptSequenceOntologyDecorator soDecorator;
 
 	/**
 	 * Construct helper with the given {@link TranscriptModel}
@@ -21,6 +30,25 @@ public final class TranscriptSequenceChangeHelper {
 	 */
 	public TranscriptSequenceChangeHelper(TranscriptModel transcript) {
 		this.transcript = transcript;
+		this.projector = new TranscriptProjectionDecorator(transcript);
+		this.soDecorator = new TranscriptSequenceOntologyDecorator(transcript, projector);
+	}
+
+	/**
+	 * Construct helper with the given {@link TranscriptModel} and its decorators
+	 *
+	 * @param transcript
+	 *            with position and sequence information
+	 * @param projector
+	 *            the {@link TranscriptProjectionDecorator} of <code>transcript</code>
+	 * @param soDecorator
+	 *            the {@link TranscriptSequenceOntologyDecorator} of <code>transcript</code>
+	 */
+	TranscriptSequenceChangeHelper(TranscriptModel transcript, TranscriptProjectionDecorator projector,
+			TranscriptSequenceOntologyDecorator soDecorator) {
+		this.transcript = transcript;
+		this.projector = projector;
+		this.soDecorator = soDecorator;
 	}
 
 	/**
@@ -31,6 +59,18 @@ public final class TranscriptSequenceChangeHelper {
 	 * @return transcript string with applied {@link GenomeVariant}
 	 */
 	public String getTranscriptWithChange(GenomeVariant change) {
+		return getTranscriptViewWithChange(change).toString();
+	}
+
+	/**
+	 * Return view of modified transcript after applying a {@link GenomeVariant}.
+	 *
+	 * @param change
+	 *            {@link GenomeVariant} to apply to the transcript
+	 * @return view of transcript sequence with applied {@link GenomeVariant}, same as
+	 *         {@link #getTranscriptWithChange}
+	 */
+	public CharSequence getTranscriptViewWithChange(GenomeVariant change) {
 		change = change.withStrand(transcript.getStrand());
 
 		switch (change.getType()) {
@@ -45,15 +85,13 @@ public final class TranscriptSequenceChangeHelper {
 		}
 	}
 
-	private String getTranscriptWithPointInRefAffected(GenomeVariant change) {
+	private CharSequence getTranscriptWithPointInRefAffected(GenomeVariant change) {
 		// Short-circuit in the case of change that does not affect the transcript.
-		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
 		if (!transcript.getTXRegion().overlapsWith(change.getGenomeInterval())
 				|| !soDecorator.overlapsWithExon(change.getGenomeInterval()))
 			return transcript.getSequence(); // non-coding change, does not affect transcript
 
 		// Get transcript position for the change position.
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
 		TranscriptPosition tPos;
 		try {
 			tPos = projector.genomeToTranscriptPos(change.getGenomePos());
@@ -61,16 +99,11 @@ public final class TranscriptSequenceChangeHelper {
 			throw new Error("Bug: should be able to get transcript pos for CDS exon position");
 		}
 
-		// Update base in string using StringBuilder.
-		StringBuilder builder = new StringBuilder(transcript.getSequence());
-		if (change.getType() == GenomeVariantType.SNV)
-			builder.setCharAt(tPos.getPos(), change.getAlt().charAt(0));
-		else
-			builder.insert(tPos.getPos(), change.getAlt());
-		return builder.toString();
+		// Replace base or insert alternative sequence.
+		return applyPointChange(transcript.getSequence(), 0, tPos.getPos(), change);
 	}
 
-	private String getTranscriptWithRangeInRefAffected(GenomeVariant change) {
+	private CharSequence getTranscriptWithRangeInRefAffected(GenomeVariant change) {
 		// Short-circuit in the case of change that does not affect the transcript.
 		if (!transcript.getTXRegion().overlapsWith(change.getGenomeInterval()))
 			return transcript.getSequence();
@@ -93,11 +126,8 @@ public final class TranscriptSequenceChangeHelper {
 			throw new Error("Bug: should be able to translate change end position to transcript position.");
 		}
 
-		// Build resulting transcript string.
-		StringBuilder builder = new StringBuilder(transcript.getSequence());
-		builder.delete(tBeginPos.getPos(), tEndPos.getPos());
-		builder.insert(tBeginPos.getPos(), change.getAlt());
-		return builder.toString();
+		// Replace range by alternative sequence.
+		return applyRangeChange(transcript.getSequence(), 0, tBeginPos.getPos(), tEndPos.getPos(), change);
 	}
 
 	/**
@@ -113,9 +143,6 @@ public final class TranscriptSequenceChangeHelper {
 	 *             in case of problems with the position conversion
 	 */
 	private TranscriptPosition translateGenomeToTranscriptPosition(GenomePosition pos) throws ProjectionException {
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
-		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
-
 		// Get transcript begin position.
 		if (transcript.getTXRegion().isRightOf(pos)) {
 			// Deletion begins left of TX, project to begin of TX.
@@ -142,6 +169,26 @@ public final class TranscriptSequenceChangeHelper {
 	 * @return CDS of transcript with applied {@link GenomeVariant}
 	 */
 	public String getCDSWithGenomeVariant(GenomeVariant change) {
+		return getCDSViewWithGenomeVariant(change).toString();
+	}
+
+	/**
+	 * @return view of the transcript sequence starting at the CDS begin position, same as
+	 *         {@link TranscriptProjectionDecorator#getTranscriptStartingAtCDS}
+	 */
+	public CharSequence getCDSView() {
+		return SplicedCharSequence.suffix(transcript.getSequence(), getCDSBeginTranscriptPos());
+	}
+
+	/**
+	 * Return view of the CDS with the applied {@link GenomeVariant}, see {@link #getCDSWithGenomeVariant}.
+	 *
+	 * @param change
+	 *            {@link GenomeVariant} to apply to the CDS region of the transcript
+	 * @return view of CDS of transcript with applied {@link GenomeVariant}, same as
+	 *         {@link #getCDSWithGenomeVariant}
+	 */
+	public CharSequence getCDSViewWithGenomeVariant(GenomeVariant change) {
 		change = change.withStrand(transcript.getStrand());
 
 		switch (change.getType()) {
@@ -156,49 +203,38 @@ public final class TranscriptSequenceChangeHelper {
 		}
 	}
 
-	private String getCDSWithPointInRefAffected(GenomeVariant change) {
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
-		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
-
-		// Obtain CDS transcript sequence.
-		String cdsSeq = projector.getTranscriptStartingAtCDS();
+	private CharSequence getCDSWithPointInRefAffected(GenomeVariant change) {
+		// Begin of CDS in transcript sequence.
+		final int cdsBegin = getCDSBeginTranscriptPos();
 
 		// Short-circuit in the case of change that does not affect the transcript.
 		if (change.getType() == GenomeVariantType.SNV) {
 			if (!transcript.getCDSRegion().overlapsWith(change.getGenomeInterval())
 					|| !soDecorator.overlapsWithExon(change.getGenomeInterval()))
-				return cdsSeq;
+				return SplicedCharSequence.suffix(transcript.getSequence(), cdsBegin);
 		} else { // insertion
 			// Get change position and the one left of it.
 			GenomePosition lPos = change.getGenomePos().shifted(-1);
 			if (!transcript.getCDSRegion().contains(change.getGenomePos()) || !transcript.getCDSRegion().contains(lPos)
 					|| (!soDecorator.liesInExon(change.getGenomePos()) && !soDecorator.liesInExon(lPos)))
-				return cdsSeq;
+				return SplicedCharSequence.suffix(transcript.getSequence(), cdsBegin);
 		}
 
 		// Get transcript position for the change position.
 		CDSPosition cdsChangePos = projector.projectGenomeToCDSPosition(change.getGenomePos());
 
-		// Update base in string using StringBuilder.
-		StringBuilder builder = new StringBuilder(cdsSeq);
-		if (change.getType() == GenomeVariantType.SNV)
-			builder.setCharAt(cdsChangePos.getPos(), change.getAlt().charAt(0));
-		else
-			builder.insert(cdsChangePos.getPos(), change.getAlt());
-		return builder.toString();
+		// Replace base or insert alternative sequence.
+		return applyPointChange(transcript.getSequence(), cdsBegin, cdsChangePos.getPos(), change);
 	}
 
-	private String getCDSWithRangeInRefAffected(GenomeVariant change) {
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
-		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
-
-		// Obtain CDS transcript sequence.
-		String cdsSeq = projector.getTranscriptStartingAtCDS();
+	private CharSequence getCDSWithRangeInRefAffected(GenomeVariant change) {
+		// Begin of CDS in transcript sequence.
+		final int cdsBegin = getCDSBeginTranscriptPos();
 
 		// Short-circuit in the case of change that does not affect the transcript.
 		if (!transcript.getCDSRegion().overlapsWith(change.getGenomeInterval())
 				|| !soDecorator.overlapsWithExon(change.getGenomeInterval()))
-			return cdsSeq;
+			return SplicedCharSequence.suffix(transcript.getSequence(), cdsBegin);
 
 		// Get transcript begin and end position.
 		GenomePosition changeBeginPos = change.getGenomeInterval().getGenomeBeginPos();
@@ -208,10 +244,37 @@ public final class TranscriptSequenceChangeHelper {
 		GenomePosition changeEndPos = change.getGenomeInterval().getGenomeEndPos();
 		CDSPosition cdsChangeEndPos = projector.projectGenomeToCDSPosition(changeEndPos);
 
-		// Build resulting transcript string.
-		StringBuilder builder = new StringBuilder(cdsSeq);
-		builder.delete(cdsChangeBeginPos.getPos(), cdsChangeEndPos.getPos());
-		builder.insert(cdsChangeBeginPos.getPos(), change.getAlt());
-		return builder.toString();
+		// Replace range by alternative sequence.
+		return applyRangeChange(transcript.getSequence(), cdsBegin, cdsChangeBeginPos.getPos(),
+				cdsChangeEndPos.getPos(), change);
+	}
+
+	/** @return position of the CDS begin in the transcript sequence */
+	private int getCDSBeginTranscriptPos() {
+		try {
+			return projector.getCDSBeginTranscriptPos();
+		} catch (ProjectionException e) {
+			throw new Error("Bug: CDS begin must be translatable into transcript positions");
+		}
+	}
+
+	/**
+	 * @return view of <code>seq</code> starting at <code>offset</code> with the base at <code>pos</code> replaced
+	 *         (SNV) or the alternative sequence inserted before <code>pos</code> (insertion)
+	 */
+	private static CharSequence applyPointChange(String seq, int offset, int pos, GenomeVariant change) {
+		if (change.getType() == GenomeVariantType.SNV)
+			return SplicedCharSequence.replace(seq, offset, pos, pos + 1, change.getAlt().substring(0, 1));
+		else
+			return SplicedCharSequence.replace(seq, offset, pos, pos, change.getAlt());
+	}
+
+	/**
+	 * @return view of <code>seq</code> starting at <code>offset</code> with the range from <code>begin</code> to
+	 *         <code>end</code> replaced by the alternative sequence, <code>end</code> is clipped to the sequence end
+	 */
+	private static CharSequence applyRangeChange(String seq, int offset, int begin, int end, GenomeVariant change) {
+		end = Math.min(end, seq.length() - offset);
+		return SplicedCharSequence.replace(seq, offset, begin, end, change.getAlt());
 	}
 }
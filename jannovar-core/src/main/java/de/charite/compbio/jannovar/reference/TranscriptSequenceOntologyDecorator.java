@@ -5,6 +5,9 @@ import de.charite.compbio.jannovar.Immutable;
 /**
  * Functionality for finding out about certain points/regions of {@link TranscriptModel} using <b>genomic</b> positions.
  *
+ * The queries for points in and overlaps with regions are answered using the {@link TranscriptRegionIndex} of the
+ * transcript.
+ *
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
 @Immutable
@@ -12,6 +15,10 @@ public final class TranscriptSequenceOntologyDecorator {
 
 	/** the transcript information to perform the projection upon. */
 	private final TranscriptModel transcript;
+	/** the region classification of {@link #transcript} */
+	private final TranscriptRegionIndex regionIndex;
+	/** projection for locating exons and introns of {@link #transcript} */
+	private final TranscriptProjectionDecorator projector;
 
 	/**
 	 * Initialize the object with the given {@link TranscriptModel}.
@@ -20,7 +27,21 @@ public final class TranscriptSequenceOntologyDecorator {
 	 *            the {@link TranscriptModel} to decorate
 	 */
 	public TranscriptSequenceOntologyDecorator(TranscriptModel transcript) {
+		this(transcript, new TranscriptProjectionDecorator(transcript));
+	}
+
+	/**
+	 * Initialize the object with the given {@link TranscriptModel} and its {@link TranscriptProjectionDecorator}.
+	 *
+	 * @param transcript
+	 *            the {@link TranscriptModel} to decorate
+	 * @param projector
+	 *            the {@link TranscriptProjectionDecorator} of <code>transcript</code>
+	 */
+	TranscriptSequenceOntologyDecorator(TranscriptModel transcript, TranscriptProjectionDecorator projector) {
 		this.transcript = transcript;
+		this.regionIndex = transcript.getRegionIndex();
+		this.projector = projector;
 	}
 
 	/**
@@ -30,6 +51,24 @@ public final class TranscriptSequenceOntologyDecorator {
 		return transcript;
 	}
 
+	/**
+	 * @param pos
+	 *            the {@link GenomePosition} to use for querying
+	 * @return bit mask of the {@link TranscriptRegionIndex} regions that contain <code>pos</code>
+	 */
+	public int getRegionsAt(GenomePosition pos) {
+		return regionIndex.getRegionsAt(pos);
+	}
+
+	/**
+	 * @param interval
+	 *            the {@link GenomeInterval} to use for querying
+	 * @return bit mask of the {@link TranscriptRegionIndex} regions that overlap with <code>interval</code>
+	 */
+	public int getRegionsOverlapping(GenomeInterval interval) {
+		return regionIndex.getRegionsOverlapping(interval);
+	}
+
 	/**
 	 * @return the {@link GenomeInterval} with the start codon
 	 */
@@ -85,10 +124,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if <code>interval</code> overlaps with a CDS-overlapping exon
 	 */
 	public boolean overlapsWithCDSExon(GenomeInterval interval) {
-		for (GenomeInterval region : transcript.getExonRegions())
-			if (transcript.getCDSRegion().overlapsWith(region) && interval.overlapsWith(region))
-				return true;
-		return false;
+		return overlaps(interval, TranscriptRegionIndex.CDS_EXON);
 	}
 
 	/**
@@ -106,7 +142,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} points to a base in the coding part of an exon
 	 */
 	public boolean liesInCDSExon(GenomePosition pos) {
-		return (transcript.getCDSRegion().contains(pos) && liesInExon(pos));
+		return liesIn(pos, TranscriptRegionIndex.CDS | TranscriptRegionIndex.EXON);
 	}
 
 	/**
@@ -115,14 +151,14 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if <code>interval</code> overlaps with the CDS region of the transcript
 	 */
 	public boolean overlapsWithCDS(GenomeInterval interval) {
-		return transcript.getCDSRegion().overlapsWith(interval);
+		return overlaps(interval, TranscriptRegionIndex.CDS);
 	}
 
 	/**
 	 * @return <code>true</code> if <code>pos</code> lies within the CDS of {@link #transcript}
 	 */
 	public boolean liesInCDS(GenomePosition pos) {
-		return transcript.getCDSRegion().contains(pos);
+		return liesIn(pos, TranscriptRegionIndex.CDS);
 	}
 
 	/**
@@ -131,26 +167,22 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if <code>changeInterval</code> overlaps with an intron of {@link #transcript}
 	 */
 	public boolean overlapsWithIntron(GenomeInterval changeInterval) {
-		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval intronRegion = transcript.intronRegion(i);
-			if (changeInterval.overlapsWith(intronRegion))
-				return true;
-		}
-		return false;
+		return overlaps(changeInterval, TranscriptRegionIndex.INTRON);
 	}
 
 	/**
 	 * @return <code>true</code> if <code>pos</code> lies within an intron of {@link #transcript}
 	 */
 	public boolean liesInIntron(GenomePosition pos) {
-		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval intronRegion = transcript.intronRegion(i);
-			if (intronRegion.contains(pos))
-				return true;
-		}
-		return false;
+		return liesIn(pos, TranscriptRegionIndex.INTRON);
+	}
+
+	/**
+	 * @return <code>true</code> if the {@link PackedGenomePosition} <code>pos</code> lies within an intron of
+	 *         {@link #transcript}
+	 */
+	public boolean liesInIntron(long pos) {
+		return (regionIndex.getRegionsAt(pos) & TranscriptRegionIndex.INTRON) != 0;
 	}
 
 	/**
@@ -160,13 +192,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 *         overlaps with the CDS
 	 */
 	public boolean overlapsWithCDSIntron(GenomeInterval changeInterval) {
-		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval intronRegion = transcript.intronRegion(i);
-			if (transcript.getCDSRegion().overlapsWith(intronRegion) && changeInterval.overlapsWith(intronRegion))
-				return true;
-		}
-		return false;
+		return overlaps(changeInterval, TranscriptRegionIndex.CDS_INTRON);
 	}
 
 	/**
@@ -174,13 +200,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 *         overlaps with the CDS
 	 */
 	public boolean liesInCDSIntron(GenomePosition pos) {
-		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval intronRegion = transcript.intronRegion(i);
-			if (transcript.getCDSRegion().overlapsWith(intronRegion) && intronRegion.contains(pos))
-				return true;
-		}
-		return false;
+		return liesIn(pos, TranscriptRegionIndex.CDS_INTRON);
 	}
 
 	/**
@@ -189,14 +209,14 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with the translational start site
 	 */
 	public boolean overlapsWithTranslationalStartSite(GenomeInterval interval) {
-		return interval.overlapsWith(getStartCodonInterval());
+		return overlaps(interval, TranscriptRegionIndex.START_CODON);
 	}
 
 	/**
 	 * @return <code>true</code> if the {@link GenomePosition} lies within the translational start site
 	 */
 	public boolean liesInTranslationalStartSite(GenomePosition pos) {
-		return getStartCodonInterval().contains(pos);
+		return liesIn(pos, TranscriptRegionIndex.START_CODON);
 	}
 
 	/**
@@ -205,14 +225,14 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with the translational stop site
 	 */
 	public boolean overlapsWithTranslationalStopSite(GenomeInterval interval) {
-		return interval.overlapsWith(getStopCodonInterval());
+		return overlaps(interval, TranscriptRegionIndex.STOP_CODON);
 	}
 
 	/**
 	 * @return <code>true</code> if the {@link GenomePosition} lies within the translational stop site
 	 */
 	public boolean liesInTranslationalStopSite(GenomePosition pos) {
-		return getStopCodonInterval().contains(pos);
+		return liesIn(pos, TranscriptRegionIndex.STOP_CODON);
 	}
 
 	/**
@@ -226,24 +246,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with a splice region.
 	 */
 	public boolean overlapsWithSpliceRegion(GenomeInterval interval) {
-		// TODO(holtgrem): Test me!
-		for (int i = 0; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			if (i + 1 < transcript.getExonRegions().size()) {
-				// check for donor region
-				GenomeInterval spliceRegionInterval = new GenomeInterval(exonInterval.getGenomeEndPos().shifted(-3), 11);
-				if (interval.overlapsWith(spliceRegionInterval))
-					return true;
-			}
-			if (i > 0) {
-				// check for acceptor region
-				GenomeInterval spliceRegionInterval = new GenomeInterval(exonInterval.getGenomeBeginPos().shifted(-8),
-						11);
-				if (interval.overlapsWith(spliceRegionInterval))
-					return true;
-			}
-		}
-		return false;
+		return overlaps(interval, TranscriptRegionIndex.SPLICE_REGION);
 	}
 
 	/**
@@ -257,24 +260,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} lies within a splice donor site.
 	 */
 	public boolean liesInSpliceRegion(GenomePosition pos) {
-		// TODO(holtgrem): Test me!
-		for (int i = 0; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			if (i + 1 < transcript.getExonRegions().size()) {
-				// check for donor region
-				GenomeInterval spliceRegionInterval = new GenomeInterval(exonInterval.getGenomeEndPos().shifted(-3), 11);
-				if (spliceRegionInterval.contains(pos))
-					return true;
-			}
-			if (i > 0) {
-				// check for acceptor region
-				GenomeInterval spliceRegionInterval = new GenomeInterval(exonInterval.getGenomeBeginPos().shifted(-8),
-						11);
-				if (spliceRegionInterval.contains(pos))
-					return true;
-			}
-		}
-		return false;
+		return liesIn(pos, TranscriptRegionIndex.SPLICE_REGION);
 	}
 
 	/**
@@ -287,14 +273,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with a splice donor site.
 	 */
 	public boolean overlapsWithSpliceDonorSite(GenomeInterval interval) {
-		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			GenomeInterval donorInterval = new GenomeInterval(exonInterval.getGenomeEndPos(), 2);
-			if (interval.overlapsWith(donorInterval))
-				return true;
-		}
-		return false;
+		return overlaps(interval, TranscriptRegionIndex.SPLICE_DONOR);
 	}
 
 	/**
@@ -307,14 +286,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} lies within a splice donor site.
 	 */
 	public boolean liesInSpliceDonorSite(GenomePosition pos) {
-		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			GenomeInterval donorInterval = new GenomeInterval(exonInterval.getGenomeEndPos(), 2);
-			if (donorInterval.contains(pos))
-				return true;
-		}
-		return false;
+		return liesIn(pos, TranscriptRegionIndex.SPLICE_DONOR);
 	}
 
 	/**
@@ -327,14 +299,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with a splice acceptor site.
 	 */
 	public boolean overlapsWithSpliceAcceptorSite(GenomeInterval interval) {
-		// TODO(holtgrem): Test me!
-		for (int i = 1; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			GenomeInterval acceptorInterval = new GenomeInterval(exonInterval.getGenomeBeginPos().shifted(-2), 2);
-			if (interval.overlapsWith(acceptorInterval))
-				return true;
-		}
-		return false;
+		return overlaps(interval, TranscriptRegionIndex.SPLICE_ACCEPTOR);
 	}
 
 	/**
@@ -347,14 +312,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} lies within a splice acceptor site.
 	 */
 	public boolean liesInSpliceAcceptorSite(GenomePosition pos) {
-		// TODO(holtgrem): Test me!
-		for (int i = 1; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			GenomeInterval acceptorInterval = new GenomeInterval(exonInterval.getGenomeBeginPos().shifted(-2), 2);
-			if (acceptorInterval.contains(pos))
-				return true;
-		}
-		return false;
+		return liesIn(pos, TranscriptRegionIndex.SPLICE_ACCEPTOR);
 	}
 
 	/**
@@ -374,8 +332,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with the upstream region of the transcript.
 	 */
 	public boolean overlapsWithUpstreamRegion(GenomeInterval interval) {
-		GenomeInterval upstream = getUpstreamInterval();
-		return interval.overlapsWith(upstream);
+		return overlaps(interval, TranscriptRegionIndex.UPSTREAM);
 	}
 
 	/**
@@ -388,8 +345,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} lies within the upstream region of the transcript.
 	 */
 	public boolean liesInUpstreamRegion(GenomePosition pos) {
-		GenomeInterval upstream = getUpstreamInterval();
-		return upstream.contains(pos);
+		return liesIn(pos, TranscriptRegionIndex.UPSTREAM);
 	}
 
 	/**
@@ -409,8 +365,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with the downstream region of the transcript.
 	 */
 	public boolean overlapsWithDownstreamRegion(GenomeInterval interval) {
-		GenomeInterval downstream = getDownstreamInterval();
-		return interval.overlapsWith(downstream);
+		return overlaps(interval, TranscriptRegionIndex.DOWNSTREAM);
 	}
 
 	/**
@@ -423,8 +378,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} lies within the downstream region of the transcript.
 	 */
 	public boolean liesInDownstreamRegion(GenomePosition pos) {
-		GenomeInterval downstream = getDownstreamInterval();
-		return downstream.contains(pos);
+		return liesIn(pos, TranscriptRegionIndex.DOWNSTREAM);
 	}
 
 	/**
@@ -433,7 +387,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with the 5' UTR
 	 */
 	public boolean overlapsWithFivePrimeUTR(GenomeInterval interval) {
-		return interval.overlapsWith(getFivePrimeUTRInterval());
+		return overlaps(interval, TranscriptRegionIndex.FIVE_PRIME_UTR);
 	}
 
 	/**
@@ -442,7 +396,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} lies in the 5' UTR
 	 */
 	public boolean liesInFivePrimeUTR(GenomePosition pos) {
-		return getFivePrimeUTRInterval().contains(pos);
+		return liesIn(pos, TranscriptRegionIndex.FIVE_PRIME_UTR);
 	}
 
 	/**
@@ -451,7 +405,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with the 3' UTR
 	 */
 	public boolean overlapsWithThreePrimeUTR(GenomeInterval interval) {
-		return interval.overlapsWith(getThreePrimeUTRInterval());
+		return overlaps(interval, TranscriptRegionIndex.THREE_PRIME_UTR);
 	}
 
 	/**
@@ -460,7 +414,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} lies in the 3' UTR
 	 */
 	public boolean liesInThreePrimeUTR(GenomePosition pos) {
-		return getThreePrimeUTRInterval().contains(pos);
+		return liesIn(pos, TranscriptRegionIndex.THREE_PRIME_UTR);
 	}
 
 	/**
@@ -469,14 +423,13 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} falls fully into an intron
 	 */
 	public boolean liesInIntron(GenomeInterval interval) {
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
-
 		// locate intron, return false on any errors
-		final int intronNo = projector.locateIntron(interval.getGenomeBeginPos());
+		final int intronNo = projector.locateIntron(PackedGenomePosition.beginOf(interval));
 		if (intronNo == TranscriptProjectionDecorator.INVALID_INTRON_ID)
 			return false;
 
-		return !transcript.getExonRegions().get(intronNo + 1).contains(interval.getGenomeEndPos().shifted(-1));
+		return !PackedGenomePosition.contains(transcript.getExonRegions().get(intronNo + 1),
+				PackedGenomePosition.shifted(PackedGenomePosition.endOf(interval), -1));
 	}
 
 	/**
@@ -485,10 +438,8 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} falls fully into an exon
 	 */
 	public boolean liesInExon(GenomeInterval interval) {
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
-
 		// locate exon, return false on any errors
-		final int exonNo = projector.locateExon(interval.getGenomeBeginPos());
+		final int exonNo = projector.locateExon(PackedGenomePosition.beginOf(interval));
 		if (exonNo == TranscriptProjectionDecorator.INVALID_EXON_ID)
 			return false;
 
@@ -501,15 +452,16 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} points to a base an exon
 	 */
 	public boolean liesInExon(GenomePosition pos) {
-		// TODO(holtgrem): Test me!
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
-
-		// locate exon, return false on any errors
-		final int exonNo = projector.locateExon(pos);
-		if (exonNo == TranscriptProjectionDecorator.INVALID_EXON_ID)
-			return false;
+		return liesIn(pos, TranscriptRegionIndex.EXON);
+	}
 
-		return transcript.getExonRegions().get(exonNo).contains(pos);
+	/**
+	 * @param pos
+	 *            the {@link PackedGenomePosition} to use for querying
+	 * @return <code>true</code> if <code>pos</code> points to a base an exon
+	 */
+	public boolean liesInExon(long pos) {
+		return (regionIndex.getRegionsAt(pos) & TranscriptRegionIndex.EXON) != 0;
 	}
 
 	/**
@@ -518,10 +470,17 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the interval overlaps with an exon
 	 */
 	public boolean overlapsWithExon(GenomeInterval interval) {
-		for (int i = 0; i < transcript.getExonRegions().size(); ++i)
-			if (interval.overlapsWith(transcript.getExonRegions().get(i)))
-				return true;
-		return false;
+		return overlaps(interval, TranscriptRegionIndex.EXON);
+	}
+
+	/** @return <code>true</code> if <code>pos</code> lies in all regions of the bit mask <code>regions</code> */
+	private boolean liesIn(GenomePosition pos, int regions) {
+		return (regionIndex.getRegionsAt(pos) & regions) == regions;
+	}
+
+	/** @return <code>true</code> if <code>interval</code> overlaps with a region of the bit mask <code>regions</code> */
+	private boolean overlaps(GenomeInterval interval, int regions) {
+		return (regionIndex.getRegionsOverlapping(interval) & regions) != 0;
 	}
 
 }
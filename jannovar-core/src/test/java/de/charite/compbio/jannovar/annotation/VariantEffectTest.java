@@ -5,7 +5,12 @@ import org.junit.Test;
 import java.util.HashSet;
 import java.util.Set;
 
+import com.google.common.collect.ImmutableList;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit tests for {@link VariantEffect}s.
@@ -26,4 +31,36 @@ public class VariantEffectTest {
     }
   }
 
-}
\ No newline at end of file
+  @Test
+  public void valuesFitIntoMask() {
+    assertTrue(VariantEffect.values().length <= 64);
+    assertTrue(AnnotationMessage.values().length <= 64);
+  }
+
+  @Test
+  public void categoryMasksMatchPredicates() {
+    for (VariantEffect effect : VariantEffect.values()) {
+      final long mask = effect.getMask();
+      assertEquals(effect.toString(), effect.isSplicing(), (VariantEffect.SPLICING_MASK & mask) != 0);
+      assertEquals(effect.toString(), effect.isOffTranscript(), (VariantEffect.OFF_TRANSCRIPT_MASK & mask) != 0);
+      for (boolean utr : new boolean[] { false, true })
+        for (boolean splice : new boolean[] { false, true })
+          assertEquals(effect.toString(), effect.isOffExome(utr, splice),
+              VariantEffect.isOffExome(mask, utr, splice));
+    }
+  }
+
+  @Test
+  public void maskOfSet() {
+    final long mask = VariantEffect.toMask(ImmutableList.of(VariantEffect.INTRON_VARIANT,
+        VariantEffect.SPLICE_REGION_VARIANT, VariantEffect.UPSTREAM_GENE_VARIANT));
+    assertEquals(VariantEffect.SPLICE_REGION_VARIANT, VariantEffect.firstInMask(mask));
+    assertNull(VariantEffect.firstInMask(0));
+    assertFalse(VariantEffect.isOffExome(mask, true, false));
+    assertTrue(VariantEffect.isOffExome(mask, true, true));
+    assertTrue(VariantEffect.isOffExome(0, false, false));
+    assertTrue((mask & VariantEffect.CODING_MASK) == 0);
+    assertTrue((VariantEffect.MISSENSE_VARIANT.getMask() & VariantEffect.CODING_MASK) != 0);
+  }
+
+}
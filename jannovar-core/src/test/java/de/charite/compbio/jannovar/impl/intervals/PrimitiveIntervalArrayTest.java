@@ -0,0 +1,53 @@
+package de.charite.compbio.jannovar.impl.intervals;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrimitiveIntervalArrayTest {
+
+	PrimitiveIntervalArray arr;
+
+	@Before
+	public void setUp() {
+		PrimitiveIntervalArray.Builder builder = new PrimitiveIntervalArray.Builder();
+		// add out of order, including a long interval spanning the others
+		builder.add(10, 20, 1);
+		builder.add(0, 5, 0);
+		builder.add(30, 40, 3);
+		builder.add(12, 100, 2);
+		builder.add(50, 55, 4);
+		arr = builder.build();
+	}
+
+	@Test
+	public void testSorted() {
+		Assert.assertEquals(5, arr.size());
+		for (int i = 0; i < arr.size(); ++i)
+			Assert.assertEquals(i, arr.getValue(i));
+		Assert.assertEquals(0, arr.getBegin(0));
+		Assert.assertEquals(100, arr.getEnd(2));
+	}
+
+	@Test
+	public void testFindOverlappingWithInterval() {
+		Assert.assertArrayEquals(new int[] {}, arr.findOverlappingWithInterval(5, 10));
+		Assert.assertArrayEquals(new int[] { 0 }, arr.findOverlappingWithInterval(4, 5));
+		Assert.assertArrayEquals(new int[] { 1, 2 }, arr.findOverlappingWithInterval(15, 16));
+		Assert.assertArrayEquals(new int[] { 2, 3 }, arr.findOverlappingWithInterval(35, 36));
+		Assert.assertArrayEquals(new int[] { 2, 4 }, arr.findOverlappingWithInterval(52, 53));
+		Assert.assertArrayEquals(new int[] {}, arr.findOverlappingWithInterval(100, 200));
+	}
+
+	@Test
+	public void testCursor() {
+		PrimitiveIntervalArray.Cursor cursor = arr.cursor();
+		Assert.assertArrayEquals(new int[] { 0 }, cursor.findOverlappingWithInterval(0, 1));
+		Assert.assertArrayEquals(new int[] { 1, 2 }, cursor.findOverlappingWithInterval(15, 16));
+		Assert.assertArrayEquals(new int[] { 2, 4 }, cursor.findOverlappingWithInterval(52, 53));
+		// moving backwards falls back to binary search
+		Assert.assertArrayEquals(new int[] { 0 }, cursor.findOverlappingWithInterval(2, 3));
+		Assert.assertArrayEquals(new int[] { 2, 3 }, cursor.findOverlappingWithInterval(35, 36));
+	}
+
+}
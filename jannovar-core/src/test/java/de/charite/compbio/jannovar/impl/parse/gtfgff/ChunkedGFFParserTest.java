@@ -0,0 +1,149 @@
+package de.charite.compbio.jannovar.impl.parse.gtfgff;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.impl.parse.gtfgff.GFFParser.GFFVersion;
+
+public class ChunkedGFFParserTest {
+
+	ForkJoinPool pool;
+	String gffLines;
+	String gtfLines;
+
+	@Before
+	public void setUp() throws Exception {
+		pool = new ForkJoinPool(3);
+		gffLines = "##gff-version 3\n"
+				+ "#!processor NCBI annotwriter\n"
+				+ "NC_000003.11\tBestRefSeq\tgene\t129247482\t129254187\t.\t+\t.\tID=gene7867;Name=RHO;Dbxref=GeneID:6010,HGNC:10012,HPRD:01584,MIM:180380;description=rhodopsin;gbkey=Gene;gene=RHO;gene_synonym=CSNBAD1,OPN2,RP4;part=1%2F1\n"
+				+ "NC_000003.11\tBestRefSeq\tmRNA\t129247482\t129254187\t.\t+\t.\tID=rna17010;Name=NM_000539.3;Parent=gene7867;Dbxref=GeneID:6010,Genbank:NM_000539.3,HGNC:10012,HPRD:01584,MIM:180380;gbkey=mRNA;gene=RHO;product=rhodopsin;transcript_id=NM_000539.3\n"
+				+ "# comment in between\n"
+				+ "NC_000003.11\tBestRefSeq\texon\t129247482\t129247937\t.\t+\t.\tID=id202743;Parent=rna17010;Dbxref=GeneID:6010,Genbank:NM_000539.3,HGNC:10012,HPRD:01584,MIM:180380;gbkey=mRNA;gene=RHO;product=rhodopsin;transcript_id=NM_000539.3\r\n"
+				+ "NC_000003.11\tBestRefSeq\tCDS\t129247577\t129247937\t17.5\t-\t2\tID = cds13732 ; Name=NP_000530.1;Parent=rna17010;gbkey=CDS;;gene=RHO;product=rhodopsin;protein_id=NP_000530.1;\n"
+				+ "NC_000003.11\tBestRefSeq\tCDS\t129249719\t129249887\t.\t+\t2\tID=cds13732;Name=NP_000530.1;Parent=rna17010;Dbxref=CCDS:CCDS3063.1,GeneID:6010,Genbank:NP_000530.1,HGNC:10012,HPRD:01584,MIM:180380;gbkey=CDS;gene=RHO;product=rhodopsin;protein_id=NP_000530.1";
+		gtfLines = "3\tprotein_coding\texon\t129247483\t129247937\t.\t+\t.\tgene_id \"ENSG00000163914\"; transcript_id \"ENST00000296271\"; exon_number \"1\"; gene_name \"RHO\"; gene_biotype \"protein_coding\"; transcript_name \"RHO-001\"; exon_id \"ENSE00001079597\";\n"
+				+ "3\tprotein_coding\tCDS\t129247577\t129247937\t.\t+\t0\tgene_id \"ENSG00000163914\"; transcript_id \"ENST00000296271\"; exon_number \"1\"; gene_name \"RHO\"; gene_biotype \"protein_coding\"; transcript_name \"RHO-001\"; protein_id \"ENSP00000296271\";\n"
+				+ "#!comment\n"
+				+ "3\tprotein_coding\tstart_codon\t129247577\t129247579\t.\t+\t0\tgene_id \"ENSG00000163914\"; transcript_id \"ENST00000296271\"; exon_number \"1\"; gene_name \"RHO\"; gene_biotype \"protein_coding\"; transcript_name \"RHO-001\";\n"
+				+ "3\tprotein_coding\texon\t129249719\t129249887\t.\t-\t.\tgene_id ENSG00000163914; transcript_id \"ENST00000296271\"; note \"quoted text; with separator\"; gene_name \"RHO\";\n"
+				+ "3\tprotein_coding\tCDS\t129249719\t129249887\t.\t+\t2\tgene_id \"ENSG00000163914\"; transcript_id \"ENST00000296271\"; exon_number \"2\"; gene_name \"RHO\"; gene_biotype \"protein_coding\"; transcript_name \"RHO-001\"; protein_id \"ENSP00000296271\";\n";
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	/** Records from {@link GFFParser}, as strings */
+	private List<String> expectedRecords(byte[] bytes) throws IOException {
+		GFFParser parser = new GFFParser(new ByteArrayInputStream(bytes));
+		List<String> result = new ArrayList<>();
+		FeatureRecord record;
+		while ((record = parser.next()) != null)
+			result.add(record.toString());
+		return result;
+	}
+
+	/** Records from {@link ChunkedGFFParser}, as strings */
+	private List<String> actualRecords(ChunkedGFFParser parser) throws IOException {
+		List<String> result = new ArrayList<>();
+		FeatureRecord record;
+		while ((record = parser.next()) != null)
+			result.add(record.toString());
+		parser.close();
+		return result;
+	}
+
+	@Test
+	public void testGFFSameAsGFFParser() throws IOException {
+		final byte[] bytes = gffLines.getBytes(StandardCharsets.UTF_8);
+		final List<String> expected = expectedRecords(bytes);
+		Assert.assertEquals(5, expected.size());
+
+		// small blocks split lines and are smaller than most of the lines
+		for (int chunkSize : new int[] { 1, 7, 64, 100, 1000, 1024 * 1024 }) {
+			ChunkedGFFParser parser = new ChunkedGFFParser(new ByteArrayInputStream(bytes), null, pool, chunkSize);
+			Assert.assertEquals(GFFVersion.GFF3, parser.getGFFVersion());
+			Assert.assertEquals("chunk size " + chunkSize, expected, actualRecords(parser));
+		}
+	}
+
+	@Test
+	public void testGTFSameAsGFFParser() throws IOException {
+		final byte[] bytes = gtfLines.getBytes(StandardCharsets.UTF_8);
+		final List<String> expected = expectedRecords(bytes);
+		Assert.assertEquals(5, expected.size());
+
+		for (int chunkSize : new int[] { 1, 50, 200, 1024 * 1024 }) {
+			ChunkedGFFParser parser = new ChunkedGFFParser(new ByteArrayInputStream(bytes), null, pool, chunkSize);
+			Assert.assertEquals(GFFVersion.GTF, parser.getGFFVersion());
+			Assert.assertEquals("chunk size " + chunkSize, expected, actualRecords(parser));
+		}
+	}
+
+	@Test
+	public void testOnlySelectedAttributes() throws IOException {
+		final Set<String> keys = ImmutableSet.of("gene_id", "transcript_id", "note", "missing");
+		ChunkedGFFParser parser = new ChunkedGFFParser(
+				new ByteArrayInputStream(gtfLines.getBytes(StandardCharsets.UTF_8)), keys, pool, 100);
+
+		FeatureRecord first = parser.next();
+		Assert.assertEquals(
+				"FeatureRecord [seqID=3, source=protein_coding, type=exon, begin=129247482, end=129247937, score=., strand=FORWARD, phase=0, attributes={gene_id=ENSG00000163914, transcript_id=ENST00000296271}]",
+				first.toString());
+		parser.next();
+		parser.next();
+		FeatureRecord fourth = parser.next();
+		Assert.assertEquals("ENSG00000163914", fourth.getAttributes().get("gene_id"));
+		Assert.assertEquals("quoted text; with separator", fourth.getAttributes().get("note"));
+		Assert.assertEquals(3, fourth.getAttributes().size());
+		parser.close();
+	}
+
+	@Test
+	public void testRefSeqFileAndGzip() throws IOException {
+		final File file = new File("src/test/data/mini_refseq/ref_GRCh37.p13_top_level.gff3");
+		final byte[] bytes = Files.toByteArray(file);
+		final List<String> expected = expectedRecords(bytes);
+
+		ChunkedGFFParser parser = new ChunkedGFFParser(file, null);
+		Assert.assertEquals(GFFVersion.GFF3, parser.getGFFVersion());
+		Assert.assertEquals(expected, actualRecords(parser));
+
+		ByteArrayOutputStream gzBytes = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzStream = new GZIPOutputStream(gzBytes)) {
+			gzStream.write(bytes);
+		}
+		InputStream gzInput = new ByteArrayInputStream(gzBytes.toByteArray());
+		parser = new ChunkedGFFParser(gzInput, null, pool, 4096);
+		Assert.assertEquals(GFFVersion.GFF3, parser.getGFFVersion());
+		Assert.assertEquals(expected, actualRecords(parser));
+	}
+
+	@Test
+	public void testEmptyInput() throws IOException {
+		ChunkedGFFParser parser = new ChunkedGFFParser(new ByteArrayInputStream(new byte[0]), null, pool, 100);
+		Assert.assertEquals(GFFVersion.GTF, parser.getGFFVersion());
+		Assert.assertNull(parser.next());
+		parser.close();
+	}
+
+}
@@ -0,0 +1,47 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SplicedCharSequence}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class SplicedCharSequenceTest {
+
+	/** Compare <code>seq</code> with <code>expected</code> using all methods of {@link CharSequence} */
+	private static void assertSequence(String expected, CharSequence seq) {
+		Assert.assertEquals(expected, seq.toString());
+		Assert.assertEquals(expected.length(), seq.length());
+		for (int i = 0; i < expected.length(); ++i)
+			Assert.assertEquals(expected.charAt(i), seq.charAt(i));
+		for (int i = 0; i <= expected.length(); ++i)
+			Assert.assertEquals(expected.substring(i), seq.subSequence(i, expected.length()).toString());
+	}
+
+	@Test
+	public void testSuffix() {
+		assertSequence("CGTACGT", SplicedCharSequence.suffix("ACGTACGT", 1));
+		assertSequence("", SplicedCharSequence.suffix("ACGTACGT", 8));
+	}
+
+	@Test
+	public void testReplace() {
+		assertSequence("CGTTTTACGT", SplicedCharSequence.replace("ACGTACGT", 1, 2, 2, "TTT"));
+		assertSequence("CGGGT", SplicedCharSequence.replace("ACGTACGT", 1, 2, 5, "G"));
+		assertSequence("CGTACGTTT", SplicedCharSequence.replace("ACGTACGT", 1, 7, 7, "TT"));
+		assertSequence("TT", SplicedCharSequence.replace("ACGTACGT", 0, 0, 8, "TT"));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testReplaceBeyondEnd() {
+		SplicedCharSequence.replace("ACGTACGT", 2, 5, 7, "A");
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testCharAtBeyondEnd() {
+		SplicedCharSequence.replace("ACGTACGT", 2, 0, 1, "").charAt(5);
+	}
+
+}
@@ -45,4 +45,18 @@ public class TranslatorTest {
 	public void testTranslateDna_tooLonger() throws AnnotationException {
 		Assert.assertEquals("T", translator.translateDNA("ACTG"));
 	}
+
+	/** Test for translateDNA() with ambiguous and invalid bases */
+	@Test
+	public void testTranslateDna_ambiguous() throws AnnotationException {
+		Assert.assertEquals("MXS", translator.translateDNA("ATGANTAGT"));
+		Assert.assertEquals("M", translator.translateDNA("ATGAcTAGT"));
+		Assert.assertEquals("MetX", translator.translateDNA3("ATGNNN"));
+	}
+
+	/** Test for translateDNA() on a {@link SplicedCharSequence} */
+	@Test
+	public void testTranslateDna_view() throws AnnotationException {
+		Assert.assertEquals("MS", translator.translateDNA(SplicedCharSequence.replace("CCATGTAGAGT", 2, 3, 6, "")));
+	}
 }
@@ -0,0 +1,71 @@
+package de.charite.compbio.jannovar.reference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+
+public class PackedGenomePositionTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	@Test
+	public void testPackUnpack() {
+		long pos = PackedGenomePosition.pack(23, Strand.REV, 1000);
+		Assert.assertEquals(23, PackedGenomePosition.getChr(pos));
+		Assert.assertEquals(Strand.REV, PackedGenomePosition.getStrand(pos));
+		Assert.assertEquals(1000, PackedGenomePosition.getPos(pos));
+
+		pos = PackedGenomePosition.pack(1, Strand.FWD, -3);
+		Assert.assertEquals(1, PackedGenomePosition.getChr(pos));
+		Assert.assertFalse(PackedGenomePosition.isReverse(pos));
+		Assert.assertEquals(-3, PackedGenomePosition.getPos(pos));
+	}
+
+	@Test
+	public void testShifted() {
+		final long pos = PackedGenomePosition.pack(1, Strand.REV, 1);
+		Assert.assertEquals(PackedGenomePosition.pack(1, Strand.REV, 11), PackedGenomePosition.shifted(pos, 10));
+		Assert.assertEquals(PackedGenomePosition.pack(1, Strand.REV, -1), PackedGenomePosition.shifted(pos, -2));
+		Assert.assertEquals(1, PackedGenomePosition.getChr(PackedGenomePosition.shifted(pos, -2)));
+	}
+
+	@Test
+	public void testWithStrandSameAsObjectAPI() {
+		GenomePosition fwdPos = new GenomePosition(refDict, Strand.FWD, 1, 1000, PositionType.ZERO_BASED);
+		GenomePosition revPos = fwdPos.withStrand(Strand.REV);
+
+		final long packed = PackedGenomePosition.withStrand(PackedGenomePosition.of(fwdPos), Strand.REV, refDict);
+		Assert.assertEquals(PackedGenomePosition.of(revPos), packed);
+		Assert.assertEquals(249249620, PackedGenomePosition.getPos(packed));
+		Assert.assertEquals(revPos, PackedGenomePosition.toGenomePosition(refDict, packed));
+		Assert.assertEquals(1000, PackedGenomePosition.getPos(packed, Strand.FWD, refDict));
+	}
+
+	@Test
+	public void testIntervalQueries() {
+		GenomeInterval itv = new GenomeInterval(refDict, Strand.FWD, 1, 1000, 1100, PositionType.ZERO_BASED);
+		GenomeInterval revItv = itv.withStrand(Strand.REV);
+		Assert.assertEquals(PackedGenomePosition.of(itv.getGenomeBeginPos()), PackedGenomePosition.beginOf(itv));
+		Assert.assertEquals(PackedGenomePosition.of(itv.getGenomeEndPos()), PackedGenomePosition.endOf(itv));
+
+		for (int p : new int[] { 998, 999, 1000, 1050, 1099, 1100, 1101 }) {
+			final GenomePosition pos = new GenomePosition(refDict, Strand.FWD, 1, p, PositionType.ZERO_BASED);
+			for (GenomeInterval i : new GenomeInterval[] { itv, revItv }) {
+				final long packed = PackedGenomePosition.of(pos);
+				Assert.assertEquals(i.contains(pos), PackedGenomePosition.contains(i, packed));
+				Assert.assertEquals(i.isLeftOf(pos), PackedGenomePosition.isLeftOf(i, packed));
+				Assert.assertEquals(i.isRightOf(pos), PackedGenomePosition.isRightOf(i, packed));
+			}
+		}
+		Assert.assertFalse(PackedGenomePosition.contains(itv, PackedGenomePosition.pack(2, Strand.FWD, 1050)));
+	}
+
+	@Test
+	public void testContigLengthTable() {
+		for (int chr : refDict.getContigIDToLength().keySet())
+			Assert.assertEquals(refDict.getContigIDToLength().get(chr).intValue(), refDict.getContigLength(chr));
+	}
+
+}
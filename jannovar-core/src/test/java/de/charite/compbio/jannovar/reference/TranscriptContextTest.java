@@ -0,0 +1,90 @@
+package de.charite.compbio.jannovar.reference;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.impl.util.Translator;
+
+/**
+ * Tests for {@link TranscriptContext} and {@link TranscriptContextCache}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class TranscriptContextTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	/** transcript on chr1 at 6.6 Mbp */
+	TranscriptModel first;
+	/** transcript overlapping with {@link #first} */
+	TranscriptModel overlapping;
+	/** transcript on chr1 at 23.7 Mbp */
+	TranscriptModel second;
+	/** transcript on chr2 */
+	TranscriptModel other;
+
+	@Before
+	public void setUp() {
+		TranscriptModelBuilder builder = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"uc001anx.3\tchr1\t+\t6640062\t6649340\t6640669\t6649272\t11"
+						+ "\t6640062,6640600,6642117,6645978,6646754,6647264,6647537,"
+						+ "6648119,6648337,6648815,6648975,\t6640196,6641359,6642359,"
+						+ "6646090,6646847,6647351,6647692,6648256,6648502,6648904,6649340,\tP10074\tuc001anx.3");
+		StringBuilder seq = new StringBuilder();
+		for (int i = 0; i < 1000; ++i)
+			seq.append("ACGT");
+		builder.setSequence(seq.toString());
+		first = builder.build();
+		overlapping = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"uc001any.1\tchr1\t+\t6648000\t6649340\t6649340\t6649340\t1\t6648000,\t6649340,\t\tuc001any.1").build();
+		second = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"uc001bgu.3\tchr1\t-\t23685940\t23696357\t23688461\t23694498\t4"
+						+ "\t23685940,23693534,23694465,23695858,\t23689714,23693661,23694558,"
+						+ "23696357,\tQ9C0F3\tuc001bgu.3").build();
+		other = TranscriptModelFactory.parseKnownGenesLine(refDict,
+				"uc002qsd.4\tchr2\t+\t10000\t11000\t10000\t10000\t1\t10000,\t11000,\t\tuc002qsd.4").build();
+	}
+
+	@Test
+	public void testDerivedData() {
+		TranscriptContext context = new TranscriptContext(first);
+		Assert.assertSame(first, context.getTranscript());
+		Assert.assertSame(context.getProjector(), context.getProjector());
+		final String cds = new TranscriptProjectionDecorator(first).getTranscriptStartingAtCDS();
+		Assert.assertEquals(cds, context.getCDSView().toString());
+		Assert.assertEquals(Translator.getTranslator().translateDNA(cds), context.getWildTypeProtein());
+		Assert.assertSame(context.getWildTypeProtein(), context.getWildTypeProtein());
+	}
+
+	@Test
+	public void testForTranscript() {
+		TranscriptContext context = TranscriptContext.forTranscript(first);
+		Assert.assertSame(context, TranscriptContext.forTranscript(first));
+		Assert.assertNotSame(context, TranscriptContext.forTranscript(second));
+	}
+
+	@Test
+	public void testCacheEviction() {
+		TranscriptContextCache cache = new TranscriptContextCache();
+		TranscriptContext firstContext = cache.get(first);
+		Assert.assertSame(firstContext, cache.get(first));
+
+		// overlapping transcripts are kept
+		TranscriptContext overlappingContext = cache.get(overlapping);
+		Assert.assertEquals(2, cache.size());
+		Assert.assertSame(firstContext, cache.get(first));
+
+		// the sweep has moved past both when reaching the second transcript
+		cache.get(second);
+		Assert.assertEquals(1, cache.size());
+		Assert.assertNotSame(overlappingContext, cache.get(overlapping));
+
+		// another chromosome evicts all
+		cache.get(other);
+		Assert.assertEquals(1, cache.size());
+	}
+
+}
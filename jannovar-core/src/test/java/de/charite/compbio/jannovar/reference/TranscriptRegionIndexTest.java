@@ -0,0 +1,161 @@
+package de.charite.compbio.jannovar.reference;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+
+/**
+ * Tests for {@link TranscriptRegionIndex}, comparing against regions built from {@link GenomeInterval} objects
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class TranscriptRegionIndexTest {
+
+	/** this test uses this static hg19 reference dictionary */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	/** ZBTB48 on the forward strand */
+	static final String FORWARD = "uc001anx.3\tchr1\t+\t6640062\t6649340\t6640669\t6649272\t11"
+			+ "\t6640062,6640600,6642117,6645978,6646754,6647264,6647537,"
+			+ "6648119,6648337,6648815,6648975,\t6640196,6641359,6642359,"
+			+ "6646090,6646847,6647351,6647692,6648256,6648502,6648904,6649340,\tP10074\tuc001anx.3";
+
+	/** ZNF436 on the reverse strand */
+	static final String REVERSE = "uc001bgu.3\tchr1\t-\t23685940\t23696357\t23688461\t23694498\t4"
+			+ "\t23685940,23693534,23694465,23695858,\t23689714,23693661,23694558,"
+			+ "23696357,\tQ9C0F3\tuc001bgu.3";
+
+	/** transcript with introns so short that splice regions touch and a CDS ending within an intron's flank */
+	static final String SHORT_INTRONS = "uc000tst.1\tchr1\t-\t10000\t10500\t10190\t10300\t3"
+			+ "\t10000,10216,10220,\t10200,10218,10500,\t\tuc000tst.1";
+
+	/** non-coding transcript */
+	static final String NON_CODING = "uc000tst.2\tchr1\t+\t10000\t10500\t10500\t10500\t2"
+			+ "\t10000,10300,\t10200,10500,\t\tuc000tst.2";
+
+	@Test
+	public void testForward() {
+		checkAgainstIntervals(TranscriptModelFactory.parseKnownGenesLine(refDict, FORWARD).build());
+	}
+
+	@Test
+	public void testReverse() {
+		checkAgainstIntervals(TranscriptModelFactory.parseKnownGenesLine(refDict, REVERSE).build());
+	}
+
+	@Test
+	public void testShortIntrons() {
+		checkAgainstIntervals(TranscriptModelFactory.parseKnownGenesLine(refDict, SHORT_INTRONS).build());
+	}
+
+	@Test
+	public void testNonCoding() {
+		checkAgainstIntervals(TranscriptModelFactory.parseKnownGenesLine(refDict, NON_CODING).build());
+	}
+
+	@Test
+	public void testPointQueries() {
+		TranscriptModel tm = TranscriptModelFactory.parseKnownGenesLine(refDict, FORWARD).build();
+		TranscriptRegionIndex index = tm.getRegionIndex();
+		Assert.assertSame(index, tm.getRegionIndex());
+
+		GenomePosition startCodon = new GenomePosition(refDict, Strand.FWD, 1, 6640670, PositionType.ZERO_BASED);
+		Assert.assertEquals(TranscriptRegionIndex.CDS | TranscriptRegionIndex.EXON | TranscriptRegionIndex.CDS_EXON
+				| TranscriptRegionIndex.START_CODON, index.getRegionsAt(startCodon));
+		Assert.assertEquals(index.getRegionsAt(startCodon), index.getRegionsAt(PackedGenomePosition.of(startCodon)));
+
+		GenomePosition donor = new GenomePosition(refDict, Strand.FWD, 1, 6640196, PositionType.ZERO_BASED);
+		Assert.assertEquals(TranscriptRegionIndex.INTRON | TranscriptRegionIndex.SPLICE_DONOR
+				| TranscriptRegionIndex.SPLICE_REGION | TranscriptRegionIndex.FIVE_PRIME_UTR,
+				index.getRegionsAt(donor));
+		Assert.assertEquals(index.getRegionsAt(donor), index.getRegionsAt(donor.withStrand(Strand.REV)));
+
+		Assert.assertEquals(0, index.getRegionsAt(new GenomePosition(refDict, Strand.FWD, 2, 6640196,
+				PositionType.ZERO_BASED)));
+		Assert.assertEquals(0, index.getRegionsAt(new GenomePosition(refDict, Strand.FWD, 1, 6639062 - 1,
+				PositionType.ZERO_BASED)));
+	}
+
+	/**
+	 * Compare index against regions built from {@link GenomeInterval}s for points and intervals around all region
+	 * boundaries
+	 */
+	private static void checkAgainstIntervals(TranscriptModel tm) {
+		TranscriptRegionIndex index = tm.getRegionIndex();
+		List<GenomeInterval> regions = new ArrayList<>();
+		List<Integer> bits = new ArrayList<>();
+		collectRegions(tm, regions, bits);
+
+		for (GenomeInterval region : regions) {
+			for (int pos : new int[] { region.getBeginPos(), region.getEndPos() }) {
+				for (int p = pos - 12; p <= pos + 12; ++p) {
+					GenomePosition gPos = new GenomePosition(refDict, tm.getStrand(), tm.getChr(), p,
+							PositionType.ZERO_BASED);
+					int expected = 0;
+					for (int i = 0; i < regions.size(); ++i)
+						if (regions.get(i).contains(gPos))
+							expected |= bits.get(i);
+					Assert.assertEquals("at " + gPos, expected, index.getRegionsAt(gPos));
+					Assert.assertEquals("at " + gPos, expected, index.getRegionsAt(gPos.withStrand(Strand.FWD)));
+
+					for (int len : new int[] { 0, 1, 2, 3, 5, 12, 200 }) {
+						GenomeInterval itv = new GenomeInterval(gPos, len);
+						expected = 0;
+						for (int i = 0; i < regions.size(); ++i)
+							if (regions.get(i).overlapsWith(itv))
+								expected |= bits.get(i);
+						Assert.assertEquals("for " + itv, expected, index.getRegionsOverlapping(itv));
+						Assert.assertEquals("for " + itv, expected,
+								index.getRegionsOverlapping(itv.withStrand(Strand.REV)));
+					}
+				}
+			}
+		}
+	}
+
+	/** Collect regions of <code>tm</code> as defined in {@link TranscriptSequenceOntologyDecorator} */
+	private static void collectRegions(TranscriptModel tm, List<GenomeInterval> regions, List<Integer> bits) {
+		TranscriptSequenceOntologyDecorator so = new TranscriptSequenceOntologyDecorator(tm);
+		regions.add(so.getUpstreamInterval());
+		bits.add(TranscriptRegionIndex.UPSTREAM);
+		regions.add(so.getDownstreamInterval());
+		bits.add(TranscriptRegionIndex.DOWNSTREAM);
+		regions.add(so.getFivePrimeUTRInterval());
+		bits.add(TranscriptRegionIndex.FIVE_PRIME_UTR);
+		regions.add(so.getThreePrimeUTRInterval());
+		bits.add(TranscriptRegionIndex.THREE_PRIME_UTR);
+		regions.add(tm.getCDSRegion());
+		bits.add(TranscriptRegionIndex.CDS);
+		regions.add(so.getStartCodonInterval());
+		bits.add(TranscriptRegionIndex.START_CODON);
+		regions.add(so.getStopCodonInterval());
+		bits.add(TranscriptRegionIndex.STOP_CODON);
+		for (int i = 0; i < tm.getExonRegions().size(); ++i) {
+			GenomeInterval exon = tm.getExonRegions().get(i);
+			regions.add(exon);
+			bits.add(tm.getCDSRegion().overlapsWith(exon) ? TranscriptRegionIndex.EXON | TranscriptRegionIndex.CDS_EXON
+					: TranscriptRegionIndex.EXON);
+			if (i + 1 < tm.getExonRegions().size()) {
+				GenomeInterval intron = tm.intronRegion(i);
+				regions.add(intron);
+				bits.add(tm.getCDSRegion().overlapsWith(intron)
+						? TranscriptRegionIndex.INTRON | TranscriptRegionIndex.CDS_INTRON : TranscriptRegionIndex.INTRON);
+				regions.add(new GenomeInterval(exon.getGenomeEndPos(), 2));
+				bits.add(TranscriptRegionIndex.SPLICE_DONOR);
+				regions.add(new GenomeInterval(exon.getGenomeEndPos().shifted(-3), 11));
+				bits.add(TranscriptRegionIndex.SPLICE_REGION);
+			}
+			if (i > 0) {
+				regions.add(new GenomeInterval(exon.getGenomeBeginPos().shifted(-2), 2));
+				bits.add(TranscriptRegionIndex.SPLICE_ACCEPTOR);
+				regions.add(new GenomeInterval(exon.getGenomeBeginPos().shifted(-8), 11));
+				bits.add(TranscriptRegionIndex.SPLICE_REGION);
+			}
+		}
+	}
+
+}
@@ -87,6 +87,15 @@ public final class Translator {
 		return shortToLong.get("" + c);
 	}
 
+	/**
+	 * @param longAA
+	 *            long amino acid representation, e.g. <code>"Arg"</code>
+	 * @return short representation of <code>longAA</code>, <code>null</code> if unknown
+	 */
+	public String toShort(String longAA) {
+		return longToShort.get(longAA);
+	}
+
 	private String translateDNA(String dnaseq, ImmutableMap<String, String> codonTable) {
 		StringBuilder aminoAcidSeq = new StringBuilder();
 		int len = dnaseq.length();
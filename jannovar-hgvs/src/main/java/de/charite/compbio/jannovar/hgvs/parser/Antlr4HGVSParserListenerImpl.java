@@ -7,8 +7,11 @@ import org.antlr.v4.runtime.tree.ParseTreeProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableList;
+
 import de.charite.compbio.jannovar.hgvs.HGVSVariant;
 import de.charite.compbio.jannovar.hgvs.SequenceType;
+import de.charite.compbio.jannovar.hgvs.Translator;
 import de.charite.compbio.jannovar.hgvs.VariantConfiguration;
 import de.charite.compbio.jannovar.hgvs.legacy.LegacyChange;
 import de.charite.compbio.jannovar.hgvs.legacy.LegacyDeletion;
@@ -33,6 +36,13 @@ import de.charite.compbio.jannovar.hgvs.nts.variant.MultiAlleleNucleotideVariant
 import de.charite.compbio.jannovar.hgvs.nts.variant.NucleotideChangeAllele;
 import de.charite.compbio.jannovar.hgvs.nts.variant.NucleotideVariant;
 import de.charite.compbio.jannovar.hgvs.nts.variant.SingleAlleleNucleotideVariant;
+import de.charite.compbio.jannovar.hgvs.parser.Antlr4HGVSParser.Aa_changeContext;
+import de.charite.compbio.jannovar.hgvs.parser.Antlr4HGVSParser.Aa_change_innerContext;
+import de.charite.compbio.jannovar.hgvs.parser.Antlr4HGVSParser.Aa_change_substitutionContext;
+import de.charite.compbio.jannovar.hgvs.parser.Antlr4HGVSParser.Aa_charContext;
+import de.charite.compbio.jannovar.hgvs.parser.Antlr4HGVSParser.Aa_point_locationContext;
+import de.charite.compbio.jannovar.hgvs.parser.Antlr4HGVSParser.Aa_single_allele_single_change_varContext;
+import de.charite.compbio.jannovar.hgvs.parser.Antlr4HGVSParser.Aa_single_allele_varContext;
 import de.charite.compbio.jannovar.hgvs.parser.Antlr4HGVSParser.Hgvs_variantContext;
 import de.charite.compbio.jannovar.hgvs.parser.Antlr4HGVSParser.Legacy_changeContext;
 import de.charite.compbio.jannovar.hgvs.parser.Antlr4HGVSParser.Legacy_change_deletionContext;
@@ -63,8 +73,12 @@ import de.charite.compbio.jannovar.hgvs.parser.Antlr4HGVSParser.Nt_single_allele
 import de.charite.compbio.jannovar.hgvs.parser.Antlr4HGVSParser.Nt_single_allele_varContext;
 import de.charite.compbio.jannovar.hgvs.parser.Antlr4HGVSParser.Nt_var_sepContext;
 import de.charite.compbio.jannovar.hgvs.parser.Antlr4HGVSParser.ReferenceContext;
+import de.charite.compbio.jannovar.hgvs.protein.ProteinPointLocation;
+import de.charite.compbio.jannovar.hgvs.protein.change.ProteinChange;
+import de.charite.compbio.jannovar.hgvs.protein.change.ProteinSubstitution;
+import de.charite.compbio.jannovar.hgvs.protein.variant.SingleAlleleProteinVariant;
 
-// TODO(holtgrewe): support parsing amino acid changes
+// TODO(holtgrewe): support parsing amino acid changes other than single substitutions
 
 /**
  * Master ParseTreeListener used in {@link HVSParser} setB
@@ -114,6 +128,33 @@ class Antlr4HGVSParserListenerImpl extends Antlr4HGVSParserBaseListener {
 		hgvsVariant = (HGVSVariant) getValue(ctx.getChild(0));
 	}
 
+	/**
+	 * Leaving of the aa_single_allele_var rule.
+	 *
+	 * The result from the child is propagated to the label of this node.
+	 */
+	@Override
+	public void exitAa_single_allele_var(Aa_single_allele_varContext ctx) {
+		LOGGER.debug("Leaving aa_single_allele_var");
+		setValue(ctx, getValue(ctx.getChild(0)));
+	}
+
+	/**
+	 * Leaving of the aa_single_allele_single_change_var rule.
+	 *
+	 * Collect reference and ProteinChange from the children and label ctx with the resulting
+	 * {@link SingleAlleleProteinVariant}, no label if the change is not supported yet.
+	 */
+	@Override
+	public void exitAa_single_allele_single_change_var(Aa_single_allele_single_change_varContext ctx) {
+		LOGGER.debug("Leaving aa_single_allele_single_change_var");
+		final ReferenceLabel refLabel = (ReferenceLabel) getValue(ctx.reference());
+		final ProteinChange aaChange = (ProteinChange) getValue(ctx.aa_change());
+		if (aaChange != null)
+			setValue(ctx, new SingleAlleleProteinVariant(refLabel.getTranscriptIDWithVersion(),
+					refLabel.getProteinID(), VariantConfiguration.IN_CIS, ImmutableList.of(aaChange)));
+	}
+
 	/**
 	 * Leaving of the nt_single_allele_var rule.
 	 *
@@ -409,6 +450,87 @@ class Antlr4HGVSParserListenerImpl extends Antlr4HGVSParserBaseListener {
 		setValue(ctx, NucleotideMiscChange.buildFromString(ctx.getText()));
 	}
 
+	/**
+	 * Leaving of aa_change rule.
+	 *
+	 * The result from the child is propagated to the label of this node.
+	 */
+	@Override
+	public void exitAa_change(Aa_changeContext ctx) {
+		LOGGER.debug("Leaving aa_change");
+		final ProteinChange change = (ProteinChange) getValue(ctx.aa_change_inner());
+		if (ctx.AA_PAREN_OPEN() == null || change == null)
+			setValue(ctx, change);
+		else
+			setValue(ctx, change.withOnlyPredicted(true));
+	}
+
+	/**
+	 * Leaving of aa_change_inner rule.
+	 *
+	 * The result from the child is propagated to the label of this node.
+	 */
+	@Override
+	public void exitAa_change_inner(Aa_change_innerContext ctx) {
+		LOGGER.debug("Leaving aa_change_inner");
+		setValue(ctx, getValue(ctx.getChild(0)));
+	}
+
+	/**
+	 * Leaving of aa_change_substitution rule
+	 *
+	 * Construct {@link ProteinSubstitution} from children's values and label ctx with this, no label for unknown
+	 * (<code>"?"</code>) and unchanged (<code>"="</code>) target amino acids.
+	 */
+	@Override
+	public void exitAa_change_substitution(Aa_change_substitutionContext ctx) {
+		LOGGER.debug("Leaving aa_change_substitution");
+		ProteinPointLocation location = (ProteinPointLocation) getValue(ctx.aa_point_location());
+		if (ctx.aa_char() == null || location == null)
+			return;
+		setValue(ctx, new ProteinSubstitution(false, location, (String) getValue(ctx.aa_char())));
+	}
+
+	/**
+	 * Leaving of aa_point_location rule
+	 *
+	 * Construct {@link ProteinPointLocation} from the children's values and label ctx with this, no label for
+	 * positions upstream of the start codon.
+	 */
+	@Override
+	public void exitAa_point_location(Aa_point_locationContext ctx) {
+		LOGGER.debug("Leaving aa_point_location");
+		final String aa = (String) getValue(ctx.aa_char());
+		final int pos = Integer.parseInt(ctx.AA_NUMBER(0).getText()) - 1;
+		int offset = 0;
+		if (ctx.AA_NUMBER().size() > 1) {
+			offset = Integer.parseInt(ctx.AA_NUMBER(1).getText());
+			if (ctx.AA_PLUS() == null)
+				offset = -offset;
+		}
+		// positions upstream of the start codon have no representation yet, a minus sign in front of the position
+		// comes before the first number
+		final boolean upstream = ctx.AA_MINUS().size() > 0
+				&& ctx.AA_MINUS(0).getSymbol().getTokenIndex() < ctx.AA_NUMBER(0).getSymbol().getTokenIndex();
+		if (!upstream)
+			setValue(ctx, new ProteinPointLocation(aa, pos, offset, ctx.AA_TERMINAL() != null));
+	}
+
+	/**
+	 * Leaving of aa_char rule, label ctx with the 1-letter code of the amino acid
+	 */
+	@Override
+	public void exitAa_char(Aa_charContext ctx) {
+		LOGGER.debug("Leaving aa_char");
+		final String text = ctx.getText();
+		if (ctx.AA_TERMINAL() != null)
+			setValue(ctx, "*");
+		else if (text.length() == 3)
+			setValue(ctx, Translator.getTranslator().toShort(text));
+		else
+			setValue(ctx, text);
+	}
+
 	/**
 	 * Leaving of the reference rule.
 	 *
@@ -649,6 +771,13 @@ class Antlr4HGVSParserListenerImpl extends Antlr4HGVSParserBaseListener {
 			return proteinID;
 		}
 
+		public String getTranscriptIDWithVersion() {
+			if (transcriptVersion == NucleotideVariant.NO_TRANSCRIPT_VERSION)
+				return transcriptID;
+			else
+				return transcriptID + "." + transcriptVersion;
+		}
+
 	}
 
 }
@@ -0,0 +1,290 @@
+package de.charite.compbio.jannovar.hgvs.parser;
+
+import de.charite.compbio.jannovar.hgvs.HGVSVariant;
+import de.charite.compbio.jannovar.hgvs.SequenceType;
+import de.charite.compbio.jannovar.hgvs.nts.NucleotidePointLocation;
+import de.charite.compbio.jannovar.hgvs.nts.NucleotideRange;
+import de.charite.compbio.jannovar.hgvs.nts.NucleotideSeqDescription;
+import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideChange;
+import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideDeletion;
+import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideDuplication;
+import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideInsertion;
+import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideSubstitution;
+import de.charite.compbio.jannovar.hgvs.nts.variant.NucleotideChangeAllele;
+import de.charite.compbio.jannovar.hgvs.nts.variant.NucleotideVariant;
+import de.charite.compbio.jannovar.hgvs.nts.variant.SingleAlleleNucleotideVariant;
+
+/**
+ * Hand-written recursive descent parser for the most common HGVS nucleotide variants.
+ *
+ * Handles single changes of the form <code>{reference}[({protein})]:{c,m,n,g,r}.{change}</code> where the change is a
+ * substitution (<code>123A&gt;G</code>), a deletion (<code>123_124del[AT|2]</code>), a duplication
+ * (<code>123dup[A|1]</code>), or an insertion (<code>123_124ins[AT|2]</code>), with the same point locations as
+ * {@link Antlr4HGVSParser}. Each character is looked at once, there is no backtracking.
+ *
+ * {@link #tryParse} returns <code>null</code> for everything else, including whitespace, parentheses around the change,
+ * malformed input, and trailing characters, such that the caller can fall back to the ANTLR grammar. For the accepted
+ * strings, the result is equal to the one of the grammar.
+ *
+ * Objects of this class are not thread-safe.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class HGVSFastPathParser {
+
+	/** largest number of digits in a number, such that it fits into an <code>int</code> */
+	private static final int MAX_DIGITS = 9;
+
+	/** the string being parsed */
+	private String input;
+
+	/** current position in {@link #input} */
+	private int pos;
+
+	/**
+	 * Parse <code>inputString</code> if it is of one of the supported forms
+	 *
+	 * @param inputString
+	 *            the HGVS string to parse
+	 * @return {@link SingleAlleleNucleotideVariant} for <code>inputString</code> or <code>null</code> if the string
+	 *         is not supported by this parser
+	 */
+	public HGVSVariant tryParse(String inputString) {
+		this.input = inputString;
+		this.pos = 0;
+		try {
+			return parseVariant();
+		} finally {
+			this.input = null;
+		}
+	}
+
+	/** variant: reference ('(' reference ')')? ':' seq_type change EOF */
+	private HGVSVariant parseVariant() {
+		// transcript with optional version
+		final int idBegin = pos;
+		if (!skipReference())
+			return null;
+		final int idEnd = pos;
+		int transcriptVersion = NucleotideVariant.NO_TRANSCRIPT_VERSION;
+		if (peek() == '.') {
+			++pos;
+			final int version = parseNumber();
+			if (version < 0)
+				return null;
+			transcriptVersion = version;
+		}
+		final String transcriptID = input.substring(idBegin, idEnd);
+
+		// optional protein, taken verbatim
+		String proteinID = null;
+		if (peek() == '(') {
+			++pos;
+			final int proteinBegin = pos;
+			if (!skipReference())
+				return null;
+			if (peek() == '.') {
+				++pos;
+				if (parseNumber() < 0)
+					return null;
+			}
+			proteinID = input.substring(proteinBegin, pos);
+			if (peek() != ')')
+				return null;
+			++pos;
+		}
+		if (peek() != ':')
+			return null;
+		++pos;
+
+		final SequenceType seqType = parseSequenceType();
+		if (seqType == null)
+			return null;
+		final NucleotideChange change = parseChange();
+		if (change == null || pos != input.length())
+			return null;
+
+		return new SingleAlleleNucleotideVariant(seqType, transcriptID, proteinID, transcriptVersion,
+				NucleotideChangeAllele.singleChangeAllele(change));
+	}
+
+	/**
+	 * Skip over characters of a reference identifier, as accepted by the <code>REFERENCE</code> token
+	 *
+	 * @return whether there was a valid identifier
+	 */
+	private boolean skipReference() {
+		final int begin = pos;
+		while (pos < input.length() && isIdentifierChar(input.charAt(pos)))
+			++pos;
+		final int len = pos - begin;
+		// single-character identifiers must not look like a sequence type
+		return len >= 2 || (len == 1 && "cgmnpr_".indexOf(input.charAt(begin)) < 0);
+	}
+
+	/** @return {@link SequenceType} for the following <code>"c."</code> etc., <code>null</code> if not supported */
+	private SequenceType parseSequenceType() {
+		if (pos + 2 > input.length() || input.charAt(pos + 1) != '.')
+			return null;
+		final SequenceType result;
+		switch (input.charAt(pos)) {
+		case 'c':
+			result = SequenceType.CODING_DNA;
+			break;
+		case 'g':
+			result = SequenceType.GENOMIC;
+			break;
+		case 'm':
+			result = SequenceType.MITOCHONDRIAL_DNA;
+			break;
+		case 'n':
+			result = SequenceType.NON_CODING_DNA;
+			break;
+		case 'r':
+			result = SequenceType.RNA;
+			break;
+		default:
+			return null;
+		}
+		pos += 2;
+		return result;
+	}
+
+	/** change: substitution | deletion | duplication | insertion */
+	private NucleotideChange parseChange() {
+		final NucleotidePointLocation first = parsePointLocation();
+		if (first == null)
+			return null;
+
+		// substitution, only after point location
+		if (isNucleotide(peek())) {
+			final String fromNT = parseNucleotides();
+			if (peek() != '>')
+				return null;
+			++pos;
+			final String toNT = parseNucleotides();
+			if (toNT.isEmpty())
+				return null;
+			return new NucleotideSubstitution(false, first, fromNT, toNT);
+		}
+
+		final NucleotidePointLocation last;
+		if (peek() == '_') {
+			++pos;
+			last = parsePointLocation();
+			if (last == null)
+				return null;
+		} else {
+			last = null;
+		}
+		final NucleotideRange range = new NucleotideRange(first, (last == null) ? first : last);
+
+		if (skipKeyword("del")) {
+			// deletion-insertions are left to the grammar, a following "ins" is trailing input
+			final NucleotideSeqDescription seq = parseSeqDescription();
+			return (seq == null) ? null : new NucleotideDeletion(false, range, seq);
+		} else if (skipKeyword("dup")) {
+			final NucleotideSeqDescription seq = parseSeqDescription();
+			return (seq == null) ? null : new NucleotideDuplication(false, range, seq);
+		} else if (last != null && skipKeyword("ins")) {
+			final NucleotideSeqDescription seq = parseSeqDescription();
+			return (seq == null) ? null : new NucleotideInsertion(false, range, seq);
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * point_location: ('-' | '*')? number (('+' | '-') number)?
+	 *
+	 * @return the parsed location or <code>null</code>
+	 */
+	private NucleotidePointLocation parsePointLocation() {
+		final char prefix = peek();
+		if (prefix == '-' || prefix == '*')
+			++pos;
+		int value = parseNumber();
+		if (value < 0)
+			return null;
+		if (prefix == '-')
+			value = -value;
+		final int basePos = (value < 0) ? value : value - 1;
+
+		int offset = 0;
+		final char sign = peek();
+		if (sign == '+' || sign == '-') {
+			++pos;
+			offset = parseNumber();
+			if (offset < 0)
+				return null;
+			if (sign == '-')
+				offset = -offset;
+		}
+		return new NucleotidePointLocation(basePos, offset, prefix == '*');
+	}
+
+	/**
+	 * Optional sequence description after <code>del</code>, <code>dup</code>, or <code>ins</code>
+	 *
+	 * @return description of nucleotides, of length, or empty description; <code>null</code> on invalid numbers
+	 */
+	private NucleotideSeqDescription parseSeqDescription() {
+		final char c = peek();
+		if (isNucleotide(c)) {
+			return new NucleotideSeqDescription(parseNucleotides());
+		} else if (c >= '0' && c <= '9') {
+			final int count = parseNumber();
+			return (count < 0) ? null : new NucleotideSeqDescription(count);
+		} else {
+			return new NucleotideSeqDescription();
+		}
+	}
+
+	/**
+	 * number: [1-9][0-9]*, of at most {@link #MAX_DIGITS} digits
+	 *
+	 * @return the number or <code>-1</code> if there is no valid number at the current position
+	 */
+	private int parseNumber() {
+		final int begin = pos;
+		if (peek() < '1' || peek() > '9')
+			return -1;
+		int result = 0;
+		while (pos < input.length() && input.charAt(pos) >= '0' && input.charAt(pos) <= '9') {
+			if (pos - begin == MAX_DIGITS)
+				return -1;
+			result = 10 * result + (input.charAt(pos++) - '0');
+		}
+		return result;
+	}
+
+	/** @return the nucleotide string starting at the current position, possibly empty */
+	private String parseNucleotides() {
+		final int begin = pos;
+		while (isNucleotide(peek()))
+			++pos;
+		return input.substring(begin, pos);
+	}
+
+	/** @return whether the input continues with <code>keyword</code>, skipping over it if this is the case */
+	private boolean skipKeyword(String keyword) {
+		if (!input.startsWith(keyword, pos))
+			return false;
+		pos += keyword.length();
+		return true;
+	}
+
+	/** @return character at the current position or <code>'\0'</code> at the end of the input */
+	private char peek() {
+		return (pos < input.length()) ? input.charAt(pos) : '\0';
+	}
+
+	private static boolean isNucleotide(char c) {
+		return c == 'A' || c == 'C' || c == 'G' || c == 'T' || c == 'U';
+	}
+
+	private static boolean isIdentifierChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+	}
+
+}
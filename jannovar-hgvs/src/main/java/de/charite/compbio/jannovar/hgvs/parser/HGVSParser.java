@@ -16,6 +16,11 @@ import de.charite.compbio.jannovar.hgvs.legacy.LegacyVariant;
 /**
  * Driver code for parsing HGVS strings into HGVSVariant objects.
  *
+ * Single nucleotide substitutions, deletions, duplications, and insertions are parsed by {@link HGVSFastPathParser},
+ * everything else by the ANTLR grammar. The ANTLR lexer and parser are created once and
+ * reused for all strings parsed with this object, the DFA caches of ANTLR are shared between all instances. Objects of
+ * this class are not thread-safe, use one object per thread.
+ *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
 public class HGVSParser {
@@ -24,11 +29,46 @@ public class HGVSParser {
 
 	private boolean debug = false;
 
+	/** whether or not to try {@link #fastPath} before the ANTLR grammar */
+	private final boolean useFastPath;
+
+	/** parser for the most common variant forms */
+	private final HGVSFastPathParser fastPath = new HGVSFastPathParser();
+
+	/** the lexer, reused for all input strings */
+	private final HGVSLexer lexer;
+
+	/** the parser, reused for all input strings */
+	private final Antlr4HGVSParser parser;
+
 	public HGVSParser() {
+		this(false);
 	}
 
 	public HGVSParser(boolean debug) {
+		this(debug, !debug);
+	}
+
+	/**
+	 * @param debug
+	 *            whether or not to print the tokens and trace of the ANTLR parser
+	 * @param useFastPath
+	 *            whether or not to parse common variant forms without the ANTLR grammar
+	 */
+	public HGVSParser(boolean debug, boolean useFastPath) {
 		this.debug = debug;
+		this.useFastPath = useFastPath;
+		this.lexer = new HGVSLexer(new ANTLRInputStream(""));
+		this.parser = new Antlr4HGVSParser(new CommonTokenStream(lexer));
+		parser.setErrorHandler(new HGVSErrorStrategy());
+		parser.setTrace(debug);
+		parser.addErrorListener(new BaseErrorListener() {
+			@Override
+			public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+					int charPositionInLine, String msg, RecognitionException e) {
+				throw new IllegalStateException("failed to parse at line " + line + " due to " + msg, e);
+			}
+		});
 	}
 
 	/**
@@ -41,45 +81,32 @@ public class HGVSParser {
 	 *             if the parsing failed (note that this is an unchecked Exception)
 	 */
 	public HGVSVariant parseHGVSString(String inputString) {
-		LOGGER.trace("Parsing input string " + inputString);
-		Antlr4HGVSParser parser = getParser(inputString);
-		parser.setErrorHandler(new HGVSErrorStrategy());
+		LOGGER.trace("Parsing input string {}", inputString);
+		if (useFastPath) {
+			HGVSVariant result = fastPath.tryParse(inputString);
+			if (result != null)
+				return result;
+		}
+		if (debug)
+			printTokens(inputString);
+		lexer.setInputStream(new ANTLRInputStream(inputString));
+		parser.setTokenStream(new CommonTokenStream(lexer));
 		Antlr4HGVSParserListenerImpl listener = new Antlr4HGVSParserListenerImpl();
+		parser.removeParseListeners();
 		parser.addParseListener(listener);
-		parser.setTrace(debug);
 		ParseTree tree = parser.hgvs_variant();
 		if (debug)
 			System.err.println(tree.toStringTree(parser));
 		return listener.getHGVSVariant();
 	}
 
-	private Antlr4HGVSParser getParser(String inputString) {
-		if (debug) {
-			ANTLRInputStream inputStream = new ANTLRInputStream(inputString);
-			HGVSLexer l = new HGVSLexer(inputStream);
-			System.err.println(l.getAllTokens());
-		}
-		if (debug) {
-			HGVSLexer lexer = new HGVSLexer(new ANTLRInputStream(inputString));
-			// lexer.pushMode(mode);
-			System.err.println("Lexer tokens");
-			for (Token t : lexer.getAllTokens())
-				System.err.println("\t" + t.getText() + "\t" + t);
-			System.err.println("END OF LEXER TOKENS");
-		}
-		ANTLRInputStream inputStream = new ANTLRInputStream(inputString);
-		HGVSLexer l = new HGVSLexer(inputStream);
-		// l.pushMode(mode);
-		Antlr4HGVSParser p = new Antlr4HGVSParser(new CommonTokenStream(l));
-		p.setTrace(debug);
-		p.addErrorListener(new BaseErrorListener() {
-			@Override
-			public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
-					int charPositionInLine, String msg, RecognitionException e) {
-				throw new IllegalStateException("failed to parse at line " + line + " due to " + msg, e);
-			}
-		});
-		return p;
+	/** Print tokens of <code>inputString</code> for debugging */
+	private void printTokens(String inputString) {
+		HGVSLexer l = new HGVSLexer(new ANTLRInputStream(inputString));
+		System.err.println("Lexer tokens");
+		for (Token t : l.getAllTokens())
+			System.err.println("\t" + t.getText() + "\t" + t);
+		System.err.println("END OF LEXER TOKENS");
 	}
 
 }
@@ -40,6 +40,11 @@ public abstract class ProteinVariant extends HGVSVariant {
 		return toHGVSString(AminoAcidCode.THREE_LETTER);
 	}
 
+	/** @return the reference ID, e.g. the transcript accession with version */
+	public String getRefID() {
+		return refID;
+	}
+
 	/** @return the protein ID */
 	public String getProteinID() {
 		return proteinID;
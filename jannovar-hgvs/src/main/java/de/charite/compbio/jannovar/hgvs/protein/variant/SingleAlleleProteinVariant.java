@@ -51,6 +51,24 @@ public class SingleAlleleProteinVariant extends ProteinVariant {
 		this.allele = new ProteinChangeAllele(varConfig, changes);
 	}
 
+	/**
+	 * Construct {@link SingleAlleleProteinVariant} with a protein ID next to the reference ID
+	 *
+	 * @param refID
+	 *            ID of the reference sequence, e.g. the transcript accession with version
+	 * @param proteinID
+	 *            ID of the protein, e.g. the protein accession or the gene symbol, <code>null</code> for none
+	 * @param varConfig
+	 *            {@link VariantConfiguration} of the {@link ProteinChange}s in the allele
+	 * @param changes
+	 *            {@link ProteinChange}s to use for the single allele
+	 */
+	public SingleAlleleProteinVariant(String refID, String proteinID, VariantConfiguration varConfig,
+			Collection<? extends ProteinChange> changes) {
+		super(refID, proteinID, NO_PROTEIN_ISOFORM);
+		this.allele = new ProteinChangeAllele(varConfig, changes);
+	}
+
 	/** @return <code>true</code> if the variant has only one {@link ProteinChange}. */
 	public boolean hasOnlyOneChange() {
 		return (allele.size() == 1);
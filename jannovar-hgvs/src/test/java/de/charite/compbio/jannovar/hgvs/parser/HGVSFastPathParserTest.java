@@ -0,0 +1,106 @@
+package de.charite.compbio.jannovar.hgvs.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.hgvs.HGVSVariant;
+
+/**
+ * Differential test of {@link HGVSFastPathParser} against the ANTLR grammar
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class HGVSFastPathParserTest {
+
+	/** strings from the parser tests and the examples that the fast path must handle */
+	static final String[] SUPPORTED = { "NM_000138.4:c.7339G>A", "NM_000138.4(FBN1):c.7339G>A",
+			"NM_000138(FBN1):c.7339G>A", "NM_000138.4:c.247_248del", "NM_000138.4:c.247+1_247+3del",
+			"NM_000138.4:c.247-3_247-1del", "NM_000138.4:c.*247_*247+3del", "NM_000138.4:c.-247_-247-3del",
+			"NM_000138.4:c.247_248delAT", "NM_000138.4:c.*247_*247+3delATAT", "NM_000138.4:c.247_248del2",
+			"NM_000138.4:c.-247_-247-3del4", "NM_000138.4:c.247_248dup", "NM_000138.4:c.247+1_247+3dupATA",
+			"NM_000138.4:c.247-3_247-1dup3", "NM_000138.4:c.247_248insATA", "NM_000138.4:c.247+1_247+2insAT",
+			"NM_000138.4:c.*247_*247+1ins4", "NM_000138.4:c.-247_-247-1insACGT", "NM_000138.4:c.247_248ins",
+			"NM_000109.3:c.76A>C", "NM_000109.3:m.-14G>C", "NM_000109.3:n.88+1G>T", "NM_000109.3:g.89-2A>C",
+			"NM_000109.3:r.*46U>C", "NM_018136.4:c.567_569del", "NM_152486.2:c.305+42_305+43insCCCT",
+			"XM_005244727.1:c.799C>T", "chr1:g.123456789A>G", "1:g.100del", "NC_000001.10(NP_000129.3):c.1A>G",
+			"NM_000138.4:c.123AG>TC" };
+
+	/** strings that the fast path leaves to the grammar, valid or not */
+	static final String[] UNSUPPORTED = { "NM_000138.4:c.(247_248del)", "NM_000138.4:c.[123A>C;124C>T]",
+			"NM_000109.3:c.[123A>C];[123A>C]", "NM_000138.4:c.*247_*247+3inv", "NM_000138.4:c.247_248(3_6)",
+			"NM_000138.4:c.=", "NM_000138.4:c.?", "NM_000109.3:p.Cys2Ala", "NM_000138.4:c.7339G>",
+			"NM_000138.4:c.7339G>A ", " NM_000138.4:c.7339G>A", "NM_000138.4:c.7339G>Ax",
+			"NM_000138.4:c.0123del", "NM_000138.4:c.247del0", "NM_000138.4:c.1234567890del",
+			"NM_000138.04:c.7339G>A", "NM_000138.4.1:c.7339G>A", "c:c.123A>G", "NM_000138.4:c.247insA",
+			"NM_000138.4:c.247_248delinsAT", "NM_000138.4:c.247_248delATinsC", "NM_000138.4:c.247delins",
+			"NM_000138.4:x.123A>G", "NM_000138.4:c.123a>g", "NM_000138.4:IVS3+1G>A", "NM_000138.4(FBN1:c.7339G>A",
+			"NM-000138.4:c.7339G>A", "" };
+
+	/** the grammar-only parser */
+	HGVSParser grammarParser;
+	/** the fast path */
+	HGVSFastPathParser fastPath;
+
+	@Before
+	public void setUp() {
+		grammarParser = new HGVSParser(false, false);
+		fastPath = new HGVSFastPathParser();
+	}
+
+	@Test
+	public void testSupported() {
+		for (String s : SUPPORTED) {
+			HGVSVariant fast = fastPath.tryParse(s);
+			Assert.assertNotNull(s, fast);
+			Assert.assertEquals(s, grammarParser.parseHGVSString(s), fast);
+			Assert.assertEquals(s, grammarParser.parseHGVSString(s).toHGVSString(), fast.toHGVSString());
+		}
+	}
+
+	@Test
+	public void testUnsupported() {
+		for (String s : UNSUPPORTED)
+			Assert.assertNull(s, fastPath.tryParse(s));
+	}
+
+	@Test
+	public void testSystematic() {
+		final String[] types = { "c.", "m.", "n.", "g.", "r." };
+		final String[] locations = { "1", "76", "-14", "88+1", "89-2", "*46", "*46+12", "-3-4" };
+		final List<String> changes = new ArrayList<>();
+		for (String loc : locations) {
+			changes.add(loc + "A>C");
+			changes.add(loc + "del");
+			changes.add(loc + "delT");
+			changes.add(loc + "dup2");
+			for (String loc2 : locations) {
+				changes.add(loc + "_" + loc2 + "ins5");
+				changes.add(loc + "_" + loc2 + "insACGTU");
+				changes.add(loc + "_" + loc2 + "dup");
+				changes.add(loc + "_" + loc2 + "delACG");
+			}
+		}
+
+		for (String type : types) {
+			for (String change : changes) {
+				final String s = "NM_000109.3:" + type + change;
+				HGVSVariant fast = fastPath.tryParse(s);
+				Assert.assertNotNull(s, fast);
+				Assert.assertEquals(s, grammarParser.parseHGVSString(s), fast);
+			}
+		}
+	}
+
+	@Test
+	public void testDriverFallsBack() {
+		HGVSParser driver = new HGVSParser();
+		for (String s : new String[] { "NM_000138.4:c.7339G>A", "NM_000138.4:c.(247_248del)",
+				"NM_000109.3:c.[123A>C;124C>T]", "NM_000138.4:c.247_248delATinsC" })
+			Assert.assertEquals(s, driver.parseHGVSString(s).toHGVSString());
+	}
+
+}
@@ -0,0 +1,66 @@
+package de.charite.compbio.jannovar.hgvs.parser;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.hgvs.HGVSVariant;
+import de.charite.compbio.jannovar.hgvs.protein.change.ProteinSubstitution;
+import de.charite.compbio.jannovar.hgvs.protein.variant.SingleAlleleProteinVariant;
+
+/**
+ * Tests for the HGVSParserDriver for parsing protein substitutions.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class HGVSParserDriverProteinSubstitutionTest {
+
+	HGVSParser driver;
+
+	@Before
+	public void setUp() throws Exception {
+		driver = new HGVSParser();
+	}
+
+	@Test
+	public void testParseSubstitution() {
+		String hgvsStrings[] = new String[] { "NM_000138.4:p.Arg123Trp", "NM_000138.4(NP_000129.3):p.Cys2Ala",
+				"NM_000138:p.Met1Val", "NM_000138.4:p.Arg123*", "NM_000138.4:p.(Arg123Trp)", "FBN1:p.Gly33Leu" };
+
+		for (String hgvsString : hgvsStrings) {
+			HGVSVariant variant = driver.parseHGVSString(hgvsString);
+
+			Assert.assertTrue(variant instanceof SingleAlleleProteinVariant);
+			Assert.assertEquals(hgvsString, variant.toHGVSString());
+		}
+	}
+
+	@Test
+	public void testParseSubstitutionValues() {
+		SingleAlleleProteinVariant variant = (SingleAlleleProteinVariant) driver
+				.parseHGVSString("NM_000138.4(NP_000129.3):p.RTer123W");
+		Assert.assertEquals("NM_000138.4", variant.getRefID());
+		Assert.assertEquals("NP_000129.3", variant.getProteinID());
+
+		ProteinSubstitution change = (ProteinSubstitution) variant.getChange();
+		Assert.assertEquals("R", change.getLocation().getAA());
+		Assert.assertEquals(122, change.getLocation().getPos());
+		Assert.assertTrue(change.getLocation().isDownstreamOfTerminal());
+		Assert.assertEquals("W", change.getTargetAA());
+
+		variant = (SingleAlleleProteinVariant) driver.parseHGVSString("NM_000138.4:p.R123Ter");
+		Assert.assertEquals("NM_000138.4:p.R123*", variant.toHGVSString(AminoAcidCode.ONE_LETTER));
+	}
+
+	/** changes other than single substitutions are not supported yet */
+	@Test
+	public void testUnsupported() {
+		String hgvsStrings[] = new String[] { "NM_000138.4:p.Arg123?", "NM_000138.4:p.Arg123=",
+				"NM_000138.4:p.Glu123del", "NM_000138.4:p.[Cys2Ala,Arg3His]" };
+
+		for (String hgvsString : hgvsStrings)
+			Assert.assertNull(hgvsString, driver.parseHGVSString(hgvsString));
+	}
+
+}
@@ -64,4 +64,18 @@ public class HGVSParserDriverTranscriptParsingTest {
 		Assert.assertEquals("NM_000138.4(FBN1)", variant.getSequenceNamePrefix());
 	}
 
+	@Test
+	public void testReuseAfterError() {
+		try {
+			driver.parseHGVSString("NM_000138.4:c.7339G>");
+			Assert.fail("Expected parsing error");
+		} catch (RuntimeException e) {
+			// expected
+		}
+		for (String s : new String[] { "NM_000138.4:c.7339G>A", "NM_000138(FBN1):c.7339G>A" }) {
+			SingleAlleleNucleotideVariant variant = (SingleAlleleNucleotideVariant) driver.parseHGVSString(s);
+			Assert.assertEquals(s, variant.toHGVSString());
+		}
+	}
+
 }
@@ -6,6 +6,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.hgvs.SequenceType;
@@ -18,6 +19,7 @@ import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideInversion;
 import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideSubstitution;
 import de.charite.compbio.jannovar.hgvs.nts.variant.SingleAlleleNucleotideVariant;
 import de.charite.compbio.jannovar.htsjdk.GenomeRegionSequenceExtractor;
+import de.charite.compbio.jannovar.htsjdk.ReferenceSequenceCache;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
 
@@ -41,6 +43,17 @@ public class NucleotideChangeToGenomeVariantTranslator {
 		this.seqExtractor = new GenomeRegionSequenceExtractor(jvDB, indexedFasta);
 	}
 
+	/**
+	 * @param jvDB
+	 *            transcript database and reference dictionary to use for translation
+	 * @param cache
+	 *            {@link ReferenceSequenceCache} to load reference sequence from, can be shared between threads
+	 */
+	public NucleotideChangeToGenomeVariantTranslator(JannovarData jvDB, ReferenceSequenceCache cache) {
+		this.jvDB = jvDB;
+		this.seqExtractor = new GenomeRegionSequenceExtractor(jvDB, cache);
+	}
+
 	/**
 	 * Shortcut to {@link #translateNucleotideVariantToGenomeVariant(SingleAlleleNucleotideVariant, boolean)} with using
 	 * <code>true</code> for the second parameter.
@@ -72,9 +85,7 @@ public class NucleotideChangeToGenomeVariantTranslator {
 		if (variant.getAllele().size() != 1)
 			throw new CannotTranslateHGVSVariant("Too many alles in variant " + variant.toHGVSString()
 					+ ", must be one allele.");
-		TranscriptModel tm = jvDB.getTmByAccession().get(variant.getRefIDWithVersion());
-		if (tm == null)
-			throw new CannotTranslateHGVSVariant("No transcript found for id " + variant.getRefIDWithVersion());
+		TranscriptModel tm = findTranscript(jvDB, variant.getRefIDWithVersion());
 
 		// get NucleotideChange from only entry in only allele
 		NucleotideChange ntChange = variant.getAllele().get(0);
@@ -114,4 +125,24 @@ public class NucleotideChangeToGenomeVariantTranslator {
 		return result.getValue();
 	}
 
+	/**
+	 * Look up transcript by accession, accessions without version match the only version in <code>jvDB</code>
+	 *
+	 * @param jvDB
+	 *            {@link JannovarData} to search
+	 * @param accession
+	 *            transcript accession, with or without version
+	 * @return the transcript with the accession
+	 * @throws CannotTranslateHGVSVariant
+	 *             if there is no or more than one matching transcript
+	 */
+	static TranscriptModel findTranscript(JannovarData jvDB, String accession) throws CannotTranslateHGVSVariant {
+		final ImmutableList<TranscriptModel> tms = jvDB.findTranscriptsByAccession(accession);
+		if (tms.isEmpty())
+			throw new CannotTranslateHGVSVariant("No transcript found for id " + accession);
+		if (tms.size() > 1)
+			throw new CannotTranslateHGVSVariant("More than one transcript found for id " + accession);
+		return tms.get(0);
+	}
+
 }
@@ -0,0 +1,277 @@
+package de.charite.compbio.jannovar.hgvs.bridge;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.hgvs.Translator;
+import de.charite.compbio.jannovar.hgvs.protein.ProteinPointLocation;
+import de.charite.compbio.jannovar.hgvs.protein.change.ProteinChange;
+import de.charite.compbio.jannovar.hgvs.protein.change.ProteinSubstitution;
+import de.charite.compbio.jannovar.hgvs.protein.variant.SingleAlleleProteinVariant;
+import de.charite.compbio.jannovar.htsjdk.GenomeRegionSequenceExtractor;
+import de.charite.compbio.jannovar.htsjdk.ReferenceSequenceCache;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+
+/**
+ * Helper for converting a {@link ProteinChange} to all {@link GenomeVariant}s that cause it.
+ *
+ * Currently, amino acid substitutions are supported. For these, each codon of the target amino acid that can be
+ * reached from the reference codon by changing adjacent genome bases yields one SNV or MNV. The codons of each
+ * transcript are looked up through a {@link TranscriptCodonIndex} that is built on first use and kept for the most
+ * recently used transcripts, such that the translation of a variant only touches the affected codon.
+ *
+ * Objects of this class can be shared between threads.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ProteinChangeToGenomeVariantTranslator {
+
+	/** logger instance to use */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProteinChangeToGenomeVariantTranslator.class);
+
+	/** default number of transcripts to keep the codon index for */
+	public static final int DEFAULT_MAX_INDICES = 1024;
+
+	/** codons for each 1-letter amino acid code, including <code>"*"</code> for the stop codons */
+	private static final ImmutableListMultimap<String, String> CODONS = buildCodonTable();
+
+	/** order of the results: fewest changed bases first, then by position and alternative allele */
+	private static final Comparator<GenomeVariant> RESULT_ORDER = Comparator
+			.comparingInt((GenomeVariant v) -> v.getRef().length()).thenComparingInt(GenomeVariant::getPos)
+			.thenComparing(GenomeVariant::getAlt);
+
+	/** transcript database and reference dictionary to use for translation */
+	private final JannovarData jvDB;
+	/** extraction of {@link GenomeInterval} sequence from FASTA files */
+	private final GenomeRegionSequenceExtractor seqExtractor;
+	/** codon indices of the most recently used transcripts, guarded by itself */
+	private final Map<String, TranscriptCodonIndex> codonIndices;
+
+	public ProteinChangeToGenomeVariantTranslator(JannovarData jvDB, IndexedFastaSequenceFile indexedFasta) {
+		this(jvDB, new GenomeRegionSequenceExtractor(jvDB, indexedFasta), DEFAULT_MAX_INDICES);
+	}
+
+	/**
+	 * @param jvDB
+	 *            transcript database and reference dictionary to use for translation
+	 * @param cache
+	 *            {@link ReferenceSequenceCache} to load reference sequence from, can be shared between threads
+	 */
+	public ProteinChangeToGenomeVariantTranslator(JannovarData jvDB, ReferenceSequenceCache cache) {
+		this(jvDB, new GenomeRegionSequenceExtractor(jvDB, cache), DEFAULT_MAX_INDICES);
+	}
+
+	/**
+	 * @param jvDB
+	 *            transcript database and reference dictionary to use for translation
+	 * @param cache
+	 *            {@link ReferenceSequenceCache} to load reference sequence from, can be shared between threads
+	 * @param maxIndices
+	 *            number of transcripts to keep the {@link TranscriptCodonIndex} for
+	 */
+	public ProteinChangeToGenomeVariantTranslator(JannovarData jvDB, ReferenceSequenceCache cache, int maxIndices) {
+		this(jvDB, new GenomeRegionSequenceExtractor(jvDB, cache), maxIndices);
+	}
+
+	private ProteinChangeToGenomeVariantTranslator(JannovarData jvDB, GenomeRegionSequenceExtractor seqExtractor,
+			int maxIndices) {
+		this.jvDB = jvDB;
+		this.seqExtractor = seqExtractor;
+		this.codonIndices = new LinkedHashMap<String, TranscriptCodonIndex>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, TranscriptCodonIndex> eldest) {
+				return size() > maxIndices;
+			}
+		};
+	}
+
+	/**
+	 * Shortcut to {@link #translateProteinVariantToGenomeVariants(SingleAlleleProteinVariant, boolean)} with using
+	 * <code>true</code> for the second parameter.
+	 */
+	public ImmutableList<GenomeVariant> translateProteinVariantToGenomeVariants(SingleAlleleProteinVariant variant)
+			throws CannotTranslateHGVSVariant {
+		return translateProteinVariantToGenomeVariants(variant, true);
+	}
+
+	/**
+	 * Translate single-change {@link SingleAlleleProteinVariant} into all {@link GenomeVariant}s that cause it
+	 *
+	 * The reference ID of <code>variant</code> must be the accession of a coding transcript in the database, e.g.
+	 * <code>NM_000138.4:p.Arg123Trp</code> or <code>NM_000138.4(NP_000129.3):p.Arg123Trp</code>.
+	 *
+	 * @param variant
+	 *            {@link SingleAlleleProteinVariant} to translate
+	 * @param autocorrect
+	 *            ignore mismatching reference amino acids instead of throwing {@link CannotTranslateHGVSVariant}
+	 * @return SNVs and MNVs on the forward strand causing the change, with the fewest changed bases first
+	 * @throws CannotTranslateHGVSVariant
+	 *             in the case of problems such as more than one entry in the allele of <code>variant</code>,
+	 *             unsupported {@link ProteinChange}s, or no SNV and MNV causing the change
+	 */
+	public ImmutableList<GenomeVariant> translateProteinVariantToGenomeVariants(SingleAlleleProteinVariant variant,
+			boolean autocorrect) throws CannotTranslateHGVSVariant {
+		// perform sanity checks and get corresponding TranscriptModel from JannovarData
+		if (!variant.hasOnlyOneChange())
+			throw new CannotTranslateHGVSVariant("Too many changes in variant " + variant.toHGVSString()
+					+ ", must be one change.");
+		TranscriptModel tm = NucleotideChangeToGenomeVariantTranslator.findTranscript(jvDB, variant.getRefID());
+		if (!tm.isCoding())
+			throw new CannotTranslateHGVSVariant("Transcript " + tm.getAccession() + " is not coding");
+
+		// perform the translation
+		final ProteinChange aaChange = variant.getChange();
+		ResultWithWarnings<ImmutableList<GenomeVariant>> result;
+		if (aaChange instanceof ProteinSubstitution)
+			result = translateSubstitution(tm, (ProteinSubstitution) aaChange);
+		else
+			throw new CannotTranslateHGVSVariant("Currently unsupported HGVS variant type in "
+					+ aaChange.toHGVSString());
+
+		if (!result.getWarnings().isEmpty() && !autocorrect)
+			throw new CannotTranslateHGVSVariant("Mismatching reference in translation: "
+					+ Joiner.on("; ").join(result.getWarnings()));
+
+		// handle any warning messages and return result value
+		for (String msg : result.getWarnings())
+			LOGGER.warn(msg);
+		return result.getValue();
+	}
+
+	/** @return SNVs and MNVs for changing the codon of <code>aaSub</code> */
+	private ResultWithWarnings<ImmutableList<GenomeVariant>> translateSubstitution(TranscriptModel tm,
+			ProteinSubstitution aaSub) throws CannotTranslateHGVSVariant {
+		final ProteinPointLocation location = aaSub.getLocation();
+		if (location.getOffset() != 0 || location.isDownstreamOfTerminal())
+			throw new CannotTranslateHGVSVariant("Only positions within the protein are supported in "
+					+ aaSub.toHGVSString());
+		final ImmutableList<String> altCodons = CODONS.get(aaSub.getTargetAA());
+		if (altCodons.isEmpty())
+			throw new CannotTranslateHGVSVariant("No codon for target amino acid in " + aaSub.toHGVSString());
+
+		final TranscriptCodonIndex index = getCodonIndex(tm);
+		final int codon = location.getPos();
+		if (codon < 0 || codon >= index.getNumCodons())
+			throw new CannotTranslateHGVSVariant("Position of " + aaSub.toHGVSString() + " lies outside of "
+					+ index.getNumCodons() + " codons of " + tm.getAccession());
+
+		// load forward strand sequence of the codon, including an intron that splits it
+		int first = Integer.MAX_VALUE;
+		int last = Integer.MIN_VALUE;
+		for (int base = 0; base < 3; ++base) {
+			first = Math.min(first, index.getPosition(codon, base));
+			last = Math.max(last, index.getPosition(codon, base));
+		}
+		final String span = seqExtractor
+				.load(new GenomeInterval(jvDB.getRefDict(), Strand.FWD, tm.getChr(), first, last + 1)).toUpperCase();
+
+		final StringBuilder refCodon = new StringBuilder(3);
+		for (int base = 0; base < 3; ++base)
+			refCodon.append(toTranscriptStrand(tm, span.charAt(index.getPosition(codon, base) - first)));
+		final String refAA = Translator.getTranslator().translateDNA(refCodon.toString());
+
+		List<GenomeVariant> variants = new ArrayList<>();
+		for (String altCodon : altCodons) {
+			// forward strand range of the changed bases
+			int begin = Integer.MAX_VALUE;
+			int end = Integer.MIN_VALUE;
+			for (int base = 0; base < 3; ++base) {
+				if (altCodon.charAt(base) != refCodon.charAt(base)) {
+					begin = Math.min(begin, index.getPosition(codon, base));
+					end = Math.max(end, index.getPosition(codon, base) + 1);
+				}
+			}
+			if (begin > end || !isCoveredByCodon(index, codon, begin, end))
+				continue; // same codon or changes on both sides of an intron
+
+			final StringBuilder alt = new StringBuilder(span.substring(begin - first, end - first));
+			for (int base = 0; base < 3; ++base) {
+				final int pos = index.getPosition(codon, base);
+				if (pos >= begin && pos < end)
+					alt.setCharAt(pos - begin, toTranscriptStrand(tm, altCodon.charAt(base)));
+			}
+			variants.add(new GenomeVariant(new GenomePosition(jvDB.getRefDict(), Strand.FWD, tm.getChr(), begin),
+					span.substring(begin - first, end - first), alt.toString()));
+		}
+		if (variants.isEmpty())
+			throw new CannotTranslateHGVSVariant("No SNV or MNV changes codon " + refCodon + " of " + tm.getAccession()
+					+ " as described by " + aaSub.toHGVSString());
+		variants.sort(RESULT_ORDER);
+
+		if (!refAA.equals(location.getAA()))
+			return ResultWithWarnings.construct(ImmutableList.copyOf(variants), "Invalid reference amino acid in "
+					+ aaSub.toHGVSString() + ", codon " + refCodon + " of " + tm.getAccession() + " codes for "
+					+ refAA + ".");
+		else
+			return ResultWithWarnings.construct(ImmutableList.copyOf(variants));
+	}
+
+	/** @return {@link TranscriptCodonIndex} for <code>tm</code>, built on first use */
+	private TranscriptCodonIndex getCodonIndex(TranscriptModel tm) {
+		synchronized (codonIndices) {
+			TranscriptCodonIndex index = codonIndices.get(tm.getAccession());
+			if (index == null) {
+				index = new TranscriptCodonIndex(tm);
+				codonIndices.put(tm.getAccession(), index);
+			}
+			return index;
+		}
+	}
+
+	/** @return whether all forward strand positions in <code>[begin, end)</code> are bases of <code>codon</code> */
+	private static boolean isCoveredByCodon(TranscriptCodonIndex index, int codon, int begin, int end) {
+		int count = 0;
+		for (int base = 0; base < 3; ++base)
+			if (index.getPosition(codon, base) >= begin && index.getPosition(codon, base) < end)
+				++count;
+		return count == end - begin;
+	}
+
+	/** @return <code>c</code> complemented for transcripts on the reverse strand, the operation is its own inverse */
+	private static char toTranscriptStrand(TranscriptModel tm, char c) {
+		if (tm.getStrand() == Strand.FWD)
+			return c;
+		switch (c) {
+		case 'A':
+			return 'T';
+		case 'C':
+			return 'G';
+		case 'G':
+			return 'C';
+		case 'T':
+			return 'A';
+		default:
+			return c;
+		}
+	}
+
+	/** @return codons for each amino acid, in lexicographic order */
+	private static ImmutableListMultimap<String, String> buildCodonTable() {
+		final String nts = "ACGT";
+		ImmutableListMultimap.Builder<String, String> builder = ImmutableListMultimap.builder();
+		for (int i = 0; i < 64; ++i) {
+			final String codon = "" + nts.charAt(i / 16) + nts.charAt((i / 4) % 4) + nts.charAt(i % 4);
+			builder.put(Translator.getTranslator().translateDNA(codon), codon);
+		}
+		return builder.build();
+	}
+
+}
@@ -0,0 +1,69 @@
+package de.charite.compbio.jannovar.hgvs.bridge;
+
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Genome positions of the codons of a coding {@link TranscriptModel}.
+ *
+ * The forward strand positions of all CDS bases are computed once from the exons, such that the bases of a codon can
+ * be looked up in constant time, also for codons that are split by an intron.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class TranscriptCodonIndex {
+
+	/** the indexed transcript */
+	private final TranscriptModel tm;
+
+	/** 0-based forward strand positions of the CDS bases, in transcript order */
+	private final int[] positions;
+
+	/**
+	 * Build index for <code>tm</code>
+	 *
+	 * @param tm
+	 *            coding {@link TranscriptModel} to index
+	 */
+	TranscriptCodonIndex(TranscriptModel tm) {
+		this.tm = tm;
+		this.positions = new int[tm.cdsTranscriptLength()];
+
+		// the exons are sorted by transcript order
+		final GenomeInterval cdsRegion = tm.getCDSRegion().withStrand(Strand.FWD);
+		int i = 0;
+		for (GenomeInterval exon : tm.getExonRegions()) {
+			final GenomeInterval region = exon.withStrand(Strand.FWD).intersection(cdsRegion);
+			if (tm.getStrand() == Strand.FWD) {
+				for (int pos = region.getBeginPos(); pos < region.getEndPos(); ++pos)
+					positions[i++] = pos;
+			} else {
+				for (int pos = region.getEndPos() - 1; pos >= region.getBeginPos(); --pos)
+					positions[i++] = pos;
+			}
+		}
+	}
+
+	/** @return the indexed transcript */
+	TranscriptModel getTranscript() {
+		return tm;
+	}
+
+	/** @return number of complete codons, including the stop codon */
+	int getNumCodons() {
+		return positions.length / 3;
+	}
+
+	/**
+	 * @param codon
+	 *            0-based codon number, i.e., position in the protein
+	 * @param base
+	 *            0-based base in the codon, in transcript order
+	 * @return 0-based forward strand position of the base
+	 */
+	int getPosition(int codon, int base) {
+		return positions[3 * codon + base];
+	}
+
+}
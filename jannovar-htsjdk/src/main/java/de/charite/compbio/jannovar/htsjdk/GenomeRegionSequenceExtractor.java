@@ -1,15 +1,17 @@
 package de.charite.compbio.jannovar.htsjdk;
 
-import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.reference.IndexedFastaSequenceFile;
-import htsjdk.samtools.reference.ReferenceSequence;
+
+import com.google.common.collect.ImmutableMap;
+
 import de.charite.compbio.jannovar.UncheckedJannovarException;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
 import de.charite.compbio.jannovar.reference.Strand;
 
 /**
- * Extract sequence for a {@link GenomeInterval} from a {@link IndexedFastaSequenceFile}.
+ * Extract sequence for a {@link GenomeInterval} from a {@link IndexedFastaSequenceFile}, through a
+ * {@link ReferenceSequenceCache}.
  *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
@@ -17,53 +19,46 @@ public class GenomeRegionSequenceExtractor {
 
 	/** Jannovar database for mapping between canonical name and name in FASTA */
 	final JannovarData jannovarData;
-	/** object to load sequences from */
-	IndexedFastaSequenceFile indexedFile;
+	/** cache of the sequence to load from */
+	final ReferenceSequenceCache cache;
+	/** name in the FASTA file for each contig ID of {@link #jannovarData} */
+	final ImmutableMap<Integer, String> contigNamesInFasta;
 
 	public GenomeRegionSequenceExtractor(JannovarData jannovarData, IndexedFastaSequenceFile indexedFile) {
-		super();
+		this(jannovarData, new ReferenceSequenceCache(indexedFile));
+	}
+
+	/**
+	 * @param jannovarData
+	 *            Jannovar database for mapping between canonical name and name in FASTA
+	 * @param cache
+	 *            {@link ReferenceSequenceCache} to load the sequence from, can be shared with other users
+	 */
+	public GenomeRegionSequenceExtractor(JannovarData jannovarData, ReferenceSequenceCache cache) {
 		this.jannovarData = jannovarData;
-		this.indexedFile = indexedFile;
-		if (this.indexedFile.getSequenceDictionary() == null) {
-			throw new UncheckedJannovarException(
-					"FASTA file has no sequence dictionary. Are you missing the REFERENCE.dict file? "
-							+ "Hint: create with samtools dict (version >=1.2) or Picard.");
-		}
+		this.cache = cache;
+		this.contigNamesInFasta = cache.mapContigs(jannovarData.getRefDict());
 	}
 
 	/**
-	 * Load sequence from the given <code>region</code> from {@link #indexedFile}
+	 * Load sequence from the given <code>region</code> from {@link #cache}
 	 *
 	 * @param region
 	 *            {@link GenomeInterval} to load sequence for
-	 * @return String with the selected sequenced loaded from {@link #indexedFile}.
+	 * @return String with the selected sequenced loaded from {@link #cache}.
 	 */
 	public String load(GenomeInterval region) {
 		region = region.withStrand(Strand.FWD);
-		String contigName = region.getRefDict().getContigIDToName().get(region.getChr());
-		contigName = mapContigToFasta(contigName);
-		ReferenceSequence seq = indexedFile.getSubsequenceAt(contigName, region.getBeginPos() + 1, region.getEndPos());
-		return new String(seq.getBases());
-	}
-
-	/** Map contig name (from genome variant) to contig name in FASTA */
-	private String mapContigToFasta(String contigName) {
-		// Map genome variant's contig to unique ID
-		Integer contigID = jannovarData.getRefDict().getContigNameToID().get(contigName);
-		if (contigID == null)
-			throw new UncheckedJannovarException("Unknown contig name " + contigName);
-		// Try to find matching contig in fasta
-		String nameInFasta = null;
-		for (SAMSequenceRecord record : indexedFile.getSequenceDictionary().getSequences()) {
-			if (jannovarData.getRefDict().getContigNameToID().containsKey(record.getSequenceName())) {
-				nameInFasta = record.getSequenceName();
-				break;
-			}
-		}
+		final String nameInFasta = contigNamesInFasta.get(region.getChr());
 		if (nameInFasta == null)
-			throw new UncheckedJannovarException("Could not find corresponding contig in FASTA for " + contigName);
+			throw new UncheckedJannovarException("Could not find corresponding contig in FASTA for "
+					+ region.getRefDict().getContigIDToName().get(region.getChr()));
+		return cache.getSequence(nameInFasta, region.getBeginPos() + 1, region.getEndPos());
+	}
 
-		return nameInFasta;
+	/** @return the {@link ReferenceSequenceCache} that sequence is loaded from */
+	public ReferenceSequenceCache getCache() {
+		return cache;
 	}
 
 }
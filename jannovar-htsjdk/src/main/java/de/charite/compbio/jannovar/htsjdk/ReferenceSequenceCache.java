@@ -0,0 +1,414 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.data.Chromosome;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.impl.intervals.Interval;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+
+/**
+ * Thread-safe cache of fixed-size blocks of an {@link IndexedFastaSequenceFile}.
+ *
+ * Sequence requests are answered from blocks of {@link #getBlockSize} bases that are read from the FASTA file on first
+ * access, the least recently used block is evicted when more than {@link #getMaxBlocks} blocks are loaded. Reads from
+ * the FASTA file are serialized, such that one cache can be shared by all threads using the same reference, e.g., for
+ * HGVS translation with {@link GenomeRegionSequenceExtractor} and variant normalization. The blocks of the exons of all
+ * transcripts can be loaded up-front with {@link #preloadExons}. The number of hits and misses is counted.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class ReferenceSequenceCache {
+
+	/** default number of bases per block */
+	public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+	/** default maximal number of blocks, 16 MB with the default block size */
+	public static final int DEFAULT_MAX_BLOCKS = 256;
+
+	/**
+	 * caches shared by {@link #forPath}, by absolute path of the FASTA file, guarded by itself; the caches are weakly
+	 * referenced, such that a cache and its blocks are released once no caller uses it any more
+	 */
+	private static final Cache<String, ReferenceSequenceCache> SHARED = CacheBuilder.newBuilder().weakValues().build();
+
+	/** the file to read the blocks from, guarded by itself */
+	private final IndexedFastaSequenceFile indexedFile;
+	/** the contigs of {@link #indexedFile} by name, in the order of the file */
+	private final ImmutableMap<String, Contig> contigs;
+	/** number of bases per block */
+	private final int blockSize;
+	/** maximal number of blocks to keep */
+	private final int maxBlocks;
+	/** the loaded blocks in access order, key is contig index and block number, guarded by itself */
+	private final LinkedHashMap<Long, byte[]> blocks;
+
+	/** number of requested blocks that were loaded */
+	private final LongAdder hits = new LongAdder();
+	/** number of requested blocks that had to be read */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Construct cache with default block size and number of blocks
+	 *
+	 * @param indexedFile
+	 *            the FASTA file to read from, must have a sequence dictionary
+	 */
+	public ReferenceSequenceCache(IndexedFastaSequenceFile indexedFile) {
+		this(indexedFile, DEFAULT_BLOCK_SIZE, DEFAULT_MAX_BLOCKS);
+	}
+
+	/**
+	 * @param indexedFile
+	 *            the FASTA file to read from, must have a sequence dictionary; must not be used by other code
+	 *            concurrently
+	 * @param blockSize
+	 *            number of bases per block
+	 * @param maxBlocks
+	 *            maximal number of blocks to keep, the least recently used one is evicted when this number is
+	 *            exceeded
+	 */
+	public ReferenceSequenceCache(IndexedFastaSequenceFile indexedFile, int blockSize, int maxBlocks) {
+		this(indexedFile, contigsFromDictionary(indexedFile.getSequenceDictionary()), blockSize, maxBlocks);
+	}
+
+	/**
+	 * Construct cache for FASTA file, using the sequence dictionary if any and the FAI file otherwise
+	 *
+	 * @param fastaPath
+	 *            path to FAI-indexed FASTA file
+	 * @param blockSize
+	 *            number of bases per block
+	 * @param maxBlocks
+	 *            maximal number of blocks to keep, the least recently used one is evicted when this number is
+	 *            exceeded
+	 * @throws FileNotFoundException
+	 *             if the FASTA or FAI file could not be found
+	 */
+	public ReferenceSequenceCache(String fastaPath, int blockSize, int maxBlocks) throws FileNotFoundException {
+		this(new IndexedFastaSequenceFile(new File(fastaPath)), fastaPath, blockSize, maxBlocks);
+	}
+
+	private ReferenceSequenceCache(IndexedFastaSequenceFile indexedFile, String fastaPath, int blockSize,
+			int maxBlocks) throws FileNotFoundException {
+		this(indexedFile, (indexedFile.getSequenceDictionary() != null)
+				? contigsFromDictionary(indexedFile.getSequenceDictionary()) : contigsFromIndex(fastaPath + ".fai"),
+				blockSize, maxBlocks);
+	}
+
+	private ReferenceSequenceCache(IndexedFastaSequenceFile indexedFile, ImmutableMap<String, Contig> contigs,
+			int blockSize, final int maxBlocks) {
+		if (blockSize <= 0 || maxBlocks <= 0)
+			throw new IllegalArgumentException("Block size and number of blocks must be positive");
+		this.indexedFile = indexedFile;
+		this.contigs = contigs;
+		this.blockSize = blockSize;
+		this.maxBlocks = maxBlocks;
+		this.blocks = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+				return size() > maxBlocks;
+			}
+		};
+	}
+
+	/**
+	 * Return the cache for the FASTA file at <code>fastaPath</code>, shared by all callers in this process
+	 *
+	 * The process keeps at most one cache of {@link #DEFAULT_MAX_BLOCKS} blocks for each FASTA file that is in use. A
+	 * cache is only weakly referenced, it is released with its blocks and file handle once the last caller drops it,
+	 * and a later call constructs a new one.
+	 *
+	 * @param fastaPath
+	 *            path to FAI-indexed FASTA file
+	 * @return the shared {@link ReferenceSequenceCache} with default block size and number of blocks
+	 * @throws FileNotFoundException
+	 *             if the FASTA or FAI file could not be found
+	 */
+	public static ReferenceSequenceCache forPath(String fastaPath) throws FileNotFoundException {
+		final String path = new File(fastaPath).getAbsolutePath();
+		synchronized (SHARED) {
+			ReferenceSequenceCache result = SHARED.getIfPresent(path);
+			if (result == null) {
+				result = new ReferenceSequenceCache(path, DEFAULT_BLOCK_SIZE, DEFAULT_MAX_BLOCKS);
+				SHARED.put(path, result);
+			}
+			return result;
+		}
+	}
+
+	/** @return names of the contigs in the FASTA file, in the order of the file */
+	public ImmutableSet<String> getContigNames() {
+		return contigs.keySet();
+	}
+
+	/**
+	 * @param contig
+	 *            name of the contig in the FASTA file
+	 * @return length of the contig
+	 * @throws UncheckedJannovarException
+	 *             if the contig is unknown
+	 */
+	public int getContigLength(String contig) {
+		return getContig(contig).length;
+	}
+
+	/**
+	 * Get sequence from the FASTA file
+	 *
+	 * @param contig
+	 *            name of the contig in the FASTA file
+	 * @param start
+	 *            one-based start position
+	 * @param stop
+	 *            one-based, inclusive end position, <code>start - 1</code> for an empty sequence
+	 * @return the bases from <code>start</code> to <code>stop</code>, as in the FASTA file
+	 * @throws UncheckedJannovarException
+	 *             if the contig is unknown or the positions are out of its bounds
+	 */
+	public String getSequence(String contig, int start, int stop) {
+		final Contig record = getContig(contig);
+		if (start < 1 || stop < start - 1 || stop > record.length)
+			throw new UncheckedJannovarException("Query " + contig + ":" + start + "-" + stop
+					+ " is out of bounds of contig of length " + record.length);
+
+		final char[] result = new char[stop - start + 1];
+		int pos = start - 1; // zero-based
+		while (pos < stop) {
+			final byte[] block = getBlock(record, pos / blockSize);
+			final int offset = pos % blockSize;
+			final int len = Math.min(block.length - offset, stop - pos);
+			for (int i = 0; i < len; ++i)
+				result[pos - start + 1 + i] = (char) block[offset + i];
+			pos += len;
+		}
+		return new String(result);
+	}
+
+	/**
+	 * @param contig
+	 *            name of the contig in the FASTA file
+	 * @param pos
+	 *            one-based position
+	 * @return base at <code>pos</code>, as in the FASTA file
+	 * @throws UncheckedJannovarException
+	 *             if the contig is unknown or the position is out of its bounds
+	 */
+	public char getBase(String contig, int pos) {
+		final Contig record = getContig(contig);
+		if (pos < 1 || pos > record.length)
+			throw new UncheckedJannovarException("Position " + contig + ":" + pos
+					+ " is out of bounds of contig of length " + record.length);
+		return (char) getBlock(record, (pos - 1) / blockSize)[(pos - 1) % blockSize];
+	}
+
+	/**
+	 * Load the blocks overlapping with the exons of all transcripts in <code>jannovarData</code>
+	 *
+	 * Stops when {@link #getMaxBlocks} blocks are loaded, such that preloading does not evict preloaded blocks.
+	 * Transcripts on contigs that are not in the FASTA file are ignored.
+	 *
+	 * @param jannovarData
+	 *            the transcripts to load the exon sequence of
+	 * @return number of blocks read from the FASTA file
+	 */
+	public int preloadExons(JannovarData jannovarData) {
+		final ImmutableMap<Integer, String> contigNames = mapContigs(jannovarData.getRefDict());
+		int numRead = 0;
+		for (Chromosome chrom : jannovarData.getChromosomes().values()) {
+			final String contig = contigNames.get(chrom.getChrID());
+			if (contig == null)
+				continue;
+			final Contig record = getContig(contig);
+			for (Interval<TranscriptModel> interval : chrom.getTMIntervalTree().getIntervals()) {
+				for (GenomeInterval exon : interval.getValue().getExonRegions()) {
+					exon = exon.withStrand(Strand.FWD);
+					final int firstBlock = Math.max(0, exon.getBeginPos()) / blockSize;
+					final int lastBlock = (Math.min(exon.getEndPos(), record.length) - 1) / blockSize;
+					for (int blockNo = firstBlock; blockNo <= lastBlock; ++blockNo) {
+						synchronized (blocks) {
+							if (blocks.containsKey(key(record, blockNo)))
+								continue;
+							if (blocks.size() >= maxBlocks)
+								return numRead;
+						}
+						storeBlock(record, blockNo, readBlock(record, blockNo));
+						++numRead;
+					}
+				}
+			}
+		}
+		return numRead;
+	}
+
+	/**
+	 * Map the contigs of a Jannovar database to the names in the FASTA file
+	 *
+	 * @param refDict
+	 *            {@link ReferenceDictionary} of the database
+	 * @return map from numeric contig ID to name of the same contig in the FASTA file, for the contigs present in both
+	 */
+	public ImmutableMap<Integer, String> mapContigs(ReferenceDictionary refDict) {
+		Map<Integer, String> result = new LinkedHashMap<>();
+		for (String name : contigs.keySet()) {
+			Integer contigID = refDict.getContigNameToID().get(name);
+			if (contigID != null && !result.containsKey(contigID))
+				result.put(contigID, name);
+		}
+		return ImmutableMap.copyOf(result);
+	}
+
+	/** @return number of bases per block */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/** @return maximal number of blocks to keep */
+	public int getMaxBlocks() {
+		return maxBlocks;
+	}
+
+	/** @return number of blocks currently kept */
+	public int getNumBlocks() {
+		synchronized (blocks) {
+			return blocks.size();
+		}
+	}
+
+	/** @return number of block accesses that were answered from the cache */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/** @return number of block accesses that required reading from the FASTA file */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/** @return fraction of block accesses answered from the cache, <code>NaN</code> if there was none */
+	public double getHitRate() {
+		final long numHits = getHits();
+		final long total = numHits + getMisses();
+		if (total == 0)
+			return Double.NaN;
+		return numHits / (double) total;
+	}
+
+	private Contig getContig(String contig) {
+		final Contig result = contigs.get(contig);
+		if (result == null)
+			throw new UncheckedJannovarException("Unknown contig in FASTA file: " + contig);
+		return result;
+	}
+
+	/** @return the block with number <code>blockNo</code> of the contig, reading it on a miss */
+	private byte[] getBlock(Contig record, int blockNo) {
+		byte[] block;
+		synchronized (blocks) {
+			block = blocks.get(key(record, blockNo));
+		}
+		if (block != null) {
+			hits.increment();
+			return block;
+		}
+
+		// concurrent misses of the same block read it more than once, the last one is kept
+		misses.increment();
+		block = readBlock(record, blockNo);
+		storeBlock(record, blockNo, block);
+		return block;
+	}
+
+	private byte[] readBlock(Contig record, int blockNo) {
+		final long start = (long) blockNo * blockSize + 1;
+		final long stop = Math.min(start + blockSize - 1, record.length);
+		synchronized (indexedFile) {
+			return indexedFile.getSubsequenceAt(record.name, start, stop).getBases();
+		}
+	}
+
+	private void storeBlock(Contig record, int blockNo, byte[] block) {
+		synchronized (blocks) {
+			blocks.put(key(record, blockNo), block);
+		}
+	}
+
+	/** @return contigs from the sequence dictionary of a FASTA file */
+	private static ImmutableMap<String, Contig> contigsFromDictionary(SAMSequenceDictionary seqDict) {
+		if (seqDict == null) {
+			throw new UncheckedJannovarException(
+					"FASTA file has no sequence dictionary. Are you missing the REFERENCE.dict file? "
+							+ "Hint: create with samtools dict (version >=1.2) or Picard.");
+		}
+		ImmutableMap.Builder<String, Contig> builder = ImmutableMap.builder();
+		for (SAMSequenceRecord record : seqDict.getSequences())
+			builder.put(record.getSequenceName(),
+					new Contig(record.getSequenceName(), record.getSequenceIndex(), record.getSequenceLength()));
+		return builder.build();
+	}
+
+	/** @return contigs from the FAI file at <code>faiPath</code> */
+	private static ImmutableMap<String, Contig> contigsFromIndex(String faiPath) throws FileNotFoundException {
+		ImmutableMap.Builder<String, Contig> builder = ImmutableMap.builder();
+		try {
+			int index = 0;
+			for (String line : Files.readLines(new File(faiPath), StandardCharsets.US_ASCII)) {
+				final String[] fields = line.split("\t");
+				if (fields.length < 2)
+					continue;
+				builder.put(fields[0], new Contig(fields[0], index++, Integer.parseInt(fields[1])));
+			}
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException | NumberFormatException e) {
+			throw new UncheckedJannovarException("Could not read FAI file " + faiPath, e);
+		}
+		return builder.build();
+	}
+
+	private static Long key(Contig record, int blockNo) {
+		return ((long) record.index << 32) | blockNo;
+	}
+
+	/**
+	 * Name, index, and length of a contig
+	 */
+	private static final class Contig {
+
+		/** name of the contig */
+		final String name;
+		/** zero-based index of the contig in the FASTA file */
+		final int index;
+		/** number of bases */
+		final int length;
+
+		Contig(String name, int index, int length) {
+			this.name = name;
+			this.index = index;
+			this.length = length;
+		}
+
+	}
+
+}
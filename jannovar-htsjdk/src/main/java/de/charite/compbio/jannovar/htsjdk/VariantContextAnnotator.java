@@ -19,6 +19,7 @@ import de.charite.compbio.jannovar.annotation.Annotation;
 import de.charite.compbio.jannovar.annotation.AnnotationMessage;
 import de.charite.compbio.jannovar.annotation.VariantAnnotations;
 import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.annotation.VariantEffect;
 import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
 import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.JannovarData;
@@ -337,9 +338,8 @@ public final class VariantContextAnnotator {
 		for (int alleleID = 0; alleleID < vc.getAlternateAlleles().size(); ++alleleID) {
 			if (!annos.get(alleleID).getAnnotations().isEmpty()) {
 				for (Annotation ann : annos.get(alleleID).getAnnotations()) {
-					boolean offTargetInThis = ann.getEffects().stream()
-							.allMatch(e -> e.isOffExome(options.offTargetFilterUtrIsOffTarget,
-									options.offTargetFilterIntronicSpliceIsOffTarget));
+					boolean offTargetInThis = VariantEffect.isOffExome(ann.getEffectMask(),
+							options.offTargetFilterUtrIsOffTarget, options.offTargetFilterIntronicSpliceIsOffTarget);
 					offTargetInAll = offTargetInAll && offTargetInThis;
 
 					if (!options.oneAnnotationOnly || annotations.isEmpty()) {
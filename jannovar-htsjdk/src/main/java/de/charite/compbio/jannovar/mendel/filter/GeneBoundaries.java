@@ -0,0 +1,102 @@
+package de.charite.compbio.jannovar.mendel.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
+
+/**
+ * Positions at which a coordinate-sorted VCF file can be split without cutting through a gene
+ *
+ * {@link GeneWiseMendelianAnnotationProcessor} considers all variants of a gene together (e.g., for compound
+ * heterozygous inheritance). When splitting a VCF file into chunks that are annotated separately, the chunk boundaries
+ * must thus not be placed inside the region of a gene (as defined by the {@link GeneList} used by the processor).
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class GeneBoundaries {
+
+	/** The {@link JannovarData} to use for resolving contig names */
+	private final JannovarData jannovarData;
+	/** Sorted begin positions of the union of gene regions, by contig ID (0-based) */
+	private final Map<Integer, int[]> beginPositions;
+	/** End positions corresponding to {@link #beginPositions} (0-based, exclusive) */
+	private final Map<Integer, int[]> endPositions;
+
+	/**
+	 * Construct from the genes in <code>jannovarData</code>
+	 *
+	 * @param jannovarData
+	 *            {@link JannovarData} to get the genes from
+	 */
+	public GeneBoundaries(JannovarData jannovarData) {
+		this.jannovarData = jannovarData;
+		this.beginPositions = new HashMap<>();
+		this.endPositions = new HashMap<>();
+
+		Map<Integer, List<int[]>> regions = new HashMap<>();
+		for (Gene gene : GeneWiseMendelianAnnotationProcessor.getGeneList(jannovarData).getGenes()) {
+			if (gene.getRegion() == null)
+				continue;
+			final GenomeInterval region = gene.getRegion().withStrand(Strand.FWD);
+			regions.computeIfAbsent(region.getChr(), chr -> new ArrayList<>())
+					.add(new int[] { region.getBeginPos(), region.getEndPos() });
+		}
+
+		// Merge overlapping and adjacent gene regions
+		for (Entry<Integer, List<int[]>> entry : regions.entrySet()) {
+			List<int[]> list = entry.getValue();
+			list.sort((lhs, rhs) -> Integer.compare(lhs[0], rhs[0]));
+			int[] begins = new int[list.size()];
+			int[] ends = new int[list.size()];
+			int count = 0;
+			for (int[] region : list) {
+				if (count > 0 && region[0] <= ends[count - 1]) {
+					ends[count - 1] = Math.max(ends[count - 1], region[1]);
+				} else {
+					begins[count] = region[0];
+					ends[count] = region[1];
+					count += 1;
+				}
+			}
+			beginPositions.put(entry.getKey(), Arrays.copyOf(begins, count));
+			endPositions.put(entry.getKey(), Arrays.copyOf(ends, count));
+		}
+	}
+
+	/**
+	 * Adjust the begin position of a chunk such that the preceding chunk does not end within a gene
+	 *
+	 * @param contig
+	 *            name of the contig
+	 * @param pos
+	 *            proposed 1-based begin position of the chunk
+	 * @return smallest 1-based position <code>&gt;= pos</code> such that no gene contains both this position and
+	 *         the one before; <code>pos</code> if the contig is unknown
+	 */
+	public int adjustChunkBegin(String contig, int pos) {
+		final Integer chr = jannovarData.getRefDict().getContigNameToID().get(contig);
+		if (chr == null || !beginPositions.containsKey(chr))
+			return pos;
+		final int[] begins = beginPositions.get(chr);
+		final int[] ends = endPositions.get(chr);
+
+		// Find last merged gene region beginning before the 0-based position pos - 1
+		int idx = Arrays.binarySearch(begins, pos - 1);
+		if (idx < 0)
+			idx = -idx - 2;
+		else
+			idx -= 1;
+		// Gene region contains 0-based positions pos - 2 and pos - 1, move behind gene
+		if (idx >= 0 && ends[idx] > pos - 1)
+			return ends[idx] + 1;
+		return pos;
+	}
+
+}
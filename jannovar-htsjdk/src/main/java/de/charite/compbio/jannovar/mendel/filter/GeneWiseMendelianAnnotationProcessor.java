@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.WeakHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -48,6 +49,9 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 	/** The logger object to use */
 	private static final Logger LOGGER = LoggerFactory.getLogger(GeneWiseMendelianAnnotationProcessor.class);
 
+	/** Gene lists by {@link JannovarData}, shared by all processors (e.g., when annotating many VCF files) */
+	private static final Map<JannovarData, GeneList> GENE_LISTS = Collections.synchronizedMap(new WeakHashMap<>());
+
 	/** The {@link Pedigree} to use for the computation */
 	private final Pedigree pedigree;
 	/** The {@link VariantContextMendelianAnnotator} to use for mendelian compatibility annotation */
@@ -92,7 +96,7 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 		this.interpretGenotypeFilters = interpretFilters;
 		this.interpretVariantFilters = interpretFilters;
 
-		this.geneList = buildGeneList(this.jannovarData);
+		this.geneList = getGeneList(this.jannovarData);
 		this.annotator = new VariantContextMendelianAnnotator(this.pedigree, interpretGenotypeFilters,
 				interpretVariantFilters);
 
@@ -195,6 +199,17 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 		new MendelVCFHeaderExtender().extendHeader(vcfHeader, prefix);
 	}
 
+	/**
+	 * Get {@link GeneList} to be used in the filter, building it on first use for <code>jannovarDB</code>.
+	 *
+	 * @param jannovarDB
+	 *            data base to use for building gene list
+	 * @return list of genes, built from <code>jannovarDB</code>.
+	 */
+	static GeneList getGeneList(JannovarData jannovarDB) {
+		return GENE_LISTS.computeIfAbsent(jannovarDB, GeneWiseMendelianAnnotationProcessor::buildGeneList);
+	}
+
 	/**
 	 * Build {@link GeneList} to be used in the filter.
 	 *
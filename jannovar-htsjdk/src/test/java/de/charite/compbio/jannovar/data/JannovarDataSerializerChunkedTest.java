@@ -0,0 +1,119 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableSet;
+
+import de.charite.compbio.jannovar.annotation.AnnotationException;
+import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.factories.TestJannovarDataFactory;
+import de.charite.compbio.jannovar.reference.PositionType;
+
+/**
+ * Tests for writing and lazily loading {@link JannovarData} in the chunked format
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarDataSerializerChunkedTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	JannovarData data;
+	String chunkedPath;
+
+	@Before
+	public void setUp() throws IOException, SerializationException {
+		data = new TestJannovarDataFactory().getJannovarData();
+		chunkedPath = new File(tmpFolder.getRoot(), "test.ser").toString();
+		new JannovarDataSerializer(chunkedPath).saveChunked(data);
+	}
+
+	@Test
+	public void testChromosomesLoadedOnAccess() throws SerializationException {
+		JannovarData lazyData = new JannovarDataSerializer(chunkedPath).load();
+
+		Assert.assertEquals(data.getChromosomes().keySet(), lazyData.getChromosomes().keySet());
+		for (Chromosome chrom : lazyData.getChromosomes().values()) {
+			Assert.assertFalse(chrom.isLoaded());
+			Assert.assertEquals(data.getChromosomes().get(chrom.getChrID()).getNumberOfGenes(),
+					chrom.getNumberOfGenes());
+		}
+
+		// chr1 has GNRHR2 and RBM8A
+		Chromosome chr1 = lazyData.getChromosomes().get(1);
+		Assert.assertEquals(2, chr1.getTMIntervalTree().size());
+		Assert.assertTrue(chr1.isLoaded());
+		Assert.assertSame(chr1.getTMIntervalTree(), chr1.getTMIntervalTree());
+		Assert.assertSame(lazyData.getRefDict(), chr1.getTMIntervalTree().getIntervals().get(0).getValue()
+				.getTXRegion().getRefDict());
+		Assert.assertEquals(data.getChromosomes().get(1).getTMIntervalTree().getIntervals().get(0).getValue(),
+				chr1.getTMIntervalTree().getIntervals().get(0).getValue());
+		Assert.assertFalse(lazyData.getChromosomes().get(10).isLoaded());
+	}
+
+	@Test
+	public void testTranscriptMaps() throws SerializationException {
+		JannovarData lazyData = new JannovarDataSerializer(chunkedPath).load();
+
+		Assert.assertEquals(ImmutableSet.copyOf(data.getTmByAccession().keySet()),
+				ImmutableSet.copyOf(lazyData.getTmByAccession().keySet()));
+		Assert.assertEquals(data.getTmByAccession().get("uc021pzz.1"),
+				lazyData.getTmByAccession().get("uc021pzz.1"));
+		Assert.assertEquals(ImmutableSet.of("FGFR2", "GNRHR2", "RBM8A", "SHH"),
+				lazyData.getTmByGeneSymbol().keySet());
+		Assert.assertTrue(lazyData.getChromosomes().get(7).isLoaded());
+	}
+
+	@Test
+	public void testEviction() throws SerializationException {
+		JannovarData lazyData = new JannovarDataSerializer(chunkedPath).load(1);
+
+		Assert.assertEquals(2, lazyData.getChromosomes().get(1).getTMIntervalTree().size());
+		Assert.assertEquals(1, lazyData.getChromosomes().get(10).getTMIntervalTree().size());
+		Assert.assertFalse(lazyData.getChromosomes().get(1).isLoaded());
+		Assert.assertTrue(lazyData.getChromosomes().get(10).isLoaded());
+		// reloaded after eviction
+		Assert.assertEquals(2, lazyData.getChromosomes().get(1).getTMIntervalTree().size());
+		Assert.assertFalse(lazyData.getChromosomes().get(10).isLoaded());
+	}
+
+	@Test
+	public void testAnnotationSameAsInMemory() throws SerializationException, AnnotationException {
+		JannovarData lazyData = new JannovarDataSerializer(chunkedPath).load(1);
+		VariantAnnotator expected = new VariantAnnotator(data.getRefDict(), data.getChromosomes(),
+				new AnnotationBuilderOptions());
+		VariantAnnotator actual = new VariantAnnotator(lazyData.getRefDict(), lazyData.getChromosomes(),
+				new AnnotationBuilderOptions());
+
+		final int[][] positions = { { 10, 123256215 }, { 1, 145509000 }, { 7, 155600000 }, { 10, 123256230 },
+				{ 2, 1000000 } };
+		for (int[] pos : positions)
+			Assert.assertEquals(
+					expected.buildAnnotations(pos[0], pos[1], "A", "C", PositionType.ONE_BASED).getAnnotations()
+							.toString(),
+					actual.buildAnnotations(pos[0], pos[1], "A", "C", PositionType.ONE_BASED).getAnnotations()
+							.toString());
+	}
+
+	@Test
+	public void testResaveNonChunked() throws SerializationException, IOException {
+		JannovarData lazyData = new JannovarDataSerializer(chunkedPath).load();
+		final String path = tmpFolder.newFile("resaved.ser").toString();
+		new JannovarDataSerializer(path).save(lazyData);
+
+		JannovarData reloaded = new JannovarDataSerializer(path).load();
+		Assert.assertTrue(reloaded.getChromosomes().get(1).isLoaded());
+		Assert.assertEquals(2, reloaded.getChromosomes().get(1).getNumberOfGenes());
+		Assert.assertEquals(data.getTmByAccession().get("uc003wmk.1"), reloaded.getTmByAccession().get("uc003wmk.1"));
+	}
+
+}
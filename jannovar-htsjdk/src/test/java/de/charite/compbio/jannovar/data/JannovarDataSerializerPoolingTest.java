@@ -0,0 +1,83 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import de.charite.compbio.jannovar.factories.TestTranscriptModelFactory;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Tests for sharing equal gene-level values of {@link TranscriptModel}s when (de)serializing {@link JannovarData}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarDataSerializerPoolingTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** two isoforms of FGFR2 with equal but not identical gene-level values, and SHH */
+	JannovarData data;
+
+	@Before
+	public void setUp() {
+		TranscriptModel fgfr2 = TestTranscriptModelFactory.buildTMForFGFR2();
+		TranscriptModel isoform1 = withAccession(fgfr2, "uc021pzz.1");
+		TranscriptModel isoform2 = withAccession(fgfr2, "uc021pzz.2");
+		Assert.assertNotSame(isoform1.getGeneSymbol(), isoform2.getGeneSymbol());
+		Assert.assertNotSame(isoform1.getAltGeneIDs(), isoform2.getAltGeneIDs());
+		data = new JannovarData(HG19RefDictBuilder.build(),
+				ImmutableList.of(isoform1, isoform2, TestTranscriptModelFactory.buildTMForSHH()));
+	}
+
+	/** @return copy of <code>tm</code> with the given accession and copies of its gene-level values */
+	private static TranscriptModel withAccession(TranscriptModel tm, String accession) {
+		return new TranscriptModel(accession, new String(tm.getGeneSymbol()), tm.getTXRegion(), tm.getCDSRegion(),
+				tm.getExonRegions(), tm.getSequence(), new String(tm.getGeneID()), tm.getTranscriptSupportLevel(),
+				ImmutableMap.of(new String("HGNC_ID"), new String("HGNC:3689")));
+	}
+
+	@Test
+	public void testGeneLevelValuesShared() throws SerializationException, IOException {
+		final String path = new File(tmpFolder.getRoot(), "plain.ser").toString();
+		final String chunkedPath = new File(tmpFolder.getRoot(), "chunked.ser").toString();
+		new JannovarDataSerializer(path).save(data);
+		new JannovarDataSerializer(chunkedPath).saveChunked(data);
+
+		for (String p : ImmutableList.of(path, chunkedPath)) {
+			JannovarData loaded = new JannovarDataSerializer(p).load();
+			TranscriptModel isoform1 = loaded.getTmByAccession().get("uc021pzz.1");
+			TranscriptModel isoform2 = loaded.getTmByAccession().get("uc021pzz.2");
+			Assert.assertSame(isoform1.getGeneSymbol(), isoform2.getGeneSymbol());
+			Assert.assertSame(isoform1.getGeneID(), isoform2.getGeneID());
+			Assert.assertSame(isoform1.getAltGeneIDs(), isoform2.getAltGeneIDs());
+			Assert.assertSame(isoform1.getTXRegion().getRefDict(), isoform1.getExonRegions().get(0).getRefDict());
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws SerializationException, IOException {
+		final String path = new File(tmpFolder.getRoot(), "plain.ser").toString();
+		new JannovarDataSerializer(path).save(data);
+
+		JannovarData loaded = new JannovarDataSerializer(path).load();
+		Assert.assertEquals(data.getTmByAccession(), loaded.getTmByAccession());
+		for (TranscriptModel tm : data.getTmByAccession().values()) {
+			TranscriptModel other = loaded.getTmByAccession().get(tm.getAccession());
+			Assert.assertEquals(tm.getExonRegions(), other.getExonRegions());
+			Assert.assertEquals(tm.getAltGeneIDs(), other.getAltGeneIDs());
+			Assert.assertEquals(tm.getTranscriptSupportLevel(), other.getTranscriptSupportLevel());
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import de.charite.compbio.jannovar.factories.TestTranscriptModelFactory;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptSupportLevels;
+
+/**
+ * Tests for {@link TranscriptFilter} and loading a subset of the transcripts with {@link JannovarDataSerializer}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class TranscriptFilterTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** FGFR2 with TSL1 and HGNC ID, RBM8A with TSL3, GNRHR2 (non-coding) and SHH without level */
+	JannovarData data;
+
+	@Before
+	public void setUp() {
+		TranscriptModel fgfr2 = withLevel(TestTranscriptModelFactory.buildTMForFGFR2(), TranscriptSupportLevels.TSL1,
+				ImmutableMap.of("HGNC_ID", "HGNC:3689"));
+		TranscriptModel rbm8a = withLevel(TestTranscriptModelFactory.buildTMForRBM8A(), TranscriptSupportLevels.TSL3,
+				ImmutableMap.<String, String> of());
+		TranscriptModel gnrhr2 = TestTranscriptModelFactory.buildTMForGNRHR2A();
+		gnrhr2 = new TranscriptModel(gnrhr2.getAccession(), gnrhr2.getGeneSymbol(), gnrhr2.getTXRegion(),
+				new GenomeInterval(gnrhr2.getTXRegion().getGenomeBeginPos(), 0),
+				gnrhr2.getExonRegions(), gnrhr2.getSequence(), gnrhr2.getGeneID(),
+				TranscriptSupportLevels.NOT_AVAILABLE);
+		TranscriptModel shh = TestTranscriptModelFactory.buildTMForSHH();
+		data = new JannovarData(HG19RefDictBuilder.build(), ImmutableList.of(fgfr2, rbm8a, gnrhr2, shh));
+	}
+
+	private static TranscriptModel withLevel(TranscriptModel tm, int level, ImmutableMap<String, String> altGeneIDs) {
+		return new TranscriptModel(tm.getAccession(), tm.getGeneSymbol(), tm.getTXRegion(), tm.getCDSRegion(),
+				tm.getExonRegions(), tm.getSequence(), tm.getGeneID(), level, altGeneIDs);
+	}
+
+	@Test
+	public void testAcceptAll() {
+		Assert.assertTrue(TranscriptFilter.ALL.isAcceptingAll());
+		Assert.assertSame(data, TranscriptFilter.ALL.filter(data));
+	}
+
+	@Test
+	public void testGenes() {
+		TranscriptFilter filter = new TranscriptFilter(ImmutableList.of("SHH", "HGNC:3689", "ENTREZ9939"), null,
+				null, false);
+		Assert.assertEquals(ImmutableSet.of("uc021pzz.1", "uc001ent.2", "uc003wmk.1"),
+				filter.filter(data).getTmByAccession().keySet());
+	}
+
+	@Test
+	public void testAccessions() {
+		TranscriptFilter filter = new TranscriptFilter(null, ImmutableList.of("uc021pzz", "uc001ent.1"), null, false);
+		Assert.assertEquals(ImmutableSet.of("uc021pzz.1"), filter.filter(data).getTmByAccession().keySet());
+	}
+
+	@Test
+	public void testTranscriptSupportLevel() {
+		TranscriptFilter filter = new TranscriptFilter(null, null, TranscriptSupportLevels.TSL2, false);
+		Assert.assertEquals(ImmutableSet.of("uc021pzz.1"), filter.filter(data).getTmByAccession().keySet());
+		filter = new TranscriptFilter(null, null, TranscriptSupportLevels.UCSC_CANONICAL, false);
+		Assert.assertEquals(ImmutableSet.of("uc021pzz.1", "uc001ent.2"),
+				filter.filter(data).getTmByAccession().keySet());
+	}
+
+	@Test
+	public void testOnlyCoding() {
+		TranscriptFilter filter = new TranscriptFilter(null, null, null, true);
+		JannovarData filtered = filter.filter(data);
+		Assert.assertEquals(ImmutableSet.of("uc021pzz.1", "uc001ent.2", "uc003wmk.1"),
+				filtered.getTmByAccession().keySet());
+		Assert.assertEquals(1, filtered.getChromosomes().get(1).getNumberOfGenes());
+	}
+
+	@Test
+	public void testLoadFiltered() throws SerializationException, IOException {
+		final String path = new File(tmpFolder.getRoot(), "plain.ser").toString();
+		final String chunkedPath = new File(tmpFolder.getRoot(), "chunked.ser").toString();
+		new JannovarDataSerializer(path).save(data);
+		new JannovarDataSerializer(chunkedPath).saveChunked(data);
+		TranscriptFilter filter = new TranscriptFilter(ImmutableList.of("RBM8A", "GNRHR2", "SHH"), null, null, true);
+
+		for (String p : ImmutableList.of(path, chunkedPath)) {
+			JannovarData loaded = new JannovarDataSerializer(p).load(filter, 0);
+			Assert.assertEquals(1, loaded.getChromosomes().get(1).getNumberOfGenes());
+			Assert.assertEquals("uc001ent.2", loaded.getChromosomes().get(1).getTMIntervalTree().getIntervals().get(0)
+					.getValue().getAccession());
+			Assert.assertEquals(0, loaded.getChromosomes().get(10).getNumberOfGenes());
+			Assert.assertEquals(ImmutableSet.of("uc001ent.2", "uc003wmk.1"), loaded.getTmByAccession().keySet());
+		}
+	}
+
+}
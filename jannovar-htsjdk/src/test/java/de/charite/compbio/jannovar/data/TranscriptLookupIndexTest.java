@@ -0,0 +1,132 @@
+package de.charite.compbio.jannovar.data;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import de.charite.compbio.jannovar.factories.TestTranscriptModelFactory;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+/**
+ * Tests for {@link TranscriptLookupIndex} and the transcript lookup of {@link JannovarData}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class TranscriptLookupIndexTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** FGFR2 with HGNC IDs and aliases, two versions of RBM8A, GNRHR2 and SHH */
+	JannovarData data;
+
+	@Before
+	public void setUp() {
+		TranscriptModel fgfr2 = TestTranscriptModelFactory.buildTMForFGFR2();
+		fgfr2 = new TranscriptModel(fgfr2.getAccession(), fgfr2.getGeneSymbol(), fgfr2.getTXRegion(),
+				fgfr2.getCDSRegion(), fgfr2.getExonRegions(), fgfr2.getSequence(), "ENTREZ2263",
+				fgfr2.getTranscriptSupportLevel(), ImmutableMap.of("HGNC_ID", "HGNC:3689", "HGNC_ALIAS", "BEK|KGFR",
+						"ENSEMBL_GENE_ID", "ENSG00000066468", "UNIPROT_ID", "P21802"));
+		TranscriptModel rbm8a = TestTranscriptModelFactory.buildTMForRBM8A();
+		TranscriptModel rbm8a2 = new TranscriptModel("uc001ent.3", rbm8a.getGeneSymbol(), rbm8a.getTXRegion(),
+				rbm8a.getCDSRegion(), rbm8a.getExonRegions(), rbm8a.getSequence(), rbm8a.getGeneID(),
+				rbm8a.getTranscriptSupportLevel());
+		data = new JannovarData(HG19RefDictBuilder.build(), ImmutableList.of(fgfr2, rbm8a, rbm8a2,
+				TestTranscriptModelFactory.buildTMForGNRHR2A(), TestTranscriptModelFactory.buildTMForSHH()));
+	}
+
+	@Test
+	public void testAccessions() {
+		TranscriptLookupIndex index = data.getLookupIndex();
+		Assert.assertEquals(5, index.getNumTranscripts());
+		Assert.assertEquals(ImmutableList.of("uc021pzz.1"), index.findAccessions("uc021pzz.1"));
+		Assert.assertEquals(ImmutableList.of("uc021pzz.1"), index.findAccessions("UC021PZZ"));
+		Assert.assertEquals(ImmutableList.of("uc001ent.3"), index.findAccessions("uc001ent.3"));
+		Assert.assertEquals(ImmutableList.of("uc001ent.2", "uc001ent.3"), index.findAccessions("uc001ent"));
+		Assert.assertTrue(index.findAccessions("uc001ent.1").isEmpty());
+		Assert.assertTrue(index.findAccessions("uc001en").isEmpty());
+	}
+
+	@Test
+	public void testGenes() {
+		TranscriptLookupIndex index = data.getLookupIndex();
+		final ImmutableList<String> fgfr2 = ImmutableList.of("uc021pzz.1");
+		for (String key : new String[] { "FGFR2", "fgfr2", "ENTREZ2263", "HGNC:3689", "BEK", "KGFR",
+				"ENSG00000066468" })
+			Assert.assertEquals(key, fgfr2, index.findAccessionsByGene(key));
+		Assert.assertTrue(index.findAccessionsByGene("P21802").isEmpty());
+		Assert.assertTrue(index.findAccessionsByGene("FGFR").isEmpty());
+		Assert.assertEquals(ImmutableList.of("uc001ent.2", "uc001ent.3"), index.findAccessionsByGene("RBM8A"));
+	}
+
+	@Test
+	public void testPrefixQueries() {
+		TranscriptLookupIndex index = data.getLookupIndex();
+		Assert.assertEquals(ImmutableList.of("uc001ent", "uc001ent.2", "uc001ent.3"),
+				index.findAccessionKeys("UC001", 10));
+		Assert.assertEquals(ImmutableList.of("uc001ent", "uc001ent.2"), index.findAccessionKeys("uc001", 2));
+		Assert.assertEquals(ImmutableList.of("FGFR2"), index.findGeneKeys("fg", 10));
+		Assert.assertEquals(ImmutableList.of("GNRHR2"), index.findGeneKeys("G", 10));
+		Assert.assertEquals(ImmutableList.of("HGNC:3689"), index.findGeneKeys("HGNC", 10));
+		Assert.assertTrue(index.findGeneKeys("X", 10).isEmpty());
+	}
+
+	@Test
+	public void testPositionsInChromosome() {
+		TranscriptLookupIndex index = data.getLookupIndex();
+		for (int i = 0; i < index.getNumTranscripts(); ++i) {
+			final Chromosome chrom = data.getChromosomes().get(index.getChrID(i));
+			Assert.assertEquals(index.getAccession(i), chrom.getTMIntervalTree().getIntervals()
+					.get(index.getPositionInChromosome(i)).getValue().getAccession());
+		}
+	}
+
+	@Test
+	public void testFindTranscripts() {
+		Assert.assertEquals(ImmutableList.of(data.getTmByAccession().get("uc001ent.2"),
+				data.getTmByAccession().get("uc001ent.3")), data.findTranscriptsByAccession("uc001ent"));
+		Assert.assertEquals(ImmutableList.of(data.getTmByAccession().get("uc021pzz.1")),
+				data.findTranscriptsByGene("HGNC:3689"));
+		Assert.assertTrue(data.findTranscriptsByGene("XYZ").isEmpty());
+	}
+
+	@Test
+	public void testMappedFromChunkedDatabase() throws SerializationException, IOException {
+		final String path = new File(tmpFolder.getRoot(), "test.ser").toString();
+		new JannovarDataSerializer(path).saveChunked(data);
+		JannovarData lazyData = new JannovarDataSerializer(path).load();
+
+		Assert.assertTrue(lazyData.getLookupIndex().isMapped());
+		Assert.assertArrayEquals(data.getLookupIndex().toByteArray(), lazyData.getLookupIndex().toByteArray());
+		// only the chromosome of the transcript is loaded
+		Assert.assertEquals(ImmutableList.of(data.getTmByAccession().get("uc021pzz.1")),
+				lazyData.findTranscriptsByGene("BEK"));
+		Assert.assertTrue(lazyData.getChromosomes().get(10).isLoaded());
+		Assert.assertFalse(lazyData.getChromosomes().get(1).isLoaded());
+		Assert.assertFalse(lazyData.getChromosomes().get(7).isLoaded());
+		Assert.assertEquals(data.findTranscriptsByAccession("uc001ent"),
+				lazyData.findTranscriptsByAccession("uc001ent"));
+	}
+
+	@Test
+	public void testNotMappedWithFilter() throws SerializationException, IOException {
+		final String path = new File(tmpFolder.getRoot(), "test.ser").toString();
+		new JannovarDataSerializer(path).saveChunked(data);
+		JannovarData lazyData = new JannovarDataSerializer(path)
+				.load(new TranscriptFilter(null, ImmutableList.of("uc003wmk.1"), null, false), 0);
+
+		Assert.assertFalse(lazyData.getLookupIndex().isMapped());
+		Assert.assertEquals(1, lazyData.getLookupIndex().getNumTranscripts());
+		Assert.assertTrue(lazyData.findTranscriptsByGene("FGFR2").isEmpty());
+	}
+
+}
@@ -0,0 +1,273 @@
+package de.charite.compbio.jannovar.hgvs.bridge;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.hgvs.Translator;
+import de.charite.compbio.jannovar.hgvs.nts.variant.SingleAlleleNucleotideVariant;
+import de.charite.compbio.jannovar.hgvs.parser.HGVSParser;
+import de.charite.compbio.jannovar.hgvs.protein.variant.SingleAlleleProteinVariant;
+import de.charite.compbio.jannovar.htsjdk.GenomeRegionSequenceExtractor;
+import de.charite.compbio.jannovar.htsjdk.ReferenceSequenceCache;
+import de.charite.compbio.jannovar.impl.util.DNAUtils;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+
+/**
+ * Tests for {@link ProteinChangeToGenomeVariantTranslator} using the FBN1 transcript that is on the reverse strand.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ProteinChangeToGenomeVariantTranslatorTest {
+
+	/**
+	 * codons for comparison, the reference codons are taken from the genome as the FASTA file of the example is
+	 * shifted by one base relative to the transcript sequence
+	 */
+	static final int[] SAMPLE_CODONS = { 0, 1, 100, 2446, 2869 };
+	/** the nucleotides */
+	static final String NTS = "ACGT";
+	/** translation of codons */
+	static final Translator aaTranslator = Translator.getTranslator();
+
+	/** path to Jannovar database file */
+	static String dbPath;
+	/** path to FASTA file */
+	static String fastaPath;
+	/** Jannovar database */
+	JannovarData jannovarData;
+	/** the FBN1 transcript */
+	TranscriptModel tm;
+	/** codon index of {@link #tm} */
+	TranscriptCodonIndex index;
+	/** loading of genome sequence */
+	GenomeRegionSequenceExtractor extractor;
+	/** HGVS parser */
+	HGVSParser parser;
+	/** Translation of nucleotide changes */
+	NucleotideChangeToGenomeVariantTranslator ntTranslator;
+	/** Translation of protein changes */
+	ProteinChangeToGenomeVariantTranslator translator;
+
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		// copy out files to temporary directory
+		File tmpDir = Files.createTempDir();
+		dbPath = tmpDir + "/mini_fbn1.ser";
+		ResourceUtils.copyResourceToFile("/ex_fbn1/mini_fbn1.ser", new File(dbPath));
+		fastaPath = tmpDir + "/ref.fa";
+		ResourceUtils.copyResourceToFile("/ex_fbn1/ref.fa", new File(fastaPath));
+		ResourceUtils.copyResourceToFile("/ex_fbn1/ref.fa.fai", new File(tmpDir + "/ref.fa.fai"));
+		ResourceUtils.copyResourceToFile("/ex_fbn1/ref.dict", new File(tmpDir + "/ref.dict"));
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		jannovarData = new JannovarDataSerializer(dbPath).load();
+		tm = jannovarData.getTmByAccession().get("NM_000138.4");
+		index = new TranscriptCodonIndex(tm);
+
+		ReferenceSequenceCache cache = new ReferenceSequenceCache(new IndexedFastaSequenceFile(new File(fastaPath)));
+		extractor = new GenomeRegionSequenceExtractor(jannovarData, cache);
+		parser = new HGVSParser();
+		ntTranslator = new NucleotideChangeToGenomeVariantTranslator(jannovarData, cache);
+		translator = new ProteinChangeToGenomeVariantTranslator(jannovarData, cache);
+	}
+
+	@Test
+	public void testCodonIndex() {
+		Assert.assertEquals(tm.cdsTranscriptLength() / 3, index.getNumCodons());
+		// positions descend on the reverse strand, with gaps for the introns between coding exons only
+		int numGaps = 0;
+		for (int i = 1; i < 3 * index.getNumCodons(); ++i) {
+			final int delta = index.getPosition((i - 1) / 3, (i - 1) % 3) - index.getPosition(i / 3, i % 3);
+			Assert.assertTrue(delta >= 1);
+			if (delta > 1)
+				++numGaps;
+		}
+		int numCodingExons = 0;
+		for (GenomeInterval exon : tm.getExonRegions())
+			if (exon.overlapsWith(tm.getCDSRegion()))
+				++numCodingExons;
+		Assert.assertEquals(numCodingExons - 1, numGaps);
+	}
+
+	/** each SNV of a codon must be among the candidates for the resulting amino acid change */
+	@Test
+	public void testAgainstNucleotideTranslation() throws CannotTranslateHGVSVariant {
+		for (int codon : SAMPLE_CODONS) {
+			final String refCodon = loadCodon(codon);
+			final String refAA = aaTranslator.translateDNA(refCodon);
+			for (int base = 0; base < 3; ++base) {
+				for (char nt : NTS.toCharArray()) {
+					final StringBuilder altCodon = new StringBuilder(refCodon);
+					altCodon.setCharAt(base, nt);
+					final String altAA = aaTranslator.translateDNA(altCodon.toString());
+					if (altCodon.toString().equals(refCodon))
+						continue;
+
+					final String ntStr = "NM_000138.4:c." + (3 * codon + base + 1) + refCodon.charAt(base) + ">" + nt;
+					final GenomeVariant expected = ntTranslator.translateNucleotideVariantToGenomeVariant(
+							(SingleAlleleNucleotideVariant) parser.parseHGVSString(ntStr), false);
+
+					final List<GenomeVariant> candidates = translate("NM_000138.4:p." + refAA + (codon + 1) + altAA);
+					Assert.assertTrue(ntStr + " should be among " + candidates, candidates.contains(expected));
+				}
+			}
+		}
+	}
+
+	/** all candidates must cause the change, and all codons of the target amino acid must be reached */
+	@Test
+	public void testCandidatesCauseChange() throws CannotTranslateHGVSVariant {
+		for (int codon : SAMPLE_CODONS) {
+			final String refCodon = loadCodon(codon);
+			final String refAA = aaTranslator.translateDNA(refCodon);
+			for (String altAA : "ACDEFGHIKLMNPQRSTVWY*".split("")) {
+				final List<GenomeVariant> candidates = translate("NM_000138.4:p." + refAA + (codon + 1) + altAA);
+				Set<String> altCodons = new HashSet<>();
+				for (GenomeVariant candidate : candidates) {
+					Assert.assertEquals(candidate.getRef().length(), candidate.getAlt().length());
+					Assert.assertEquals(candidate.getRef(),
+							extractor.load(candidate.getGenomeInterval()).toUpperCase());
+					altCodons.add(applyToCodon(codon, candidate));
+				}
+				Assert.assertEquals(candidates.size(), altCodons.size());
+				for (String altCodon : altCodons)
+					Assert.assertEquals(altAA, aaTranslator.translateDNA(altCodon));
+				// none of the sample codons is split by an intron
+				int numCodons = 0;
+				for (int i = 0; i < 64; ++i) {
+					final String codonSeq = "" + NTS.charAt(i / 16) + NTS.charAt((i / 4) % 4) + NTS.charAt(i % 4);
+					if (!codonSeq.equals(refCodon) && aaTranslator.translateDNA(codonSeq).equals(altAA))
+						++numCodons;
+				}
+				Assert.assertEquals(numCodons, candidates.size());
+			}
+		}
+	}
+
+	@Test
+	public void testMNV() throws CannotTranslateHGVSVariant {
+		// TGC (Cys) to ATG (Met) changes all three bases, GCA to CAT on the forward strand
+		Assert.assertEquals("TGC", loadCodon(0));
+		List<GenomeVariant> candidates = translate("NM_000138.4:p.Cys1Met");
+		Assert.assertEquals(1, candidates.size());
+		Assert.assertEquals(436963, candidates.get(0).getPos());
+		Assert.assertEquals("GCA", candidates.get(0).getRef());
+		Assert.assertEquals("CAT", candidates.get(0).getAlt());
+	}
+
+	@Test
+	public void testSynonymous() throws CannotTranslateHGVSVariant {
+		// TGC to TGT
+		List<GenomeVariant> candidates = translate("NM_000138.4:p.Cys1Cys");
+		Assert.assertEquals(1, candidates.size());
+		Assert.assertEquals("G", candidates.get(0).getRef());
+		Assert.assertEquals("A", candidates.get(0).getAlt());
+	}
+
+	@Test
+	public void testSplitCodon() throws CannotTranslateHGVSVariant {
+		for (int codon = 0; codon < index.getNumCodons(); ++codon) {
+			if (index.getPosition(codon, 0) - index.getPosition(codon, 2) == 2)
+				continue;
+			final String refCodon = loadCodon(codon);
+			final String refAA = aaTranslator.translateDNA(refCodon);
+			for (String altAA : "ACDEFGHIKLMNPQRSTVWY*".split("")) {
+				final List<GenomeVariant> candidates;
+				try {
+					candidates = translate("NM_000138.4:p." + refAA + (codon + 1) + altAA);
+				} catch (CannotTranslateHGVSVariant e) {
+					continue; // only reachable by changes on both sides of the intron
+				}
+				for (GenomeVariant candidate : candidates) {
+					Assert.assertTrue(candidate.getRef().length() <= 2);
+					Assert.assertEquals(altAA, aaTranslator.translateDNA(applyToCodon(codon, candidate)));
+				}
+			}
+			return;
+		}
+		Assert.fail("no split codon found");
+	}
+
+	@Test(expected = CannotTranslateHGVSVariant.class)
+	public void testReferenceMismatch() throws CannotTranslateHGVSVariant {
+		translator.translateProteinVariantToGenomeVariants(
+				(SingleAlleleProteinVariant) parser.parseHGVSString("NM_000138.4:p.Trp1Cys"), false);
+	}
+
+	@Test
+	public void testReferenceMismatchAutocorrect() throws CannotTranslateHGVSVariant {
+		Assert.assertFalse(translator.translateProteinVariantToGenomeVariants(
+				(SingleAlleleProteinVariant) parser.parseHGVSString("NM_000138.4:p.Trp1Val"), true).isEmpty());
+	}
+
+	@Test(expected = CannotTranslateHGVSVariant.class)
+	public void testOutsideOfProtein() throws CannotTranslateHGVSVariant {
+		translator.translateProteinVariantToGenomeVariants(
+				(SingleAlleleProteinVariant) parser.parseHGVSString("NM_000138.4:p.Arg100000Trp"), true);
+	}
+
+	@Test
+	public void testAccessionWithoutVersion() throws CannotTranslateHGVSVariant {
+		Assert.assertEquals(translate("NM_000138.4:p.Cys1Met"), translate("NM_000138:p.Cys1Met"));
+	}
+
+	@Test(expected = CannotTranslateHGVSVariant.class)
+	public void testUnknownTranscript() throws CannotTranslateHGVSVariant {
+		translator.translateProteinVariantToGenomeVariants(
+				(SingleAlleleProteinVariant) parser.parseHGVSString("NP_000129.3:p.Arg123Trp"), true);
+	}
+
+	/** @return the candidates for <code>hgvsString</code>, not allowing reference mismatches */
+	private List<GenomeVariant> translate(String hgvsString) throws CannotTranslateHGVSVariant {
+		return translator.translateProteinVariantToGenomeVariants(
+				(SingleAlleleProteinVariant) parser.parseHGVSString(hgvsString), false);
+	}
+
+	/** @return codon loaded from the genome, in transcript orientation */
+	private String loadCodon(int codon) {
+		StringBuilder result = new StringBuilder();
+		for (int base = 0; base < 3; ++base)
+			result.append(loadTranscriptBase(index.getPosition(codon, base)));
+		return result.toString();
+	}
+
+	/** @return the codon after applying <code>variant</code> */
+	private String applyToCodon(int codon, GenomeVariant variant) {
+		StringBuilder result = new StringBuilder();
+		for (int base = 0; base < 3; ++base) {
+			final int pos = index.getPosition(codon, base);
+			if (pos >= variant.getPos() && pos < variant.getPos() + variant.getAlt().length())
+				result.append(DNAUtils.reverseComplement(variant.getAlt().substring(pos - variant.getPos(),
+						pos - variant.getPos() + 1)));
+			else
+				result.append(loadTranscriptBase(pos));
+		}
+		return result.toString();
+	}
+
+	/** @return base at forward strand position <code>pos</code>, on the reverse strand of the transcript */
+	private String loadTranscriptBase(int pos) {
+		return DNAUtils.reverseComplement(
+				extractor.load(new GenomeInterval(jannovarData.getRefDict(), Strand.FWD, tm.getChr(), pos, pos + 1))
+						.toUpperCase());
+	}
+
+}
@@ -0,0 +1,174 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+
+/**
+ * Tests for {@link ReferenceSequenceCache}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ReferenceSequenceCacheTest {
+
+	/** path to FASTA file with sequence */
+	static String fastaPath;
+	/** path to Jannovar database file */
+	static String dbPath;
+	/** the complete sequence of the contig "ref" */
+	static String refSeq;
+
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		// copy out files to temporary directory
+		File tmpDir = Files.createTempDir();
+		fastaPath = tmpDir + "/ref.fa";
+		ResourceUtils.copyResourceToFile("/ex_fbn1/ref.fa", new File(fastaPath));
+		ResourceUtils.copyResourceToFile("/ex_fbn1/ref.fa.fai", new File(tmpDir + "/ref.fa.fai"));
+		ResourceUtils.copyResourceToFile("/ex_fbn1/ref.dict", new File(tmpDir + "/ref.dict"));
+		dbPath = tmpDir + "/mini_fbn1.ser";
+		ResourceUtils.copyResourceToFile("/ex_fbn1/mini_fbn1.ser", new File(dbPath));
+
+		try (IndexedFastaSequenceFile indexedFile = new IndexedFastaSequenceFile(new File(fastaPath))) {
+			refSeq = new String(indexedFile.getSequence("ref").getBases());
+		}
+	}
+
+	/** cache with small blocks */
+	ReferenceSequenceCache cache;
+
+	@Before
+	public void setUp() throws Exception {
+		cache = new ReferenceSequenceCache(new IndexedFastaSequenceFile(new File(fastaPath)), 100, 3);
+	}
+
+	@Test
+	public void testGetSequence() {
+		Assert.assertEquals(refSeq.substring(0, 10), cache.getSequence("ref", 1, 10));
+		Assert.assertEquals(0, cache.getHits());
+		Assert.assertEquals(1, cache.getMisses());
+
+		// spans three blocks, the first one is loaded
+		Assert.assertEquals(refSeq.substring(50, 250), cache.getSequence("ref", 51, 250));
+		Assert.assertEquals(1, cache.getHits());
+		Assert.assertEquals(3, cache.getMisses());
+		Assert.assertEquals(0.25, cache.getHitRate(), 1e-9);
+
+		// empty sequence and end of contig
+		Assert.assertEquals("", cache.getSequence("ref", 51, 50));
+		final int len = refSeq.length();
+		Assert.assertEquals(refSeq.substring(len - 3), cache.getSequence("ref", len - 2, len));
+		Assert.assertEquals(refSeq.charAt(len - 1), cache.getBase("ref", len));
+	}
+
+	@Test
+	public void testEviction() {
+		for (int blockNo = 0; blockNo < 4; ++blockNo)
+			cache.getBase("ref", blockNo * 100 + 1);
+		Assert.assertEquals(3, cache.getNumBlocks());
+		Assert.assertEquals(4, cache.getMisses());
+
+		// the first block was evicted, the last one is kept
+		cache.getBase("ref", 1);
+		Assert.assertEquals(5, cache.getMisses());
+		cache.getBase("ref", 301);
+		Assert.assertEquals(1, cache.getHits());
+	}
+
+	@Test(expected = UncheckedJannovarException.class)
+	public void testOutOfBounds() {
+		cache.getSequence("ref", refSeq.length() - 1, refSeq.length() + 1);
+	}
+
+	@Test(expected = UncheckedJannovarException.class)
+	public void testUnknownContig() {
+		cache.getBase("chr1", 1);
+	}
+
+	@Test
+	public void testForPath() throws Exception {
+		ReferenceSequenceCache shared = ReferenceSequenceCache.forPath(fastaPath);
+		Assert.assertSame(shared, ReferenceSequenceCache.forPath(new File(fastaPath).getAbsolutePath()));
+		Assert.assertEquals(ReferenceSequenceCache.DEFAULT_MAX_BLOCKS, shared.getMaxBlocks());
+		Assert.assertEquals(refSeq.substring(0, 10), shared.getSequence("ref", 1, 10));
+	}
+
+	@Test
+	public void testPreloadExons() throws Exception {
+		JannovarData jannovarData = new JannovarDataSerializer(dbPath).load();
+		ReferenceSequenceCache largeCache = new ReferenceSequenceCache(
+				new IndexedFastaSequenceFile(new File(fastaPath)), 1000, 1000);
+		final int numRead = largeCache.preloadExons(jannovarData);
+		Assert.assertTrue(numRead > 0);
+		Assert.assertEquals(numRead, largeCache.getNumBlocks());
+		Assert.assertEquals(0, largeCache.getMisses());
+
+		// sequence of the exons is loaded
+		GenomeRegionSequenceExtractor extractor = new GenomeRegionSequenceExtractor(jannovarData, largeCache);
+		for (GenomeInterval exon : jannovarData.getTmByAccession().get("NM_000138.4").getExonRegions()) {
+			GenomeInterval fwd = exon.withStrand(Strand.FWD);
+			Assert.assertEquals(refSeq.substring(fwd.getBeginPos(), fwd.getEndPos()), extractor.load(fwd));
+		}
+		Assert.assertEquals(0, largeCache.getMisses());
+
+		// preloading stops when the cache is full
+		Assert.assertEquals(3, cache.preloadExons(jannovarData));
+		Assert.assertEquals(3, cache.getNumBlocks());
+	}
+
+	@Test
+	public void testExtractor() throws Exception {
+		JannovarData jannovarData = new JannovarDataSerializer(dbPath).load();
+		GenomeRegionSequenceExtractor extractor = new GenomeRegionSequenceExtractor(jannovarData, cache);
+		GenomeInterval region = new GenomeInterval(new GenomePosition(jannovarData.getRefDict(), Strand.FWD, 1, 99), 51);
+		Assert.assertEquals("CTTTAGGCCTGGGAATCAGGAGTGCTATGACAATTTCCTCCAAAGTGGAGA", extractor.load(region));
+		Assert.assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	public void testConcurrentAccess() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; ++t) {
+				final long seed = t;
+				futures.add(executor.submit(() -> {
+					Random rng = new Random(seed);
+					for (int i = 0; i < 2000; ++i) {
+						final int start = 1 + rng.nextInt(refSeq.length() - 300);
+						final int stop = start + rng.nextInt(300);
+						if (!refSeq.substring(start - 1, stop).equals(cache.getSequence("ref", start, stop)))
+							return false;
+					}
+					return true;
+				}));
+			}
+			for (Future<Boolean> future : futures)
+				Assert.assertTrue(future.get());
+		} finally {
+			executor.shutdown();
+		}
+		Assert.assertTrue(cache.getNumBlocks() <= 3);
+	}
+
+}
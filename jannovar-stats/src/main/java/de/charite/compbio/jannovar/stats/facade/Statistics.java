@@ -1,132 +1,217 @@
 package de.charite.compbio.jannovar.stats.facade;
 
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
 
 import de.charite.compbio.jannovar.annotation.PutativeImpact;
 import de.charite.compbio.jannovar.annotation.VariantEffect;
 
 /**
  * Collection of statistics by certain properties of the variants
- * 
+ *
  * Note that for impact and predicted functional effect, only the highest-impact ones are registered.
  *
+ * The counts for enumeration values are kept in primitive arrays indexed by the ordinal, such that registering a
+ * variant does not allocate. Objects of this class are not thread-safe; collect into one object per thread and
+ * combine them with {@link #merge}.
+ *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
 public class Statistics {
 
 	/** Counts by putative impact */
-	private Map<PutativeImpact, Integer> countPutativeImpacts;
+	private final long[] countPutativeImpacts;
 
 	/** Counts by predicted functional effect */
-	private Map<VariantEffect, Integer> countVariantEffects;
+	private final long[] countVariantEffects;
 
 	/** Counts by genomic region */
-	private Map<GenomeRegion, Integer> countGenomeRegion;
+	private final long[] countGenomeRegion;
 
 	/** Count of transition/transversion variants of SNVs */
-	private Map<TsTv, Integer> tsTvCount;
+	private final long[] tsTvCount;
 
-	/** Count of multiallelic sites */
-	private Map<Integer, Integer> altAlleleCountHist;
+	/** Count of multiallelic sites, indexed by number of alternative alleles */
+	private long[] altAlleleCountHist;
 
-	/** Occurences of per-record filters */
-	private Map<String, Integer> filterCount;
+	/** Occurences of per-record filters, counter stored in one-element array */
+	private final Map<String, long[]> filterCount;
 
-	/** Number of failing/passing variants (any filter is considered failing) */
-	private Map<Boolean, Integer> isFilteredCount;
+	/** Number of passing (index 0) and failing (index 1) variants (any filter is considered failing) */
+	private final long[] isFilteredCount;
 
-	/** Number of variants on the contigs */
-	private Map<String, Integer> contigCount;
+	/** Number of variants on the contigs, counter stored in one-element array */
+	private final Map<String, long[]> contigCount;
 
 	// Counts of variant GQ scores should already be in bcftools stats
 
 	public Statistics() {
-		this.countPutativeImpacts = new HashMap<>();
-		this.countVariantEffects = new HashMap<>();
-		this.countGenomeRegion = new HashMap<>();
-		this.tsTvCount = new HashMap<>();
-		this.altAlleleCountHist = new HashMap<>();
+		this.countPutativeImpacts = new long[PutativeImpact.values().length];
+		this.countVariantEffects = new long[VariantEffect.values().length];
+		this.countGenomeRegion = new long[GenomeRegion.values().length];
+		this.tsTvCount = new long[TsTv.values().length];
+		this.altAlleleCountHist = new long[4];
 		this.filterCount = new HashMap<>();
-		this.isFilteredCount = new HashMap<>();
+		this.isFilteredCount = new long[2];
 		this.contigCount = new HashMap<>();
 	}
 
 	public void putPutativeImpact(PutativeImpact impact) {
-		this.countPutativeImpacts.putIfAbsent(impact, 0);
-		this.countPutativeImpacts.put(impact, this.countPutativeImpacts.get(impact) + 1);
+		putPutativeImpact(impact, 1);
+	}
+
+	public void putPutativeImpact(PutativeImpact impact, long count) {
+		countPutativeImpacts[impact.ordinal()] += count;
 	}
 
 	public void putVariantEffect(VariantEffect effect) {
-		this.countVariantEffects.putIfAbsent(effect, 0);
-		this.countVariantEffects.put(effect, this.countVariantEffects.get(effect) + 1);
+		putVariantEffect(effect, 1);
+	}
+
+	public void putVariantEffect(VariantEffect effect, long count) {
+		countVariantEffects[effect.ordinal()] += count;
 	}
 
 	public void putGenomeRegion(GenomeRegion region) {
-		this.countGenomeRegion.putIfAbsent(region, 0);
-		this.countGenomeRegion.put(region, this.countGenomeRegion.get(region) + 1);
+		putGenomeRegion(region, 1);
+	}
+
+	public void putGenomeRegion(GenomeRegion region, long count) {
+		countGenomeRegion[region.ordinal()] += count;
 	}
 
 	public void putTsTv(TsTv tsTv) {
-		this.tsTvCount.putIfAbsent(tsTv, 0);
-		this.tsTvCount.put(tsTv, this.tsTvCount.get(tsTv) + 1);
+		putTsTv(tsTv, 1);
+	}
+
+	public void putTsTv(TsTv tsTv, long count) {
+		tsTvCount[tsTv.ordinal()] += count;
 	}
 
-	public void putAltAlleleCount(int count) {
-		this.altAlleleCountHist.putIfAbsent(count, 0);
-		this.altAlleleCountHist.put(count, this.altAlleleCountHist.get(count) + 1);
+	public void putAltAlleleCount(int alleleCount) {
+		putAltAlleleCount(alleleCount, 1);
+	}
+
+	public void putAltAlleleCount(int alleleCount, long count) {
+		if (alleleCount >= altAlleleCountHist.length)
+			altAlleleCountHist = Arrays.copyOf(altAlleleCountHist, Math.max(alleleCount + 1,
+					2 * altAlleleCountHist.length));
+		altAlleleCountHist[alleleCount] += count;
 	}
 
 	public void putFilter(String filter) {
 		if (".".equals(filter) || "PASS".equals(filter) || "".equals(filter)) {
-			isFilteredCount.putIfAbsent(false, 0);
-			isFilteredCount.put(false, isFilteredCount.get(false) + 1);
+			putIsFiltered(false, 1);
 		} else {
-			isFilteredCount.putIfAbsent(true, 0);
-			isFilteredCount.put(false, isFilteredCount.get(true) + 1);
+			putIsFiltered(true, 1);
 			String[] filters = filter.split(";");
-			for (String filterValue : filters) {
-				filterCount.putIfAbsent(filterValue, 0);
-				filterCount.put(filterValue, filterCount.get(filterValue) + 1);
-			}
+			for (String filterValue : filters)
+				putFilterValue(filterValue, 1);
 		}
 	}
 
+	public void putIsFiltered(boolean isFiltered, long count) {
+		isFilteredCount[isFiltered ? 1 : 0] += count;
+	}
+
+	public void putFilterValue(String filterValue, long count) {
+		filterCount.computeIfAbsent(filterValue, k -> new long[1])[0] += count;
+	}
+
 	public void putContig(String contig) {
-		contigCount.putIfAbsent(contig, 0);
-		contigCount.put(contig, contigCount.get(contig) + 1);
+		putContig(contig, 1);
+	}
+
+	public void putContig(String contig, long count) {
+		contigCount.computeIfAbsent(contig, k -> new long[1])[0] += count;
+	}
+
+	/**
+	 * Add the counts from <code>other</code> to <code>this</code>
+	 *
+	 * @param other
+	 *            {@link Statistics} to add
+	 */
+	public void merge(Statistics other) {
+		addAll(countPutativeImpacts, other.countPutativeImpacts);
+		addAll(countVariantEffects, other.countVariantEffects);
+		addAll(countGenomeRegion, other.countGenomeRegion);
+		addAll(tsTvCount, other.tsTvCount);
+		for (int i = 0; i < other.altAlleleCountHist.length; ++i)
+			if (other.altAlleleCountHist[i] != 0)
+				putAltAlleleCount(i, other.altAlleleCountHist[i]);
+		for (Entry<String, long[]> e : other.filterCount.entrySet())
+			putFilterValue(e.getKey(), e.getValue()[0]);
+		addAll(isFilteredCount, other.isFilteredCount);
+		for (Entry<String, long[]> e : other.contigCount.entrySet())
+			putContig(e.getKey(), e.getValue()[0]);
+	}
+
+	private static void addAll(long[] target, long[] source) {
+		for (int i = 0; i < target.length; ++i)
+			target[i] += source[i];
+	}
+
+	/** @return map with the non-zero counts of <code>counts</code>, keyed by <code>values</code> */
+	private static <E extends Enum<E>> Map<E, Long> toMap(Class<E> clazz, E[] values, long[] counts) {
+		Map<E, Long> result = new EnumMap<>(clazz);
+		for (E value : values)
+			if (counts[value.ordinal()] != 0)
+				result.put(value, counts[value.ordinal()]);
+		return result;
+	}
+
+	/** @return map with the non-zero counts of <code>counts</code> */
+	private static Map<String, Long> toMap(Map<String, long[]> counts) {
+		Map<String, Long> result = new TreeMap<>();
+		for (Entry<String, long[]> e : counts.entrySet())
+			result.put(e.getKey(), e.getValue()[0]);
+		return result;
 	}
 
-	public Map<PutativeImpact, Integer> getCountPutativeImpacts() {
-		return countPutativeImpacts;
+	public Map<PutativeImpact, Long> getCountPutativeImpacts() {
+		return toMap(PutativeImpact.class, PutativeImpact.values(), countPutativeImpacts);
 	}
 
-	public Map<VariantEffect, Integer> getCountVariantEffects() {
-		return countVariantEffects;
+	public Map<VariantEffect, Long> getCountVariantEffects() {
+		return toMap(VariantEffect.class, VariantEffect.values(), countVariantEffects);
 	}
 
-	public Map<GenomeRegion, Integer> getCountGenomeRegion() {
-		return countGenomeRegion;
+	public Map<GenomeRegion, Long> getCountGenomeRegion() {
+		return toMap(GenomeRegion.class, GenomeRegion.values(), countGenomeRegion);
 	}
 
-	public Map<TsTv, Integer> getTsTvCount() {
-		return tsTvCount;
+	public Map<TsTv, Long> getTsTvCount() {
+		return toMap(TsTv.class, TsTv.values(), tsTvCount);
 	}
 
-	public Map<Integer, Integer> getAltAlleleCountHist() {
-		return altAlleleCountHist;
+	public Map<Integer, Long> getAltAlleleCountHist() {
+		Map<Integer, Long> result = new TreeMap<>();
+		for (int i = 0; i < altAlleleCountHist.length; ++i)
+			if (altAlleleCountHist[i] != 0)
+				result.put(i, altAlleleCountHist[i]);
+		return result;
 	}
 
-	public Map<String, Integer> getFilterCount() {
-		return filterCount;
+	public Map<String, Long> getFilterCount() {
+		return toMap(filterCount);
 	}
 
-	public Map<Boolean, Integer> getIsFilteredCount() {
-		return isFilteredCount;
+	public Map<Boolean, Long> getIsFilteredCount() {
+		Map<Boolean, Long> result = new TreeMap<>();
+		if (isFilteredCount[0] != 0)
+			result.put(false, isFilteredCount[0]);
+		if (isFilteredCount[1] != 0)
+			result.put(true, isFilteredCount[1]);
+		return result;
 	}
 
-	public Map<String, Integer> getContigCount() {
-		return contigCount;
+	public Map<String, Long> getContigCount() {
+		return toMap(contigCount);
 	}
 
 }
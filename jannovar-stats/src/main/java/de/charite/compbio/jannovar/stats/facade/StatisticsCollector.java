@@ -1,12 +1,12 @@
 package de.charite.compbio.jannovar.stats.facade;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.SortedSet;
+import java.util.Map.Entry;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedSet;
@@ -21,10 +21,19 @@ import htsjdk.variant.variantcontext.VariantContext;
  * Facade class for collecting statistics from a {@link VariantContext} and a list of {@link VariantAnnotations}
  * objects.
  *
+ * Objects of this class are not thread-safe. For parallel collection, use one collector per thread and combine them
+ * with {@link #merge}.
+ *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
 public class StatisticsCollector {
 
+	/** Genome region for each {@link VariantEffect}, indexed by ordinal, <code>null</code> if not classified */
+	private static final GenomeRegion[] GENOME_REGIONS = buildGenomeRegions();
+
+	/** Bit mask of the {@link VariantEffect}s with a genome region in {@link #GENOME_REGIONS} */
+	private static final long GENOME_REGION_MASK = buildGenomeRegionMask();
+
 	/** Sample names */
 	ImmutableList<String> sampleNames;
 
@@ -54,95 +63,106 @@ public class StatisticsCollector {
 		// Counts for the variant regardless of genotype
 		//
 		// register per-variant counts
-		putAltAlleleCount(vc, null);
-		putFilter(vc, null);
-		putContig(vc, null);
+		final Statistics allStats = perSampleStats.get(null);
+		allStats.putAltAlleleCount(vc.getNAlleles() - 1);
+		putFilter(vc, allStats);
+		allStats.putContig(vc.getContig());
 		// register per-allele counts
 		if (alleleAnnotations != null)
 			for (int i = 1; i < vc.getNAlleles(); ++i) {
-				putPutativeImpact(vc, null, alleleAnnotations.get(i - 1));
-				putVariantEffect(vc, null, alleleAnnotations.get(i - 1));
-				putGenomeRegion(vc, null, alleleAnnotations.get(i - 1));
-				putTsTv(vc, null, i - 1);
+				putPutativeImpact(allStats, alleleAnnotations.get(i - 1));
+				putVariantEffect(allStats, alleleAnnotations.get(i - 1));
+				putGenomeRegion(allStats, alleleAnnotations.get(i - 1));
+				putTsTv(vc, allStats, i);
 			}
 
 		// Counts for the variants for each sample
-		Set<Integer> seen = new HashSet<>();
+		boolean[] seen = new boolean[vc.getNAlleles()];
 		for (String sampleName : sampleNames) {
-			seen.clear();
 			Genotype gt = vc.getGenotype(sampleName);
 			if (gt.isHomRef() || gt.isNoCall())
 				continue; // skip non-alternative genotypes
+			final Statistics stats = perSampleStats.get(sampleName);
 
 			// register per-variant counts
-			putContig(vc, sampleName);
-			putAltAlleleCount(vc, sampleName);
-			putFilter(vc, sampleName);
+			stats.putContig(vc.getContig());
+			putFilter(vc, stats);
 
-			// register per-allele counts
+			// register per-allele counts, ignore wild-type allele, count each variant allele only once
+			Arrays.fill(seen, false);
+			int altAlleleCount = 0;
 			for (Allele allele : gt.getAlleles()) {
 				final int aIdx = vc.getAlleleIndex(allele);
-				// ignore wild-type allele, count each variant allele only once
-				if (alleleAnnotations != null)
-					if (aIdx != 0 && !seen.contains(aIdx)) {
-						putPutativeImpact(vc, sampleName, alleleAnnotations.get(aIdx - 1));
-						putVariantEffect(vc, sampleName, alleleAnnotations.get(aIdx - 1));
-						putGenomeRegion(vc, sampleName, alleleAnnotations.get(aIdx - 1));
-						putTsTv(vc, sampleName, aIdx);
-					}
-				seen.add(aIdx);
+				if (aIdx <= 0 || seen[aIdx])
+					continue;
+				seen[aIdx] = true;
+				altAlleleCount += 1;
+				if (alleleAnnotations != null) {
+					putPutativeImpact(stats, alleleAnnotations.get(aIdx - 1));
+					putVariantEffect(stats, alleleAnnotations.get(aIdx - 1));
+					putGenomeRegion(stats, alleleAnnotations.get(aIdx - 1));
+					putTsTv(vc, stats, aIdx);
+				}
 			}
+			stats.putAltAlleleCount(altAlleleCount);
 		}
 	}
 
-	private void putContig(VariantContext vc, String sampleName) {
-		final Statistics stats = perSampleStats.get(sampleName);
-		if (sampleName == null) {
-			stats.putContig(vc.getContig());
-		} else {
-			final Genotype gt = vc.getGenotype(sampleName);
-			if (!gt.isHomRef() && !gt.isNoCall())
-				stats.putContig(vc.getContig());
-		}
-	}
-
-	private void putAltAlleleCount(VariantContext vc, String sampleName) {
-		final Statistics stats = perSampleStats.get(sampleName);
-		if (sampleName == null) {
-			stats.putAltAlleleCount(vc.getNAlleles() - 1);
-		} else {
-			final Genotype gt = vc.getGenotype(sampleName);
-			int count = 0;
-			Set<Integer> seen = new HashSet<>();
-			for (Allele a : gt.getAlleles()) {
-				final int idx = vc.getAlleleIndex(a);
-				if (!seen.contains(idx) && idx != 0)
-					count += 1;
-				seen.add(idx);
+	/**
+	 * Add the statistics from <code>other</code> to <code>this</code>
+	 *
+	 * Samples are matched by name, samples only present in <code>other</code> are appended to the sample list, such
+	 * that statistics from different VCF files can be combined.
+	 *
+	 * @param other
+	 *            {@link StatisticsCollector} to add
+	 */
+	public void merge(StatisticsCollector other) {
+		List<String> newNames = new ArrayList<>();
+		for (String name : other.sampleNames) {
+			if (!perSampleStats.containsKey(name)) {
+				perSampleStats.put(name, new Statistics());
+				newNames.add(name);
 			}
-			stats.putAltAlleleCount(count);
 		}
+		if (!newNames.isEmpty())
+			sampleNames = ImmutableList.<String>builder().addAll(sampleNames).addAll(newNames).build();
+
+		for (Entry<String, Statistics> e : other.perSampleStats.entrySet())
+			perSampleStats.get(e.getKey()).merge(e.getValue());
 	}
 
-	private void putFilter(VariantContext vc, String sampleName) {
-		final Statistics stats = perSampleStats.get(sampleName);
+	private void putFilter(VariantContext vc, Statistics stats) {
 		for (String ft : vc.getFilters())
 			stats.putFilter(ft);
 	}
 
-	private void putVariantEffect(VariantContext vc, String sampleName, VariantAnnotations alleleAnno) {
-		final Statistics stats = perSampleStats.get(sampleName);
+	private void putVariantEffect(Statistics stats, VariantAnnotations alleleAnno) {
 		if (alleleAnno != null && alleleAnno.getHighestImpactAnnotation() != null
 				&& alleleAnno.getHighestImpactAnnotation().getMostPathogenicVarType() != null)
 			stats.putVariantEffect(alleleAnno.getHighestImpactAnnotation().getMostPathogenicVarType());
 	}
 
-	private void putGenomeRegion(VariantContext vc, String sampleName, VariantAnnotations alleleAnno) {
-		final Statistics stats = perSampleStats.get(sampleName);
-		if (alleleAnno.getHighestImpactAnnotation() == null
-				|| alleleAnno.getHighestImpactAnnotation().getEffects() == null)
+	private void putGenomeRegion(Statistics stats, VariantAnnotations alleleAnno) {
+		if (alleleAnno.getHighestImpactAnnotation() == null)
 			return;
-		final SortedSet<VariantEffect> effects = alleleAnno.getHighestImpactAnnotation().getEffects();
+		// the region of the most pathogenic classified effect
+		final long mask = alleleAnno.getHighestImpactAnnotation().getEffectMask() & GENOME_REGION_MASK;
+		if (mask != 0)
+			stats.putGenomeRegion(GENOME_REGIONS[Long.numberOfTrailingZeros(mask)]);
+	}
+
+	/** @return bit mask of the {@link VariantEffect}s with a genome region in {@link #GENOME_REGIONS} */
+	private static long buildGenomeRegionMask() {
+		long result = 0;
+		for (VariantEffect effect : VariantEffect.values())
+			if (GENOME_REGIONS[effect.ordinal()] != null)
+				result |= effect.getMask();
+		return result;
+	}
+
+	/** @return genome region for each {@link VariantEffect}, indexed by ordinal */
+	private static GenomeRegion[] buildGenomeRegions() {
 		final ImmutableSortedSet<VariantEffect> codingEffects = ImmutableSortedSet.of(
 				VariantEffect.FRAMESHIFT_ELONGATION, VariantEffect.FRAMESHIFT_TRUNCATION,
 				VariantEffect.FRAMESHIFT_VARIANT, VariantEffect.INTERNAL_FEATURE_ELONGATION,
@@ -164,41 +184,28 @@ public class StatisticsCollector {
 				VariantEffect.FIVE_PRIME_UTR_PREMATURE_START_CODON_GAIN_VARIANT);
 		final ImmutableSortedSet<VariantEffect> utr3Effects = ImmutableSortedSet
 				.of(VariantEffect.THREE_PRIME_UTR_EXON_VARIANT, VariantEffect.THREE_PRIME_UTR_TRUNCATION);
-		final ImmutableSortedSet<VariantEffect> upstreamEffects = ImmutableSortedSet
-				.of(VariantEffect.UPSTREAM_GENE_VARIANT);
-		final ImmutableSortedSet<VariantEffect> downstreamEffects = ImmutableSortedSet
-				.of(VariantEffect.DOWNSTREAM_GENE_VARIANT);
-		final ImmutableSortedSet<VariantEffect> intergenicEffects = ImmutableSortedSet
-				.of(VariantEffect.INTERGENIC_VARIANT);
 
-		for (VariantEffect effect : effects) {
-			if (codingEffects.contains(effect)) {
-				stats.putGenomeRegion(GenomeRegion.EXONIC);
-				break;
-			} else if (intronicEffects.contains(effect)) {
-				stats.putGenomeRegion(GenomeRegion.INTRONIC);
-				break;
-			} else if (utr5Effects.contains(effect)) {
-				stats.putGenomeRegion(GenomeRegion.UTR5);
-				break;
-			} else if (utr3Effects.contains(effect)) {
-				stats.putGenomeRegion(GenomeRegion.UTR3);
-				break;
-			} else if (upstreamEffects.contains(effect)) {
-				stats.putGenomeRegion(GenomeRegion.UPSTREAM);
-				break;
-			} else if (downstreamEffects.contains(effect)) {
-				stats.putGenomeRegion(GenomeRegion.DOWNSTREAM);
-				break;
-			} else if (intergenicEffects.contains(effect)) {
-				stats.putGenomeRegion(GenomeRegion.INTERGENIC);
-				break;
-			}
+		GenomeRegion[] result = new GenomeRegion[VariantEffect.values().length];
+		for (VariantEffect effect : VariantEffect.values()) {
+			if (codingEffects.contains(effect))
+				result[effect.ordinal()] = GenomeRegion.EXONIC;
+			else if (intronicEffects.contains(effect))
+				result[effect.ordinal()] = GenomeRegion.INTRONIC;
+			else if (utr5Effects.contains(effect))
+				result[effect.ordinal()] = GenomeRegion.UTR5;
+			else if (utr3Effects.contains(effect))
+				result[effect.ordinal()] = GenomeRegion.UTR3;
+			else if (effect == VariantEffect.UPSTREAM_GENE_VARIANT)
+				result[effect.ordinal()] = GenomeRegion.UPSTREAM;
+			else if (effect == VariantEffect.DOWNSTREAM_GENE_VARIANT)
+				result[effect.ordinal()] = GenomeRegion.DOWNSTREAM;
+			else if (effect == VariantEffect.INTERGENIC_VARIANT)
+				result[effect.ordinal()] = GenomeRegion.INTERGENIC;
 		}
+		return result;
 	}
 
-	private void putTsTv(VariantContext vc, String sampleName, int alleleIdx) {
-		final Statistics stats = perSampleStats.get(sampleName);
+	private void putTsTv(VariantContext vc, Statistics stats, int alleleIdx) {
 		final Allele ref = vc.getReference();
 		final Allele alt = vc.getAlleles().get(alleleIdx);
 		// Consider ts/tv if it is a SNV
@@ -240,8 +247,7 @@ public class StatisticsCollector {
 		}
 	}
 
-	private void putPutativeImpact(VariantContext vc, String sampleName, VariantAnnotations alleleAnno) {
-		final Statistics stats = perSampleStats.get(sampleName);
+	private void putPutativeImpact(Statistics stats, VariantAnnotations alleleAnno) {
 		if (alleleAnno != null && alleleAnno.getHighestImpactAnnotation() != null
 				&& alleleAnno.getHighestImpactAnnotation().getPutativeImpact() != null)
 			stats.putPutativeImpact(alleleAnno.getHighestImpactAnnotation().getPutativeImpact());
@@ -0,0 +1,127 @@
+package de.charite.compbio.jannovar.stats.facade;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.charite.compbio.jannovar.annotation.PutativeImpact;
+import de.charite.compbio.jannovar.annotation.VariantEffect;
+
+/**
+ * Implementation of reading statistics from a file written by {@link StatisticsWriter}
+ *
+ * The report files contain all counts, such that reports from different VCF files (or from parts of the same VCF
+ * file) can be read and combined with {@link StatisticsCollector#merge}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class StatisticsReader {
+
+	/** Path to the report file */
+	private final File path;
+
+	public StatisticsReader(File path) {
+		this.path = path;
+	}
+
+	/**
+	 * Read statistics from the report file
+	 *
+	 * @return {@link StatisticsCollector} with the statistics from the file
+	 * @throws IOException
+	 *             on problems with reading the file or if the file is not a valid statistics report
+	 */
+	public StatisticsCollector read() throws IOException {
+		StatisticsCollector result = null;
+		List<Statistics> columns = null;
+		String section = null;
+		boolean expectHeader = false;
+
+		try (BufferedReader reader = Files.newBufferedReader(path.toPath(), StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty() || line.startsWith("#"))
+					continue;
+				if (line.startsWith("[") && line.endsWith("]")) {
+					section = line.substring(1, line.length() - 1);
+					expectHeader = true;
+					continue;
+				}
+				if (section == null)
+					throw new IOException("Data line outside of section in " + path + ": " + line);
+
+				final String[] arr = line.split("\t", -1);
+				if (expectHeader) {
+					expectHeader = false;
+					if (arr.length < 2 || !"ALL".equals(arr[1]))
+						throw new IOException("Invalid section header in " + path + ": " + line);
+					final List<String> names = Arrays.asList(arr).subList(2, arr.length);
+					if (result == null) {
+						result = new StatisticsCollector(names);
+						columns = new ArrayList<>();
+						columns.add(result.getPerSampleStats().get(null));
+						for (String name : names)
+							columns.add(result.getPerSampleStats().get(name));
+					} else if (!names.equals(result.getSampleNames())) {
+						throw new IOException("Inconsistent sample names in " + path + ": " + line);
+					}
+					continue;
+				}
+
+				if (arr.length != columns.size() + 1)
+					throw new IOException("Unexpected number of columns in " + path + ": " + line);
+				try {
+					for (int i = 0; i < columns.size(); ++i) {
+						final long count = Long.parseLong(arr[i + 1]);
+						if (count != 0)
+							putCount(columns.get(i), section, arr[0], count);
+					}
+				} catch (IllegalArgumentException e) {
+					throw new IOException("Invalid line in " + path + ": " + line, e);
+				}
+			}
+		}
+
+		if (result == null)
+			throw new IOException("No statistics found in " + path);
+		return result;
+	}
+
+	/** Register <code>count</code> for <code>key</code> in the given <code>section</code> */
+	private void putCount(Statistics stats, String section, String key, long count) throws IOException {
+		switch (section) {
+		case "putative_impacts":
+			stats.putPutativeImpact(PutativeImpact.valueOf(key), count);
+			break;
+		case "variant_effects":
+			stats.putVariantEffect(VariantEffect.valueOf(key), count);
+			break;
+		case "genome_regions":
+			stats.putGenomeRegion(GenomeRegion.valueOf(key), count);
+			break;
+		case "ts_tv_count":
+			stats.putTsTv(TsTv.valueOf(key), count);
+			break;
+		case "alt_allele_count":
+			stats.putAltAlleleCount(Integer.parseInt(key), count);
+			break;
+		case "filter_count":
+			stats.putFilterValue(key, count);
+			break;
+		case "is_filtered_count":
+			stats.putIsFiltered("FILTER".equals(key), count);
+			break;
+		case "contig_counts":
+			stats.putContig(key, count);
+			break;
+		default:
+			throw new IOException("Unknown section [" + section + "] in " + path);
+		}
+	}
+
+}
@@ -2,6 +2,7 @@ package de.charite.compbio.jannovar.stats.facade;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.TreeSet;
@@ -59,12 +60,12 @@ public class StatisticsWriter implements AutoCloseable {
 		for (VariantEffect effect : keys) {
 			ArrayList<String> arr = new ArrayList<>();
 			arr.add(effect.toString());
-			arr.add(Integer.toString(
-					statsCollector.getPerSampleStats().get(null).getCountVariantEffects().getOrDefault(effect, 0)));
+			arr.add(Long.toString(
+					statsCollector.getPerSampleStats().get(null).getCountVariantEffects().getOrDefault(effect, 0L)));
 
 			for (String name : statsCollector.getSampleNames()) {
-				arr.add(Integer.toString(
-						statsCollector.getPerSampleStats().get(name).getCountVariantEffects().getOrDefault(effect, 0)));
+				arr.add(Long.toString(
+						statsCollector.getPerSampleStats().get(name).getCountVariantEffects().getOrDefault(effect, 0L)));
 			}
 			writer.println(Joiner.on('\t').join(arr));
 		}
@@ -82,12 +83,12 @@ public class StatisticsWriter implements AutoCloseable {
 		for (GenomeRegion region : keys) {
 			ArrayList<String> arr = new ArrayList<>();
 			arr.add(region.toString());
-			arr.add(Integer.toString(
-					statsCollector.getPerSampleStats().get(null).getCountGenomeRegion().getOrDefault(region, 0)));
+			arr.add(Long.toString(
+					statsCollector.getPerSampleStats().get(null).getCountGenomeRegion().getOrDefault(region, 0L)));
 
 			for (String name : statsCollector.getSampleNames()) {
-				arr.add(Integer.toString(
-						statsCollector.getPerSampleStats().get(name).getCountGenomeRegion().getOrDefault(region, 0)));
+				arr.add(Long.toString(
+						statsCollector.getPerSampleStats().get(name).getCountGenomeRegion().getOrDefault(region, 0L)));
 			}
 			writer.println(Joiner.on('\t').join(arr));
 		}
@@ -101,12 +102,12 @@ public class StatisticsWriter implements AutoCloseable {
 		for (TsTv tsTv : TsTv.values()) {
 			ArrayList<String> arr = new ArrayList<>();
 			arr.add(tsTv.toString());
-			arr.add(Integer
-					.toString(statsCollector.getPerSampleStats().get(null).getTsTvCount().getOrDefault(tsTv, 0)));
+			arr.add(Long
+					.toString(statsCollector.getPerSampleStats().get(null).getTsTvCount().getOrDefault(tsTv, 0L)));
 
 			for (String name : statsCollector.getSampleNames()) {
-				arr.add(Integer
-						.toString(statsCollector.getPerSampleStats().get(name).getTsTvCount().getOrDefault(tsTv, 0)));
+				arr.add(Long
+						.toString(statsCollector.getPerSampleStats().get(name).getTsTvCount().getOrDefault(tsTv, 0L)));
 			}
 			writer.println(Joiner.on('\t').join(arr));
 		}
@@ -123,12 +124,12 @@ public class StatisticsWriter implements AutoCloseable {
 		for (Integer count : keys) {
 			ArrayList<String> arr = new ArrayList<>();
 			arr.add(count.toString());
-			arr.add(Integer.toString(
-					statsCollector.getPerSampleStats().get(null).getAltAlleleCountHist().getOrDefault(count, 0)));
+			arr.add(Long.toString(
+					statsCollector.getPerSampleStats().get(null).getAltAlleleCountHist().getOrDefault(count, 0L)));
 
 			for (String name : statsCollector.getSampleNames()) {
-				arr.add(Integer.toString(
-						statsCollector.getPerSampleStats().get(name).getAltAlleleCountHist().getOrDefault(count, 0)));
+				arr.add(Long.toString(
+						statsCollector.getPerSampleStats().get(name).getAltAlleleCountHist().getOrDefault(count, 0L)));
 			}
 			writer.println(Joiner.on('\t').join(arr));
 		}
@@ -145,12 +146,12 @@ public class StatisticsWriter implements AutoCloseable {
 		for (String filter : keys) {
 			ArrayList<String> arr = new ArrayList<>();
 			arr.add(filter);
-			arr.add(Integer
-					.toString(statsCollector.getPerSampleStats().get(null).getFilterCount().getOrDefault(filter, 0)));
+			arr.add(Long
+					.toString(statsCollector.getPerSampleStats().get(null).getFilterCount().getOrDefault(filter, 0L)));
 
 			for (String name : statsCollector.getSampleNames()) {
-				arr.add(Integer.toString(
-						statsCollector.getPerSampleStats().get(name).getFilterCount().getOrDefault(filter, 0)));
+				arr.add(Long.toString(
+						statsCollector.getPerSampleStats().get(name).getFilterCount().getOrDefault(filter, 0L)));
 			}
 			writer.println(Joiner.on('\t').join(arr));
 		}
@@ -167,12 +168,12 @@ public class StatisticsWriter implements AutoCloseable {
 				arr.add("FILTER");
 			else
 				arr.add("PASS");
-			arr.add(Integer.toString(
-					statsCollector.getPerSampleStats().get(null).getIsFilteredCount().getOrDefault(isFiltered, 0)));
+			arr.add(Long.toString(
+					statsCollector.getPerSampleStats().get(null).getIsFilteredCount().getOrDefault(isFiltered, 0L)));
 
 			for (String name : statsCollector.getSampleNames()) {
-				arr.add(Integer.toString(
-						statsCollector.getPerSampleStats().get(name).getIsFilteredCount().getOrDefault(isFiltered, 0)));
+				arr.add(Long.toString(
+						statsCollector.getPerSampleStats().get(name).getIsFilteredCount().getOrDefault(isFiltered, 0L)));
 			}
 			writer.println(Joiner.on('\t').join(arr));
 		}
@@ -190,12 +191,12 @@ public class StatisticsWriter implements AutoCloseable {
 		for (PutativeImpact impact : keys) {
 			ArrayList<String> arr = new ArrayList<>();
 			arr.add(impact.toString());
-			arr.add(Integer.toString(
-					statsCollector.getPerSampleStats().get(null).getCountPutativeImpacts().getOrDefault(impact, 0)));
+			arr.add(Long.toString(
+					statsCollector.getPerSampleStats().get(null).getCountPutativeImpacts().getOrDefault(impact, 0L)));
 
 			for (String name : statsCollector.getSampleNames()) {
-				arr.add(Integer.toString(statsCollector.getPerSampleStats().get(name).getCountPutativeImpacts()
-						.getOrDefault(impact, 0)));
+				arr.add(Long.toString(statsCollector.getPerSampleStats().get(name).getCountPutativeImpacts()
+						.getOrDefault(impact, 0L)));
 			}
 			writer.println(Joiner.on('\t').join(arr));
 		}
@@ -213,12 +214,12 @@ public class StatisticsWriter implements AutoCloseable {
 		for (String	contig : contigs) {
 			ArrayList<String> arr = new ArrayList<>();
 			arr.add(contig);
-			arr.add(Integer.toString(
-					statsCollector.getPerSampleStats().get(null).getContigCount().getOrDefault(contig, 0)));
+			arr.add(Long.toString(
+					statsCollector.getPerSampleStats().get(null).getContigCount().getOrDefault(contig, 0L)));
 
 			for (String name : statsCollector.getSampleNames())
-				arr.add(Integer.toString(
-						statsCollector.getPerSampleStats().get(name).getContigCount().getOrDefault(contig, 0)));
+				arr.add(Long.toString(
+						statsCollector.getPerSampleStats().get(name).getContigCount().getOrDefault(contig, 0L)));
 			writer.println(Joiner.on('\t').join(arr));
 		}
 	}
@@ -228,9 +229,17 @@ public class StatisticsWriter implements AutoCloseable {
 		writer.println("# Jannovar version: " + getVersion());
 	}
 
+	/**
+	 * Close the output file
+	 *
+	 * @throws IOException
+	 *             if there was a problem writing to the file
+	 */
 	@Override
-	public void close() throws Exception {
+	public void close() throws IOException {
 		this.writer.close();
+		if (this.writer.checkError())
+			throw new IOException("Problem writing statistics report");
 	}
 
 	private static String getVersion() {
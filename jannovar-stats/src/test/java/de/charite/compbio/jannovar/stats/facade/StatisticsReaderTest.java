@@ -0,0 +1,99 @@
+package de.charite.compbio.jannovar.stats.facade;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.annotation.PutativeImpact;
+import de.charite.compbio.jannovar.annotation.VariantEffect;
+
+public class StatisticsReaderTest {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	/** Fill <code>stats</code> with some counts, scaled by <code>factor</code> */
+	private static void fill(Statistics stats, long factor) {
+		stats.putPutativeImpact(PutativeImpact.HIGH, 2 * factor);
+		stats.putVariantEffect(VariantEffect.STOP_GAINED, 2 * factor);
+		stats.putVariantEffect(VariantEffect.MISSENSE_VARIANT, factor);
+		stats.putGenomeRegion(GenomeRegion.EXONIC, 3 * factor);
+		stats.putTsTv(TsTv.TS, 5 * factor);
+		stats.putAltAlleleCount(1, 4 * factor);
+		stats.putAltAlleleCount(7, factor);
+		stats.putIsFiltered(false, 4 * factor);
+		stats.putIsFiltered(true, factor);
+		stats.putFilterValue("LowQual", factor);
+		stats.putContig("chr1", 5 * factor);
+	}
+
+	private StatisticsCollector writeAndRead(StatisticsCollector collector) throws IOException {
+		File file = tmpFolder.newFile("report.txt");
+		try (StatisticsWriter writer = new StatisticsWriter(collector, file)) {
+			writer.writeStatistics();
+		}
+		StatisticsCollector result = new StatisticsReader(file).read();
+		file.delete();
+		return result;
+	}
+
+	private static void assertStatsEquals(Statistics expected, Statistics actual) {
+		Assert.assertEquals(expected.getCountPutativeImpacts(), actual.getCountPutativeImpacts());
+		Assert.assertEquals(expected.getCountVariantEffects(), actual.getCountVariantEffects());
+		Assert.assertEquals(expected.getCountGenomeRegion(), actual.getCountGenomeRegion());
+		Assert.assertEquals(expected.getTsTvCount(), actual.getTsTvCount());
+		Assert.assertEquals(expected.getAltAlleleCountHist(), actual.getAltAlleleCountHist());
+		Assert.assertEquals(expected.getIsFilteredCount(), actual.getIsFilteredCount());
+		Assert.assertEquals(expected.getFilterCount(), actual.getFilterCount());
+		Assert.assertEquals(expected.getContigCount(), actual.getContigCount());
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		StatisticsCollector collector = new StatisticsCollector(ImmutableList.of("S1", "S2"));
+		fill(collector.getPerSampleStats().get(null), 2);
+		fill(collector.getPerSampleStats().get("S1"), 1);
+
+		StatisticsCollector read = writeAndRead(collector);
+
+		Assert.assertEquals(ImmutableList.of("S1", "S2"), read.getSampleNames());
+		for (String name : new String[] { null, "S1", "S2" })
+			assertStatsEquals(collector.getPerSampleStats().get(name), read.getPerSampleStats().get(name));
+	}
+
+	@Test
+	public void testMergeRead() throws Exception {
+		StatisticsCollector first = new StatisticsCollector(ImmutableList.of("S1"));
+		fill(first.getPerSampleStats().get(null), 1);
+		fill(first.getPerSampleStats().get("S1"), 1);
+		StatisticsCollector second = new StatisticsCollector(ImmutableList.of("S2"));
+		fill(second.getPerSampleStats().get(null), 2);
+		fill(second.getPerSampleStats().get("S2"), 2);
+
+		StatisticsCollector merged = writeAndRead(first);
+		merged.merge(writeAndRead(second));
+
+		Statistics expected = new Statistics();
+		fill(expected, 3);
+		Assert.assertEquals(ImmutableList.of("S1", "S2"), merged.getSampleNames());
+		assertStatsEquals(expected, merged.getPerSampleStats().get(null));
+		assertStatsEquals(first.getPerSampleStats().get("S1"), merged.getPerSampleStats().get("S1"));
+		assertStatsEquals(second.getPerSampleStats().get("S2"), merged.getPerSampleStats().get("S2"));
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidFile() throws Exception {
+		File file = tmpFolder.newFile("invalid.txt");
+		Files.write(file.toPath(), "[putative_impacts]\nHIGH\t1\n".getBytes(StandardCharsets.UTF_8));
+		new StatisticsReader(file).read();
+	}
+
+}
@@ -1,10 +1,16 @@
 package de.charite.compbio.jannovar.vardbs.base;
 
+import de.charite.compbio.jannovar.vardbs.record_store.RecordSerializer;
+import de.charite.compbio.jannovar.vardbs.record_store.RecordStore;
+import de.charite.compbio.jannovar.vardbs.record_store.RecordStoreReader;
+import de.charite.compbio.jannovar.vardbs.record_store.StoredVariant;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.variant.variantcontext.VariantContext;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Abstract base class for annotation based on VCF files.
@@ -13,8 +19,10 @@ import java.util.List;
  */
 public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnotationDriver {
 
-	/** Path to dbSNP VCF file */
+	/** Path to dbSNP VCF file, <code>null</code> when using {@link #recordStore} */
 	protected final DatabaseVariantContextProvider variantProvider;
+	/** Pre-converted record store to use instead of {@link #variantProvider}, if any */
+	protected final RecordStoreReader<RecordType> recordStore;
 	/** Helper objects for matching alleles */
 	protected final AlleleMatcher matcher;
 	/** Helper for converting from VariantContex to DBSNP record */
@@ -41,13 +49,90 @@ public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnota
 			DBAnnotationOptions options, VariantContextToRecordConverter<RecordType> vcToRecord)
 			throws JannovarVarDBException {
 		this.variantProvider = variantProvider;
+		this.recordStore = null;
 		this.matcher = new AlleleMatcher(fastaPath);
 		this.vcToRecord = vcToRecord;
 		this.options = options;
 	}
 
+	/**
+	 * Create annotation driver for a coordinate-sorted, bgzip-compressed, VCF file
+	 * 
+	 * The VCF file is loaded into an {@link InMemoryVariantDatabase} if configured in
+	 * <code>options</code> and queried through its tabix index otherwise.
+	 * 
+	 * @param vcfPath
+	 *            Path to VCF file
+	 * @param fastaPath
+	 *            Path to reference FASTA file
+	 * @param options
+	 *            configuration
+	 * @param vcToRecord
+	 *            converter from {@link VariantContext} to record type
+	 * @throws JannovarVarDBException
+	 *             on problems loading the reference FASTA/FAI file or the VCF file
+	 */
+	public AbstractDBAnnotationDriver(String vcfPath, String fastaPath, DBAnnotationOptions options,
+			VariantContextToRecordConverter<RecordType> vcToRecord) throws JannovarVarDBException {
+		this.matcher = new AlleleMatcher(fastaPath);
+		this.variantProvider = buildVCFProvider(vcfPath, options);
+		this.recordStore = null;
+		this.vcToRecord = vcToRecord;
+		this.options = options;
+	}
+
+	/**
+	 * Create annotation driver for either a coordinate-sorted, bgzip-compressed, VCF file or a record
+	 * store converted from such a file (see {@link RecordStore})
+	 * 
+	 * @param dbPath
+	 *            Path to VCF file or record store (ending in {@link RecordStore#FILE_SUFFIX})
+	 * @param fastaPath
+	 *            Path to reference FASTA file
+	 * @param options
+	 *            configuration
+	 * @param serializer
+	 *            converter from {@link VariantContext} to record type, also used for reading
+	 *            records from a record store
+	 * @throws JannovarVarDBException
+	 *             on problems loading the reference FASTA/FAI file or the record store
+	 */
+	public AbstractDBAnnotationDriver(String dbPath, String fastaPath, DBAnnotationOptions options,
+			RecordSerializer<RecordType> serializer) throws JannovarVarDBException {
+		this.matcher = new AlleleMatcher(fastaPath);
+		if (RecordStore.isRecordStore(dbPath)) {
+			this.variantProvider = null;
+			this.recordStore = new RecordStoreReader<>(new File(dbPath), serializer);
+		} else {
+			this.variantProvider = buildVCFProvider(dbPath, options);
+			this.recordStore = null;
+		}
+		this.vcToRecord = serializer;
+		this.options = options;
+	}
+
+	/** @return {@link InMemoryVariantDatabase} or {@link VCFReaderVariantProvider}, depending on options */
+	private DatabaseVariantContextProvider buildVCFProvider(String vcfPath, DBAnnotationOptions options)
+			throws JannovarVarDBException {
+		if (options.isInMemory())
+			return new InMemoryVariantDatabase(vcfPath, matcher);
+		else
+			return new VCFReaderVariantProvider(vcfPath);
+	}
+
+	@Override
+	public void close() {
+		if (variantProvider != null)
+			variantProvider.close();
+	}
+
 	@Override
 	public VariantContext annotateVariantContext(VariantContext obsVC) {
+		if (recordStore != null)
+			return annotateFromRecordStore(obsVC);
+		else if (variantProvider instanceof InMemoryVariantDatabase)
+			return annotateFromInMemoryDatabase(obsVC, (InMemoryVariantDatabase) variantProvider);
+
 		try (CloseableIterator<VariantContext> iter = variantProvider.query(obsVC.getContig(), obsVC.getStart() - 1,
 				obsVC.getEnd())) {
 			// Fetch all overlapping and matching genotypes from database and pair them with the
@@ -62,24 +147,93 @@ public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnota
 					positionOverlaps.addAll(matcher.positionOverlaps(obsVC, dbVC));
 			}
 
-			// Pick best record for each alternative allele
-			HashMap<Integer, AnnotatingRecord<RecordType>> dbRecordsMatch = buildAnnotatingDBRecordsWrapper(
-					genotypeMatches, true);
-			HashMap<Integer, AnnotatingRecord<RecordType>> dbRecordsOverlap = buildAnnotatingDBRecordsWrapper(
-					positionOverlaps, false);
-			HashMap<Integer, AnnotatingRecord<RecordType>> emptyMap = new HashMap<>();
-
-			// Use these records to annotate the variant call in obsVC (record-wise but also per
-			// alternative allele)
-			if (options.isReportOverlappingAsMatching())
-				return annotateWithDBRecords(obsVC, dbRecordsOverlap, emptyMap);
-			else if (options.isReportOverlapping())
-				return annotateWithDBRecords(obsVC, dbRecordsMatch, dbRecordsOverlap);
-			else
-				return annotateWithDBRecords(obsVC, dbRecordsMatch, emptyMap);
+			return annotateWithMatches(obsVC, genotypeMatches, positionOverlaps,
+					match -> vcToRecord.convert(match.getDBVC()));
 		}
 	}
 
+	/**
+	 * Annotate using an {@link InMemoryVariantDatabase}, with the same results as for the tabix-indexed VCF file
+	 */
+	private VariantContext annotateFromInMemoryDatabase(VariantContext obsVC, InMemoryVariantDatabase db) {
+		final List<VariantDescription> obsVars = matcher.normalizeAlleles(obsVC);
+		final int beginPos = obsVC.getStart() - 1;
+		final int endPos = obsVC.getEnd();
+
+		List<GenotypeMatch> genotypeMatches = new ArrayList<>();
+		List<GenotypeMatch> positionOverlaps = new ArrayList<>();
+		if (!options.isReportOverlappingAsMatching()) // unnecessary in this case
+			genotypeMatches = db.matchGenotypes(obsVC, obsVars, beginPos, endPos);
+		if (options.isReportOverlapping() || options.isReportOverlappingAsMatching())
+			positionOverlaps = db.positionOverlaps(obsVC, obsVars, beginPos, endPos);
+
+		return annotateWithMatches(obsVC, genotypeMatches, positionOverlaps,
+				match -> vcToRecord.convert(match.getDBVC()));
+	}
+
+	/**
+	 * Annotate using {@link #recordStore}
+	 * 
+	 * The matching is the same as in {@link AlleleMatcher} but uses the pre-normalized database
+	 * alleles. Records are only decoded for matching or overlapping alleles.
+	 */
+	private VariantContext annotateFromRecordStore(VariantContext obsVC) {
+		final String contig = obsVC.getContig();
+		final List<VariantDescription> obsVars = matcher.normalizeAlleles(obsVC);
+
+		List<GenotypeMatch> genotypeMatches = new ArrayList<>();
+		List<GenotypeMatch> positionOverlaps = new ArrayList<>();
+		HashMap<Long, StoredVariant> variants = new HashMap<>();
+		for (StoredVariant dbVar : recordStore.query(contig, obsVC.getStart() - 1, obsVC.getEnd())) {
+			int i = 1; // excludes reference allele
+			for (VariantDescription obsVar : obsVars) {
+				final int obsHash = obsVar.hashCode();
+				for (int j = 0; j < dbVar.getNumAlleles(); ++j) {
+					final boolean isEqual = (dbVar.getHash(j) == obsHash
+							&& recordStore.getAllele(dbVar, contig, j).equals(obsVar));
+					// same as VariantDescription.overlapsWith()
+					final boolean isOverlap = (obsVar.getPos() < dbVar.getEnd(j) && dbVar.getPos(j) < dbVar.getEnd(j));
+					if (isEqual && !options.isReportOverlappingAsMatching())
+						genotypeMatches.add(new GenotypeMatch(i, j + 1, obsVC, dbVar.getOffset(), true));
+					if ((isEqual || isOverlap)
+							&& (options.isReportOverlapping() || options.isReportOverlappingAsMatching()))
+						positionOverlaps.add(new GenotypeMatch(i, j + 1, obsVC, dbVar.getOffset(), isEqual));
+					if (isEqual || isOverlap)
+						variants.put(dbVar.getOffset(), dbVar);
+				}
+				i += 1;
+			}
+		}
+
+		// Decode each matching record only once
+		HashMap<Long, RecordType> records = new HashMap<>();
+		return annotateWithMatches(obsVC, genotypeMatches, positionOverlaps,
+				match -> records.computeIfAbsent(match.getDBRecordOffset(),
+						offset -> recordStore.getRecord(variants.get(offset), contig)));
+	}
+
+	/**
+	 * Pick best records for the matches and overlaps and annotate <code>obsVC</code> with them
+	 */
+	private VariantContext annotateWithMatches(VariantContext obsVC, List<GenotypeMatch> genotypeMatches,
+			List<GenotypeMatch> positionOverlaps, Function<GenotypeMatch, RecordType> toRecord) {
+		// Pick best record for each alternative allele
+		HashMap<Integer, AnnotatingRecord<RecordType>> dbRecordsMatch = buildAnnotatingDBRecordsWrapper(
+				genotypeMatches, true, toRecord);
+		HashMap<Integer, AnnotatingRecord<RecordType>> dbRecordsOverlap = buildAnnotatingDBRecordsWrapper(
+				positionOverlaps, false, toRecord);
+		HashMap<Integer, AnnotatingRecord<RecordType>> emptyMap = new HashMap<>();
+
+		// Use these records to annotate the variant call in obsVC (record-wise but also per
+		// alternative allele)
+		if (options.isReportOverlappingAsMatching())
+			return annotateWithDBRecords(obsVC, dbRecordsOverlap, emptyMap);
+		else if (options.isReportOverlapping())
+			return annotateWithDBRecords(obsVC, dbRecordsMatch, dbRecordsOverlap);
+		else
+			return annotateWithDBRecords(obsVC, dbRecordsMatch, emptyMap);
+	}
+
 	/**
 	 * Build mapping from alternative allele number to db VCF record to use
 	 * 
@@ -93,11 +247,13 @@ public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnota
 	 * @param isMatch
 	 *            whether or not to consider true matching alleles (<code>true</code>) or only
 	 *            position-based overlaps (<code>false</code>)
+	 * @param toRecord
+	 *            conversion from match to the database record
 	 * @return Resulting map from alternative observed allele ID (starting with 1) to the database
 	 *         record to use
 	 */
 	private HashMap<Integer, AnnotatingRecord<RecordType>> buildAnnotatingDBRecordsWrapper(
-			List<GenotypeMatch> genotypeMatches, boolean isMatch) {
+			List<GenotypeMatch> genotypeMatches, boolean isMatch, Function<GenotypeMatch, RecordType> toRecord) {
 		// Collect annotating variants for each allele
 		HashMap<Integer, ArrayList<GenotypeMatch>> annotatingRecords = new HashMap<>();
 		HashMap<GenotypeMatch, AnnotatingRecord<RecordType>> matchToRecord = new HashMap<>();
@@ -107,7 +263,7 @@ public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnota
 			annotatingRecords.get(alleleNo).add(match);
 			if (!matchToRecord.containsKey(match))
 				matchToRecord.put(match,
-						new AnnotatingRecord<RecordType>(vcToRecord.convert(match.getDBVC()), match.getDbAllele()));
+						new AnnotatingRecord<RecordType>(toRecord.apply(match), match.getDbAllele()));
 		}
 
 		return pickAnnotatingDBRecords(annotatingRecords, matchToRecord, isMatch);
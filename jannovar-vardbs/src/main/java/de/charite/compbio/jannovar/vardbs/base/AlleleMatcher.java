@@ -102,6 +102,22 @@ public final class AlleleMatcher {
 		return result;
 	}
 
+	/**
+	 * Convert a {@link VariantContext} to a list of normalized variant descriptions
+	 *
+	 * This will generate one {@link VariantDescription} for each alternative allele in
+	 * <code>vcf</code>, as used for matching in {@link #matchGenotypes} and
+	 * {@link #positionOverlaps}.
+	 *
+	 * @param vc
+	 *            {@link VariantContext} to convert
+	 * @return A {@link List} of {@link VariantDescription} objects corresponding to
+	 *         <code>vc</code>
+	 */
+	public List<VariantDescription> normalizeAlleles(VariantContext vc) {
+		return ctxToVariants(vc);
+	}
+
 	/**
 	 * Convert a {@link VariantContext} to a list of normalized variant descriptions
 	 *
@@ -110,10 +126,10 @@ public final class AlleleMatcher {
 	 *
 	 * @param vc
 	 *            {@link VariantContext} to convert
-	 * @return A {@link Collection} of {@link VariantDescription} objects corresponding to
+	 * @return A {@link List} of {@link VariantDescription} objects corresponding to
 	 *         <code>vc</code>
 	 */
-	private Collection<VariantDescription> ctxToVariants(VariantContext vc) {
+	private List<VariantDescription> ctxToVariants(VariantContext vc) {
 		// Short-circuit in the case that we see a "database only" allele, e.g., as created when
 		// using generic TSV annotation without REF/ALT columns. In this case, the position is
 		// enough.
@@ -1,13 +1,14 @@
 package de.charite.compbio.jannovar.vardbs.base;
 
 import htsjdk.variant.variantcontext.VariantContext;
+import java.io.Closeable;
 
 /**
  * Interface for annotation drivers by variant databases.
  * 
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
-public interface DBAnnotationDriver {
+public interface DBAnnotationDriver extends Closeable {
 
 	/**
 	 * @return The {@link VCFHeaderExtender} to use.
@@ -26,4 +27,11 @@ public interface DBAnnotationDriver {
 	 */
 	public VariantContext annotateVariantContext(VariantContext vc);
 
+	/**
+	 * Release the files opened for annotation, does nothing for drivers that do not hold any open files.
+	 */
+	@Override
+	default void close() {
+	}
+
 }
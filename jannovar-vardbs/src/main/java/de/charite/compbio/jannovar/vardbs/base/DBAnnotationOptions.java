@@ -33,6 +33,11 @@ public class DBAnnotationOptions {
 	private String identifierPrefix;
 	/** Behaviour on multiple matching annotations */
 	private MultipleMatchBehaviour multiMatchBehaviour;
+	/**
+	 * Whether or not to load the whole database VCF file into memory at construction instead of
+	 * performing one tabix query per variant (default: false)
+	 */
+	private boolean inMemory = false;
 
 	public DBAnnotationOptions(boolean reportOverlapping, boolean reportOverlappingAsIdentical,
 			String identifierPrefix, MultipleMatchBehaviour multiMatchBehaviour) {
@@ -81,12 +86,20 @@ public class DBAnnotationOptions {
 		return identifierPrefix;
 	}
 
+	public boolean isInMemory() {
+		return inMemory;
+	}
+
+	public void setInMemory(boolean inMemory) {
+		this.inMemory = inMemory;
+	}
+
 	@Override
 	public String toString() {
 		return "DBAnnotationOptions [reportOverlapping=" + reportOverlapping
 				+ ", reportOverlappingAsMatching=" + reportOverlappingAsMatching
 				+ ", identifierPrefix=" + identifierPrefix + ", multiMatchBehaviour="
-				+ multiMatchBehaviour + "]";
+				+ multiMatchBehaviour + ", inMemory=" + inMemory + "]";
 	}
 
 }
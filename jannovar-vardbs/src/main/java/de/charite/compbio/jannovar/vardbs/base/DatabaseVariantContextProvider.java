@@ -2,6 +2,7 @@ package de.charite.compbio.jannovar.vardbs.base;
 
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.variant.variantcontext.VariantContext;
+import java.io.Closeable;
 
 /**
  * Allow to query database with contig, (1-based) begin, and end position to produce a
@@ -9,7 +10,7 @@ import htsjdk.variant.variantcontext.VariantContext;
  *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
-public interface DatabaseVariantContextProvider {
+public interface DatabaseVariantContextProvider extends Closeable {
 
 	/**
 	 * Query for {@link VariantContext}s describing the DB variant annotation between begin and end
@@ -25,4 +26,11 @@ public interface DatabaseVariantContextProvider {
 	 */
 	CloseableIterator<VariantContext> query(String contig, int beginPos, int endPos);
 
+	/**
+	 * Release the files opened for querying, does nothing for providers that do not hold any open files.
+	 */
+	@Override
+	default void close() {
+	}
+
 }
@@ -17,6 +17,8 @@ public final class GenotypeMatch {
 	final VariantContext obsVC;
 	/** The database VariantContext */
 	final VariantContext dbVC;
+	/** Offset of the database record in a record store, <code>-1</code> if <code>dbVC</code> is used */
+	final long dbRecordOffset;
 	/** Whether is a match (if false: overlap only). */
 	final boolean isMatch;
 
@@ -26,6 +28,20 @@ public final class GenotypeMatch {
 		this.dbAllele = dbAllele;
 		this.obsVC = obsVC;
 		this.dbVC = dbVC;
+		this.dbRecordOffset = -1;
+		this.isMatch = isMatch;
+	}
+
+	/**
+	 * Construct match with a database record from a record store instead of a {@link VariantContext}
+	 */
+	public GenotypeMatch(int observedAllele, int dbAllele, VariantContext obsVC,
+			long dbRecordOffset, boolean isMatch) {
+		this.observedAllele = observedAllele;
+		this.dbAllele = dbAllele;
+		this.obsVC = obsVC;
+		this.dbVC = null;
+		this.dbRecordOffset = dbRecordOffset;
 		this.isMatch = isMatch;
 	}
 
@@ -45,6 +61,10 @@ public final class GenotypeMatch {
 		return dbVC;
 	}
 
+	public long getDBRecordOffset() {
+		return dbRecordOffset;
+	}
+
 	public boolean isMatch() {
 		return isMatch;
 	}
@@ -52,7 +72,8 @@ public final class GenotypeMatch {
 	@Override
 	public String toString() {
 		return "GenotypeMatch [observedAllele=" + observedAllele + ", dbAllele=" + dbAllele
-				+ ", obsVC=" + obsVC + ", dbVC=" + dbVC + ", isMatch=" + isMatch + "]";
+				+ ", obsVC=" + obsVC + ", dbVC=" + dbVC + ", dbRecordOffset=" + dbRecordOffset
+				+ ", isMatch=" + isMatch + "]";
 	}
 
 	@Override
@@ -61,6 +82,7 @@ public final class GenotypeMatch {
 		int result = 1;
 		result = prime * result + dbAllele;
 		result = prime * result + ((dbVC == null) ? 0 : dbVC.hashCode());
+		result = prime * result + (int) (dbRecordOffset ^ (dbRecordOffset >>> 32));
 		result = prime * result + (isMatch ? 1231 : 1237);
 		result = prime * result + ((obsVC == null) ? 0 : obsVC.hashCode());
 		result = prime * result + observedAllele;
@@ -77,6 +99,7 @@ public final class GenotypeMatch {
 		if (dbVC == null) {
 			if (other.dbVC != null) return false;
 		} else if (!dbVC.equals(other.dbVC)) return false;
+		if (dbRecordOffset != other.dbRecordOffset) return false;
 		if (isMatch != other.isMatch) return false;
 		if (obsVC == null) {
 			if (other.obsVC != null) return false;
@@ -0,0 +1,231 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import de.charite.compbio.jannovar.impl.intervals.PrimitiveIntervalArray;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Database VCF file loaded completely into memory, for small databases such as ClinVar or COSMIC.
+ *
+ * <p>
+ * The alternative alleles of all records are normalized once at load time. Exact matches are found through a hash
+ * map from normalized allele to the records containing it and overlaps through one interval array per contig, such
+ * that no I/O and no normalization of database alleles is necessary at query time.
+ * </p>
+ *
+ * <p>
+ * The results are the same as for querying the tabix-indexed VCF file with {@link VCFReaderVariantProvider} and
+ * matching with {@link AlleleMatcher}: matches are only reported for records overlapping with the query region and
+ * in the order of the VCF file. Objects of this class can be shared between threads.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class InMemoryVariantDatabase implements DatabaseVariantContextProvider {
+
+	/** The database records, in the order of the VCF file */
+	private final VariantContext[] records;
+	/** Normalized alternative alleles for each record */
+	private final VariantDescription[][] alleles;
+	/** Indices of the records containing each normalized allele, sorted */
+	private final Map<VariantDescription, int[]> alleleIndex;
+	/** Per-contig interval array with 1-based, half-open record positions, value is record index */
+	private final Map<String, PrimitiveIntervalArray> intervals;
+
+	/**
+	 * Load VCF file into memory.
+	 *
+	 * @param vcfPath
+	 *            path to the VCF file to load, does not have to be indexed
+	 * @param matcher
+	 *            {@link AlleleMatcher} to use for normalizing the alleles
+	 * @throws JannovarVarDBException
+	 *             on problems with reading the VCF file
+	 */
+	public InMemoryVariantDatabase(String vcfPath, AlleleMatcher matcher) throws JannovarVarDBException {
+		List<VariantContext> recordList = new ArrayList<>();
+		List<VariantDescription[]> alleleList = new ArrayList<>();
+		HashMap<VariantDescription, int[]> alleleIndex = new HashMap<>();
+		HashMap<String, PrimitiveIntervalArray.Builder> builders = new HashMap<>();
+
+		try (VCFFileReader reader = new VCFFileReader(new File(vcfPath), false)) {
+			for (VariantContext vc : reader) {
+				final int idx = recordList.size();
+				final VariantDescription[] vars = matcher.normalizeAlleles(vc).toArray(new VariantDescription[0]);
+				recordList.add(vc);
+				alleleList.add(vars);
+				for (VariantDescription var : vars)
+					alleleIndex.merge(var, new int[] { idx }, InMemoryVariantDatabase::appendIndex);
+				builders.computeIfAbsent(vc.getContig(), contig -> new PrimitiveIntervalArray.Builder())
+						.add(vc.getStart(), vc.getEnd() + 1, idx);
+			}
+		} catch (RuntimeException e) {
+			throw new JannovarVarDBException("Problem loading " + vcfPath + " into memory", e);
+		}
+
+		this.records = recordList.toArray(new VariantContext[0]);
+		this.alleles = alleleList.toArray(new VariantDescription[0][]);
+		this.alleleIndex = alleleIndex;
+		this.intervals = new HashMap<>();
+		for (Entry<String, PrimitiveIntervalArray.Builder> e : builders.entrySet())
+			this.intervals.put(e.getKey(), e.getValue().build());
+	}
+
+	/** Append <code>rhs</code> to <code>lhs</code>, skipping duplicates (for alleles repeated within a record) */
+	private static int[] appendIndex(int[] lhs, int[] rhs) {
+		if (lhs[lhs.length - 1] == rhs[0])
+			return lhs;
+		int[] result = Arrays.copyOf(lhs, lhs.length + 1);
+		result[lhs.length] = rhs[0];
+		return result;
+	}
+
+	/** @return number of records in the database */
+	public int size() {
+		return records.length;
+	}
+
+	/** @return whether record <code>idx</code> overlaps with <code>[beginPos, endPos]</code>, as for tabix */
+	private boolean overlaps(int idx, String contig, int beginPos, int endPos) {
+		final VariantContext vc = records[idx];
+		return vc.getContig().equals(contig) && vc.getStart() <= endPos && vc.getEnd() >= beginPos;
+	}
+
+	/** @return indices of records overlapping with <code>[beginPos, endPos]</code>, in the order of the VCF file */
+	private int[] queryIndices(String contig, int beginPos, int endPos) {
+		final PrimitiveIntervalArray array = intervals.get(contig);
+		if (array == null)
+			return new int[0];
+		final int[] found = array.findOverlappingWithInterval(beginPos, endPos + 1);
+		final int[] result = new int[found.length];
+		for (int i = 0; i < found.length; ++i)
+			result[i] = array.getValue(found[i]);
+		Arrays.sort(result);
+		return result;
+	}
+
+	@Override
+	public CloseableIterator<VariantContext> query(String contig, int beginPos, int endPos) {
+		final List<VariantContext> result = new ArrayList<>();
+		for (int idx : queryIndices(contig, beginPos, endPos))
+			result.add(records[idx]);
+		return new ListIteratorWrapper(result);
+	}
+
+	/**
+	 * Find database records with alleles matching the observed alleles, same as
+	 * {@link AlleleMatcher#matchGenotypes} for all records returned by {@link #query}.
+	 *
+	 * @param obsVC
+	 *            {@link VariantContext} describing the observed variant
+	 * @param obsVars
+	 *            the normalized alternative alleles of <code>obsVC</code>, see
+	 *            {@link AlleleMatcher#normalizeAlleles}
+	 * @param beginPos
+	 *            begin position of the query region, as for {@link #query}
+	 * @param endPos
+	 *            end position of the query region, as for {@link #query}
+	 * @return {@link List} of {@link GenotypeMatch}es
+	 */
+	public List<GenotypeMatch> matchGenotypes(VariantContext obsVC, List<VariantDescription> obsVars, int beginPos,
+			int endPos) {
+		// Collect triples (record, observed allele, database allele) and sort them into the order of AlleleMatcher
+		List<int[]> hits = new ArrayList<>();
+		int i = 1; // excludes reference allele
+		for (VariantDescription obsVar : obsVars) {
+			final int[] indices = alleleIndex.get(obsVar);
+			if (indices != null) {
+				for (int idx : indices) {
+					if (!overlaps(idx, obsVC.getContig(), beginPos, endPos))
+						continue;
+					for (int j = 0; j < alleles[idx].length; ++j)
+						if (alleles[idx][j].equals(obsVar))
+							hits.add(new int[] { idx, i, j + 1 });
+				}
+			}
+			i += 1;
+		}
+		hits.sort((lhs, rhs) -> {
+			for (int k = 0; k < 3; ++k)
+				if (lhs[k] != rhs[k])
+					return Integer.compare(lhs[k], rhs[k]);
+			return 0;
+		});
+
+		List<GenotypeMatch> result = new ArrayList<>();
+		for (int[] hit : hits)
+			result.add(new GenotypeMatch(hit[1], hit[2], obsVC, records[hit[0]], true));
+		return result;
+	}
+
+	/**
+	 * Find database records with alleles overlapping the observed alleles, same as
+	 * {@link AlleleMatcher#positionOverlaps} for all records returned by {@link #query}.
+	 *
+	 * @param obsVC
+	 *            {@link VariantContext} describing the observed variant
+	 * @param obsVars
+	 *            the normalized alternative alleles of <code>obsVC</code>, see
+	 *            {@link AlleleMatcher#normalizeAlleles}
+	 * @param beginPos
+	 *            begin position of the query region, as for {@link #query}
+	 * @param endPos
+	 *            end position of the query region, as for {@link #query}
+	 * @return {@link List} of {@link GenotypeMatch}es
+	 */
+	public List<GenotypeMatch> positionOverlaps(VariantContext obsVC, List<VariantDescription> obsVars,
+			int beginPos, int endPos) {
+		List<GenotypeMatch> result = new ArrayList<>();
+		for (int idx : queryIndices(obsVC.getContig(), beginPos, endPos)) {
+			int i = 1; // excludes reference allele
+			for (VariantDescription obsVar : obsVars) {
+				for (int j = 0; j < alleles[idx].length; ++j) {
+					final VariantDescription dbVar = alleles[idx][j];
+					if (dbVar.equals(obsVar))
+						result.add(new GenotypeMatch(i, j + 1, obsVC, records[idx], true));
+					else if (dbVar.overlapsWith(obsVar))
+						result.add(new GenotypeMatch(i, j + 1, obsVC, records[idx], false));
+				}
+				i += 1;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Wrapper for a list-backed {@link Iterator} of {@link VariantContext} objects
+	 */
+	private static class ListIteratorWrapper implements CloseableIterator<VariantContext> {
+
+		private final Iterator<VariantContext> iter;
+
+		public ListIteratorWrapper(List<VariantContext> list) {
+			this.iter = list.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return iter.hasNext();
+		}
+
+		@Override
+		public VariantContext next() {
+			return iter.next();
+		}
+
+		@Override
+		public void close() {
+		}
+
+	}
+
+}
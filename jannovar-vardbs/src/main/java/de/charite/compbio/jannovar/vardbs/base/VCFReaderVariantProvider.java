@@ -28,4 +28,9 @@ public class VCFReaderVariantProvider implements DatabaseVariantContextProvider
 		return vcfReader.query(contig, beginPos, endPos);
 	}
 
+	@Override
+	public void close() {
+		vcfReader.close();
+	}
+
 }
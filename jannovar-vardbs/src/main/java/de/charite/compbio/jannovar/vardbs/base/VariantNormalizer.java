@@ -1,9 +1,8 @@
 package de.charite.compbio.jannovar.vardbs.base;
 
-import java.io.File;
 import java.io.FileNotFoundException;
 
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import de.charite.compbio.jannovar.htsjdk.ReferenceSequenceCache;
 
 /**
  * Helper class for normalizing two variants
@@ -18,14 +17,16 @@ import htsjdk.samtools.reference.IndexedFastaSequenceFile;
  */
 public final class VariantNormalizer {
 
-	/** Path to indexed FASTA path to use */
+	/** Path to indexed FASTA path to use, <code>null</code> if constructed from a cache */
 	final String fastaPath;
-	/** Random access in FASTA files using FAI */
-	final IndexedFastaSequenceFile fai;
+	/** Cached random access in FASTA files using FAI */
+	final ReferenceSequenceCache fai;
 
 	/**
 	 * Construct new variant normalizer object
 	 *
+	 * Uses the {@link ReferenceSequenceCache} shared by all users of the FASTA file in this process.
+	 *
 	 * @param fastaPath
 	 *            Path to indexed FASTA file
 	 * @throws JannovarVarDBException
@@ -34,12 +35,23 @@ public final class VariantNormalizer {
 	public VariantNormalizer(String fastaPath) throws JannovarVarDBException {
 		this.fastaPath = fastaPath;
 		try {
-			this.fai = new IndexedFastaSequenceFile(new File(fastaPath));
+			this.fai = ReferenceSequenceCache.forPath(fastaPath);
 		} catch (FileNotFoundException e) {
 			throw new JannovarVarDBException("Could not find FASTA/FAI file", e);
 		}
 	}
 
+	/**
+	 * Construct new variant normalizer object
+	 *
+	 * @param cache
+	 *            {@link ReferenceSequenceCache} to load sequence from
+	 */
+	public VariantNormalizer(ReferenceSequenceCache cache) {
+		this.fastaPath = null;
+		this.fai = cache;
+	}
+
 	/**
 	 * Normalize a variant given as a start coordinate, reference, and variant sequence
 	 *
@@ -79,7 +91,7 @@ public final class VariantNormalizer {
 			}
 			// Extend alleles to the left if there is an empty allele
 			if (ref.length() == 0 || alt.length() == 0) {
-				char extension = (char) fai.getSubsequenceAt(desc.getChrom(), pos, pos).getBases()[0];
+				char extension = fai.getBase(desc.getChrom(), pos);
 				ref = extension + ref;
 				alt = extension + alt;
 				pos -= 1;
@@ -14,9 +14,11 @@ import de.charite.compbio.jannovar.vardbs.base.AlleleMatcher;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationDriver;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
 import de.charite.compbio.jannovar.vardbs.base.GenotypeMatch;
+import de.charite.compbio.jannovar.vardbs.base.InMemoryVariantDatabase;
 import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
 import de.charite.compbio.jannovar.vardbs.base.VCFHeaderExtender;
 import de.charite.compbio.jannovar.vardbs.base.VariantContextToRecordConverter;
+import de.charite.compbio.jannovar.vardbs.base.VariantDescription;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
@@ -31,7 +33,7 @@ import htsjdk.variant.vcf.VCFFileReader;
  */
 public class ClinVarAnnotationDriver implements DBAnnotationDriver {
 
-	/** Path to dbSNP VCF file */
+	/** Path to dbSNP VCF file, <code>null</code> when constructed with a loaded {@link #inMemoryDatabase} */
 	protected final String vcfPath;
 	/** Helper objects for matching alleles */
 	protected final AlleleMatcher matcher;
@@ -39,8 +41,10 @@ public class ClinVarAnnotationDriver implements DBAnnotationDriver {
 	protected final VariantContextToRecordConverter<ClinVarRecord> vcToRecord;
 	/** Configuration */
 	protected final DBAnnotationOptions options;
-	/** VCFReader to use for loading the VCF records */
+	/** VCFReader to use for loading the VCF records, <code>null</code> when using {@link #inMemoryDatabase} */
 	protected final VCFFileReader vcfReader;
+	/** Database loaded into memory, if configured in {@link #options} */
+	protected final InMemoryVariantDatabase inMemoryDatabase;
 
 	/**
 	 * Create annotation driver for a coordinate-sorted, bgzip-compressed, VCF file
@@ -59,7 +63,38 @@ public class ClinVarAnnotationDriver implements DBAnnotationDriver {
 		this.vcfPath = vcfPath;
 		this.matcher = new AlleleMatcher(fastaPath);
 		this.vcToRecord = new ClinVarVariantContextToRecordConverter();
-		this.vcfReader = new VCFFileReader(new File(this.vcfPath), true);
+		if (options.isInMemory()) {
+			this.vcfReader = null;
+			this.inMemoryDatabase = new InMemoryVariantDatabase(this.vcfPath, this.matcher);
+		} else {
+			this.vcfReader = new VCFFileReader(new File(this.vcfPath), true);
+			this.inMemoryDatabase = null;
+		}
+		this.options = options;
+	}
+
+	/**
+	 * Create annotation driver for a ClinVar VCF file loaded into memory beforehand
+	 *
+	 * The {@link InMemoryVariantDatabase} is not modified and can be shared between drivers, e.g., of different
+	 * threads, such that the file is only loaded once.
+	 *
+	 * @param inMemoryDatabase
+	 *            ClinVar VCF file loaded into memory
+	 * @param fastaPath
+	 *            FAI-indexed FASTA file with reference
+	 * @param options
+	 *            configuration
+	 * @throws JannovarVarDBException
+	 *             on problems loading the reference FASTA/FAI file
+	 */
+	public ClinVarAnnotationDriver(InMemoryVariantDatabase inMemoryDatabase, String fastaPath,
+			DBAnnotationOptions options) throws JannovarVarDBException {
+		this.vcfPath = null;
+		this.matcher = new AlleleMatcher(fastaPath);
+		this.vcToRecord = new ClinVarVariantContextToRecordConverter();
+		this.vcfReader = null;
+		this.inMemoryDatabase = inMemoryDatabase;
 		this.options = options;
 	}
 
@@ -68,8 +103,17 @@ public class ClinVarAnnotationDriver implements DBAnnotationDriver {
 		return new ClinVarVCFHeaderExtender(options);
 	}
 
+	@Override
+	public void close() {
+		if (vcfReader != null)
+			vcfReader.close();
+	}
+
 	@Override
 	public VariantContext annotateVariantContext(VariantContext obsVC) {
+		if (inMemoryDatabase != null)
+			return annotateFromInMemoryDatabase(obsVC);
+
 		try (CloseableIterator<VariantContext> iter = vcfReader.query(obsVC.getContig(), obsVC.getStart(),
 				obsVC.getEnd())) {
 			// Fetch all overlapping and matching genotypes from database and pair them with the correct allele from vc.
@@ -95,6 +139,26 @@ public class ClinVarAnnotationDriver implements DBAnnotationDriver {
 		}
 	}
 
+	/**
+	 * Perform annotation using {@link #inMemoryDatabase}, with the same results as for the tabix-indexed VCF file
+	 */
+	private VariantContext annotateFromInMemoryDatabase(VariantContext obsVC) {
+		final List<VariantDescription> obsVars = matcher.normalizeAlleles(obsVC);
+		List<GenotypeMatch> genotypeMatches = inMemoryDatabase.matchGenotypes(obsVC, obsVars, obsVC.getStart(),
+				obsVC.getEnd());
+		List<GenotypeMatch> positionOverlaps = new ArrayList<>();
+		if (options.isReportOverlapping() || options.isReportOverlappingAsMatching())
+			positionOverlaps = inMemoryDatabase.positionOverlaps(obsVC, obsVars, obsVC.getStart(), obsVC.getEnd());
+
+		List<GenotypeMatch> emptyList = new ArrayList<>();
+		if (options.isReportOverlappingAsMatching())
+			return annotateWithDBRecords(obsVC, positionOverlaps, emptyList);
+		else if (options.isReportOverlapping())
+			return annotateWithDBRecords(obsVC, genotypeMatches, positionOverlaps);
+		else
+			return annotateWithDBRecords(obsVC, genotypeMatches, emptyList);
+	}
+
 	/**
 	 * Perform annotation with DB records
 	 * 
@@ -6,9 +6,9 @@ import de.charite.compbio.jannovar.vardbs.base.AbstractDBAnnotationDriver;
 import de.charite.compbio.jannovar.vardbs.base.AnnotatingRecord;
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
 import de.charite.compbio.jannovar.vardbs.base.GenotypeMatch;
+import de.charite.compbio.jannovar.vardbs.base.InMemoryVariantDatabase;
 import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
 import de.charite.compbio.jannovar.vardbs.base.VCFHeaderExtender;
-import de.charite.compbio.jannovar.vardbs.base.VCFReaderVariantProvider;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import java.util.ArrayList;
@@ -24,7 +24,25 @@ public class CosmicAnnotationDriver extends AbstractDBAnnotationDriver<CosmicRec
 
 	public CosmicAnnotationDriver(String vcfPath, String fastaPath, DBAnnotationOptions options)
 			throws JannovarVarDBException {
-		super(new VCFReaderVariantProvider(vcfPath), fastaPath, options, new CosmicVariantContextToRecordConverter());
+		super(vcfPath, fastaPath, options, new CosmicVariantContextToRecordConverter());
+	}
+
+	/**
+	 * Create annotation driver for a COSMIC VCF file loaded into memory beforehand, which can be shared between
+	 * drivers, e.g., of different threads
+	 *
+	 * @param inMemoryDatabase
+	 *            COSMIC VCF file loaded into memory
+	 * @param fastaPath
+	 *            Path to reference FASTA file
+	 * @param options
+	 *            configuration
+	 * @throws JannovarVarDBException
+	 *             on problems loading the reference FASTA/FAI file
+	 */
+	public CosmicAnnotationDriver(InMemoryVariantDatabase inMemoryDatabase, String fastaPath,
+			DBAnnotationOptions options) throws JannovarVarDBException {
+		super(inMemoryDatabase, fastaPath, options, new CosmicVariantContextToRecordConverter());
 	}
 
 	@Override
@@ -120,6 +120,14 @@ public class ExacRecord {
 		return alleleCounts;
 	}
 
+	public ImmutableMap<ExacPopulation, ImmutableList<Integer>> getAlleleHetCounts() {
+		return alleleHetCounts;
+	}
+
+	public ImmutableMap<ExacPopulation, ImmutableList<Integer>> getAlleleHomCounts() {
+		return alleleHomCounts;
+	}
+
 	public ImmutableMap<ExacPopulation, ImmutableList<Integer>> getAlleleHemiCounts() {
 		return alleleHemiCounts;
 	}
@@ -0,0 +1,61 @@
+package de.charite.compbio.jannovar.vardbs.exac;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import de.charite.compbio.jannovar.vardbs.record_store.RecordSerializer;
+import de.charite.compbio.jannovar.vardbs.record_store.RecordStoreIO;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Conversion of {@link ExacRecord} objects for record stores
+ * 
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class ExacRecordSerializer implements RecordSerializer<ExacRecord> {
+
+	/** Converter to use for {@link VariantContext}s */
+	private final ExacVariantContextToRecordConverter converter = new ExacVariantContextToRecordConverter();
+
+	@Override
+	public String getName() {
+		return "exac";
+	}
+
+	@Override
+	public ExacRecord convert(VariantContext vc) {
+		return converter.convert(vc);
+	}
+
+	@Override
+	public void write(DataOutput out, ExacRecord record) throws IOException {
+		RecordStoreIO.writeString(out, record.getId());
+		RecordStoreIO.writeString(out, record.getRef());
+		RecordStoreIO.writeStrings(out, record.getAlt());
+		RecordStoreIO.writeStrings(out, record.getFilter());
+		RecordStoreIO.writeIntLists(out, record.getAlleleCounts());
+		RecordStoreIO.writeIntLists(out, record.getAlleleHetCounts());
+		RecordStoreIO.writeIntLists(out, record.getAlleleHomCounts());
+		RecordStoreIO.writeIntLists(out, record.getAlleleHemiCounts());
+		RecordStoreIO.writeIntMap(out, record.getChromCounts());
+	}
+
+	@Override
+	public ExacRecord read(ByteBuffer buf, String contig, int pos) {
+		ExacRecordBuilder builder = new ExacRecordBuilder();
+		builder.setContig(contig);
+		builder.setPos(pos);
+		builder.setID(RecordStoreIO.readString(buf));
+		builder.setRef(RecordStoreIO.readString(buf));
+		builder.setAlt(RecordStoreIO.readStrings(buf));
+		builder.setFilter(RecordStoreIO.readStrings(buf));
+		builder.getAlleleCounts().putAll(RecordStoreIO.readIntLists(buf, ExacPopulation.class));
+		builder.getAlleleHetCounts().putAll(RecordStoreIO.readIntLists(buf, ExacPopulation.class));
+		builder.getAlleleHomCounts().putAll(RecordStoreIO.readIntLists(buf, ExacPopulation.class));
+		builder.getAlleleHemiCounts().putAll(RecordStoreIO.readIntLists(buf, ExacPopulation.class));
+		builder.getChromCounts().putAll(RecordStoreIO.readIntMap(buf, ExacPopulation.class));
+		return builder.build();
+	}
+
+}
@@ -1,5 +1,6 @@
 package de.charite.compbio.jannovar.vardbs.facade;
 
+import java.io.Closeable;
 import java.util.Collection;
 
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationDriver;
@@ -13,7 +14,7 @@ import htsjdk.variant.vcf.VCFHeader;
  * 
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
-final public class DBVariantContextAnnotator {
+final public class DBVariantContextAnnotator implements Closeable {
 
 	/** The DB annotation driver to use */
 	final private DBAnnotationDriver driver;
@@ -64,4 +65,12 @@ final public class DBVariantContextAnnotator {
 			annotateVariantContext(vc);
 	}
 
+	/**
+	 * Release the files opened by the {@link DBAnnotationDriver}
+	 */
+	@Override
+	public void close() {
+		driver.close();
+	}
+
 }
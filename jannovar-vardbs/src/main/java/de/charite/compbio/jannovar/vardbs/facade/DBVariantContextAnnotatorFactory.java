@@ -1,6 +1,7 @@
 package de.charite.compbio.jannovar.vardbs.facade;
 
 import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.base.InMemoryVariantDatabase;
 import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
 import de.charite.compbio.jannovar.vardbs.clinvar.ClinVarAnnotationDriver;
 import de.charite.compbio.jannovar.vardbs.cosmic.CosmicAnnotationDriver;
@@ -107,6 +108,25 @@ public class DBVariantContextAnnotatorFactory {
 		return new DBVariantContextAnnotator(new ClinVarAnnotationDriver(vcfDBPath, fastaRefPath, options), options);
 	}
 
+	/**
+	 * Construct ClinVar {@link VariantContext} annotator factory for a VCF file loaded into memory beforehand.
+	 *
+	 * @param inMemoryDatabase
+	 *            ClinVar file loaded into memory, can be shared between annotators
+	 * @param fastaRefPath
+	 *            Path to reference FASTA file
+	 * @param options
+	 *            Configuration for the variant context annotation
+	 * @return Preconfigured {@link DBVariantContextAnnotator} object
+	 * @throws JannovarVarDBException
+	 *             on problems loading the resources
+	 */
+	public DBVariantContextAnnotator constructClinVar(InMemoryVariantDatabase inMemoryDatabase, String fastaRefPath,
+			DBAnnotationOptions options) throws JannovarVarDBException {
+		return new DBVariantContextAnnotator(new ClinVarAnnotationDriver(inMemoryDatabase, fastaRefPath, options),
+				options);
+	}
+
 	/**
 	 * Construct Cosmic {@link VariantContext} annotator factory.
 	 *
@@ -125,6 +145,25 @@ public class DBVariantContextAnnotatorFactory {
 		return new DBVariantContextAnnotator(new CosmicAnnotationDriver(vcfDBPath, fastaRefPath, options), options);
 	}
 
+	/**
+	 * Construct Cosmic {@link VariantContext} annotator factory for a VCF file loaded into memory beforehand.
+	 *
+	 * @param inMemoryDatabase
+	 *            Cosmic file loaded into memory, can be shared between annotators
+	 * @param fastaRefPath
+	 *            Path to reference FASTA file
+	 * @param options
+	 *            Configuration for the variant context annotation
+	 * @return Preconfigured {@link DBVariantContextAnnotator} object
+	 * @throws JannovarVarDBException
+	 *             on problems loading the resources
+	 */
+	public DBVariantContextAnnotator constructCosmic(InMemoryVariantDatabase inMemoryDatabase, String fastaRefPath,
+			DBAnnotationOptions options) throws JannovarVarDBException {
+		return new DBVariantContextAnnotator(new CosmicAnnotationDriver(inMemoryDatabase, fastaRefPath, options),
+				options);
+	}
+
 	/**
 	 * Construct TSV {@link VariantContext} annotator factory.
 	 *
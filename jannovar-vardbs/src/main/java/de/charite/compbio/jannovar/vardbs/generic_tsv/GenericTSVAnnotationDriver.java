@@ -32,7 +32,10 @@ public final class GenericTSVAnnotationDriver implements DBAnnotationDriver {
 
 	public GenericTSVAnnotationDriver(String fastaPath, GenericTSVAnnotationOptions options)
 			throws JannovarVarDBException {
-		this.variantProvider = new GenericTSVVariantContextProvider(options);
+		if (GenericTSVBinaryDatabase.isBinaryDatabase(options.getTsvFile()))
+			this.variantProvider = new GenericTSVBinaryVariantContextProvider(options);
+		else
+			this.variantProvider = new GenericTSVVariantContextProvider(options);
 		this.matcher = new AlleleMatcher(fastaPath);
 		this.options = options;
 	}
@@ -42,6 +45,11 @@ public final class GenericTSVAnnotationDriver implements DBAnnotationDriver {
 		return new GenericTSVHeaderExtender(options);
 	}
 
+	@Override
+	public void close() {
+		variantProvider.close();
+	}
+
 	@Override
 	public VariantContext annotateVariantContext(VariantContext vc) {
 		VariantContextBuilder builder = new VariantContextBuilder(vc);
@@ -0,0 +1,72 @@
+package de.charite.compbio.jannovar.vardbs.generic_tsv;
+
+import java.io.File;
+
+/**
+ * Constants and helpers for the binary, pre-indexed representation of generic TSV databases.
+ *
+ * <p>
+ * A binary database consists of two files. The data file (suffix {@link #FILE_SUFFIX}) is BGZF-compressed and
+ * starts with a header describing the typed value columns, followed by the records sorted by contig and
+ * position. The index file (suffix {@link #INDEX_SUFFIX} appended to the data file's path) contains the contig
+ * names and, for each contig, the maximal record length and a sparse list of (position, virtual file offset)
+ * entries with one entry every {@link #INDEX_INTERVAL} records.
+ * </p>
+ *
+ * <p>
+ * Each record is stored as contig ID, 1-based begin and end position, reference and alternative allele,
+ * followed by the values of the columns. Each value is prefixed by a tag byte ({@link #TAG_NULL},
+ * {@link #TAG_TYPED}, or {@link #TAG_STRING}). The records are terminated by a record with contig ID
+ * <code>-1</code>.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class GenericTSVBinaryDatabase {
+
+	/** Magic string at the beginning of data and index files. */
+	static final String MAGIC = "JTSVDB";
+
+	/** Format version. */
+	static final int VERSION = 1;
+
+	/** Suffix of data files. */
+	public static final String FILE_SUFFIX = ".jtsvdb";
+
+	/** Suffix to append to data file path for index files. */
+	public static final String INDEX_SUFFIX = ".idx";
+
+	/** Number of records between two index entries. */
+	static final int INDEX_INTERVAL = 256;
+
+	/** Tag for missing value. */
+	static final byte TAG_NULL = 0;
+
+	/** Tag for value of the column's type. */
+	static final byte TAG_TYPED = 1;
+
+	/** Tag for string value in a numeric column (<code>"."</code> for missing reference values). */
+	static final byte TAG_STRING = 2;
+
+	private GenericTSVBinaryDatabase() {
+	}
+
+	/**
+	 * @param file
+	 *            path to database file
+	 * @return whether the path points to a binary database (by its suffix)
+	 */
+	public static boolean isBinaryDatabase(File file) {
+		return file.getName().endsWith(FILE_SUFFIX);
+	}
+
+	/**
+	 * @param file
+	 *            path to the data file
+	 * @return path to the index file for the given data file
+	 */
+	public static File getIndexFile(File file) {
+		return new File(file.getPath() + INDEX_SUFFIX);
+	}
+
+}
@@ -0,0 +1,213 @@
+package de.charite.compbio.jannovar.vardbs.generic_tsv;
+
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFHeaderLineType;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Conversion of generic TSV files (e.g., dbNSFP) into the binary format described in
+ * {@link GenericTSVBinaryDatabase}.
+ *
+ * <p>
+ * Only the columns selected in the {@link GenericTSVAnnotationOptions} are written out, after applying the
+ * accumulation strategies. The TSV file must be sorted by position within each contig, and the records of each
+ * contig must be consecutive.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class GenericTSVBinaryDatabaseWriter {
+
+	/** Configuration with input file and column selection. */
+	private final GenericTSVAnnotationOptions options;
+
+	/** Path to output data file. */
+	private final File outFile;
+
+	/** Number of records written. */
+	private long recordCount = 0;
+
+	/** Contig names in order of appearance. */
+	private final List<String> contigs = new ArrayList<>();
+
+	/** Maximal record length for each contig. */
+	private final List<Integer> maxLengths = new ArrayList<>();
+
+	/** Index entries (begin positions and virtual offsets) for each contig. */
+	private final List<List<long[]>> indexEntries = new ArrayList<>();
+
+	/**
+	 * Construct writer.
+	 *
+	 * @param options
+	 *            configuration with path to TSV file and column selection
+	 * @param outFile
+	 *            path to output file, should end with {@link GenericTSVBinaryDatabase#FILE_SUFFIX}
+	 */
+	public GenericTSVBinaryDatabaseWriter(GenericTSVAnnotationOptions options, File outFile) {
+		this.options = options;
+		this.outFile = outFile;
+	}
+
+	/** @return number of records written by {@link #convert()} */
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * Perform conversion of the TSV file.
+	 *
+	 * @throws JannovarVarDBException
+	 *             on problems with reading the TSV file or writing the output
+	 */
+	public void convert() throws JannovarVarDBException {
+		final GenericTSVExtractionPlan plan = new GenericTSVExtractionPlan(options);
+		final File tsvFile = options.getTsvFile();
+
+		final BlockCompressedOutputStream bgzfStream = new BlockCompressedOutputStream(outFile);
+		try (BufferedReader reader = IOUtil.openFileForBufferedReading(tsvFile);
+				DataOutputStream out = new DataOutputStream(bgzfStream)) {
+			writeHeader(out);
+
+			final Set<String> finishedContigs = new HashSet<>();
+			String currentContig = null;
+			int prevBegin = 0;
+			int contigRecords = 0;
+
+			String line;
+			long lineNo = 0;
+			while ((line = reader.readLine()) != null) {
+				++lineNo;
+				if (line.isEmpty() || line.startsWith("#"))
+					continue;
+
+				final VariantContext vc;
+				final int end;
+				try {
+					vc = plan.parse(line);
+					end = Math.max(plan.parseEnd(line), vc.getStart());
+				} catch (RuntimeException e) {
+					throw new JannovarVarDBException("Problem parsing line " + lineNo + " of " + tsvFile, e);
+				}
+
+				if (!vc.getContig().equals(currentContig)) {
+					if (currentContig != null)
+						finishedContigs.add(currentContig);
+					if (finishedContigs.contains(vc.getContig()))
+						throw new JannovarVarDBException("Records of contig " + vc.getContig()
+								+ " are not consecutive in " + tsvFile + " (line " + lineNo + ")");
+					currentContig = vc.getContig();
+					contigs.add(currentContig);
+					maxLengths.add(1);
+					indexEntries.add(new ArrayList<>());
+					prevBegin = 0;
+					contigRecords = 0;
+				} else if (vc.getStart() < prevBegin) {
+					throw new JannovarVarDBException(
+							"TSV file " + tsvFile + " is not sorted by position (line " + lineNo + ")");
+				}
+
+				final int contigId = contigs.size() - 1;
+				if (contigRecords % GenericTSVBinaryDatabase.INDEX_INTERVAL == 0) {
+					indexEntries.get(contigId).add(new long[] { vc.getStart(), bgzfStream.getFilePointer() });
+				}
+				maxLengths.set(contigId, Math.max(maxLengths.get(contigId), end - vc.getStart() + 1));
+				writeRecord(out, contigId, vc, end);
+
+				prevBegin = vc.getStart();
+				++contigRecords;
+				++recordCount;
+			}
+
+			out.writeInt(-1); // terminator
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Problem converting " + tsvFile + " to " + outFile, e);
+		}
+
+		writeIndex();
+	}
+
+	/** Write header with magic string and column descriptions. */
+	private void writeHeader(DataOutputStream out) throws IOException {
+		out.writeUTF(GenericTSVBinaryDatabase.MAGIC);
+		out.writeInt(GenericTSVBinaryDatabase.VERSION);
+		out.writeInt(options.getColumnNames().size());
+		for (String colName : options.getColumnNames()) {
+			final GenericTSVValueColumnDescription desc = options.getValueColumnDescriptions().get(colName);
+			out.writeUTF(desc.getFieldName());
+			out.writeUTF(desc.getValueType().name());
+		}
+	}
+
+	/** Write one record. */
+	private void writeRecord(DataOutputStream out, int contigId, VariantContext vc, int end) throws IOException {
+		out.writeInt(contigId);
+		out.writeInt(vc.getStart());
+		out.writeInt(end);
+		out.writeUTF(vc.getReference().getBaseString());
+		out.writeUTF(vc.getAlternateAlleles().isEmpty() ? "" : vc.getAlternateAllele(0).getBaseString());
+
+		for (String colName : options.getColumnNames()) {
+			final GenericTSVValueColumnDescription desc = options.getValueColumnDescriptions().get(colName);
+			writeValue(out, desc.getValueType(), vc.getAttribute(desc.getFieldName()));
+		}
+	}
+
+	/** Write one tagged value. */
+	private static void writeValue(DataOutputStream out, VCFHeaderLineType type, Object value)
+			throws IOException {
+		if (value == null) {
+			out.writeByte(GenericTSVBinaryDatabase.TAG_NULL);
+			return;
+		}
+
+		if (type == VCFHeaderLineType.Flag && value instanceof Boolean) {
+			out.writeByte(GenericTSVBinaryDatabase.TAG_TYPED);
+			out.writeBoolean((Boolean) value);
+		} else if (type == VCFHeaderLineType.Integer && value instanceof Integer) {
+			out.writeByte(GenericTSVBinaryDatabase.TAG_TYPED);
+			out.writeInt((Integer) value);
+		} else if (type == VCFHeaderLineType.Float && value instanceof Double) {
+			out.writeByte(GenericTSVBinaryDatabase.TAG_TYPED);
+			out.writeDouble((Double) value);
+		} else {
+			out.writeByte(GenericTSVBinaryDatabase.TAG_STRING);
+			out.writeUTF(value.toString());
+		}
+	}
+
+	/** Write out index file. */
+	private void writeIndex() throws JannovarVarDBException {
+		final File indexFile = GenericTSVBinaryDatabase.getIndexFile(outFile);
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+			out.writeUTF(GenericTSVBinaryDatabase.MAGIC);
+			out.writeInt(GenericTSVBinaryDatabase.VERSION);
+			out.writeInt(contigs.size());
+			for (int i = 0; i < contigs.size(); ++i) {
+				out.writeUTF(contigs.get(i));
+				out.writeInt(maxLengths.get(i));
+				out.writeInt(indexEntries.get(i).size());
+				for (long[] entry : indexEntries.get(i)) {
+					out.writeInt((int) entry[0]);
+					out.writeLong(entry[1]);
+				}
+			}
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Problem writing index file " + indexFile, e);
+		}
+	}
+
+}
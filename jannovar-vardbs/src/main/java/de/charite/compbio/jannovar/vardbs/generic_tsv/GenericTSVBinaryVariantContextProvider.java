@@ -0,0 +1,257 @@
+package de.charite.compbio.jannovar.vardbs.generic_tsv;
+
+import de.charite.compbio.jannovar.vardbs.base.DatabaseVariantContextProvider;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFHeaderLineType;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read records from a binary generic TSV database (see {@link GenericTSVBinaryDatabase}) as
+ * {@link VariantContext} entries.
+ *
+ * <p>
+ * In contrast to {@link GenericTSVVariantContextProvider}, no text has to be split and no numbers have to be
+ * parsed at query time. As for the TSV provider, there cannot be concurrent queries with the same object.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class GenericTSVBinaryVariantContextProvider implements DatabaseVariantContextProvider {
+
+	/** Path to the data file. */
+	private final File dbFile;
+
+	/** Contig name to contig ID. */
+	private final Map<String, Integer> contigIds = new HashMap<>();
+
+	/** Maximal record length for each contig. */
+	private int[] maxLengths;
+
+	/** Index positions for each contig. */
+	private int[][] indexPositions;
+
+	/** Index virtual offsets for each contig. */
+	private long[][] indexOffsets;
+
+	/** Field names of the columns stored in the file. */
+	private String[] fileFields;
+
+	/** Value types of the columns stored in the file. */
+	private VCFHeaderLineType[] fileTypes;
+
+	/** For each file column, whether it is selected for annotation. */
+	private boolean[] selected;
+
+	/** Stream for reading the data file. */
+	private final BlockCompressedInputStream bgzfStream;
+
+	/** Binary reader on top of {@link #bgzfStream}. */
+	private final DataInputStream in;
+
+	public GenericTSVBinaryVariantContextProvider(GenericTSVAnnotationOptions options) {
+		this.dbFile = options.getTsvFile();
+		try {
+			readIndex(GenericTSVBinaryDatabase.getIndexFile(dbFile));
+			this.bgzfStream = new BlockCompressedInputStream(dbFile);
+			this.in = new DataInputStream(bgzfStream);
+			readHeader();
+		} catch (IOException e) {
+			throw new RuntimeException("Could not open binary TSV database " + dbFile, e);
+		}
+
+		this.selected = new boolean[fileFields.length];
+		for (String colName : options.getColumnNames()) {
+			final String fieldName = options.getValueColumnDescriptions().get(colName).getFieldName();
+			boolean found = false;
+			for (int i = 0; i < fileFields.length; ++i) {
+				if (fileFields[i].equals(fieldName)) {
+					selected[i] = true;
+					found = true;
+				}
+			}
+			if (!found)
+				throw new RuntimeException("Column " + fieldName + " is not present in " + dbFile);
+		}
+	}
+
+	/** Read index file into {@link #contigIds}, {@link #maxLengths}, and the index arrays. */
+	private void readIndex(File indexFile) throws IOException {
+		try (DataInputStream idx = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			checkMagic(idx, indexFile);
+			final int numContigs = idx.readInt();
+			maxLengths = new int[numContigs];
+			indexPositions = new int[numContigs][];
+			indexOffsets = new long[numContigs][];
+			for (int i = 0; i < numContigs; ++i) {
+				contigIds.put(idx.readUTF(), i);
+				maxLengths[i] = idx.readInt();
+				final int numEntries = idx.readInt();
+				indexPositions[i] = new int[numEntries];
+				indexOffsets[i] = new long[numEntries];
+				for (int j = 0; j < numEntries; ++j) {
+					indexPositions[i][j] = idx.readInt();
+					indexOffsets[i][j] = idx.readLong();
+				}
+			}
+		}
+	}
+
+	/** Read header of data file into {@link #fileFields} and {@link #fileTypes}. */
+	private void readHeader() throws IOException {
+		checkMagic(in, dbFile);
+		final int numColumns = in.readInt();
+		fileFields = new String[numColumns];
+		fileTypes = new VCFHeaderLineType[numColumns];
+		for (int i = 0; i < numColumns; ++i) {
+			fileFields[i] = in.readUTF();
+			fileTypes[i] = VCFHeaderLineType.valueOf(in.readUTF());
+		}
+	}
+
+	/** Check magic string and version. */
+	private static void checkMagic(DataInputStream stream, File file) throws IOException {
+		if (!GenericTSVBinaryDatabase.MAGIC.equals(stream.readUTF()))
+			throw new IOException("File " + file + " is not a binary TSV database");
+		final int version = stream.readInt();
+		if (version != GenericTSVBinaryDatabase.VERSION)
+			throw new IOException("Unsupported binary TSV database version " + version + " in " + file);
+	}
+
+	@Override
+	public CloseableIterator<VariantContext> query(String contig, int beginPos, int endPos) {
+		final List<VariantContext> result = new ArrayList<>();
+		final Integer contigId = contigIds.get(contig);
+		if (contigId == null || indexPositions[contigId].length == 0)
+			return new ListIteratorWrapper(result);
+
+		// As for tabix, beginPos is 0-based and endPos is 1-based; records can only overlap if they start at or
+		// after minStart. Seek to the last index entry strictly before minStart so no records with equal
+		// positions in the preceding block are missed.
+		final int minStart = beginPos + 2 - maxLengths[contigId];
+		final int[] positions = indexPositions[contigId];
+		int entry = 0;
+		int lo = 0, hi = positions.length - 1;
+		while (lo <= hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (positions[mid] < minStart) {
+				entry = mid;
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+
+		try {
+			bgzfStream.seek(indexOffsets[contigId][entry]);
+			while (true) {
+				final int recContig = in.readInt();
+				if (recContig != contigId)
+					break;
+				final int start = in.readInt();
+				if (start > endPos)
+					break;
+				final int end = in.readInt();
+				final String ref = in.readUTF();
+				final String alt = in.readUTF();
+
+				final VariantContextBuilder builder = new VariantContextBuilder();
+				builder.chr(contig);
+				builder.start(start);
+				builder.stop(start);
+				if (alt.isEmpty())
+					builder.alleles(ref);
+				else
+					builder.alleles(ref, alt);
+				readValues(builder);
+
+				if (end >= beginPos + 1)
+					result.add(builder.make());
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Problem reading from " + dbFile, e);
+		}
+
+		return new ListIteratorWrapper(result);
+	}
+
+	@Override
+	public void close() {
+		try {
+			in.close();
+		} catch (IOException e) {
+			throw new RuntimeException("Problem closing " + dbFile, e);
+		}
+	}
+
+	/** Read values of the current record, adding the selected ones to <code>builder</code>. */
+	private void readValues(VariantContextBuilder builder) throws IOException {
+		for (int i = 0; i < fileFields.length; ++i) {
+			final Object value;
+			final byte tag = in.readByte();
+			if (tag == GenericTSVBinaryDatabase.TAG_NULL) {
+				value = null;
+			} else if (tag == GenericTSVBinaryDatabase.TAG_STRING) {
+				value = in.readUTF();
+			} else {
+				switch (fileTypes[i]) {
+				case Flag:
+					value = in.readBoolean();
+					break;
+				case Integer:
+					value = in.readInt();
+					break;
+				case Float:
+					value = in.readDouble();
+					break;
+				default:
+					throw new IOException("Unexpected typed value for column " + fileFields[i]);
+				}
+			}
+			if (selected[i])
+				builder.attribute(fileFields[i], value);
+		}
+	}
+
+	/**
+	 * Wrapper for an iterator of the records loaded by a query.
+	 *
+	 * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+	 */
+	private static class ListIteratorWrapper implements CloseableIterator<VariantContext> {
+
+		private final Iterator<VariantContext> iter;
+
+		public ListIteratorWrapper(List<VariantContext> list) {
+			this.iter = list.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return iter.hasNext();
+		}
+
+		@Override
+		public VariantContext next() {
+			return iter.next();
+		}
+
+		@Override
+		public void close() {
+			/* nop */
+		}
+
+	}
+
+}
@@ -0,0 +1,369 @@
+package de.charite.compbio.jannovar.vardbs.generic_tsv;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFHeaderLineType;
+import java.util.Arrays;
+
+/**
+ * Compiled plan for extracting {@link VariantContext} objects from the lines of generic TSV files.
+ *
+ * <p>
+ * The plan is built once from the {@link GenericTSVAnnotationOptions}. For each line, only the column offsets
+ * up to the rightmost required column are located, the values are split on <code>';'</code> lazily, and only
+ * the selected value of each column is converted into an object. For columns that refer to a numeric column
+ * for selecting the minimum or maximum, the selection is done in a single pass without sorting.
+ * </p>
+ *
+ * <p>
+ * Objects of this class keep scratch buffers and thus are not thread-safe.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class GenericTSVExtractionPlan {
+
+	/** Values interpreted as <code>true</code> for flag columns. */
+	private static final String[] TRUE_VALUES = new String[] { "1", "Y", "y", "T", "t", "yes", "true" };
+
+	/** Exact powers of ten that can be represented as <code>double</code>. */
+	private static final double[] POWERS_OF_TEN = new double[] { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8,
+			1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/** Extraction of one output value. */
+	private static final class FieldPlan {
+		/** Name of the INFO attribute to write to. */
+		final String fieldName;
+		/** 0-based column to take the value from. */
+		final int valueColumn;
+		/** Type of the value. */
+		final VCFHeaderLineType valueType;
+		/** 0-based column to select the value index by. */
+		final int refColumn;
+		/** Type of the reference column. */
+		final VCFHeaderLineType refType;
+		/** Accumulation strategy of the reference column. */
+		final GenericTSVAccumulationStrategy refStrategy;
+
+		FieldPlan(GenericTSVValueColumnDescription desc, GenericTSVValueColumnDescription refDesc) {
+			this.fieldName = desc.getFieldName();
+			this.valueColumn = desc.getColumnIndex() - 1;
+			this.valueType = desc.getValueType();
+			this.refColumn = refDesc.getColumnIndex() - 1;
+			this.refType = refDesc.getValueType();
+			this.refStrategy = refDesc.getAccumulationStrategy();
+		}
+	}
+
+	/** 0-based column indices of contig, begin and end position, ref and alt allele (-1 for none). */
+	private final int contigColumn;
+	private final int beginColumn;
+	private final int endColumn;
+	private final int refAlleleColumn;
+	private final int altAlleleColumn;
+
+	/** Offset to subtract from begin position. */
+	private final int delta;
+
+	/** Plans for the output fields, in order of the column names. */
+	private final FieldPlan[] fields;
+
+	/** Number of columns that need to be located. */
+	private final int numColumns;
+
+	/** Scratch buffers for column begin and end offsets. */
+	private final int[] colBegins;
+	private final int[] colEnds;
+
+	/** Scratch buffers for token begin and end offsets (within one column). */
+	private int[] tokBegins = new int[8];
+	private int[] tokEnds = new int[8];
+
+	GenericTSVExtractionPlan(GenericTSVAnnotationOptions options) {
+		this.contigColumn = options.getContigColumnIndex() - 1;
+		this.beginColumn = options.getBeginColumnIndex() - 1;
+		this.endColumn = options.getEndColumnIndex() - 1;
+		if (options.getRefAlleleColumnIndex() > 0 && options.getAltAlleleColumnIndex() > 0) {
+			this.refAlleleColumn = options.getRefAlleleColumnIndex() - 1;
+			this.altAlleleColumn = options.getAltAlleleColumnIndex() - 1;
+		} else {
+			this.refAlleleColumn = -1;
+			this.altAlleleColumn = -1;
+		}
+		this.delta = options.isOneBasedPositions() ? 0 : 1;
+
+		this.fields = new FieldPlan[options.getColumnNames().size()];
+		int maxColumn = Math.max(Math.max(contigColumn, Math.max(beginColumn, endColumn)),
+				Math.max(refAlleleColumn, altAlleleColumn));
+		for (int i = 0; i < fields.length; ++i) {
+			final GenericTSVValueColumnDescription desc = options.getValueColumnDescriptions()
+					.get(options.getColumnNames().get(i));
+			GenericTSVValueColumnDescription refDesc = null;
+			if (desc.getRefField() != null)
+				refDesc = options.getValueColumnDescriptions().get(desc.getRefField());
+			if (refDesc == null)
+				refDesc = desc;
+			fields[i] = new FieldPlan(desc, refDesc);
+			maxColumn = Math.max(maxColumn, Math.max(fields[i].valueColumn, fields[i].refColumn));
+		}
+
+		this.numColumns = maxColumn + 1;
+		this.colBegins = new int[numColumns];
+		this.colEnds = new int[numColumns];
+	}
+
+	/**
+	 * Parse TSV line into {@link VariantContext}.
+	 *
+	 * @param line
+	 *            the line to parse
+	 * @return {@link VariantContext} with the values of the configured columns as attributes
+	 */
+	VariantContext parse(String line) {
+		locateColumns(line);
+
+		final VariantContextBuilder builder = new VariantContextBuilder();
+		builder.chr(column(line, contigColumn));
+		final int startPos = parseInt(line, colBegins[beginColumn], colEnds[beginColumn]) - delta;
+		builder.start(startPos);
+		builder.stop(startPos);
+		if (refAlleleColumn >= 0)
+			builder.alleles(column(line, refAlleleColumn), column(line, altAlleleColumn));
+		else
+			builder.alleles("N");
+
+		for (FieldPlan field : fields)
+			builder.attribute(field.fieldName, extract(line, field));
+
+		return builder.make();
+	}
+
+	/**
+	 * Parse end position from TSV line.
+	 *
+	 * @param line
+	 *            the line to parse
+	 * @return 1-based end position from the end column
+	 */
+	int parseEnd(String line) {
+		locateColumns(line);
+		return parseInt(line, colBegins[endColumn], colEnds[endColumn]) - delta;
+	}
+
+	/** Fill {@link #colBegins} and {@link #colEnds} for the first {@link #numColumns} columns. */
+	private void locateColumns(String line) {
+		int pos = 0;
+		final int len = line.length();
+		for (int col = 0; col < numColumns; ++col) {
+			if (pos > len)
+				throw new RuntimeException("Too few columns in TSV line " + line);
+			int end = line.indexOf('\t', pos);
+			if (end < 0)
+				end = len;
+			colBegins[col] = pos;
+			colEnds[col] = end;
+			pos = end + 1;
+		}
+	}
+
+	/** @return the contents of the given column */
+	private String column(String line, int col) {
+		return line.substring(colBegins[col], colEnds[col]);
+	}
+
+	/**
+	 * Split the given column on <code>';'</code> into {@link #tokBegins}/{@link #tokEnds}, with the semantics of
+	 * {@link String#split(String)} (trailing empty tokens are dropped).
+	 *
+	 * @return number of tokens
+	 */
+	private int splitColumn(String line, int col) {
+		final int begin = colBegins[col];
+		final int end = colEnds[col];
+		if (begin == end) {
+			tokBegins[0] = begin;
+			tokEnds[0] = end;
+			return 1;
+		}
+
+		int count = 0;
+		int pos = begin;
+		while (pos <= end) {
+			int sep = line.indexOf(';', pos);
+			if (sep < 0 || sep > end)
+				sep = end;
+			if (count == tokBegins.length) {
+				tokBegins = Arrays.copyOf(tokBegins, 2 * count);
+				tokEnds = Arrays.copyOf(tokEnds, 2 * count);
+			}
+			tokBegins[count] = pos;
+			tokEnds[count] = sep;
+			++count;
+			pos = sep + 1;
+		}
+		while (count > 0 && tokBegins[count - 1] == tokEnds[count - 1])
+			--count;
+		return count;
+	}
+
+	/** @return the value to write out for <code>field</code> */
+	private Object extract(String line, FieldPlan field) {
+		int key = 0;
+		switch (field.refType) {
+		case Float:
+		case Integer:
+			final int numRefTokens = splitColumn(line, field.refColumn);
+			if (numRefTokens == 0)
+				return ".";
+			if (field.refStrategy == GenericTSVAccumulationStrategy.CHOOSE_MIN
+					|| field.refStrategy == GenericTSVAccumulationStrategy.CHOOSE_MAX)
+				key = selectIndex(line, field, numRefTokens);
+			break;
+		case Character:
+		case Flag:
+		case String:
+		default:
+			break;
+		}
+
+		final int numTokens = splitColumn(line, field.valueColumn);
+		if (numTokens == 0)
+			return null;
+		final int idx = (numTokens == 1 || key >= numTokens) ? 0 : key;
+		return convert(line, tokBegins[idx], tokEnds[idx], field.valueType);
+	}
+
+	/**
+	 * Select index of minimal or maximal value in the reference column, tokens must already be in
+	 * {@link #tokBegins}/{@link #tokEnds}.
+	 *
+	 * Missing values are treated as the worst possible value. Ties are broken towards the first minimal and the
+	 * last maximal value.
+	 */
+	private int selectIndex(String line, FieldPlan field, int numTokens) {
+		final boolean chooseMin = (field.refStrategy == GenericTSVAccumulationStrategy.CHOOSE_MIN);
+		int bestIdx = 0;
+		if (field.refType == VCFHeaderLineType.Float) {
+			double best = 0;
+			for (int i = 0; i < numTokens; ++i) {
+				double value;
+				if (isMissing(line, tokBegins[i], tokEnds[i]))
+					value = chooseMin ? Double.MAX_VALUE : Double.MIN_VALUE;
+				else
+					value = parseDouble(line, tokBegins[i], tokEnds[i]);
+				if (i == 0 || (chooseMin ? Double.compare(value, best) < 0 : Double.compare(value, best) >= 0)) {
+					best = value;
+					bestIdx = i;
+				}
+			}
+		} else {
+			int best = 0;
+			for (int i = 0; i < numTokens; ++i) {
+				int value;
+				if (isMissing(line, tokBegins[i], tokEnds[i]))
+					value = chooseMin ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+				else
+					value = parseInt(line, tokBegins[i], tokEnds[i]);
+				if (i == 0 || (chooseMin ? value < best : value >= best)) {
+					best = value;
+					bestIdx = i;
+				}
+			}
+		}
+		return bestIdx;
+	}
+
+	/** Convert token <code>line[begin, end)</code> to value of the given type. */
+	private static Object convert(String line, int begin, int end, VCFHeaderLineType type) {
+		switch (type) {
+		case Flag:
+			if (isMissing(line, begin, end))
+				return null;
+			for (String s : TRUE_VALUES)
+				if (s.length() == end - begin && line.regionMatches(begin, s, 0, s.length()))
+					return true;
+			return false;
+		case Float:
+			if (isMissing(line, begin, end) || begin == end)
+				return null;
+			return parseDouble(line, begin, end);
+		case Integer:
+			if (isMissing(line, begin, end) || begin == end)
+				return null;
+			return parseInt(line, begin, end);
+		case Character:
+		case String:
+		default:
+			return line.substring(begin, end);
+		}
+	}
+
+	/** @return whether <code>line[begin, end)</code> is <code>"."</code> */
+	private static boolean isMissing(String line, int begin, int end) {
+		return end - begin == 1 && line.charAt(begin) == '.';
+	}
+
+	/**
+	 * Parse <code>int</code> from <code>line[begin, end)</code> without creating intermediate strings, falling
+	 * back to {@link Integer#parseInt(String)} for unusual input.
+	 */
+	static int parseInt(CharSequence line, int begin, int end) {
+		int pos = begin;
+		boolean negative = false;
+		if (pos < end && (line.charAt(pos) == '-' || line.charAt(pos) == '+')) {
+			negative = (line.charAt(pos) == '-');
+			++pos;
+		}
+		if (pos == end || end - pos > 9)
+			return Integer.parseInt(line.subSequence(begin, end).toString());
+		int result = 0;
+		for (; pos < end; ++pos) {
+			final char c = line.charAt(pos);
+			if (c < '0' || c > '9')
+				return Integer.parseInt(line.subSequence(begin, end).toString());
+			result = 10 * result + (c - '0');
+		}
+		return negative ? -result : result;
+	}
+
+	/**
+	 * Parse <code>double</code> from <code>line[begin, end)</code>.
+	 *
+	 * Plain decimals with at most 15 significant digits and at most 22 fractional digits are converted exactly
+	 * (the mantissa and the power of ten are both exactly representable, so the single division is correctly
+	 * rounded). Everything else falls back to {@link Double#parseDouble(String)}.
+	 */
+	static double parseDouble(CharSequence line, int begin, int end) {
+		int pos = begin;
+		boolean negative = false;
+		if (pos < end && (line.charAt(pos) == '-' || line.charAt(pos) == '+')) {
+			negative = (line.charAt(pos) == '-');
+			++pos;
+		}
+		long mantissa = 0;
+		int numDigits = 0;
+		int numFractionDigits = 0;
+		boolean seenDot = false;
+		boolean seenDigit = false;
+		for (; pos < end; ++pos) {
+			final char c = line.charAt(pos);
+			if (c >= '0' && c <= '9') {
+				seenDigit = true;
+				mantissa = 10 * mantissa + (c - '0');
+				if (mantissa != 0)
+					++numDigits;
+				if (seenDot)
+					++numFractionDigits;
+			} else if (c == '.' && !seenDot) {
+				seenDot = true;
+			} else {
+				return Double.parseDouble(line.subSequence(begin, end).toString());
+			}
+		}
+		if (!seenDigit || numDigits > 15 || numFractionDigits >= POWERS_OF_TEN.length)
+			return Double.parseDouble(line.subSequence(begin, end).toString());
+		final double result = mantissa / POWERS_OF_TEN[numFractionDigits];
+		return negative ? -result : result;
+	}
+
+}
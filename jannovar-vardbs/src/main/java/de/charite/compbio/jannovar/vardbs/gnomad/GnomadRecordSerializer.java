@@ -0,0 +1,70 @@
+package de.charite.compbio.jannovar.vardbs.gnomad;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+import com.google.common.collect.ImmutableList;
+
+import de.charite.compbio.jannovar.vardbs.record_store.RecordSerializer;
+import de.charite.compbio.jannovar.vardbs.record_store.RecordStoreIO;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Conversion of {@link GnomadRecord} objects for record stores
+ * 
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class GnomadRecordSerializer implements RecordSerializer<GnomadRecord> {
+
+	/** Converter to use for {@link VariantContext}s */
+	private final GnomadVariantContextToRecordConverter converter = new GnomadVariantContextToRecordConverter();
+
+	@Override
+	public String getName() {
+		return "gnomad";
+	}
+
+	@Override
+	public GnomadRecord convert(VariantContext vc) {
+		return converter.convert(vc);
+	}
+
+	@Override
+	public void write(DataOutput out, GnomadRecord record) throws IOException {
+		RecordStoreIO.writeString(out, record.getId());
+		RecordStoreIO.writeString(out, record.getRef());
+		RecordStoreIO.writeStrings(out, record.getAlt());
+		RecordStoreIO.writeStrings(out, record.getFilter());
+		RecordStoreIO.writeStrings(out, record.getPopmax());
+		RecordStoreIO.writeIntLists(out, record.getAlleleCounts());
+		RecordStoreIO.writeIntLists(out, record.getAlleleHetCounts());
+		RecordStoreIO.writeIntLists(out, record.getAlleleHomCounts());
+		RecordStoreIO.writeIntLists(out, record.getAlleleHemiCounts());
+		RecordStoreIO.writeIntLists(out, record.getChromCounts());
+	}
+
+	@Override
+	public GnomadRecord read(ByteBuffer buf, String contig, int pos) {
+		GnomadRecordBuilder builder = new GnomadRecordBuilder();
+		builder.setContig(contig);
+		builder.setPos(pos);
+		builder.setID(RecordStoreIO.readString(buf));
+		builder.setRef(RecordStoreIO.readString(buf));
+		builder.setAlt(RecordStoreIO.readStrings(buf));
+		builder.setFilter(RecordStoreIO.readStrings(buf));
+		builder.setPopmax(RecordStoreIO.readStrings(buf));
+		builder.getAlleleCounts().putAll(RecordStoreIO.readIntLists(buf, GnomadPopulation.class));
+		builder.getAlleleHetCounts().putAll(RecordStoreIO.readIntLists(buf, GnomadPopulation.class));
+		builder.getAlleleHomCounts().putAll(RecordStoreIO.readIntLists(buf, GnomadPopulation.class));
+		builder.getAlleleHemiCounts().putAll(RecordStoreIO.readIntLists(buf, GnomadPopulation.class));
+		EnumMap<GnomadPopulation, List<Integer>> chromCounts = RecordStoreIO.readIntLists(buf, GnomadPopulation.class);
+		for (Entry<GnomadPopulation, List<Integer>> e : chromCounts.entrySet())
+			builder.getChromCounts().put(e.getKey(), ImmutableList.copyOf(e.getValue()));
+		return builder.build();
+	}
+
+}
@@ -0,0 +1,73 @@
+package de.charite.compbio.jannovar.vardbs.record_store;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only memory mapping of a file that can be larger than 2 GB.
+ *
+ * <p>
+ * The file is mapped in segments of {@link #SEGMENT_SIZE} bytes. Each segment extends <code>overlap</code> bytes into
+ * the next one, such that any item of at most <code>overlap</code> bytes can be read from a single buffer.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class MappedFileBuffer {
+
+	/** Shift for computing segment number from offset. */
+	private static final int SEGMENT_SHIFT = 30;
+
+	/** Size of each segment (without overlap). */
+	static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+	/** The mapped segments. */
+	private final MappedByteBuffer[] segments;
+
+	/** Size of the file. */
+	private final long size;
+
+	/**
+	 * Map the given file.
+	 *
+	 * @param file
+	 *            path to file to map
+	 * @param overlap
+	 *            number of bytes each segment extends into the next
+	 * @throws IOException
+	 *             on problems with mapping the file
+	 */
+	MappedFileBuffer(File file, int overlap) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			this.size = channel.size();
+			final int numSegments = (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+			this.segments = new MappedByteBuffer[numSegments];
+			for (int i = 0; i < numSegments; ++i) {
+				final long begin = ((long) i) << SEGMENT_SHIFT;
+				segments[i] = channel.map(MapMode.READ_ONLY, begin, Math.min(size - begin, SEGMENT_SIZE + overlap));
+			}
+		}
+	}
+
+	/** @return size of the mapped file */
+	long size() {
+		return size;
+	}
+
+	/**
+	 * @param offset
+	 *            offset in the file
+	 * @return buffer positioned at <code>offset</code>, may be used for reading up to <code>overlap</code> bytes
+	 */
+	ByteBuffer at(long offset) {
+		final ByteBuffer buf = segments[(int) (offset >>> SEGMENT_SHIFT)].duplicate();
+		buf.position((int) (offset & (SEGMENT_SIZE - 1)));
+		return buf;
+	}
+
+}
@@ -0,0 +1,55 @@
+package de.charite.compbio.jannovar.vardbs.record_store;
+
+import de.charite.compbio.jannovar.vardbs.base.VariantContextToRecordConverter;
+import htsjdk.variant.variantcontext.VariantContext;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Conversion of database records from {@link VariantContext} objects and to/from their compact binary
+ * representation in a record store.
+ *
+ * <p>
+ * The contig and position are stored in the record store's index and thus are not part of the binary record
+ * representation.
+ * </p>
+ *
+ * @param <RecordType>
+ *            the record type, e.g., <code>GnomadRecord</code>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public interface RecordSerializer<RecordType> extends VariantContextToRecordConverter<RecordType> {
+
+	/**
+	 * @return name of the record type, stored in the record store for checking compatibility
+	 */
+	public String getName();
+
+	/**
+	 * Write record to binary output.
+	 *
+	 * @param out
+	 *            {@link DataOutput} to write to
+	 * @param record
+	 *            record to write
+	 * @throws IOException
+	 *             on problems with writing
+	 */
+	public void write(DataOutput out, RecordType record) throws IOException;
+
+	/**
+	 * Read record from buffer at its current position.
+	 *
+	 * @param buf
+	 *            buffer to read from
+	 * @param contig
+	 *            name of the contig of the record
+	 * @param pos
+	 *            0-based position of the record
+	 * @return the record that was read
+	 */
+	public RecordType read(ByteBuffer buf, String contig, int pos);
+
+}
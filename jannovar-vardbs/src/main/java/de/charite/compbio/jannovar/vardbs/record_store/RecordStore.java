@@ -0,0 +1,69 @@
+package de.charite.compbio.jannovar.vardbs.record_store;
+
+import java.io.File;
+
+/**
+ * Constants and helpers for the pre-converted, memory-mapped record stores.
+ *
+ * <p>
+ * A record store consists of a data file (suffix {@link #FILE_SUFFIX}) and an index file (suffix
+ * {@link #INDEX_SUFFIX} appended to the data file's path). Both files are uncompressed so they can be memory-mapped.
+ * </p>
+ *
+ * <p>
+ * The index file contains one fixed-size entry per database variant (1-based begin and end position as for
+ * {@link htsjdk.variant.variantcontext.VariantContext}, offset in the data file), sorted by contig and begin
+ * position, followed by a footer with the contig table and the record type name. The last eight bytes of the index
+ * file point to the footer.
+ * </p>
+ *
+ * <p>
+ * Each record in the data file starts with the normalized description of its alternative alleles (hash of the
+ * normalized variant, position, end, reference and alternative sequence), followed by the record written by the
+ * {@link RecordSerializer}. This allows to match alleles by their hash without decoding the record.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class RecordStore {
+
+	/** Magic string at the beginning of data and index files. */
+	static final String MAGIC = "JRECSTORE";
+
+	/** Format version. */
+	static final int VERSION = 1;
+
+	/** Suffix of data files. */
+	public static final String FILE_SUFFIX = ".jrs";
+
+	/** Suffix to append to data file path for index files. */
+	public static final String INDEX_SUFFIX = ".idx";
+
+	/** Size of one index entry in bytes. */
+	static final int INDEX_ENTRY_SIZE = 16;
+
+	/** Maximal size of one record in the data file. */
+	static final int MAX_RECORD_SIZE = 1024 * 1024;
+
+	private RecordStore() {
+	}
+
+	/**
+	 * @param path
+	 *            path to database file
+	 * @return whether the path points to a record store (by its suffix)
+	 */
+	public static boolean isRecordStore(String path) {
+		return path.endsWith(FILE_SUFFIX);
+	}
+
+	/**
+	 * @param file
+	 *            path to the data file
+	 * @return path to the index file for the given data file
+	 */
+	public static File getIndexFile(File file) {
+		return new File(file.getPath() + INDEX_SUFFIX);
+	}
+
+}
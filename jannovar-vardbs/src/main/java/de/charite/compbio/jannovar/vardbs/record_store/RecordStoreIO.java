@@ -0,0 +1,130 @@
+package de.charite.compbio.jannovar.vardbs.record_store;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Helper functions for writing and reading values in {@link RecordSerializer} implementations.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class RecordStoreIO {
+
+	private RecordStoreIO() {
+	}
+
+	/** Write string as length and UTF-8 bytes. */
+	public static void writeString(DataOutput out, String s) throws IOException {
+		final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/** Read string written by {@link #writeString}. */
+	public static String readString(ByteBuffer buf) {
+		final int len = buf.getInt();
+		final byte[] bytes = new byte[len];
+		buf.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/** Write collection of strings. */
+	public static void writeStrings(DataOutput out, Collection<String> strings) throws IOException {
+		out.writeInt(strings.size());
+		for (String s : strings)
+			writeString(out, s);
+	}
+
+	/** Read list of strings written by {@link #writeStrings}. */
+	public static ArrayList<String> readStrings(ByteBuffer buf) {
+		final int size = buf.getInt();
+		final ArrayList<String> result = new ArrayList<>(size);
+		for (int i = 0; i < size; ++i)
+			result.add(readString(buf));
+		return result;
+	}
+
+	/** Write list of integers. */
+	public static void writeInts(DataOutput out, List<Integer> values) throws IOException {
+		out.writeInt(values.size());
+		for (int x : values)
+			out.writeInt(x);
+	}
+
+	/** Read list of integers written by {@link #writeInts}. */
+	public static ArrayList<Integer> readInts(ByteBuffer buf) {
+		final int size = buf.getInt();
+		final ArrayList<Integer> result = new ArrayList<>(size);
+		for (int i = 0; i < size; ++i)
+			result.add(buf.getInt());
+		return result;
+	}
+
+	/** Write list of doubles. */
+	public static void writeDoubles(DataOutput out, List<Double> values) throws IOException {
+		out.writeInt(values.size());
+		for (double x : values)
+			out.writeDouble(x);
+	}
+
+	/** Read list of doubles written by {@link #writeDoubles}. */
+	public static ArrayList<Double> readDoubles(ByteBuffer buf) {
+		final int size = buf.getInt();
+		final ArrayList<Double> result = new ArrayList<>(size);
+		for (int i = 0; i < size; ++i)
+			result.add(buf.getDouble());
+		return result;
+	}
+
+	/** Write map from enum value (e.g., population) to list of integers. */
+	public static <E extends Enum<E>> void writeIntLists(DataOutput out, Map<E, ? extends List<Integer>> map)
+			throws IOException {
+		out.writeInt(map.size());
+		for (Entry<E, ? extends List<Integer>> e : map.entrySet()) {
+			out.writeByte(e.getKey().ordinal());
+			writeInts(out, e.getValue());
+		}
+	}
+
+	/** Read map written by {@link #writeIntLists}. */
+	public static <E extends Enum<E>> EnumMap<E, List<Integer>> readIntLists(ByteBuffer buf, Class<E> clazz) {
+		final E[] values = clazz.getEnumConstants();
+		final EnumMap<E, List<Integer>> result = new EnumMap<>(clazz);
+		final int size = buf.getInt();
+		for (int i = 0; i < size; ++i) {
+			final E key = values[buf.get()];
+			result.put(key, readInts(buf));
+		}
+		return result;
+	}
+
+	/** Write map from enum value (e.g., population) to integer. */
+	public static <E extends Enum<E>> void writeIntMap(DataOutput out, Map<E, Integer> map) throws IOException {
+		out.writeInt(map.size());
+		for (Entry<E, Integer> e : map.entrySet()) {
+			out.writeByte(e.getKey().ordinal());
+			out.writeInt(e.getValue());
+		}
+	}
+
+	/** Read map written by {@link #writeIntMap}. */
+	public static <E extends Enum<E>> EnumMap<E, Integer> readIntMap(ByteBuffer buf, Class<E> clazz) {
+		final E[] values = clazz.getEnumConstants();
+		final EnumMap<E, Integer> result = new EnumMap<>(clazz);
+		final int size = buf.getInt();
+		for (int i = 0; i < size; ++i) {
+			final E key = values[buf.get()];
+			result.put(key, buf.getInt());
+		}
+		return result;
+	}
+
+}
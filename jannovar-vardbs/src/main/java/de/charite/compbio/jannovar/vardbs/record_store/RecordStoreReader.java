@@ -0,0 +1,200 @@
+package de.charite.compbio.jannovar.vardbs.record_store;
+
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.base.VariantDescription;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memory-mapped access to a record store (see {@link RecordStore}).
+ *
+ * <p>
+ * Queries return {@link StoredVariant} headers; records are only decoded on calling {@link #getRecord}. Objects of
+ * this class can be shared between threads.
+ * </p>
+ *
+ * @param <RecordType>
+ *            the record type, e.g., <code>GnomadRecord</code>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class RecordStoreReader<RecordType> {
+
+	/** Path to the data file. */
+	private final File dataFile;
+
+	/** Decoding of records. */
+	private final RecordSerializer<RecordType> serializer;
+
+	/** Memory-mapped index file. */
+	private final MappedFileBuffer index;
+
+	/** Memory-mapped data file. */
+	private final MappedFileBuffer data;
+
+	/** Contig name to contig ID. */
+	private final Map<String, Integer> contigIds = new HashMap<>();
+
+	/** Offset of the first index entry for each contig. */
+	private long[] firstEntries;
+
+	/** Number of index entries for each contig. */
+	private long[] numEntries;
+
+	/** Maximal variant length for each contig. */
+	private int[] maxLengths;
+
+	/**
+	 * Open record store.
+	 *
+	 * @param dataFile
+	 *            path to the data file
+	 * @param serializer
+	 *            {@link RecordSerializer} for the database type
+	 * @throws JannovarVarDBException
+	 *             on problems with opening the files or if the record store was written for a different record type
+	 */
+	public RecordStoreReader(File dataFile, RecordSerializer<RecordType> serializer) throws JannovarVarDBException {
+		this.dataFile = dataFile;
+		this.serializer = serializer;
+		final File indexFile = RecordStore.getIndexFile(dataFile);
+		try {
+			readFooter(indexFile);
+			this.index = new MappedFileBuffer(indexFile, RecordStore.INDEX_ENTRY_SIZE);
+			this.data = new MappedFileBuffer(dataFile, RecordStore.MAX_RECORD_SIZE);
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Could not open record store " + dataFile, e);
+		}
+	}
+
+	/** Read contig table from footer of index file. */
+	private void readFooter(File indexFile) throws IOException, JannovarVarDBException {
+		try (RandomAccessFile raf = new RandomAccessFile(indexFile, "r")) {
+			if (!RecordStore.MAGIC.equals(raf.readUTF()) || raf.readInt() != RecordStore.VERSION)
+				throw new JannovarVarDBException("File " + indexFile + " is not a supported record store index");
+			raf.seek(raf.length() - 8);
+			raf.seek(raf.readLong());
+
+			final String name = raf.readUTF();
+			if (!name.equals(serializer.getName()))
+				throw new JannovarVarDBException("Record store " + dataFile + " contains " + name
+						+ " records but expected " + serializer.getName());
+
+			final int numContigs = raf.readInt();
+			firstEntries = new long[numContigs];
+			numEntries = new long[numContigs];
+			maxLengths = new int[numContigs];
+			for (int i = 0; i < numContigs; ++i) {
+				contigIds.put(raf.readUTF(), i);
+				firstEntries[i] = raf.readLong();
+				numEntries[i] = raf.readLong();
+				maxLengths[i] = raf.readInt();
+			}
+		}
+	}
+
+	/**
+	 * Query for database variants overlapping the given region, same semantics as for
+	 * {@link htsjdk.variant.vcf.VCFFileReader#query}.
+	 *
+	 * @param contig
+	 *            name of the contig
+	 * @param start
+	 *            1-based start position
+	 * @param end
+	 *            1-based end position, inclusive
+	 * @return {@link List} of {@link StoredVariant}s, sorted by begin position
+	 */
+	public List<StoredVariant> query(String contig, int start, int end) {
+		final List<StoredVariant> result = new ArrayList<>();
+		final Integer contigId = contigIds.get(contig);
+		if (contigId == null)
+			return result;
+
+		// Find first entry that can overlap with start, using maximal length on the contig
+		final long first = firstEntries[contigId];
+		final int minBegin = start - maxLengths[contigId] + 1;
+		long lo = 0;
+		long hi = numEntries[contigId];
+		while (lo < hi) {
+			final long mid = (lo + hi) >>> 1;
+			if (index.at(first + mid * RecordStore.INDEX_ENTRY_SIZE).getInt() < minBegin)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+
+		for (long i = lo; i < numEntries[contigId]; ++i) {
+			final ByteBuffer entry = index.at(first + i * RecordStore.INDEX_ENTRY_SIZE);
+			final int begin = entry.getInt();
+			if (begin > end)
+				break;
+			final int variantEnd = entry.getInt();
+			if (variantEnd >= start)
+				result.add(readHeader(entry.getLong(), begin));
+		}
+
+		return result;
+	}
+
+	/** Read header of record at the given offset in the data file. */
+	private StoredVariant readHeader(long offset, int begin) {
+		final ByteBuffer buf = data.at(offset);
+		final int start = buf.position();
+		final int numAlleles = buf.getInt();
+		final int[] hashes = new int[numAlleles];
+		final int[] positions = new int[numAlleles];
+		final int[] ends = new int[numAlleles];
+		final int[] sequenceOffsets = new int[numAlleles];
+		for (int i = 0; i < numAlleles; ++i) {
+			hashes[i] = buf.getInt();
+			positions[i] = buf.getInt();
+			ends[i] = buf.getInt();
+			sequenceOffsets[i] = buf.position() - start;
+			skipString(buf); // ref
+			skipString(buf); // alt
+		}
+		return new StoredVariant(offset, begin, hashes, positions, ends, sequenceOffsets, buf.position() - start);
+	}
+
+	/** Skip string written by {@link RecordStoreIO#writeString}. */
+	private static void skipString(ByteBuffer buf) {
+		final int len = buf.getInt();
+		buf.position(buf.position() + len);
+	}
+
+	/**
+	 * @param variant
+	 *            {@link StoredVariant} from {@link #query}
+	 * @param contig
+	 *            name of the contig of the variant
+	 * @param i
+	 *            0-based index of the alternative allele
+	 * @return normalized description of the <code>i</code>-th alternative allele
+	 */
+	public VariantDescription getAllele(StoredVariant variant, String contig, int i) {
+		final ByteBuffer buf = data.at(variant.getOffset() + variant.sequenceOffsets[i]);
+		final String ref = RecordStoreIO.readString(buf);
+		final String alt = RecordStoreIO.readString(buf);
+		return new VariantDescription(contig, variant.positions[i], ref, alt);
+	}
+
+	/**
+	 * @param variant
+	 *            {@link StoredVariant} from {@link #query}
+	 * @param contig
+	 *            name of the contig of the variant
+	 * @return decoded record for <code>variant</code>
+	 */
+	public RecordType getRecord(StoredVariant variant, String contig) {
+		final ByteBuffer buf = data.at(variant.getOffset() + variant.recordOffset);
+		return serializer.read(buf, contig, variant.getBegin() - 1);
+	}
+
+}
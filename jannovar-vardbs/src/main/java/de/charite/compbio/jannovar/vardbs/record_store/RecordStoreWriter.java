@@ -0,0 +1,160 @@
+package de.charite.compbio.jannovar.vardbs.record_store;
+
+import de.charite.compbio.jannovar.vardbs.base.AlleleMatcher;
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.base.VariantDescription;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Conversion of a database VCF file (e.g., gnomAD, ExAC, or UK10K) into a record store (see {@link RecordStore}).
+ *
+ * <p>
+ * The VCF file must be sorted by position within each contig and the records of each contig must be consecutive.
+ * The alternative alleles are normalized with the same reference FASTA file as used for annotation.
+ * </p>
+ *
+ * @param <RecordType>
+ *            the record type, e.g., <code>GnomadRecord</code>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class RecordStoreWriter<RecordType> {
+
+	/** Conversion from {@link VariantContext} and serialization of records. */
+	private final RecordSerializer<RecordType> serializer;
+
+	/** Helper for normalizing the alleles. */
+	private final AlleleMatcher matcher;
+
+	/** Number of records written. */
+	private long recordCount = 0;
+
+	/**
+	 * Construct writer.
+	 *
+	 * @param serializer
+	 *            {@link RecordSerializer} for the database type
+	 * @param fastaPath
+	 *            path to FAI-indexed reference FASTA file
+	 * @throws JannovarVarDBException
+	 *             on problems loading the FASTA file
+	 */
+	public RecordStoreWriter(RecordSerializer<RecordType> serializer, String fastaPath)
+			throws JannovarVarDBException {
+		this.serializer = serializer;
+		this.matcher = new AlleleMatcher(fastaPath);
+	}
+
+	/** @return number of records written by {@link #convert} */
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * Convert VCF file to record store.
+	 *
+	 * @param vcfFile
+	 *            path to the VCF file to convert
+	 * @param outFile
+	 *            path to output data file, should end with {@link RecordStore#FILE_SUFFIX}
+	 * @throws JannovarVarDBException
+	 *             on problems with reading the VCF file or writing the output
+	 */
+	public void convert(File vcfFile, File outFile) throws JannovarVarDBException {
+		final File indexFile = RecordStore.getIndexFile(outFile);
+		final List<String> contigs = new ArrayList<>();
+		final List<Long> firstEntries = new ArrayList<>();
+		final List<Long> numEntries = new ArrayList<>();
+		final List<Integer> maxLengths = new ArrayList<>();
+		final Set<String> seenContigs = new HashSet<>();
+
+		try (VCFFileReader reader = new VCFFileReader(vcfFile, false);
+				DataOutputStream data = new DataOutputStream(
+						new BufferedOutputStream(new FileOutputStream(outFile), 1024 * 1024));
+				DataOutputStream index = new DataOutputStream(
+						new BufferedOutputStream(new FileOutputStream(indexFile), 1024 * 1024))) {
+			data.writeUTF(RecordStore.MAGIC);
+			data.writeInt(RecordStore.VERSION);
+			long dataOffset = data.size();
+			index.writeUTF(RecordStore.MAGIC);
+			index.writeInt(RecordStore.VERSION);
+			long indexOffset = index.size();
+
+			final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+			final DataOutputStream recordOut = new DataOutputStream(recordBytes);
+
+			int prevBegin = 0;
+			for (VariantContext vc : reader) {
+				if (contigs.isEmpty() || !vc.getContig().equals(contigs.get(contigs.size() - 1))) {
+					if (!seenContigs.add(vc.getContig()))
+						throw new JannovarVarDBException(
+								"Records of contig " + vc.getContig() + " are not consecutive in " + vcfFile);
+					contigs.add(vc.getContig());
+					firstEntries.add(indexOffset);
+					numEntries.add(0L);
+					maxLengths.add(1);
+					prevBegin = 0;
+				} else if (vc.getStart() < prevBegin) {
+					throw new JannovarVarDBException("VCF file " + vcfFile + " is not sorted by position at "
+							+ vc.getContig() + ":" + vc.getStart());
+				}
+				prevBegin = vc.getStart();
+
+				// Build binary record with normalized alleles and the serialized record
+				recordBytes.reset();
+				final List<VariantDescription> alleles = matcher.normalizeAlleles(vc);
+				recordOut.writeInt(alleles.size());
+				for (VariantDescription allele : alleles) {
+					recordOut.writeInt(allele.hashCode());
+					recordOut.writeInt(allele.getPos());
+					recordOut.writeInt(allele.getEnd());
+					RecordStoreIO.writeString(recordOut, allele.getRef());
+					RecordStoreIO.writeString(recordOut, allele.getAlt());
+				}
+				serializer.write(recordOut, serializer.convert(vc));
+				recordOut.flush();
+				if (recordBytes.size() > RecordStore.MAX_RECORD_SIZE)
+					throw new JannovarVarDBException("Record too large at " + vc.getContig() + ":" + vc.getStart());
+
+				// Write out index entry and record
+				final int last = contigs.size() - 1;
+				index.writeInt(vc.getStart());
+				index.writeInt(vc.getEnd());
+				index.writeLong(dataOffset);
+				indexOffset += RecordStore.INDEX_ENTRY_SIZE;
+				numEntries.set(last, numEntries.get(last) + 1);
+				maxLengths.set(last, Math.max(maxLengths.get(last), vc.getEnd() - vc.getStart() + 1));
+
+				recordBytes.writeTo(data);
+				dataOffset += recordBytes.size();
+				++recordCount;
+			}
+
+			// Write out footer with contig table
+			final long footerOffset = indexOffset;
+			index.writeUTF(serializer.getName());
+			index.writeInt(contigs.size());
+			for (int i = 0; i < contigs.size(); ++i) {
+				index.writeUTF(contigs.get(i));
+				index.writeLong(firstEntries.get(i));
+				index.writeLong(numEntries.get(i));
+				index.writeInt(maxLengths.get(i));
+			}
+			index.writeLong(footerOffset);
+		} catch (IOException e) {
+			throw new JannovarVarDBException("Problem converting " + vcfFile + " to " + outFile, e);
+		}
+	}
+
+}
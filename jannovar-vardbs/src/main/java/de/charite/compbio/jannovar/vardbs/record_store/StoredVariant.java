@@ -0,0 +1,71 @@
+package de.charite.compbio.jannovar.vardbs.record_store;
+
+/**
+ * Header of a database variant in a record store, as returned by {@link RecordStoreReader#query}.
+ *
+ * <p>
+ * Gives access to the hashes and positions of the normalized alternative alleles without decoding the record. The
+ * full allele descriptions and the record can be obtained from the {@link RecordStoreReader}.
+ * </p>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class StoredVariant {
+
+	/** Offset of the record in the data file. */
+	private final long offset;
+	/** 1-based begin position of the database variant. */
+	private final int begin;
+	/** Hashes of the normalized alternative alleles. */
+	final int[] hashes;
+	/** 0-based positions of the normalized alternative alleles. */
+	final int[] positions;
+	/** 0-based end positions of the normalized alternative alleles. */
+	final int[] ends;
+	/** Offsets of the allele sequences relative to {@link #offset}. */
+	final int[] sequenceOffsets;
+	/** Offset of the serialized record relative to {@link #offset}. */
+	final int recordOffset;
+
+	StoredVariant(long offset, int begin, int[] hashes, int[] positions, int[] ends, int[] sequenceOffsets,
+			int recordOffset) {
+		this.offset = offset;
+		this.begin = begin;
+		this.hashes = hashes;
+		this.positions = positions;
+		this.ends = ends;
+		this.sequenceOffsets = sequenceOffsets;
+		this.recordOffset = recordOffset;
+	}
+
+	/** @return offset of the record in the data file, unique for each database variant */
+	public long getOffset() {
+		return offset;
+	}
+
+	/** @return 1-based begin position of the database variant */
+	public int getBegin() {
+		return begin;
+	}
+
+	/** @return number of alternative alleles */
+	public int getNumAlleles() {
+		return hashes.length;
+	}
+
+	/** @return hash of the normalized <code>i</code>-th (0-based) alternative allele's description */
+	public int getHash(int i) {
+		return hashes[i];
+	}
+
+	/** @return 0-based position of the normalized <code>i</code>-th (0-based) alternative allele */
+	public int getPos(int i) {
+		return positions[i];
+	}
+
+	/** @return 0-based end position of the normalized <code>i</code>-th (0-based) alternative allele */
+	public int getEnd(int i) {
+		return ends[i];
+	}
+
+}
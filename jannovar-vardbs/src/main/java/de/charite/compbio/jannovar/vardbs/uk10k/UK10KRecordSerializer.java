@@ -0,0 +1,57 @@
+package de.charite.compbio.jannovar.vardbs.uk10k;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import de.charite.compbio.jannovar.vardbs.record_store.RecordSerializer;
+import de.charite.compbio.jannovar.vardbs.record_store.RecordStoreIO;
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Conversion of {@link UK10KRecord} objects for record stores
+ * 
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class UK10KRecordSerializer implements RecordSerializer<UK10KRecord> {
+
+	/** Converter to use for {@link VariantContext}s */
+	private final UK10KVariantContextToRecordConverter converter = new UK10KVariantContextToRecordConverter();
+
+	@Override
+	public String getName() {
+		return "uk10k";
+	}
+
+	@Override
+	public UK10KRecord convert(VariantContext vc) {
+		return converter.convert(vc);
+	}
+
+	@Override
+	public void write(DataOutput out, UK10KRecord record) throws IOException {
+		RecordStoreIO.writeString(out, record.getId());
+		RecordStoreIO.writeString(out, record.getRef());
+		RecordStoreIO.writeStrings(out, record.getAlt());
+		RecordStoreIO.writeStrings(out, record.getFilter());
+		out.writeInt(record.getChromCount());
+		RecordStoreIO.writeInts(out, record.getAltAlleleCounts());
+		RecordStoreIO.writeDoubles(out, record.getAltAlleleFrequencies());
+	}
+
+	@Override
+	public UK10KRecord read(ByteBuffer buf, String contig, int pos) {
+		UK10KRecordBuilder builder = new UK10KRecordBuilder();
+		builder.setContig(contig);
+		builder.setPos(pos);
+		builder.setID(RecordStoreIO.readString(buf));
+		builder.setRef(RecordStoreIO.readString(buf));
+		builder.setAlt(RecordStoreIO.readStrings(buf));
+		builder.setFilter(RecordStoreIO.readStrings(buf));
+		builder.setChromCount(buf.getInt());
+		builder.setAlleleCounts(RecordStoreIO.readInts(buf));
+		builder.setAlleleFrequencies(RecordStoreIO.readDoubles(buf));
+		return builder.build();
+	}
+
+}
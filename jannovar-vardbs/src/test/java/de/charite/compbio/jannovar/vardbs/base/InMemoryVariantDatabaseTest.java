@@ -0,0 +1,145 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import de.charite.compbio.jannovar.vardbs.clinvar.ClinVarAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.cosmic.CosmicAnnotationDriver;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+
+/**
+ * Check that annotation with in-memory databases yields the same result as annotation through tabix queries
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class InMemoryVariantDatabaseTest {
+
+	private File tmpDir;
+	private String fastaPath;
+
+	@Before
+	public void setUp() throws Exception {
+		tmpDir = Files.createTempDir();
+
+		fastaPath = tmpDir + "/chr1.fasta";
+		ResourceUtils.copyResourceToFile("/chr1.fasta", new File(fastaPath));
+		ResourceUtils.copyResourceToFile("/chr1.fasta.fai", new File(tmpDir + "/chr1.fasta.fai"));
+	}
+
+	private String copyVCF(String resource) throws Exception {
+		final String path = tmpDir + resource;
+		ResourceUtils.copyResourceToFile(resource, new File(path));
+		ResourceUtils.copyResourceToFile(resource + ".tbi", new File(path + ".tbi"));
+		return path;
+	}
+
+	/** @return all variants of the given VCF file, used as observed variants */
+	private List<VariantContext> loadVariants(String vcfPath) {
+		final List<VariantContext> result = new ArrayList<>();
+		try (VCFFileReader reader = new VCFFileReader(new File(vcfPath), false)) {
+			for (VariantContext vc : reader)
+				result.add(vc);
+		}
+		return result;
+	}
+
+	/** @return default options and options for reporting overlapping variants (as matching) */
+	private List<DBAnnotationOptions> allOptions(boolean inMemory) {
+		final List<DBAnnotationOptions> result = new ArrayList<>();
+		result.add(DBAnnotationOptions.createDefaults());
+		result.add(DBAnnotationOptions.createDefaults());
+		result.get(1).setReportOverlapping(true);
+		result.get(1).setReportOverlappingAsMatching(false);
+		result.add(DBAnnotationOptions.createDefaults());
+		result.get(2).setReportOverlapping(true);
+		result.get(2).setReportOverlappingAsMatching(true);
+		for (DBAnnotationOptions options : result)
+			options.setInMemory(inMemory);
+		return result;
+	}
+
+	private List<String> toStrings(CloseableIterator<VariantContext> iter) {
+		final List<String> result = new ArrayList<>();
+		while (iter.hasNext())
+			result.add(iter.next().toString());
+		iter.close();
+		return result;
+	}
+
+	@Test
+	public void testQuery() throws Exception {
+		final String vcfPath = copyVCF("/clinvar_20161003.head.vcf.gz");
+		final VCFReaderVariantProvider tabix = new VCFReaderVariantProvider(vcfPath);
+		final InMemoryVariantDatabase db = new InMemoryVariantDatabase(vcfPath, new AlleleMatcher(fastaPath));
+
+		final List<VariantContext> variants = loadVariants(vcfPath);
+		Assert.assertEquals(variants.size(), db.size());
+		for (VariantContext vc : variants)
+			for (int delta = -2; delta <= 2; ++delta)
+				Assert.assertEquals(toStrings(tabix.query(vc.getContig(), vc.getStart() + delta, vc.getEnd() + delta)),
+						toStrings(db.query(vc.getContig(), vc.getStart() + delta, vc.getEnd() + delta)));
+		Assert.assertFalse(db.query("unknown", 1, 1000).hasNext());
+	}
+
+	@Test
+	public void testClinVar() throws Exception {
+		final String vcfPath = copyVCF("/clinvar_20161003.head.vcf.gz");
+		final List<VariantContext> variants = loadVariants(vcfPath);
+		final List<DBAnnotationOptions> tabixOptions = allOptions(false);
+		final List<DBAnnotationOptions> inMemoryOptions = allOptions(true);
+		for (int i = 0; i < tabixOptions.size(); ++i) {
+			final ClinVarAnnotationDriver expected = new ClinVarAnnotationDriver(vcfPath, fastaPath,
+					tabixOptions.get(i));
+			final ClinVarAnnotationDriver actual = new ClinVarAnnotationDriver(vcfPath, fastaPath,
+					inMemoryOptions.get(i));
+			for (VariantContext vc : variants)
+				Assert.assertEquals(expected.annotateVariantContext(vc).toString(),
+						actual.annotateVariantContext(vc).toString());
+		}
+	}
+
+	@Test
+	public void testCosmic() throws Exception {
+		final String vcfPath = copyVCF("/COSMIC.v72.fake.vcf.gz");
+		final List<VariantContext> variants = loadVariants(vcfPath);
+		final List<DBAnnotationOptions> tabixOptions = allOptions(false);
+		final List<DBAnnotationOptions> inMemoryOptions = allOptions(true);
+		for (int i = 0; i < tabixOptions.size(); ++i) {
+			final CosmicAnnotationDriver expected = new CosmicAnnotationDriver(vcfPath, fastaPath, tabixOptions.get(i));
+			final CosmicAnnotationDriver actual = new CosmicAnnotationDriver(vcfPath, fastaPath,
+					inMemoryOptions.get(i));
+			for (VariantContext vc : variants)
+				Assert.assertEquals(expected.annotateVariantContext(vc).toString(),
+						actual.annotateVariantContext(vc).toString());
+		}
+	}
+
+	@Test
+	public void testSharedDatabase() throws Exception {
+		final String vcfPath = copyVCF("/clinvar_20161003.head.vcf.gz");
+		final List<VariantContext> variants = loadVariants(vcfPath);
+		final InMemoryVariantDatabase db = new InMemoryVariantDatabase(vcfPath, new AlleleMatcher(fastaPath));
+		for (DBAnnotationOptions options : allOptions(true)) {
+			final ClinVarAnnotationDriver expected = new ClinVarAnnotationDriver(vcfPath, fastaPath, options);
+			final ClinVarAnnotationDriver first = new ClinVarAnnotationDriver(db, fastaPath, options);
+			final ClinVarAnnotationDriver second = new ClinVarAnnotationDriver(db, fastaPath, options);
+			for (VariantContext vc : variants) {
+				Assert.assertEquals(expected.annotateVariantContext(vc).toString(),
+						first.annotateVariantContext(vc).toString());
+				Assert.assertEquals(expected.annotateVariantContext(vc).toString(),
+						second.annotateVariantContext(vc).toString());
+			}
+		}
+	}
+
+}
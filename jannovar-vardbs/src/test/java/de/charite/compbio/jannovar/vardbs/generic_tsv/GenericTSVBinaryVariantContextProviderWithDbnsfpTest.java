@@ -0,0 +1,69 @@
+package de.charite.compbio.jannovar.vardbs.generic_tsv;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for converting dbNSFP to binary database and querying it.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class GenericTSVBinaryVariantContextProviderWithDbnsfpTest
+		extends GenericTSVAnnotationDriverWithDbnsfpBaseTest {
+
+	GenericTSVAnnotationOptions binaryOptions;
+
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+
+		File binaryFile = new File(new File(genericTsvPath).getParentFile(), "dbNSFP.jtsvdb");
+		GenericTSVBinaryDatabaseWriter writer = new GenericTSVBinaryDatabaseWriter(options, binaryFile);
+		writer.convert();
+		Assert.assertTrue(writer.getRecordCount() > 0);
+
+		binaryOptions = new GenericTSVAnnotationOptions(true, false, "DBNSFP_", options.getMultiMatchBehaviour(),
+				binaryFile, GenericTSVAnnotationTarget.VARIANT, true, 1, 2, 2, 3, 4, true, options.getColumnNames(),
+				options.getValueColumnDescriptions());
+	}
+
+	@Test
+	public void testQueryAsTabix() {
+		GenericTSVVariantContextProvider tabixProvider = new GenericTSVVariantContextProvider(options);
+		GenericTSVBinaryVariantContextProvider binaryProvider = new GenericTSVBinaryVariantContextProvider(
+				binaryOptions);
+
+		final int[][] ranges = { { 90, 92 }, { 0, 1 }, { 118, 119 }, { 100, 300 }, { 0, 100000 } };
+		for (int[] range : ranges) {
+			Assert.assertEquals(toStrings(tabixProvider.query("1", range[0], range[1])),
+					toStrings(binaryProvider.query("1", range[0], range[1])));
+		}
+		Assert.assertEquals(6, toStrings(binaryProvider.query("1", 90, 92)).size());
+		Assert.assertTrue(toStrings(binaryProvider.query("2", 90, 92)).isEmpty());
+	}
+
+	@Test
+	public void testAnnotateViaDriver() throws Exception {
+		GenericTSVAnnotationDriver tabixDriver = new GenericTSVAnnotationDriver(fastaPath, options);
+		GenericTSVAnnotationDriver binaryDriver = new GenericTSVAnnotationDriver(fastaPath, binaryOptions);
+
+		VariantContext vc = vcfReader.iterator().next();
+		Assert.assertEquals(tabixDriver.annotateVariantContext(vc).toString(),
+				binaryDriver.annotateVariantContext(vc).toString());
+	}
+
+	private static List<String> toStrings(CloseableIterator<VariantContext> it) {
+		List<String> result = new ArrayList<>();
+		while (it.hasNext())
+			result.add(it.next().toString());
+		it.close();
+		return result;
+	}
+
+}
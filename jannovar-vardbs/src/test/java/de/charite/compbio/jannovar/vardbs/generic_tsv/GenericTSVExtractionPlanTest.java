@@ -0,0 +1,75 @@
+package de.charite.compbio.jannovar.vardbs.generic_tsv;
+
+import com.google.common.collect.ImmutableList;
+import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions.MultipleMatchBehaviour;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFHeaderLineType;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GenericTSVExtractionPlanTest {
+
+	GenericTSVExtractionPlan plan;
+
+	@Before
+	public void setUp() {
+		Map<String, GenericTSVValueColumnDescription> descriptions = new HashMap<>();
+		descriptions.put("FLAG", new GenericTSVValueColumnDescription(5, VCFHeaderLineType.Flag, "FLAG",
+				"Some flag", GenericTSVAccumulationStrategy.CHOOSE_FIRST));
+		descriptions.put("MIN_SCORE", new GenericTSVValueColumnDescription(6, VCFHeaderLineType.Float,
+				"MIN_SCORE", "Minimal score", GenericTSVAccumulationStrategy.CHOOSE_MIN));
+		descriptions.put("MAX_COUNT", new GenericTSVValueColumnDescription(7, VCFHeaderLineType.Integer,
+				"MAX_COUNT", "Maximal count", GenericTSVAccumulationStrategy.CHOOSE_MAX));
+		descriptions.put("NAME_FOR_MIN", new GenericTSVValueColumnDescription(8, VCFHeaderLineType.String,
+				"NAME_FOR_MIN", "Name for minimal score", GenericTSVAccumulationStrategy.CHOOSE_FIRST,
+				"MIN_SCORE"));
+		GenericTSVAnnotationOptions options = new GenericTSVAnnotationOptions(true, false, "TSV_",
+				MultipleMatchBehaviour.BEST_ONLY, new File("/does/not/exist.tsv.gz"),
+				GenericTSVAnnotationTarget.VARIANT, true, 1, 2, 2, 3, 4, true,
+				ImmutableList.of("FLAG", "MIN_SCORE", "MAX_COUNT", "NAME_FOR_MIN"), descriptions);
+		plan = new GenericTSVExtractionPlan(options);
+	}
+
+	@Test
+	public void testParse() {
+		VariantContext vc = plan.parse("1\t100\tA\tC\tY\t0.5;.;-1.25;3e2\t1;7;.;7\tx;y;z;w\tignored");
+		Assert.assertEquals("1", vc.getContig());
+		Assert.assertEquals(100, vc.getStart());
+		Assert.assertEquals("A", vc.getReference().getBaseString());
+		Assert.assertEquals("C", vc.getAlternateAllele(0).getBaseString());
+		Assert.assertEquals(true, vc.getAttribute("FLAG"));
+		Assert.assertEquals(-1.25, (Double) vc.getAttribute("MIN_SCORE"), 0.0);
+		Assert.assertEquals(7, vc.getAttribute("MAX_COUNT"));
+		Assert.assertEquals("z", vc.getAttribute("NAME_FOR_MIN"));
+	}
+
+	@Test
+	public void testParseMissingValues() {
+		VariantContext vc = plan.parse("1\t100\tA\tC\t.\t.\t.\t.");
+		Assert.assertNull(vc.getAttribute("FLAG"));
+		Assert.assertNull(vc.getAttribute("MIN_SCORE"));
+		Assert.assertNull(vc.getAttribute("MAX_COUNT"));
+		Assert.assertEquals(".", vc.getAttribute("NAME_FOR_MIN"));
+	}
+
+	@Test
+	public void testParseDouble() {
+		for (String s : new String[] { "0", "-0", "1.0", "0.13", "0.001", "+2.5", "123456.789012", "1e-3",
+				"0.1234567890123456789", "12345678901234567890", ".5", "5." }) {
+			Assert.assertEquals(s, Double.parseDouble(s), GenericTSVExtractionPlan.parseDouble(s, 0, s.length()),
+					0.0);
+		}
+	}
+
+	@Test
+	public void testParseInt() {
+		for (String s : new String[] { "0", "-1", "+42", "123456789", "-2147483648", "2147483647" }) {
+			Assert.assertEquals(s, Integer.parseInt(s), GenericTSVExtractionPlan.parseInt(s, 0, s.length()));
+		}
+	}
+
+}
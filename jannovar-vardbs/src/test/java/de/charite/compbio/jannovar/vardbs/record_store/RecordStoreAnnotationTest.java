@@ -0,0 +1,129 @@
+package de.charite.compbio.jannovar.vardbs.record_store;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import de.charite.compbio.jannovar.vardbs.base.DBAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.base.DBAnnotationOptions;
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.exac.ExacAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.exac.ExacRecordSerializer;
+import de.charite.compbio.jannovar.vardbs.gnomad.GnomadAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.gnomad.GnomadRecordSerializer;
+import de.charite.compbio.jannovar.vardbs.uk10k.UK10KAnnotationDriver;
+import de.charite.compbio.jannovar.vardbs.uk10k.UK10KRecordSerializer;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+
+/**
+ * Check that annotation from record stores yields the same result as annotation from the original VCF files
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class RecordStoreAnnotationTest {
+
+	private File tmpDir;
+	private String fastaPath;
+
+	@Before
+	public void setUp() throws Exception {
+		tmpDir = Files.createTempDir();
+
+		fastaPath = tmpDir + "/chr1.fasta";
+		ResourceUtils.copyResourceToFile("/chr1.fasta", new File(fastaPath));
+		ResourceUtils.copyResourceToFile("/chr1.fasta.fai", new File(tmpDir + "/chr1.fasta.fai"));
+	}
+
+	private String copyVCF(String resource) throws Exception {
+		final String path = tmpDir + resource;
+		ResourceUtils.copyResourceToFile(resource, new File(path));
+		ResourceUtils.copyResourceToFile(resource + ".tbi", new File(path + ".tbi"));
+		return path;
+	}
+
+	private String convert(RecordSerializer<?> serializer, String vcfPath, String name) throws JannovarVarDBException {
+		final File outFile = new File(tmpDir, name + RecordStore.FILE_SUFFIX);
+		new RecordStoreWriter<>(serializer, fastaPath).convert(new File(vcfPath), outFile);
+		Assert.assertTrue(outFile.exists());
+		Assert.assertTrue(RecordStore.getIndexFile(outFile).exists());
+		return outFile.getPath();
+	}
+
+	/** @return all variants of the given VCF file, used as observed variants */
+	private List<VariantContext> loadVariants(String vcfPath) {
+		final List<VariantContext> result = new ArrayList<>();
+		try (VCFFileReader reader = new VCFFileReader(new File(vcfPath), false)) {
+			for (VariantContext vc : reader)
+				result.add(vc);
+		}
+		return result;
+	}
+
+	private void assertSameAnnotation(DBAnnotationDriver expectedDriver, DBAnnotationDriver actualDriver,
+			List<VariantContext> variants) {
+		for (VariantContext vc : variants)
+			Assert.assertEquals(expectedDriver.annotateVariantContext(vc).toString(),
+					actualDriver.annotateVariantContext(vc).toString());
+	}
+
+	/** @return default options and options for reporting overlapping variants (as matching) */
+	private List<DBAnnotationOptions> allOptions() {
+		final List<DBAnnotationOptions> result = new ArrayList<>();
+		result.add(DBAnnotationOptions.createDefaults());
+		DBAnnotationOptions options = DBAnnotationOptions.createDefaults();
+		options.setReportOverlapping(true);
+		options.setReportOverlappingAsMatching(false);
+		result.add(options);
+		options = DBAnnotationOptions.createDefaults();
+		options.setReportOverlapping(true);
+		options.setReportOverlappingAsMatching(true);
+		result.add(options);
+		return result;
+	}
+
+	@Test
+	public void testGnomad() throws Exception {
+		final String vcfPath = copyVCF("/gnomad.exomes.r2.0.1.sites.head.vcf.gz");
+		final String storePath = convert(new GnomadRecordSerializer(), vcfPath, "gnomad");
+		final List<VariantContext> variants = loadVariants(vcfPath);
+		for (DBAnnotationOptions options : allOptions())
+			assertSameAnnotation(new GnomadAnnotationDriver(vcfPath, fastaPath, options),
+					new GnomadAnnotationDriver(storePath, fastaPath, options), variants);
+	}
+
+	@Test
+	public void testExac() throws Exception {
+		final String vcfPath = copyVCF("/ExAC.r0.3.sites.vep.head.vcf.gz");
+		final String storePath = convert(new ExacRecordSerializer(), vcfPath, "exac");
+		final List<VariantContext> variants = loadVariants(vcfPath);
+		for (DBAnnotationOptions options : allOptions())
+			assertSameAnnotation(new ExacAnnotationDriver(vcfPath, fastaPath, options),
+					new ExacAnnotationDriver(storePath, fastaPath, options), variants);
+	}
+
+	@Test
+	public void testUK10K() throws Exception {
+		final String vcfPath = copyVCF("/UK10K_COHORT.20160215.sites.head.vcf.gz");
+		final String storePath = convert(new UK10KRecordSerializer(), vcfPath, "uk10k");
+		final List<VariantContext> variants = loadVariants(vcfPath);
+		for (DBAnnotationOptions options : allOptions())
+			assertSameAnnotation(new UK10KAnnotationDriver(vcfPath, fastaPath, options),
+					new UK10KAnnotationDriver(storePath, fastaPath, options), variants);
+	}
+
+	@Test(expected = JannovarVarDBException.class)
+	public void testWrongSerializer() throws Exception {
+		final String vcfPath = copyVCF("/UK10K_COHORT.20160215.sites.head.vcf.gz");
+		final String storePath = convert(new UK10KRecordSerializer(), vcfPath, "uk10k");
+		new RecordStoreReader<>(new File(storePath), new ExacRecordSerializer());
+	}
+
+}